@@ -370,9 +370,11 @@ intoPath
 specialClause
     : specialLimit #specialLimitStatement
     | orderByTimeClause specialLimit? #orderByTimeStatement
+    | orderByClause specialLimit? #orderByStatement
     | groupByTimeClause orderByTimeClause? specialLimit? #groupByTimeStatement
     | groupByFillClause orderByTimeClause? specialLimit? #groupByFillStatement
     | groupByLevelClause orderByTimeClause? specialLimit? #groupByLevelStatement
+    | groupByValuesClause specialLimit? #groupByValuesStatement
     | fillClause orderByTimeClause? specialLimit? #fillStatement
     ;
 
@@ -401,6 +403,14 @@ orderByTimeClause
     : ORDER BY TIME (DESC | ASC)?
     ;
 
+orderByClause
+    : ORDER BY orderByAttributeClause (COMMA orderByAttributeClause)*
+    ;
+
+orderByAttributeClause
+    : expression (DESC | ASC)?
+    ;
+
 groupByTimeClause
     : GROUP BY LR_BRACKET timeRange COMMA DURATION_LITERAL (COMMA DURATION_LITERAL)? fillClause? RR_BRACKET
     | GROUP BY LR_BRACKET timeRange COMMA DURATION_LITERAL (COMMA DURATION_LITERAL)? RR_BRACKET
@@ -416,6 +426,10 @@ groupByLevelClause
     : GROUP BY LEVEL operator_eq INTEGER_LITERAL (COMMA INTEGER_LITERAL)* fillClause?
     ;
 
+groupByValuesClause
+    : GROUP BY VALUES LR_BRACKET expression (COMMA expression)* RR_BRACKET
+    ;
+
 fillClause
     : FILL LR_BRACKET (linearClause | previousClause | specificValueClause | previousUntilLastClause | oldTypeClause (COMMA oldTypeClause)*) RR_BRACKET
     ;
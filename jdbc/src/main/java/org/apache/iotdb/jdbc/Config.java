@@ -56,4 +56,7 @@ public class Config {
 
   /** key of thrift max frame size */
   public static final String THRIFT_FRAME_MAX_SIZE = "thrift_max_frame_size";
+
+  /** key of whether to prepare the statements on the server, which binds their parameters */
+  public static final String SERVER_SIDE_PREPARE = "server_side_prepare";
 }
@@ -357,7 +357,8 @@ public class IoTDBConnection implements Connection {
 
   @Override
   public PreparedStatement prepareStatement(String sql) throws SQLException {
-    return new IoTDBPreparedStatement(this, getClient(), sessionId, sql, zoneId);
+    return new IoTDBPreparedStatement(
+        this, getClient(), sessionId, sql, zoneId, params != null && params.isServerSidePrepare());
   }
 
   @Override
@@ -34,6 +34,7 @@ public class IoTDBConnectionParams {
 
   private int thriftDefaultBufferSize = RpcUtils.THRIFT_DEFAULT_BUF_CAPACITY;
   private int thriftMaxFrameSize = RpcUtils.THRIFT_FRAME_MAX_SIZE;
+  private boolean serverSidePrepare = false;
 
   public IoTDBConnectionParams(String url) {
     this.jdbcUriString = url;
@@ -103,6 +104,14 @@ public class IoTDBConnectionParams {
     this.thriftMaxFrameSize = thriftMaxFrameSize;
   }
 
+  public boolean isServerSidePrepare() {
+    return serverSidePrepare;
+  }
+
+  public void setServerSidePrepare(boolean serverSidePrepare) {
+    this.serverSidePrepare = serverSidePrepare;
+  }
+
   public Constant.Version getVersion() {
     return version;
   }
@@ -18,9 +18,14 @@
  */
 package org.apache.iotdb.jdbc;
 
+import org.apache.iotdb.rpc.TSStatusCode;
+import org.apache.iotdb.service.rpc.thrift.TSExecuteStatementReq;
 import org.apache.iotdb.service.rpc.thrift.TSIService.Iface;
+import org.apache.iotdb.service.rpc.thrift.TSPrepareStatementReq;
+import org.apache.iotdb.service.rpc.thrift.TSPrepareStatementResp;
 import org.apache.iotdb.tsfile.utils.Binary;
 
+import org.apache.thrift.TApplicationException;
 import org.apache.thrift.TException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -69,11 +74,35 @@ public class IoTDBPreparedStatement extends IoTDBStatement implements PreparedSt
   /** save the SQL parameters as (paramLoc,paramValue) pairs. */
   private final Map<Integer, String> parameters = new HashMap<>();
 
+  /**
+   * Whether to prepare the SQL on the server, which binds the parameters and reuses the analyzed
+   * plan of the SQL. It falls back to binding the parameters here if the server does not support.
+   */
+  private boolean serverSidePrepare;
+
+  /** the statement id on which the SQL is prepared on the server, -1 if not prepared yet */
+  private long preparedStatementId = -1;
+
+  /** the number of parameter slots in the SQL recognized by the server */
+  private int preparedParameterCount;
+
   IoTDBPreparedStatement(
       IoTDBConnection connection, Iface client, Long sessionId, String sql, ZoneId zoneId)
       throws SQLException {
+    this(connection, client, sessionId, sql, zoneId, false);
+  }
+
+  IoTDBPreparedStatement(
+      IoTDBConnection connection,
+      Iface client,
+      Long sessionId,
+      String sql,
+      ZoneId zoneId,
+      boolean serverSidePrepare)
+      throws SQLException {
     super(connection, client, sessionId, zoneId);
     this.sql = sql;
+    this.serverSidePrepare = serverSidePrepare;
   }
 
   @Override
@@ -101,6 +130,54 @@ public class IoTDBPreparedStatement extends IoTDBStatement implements PreparedSt
     return super.executeUpdate(createCompleteSql(sql, parameters));
   }
 
+  /**
+   * Send the prepared SQL and the parameters instead of the complete SQL, if the SQL is prepared on
+   * the server.
+   */
+  @Override
+  TSExecuteStatementReq createExecuteStatementReq(String completeSql) throws TException {
+    TSExecuteStatementReq execReq = super.createExecuteStatementReq(completeSql);
+    if (!serverSidePrepare || !prepareOnServer(execReq.getSessionId(), execReq.getStatementId())) {
+      return execReq;
+    }
+    List<String> parameterList = new ArrayList<>(preparedParameterCount);
+    for (int i = 1; i <= preparedParameterCount; i++) {
+      if (!parameters.containsKey(i)) {
+        // the server recognizes the parameter slots differently, let it execute the complete SQL
+        return execReq;
+      }
+      parameterList.add(parameters.get(i));
+    }
+    execReq.setStatement(sql);
+    execReq.setParameters(parameterList);
+    return execReq;
+  }
+
+  private boolean prepareOnServer(long sessionId, long statementId) throws TException {
+    if (preparedStatementId == statementId) {
+      return true;
+    }
+    TSPrepareStatementResp resp;
+    try {
+      resp = client.prepareStatement(new TSPrepareStatementReq(sessionId, statementId, sql));
+    } catch (TApplicationException e) {
+      // the server is of an older version without prepareStatement()
+      logger.debug("Fail to prepare the statement on the server, bind the parameters here", e);
+      serverSidePrepare = false;
+      return false;
+    }
+    if (resp.getStatus().getCode() != TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
+      logger.debug(
+          "Fail to prepare the statement on the server because {}, bind the parameters here",
+          resp.getStatus().getMessage());
+      serverSidePrepare = false;
+      return false;
+    }
+    preparedStatementId = statementId;
+    preparedParameterCount = resp.getParameterCount();
+    return true;
+  }
+
   @Override
   public ResultSetMetaData getMetaData() throws SQLException {
     throw new SQLException(METHOD_NOT_SUPPORTED_STRING);
@@ -243,6 +243,11 @@ public class IoTDBStatement implements Statement {
     throw new SQLException(NOT_SUPPORT_EXECUTE);
   }
 
+  /** Create the request to execute the SQL, which the prepared statements may change. */
+  TSExecuteStatementReq createExecuteStatementReq(String sql) throws TException {
+    return new TSExecuteStatementReq(sessionId, sql, stmtId);
+  }
+
   /**
    * There are two kinds of sql here: (1) query sql (2) update sql.
    *
@@ -250,7 +255,7 @@ public class IoTDBStatement implements Statement {
    */
   private boolean executeSQL(String sql) throws TException, SQLException {
     isCancelled = false;
-    TSExecuteStatementReq execReq = new TSExecuteStatementReq(sessionId, sql, stmtId);
+    TSExecuteStatementReq execReq = createExecuteStatementReq(sql);
     int rows = fetchSize;
     if (maxRows != 0 && fetchSize > maxRows) {
       rows = maxRows;
@@ -397,7 +402,7 @@ public class IoTDBStatement implements Statement {
 
   private ResultSet executeQuerySQL(String sql, long timeoutInMS) throws TException, SQLException {
     isCancelled = false;
-    TSExecuteStatementReq execReq = new TSExecuteStatementReq(sessionId, sql, stmtId);
+    TSExecuteStatementReq execReq = createExecuteStatementReq(sql);
     int rows = fetchSize;
     if (maxRows != 0 && fetchSize > maxRows) {
       rows = maxRows;
@@ -554,7 +559,7 @@ public class IoTDBStatement implements Statement {
   }
 
   private int executeUpdateSQL(String sql) throws TException, IoTDBSQLException {
-    TSExecuteStatementReq execReq = new TSExecuteStatementReq(sessionId, sql, stmtId);
+    TSExecuteStatementReq execReq = createExecuteStatementReq(sql);
     TSExecuteStatementResp execResp = client.executeUpdateStatement(execReq);
     if (execResp.isSetQueryId()) {
       queryId = execResp.getQueryId();
@@ -74,6 +74,10 @@ public class Utils {
     if (info.containsKey(Config.VERSION)) {
       params.setVersion(Constant.Version.valueOf(info.getProperty(Config.VERSION)));
     }
+    if (info.containsKey(Config.SERVER_SIDE_PREPARE)) {
+      params.setServerSidePrepare(
+          Boolean.parseBoolean(info.getProperty(Config.SERVER_SIDE_PREPARE)));
+    }
 
     return params;
   }
@@ -110,6 +114,13 @@ public class Utils {
         case Config.VERSION:
           info.put(key, value);
           break;
+        case Config.SERVER_SIDE_PREPARE:
+          if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
+            info.put(key, value);
+          } else {
+            return false;
+          }
+          break;
         default:
           return false;
       }
@@ -40,6 +40,7 @@ public enum ThreadName {
   COMPACTION_SERVICE("Compaction"),
   COMPACTION_SUB_SERVICE("Sub-Compaction"),
   COMPACTION_SCHEDULE("Compaction_Schedule"),
+  CACHE_MEMORY_REBALANCE("Cache-Memory-Rebalance"),
   WAL_SERIALIZE("WAL-Serialize"),
   WAL_SYNC("WAL-Sync"),
   WAL_DELETE("WAL-Delete"),
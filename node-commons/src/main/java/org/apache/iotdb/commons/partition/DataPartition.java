@@ -67,6 +67,10 @@ public class DataPartition extends Partition {
     this.dataPartitionMap = dataPartitionMap;
   }
 
+  public TSeriesPartitionSlot getSeriesPartitionSlot(String deviceName) {
+    return calculateDeviceGroupId(deviceName);
+  }
+
   public List<TRegionReplicaSet> getDataRegionReplicaSet(
       String deviceName, List<TTimePartitionSlot> timePartitionSlotList) {
     String storageGroup = getStorageGroupByDevice(deviceName);
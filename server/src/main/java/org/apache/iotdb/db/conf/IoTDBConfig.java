@@ -39,6 +39,7 @@ import org.apache.iotdb.rpc.RpcTransportFactory;
 import org.apache.iotdb.rpc.RpcUtils;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.fileSystem.FSType;
@@ -377,8 +378,20 @@ public class IoTDBConfig {
   private boolean enableCrossSpaceCompaction = true;
 
   /**
-   * The strategy of inner space compaction task. There are just one inner space compaction strategy
-   * SIZE_TIRED_COMPACTION:
+   * Replace the raw data of old sequence files with window aggregations according to {@link
+   * #downsamplingCompactionPolicy}
+   */
+  private boolean enableDownsamplingCompaction = false;
+
+  /**
+   * The downsampling tiers of storage groups, separated by ';'. Each tier is "storage group,age in
+   * ms,window in ms,target path pattern", see DownsamplingPolicy for details.
+   */
+  private String downsamplingCompactionPolicy = "";
+
+  /**
+   * The strategy of inner space compaction task. There are two inner space compaction strategies
+   * SIZE_TIERED and LEVELED.
    */
   private InnerSequenceCompactionSelector innerSequenceCompactionSelector =
       InnerSequenceCompactionSelector.SIZE_TIERED;
@@ -400,6 +413,12 @@ public class IoTDBConfig {
 
   private CrossCompactionPerformer crossCompactionPerformer = CrossCompactionPerformer.READ_POINT;
 
+  /**
+   * Whether the read point cross space compaction copies the chunks and pages of sequence files
+   * which are not overlapped by unsequence data into the target files without deserializing them.
+   */
+  private boolean enableCrossCompactionSeqChunkReuse = true;
+
   /**
    * The priority of compaction task execution. There are three priority strategy INNER_CROSS:
    * prioritize inner space compaction, reduce the number of files first CROSS INNER: prioritize
@@ -408,6 +427,15 @@ public class IoTDBConfig {
    */
   private CompactionPriority compactionPriority = CompactionPriority.BALANCE;
 
+  /**
+   * The max size of level 0 files for leveled compaction selector, the max file size of each higher
+   * level is leveledCompactionFanOut times of the lower one. 10 MB by default.
+   */
+  private long leveledCompactionBaseFileSize = 10485760L;
+
+  /** The number of files in one level to be compacted together by leveled compaction selector */
+  private int leveledCompactionFanOut = 10;
+
   /** The target tsfile size in compaction, 1 GB by default */
   private long targetCompactionFileSize = 1073741824L;
 
@@ -453,6 +481,19 @@ public class IoTDBConfig {
    */
   private int subCompactionTaskNum = 4;
 
+  /**
+   * Whether to compact the devices of one inner space sequence compaction task concurrently. The
+   * devices are encoded into memory by at most subCompactionTaskNum threads and appended to the
+   * target file in device order.
+   */
+  private boolean enableDeviceParallelInnerCompaction = false;
+
+  /**
+   * How much memory (in byte) can be used by all compaction tasks to buffer the encoded devices
+   * which are waiting to be appended to the target file, 5% of maximum JVM memory by default.
+   */
+  private long compactionBufferMemoryBudget = (long) (Runtime.getRuntime().maxMemory() * 0.05);
+
   /** whether to cache meta data(ChunkMetaData and TsFileMetaData) or not. */
   private boolean metaDataCacheEnable = true;
 
@@ -465,9 +506,63 @@ public class IoTDBConfig {
   /** Memory allocated for chunk cache in read process */
   private long allocateMemoryForChunkCache = allocateMemoryForRead * 100 / 1001;
 
+  /**
+   * Off-heap memory (in byte) used as the second tier of chunk cache, which keeps the compressed
+   * bytes of the chunks evicted from the on-heap tier. 0 to disable it.
+   */
+  private long allocateMemoryForOffHeapChunkCache = 0L;
+
+  /**
+   * Memory (in byte) used to cache the decoded pages of sealed TsFiles, which is not counted in the
+   * read memory above. 0 to disable it.
+   */
+  private long allocateMemoryForDecodedPageCache = 0L;
+
+  /**
+   * Memory (in byte) used to cache the per-window results of GROUP BY time queries in the MPP
+   * coordinator, which is not counted in the read memory above. 0 to disable it.
+   */
+  private long allocateMemoryForGroupByTimeResultCache = 0L;
+
+  /**
+   * Max number of the analyzed plans of repeated queries cached in the MPP coordinator, so that a
+   * repeated query skips parsing, analyzing and logical planning. 0 to disable it.
+   */
+  private int analyzedPlanCacheSize = 0;
+
+  /**
+   * Time (in ms) after which a cached analyzed plan expires. It bounds how long a plan misses the
+   * timeseries created through the other data nodes, which are not notified to this one.
+   */
+  private long analyzedPlanCacheExpireTimeInMs = 60_000L;
+
+  /**
+   * Whether to periodically move memory budget among chunk cache, timeseries metadata cache and
+   * bloom filter cache according to their marginal hit gains.
+   */
+  private boolean enableCacheMemoryRebalance = false;
+
+  /** The interval of rebalancing the memory budget of read caches, in ms. */
+  private long cacheMemoryRebalanceIntervalInMs = 60_000L;
+
   /** Whether to enable Last cache */
   private boolean lastCacheEnable = true;
 
+  /**
+   * Whether to persist the last cache of each data region when memtables are flushed, so that it
+   * can be reloaded after a restart
+   */
+  private boolean enableLastCachePersistence = false;
+
+  /**
+   * Max number of series whose last values are persisted for one data region. The least recently
+   * updated devices are forgotten beyond it.
+   */
+  private int lastCachePersistenceMaxSeriesPerRegion = 100_000;
+
+  /** Time after which a recovered last value is dropped if its series is not cached yet, in ms. */
+  private long recoveredLastCacheExpireTimeInMs = 3_600_000L;
+
   /** Set true to enable statistics monitor service, false to disable statistics service. */
   private boolean enableStatMonitor = false;
 
@@ -489,6 +584,60 @@ public class IoTDBConfig {
    */
   private int externalSortThreshold = 1000;
 
+  /**
+   * The max memory (in byte) used by one sort operator in the MPP engine, the sorted runs are
+   * spilled to the query dir beyond it.
+   */
+  private long sortBufferSizeInByte = 32 * 1024 * 1024L;
+
+  /**
+   * The max memory (in byte) used by the hash table of one hash aggregation operator in the MPP
+   * engine, the partial results are spilled to the query dir beyond it.
+   */
+  private long hashAggregationBufferSizeInByte = 32 * 1024 * 1024L;
+
+  /**
+   * The max memory (in byte) used by the cached TsBlocks of one linear fill operator in the MPP
+   * engine, the TsBlocks are spilled to the query dir beyond it.
+   */
+  private long fillBufferSizeInByte = 32 * 1024 * 1024L;
+
+  /** The compression of the TsBlocks spilled to the query dir by the operators. */
+  private CompressionType spillCompressionType = CompressionType.LZ4;
+
+  /**
+   * The max number of drivers a series scan in one DataRegion is split into in the MPP engine, each
+   * of which reads a disjoint time range, 1 means no split.
+   */
+  private int maxScanParallelismInRegion = 4;
+
+  /**
+   * The min estimated size of the TsFiles read by each split of a series scan in one DataRegion.
+   * Only used when the statistics of the DataRegion are available on the planning DataNode.
+   */
+  private long minScanSplitSizeInByte = 16 * 1024 * 1024L;
+
+  /** Names of the rules skipped by the rule based plan optimizer of the MPP engine. */
+  private String[] disabledPlanOptimizerRules = {};
+
+  /**
+   * The resource groups of the queries in the MPP engine, separated by ';'. Each group is "name,cpu
+   * share,max running queries,memory proportion", see ResourceGroupManager for details.
+   */
+  private String resourceGroups = "";
+
+  /**
+   * The rules assigning the queries to the resource groups, separated by ';'. Each rule is
+   * "user:name=group" or "type:last|aggregation|raw=group", and the first matched one is used.
+   */
+  private String resourceGroupSelectors = "";
+
+  /** The max time (in ms) a query waits in the queue of its resource group before it fails. */
+  private long resourceGroupMaxQueuedTimeInMs = 60_000L;
+
+  /** The max number of the queries queued in all the resource groups, beyond which they fail. */
+  private int resourceGroupMaxQueuedQueries = 100;
+
   /** If this IoTDB instance is a receiver of sync, set the server port. */
   private int pipeServerPort = 6670;
 
@@ -614,6 +763,35 @@ public class IoTDBConfig {
   /** The limit of compaction merge can reach per second */
   private int compactionWriteThroughputMbPerSec = 16;
 
+  /**
+   * Whether to adjust the compaction write throughput and the number of running compaction tasks
+   * according to the foreground pressure (query latency, flush backlog and disk utilization). If
+   * enabled, compactionWriteThroughputMbPerSec and concurrentCompactionThread become the upper
+   * bounds of the adjustment.
+   */
+  private boolean enableAdaptiveCompactionThrottle = false;
+
+  /** The interval of checking the foreground pressure by the compaction throttle. Unit: ms */
+  private long compactionThrottleCheckIntervalInMs = 5000L;
+
+  /**
+   * The compaction is slowed down when the p99 latency of the recent queries exceeds this
+   * threshold. Unit: ms
+   */
+  private long compactionThrottleQueryP99ThresholdInMs = 1000L;
+
+  /** The compaction is slowed down when the pending flush tasks reach this threshold. */
+  private int compactionThrottleFlushBacklogThreshold = 4;
+
+  /**
+   * The compaction is slowed down when the utilization of any disk reaches this threshold. Only
+   * available on Linux.
+   */
+  private double compactionThrottleDiskUtilizationThreshold = 0.9;
+
+  /** The lower bound of the compaction write throughput set by the compaction throttle. */
+  private int compactionThrottleMinWriteThroughputMbPerSec = 2;
+
   /**
    * How many thread will be set up to perform compaction, 10 by default. Set to 1 when less than or
    * equal to 0.
@@ -705,6 +883,12 @@ public class IoTDBConfig {
   /** the default fill interval in LinearFill and PreviousFill, -1 means infinite past time */
   private int defaultFillInterval = -1;
 
+  /**
+   * Whether to compile the filter and projection expressions of the mpp engine into bytecode. The
+   * expressions are interpreted column by column if it is disabled or the compilation fails.
+   */
+  private boolean enableExpressionCodeGeneration = true;
+
   /** The default value of primitive array size in array pool */
   private int primitiveArraySize = 32;
 
@@ -880,6 +1064,15 @@ public class IoTDBConfig {
   /** Thread keep alive time in ms of data block manager. */
   private int dataBlockManagerKeepAliveTimeInMs = 1000;
 
+  /** Compression of the data blocks sent to the other data nodes. */
+  private CompressionType dataBlockCompressionType = CompressionType.UNCOMPRESSED;
+
+  /**
+   * The max bytes of data blocks a source handle fetches ahead of consumption, as a proportion of
+   * the memory a query can use in the query memory pool. Non-positive means no limit.
+   */
+  private double dataBlockMaxBufferProportion = 0.1;
+
   /** Thrift socket and connection timeout between data node and config node. */
   private int connectionTimeoutInMS = (int) TimeUnit.SECONDS.toMillis(20);
 
@@ -994,6 +1187,14 @@ public class IoTDBConfig {
     this.defaultFillInterval = defaultFillInterval;
   }
 
+  public boolean isEnableExpressionCodeGeneration() {
+    return enableExpressionCodeGeneration;
+  }
+
+  public void setEnableExpressionCodeGeneration(boolean enableExpressionCodeGeneration) {
+    this.enableExpressionCodeGeneration = enableExpressionCodeGeneration;
+  }
+
   public boolean isEnablePartition() {
     return enablePartition;
   }
@@ -1690,6 +1891,94 @@ public class IoTDBConfig {
     this.externalSortThreshold = externalSortThreshold;
   }
 
+  public long getSortBufferSizeInByte() {
+    return sortBufferSizeInByte;
+  }
+
+  public void setSortBufferSizeInByte(long sortBufferSizeInByte) {
+    this.sortBufferSizeInByte = sortBufferSizeInByte;
+  }
+
+  public long getHashAggregationBufferSizeInByte() {
+    return hashAggregationBufferSizeInByte;
+  }
+
+  public void setHashAggregationBufferSizeInByte(long hashAggregationBufferSizeInByte) {
+    this.hashAggregationBufferSizeInByte = hashAggregationBufferSizeInByte;
+  }
+
+  public long getFillBufferSizeInByte() {
+    return fillBufferSizeInByte;
+  }
+
+  public void setFillBufferSizeInByte(long fillBufferSizeInByte) {
+    this.fillBufferSizeInByte = fillBufferSizeInByte;
+  }
+
+  public CompressionType getSpillCompressionType() {
+    return spillCompressionType;
+  }
+
+  public void setSpillCompressionType(CompressionType spillCompressionType) {
+    this.spillCompressionType = spillCompressionType;
+  }
+
+  public int getMaxScanParallelismInRegion() {
+    return maxScanParallelismInRegion;
+  }
+
+  public void setMaxScanParallelismInRegion(int maxScanParallelismInRegion) {
+    this.maxScanParallelismInRegion = maxScanParallelismInRegion;
+  }
+
+  public long getMinScanSplitSizeInByte() {
+    return minScanSplitSizeInByte;
+  }
+
+  public void setMinScanSplitSizeInByte(long minScanSplitSizeInByte) {
+    this.minScanSplitSizeInByte = minScanSplitSizeInByte;
+  }
+
+  public String[] getDisabledPlanOptimizerRules() {
+    return disabledPlanOptimizerRules;
+  }
+
+  public void setDisabledPlanOptimizerRules(String[] disabledPlanOptimizerRules) {
+    this.disabledPlanOptimizerRules = disabledPlanOptimizerRules;
+  }
+
+  public String getResourceGroups() {
+    return resourceGroups;
+  }
+
+  public void setResourceGroups(String resourceGroups) {
+    this.resourceGroups = resourceGroups;
+  }
+
+  public String getResourceGroupSelectors() {
+    return resourceGroupSelectors;
+  }
+
+  public void setResourceGroupSelectors(String resourceGroupSelectors) {
+    this.resourceGroupSelectors = resourceGroupSelectors;
+  }
+
+  public long getResourceGroupMaxQueuedTimeInMs() {
+    return resourceGroupMaxQueuedTimeInMs;
+  }
+
+  public void setResourceGroupMaxQueuedTimeInMs(long resourceGroupMaxQueuedTimeInMs) {
+    this.resourceGroupMaxQueuedTimeInMs = resourceGroupMaxQueuedTimeInMs;
+  }
+
+  public int getResourceGroupMaxQueuedQueries() {
+    return resourceGroupMaxQueuedQueries;
+  }
+
+  public void setResourceGroupMaxQueuedQueries(int resourceGroupMaxQueuedQueries) {
+    this.resourceGroupMaxQueuedQueries = resourceGroupMaxQueuedQueries;
+  }
+
   public boolean isEnablePartialInsert() {
     return enablePartialInsert;
   }
@@ -1764,6 +2053,59 @@ public class IoTDBConfig {
     this.compactionWriteThroughputMbPerSec = compactionWriteThroughputMbPerSec;
   }
 
+  public boolean isEnableAdaptiveCompactionThrottle() {
+    return enableAdaptiveCompactionThrottle;
+  }
+
+  public void setEnableAdaptiveCompactionThrottle(boolean enableAdaptiveCompactionThrottle) {
+    this.enableAdaptiveCompactionThrottle = enableAdaptiveCompactionThrottle;
+  }
+
+  public long getCompactionThrottleCheckIntervalInMs() {
+    return compactionThrottleCheckIntervalInMs;
+  }
+
+  public void setCompactionThrottleCheckIntervalInMs(long compactionThrottleCheckIntervalInMs) {
+    this.compactionThrottleCheckIntervalInMs = compactionThrottleCheckIntervalInMs;
+  }
+
+  public long getCompactionThrottleQueryP99ThresholdInMs() {
+    return compactionThrottleQueryP99ThresholdInMs;
+  }
+
+  public void setCompactionThrottleQueryP99ThresholdInMs(
+      long compactionThrottleQueryP99ThresholdInMs) {
+    this.compactionThrottleQueryP99ThresholdInMs = compactionThrottleQueryP99ThresholdInMs;
+  }
+
+  public int getCompactionThrottleFlushBacklogThreshold() {
+    return compactionThrottleFlushBacklogThreshold;
+  }
+
+  public void setCompactionThrottleFlushBacklogThreshold(
+      int compactionThrottleFlushBacklogThreshold) {
+    this.compactionThrottleFlushBacklogThreshold = compactionThrottleFlushBacklogThreshold;
+  }
+
+  public double getCompactionThrottleDiskUtilizationThreshold() {
+    return compactionThrottleDiskUtilizationThreshold;
+  }
+
+  public void setCompactionThrottleDiskUtilizationThreshold(
+      double compactionThrottleDiskUtilizationThreshold) {
+    this.compactionThrottleDiskUtilizationThreshold = compactionThrottleDiskUtilizationThreshold;
+  }
+
+  public int getCompactionThrottleMinWriteThroughputMbPerSec() {
+    return compactionThrottleMinWriteThroughputMbPerSec;
+  }
+
+  public void setCompactionThrottleMinWriteThroughputMbPerSec(
+      int compactionThrottleMinWriteThroughputMbPerSec) {
+    this.compactionThrottleMinWriteThroughputMbPerSec =
+        compactionThrottleMinWriteThroughputMbPerSec;
+  }
+
   public boolean isEnableMemControl() {
     return enableMemControl;
   }
@@ -1885,6 +2227,63 @@ public class IoTDBConfig {
     this.allocateMemoryForChunkCache = allocateMemoryForChunkCache;
   }
 
+  public long getAllocateMemoryForOffHeapChunkCache() {
+    return allocateMemoryForOffHeapChunkCache;
+  }
+
+  public void setAllocateMemoryForOffHeapChunkCache(long allocateMemoryForOffHeapChunkCache) {
+    this.allocateMemoryForOffHeapChunkCache = allocateMemoryForOffHeapChunkCache;
+  }
+
+  public long getAllocateMemoryForDecodedPageCache() {
+    return allocateMemoryForDecodedPageCache;
+  }
+
+  public void setAllocateMemoryForDecodedPageCache(long allocateMemoryForDecodedPageCache) {
+    this.allocateMemoryForDecodedPageCache = allocateMemoryForDecodedPageCache;
+  }
+
+  public long getAllocateMemoryForGroupByTimeResultCache() {
+    return allocateMemoryForGroupByTimeResultCache;
+  }
+
+  public void setAllocateMemoryForGroupByTimeResultCache(
+      long allocateMemoryForGroupByTimeResultCache) {
+    this.allocateMemoryForGroupByTimeResultCache = allocateMemoryForGroupByTimeResultCache;
+  }
+
+  public int getAnalyzedPlanCacheSize() {
+    return analyzedPlanCacheSize;
+  }
+
+  public void setAnalyzedPlanCacheSize(int analyzedPlanCacheSize) {
+    this.analyzedPlanCacheSize = analyzedPlanCacheSize;
+  }
+
+  public long getAnalyzedPlanCacheExpireTimeInMs() {
+    return analyzedPlanCacheExpireTimeInMs;
+  }
+
+  public void setAnalyzedPlanCacheExpireTimeInMs(long analyzedPlanCacheExpireTimeInMs) {
+    this.analyzedPlanCacheExpireTimeInMs = analyzedPlanCacheExpireTimeInMs;
+  }
+
+  public boolean isEnableCacheMemoryRebalance() {
+    return enableCacheMemoryRebalance;
+  }
+
+  public void setEnableCacheMemoryRebalance(boolean enableCacheMemoryRebalance) {
+    this.enableCacheMemoryRebalance = enableCacheMemoryRebalance;
+  }
+
+  public long getCacheMemoryRebalanceIntervalInMs() {
+    return cacheMemoryRebalanceIntervalInMs;
+  }
+
+  public void setCacheMemoryRebalanceIntervalInMs(long cacheMemoryRebalanceIntervalInMs) {
+    this.cacheMemoryRebalanceIntervalInMs = cacheMemoryRebalanceIntervalInMs;
+  }
+
   public boolean isLastCacheEnabled() {
     return lastCacheEnable;
   }
@@ -1893,6 +2292,31 @@ public class IoTDBConfig {
     this.lastCacheEnable = lastCacheEnable;
   }
 
+  public boolean isEnableLastCachePersistence() {
+    return enableLastCachePersistence;
+  }
+
+  public void setEnableLastCachePersistence(boolean enableLastCachePersistence) {
+    this.enableLastCachePersistence = enableLastCachePersistence;
+  }
+
+  public int getLastCachePersistenceMaxSeriesPerRegion() {
+    return lastCachePersistenceMaxSeriesPerRegion;
+  }
+
+  public void setLastCachePersistenceMaxSeriesPerRegion(
+      int lastCachePersistenceMaxSeriesPerRegion) {
+    this.lastCachePersistenceMaxSeriesPerRegion = lastCachePersistenceMaxSeriesPerRegion;
+  }
+
+  public long getRecoveredLastCacheExpireTimeInMs() {
+    return recoveredLastCacheExpireTimeInMs;
+  }
+
+  public void setRecoveredLastCacheExpireTimeInMs(long recoveredLastCacheExpireTimeInMs) {
+    this.recoveredLastCacheExpireTimeInMs = recoveredLastCacheExpireTimeInMs;
+  }
+
   public boolean isEnableWatermark() {
     return enableWatermark;
   }
@@ -2477,6 +2901,22 @@ public class IoTDBConfig {
     this.enableCrossSpaceCompaction = enableCrossSpaceCompaction;
   }
 
+  public boolean isEnableDownsamplingCompaction() {
+    return enableDownsamplingCompaction;
+  }
+
+  public void setEnableDownsamplingCompaction(boolean enableDownsamplingCompaction) {
+    this.enableDownsamplingCompaction = enableDownsamplingCompaction;
+  }
+
+  public String getDownsamplingCompactionPolicy() {
+    return downsamplingCompactionPolicy;
+  }
+
+  public void setDownsamplingCompactionPolicy(String downsamplingCompactionPolicy) {
+    this.downsamplingCompactionPolicy = downsamplingCompactionPolicy;
+  }
+
   public InnerSequenceCompactionSelector getInnerSequenceCompactionSelector() {
     return innerSequenceCompactionSelector;
   }
@@ -2529,6 +2969,14 @@ public class IoTDBConfig {
     this.crossCompactionPerformer = crossCompactionPerformer;
   }
 
+  public boolean isEnableCrossCompactionSeqChunkReuse() {
+    return enableCrossCompactionSeqChunkReuse;
+  }
+
+  public void setEnableCrossCompactionSeqChunkReuse(boolean enableCrossCompactionSeqChunkReuse) {
+    this.enableCrossCompactionSeqChunkReuse = enableCrossCompactionSeqChunkReuse;
+  }
+
   public CompactionPriority getCompactionPriority() {
     return compactionPriority;
   }
@@ -2625,6 +3073,38 @@ public class IoTDBConfig {
     this.subCompactionTaskNum = subCompactionTaskNum;
   }
 
+  public long getLeveledCompactionBaseFileSize() {
+    return leveledCompactionBaseFileSize;
+  }
+
+  public void setLeveledCompactionBaseFileSize(long leveledCompactionBaseFileSize) {
+    this.leveledCompactionBaseFileSize = leveledCompactionBaseFileSize;
+  }
+
+  public int getLeveledCompactionFanOut() {
+    return leveledCompactionFanOut;
+  }
+
+  public void setLeveledCompactionFanOut(int leveledCompactionFanOut) {
+    this.leveledCompactionFanOut = leveledCompactionFanOut;
+  }
+
+  public boolean isEnableDeviceParallelInnerCompaction() {
+    return enableDeviceParallelInnerCompaction;
+  }
+
+  public void setEnableDeviceParallelInnerCompaction(boolean enableDeviceParallelInnerCompaction) {
+    this.enableDeviceParallelInnerCompaction = enableDeviceParallelInnerCompaction;
+  }
+
+  public long getCompactionBufferMemoryBudget() {
+    return compactionBufferMemoryBudget;
+  }
+
+  public void setCompactionBufferMemoryBudget(long compactionBufferMemoryBudget) {
+    this.compactionBufferMemoryBudget = compactionBufferMemoryBudget;
+  }
+
   public String getDeviceIDTransformationMethod() {
     return deviceIDTransformationMethod;
   }
@@ -2793,6 +3273,22 @@ public class IoTDBConfig {
     this.dataBlockManagerKeepAliveTimeInMs = dataBlockManagerKeepAliveTimeInMs;
   }
 
+  public CompressionType getDataBlockCompressionType() {
+    return dataBlockCompressionType;
+  }
+
+  public void setDataBlockCompressionType(CompressionType dataBlockCompressionType) {
+    this.dataBlockCompressionType = dataBlockCompressionType;
+  }
+
+  public double getDataBlockMaxBufferProportion() {
+    return dataBlockMaxBufferProportion;
+  }
+
+  public void setDataBlockMaxBufferProportion(double dataBlockMaxBufferProportion) {
+    this.dataBlockMaxBufferProportion = dataBlockMaxBufferProportion;
+  }
+
   public int getConnectionTimeoutInMS() {
     return connectionTimeoutInMS;
   }
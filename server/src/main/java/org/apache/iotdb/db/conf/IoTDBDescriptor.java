@@ -43,6 +43,7 @@ import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
 import org.apache.iotdb.metrics.config.ReloadLevel;
 import org.apache.iotdb.rpc.RpcTransportFactory;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.fileSystem.FSType;
@@ -60,6 +61,7 @@ import java.net.InetAddress;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.UnknownHostException;
+import java.util.Arrays;
 import java.util.Properties;
 
 public class IoTDBDescriptor {
@@ -229,6 +231,54 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "meta_data_cache_enable", Boolean.toString(conf.isMetaDataCacheEnable()))));
 
+      conf.setAllocateMemoryForOffHeapChunkCache(
+          Long.parseLong(
+                  properties.getProperty(
+                      "off_heap_chunk_cache_memory_in_mb",
+                      Long.toString(conf.getAllocateMemoryForOffHeapChunkCache() / 1024 / 1024)))
+              * 1024
+              * 1024);
+
+      conf.setAllocateMemoryForDecodedPageCache(
+          Long.parseLong(
+                  properties.getProperty(
+                      "decoded_page_cache_memory_in_mb",
+                      Long.toString(conf.getAllocateMemoryForDecodedPageCache() / 1024 / 1024)))
+              * 1024
+              * 1024);
+
+      conf.setAllocateMemoryForGroupByTimeResultCache(
+          Long.parseLong(
+                  properties.getProperty(
+                      "group_by_time_result_cache_memory_in_mb",
+                      Long.toString(
+                          conf.getAllocateMemoryForGroupByTimeResultCache() / 1024 / 1024)))
+              * 1024
+              * 1024);
+
+      conf.setAnalyzedPlanCacheSize(
+          Integer.parseInt(
+              properties.getProperty(
+                  "analyzed_plan_cache_size", Integer.toString(conf.getAnalyzedPlanCacheSize()))));
+
+      conf.setAnalyzedPlanCacheExpireTimeInMs(
+          Long.parseLong(
+              properties.getProperty(
+                  "analyzed_plan_cache_expire_time_in_ms",
+                  Long.toString(conf.getAnalyzedPlanCacheExpireTimeInMs()))));
+
+      conf.setEnableCacheMemoryRebalance(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_cache_memory_rebalance",
+                  Boolean.toString(conf.isEnableCacheMemoryRebalance()))));
+
+      conf.setCacheMemoryRebalanceIntervalInMs(
+          Long.parseLong(
+              properties.getProperty(
+                  "cache_memory_rebalance_interval_in_ms",
+                  Long.toString(conf.getCacheMemoryRebalanceIntervalInMs()))));
+
       initMemoryAllocate(properties);
 
       loadWALProps(properties);
@@ -357,6 +407,17 @@ public class IoTDBDescriptor {
                   "enable_cross_space_compaction",
                   Boolean.toString(conf.isEnableCrossSpaceCompaction()))));
 
+      conf.setEnableDownsamplingCompaction(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_downsampling_compaction",
+                  Boolean.toString(conf.isEnableDownsamplingCompaction()))));
+
+      conf.setDownsamplingCompactionPolicy(
+          properties
+              .getProperty("downsampling_compaction_policy", conf.getDownsamplingCompactionPolicy())
+              .trim());
+
       conf.setEnableSeqSpaceCompaction(
           Boolean.parseBoolean(
               properties.getProperty(
@@ -399,6 +460,25 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "cross_performer", conf.getCrossCompactionPerformer().toString())));
 
+      conf.setEnableCrossCompactionSeqChunkReuse(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_cross_compaction_seq_chunk_reuse",
+                  String.valueOf(conf.isEnableCrossCompactionSeqChunkReuse()))));
+
+      conf.setLeveledCompactionBaseFileSize(
+          Long.parseLong(
+              properties.getProperty(
+                  "leveled_compaction_base_file_size",
+                  Long.toString(conf.getLeveledCompactionBaseFileSize()))));
+
+      int leveledFanOut =
+          Integer.parseInt(
+              properties.getProperty(
+                  "leveled_compaction_fan_out",
+                  Integer.toString(conf.getLeveledCompactionFanOut())));
+      conf.setLeveledCompactionFanOut(Math.max(2, leveledFanOut));
+
       conf.setCompactionPriority(
           CompactionPriority.valueOf(
               properties.getProperty(
@@ -411,6 +491,18 @@ public class IoTDBDescriptor {
       subtaskNum = subtaskNum <= 0 ? 1 : subtaskNum;
       conf.setSubCompactionTaskNum(subtaskNum);
 
+      conf.setEnableDeviceParallelInnerCompaction(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_device_parallel_inner_compaction",
+                  Boolean.toString(conf.isEnableDeviceParallelInnerCompaction()))));
+
+      conf.setCompactionBufferMemoryBudget(
+          Long.parseLong(
+              properties.getProperty(
+                  "compaction_buffer_memory_budget",
+                  Long.toString(conf.getCompactionBufferMemoryBudget()))));
+
       conf.setQueryTimeoutThreshold(
           Integer.parseInt(
               properties.getProperty(
@@ -524,6 +616,57 @@ public class IoTDBDescriptor {
           Integer.parseInt(
               properties.getProperty(
                   "external_sort_threshold", Integer.toString(conf.getExternalSortThreshold()))));
+      conf.setSortBufferSizeInByte(
+          Long.parseLong(
+              properties.getProperty(
+                  "sort_buffer_size_in_byte", Long.toString(conf.getSortBufferSizeInByte()))));
+      conf.setHashAggregationBufferSizeInByte(
+          Long.parseLong(
+              properties.getProperty(
+                  "hash_aggregation_buffer_size_in_byte",
+                  Long.toString(conf.getHashAggregationBufferSizeInByte()))));
+      conf.setFillBufferSizeInByte(
+          Long.parseLong(
+              properties.getProperty(
+                  "fill_buffer_size_in_byte", Long.toString(conf.getFillBufferSizeInByte()))));
+      conf.setSpillCompressionType(
+          CompressionType.valueOf(
+              properties
+                  .getProperty("spill_compression_type", conf.getSpillCompressionType().toString())
+                  .trim()));
+      conf.setMaxScanParallelismInRegion(
+          Integer.parseInt(
+              properties.getProperty(
+                  "max_scan_parallelism_in_region",
+                  Integer.toString(conf.getMaxScanParallelismInRegion()))));
+      conf.setMinScanSplitSizeInByte(
+          Long.parseLong(
+              properties.getProperty(
+                  "min_scan_split_size_in_byte", Long.toString(conf.getMinScanSplitSizeInByte()))));
+      String disabledPlanOptimizerRules = properties.getProperty("disabled_plan_optimizer_rules");
+      if (disabledPlanOptimizerRules != null) {
+        conf.setDisabledPlanOptimizerRules(
+            Arrays.stream(disabledPlanOptimizerRules.split(","))
+                .map(String::trim)
+                .filter(rule -> !rule.isEmpty())
+                .toArray(String[]::new));
+      }
+      conf.setResourceGroups(
+          properties.getProperty("resource_groups", conf.getResourceGroups()).trim());
+      conf.setResourceGroupSelectors(
+          properties
+              .getProperty("resource_group_selectors", conf.getResourceGroupSelectors())
+              .trim());
+      conf.setResourceGroupMaxQueuedTimeInMs(
+          Long.parseLong(
+              properties.getProperty(
+                  "resource_group_max_queued_time_in_ms",
+                  Long.toString(conf.getResourceGroupMaxQueuedTimeInMs()))));
+      conf.setResourceGroupMaxQueuedQueries(
+          Integer.parseInt(
+              properties.getProperty(
+                  "resource_group_max_queued_queries",
+                  Integer.toString(conf.getResourceGroupMaxQueuedQueries()))));
       conf.setUpgradeThreadNum(
           Integer.parseInt(
               properties.getProperty(
@@ -586,6 +729,41 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "compaction_write_throughput_mb_per_sec",
                   Integer.toString(conf.getCompactionWriteThroughputMbPerSec()))));
+      conf.setEnableAdaptiveCompactionThrottle(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_adaptive_compaction_throttle",
+                  String.valueOf(conf.isEnableAdaptiveCompactionThrottle()))));
+      long compactionThrottleCheckIntervalInMs =
+          Long.parseLong(
+              properties.getProperty(
+                  "compaction_throttle_check_interval_in_ms",
+                  Long.toString(conf.getCompactionThrottleCheckIntervalInMs())));
+      if (compactionThrottleCheckIntervalInMs > 0) {
+        conf.setCompactionThrottleCheckIntervalInMs(compactionThrottleCheckIntervalInMs);
+      }
+      conf.setCompactionThrottleQueryP99ThresholdInMs(
+          Long.parseLong(
+              properties.getProperty(
+                  "compaction_throttle_query_p99_threshold_in_ms",
+                  Long.toString(conf.getCompactionThrottleQueryP99ThresholdInMs()))));
+      conf.setCompactionThrottleFlushBacklogThreshold(
+          Integer.parseInt(
+              properties.getProperty(
+                  "compaction_throttle_flush_backlog_threshold",
+                  Integer.toString(conf.getCompactionThrottleFlushBacklogThreshold()))));
+      conf.setCompactionThrottleDiskUtilizationThreshold(
+          Double.parseDouble(
+              properties.getProperty(
+                  "compaction_throttle_disk_utilization_threshold",
+                  Double.toString(conf.getCompactionThrottleDiskUtilizationThreshold()))));
+      conf.setCompactionThrottleMinWriteThroughputMbPerSec(
+          Math.max(
+              1,
+              Integer.parseInt(
+                  properties.getProperty(
+                      "compaction_throttle_min_write_throughput_mb_per_sec",
+                      Integer.toString(conf.getCompactionThrottleMinWriteThroughputMbPerSec())))));
 
       conf.setEnablePartialInsert(
           Boolean.parseBoolean(
@@ -655,6 +833,12 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "default_fill_interval", String.valueOf(conf.getDefaultFillInterval()))));
 
+      conf.setEnableExpressionCodeGeneration(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_expression_code_generation",
+                  String.valueOf(conf.isEnableExpressionCodeGeneration()))));
+
       conf.setTagAttributeTotalSize(
           Integer.parseInt(
               properties.getProperty(
@@ -752,6 +936,24 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "enable_last_cache", Boolean.toString(conf.isLastCacheEnabled()))));
 
+      conf.setEnableLastCachePersistence(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_last_cache_persistence",
+                  Boolean.toString(conf.isEnableLastCachePersistence()))));
+
+      conf.setLastCachePersistenceMaxSeriesPerRegion(
+          Integer.parseInt(
+              properties.getProperty(
+                  "last_cache_persistence_max_series_per_region",
+                  Integer.toString(conf.getLastCachePersistenceMaxSeriesPerRegion()))));
+
+      conf.setRecoveredLastCacheExpireTimeInMs(
+          Long.parseLong(
+              properties.getProperty(
+                  "recovered_last_cache_expire_time_in_ms",
+                  Long.toString(conf.getRecoveredLastCacheExpireTimeInMs()))));
+
       if (conf.getSchemaEngineMode().equals("Rocksdb_based")) {
         conf.setEnableLastCache(false);
       }
@@ -1630,6 +1832,17 @@ public class IoTDBDescriptor {
             properties.getProperty(
                 "data_block_manager_keep_alive_time_in_ms",
                 Integer.toString(conf.getDataBlockManagerKeepAliveTimeInMs()))));
+    conf.setDataBlockCompressionType(
+        CompressionType.valueOf(
+            properties
+                .getProperty(
+                    "data_block_compression_type", conf.getDataBlockCompressionType().toString())
+                .trim()));
+    conf.setDataBlockMaxBufferProportion(
+        Double.parseDouble(
+            properties.getProperty(
+                "data_block_max_buffer_proportion",
+                Double.toString(conf.getDataBlockMaxBufferProportion()))));
 
     conf.setPartitionCacheSize(
         Integer.parseInt(
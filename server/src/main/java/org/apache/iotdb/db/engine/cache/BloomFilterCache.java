@@ -30,6 +30,7 @@ import org.apache.iotdb.tsfile.utils.RamUsageEstimator;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.github.benmanes.caffeine.cache.Weigher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,7 +40,7 @@ import java.util.Objects;
 import java.util.concurrent.atomic.AtomicLong;
 
 /** This class is used to cache <code>BloomFilter</code> in IoTDB. The caching strategy is LRU. */
-public class BloomFilterCache {
+public class BloomFilterCache implements IResizableCache {
 
   private static final Logger logger = LoggerFactory.getLogger(BloomFilterCache.class);
   private static final Logger DEBUG_LOGGER = LoggerFactory.getLogger("QUERY_DEBUG");
@@ -51,6 +52,8 @@ public class BloomFilterCache {
 
   private final LoadingCache<BloomFilterCacheKey, BloomFilter> lruCache;
 
+  private final GhostCache ghostCache = new GhostCache();
+
   private BloomFilterCache() {
     if (CACHE_ENABLE) {
       logger.info("BloomFilterCache size = " + MEMORY_THRESHOLD_IN_BLOOM_FILTER_CACHE);
@@ -58,16 +61,17 @@ public class BloomFilterCache {
     lruCache =
         Caffeine.newBuilder()
             .maximumWeight(MEMORY_THRESHOLD_IN_BLOOM_FILTER_CACHE)
-            .weigher(
-                (Weigher<BloomFilterCacheKey, BloomFilter>)
-                    (key, bloomFilter) ->
-                        (int)
-                            (RamUsageEstimator.shallowSizeOf(key)
-                                + RamUsageEstimator.sizeOf(key.tsFilePrefixPath)
-                                + RamUsageEstimator.sizeOf(bloomFilter)))
+            .weigher((Weigher<BloomFilterCacheKey, BloomFilter>) BloomFilterCache::weigh)
+            .evictionListener(
+                (BloomFilterCacheKey key, BloomFilter bloomFilter, RemovalCause cause) -> {
+                  if (key != null && bloomFilter != null && cause == RemovalCause.SIZE) {
+                    ghostCache.recordEviction(key, weigh(key, bloomFilter));
+                  }
+                })
             .recordStats()
             .build(
                 key -> {
+                  ghostCache.recordMiss(key);
                   try {
                     TsFileSequenceReader reader =
                         FileReaderManager.getInstance().get(key.filePath, true);
@@ -113,8 +117,35 @@ public class BloomFilterCache {
     return lruCache.stats().evictionCount();
   }
 
+  private static int weigh(BloomFilterCacheKey key, BloomFilter bloomFilter) {
+    return (int)
+        (RamUsageEstimator.shallowSizeOf(key)
+            + RamUsageEstimator.sizeOf(key.tsFilePrefixPath)
+            + RamUsageEstimator.sizeOf(bloomFilter));
+  }
+
+  @Override
+  public String getName() {
+    return "bloomFilter";
+  }
+
+  @Override
   public long getMaxMemory() {
-    return MEMORY_THRESHOLD_IN_BLOOM_FILTER_CACHE;
+    return lruCache
+        .policy()
+        .eviction()
+        .map(eviction -> eviction.getMaximum())
+        .orElse(MEMORY_THRESHOLD_IN_BLOOM_FILTER_CACHE);
+  }
+
+  @Override
+  public void setMaxMemory(long maxMemory) {
+    lruCache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(maxMemory));
+  }
+
+  @Override
+  public GhostCache getGhostCache() {
+    return ghostCache;
   }
 
   public double getAverageLoadPenalty() {
@@ -39,6 +39,7 @@ public class CacheHitRatioMonitor implements CacheHitRatioMonitorMXBean, IServic
   public void start() throws StartupException {
     try {
       JMXService.registerMBean(instance, ServiceType.CACHE_HIT_RATIO_DISPLAY_SERVICE.getJmxName());
+      CacheMemoryCoordinator.getInstance().start();
     } catch (Exception e) {
       throw new StartupException(this.getID().getName(), e.getMessage());
     }
@@ -46,6 +47,7 @@ public class CacheHitRatioMonitor implements CacheHitRatioMonitorMXBean, IServic
 
   @Override
   public void stop() {
+    CacheMemoryCoordinator.getInstance().stop();
     JMXService.deregisterMBean(ServiceType.CACHE_HIT_RATIO_DISPLAY_SERVICE.getJmxName());
     logger.info("{}: stop {}...", IoTDBConstant.GLOBAL_DB_NAME, this.getID().getName());
   }
@@ -80,6 +82,36 @@ public class CacheHitRatioMonitor implements CacheHitRatioMonitorMXBean, IServic
     return ChunkCache.getInstance().getAverageSize();
   }
 
+  @Override
+  public long getChunkCacheUsedMemory() {
+    return ChunkCache.getInstance().getUsedMemory();
+  }
+
+  @Override
+  public double getOffHeapChunkHitRatio() {
+    return ChunkCache.getInstance().calculateOffHeapChunkHitRatio();
+  }
+
+  @Override
+  public long getOffHeapChunkEvictionCount() {
+    return ChunkCache.getInstance().getOffHeapEvictionCount();
+  }
+
+  @Override
+  public long getOffHeapChunkCacheMaxMemory() {
+    return ChunkCache.getInstance().getOffHeapMaxMemory();
+  }
+
+  @Override
+  public long getOffHeapChunkCacheUsedMemory() {
+    return ChunkCache.getInstance().getOffHeapUsedMemory();
+  }
+
+  @Override
+  public long getOffHeapChunkCacheAllocatedMemory() {
+    return ChunkCache.getInstance().getOffHeapAllocatedMemory();
+  }
+
   @Override
   public double getTimeSeriesMetadataHitRatio() {
     return TimeSeriesMetadataCache.getInstance().calculateTimeSeriesMetadataHitRatio();
@@ -30,6 +30,18 @@ public interface CacheHitRatioMonitorMXBean {
 
   long getChunkCacheAverageSize();
 
+  long getChunkCacheUsedMemory();
+
+  double getOffHeapChunkHitRatio();
+
+  long getOffHeapChunkEvictionCount();
+
+  long getOffHeapChunkCacheMaxMemory();
+
+  long getOffHeapChunkCacheUsedMemory();
+
+  long getOffHeapChunkCacheAllocatedMemory();
+
   double getTimeSeriesMetadataHitRatio();
 
   long getTimeSeriesMetadataCacheEvictionCount();
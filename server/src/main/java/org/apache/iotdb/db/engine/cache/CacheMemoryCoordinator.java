@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.commons.concurrent.ThreadName;
+import org.apache.iotdb.commons.concurrent.threadpool.ScheduledExecutorUtil;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.service.metrics.MetricsService;
+import org.apache.iotdb.db.service.metrics.enums.Metric;
+import org.apache.iotdb.db.service.metrics.enums.Tag;
+import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
+import org.apache.iotdb.metrics.utils.MetricLevel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CacheMemoryCoordinator periodically moves memory budget among the read caches, while keeping
+ * their total budget unchanged.
+ *
+ * <p>Each cache keeps a {@link GhostCache} of the entries evicted recently, whose capacity is the
+ * step of one move. The ghost hits of a cache in the last period are the extra hits it would have
+ * got with one more step of memory, i.e., its marginal gain. In each round, the cache with the
+ * largest marginal gain takes one step of memory from the cache with the smallest one, if the
+ * former is notably larger. The marginal gain of shrinking the donor is approximated by the one of
+ * enlarging it, which holds for the concave hit ratio curves of LRU caches.
+ */
+public class CacheMemoryCoordinator {
+
+  private static final Logger logger = LoggerFactory.getLogger(CacheMemoryCoordinator.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  /** proportion of the total budget moved in one round */
+  private static final double STEP_PROPORTION = 0.05;
+  /** a cache never shrinks below this proportion of its initial budget */
+  private static final double MIN_BUDGET_PROPORTION = 0.2;
+  /** the receiver must gain at least this times the hits of the donor */
+  private static final double MIN_GAIN_RATIO = 1.5;
+  /** the receiver must gain at least this many hits in one period */
+  private static final long MIN_GHOST_HITS = 16L;
+
+  private final List<IResizableCache> caches;
+  private final long[] minBudgets;
+  private final long step;
+  private ScheduledExecutorService rebalanceThread;
+
+  public CacheMemoryCoordinator(List<IResizableCache> caches) {
+    this.caches = caches;
+    this.minBudgets = new long[caches.size()];
+    long totalBudget = 0L;
+    for (int i = 0; i < caches.size(); i++) {
+      long budget = caches.get(i).getMaxMemory();
+      minBudgets[i] = (long) (budget * MIN_BUDGET_PROPORTION);
+      totalBudget += budget;
+    }
+    this.step = (long) (totalBudget * STEP_PROPORTION);
+  }
+
+  public static CacheMemoryCoordinator getInstance() {
+    return CacheMemoryCoordinatorHolder.INSTANCE;
+  }
+
+  public void start() {
+    if (!config.isMetaDataCacheEnable() || !config.isEnableCacheMemoryRebalance()) {
+      return;
+    }
+    for (IResizableCache cache : caches) {
+      cache.getGhostCache().setCapacity(step);
+      if (MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric()) {
+        MetricsService.getInstance()
+            .getMetricManager()
+            .getOrCreateAutoGauge(
+                Metric.MEM.toString(),
+                MetricLevel.IMPORTANT,
+                cache,
+                IResizableCache::getMaxMemory,
+                Tag.NAME.toString(),
+                "cache_budget_" + cache.getName());
+      }
+    }
+    rebalanceThread =
+        IoTDBThreadPoolFactory.newSingleThreadScheduledExecutor(
+            ThreadName.CACHE_MEMORY_REBALANCE.getName());
+    ScheduledExecutorUtil.safelyScheduleWithFixedDelay(
+        rebalanceThread,
+        this::rebalance,
+        config.getCacheMemoryRebalanceIntervalInMs(),
+        config.getCacheMemoryRebalanceIntervalInMs(),
+        TimeUnit.MILLISECONDS);
+    logger.info("Cache memory coordinator started, step = {}", step);
+  }
+
+  public void stop() {
+    if (rebalanceThread != null) {
+      rebalanceThread.shutdownNow();
+      rebalanceThread = null;
+    }
+    for (IResizableCache cache : caches) {
+      cache.getGhostCache().setCapacity(0L);
+    }
+  }
+
+  /**
+   * Move one step of memory from the cache with the smallest marginal gain to the one with the
+   * largest marginal gain.
+   *
+   * @return true if the budgets are changed
+   */
+  public synchronized boolean rebalance() {
+    long[] gains = new long[caches.size()];
+    for (int i = 0; i < caches.size(); i++) {
+      gains[i] = caches.get(i).getGhostCache().getAndResetHitCount();
+    }
+    int receiver = 0;
+    for (int i = 1; i < gains.length; i++) {
+      if (gains[i] > gains[receiver]) {
+        receiver = i;
+      }
+    }
+    int donor = -1;
+    for (int i = 0; i < gains.length; i++) {
+      if (i != receiver
+          && caches.get(i).getMaxMemory() - step >= minBudgets[i]
+          && (donor < 0 || gains[i] < gains[donor])) {
+        donor = i;
+      }
+    }
+    if (step <= 0
+        || donor < 0
+        || gains[receiver] < MIN_GHOST_HITS
+        || gains[receiver] < gains[donor] * MIN_GAIN_RATIO) {
+      return false;
+    }
+    IResizableCache from = caches.get(donor);
+    IResizableCache to = caches.get(receiver);
+    // shrink first so that the total budget is never exceeded
+    from.setMaxMemory(from.getMaxMemory() - step);
+    to.setMaxMemory(to.getMaxMemory() + step);
+    logger.info(
+        "Move {} bytes of cache memory from {} to {}, ghost hits: {}, budgets: {} -> {}, {} -> {}",
+        step,
+        from.getName(),
+        to.getName(),
+        Arrays.toString(gains),
+        from.getName(),
+        from.getMaxMemory(),
+        to.getName(),
+        to.getMaxMemory());
+    return true;
+  }
+
+  public long getStep() {
+    return step;
+  }
+
+  private static class CacheMemoryCoordinatorHolder {
+
+    private static final CacheMemoryCoordinator INSTANCE =
+        new CacheMemoryCoordinator(
+            Arrays.asList(
+                ChunkCache.getInstance(),
+                TimeSeriesMetadataCache.getInstance(),
+                BloomFilterCache.getInstance()));
+
+    private CacheMemoryCoordinatorHolder() {}
+  }
+}
@@ -22,6 +22,7 @@ package org.apache.iotdb.db.engine.cache;
 import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.storagegroup.TsFileID;
 import org.apache.iotdb.db.query.control.FileReaderManager;
 import org.apache.iotdb.db.service.metrics.MetricsService;
 import org.apache.iotdb.db.service.metrics.enums.Metric;
@@ -33,20 +34,24 @@ import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.Chunk;
 import org.apache.iotdb.tsfile.utils.RamUsageEstimator;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.github.benmanes.caffeine.cache.Weigher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class is used to cache <code>Chunk</code> of <code>ChunkMetaData</code> in IoTDB. The
- * caching strategy is LRU.
+ * caching strategy is LRU. The chunks are keyed by {@link ChunkCacheKey}. If off-heap chunk cache
+ * is enabled, the chunks evicted from this cache are kept in {@link OffHeapChunkCache} and loaded
+ * back from it before reading the disk.
  */
-public class ChunkCache {
+public class ChunkCache implements IResizableCache {
 
   private static final Logger logger = LoggerFactory.getLogger(ChunkCache.class);
   private static final Logger DEBUG_LOGGER = LoggerFactory.getLogger("QUERY_DEBUG");
@@ -54,8 +59,15 @@ public class ChunkCache {
   private static final long MEMORY_THRESHOLD_IN_CHUNK_CACHE =
       config.getAllocateMemoryForChunkCache();
   private static final boolean CACHE_ENABLE = config.isMetaDataCacheEnable();
+  private static final long MEMORY_THRESHOLD_IN_OFF_HEAP_CHUNK_CACHE =
+      config.getAllocateMemoryForOffHeapChunkCache();
 
-  private final LoadingCache<ChunkMetadata, Chunk> lruCache;
+  private final Cache<ChunkCacheKey, Chunk> lruCache;
+
+  // null if off-heap chunk cache is disabled
+  private final OffHeapChunkCache offHeapCache;
+
+  private final GhostCache ghostCache = new GhostCache();
 
   private final AtomicLong entryAverageSize = new AtomicLong(0);
 
@@ -63,28 +75,29 @@ public class ChunkCache {
     if (CACHE_ENABLE) {
       logger.info("ChunkCache size = " + MEMORY_THRESHOLD_IN_CHUNK_CACHE);
     }
+    offHeapCache =
+        CACHE_ENABLE && MEMORY_THRESHOLD_IN_OFF_HEAP_CHUNK_CACHE >= OffHeapChunkCache.SLAB_SIZE
+            ? new OffHeapChunkCache(MEMORY_THRESHOLD_IN_OFF_HEAP_CHUNK_CACHE)
+            : null;
+    if (offHeapCache != null) {
+      logger.info("Off-heap ChunkCache size = " + offHeapCache.getMaxMemory());
+    }
     lruCache =
         Caffeine.newBuilder()
             .maximumWeight(MEMORY_THRESHOLD_IN_CHUNK_CACHE)
-            .weigher(
-                (Weigher<ChunkMetadata, Chunk>)
-                    (chunkMetadata, chunk) ->
-                        (int)
-                            (RamUsageEstimator.NUM_BYTES_OBJECT_REF
-                                + RamUsageEstimator.sizeOf(chunk)))
-            .recordStats()
-            .build(
-                chunkMetadata -> {
-                  try {
-                    TsFileSequenceReader reader =
-                        FileReaderManager.getInstance()
-                            .get(chunkMetadata.getFilePath(), chunkMetadata.isClosed());
-                    return reader.readMemChunk(chunkMetadata);
-                  } catch (IOException e) {
-                    logger.error("Something wrong happened in reading {}", chunkMetadata, e);
-                    throw e;
+            .weigher((Weigher<ChunkCacheKey, Chunk>) ChunkCache::weigh)
+            .evictionListener(
+                (ChunkCacheKey key, Chunk chunk, RemovalCause cause) -> {
+                  if (key == null || chunk == null || cause != RemovalCause.SIZE) {
+                    return;
                   }
-                });
+                  ghostCache.recordEviction(key, weigh(key, chunk));
+                  if (offHeapCache != null) {
+                    offHeapCache.put(key, chunk);
+                  }
+                })
+            .recordStats()
+            .build();
 
     // add metrics
     if (MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric()) {
@@ -97,6 +110,17 @@ public class ChunkCache {
               l -> (long) (l.stats().hitRate() * 100),
               Tag.NAME.toString(),
               "chunk");
+      if (offHeapCache != null) {
+        MetricsService.getInstance()
+            .getMetricManager()
+            .getOrCreateAutoGauge(
+                Metric.CACHE_HIT.toString(),
+                MetricLevel.IMPORTANT,
+                offHeapCache,
+                c -> (long) (c.getHitRatio() * 100),
+                Tag.NAME.toString(),
+                "chunk_off_heap");
+      }
     }
   }
 
@@ -109,6 +133,15 @@ public class ChunkCache {
   }
 
   public Chunk get(ChunkMetadata chunkMetaData, boolean debug) throws IOException {
+    return get(new ChunkCacheKey(chunkMetaData), chunkMetaData, debug);
+  }
+
+  /**
+   * @param key the key of the chunk, built from the {@link TsFileID} of the TsFileResource by the
+   *     readers of a query, so that the directory of the file is not looked up for each chunk
+   */
+  public Chunk get(ChunkCacheKey key, ChunkMetadata chunkMetaData, boolean debug)
+      throws IOException {
     if (!CACHE_ENABLE) {
       TsFileSequenceReader reader =
           FileReaderManager.getInstance()
@@ -121,7 +154,12 @@ public class ChunkCache {
           chunkMetaData.getStatistics());
     }
 
-    Chunk chunk = lruCache.get(chunkMetaData);
+    Chunk chunk;
+    try {
+      chunk = lruCache.get(key, k -> load(k, chunkMetaData));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
 
     if (debug) {
       DEBUG_LOGGER.info("get chunk from cache whose meta data is: " + chunkMetaData);
@@ -134,6 +172,25 @@ public class ChunkCache {
         chunkMetaData.getStatistics());
   }
 
+  private Chunk load(ChunkCacheKey key, ChunkMetadata chunkMetadata) {
+    ghostCache.recordMiss(key);
+    if (offHeapCache != null) {
+      Chunk chunk = offHeapCache.promote(key);
+      if (chunk != null) {
+        return chunk;
+      }
+    }
+    try {
+      TsFileSequenceReader reader =
+          FileReaderManager.getInstance()
+              .get(chunkMetadata.getFilePath(), chunkMetadata.isClosed());
+      return reader.readMemChunk(chunkMetadata);
+    } catch (IOException e) {
+      logger.error("Something wrong happened in reading {}", chunkMetadata, e);
+      throw new UncheckedIOException(e);
+    }
+  }
+
   public double calculateChunkHitRatio() {
     return lruCache.stats().hitRate();
   }
@@ -142,8 +199,63 @@ public class ChunkCache {
     return lruCache.stats().evictionCount();
   }
 
+  private static int weigh(ChunkCacheKey key, Chunk chunk) {
+    return (int) (key.ramBytesUsed() + RamUsageEstimator.sizeOf(chunk));
+  }
+
+  @Override
+  public String getName() {
+    return "chunk";
+  }
+
+  @Override
   public long getMaxMemory() {
-    return MEMORY_THRESHOLD_IN_CHUNK_CACHE;
+    return lruCache
+        .policy()
+        .eviction()
+        .map(eviction -> eviction.getMaximum())
+        .orElse(MEMORY_THRESHOLD_IN_CHUNK_CACHE);
+  }
+
+  @Override
+  public void setMaxMemory(long maxMemory) {
+    lruCache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(maxMemory));
+  }
+
+  @Override
+  public GhostCache getGhostCache() {
+    return ghostCache;
+  }
+
+  /** @return the estimated memory used by the on-heap tier */
+  public long getUsedMemory() {
+    return lruCache
+        .policy()
+        .eviction()
+        .map(eviction -> eviction.weightedSize().orElse(0L))
+        .orElse(0L);
+  }
+
+  public double calculateOffHeapChunkHitRatio() {
+    return offHeapCache == null ? 0 : offHeapCache.getHitRatio();
+  }
+
+  public long getOffHeapEvictionCount() {
+    return offHeapCache == null ? 0 : offHeapCache.getEvictionCount();
+  }
+
+  public long getOffHeapMaxMemory() {
+    return offHeapCache == null ? 0 : offHeapCache.getMaxMemory();
+  }
+
+  /** @return the size of the chunk data kept in the off-heap tier */
+  public long getOffHeapUsedMemory() {
+    return offHeapCache == null ? 0 : offHeapCache.getUsedMemory();
+  }
+
+  /** @return the size of the direct memory allocated by the off-heap tier */
+  public long getOffHeapAllocatedMemory() {
+    return offHeapCache == null ? 0 : offHeapCache.getAllocatedMemory();
   }
 
   public double getAverageLoadPenalty() {
@@ -158,15 +270,81 @@ public class ChunkCache {
   public void clear() {
     lruCache.invalidateAll();
     lruCache.cleanUp();
+    if (offHeapCache != null) {
+      offHeapCache.clear();
+    }
   }
 
   public void remove(ChunkMetadata chunkMetaData) {
-    lruCache.invalidate(chunkMetaData);
+    ChunkCacheKey key = new ChunkCacheKey(chunkMetaData);
+    lruCache.invalidate(key);
+    if (offHeapCache != null) {
+      offHeapCache.remove(key);
+    }
   }
 
   @TestOnly
   public boolean isEmpty() {
-    return lruCache.asMap().isEmpty();
+    return lruCache.asMap().isEmpty() && (offHeapCache == null || offHeapCache.isEmpty());
+  }
+
+  /**
+   * The key of a chunk, which is the {@link TsFileID} of the file and the offset of the chunk
+   * header in it. It is much smaller than the ChunkMetadata, which keeps the statistics and the
+   * file path of the chunk.
+   */
+  public static class ChunkCacheKey {
+
+    public static final long INSTANCE_SIZE =
+        RamUsageEstimator.shallowSizeOfInstance(ChunkCacheKey.class);
+
+    private final TsFileID tsFileID;
+    private final long offsetOfChunkHeader;
+
+    public ChunkCacheKey(TsFileID tsFileID, long offsetOfChunkHeader) {
+      this.tsFileID = tsFileID;
+      this.offsetOfChunkHeader = offsetOfChunkHeader;
+    }
+
+    /**
+     * Build the key from the file path in the ChunkMetadata, whose directory is looked up in the
+     * registry of {@link TsFileID}. The readers of a query use the TsFileID of the TsFileResource
+     * instead.
+     */
+    public ChunkCacheKey(ChunkMetadata chunkMetadata) {
+      this(
+          TsFileID.of(
+              chunkMetadata.getTsFilePrefixPath(),
+              chunkMetadata.getVersion(),
+              chunkMetadata.getCompactionVersion()),
+          chunkMetadata.getOffsetOfChunkHeader());
+    }
+
+    public long ramBytesUsed() {
+      return INSTANCE_SIZE + tsFileID.ramBytesUsed();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      ChunkCacheKey that = (ChunkCacheKey) o;
+      return offsetOfChunkHeader == that.offsetOfChunkHeader && tsFileID.equals(that.tsFileID);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * tsFileID.hashCode() + Long.hashCode(offsetOfChunkHeader);
+    }
+
+    @Override
+    public String toString() {
+      return tsFileID + "@" + offsetOfChunkHeader;
+    }
   }
 
   /** singleton pattern. */
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.StorageEngineV2;
+import org.apache.iotdb.db.engine.cache.ChunkCache.ChunkCacheKey;
+import org.apache.iotdb.db.qp.utils.DatetimeUtils;
+import org.apache.iotdb.db.service.metrics.MetricsService;
+import org.apache.iotdb.db.service.metrics.enums.Metric;
+import org.apache.iotdb.db.service.metrics.enums.Tag;
+import org.apache.iotdb.db.utils.TimeValuePairUtils;
+import org.apache.iotdb.db.utils.TimeValuePairUtils.Intervals;
+import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
+import org.apache.iotdb.metrics.utils.MetricLevel;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * This class is used to cache the decoded pages of the chunks in sealed TsFiles, so that the pages
+ * read repeatedly, e.g., by the dashboards refreshing the recent data, are not decompressed and
+ * decoded again. The cached <code>TsBlock</code> contains all the points of the page, the filter
+ * and the deletions are applied on it by each reader. The caching strategy is LRU.
+ */
+public class DecodedPageCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(DecodedPageCache.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private static final long MEMORY_THRESHOLD_IN_DECODED_PAGE_CACHE =
+      config.getAllocateMemoryForDecodedPageCache();
+  private static final boolean CACHE_ENABLE =
+      config.isMetaDataCacheEnable() && MEMORY_THRESHOLD_IN_DECODED_PAGE_CACHE > 0;
+
+  private final Cache<DecodedPageCacheKey, TsBlock> lruCache;
+
+  private volatile boolean enabled = CACHE_ENABLE;
+
+  private DecodedPageCache() {
+    if (CACHE_ENABLE) {
+      logger.info("DecodedPageCache size = " + MEMORY_THRESHOLD_IN_DECODED_PAGE_CACHE);
+    }
+    lruCache =
+        Caffeine.newBuilder()
+            .maximumWeight(MEMORY_THRESHOLD_IN_DECODED_PAGE_CACHE)
+            .weigher(
+                (Weigher<DecodedPageCacheKey, TsBlock>)
+                    (key, tsBlock) ->
+                        (int) Math.min(Integer.MAX_VALUE, tsBlock.getRetainedSizeInBytes()))
+            .recordStats()
+            .build();
+
+    if (CACHE_ENABLE && MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric()) {
+      MetricsService.getInstance()
+          .getMetricManager()
+          .getOrCreateAutoGauge(
+              Metric.CACHE_HIT.toString(),
+              MetricLevel.IMPORTANT,
+              lruCache,
+              l -> (long) (l.stats().hitRate() * 100),
+              Tag.NAME.toString(),
+              "decodedPage");
+    }
+  }
+
+  public static DecodedPageCache getInstance() {
+    return DecodedPageCacheHolder.INSTANCE;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Get the decoded page, the page is decoded by the loader if it is not cached.
+   *
+   * @param bypass true if the loaded page should not be put into the cache, which is used by the
+   *     large scans to avoid flushing out the hot pages
+   */
+  public TsBlock get(DecodedPageCacheKey key, PageLoader loader, boolean bypass)
+      throws IOException {
+    TsBlock tsBlock = lruCache.getIfPresent(key);
+    if (tsBlock == null) {
+      tsBlock = loader.load();
+      if (!bypass) {
+        lruCache.put(key, tsBlock);
+      }
+    }
+    return tsBlock;
+  }
+
+  /**
+   * Whether the pages read under the time filter should bypass the cache. A scan without time
+   * filter, without lower bound or spanning more than one time partition is regarded as a large
+   * scan. The missing upper bound is regarded as now, e.g., "time > now() - 1h" of the dashboards.
+   */
+  public static boolean isLargeScan(Filter timeFilter) {
+    Intervals intervals = TimeValuePairUtils.extractTimeInterval(timeFilter);
+    if (intervals.getIntervalSize() == 0) {
+      return false;
+    }
+    long lowerBound = intervals.getLowerBound(0);
+    long upperBound =
+        Math.min(
+            intervals.getUpperBound(intervals.getIntervalSize() - 1), DatetimeUtils.currentTime());
+    if (lowerBound == Long.MIN_VALUE) {
+      return true;
+    }
+    try {
+      return Math.subtractExact(upperBound, lowerBound)
+          > StorageEngineV2.getTimePartitionInterval();
+    } catch (ArithmeticException e) {
+      return true;
+    }
+  }
+
+  public double calculateDecodedPageHitRatio() {
+    return lruCache.stats().hitRate();
+  }
+
+  public long getEvictionCount() {
+    return lruCache.stats().evictionCount();
+  }
+
+  public long getMaxMemory() {
+    return lruCache
+        .policy()
+        .eviction()
+        .map(eviction -> eviction.getMaximum())
+        .orElse(MEMORY_THRESHOLD_IN_DECODED_PAGE_CACHE);
+  }
+
+  /**
+   * Resize the cache, which is enabled if the size is positive. The pages exceeding the new size
+   * are evicted before returning.
+   */
+  @TestOnly
+  public void setMaxMemory(long maxMemory) {
+    enabled = config.isMetaDataCacheEnable() && maxMemory > 0;
+    lruCache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(maxMemory));
+    lruCache.cleanUp();
+  }
+
+  /** clear LRUCache. */
+  public void clear() {
+    lruCache.invalidateAll();
+    lruCache.cleanUp();
+  }
+
+  @TestOnly
+  public boolean isEmpty() {
+    return lruCache.asMap().isEmpty();
+  }
+
+  /** Decode a page which is not cached. */
+  @FunctionalInterface
+  public interface PageLoader {
+
+    TsBlock load() throws IOException;
+  }
+
+  public static class DecodedPageCacheKey {
+
+    private final ChunkCacheKey chunkKey;
+    // offset of the page header in the chunk data
+    private final int offsetInChunk;
+
+    public DecodedPageCacheKey(ChunkCacheKey chunkKey, int offsetInChunk) {
+      this.chunkKey = chunkKey;
+      this.offsetInChunk = offsetInChunk;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      DecodedPageCacheKey that = (DecodedPageCacheKey) o;
+      return offsetInChunk == that.offsetInChunk && chunkKey.equals(that.chunkKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * chunkKey.hashCode() + offsetInChunk;
+    }
+  }
+
+  /** singleton pattern. */
+  private static class DecodedPageCacheHolder {
+
+    private static final DecodedPageCache INSTANCE = new DecodedPageCache();
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * GhostCache remembers the hash codes and weights of the entries recently evicted from a cache, but
+ * not their values. A miss on a key remembered here is a ghost hit, i.e., a hit the cache would
+ * have got if it were larger by {@link #getCapacity()} bytes. The number of ghost hits is used by
+ * {@link CacheMemoryCoordinator} to estimate the marginal gain of enlarging the cache.
+ */
+public class GhostCache {
+
+  // hash code of the evicted key -> weight of the evicted entry, in eviction order
+  private final LinkedHashMap<Integer, Long> evictedKeys = new LinkedHashMap<>();
+  private long capacity = 0L;
+  private long totalWeight = 0L;
+  private long hitCount = 0L;
+
+  /** Remember an entry evicted because of the size limit of the cache. */
+  public synchronized void recordEviction(Object key, long weight) {
+    if (capacity <= 0) {
+      return;
+    }
+    Long previous = evictedKeys.put(key.hashCode(), weight);
+    totalWeight += weight - (previous == null ? 0L : previous);
+    shrink();
+  }
+
+  /** Called when the cache misses the key. */
+  public synchronized void recordMiss(Object key) {
+    Long weight = evictedKeys.remove(key.hashCode());
+    if (weight != null) {
+      totalWeight -= weight;
+      hitCount++;
+    }
+  }
+
+  /** @return the ghost hits since the last call, the counter is reset */
+  public synchronized long getAndResetHitCount() {
+    long result = hitCount;
+    hitCount = 0L;
+    return result;
+  }
+
+  public synchronized long getCapacity() {
+    return capacity;
+  }
+
+  public synchronized void setCapacity(long capacity) {
+    this.capacity = capacity;
+    shrink();
+  }
+
+  public synchronized int size() {
+    return evictedKeys.size();
+  }
+
+  private void shrink() {
+    Iterator<Map.Entry<Integer, Long>> iterator = evictedKeys.entrySet().iterator();
+    while (totalWeight > capacity && iterator.hasNext()) {
+      totalWeight -= iterator.next().getValue();
+      iterator.remove();
+    }
+  }
+}
@@ -0,0 +1,496 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.db.engine.cache.ChunkCache.ChunkCacheKey;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OffHeapChunkCache is the second tier of {@link ChunkCache}. It keeps the compressed bytes of the
+ * chunks evicted from the on-heap tier in direct memory, and a chunk found here is moved back to
+ * the on-heap tier, so the two tiers never hold the same chunk.
+ *
+ * <p>The memory is managed by a slab allocator. It is split into slabs of {@link #SLAB_SIZE}, and
+ * each slab is assigned to a size class on demand and divided into blocks of that size. A chunk
+ * takes one block of the smallest class that fits it, and chunks larger than a slab are not cached.
+ * Once all the blocks of a slab are free, the slab is given back to the shared free slabs, so the
+ * memory follows the sizes of the chunks cached recently. When no slab is free, a size class evicts
+ * its least recently used chunk, but only if the new chunk is accessed more frequently than the
+ * victim according to a TinyLFU frequency sketch, so that a scan of cold chunks can not flush the
+ * hot ones.
+ *
+ * <p>The chunks are spread over {@link #SEGMENT_NUM} segments by the hash of their keys. Each
+ * segment has its own lock, LRU lists and frequency sketch, so the readers of different chunks
+ * rarely contend. The slabs of a size class are shared by all the segments, and its lock is only
+ * held to take or give back a block.
+ */
+public class OffHeapChunkCache {
+
+  static final int SLAB_SIZE = 4 * 1024 * 1024;
+  private static final int MIN_BLOCK_SIZE = 4 * 1024;
+  // used to estimate the number of cached chunks for the frequency sketch
+  private static final int EXPECTED_CHUNK_SIZE = 16 * 1024;
+  // must be a power of 2
+  private static final int SEGMENT_NUM = 16;
+
+  private final int maxSlabNum;
+  private final AtomicInteger allocatedSlabNum = new AtomicInteger();
+  // the allocated slabs which are not assigned to any size class
+  private final ConcurrentLinkedQueue<ByteBuffer> freeSlabs = new ConcurrentLinkedQueue<>();
+  // the block size of each size class is MIN_BLOCK_SIZE << class index
+  private final int sizeClassNum;
+  private final SizeClass[] sizeClasses;
+  private final Segment[] segments;
+
+  public OffHeapChunkCache(long capacity) {
+    this.maxSlabNum = (int) Math.min(Integer.MAX_VALUE, capacity / SLAB_SIZE);
+    this.sizeClassNum = Integer.numberOfTrailingZeros(SLAB_SIZE / MIN_BLOCK_SIZE) + 1;
+    this.sizeClasses = new SizeClass[sizeClassNum];
+    for (int i = 0; i < sizeClassNum; i++) {
+      sizeClasses[i] = new SizeClass(MIN_BLOCK_SIZE << i);
+    }
+    this.segments = new Segment[SEGMENT_NUM];
+    for (int i = 0; i < SEGMENT_NUM; i++) {
+      segments[i] = new Segment(capacity / EXPECTED_CHUNK_SIZE / SEGMENT_NUM);
+    }
+  }
+
+  /**
+   * Remove the chunk from this tier and return it with its data copied to heap.
+   *
+   * @return null if the chunk is not cached
+   */
+  public Chunk promote(ChunkCacheKey key) {
+    return segmentOf(key).promote(key);
+  }
+
+  /**
+   * Cache the chunk evicted from the on-heap tier. The chunk is dropped if it is larger than a
+   * slab, or the memory is full and the chunk is colder than the one to be evicted.
+   */
+  public void put(ChunkCacheKey key, Chunk chunk) {
+    segmentOf(key).put(key, chunk);
+  }
+
+  public void remove(ChunkCacheKey key) {
+    segmentOf(key).remove(key);
+  }
+
+  /** Drop all the cached chunks, the allocated slabs are kept for reuse. */
+  public void clear() {
+    for (Segment segment : segments) {
+      segment.clear();
+    }
+  }
+
+  private Segment segmentOf(ChunkCacheKey key) {
+    int hash = key.hashCode();
+    return segments[(hash ^ (hash >>> 16)) & (SEGMENT_NUM - 1)];
+  }
+
+  /** @return a free slab, or null if all the slabs are assigned to the size classes */
+  private ByteBuffer acquireSlab() {
+    ByteBuffer slab = freeSlabs.poll();
+    if (slab != null) {
+      return slab;
+    }
+    int slabNum;
+    do {
+      slabNum = allocatedSlabNum.get();
+      if (slabNum >= maxSlabNum) {
+        return freeSlabs.poll();
+      }
+    } while (!allocatedSlabNum.compareAndSet(slabNum, slabNum + 1));
+    return ByteBuffer.allocateDirect(SLAB_SIZE);
+  }
+
+  private int getSizeClass(int length) {
+    int blockSize = MIN_BLOCK_SIZE;
+    for (int sizeClass = 0; sizeClass < sizeClassNum; sizeClass++, blockSize <<= 1) {
+      if (length <= blockSize) {
+        return sizeClass;
+      }
+    }
+    return -1;
+  }
+
+  public double getHitRatio() {
+    long hitCount = 0;
+    long requestCount = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        hitCount += segment.hitCount;
+        requestCount += segment.hitCount + segment.missCount;
+      }
+    }
+    return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+  }
+
+  public long getEvictionCount() {
+    long evictionCount = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        evictionCount += segment.evictionCount;
+      }
+    }
+    return evictionCount;
+  }
+
+  public long getRejectionCount() {
+    long rejectionCount = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        rejectionCount += segment.rejectionCount;
+      }
+    }
+    return rejectionCount;
+  }
+
+  /** @return the size of the chunk data cached in this tier */
+  public long getUsedMemory() {
+    long usedBytes = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        usedBytes += segment.usedBytes;
+      }
+    }
+    return usedBytes;
+  }
+
+  /** @return the size of the direct memory allocated by this tier, including the free slabs */
+  public long getAllocatedMemory() {
+    return (long) allocatedSlabNum.get() * SLAB_SIZE;
+  }
+
+  public long getMaxMemory() {
+    return (long) maxSlabNum * SLAB_SIZE;
+  }
+
+  public boolean isEmpty() {
+    return getUsedMemory() == 0;
+  }
+
+  /** The slabs of one size class, all its methods are guarded by its own monitor. */
+  private class SizeClass {
+
+    private final int blockSize;
+    // the slabs having free blocks, the most recently assigned one first
+    private final ArrayDeque<Slab> partialSlabs = new ArrayDeque<>();
+
+    private SizeClass(int blockSize) {
+      this.blockSize = blockSize;
+    }
+
+    /**
+     * Take a free block from the slabs of this size class, or from a newly assigned slab.
+     *
+     * @return null if there is neither a free block nor a free slab
+     */
+    private synchronized Entry allocate(ChunkHeader header, int length, boolean isFromOldFile) {
+      Slab slab = partialSlabs.peek();
+      if (slab == null) {
+        ByteBuffer buffer = acquireSlab();
+        if (buffer == null) {
+          return null;
+        }
+        slab = new Slab(buffer, blockSize);
+        partialSlabs.push(slab);
+      }
+      int offset = slab.allocate();
+      if (slab.isFull()) {
+        partialSlabs.poll();
+      }
+      return new Entry(header, slab, offset, length, isFromOldFile);
+    }
+
+    private synchronized void release(Entry entry) {
+      Slab slab = entry.slab;
+      boolean wasFull = slab.isFull();
+      slab.release(entry.offset);
+      if (slab.isEmpty()) {
+        // give the slab back, so that any size class can reuse it
+        partialSlabs.remove(slab);
+        freeSlabs.offer(slab.buffer);
+      } else if (wasFull) {
+        partialSlabs.push(slab);
+      }
+    }
+  }
+
+  /** The chunks of one segment, all its methods are guarded by its own monitor. */
+  private class Segment {
+
+    // the cached chunks of each size class in LRU order
+    private final LinkedHashMap<ChunkCacheKey, Entry>[] entries;
+    private final FrequencySketch sketch;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+    private long rejectionCount = 0;
+    private long usedBytes = 0;
+
+    @SuppressWarnings("unchecked")
+    private Segment(long expectedEntryNum) {
+      this.entries = new LinkedHashMap[sizeClassNum];
+      for (int i = 0; i < sizeClassNum; i++) {
+        entries[i] = new LinkedHashMap<>(16, 0.75f, true);
+      }
+      this.sketch = new FrequencySketch(expectedEntryNum);
+    }
+
+    private synchronized Chunk promote(ChunkCacheKey key) {
+      sketch.increment(key);
+      for (int sizeClass = 0; sizeClass < sizeClassNum; sizeClass++) {
+        Entry entry = entries[sizeClass].remove(key);
+        if (entry != null) {
+          hitCount++;
+          ByteBuffer data = ByteBuffer.allocate(entry.length);
+          data.put(entry.slab.getBlock(entry.offset, entry.length));
+          data.flip();
+          release(sizeClass, entry);
+          Chunk chunk = new Chunk(entry.header, data, null, null);
+          chunk.setFromOldFile(entry.isFromOldFile);
+          return chunk;
+        }
+      }
+      missCount++;
+      return null;
+    }
+
+    private synchronized void put(ChunkCacheKey key, Chunk chunk) {
+      ByteBuffer data = chunk.getData().duplicate();
+      data.rewind();
+      int length = data.remaining();
+      int sizeClass = getSizeClass(length);
+      if (sizeClass < 0) {
+        rejectionCount++;
+        return;
+      }
+      sketch.increment(key);
+      if (entries[sizeClass].containsKey(key)) {
+        return;
+      }
+      Entry entry = allocate(sizeClass, key, chunk.getHeader(), length, chunk.isFromOldFile());
+      if (entry == null) {
+        rejectionCount++;
+        return;
+      }
+      entry.slab.getBlock(entry.offset, length).put(data);
+      entries[sizeClass].put(key, entry);
+      usedBytes += length;
+    }
+
+    private synchronized void remove(ChunkCacheKey key) {
+      for (int sizeClass = 0; sizeClass < sizeClassNum; sizeClass++) {
+        Entry entry = entries[sizeClass].remove(key);
+        if (entry != null) {
+          release(sizeClass, entry);
+          return;
+        }
+      }
+    }
+
+    private synchronized void clear() {
+      for (int sizeClass = 0; sizeClass < sizeClassNum; sizeClass++) {
+        Iterator<Entry> iterator = entries[sizeClass].values().iterator();
+        while (iterator.hasNext()) {
+          release(sizeClass, iterator.next());
+          iterator.remove();
+        }
+      }
+    }
+
+    /**
+     * Take a free block of the size class. If there is none, take the block of the least recently
+     * used chunk of the size class in this segment if the new chunk is hotter.
+     *
+     * @return null if no block is available
+     */
+    private Entry allocate(
+        int sizeClass, ChunkCacheKey key, ChunkHeader header, int length, boolean isFromOldFile) {
+      Entry entry = sizeClasses[sizeClass].allocate(header, length, isFromOldFile);
+      if (entry != null) {
+        return entry;
+      }
+
+      Iterator<Map.Entry<ChunkCacheKey, Entry>> iterator = entries[sizeClass].entrySet().iterator();
+      if (!iterator.hasNext()) {
+        return null;
+      }
+      Map.Entry<ChunkCacheKey, Entry> victim = iterator.next();
+      if (sketch.frequency(key) <= sketch.frequency(victim.getKey())) {
+        return null;
+      }
+      iterator.remove();
+      usedBytes -= victim.getValue().length;
+      evictionCount++;
+      return new Entry(
+          header, victim.getValue().slab, victim.getValue().offset, length, isFromOldFile);
+    }
+
+    private void release(int sizeClass, Entry entry) {
+      usedBytes -= entry.length;
+      sizeClasses[sizeClass].release(entry);
+    }
+  }
+
+  /**
+   * A slab assigned to a size class, whose blocks are carved on demand. It is guarded by the
+   * monitor of its size class, except that the data of an allocated block is accessed by the
+   * segment owning the chunk.
+   */
+  private static class Slab {
+    private final ByteBuffer buffer;
+    private final int blockSize;
+    private final int blockNum;
+    // the offsets of the released blocks
+    private final int[] freeOffsets;
+    private int freeNum = 0;
+    // the blocks from this offset on have never been used
+    private int carvedOffset = 0;
+    private int usedNum = 0;
+
+    private Slab(ByteBuffer buffer, int blockSize) {
+      this.buffer = buffer;
+      this.blockSize = blockSize;
+      this.blockNum = SLAB_SIZE / blockSize;
+      this.freeOffsets = new int[blockNum];
+    }
+
+    private int allocate() {
+      usedNum++;
+      if (freeNum > 0) {
+        return freeOffsets[--freeNum];
+      }
+      int offset = carvedOffset;
+      carvedOffset += blockSize;
+      return offset;
+    }
+
+    private void release(int offset) {
+      usedNum--;
+      freeOffsets[freeNum++] = offset;
+    }
+
+    private boolean isFull() {
+      return usedNum == blockNum;
+    }
+
+    private boolean isEmpty() {
+      return usedNum == 0;
+    }
+
+    private ByteBuffer getBlock(int offset, int length) {
+      ByteBuffer block = buffer.duplicate();
+      block.position(offset);
+      block.limit(offset + length);
+      return block;
+    }
+  }
+
+  private static class Entry {
+    private final ChunkHeader header;
+    private final Slab slab;
+    private final int offset;
+    private final int length;
+    private final boolean isFromOldFile;
+
+    private Entry(ChunkHeader header, Slab slab, int offset, int length, boolean isFromOldFile) {
+      this.header = header;
+      this.slab = slab;
+      this.offset = offset;
+      this.length = length;
+      this.isFromOldFile = isFromOldFile;
+    }
+  }
+
+  /**
+   * A count-min sketch estimating the access frequency of the recent chunks. All the counters are
+   * halved after a sample period, so that the chunks which used to be hot fade out.
+   */
+  static class FrequencySketch {
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final byte[][] table;
+    private final int mask;
+    private final long samplePeriod;
+    private long sampleCount = 0;
+
+    FrequencySketch(long expectedEntryNum) {
+      int width = Integer.highestOneBit((int) Math.min(1 << 20, Math.max(1024, expectedEntryNum)));
+      this.table = new byte[DEPTH][width];
+      this.mask = width - 1;
+      this.samplePeriod = 10L * width;
+    }
+
+    void increment(Object key) {
+      int hash = spread(key.hashCode());
+      for (int i = 0; i < DEPTH; i++) {
+        int index = indexOf(hash, i);
+        if (table[i][index] < MAX_COUNT) {
+          table[i][index]++;
+        }
+      }
+      if (++sampleCount >= samplePeriod) {
+        reset();
+      }
+    }
+
+    int frequency(Object key) {
+      int hash = spread(key.hashCode());
+      int frequency = MAX_COUNT;
+      for (int i = 0; i < DEPTH; i++) {
+        frequency = Math.min(frequency, table[i][indexOf(hash, i)]);
+      }
+      return frequency;
+    }
+
+    private void reset() {
+      for (byte[] row : table) {
+        for (int i = 0; i < row.length; i++) {
+          row[i] = (byte) (row[i] >>> 1);
+        }
+      }
+      sampleCount /= 2;
+    }
+
+    private int indexOf(int hash, int depth) {
+      int h = (hash ^ SEEDS[depth]) * SEEDS[depth];
+      return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static int spread(int hash) {
+      hash ^= hash >>> 17;
+      hash *= 0xED5AD4BB;
+      return hash ^ (hash >>> 11);
+    }
+  }
+}
@@ -23,6 +23,8 @@ import org.apache.iotdb.commons.conf.IoTDBConstant;
 import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.storagegroup.TsFileID;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.query.control.FileReaderManager;
 import org.apache.iotdb.db.service.metrics.MetricsService;
 import org.apache.iotdb.db.service.metrics.enums.Metric;
@@ -34,12 +36,11 @@ import org.apache.iotdb.tsfile.file.metadata.TimeseriesMetadata;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.utils.BloomFilter;
-import org.apache.iotdb.tsfile.utils.FilePathUtils;
-import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.utils.RamUsageEstimator;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.github.benmanes.caffeine.cache.Weigher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,7 +50,6 @@ import java.lang.ref.WeakReference;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -58,7 +58,7 @@ import java.util.concurrent.atomic.AtomicLong;
  * This class is used to cache <code>TimeSeriesMetadata</code> in IoTDB. The caching strategy is
  * LRU.
  */
-public class TimeSeriesMetadataCache {
+public class TimeSeriesMetadataCache implements IResizableCache {
 
   private static final Logger logger = LoggerFactory.getLogger(TimeSeriesMetadataCache.class);
   private static final Logger DEBUG_LOGGER = LoggerFactory.getLogger("QUERY_DEBUG");
@@ -69,6 +69,8 @@ public class TimeSeriesMetadataCache {
 
   private final Cache<TimeSeriesMetadataCacheKey, TimeseriesMetadata> lruCache;
 
+  private final GhostCache ghostCache = new GhostCache();
+
   private final AtomicLong entryAverageSize = new AtomicLong(0);
 
   private final AtomicLong bloomFilterRequestCount = new AtomicLong(0L);
@@ -88,23 +90,13 @@ public class TimeSeriesMetadataCache {
             .maximumWeight(MEMORY_THRESHOLD_IN_TIME_SERIES_METADATA_CACHE)
             .weigher(
                 (Weigher<TimeSeriesMetadataCacheKey, TimeseriesMetadata>)
-                    (key, value) ->
-                        (int)
-                            (RamUsageEstimator.shallowSizeOf(key)
-                                + RamUsageEstimator.sizeOf(key.device)
-                                + RamUsageEstimator.sizeOf(key.measurement)
-                                + RamUsageEstimator.sizeOf(key.tsFilePrefixPath)
-                                + RamUsageEstimator.sizeOf(key.tsFileVersion)
-                                + RamUsageEstimator.shallowSizeOf(value)
-                                + RamUsageEstimator.sizeOf(value.getMeasurementId())
-                                + RamUsageEstimator.shallowSizeOf(value.getStatistics())
-                                + (value.getChunkMetadataList().get(0) == null
-                                        ? 0
-                                        : ((ChunkMetadata) value.getChunkMetadataList().get(0))
-                                                .calculateRamSize()
-                                            + RamUsageEstimator.NUM_BYTES_OBJECT_REF)
-                                    * value.getChunkMetadataList().size()
-                                + RamUsageEstimator.shallowSizeOf(value.getChunkMetadataList())))
+                    TimeSeriesMetadataCache::weigh)
+            .evictionListener(
+                (TimeSeriesMetadataCacheKey key, TimeseriesMetadata value, RemovalCause cause) -> {
+                  if (key != null && value != null && cause == RemovalCause.SIZE) {
+                    ghostCache.recordEviction(key, weigh(key, value));
+                  }
+                })
             .recordStats()
             .build();
 
@@ -144,6 +136,7 @@ public class TimeSeriesMetadataCache {
 
   @SuppressWarnings("squid:S1860") // Suppress synchronize warning
   public TimeseriesMetadata get(
+      String filePath,
       TimeSeriesMetadataCacheKey key,
       Set<String> allSensors,
       boolean ignoreNotExists,
@@ -151,14 +144,16 @@ public class TimeSeriesMetadataCache {
       throws IOException {
     if (!CACHE_ENABLE) {
       // bloom filter part
-      TsFileSequenceReader reader = FileReaderManager.getInstance().get(key.filePath, true);
+      TsFileSequenceReader reader = FileReaderManager.getInstance().get(filePath, true);
       BloomFilter bloomFilter = reader.readBloomFilter();
       if (bloomFilter != null
-          && !bloomFilter.contains(key.device + IoTDBConstant.PATH_SEPARATOR + key.measurement)) {
+          && !bloomFilter.contains(
+              key.getDevice() + IoTDBConstant.PATH_SEPARATOR + key.getMeasurement())) {
         return null;
       }
       TimeseriesMetadata timeseriesMetadata =
-          reader.readTimeseriesMetadata(new Path(key.device, key.measurement), ignoreNotExists);
+          reader.readTimeseriesMetadata(
+              new Path(key.getDevice(), key.getMeasurement()), ignoreNotExists);
       return (timeseriesMetadata == null || timeseriesMetadata.getStatistics().getCount() == 0)
           ? null
           : timeseriesMetadata;
@@ -169,20 +164,21 @@ public class TimeSeriesMetadataCache {
     if (timeseriesMetadata == null) {
       if (debug) {
         DEBUG_LOGGER.info(
-            "Cache miss: {}.{} in file: {}", key.device, key.measurement, key.filePath);
-        DEBUG_LOGGER.info("Device: {}, all sensors: {}", key.device, allSensors);
+            "Cache miss: {}.{} in file: {}", key.getDevice(), key.getMeasurement(), filePath);
+        DEBUG_LOGGER.info("Device: {}, all sensors: {}", key.getDevice(), allSensors);
       }
       // allow for the parallelism of different devices
       synchronized (
-          devices.computeIfAbsent(key.device + SEPARATOR + key.filePath, WeakReference::new)) {
+          devices.computeIfAbsent(key.getDevice() + SEPARATOR + filePath, WeakReference::new)) {
         // double check
         timeseriesMetadata = lruCache.getIfPresent(key);
         if (timeseriesMetadata == null) {
-          Path path = new Path(key.device, key.measurement);
+          ghostCache.recordMiss(key);
+          Path path = new Path(key.getDevice(), key.getMeasurement());
           // bloom filter part
           BloomFilter bloomFilter =
               BloomFilterCache.getInstance()
-                  .get(new BloomFilterCache.BloomFilterCacheKey(key.filePath), debug);
+                  .get(new BloomFilterCache.BloomFilterCacheKey(filePath), debug);
           if (bloomFilter != null) {
             bloomFilterRequestCount.incrementAndGet();
             if (!bloomFilter.contains(path.getFullPath())) {
@@ -193,18 +189,16 @@ public class TimeSeriesMetadataCache {
               return null;
             }
           }
-          TsFileSequenceReader reader = FileReaderManager.getInstance().get(key.filePath, true);
+          TsFileSequenceReader reader = FileReaderManager.getInstance().get(filePath, true);
           List<TimeseriesMetadata> timeSeriesMetadataList =
               reader.readTimeseriesMetadata(path, allSensors);
           // put TimeSeriesMetadata of all sensors used in this query into cache
           for (TimeseriesMetadata metadata : timeSeriesMetadataList) {
-            TimeSeriesMetadataCacheKey k =
-                new TimeSeriesMetadataCacheKey(
-                    key.filePath, key.device, metadata.getMeasurementId());
+            TimeSeriesMetadataCacheKey k = key.withMeasurement(metadata.getMeasurementId());
             if (metadata.getStatistics().getCount() != 0) {
               lruCache.put(k, metadata);
             }
-            if (metadata.getMeasurementId().equals(key.measurement)) {
+            if (metadata.getMeasurementId().equals(key.getMeasurement())) {
               timeseriesMetadata = metadata.getStatistics().getCount() == 0 ? null : metadata;
             }
           }
@@ -220,9 +214,9 @@ public class TimeSeriesMetadataCache {
       if (debug) {
         DEBUG_LOGGER.info(
             "Get timeseries: {}.{}  metadata in file: {}  from cache: {}.",
-            key.device,
-            key.measurement,
-            key.filePath,
+            key.getDevice(),
+            key.getMeasurement(),
+            filePath,
             timeseriesMetadata);
       }
       return new TimeseriesMetadata(timeseriesMetadata);
@@ -237,8 +231,42 @@ public class TimeSeriesMetadataCache {
     return lruCache.stats().evictionCount();
   }
 
+  private static int weigh(TimeSeriesMetadataCacheKey key, TimeseriesMetadata value) {
+    return (int)
+        (key.ramBytesUsed()
+            + RamUsageEstimator.shallowSizeOf(value)
+            + RamUsageEstimator.sizeOf(value.getMeasurementId())
+            + RamUsageEstimator.shallowSizeOf(value.getStatistics())
+            + (value.getChunkMetadataList().get(0) == null
+                    ? 0
+                    : ((ChunkMetadata) value.getChunkMetadataList().get(0)).calculateRamSize()
+                        + RamUsageEstimator.NUM_BYTES_OBJECT_REF)
+                * value.getChunkMetadataList().size()
+            + RamUsageEstimator.shallowSizeOf(value.getChunkMetadataList()));
+  }
+
+  @Override
+  public String getName() {
+    return "timeSeriesMeta";
+  }
+
+  @Override
   public long getMaxMemory() {
-    return MEMORY_THRESHOLD_IN_TIME_SERIES_METADATA_CACHE;
+    return lruCache
+        .policy()
+        .eviction()
+        .map(eviction -> eviction.getMaximum())
+        .orElse(MEMORY_THRESHOLD_IN_TIME_SERIES_METADATA_CACHE);
+  }
+
+  @Override
+  public void setMaxMemory(long maxMemory) {
+    lruCache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(maxMemory));
+  }
+
+  @Override
+  public GhostCache getGhostCache() {
+    return ghostCache;
   }
 
   public double getAverageLoadPenalty() {
@@ -264,27 +292,104 @@ public class TimeSeriesMetadataCache {
     return lruCache.asMap().isEmpty();
   }
 
+  /**
+   * A device or a measurement in the keys, with the id the keys compare instead of the name. The id
+   * is assigned when the name is resolved for the first time and is never reused. A name is kept
+   * only while a key or a reader refers to it, so a name resolved again after being released gets a
+   * new id, which only misses the keys released with the old one.
+   */
+  public static final class SeriesName {
+
+    private static final long SHALLOW_SIZE =
+        RamUsageEstimator.shallowSizeOfInstance(SeriesName.class);
+    private static final Cache<String, SeriesName> NAMES =
+        Caffeine.newBuilder().weakValues().build();
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    private final long id;
+    private final String name;
+
+    private SeriesName(long id, String name) {
+      this.id = id;
+      this.name = name;
+    }
+
+    /**
+     * Resolve a name, which should be done once by a reader of the series rather than once per
+     * key.
+     */
+    public static SeriesName of(String name) {
+      return NAMES.get(name, n -> new SeriesName(NEXT_ID.getAndIncrement(), n));
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    long ramBytesUsed() {
+      return SHALLOW_SIZE + RamUsageEstimator.sizeOf(name);
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  /**
+   * The key keeps the {@link TsFileID} of the TsFile and the {@link SeriesName} of the device and
+   * the measurement, so it is hashed and compared by numbers only. The names are charged to the
+   * weight of each entry referring to them. The file path, which is only needed to load the
+   * metadata, is passed to {@link #get} instead of being kept in the key.
+   */
   public static class TimeSeriesMetadataCacheKey {
 
-    private final String filePath;
-    private final String tsFilePrefixPath;
-    private final long tsFileVersion;
-    // high 32 bit is compaction level, low 32 bit is merge count
-    private final long compactionVersion;
-    private final String device;
-    private final String measurement;
-
-    public TimeSeriesMetadataCacheKey(String filePath, String device, String measurement) {
-      this.filePath = filePath;
-      Pair<String, long[]> tsFilePrefixPathAndTsFileVersionPair =
-          FilePathUtils.getTsFilePrefixPathAndTsFileVersionPair(filePath);
-      this.tsFilePrefixPath = tsFilePrefixPathAndTsFileVersionPair.left;
-      this.tsFileVersion = tsFilePrefixPathAndTsFileVersionPair.right[0];
-      this.compactionVersion = tsFilePrefixPathAndTsFileVersionPair.right[1];
+    private static final long SHALLOW_SIZE =
+        RamUsageEstimator.shallowSizeOfInstance(TimeSeriesMetadataCacheKey.class);
+
+    private final TsFileID tsFileID;
+    private final SeriesName device;
+    private final SeriesName measurement;
+
+    public TimeSeriesMetadataCacheKey(TsFileResource resource, String device, String measurement) {
+      this(resource.getTsFileID(), SeriesName.of(device), SeriesName.of(measurement));
+    }
+
+    public TimeSeriesMetadataCacheKey(
+        TsFileResource resource, SeriesName device, SeriesName measurement) {
+      this(resource.getTsFileID(), device, measurement);
+    }
+
+    public TimeSeriesMetadataCacheKey(
+        TsFileID tsFileID, SeriesName device, SeriesName measurement) {
+      this.tsFileID = tsFileID;
       this.device = device;
       this.measurement = measurement;
     }
 
+    /** @return the key of another measurement of the same device in the same file */
+    TimeSeriesMetadataCacheKey withMeasurement(String measurement) {
+      return new TimeSeriesMetadataCacheKey(tsFileID, device, SeriesName.of(measurement));
+    }
+
+    public String getDevice() {
+      return device.getName();
+    }
+
+    public String getMeasurement() {
+      return measurement.getName();
+    }
+
+    /**
+     * @return the memory used by this key, including the names which may be shared with other keys
+     */
+    public long ramBytesUsed() {
+      return SHALLOW_SIZE
+          + tsFileID.ramBytesUsed()
+          + device.ramBytesUsed()
+          + measurement.ramBytesUsed();
+    }
+
     @Override
     public boolean equals(Object o) {
       if (this == o) {
@@ -294,16 +399,22 @@ public class TimeSeriesMetadataCache {
         return false;
       }
       TimeSeriesMetadataCacheKey that = (TimeSeriesMetadataCacheKey) o;
-      return Objects.equals(measurement, that.measurement)
-          && Objects.equals(device, that.device)
-          && tsFileVersion == that.tsFileVersion
-          && compactionVersion == that.compactionVersion
-          && tsFilePrefixPath.equals(that.tsFilePrefixPath);
+      return measurement.id == that.measurement.id
+          && device.id == that.device.id
+          && tsFileID.equals(that.tsFileID);
     }
 
     @Override
     public int hashCode() {
-      return Objects.hash(tsFilePrefixPath, tsFileVersion, compactionVersion, device, measurement);
+      int result = tsFileID.hashCode();
+      result = 31 * result + Long.hashCode(device.id);
+      result = 31 * result + Long.hashCode(measurement.id);
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      return tsFileID + ":" + getDevice() + IoTDBConstant.PATH_SEPARATOR + getMeasurement();
     }
   }
 
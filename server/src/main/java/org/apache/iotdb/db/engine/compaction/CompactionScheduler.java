@@ -24,8 +24,13 @@ import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.compaction.cross.CrossSpaceCompactionTask;
 import org.apache.iotdb.db.engine.compaction.cross.ICrossSpaceSelector;
+import org.apache.iotdb.db.engine.compaction.downsampling.DownsamplingCompactionSelector;
+import org.apache.iotdb.db.engine.compaction.downsampling.DownsamplingCompactionTask;
+import org.apache.iotdb.db.engine.compaction.downsampling.DownsamplingPolicy;
+import org.apache.iotdb.db.engine.compaction.downsampling.DownsamplingTargetRouter;
 import org.apache.iotdb.db.engine.compaction.inner.InnerSpaceCompactionTask;
 import org.apache.iotdb.db.engine.compaction.performer.ICompactionPerformer;
+import org.apache.iotdb.db.engine.compaction.performer.impl.DownsamplingCompactionPerformer;
 import org.apache.iotdb.db.engine.compaction.task.ICompactionSelector;
 import org.apache.iotdb.db.engine.storagegroup.TsFileManager;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
@@ -56,6 +61,11 @@ public class CompactionScheduler {
       return;
     }
     try {
+      tryToSubmitDownsamplingCompactionTask(
+          tsFileManager.getStorageGroupName(),
+          tsFileManager.getDataRegion(),
+          timePartition,
+          tsFileManager);
       tryToSubmitCrossSpaceCompactionTask(
           tsFileManager.getStorageGroupName(),
           tsFileManager.getDataRegion(),
@@ -163,4 +173,42 @@ public class CompactionScheduler {
                   CompactionTaskManager.currentTaskNum));
     }
   }
+
+  private static void tryToSubmitDownsamplingCompactionTask(
+      String logicalStorageGroupName,
+      String dataRegionId,
+      long timePartition,
+      TsFileManager tsFileManager)
+      throws InterruptedException {
+    if (!config.isEnableDownsamplingCompaction()) {
+      return;
+    }
+    DownsamplingPolicy policy = DownsamplingPolicy.getPolicy(logicalStorageGroupName);
+    if (policy == null || policy.getTiers().isEmpty()) {
+      return;
+    }
+    DownsamplingTargetRouter router =
+        new DownsamplingTargetRouter(logicalStorageGroupName, dataRegionId);
+    DownsamplingCompactionSelector selector =
+        new DownsamplingCompactionSelector(
+            logicalStorageGroupName, dataRegionId, timePartition, policy, router);
+    List<Pair<List<TsFileResource>, List<TsFileResource>>> taskList =
+        selector.selectDownsamplingTask(
+            tsFileManager.getSequenceListByTimePartition(timePartition).getArrayList(),
+            tsFileManager.getUnsequenceListByTimePartition(timePartition).getArrayList(),
+            System.currentTimeMillis());
+    for (Pair<List<TsFileResource>, List<TsFileResource>> selectedFilesPair : taskList) {
+      CompactionTaskManager.getInstance()
+          .addTaskToWaitingQueue(
+              new DownsamplingCompactionTask(
+                  timePartition,
+                  tsFileManager,
+                  selectedFilesPair.left,
+                  selectedFilesPair.right,
+                  selector.getSelectedTierIndex(),
+                  new DownsamplingCompactionPerformer(
+                      policy, selector.getSelectedTierIndex(), router),
+                  CompactionTaskManager.currentTaskNum));
+    }
+  }
 }
@@ -32,6 +32,7 @@ import org.apache.iotdb.db.engine.compaction.comparator.DefaultCompactionTaskCom
 import org.apache.iotdb.db.engine.compaction.constant.CompactionTaskStatus;
 import org.apache.iotdb.db.engine.compaction.task.AbstractCompactionTask;
 import org.apache.iotdb.db.engine.compaction.task.CompactionTaskSummary;
+import org.apache.iotdb.db.engine.compaction.throttle.CompactionThrottleController;
 import org.apache.iotdb.db.service.metrics.recorder.CompactionMetricsRecorder;
 import org.apache.iotdb.db.utils.datastructure.FixedPriorityBlockingQueue;
 
@@ -50,6 +51,7 @@ import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /** CompactionMergeTaskPoolManager provides a ThreadPool tPro queue and run all compaction tasks. */
 public class CompactionTaskManager implements IService {
@@ -85,6 +87,13 @@ public class CompactionTaskManager implements IService {
 
   private final RateLimiter mergeWriteRateLimiter = RateLimiter.create(Double.MAX_VALUE);
 
+  private final CompactionThrottleController throttleController =
+      new CompactionThrottleController();
+
+  // the memory used by all compaction tasks to buffer encoded data which has not been written into
+  // the target files yet
+  private final AtomicLong bufferMemoryCost = new AtomicLong(0);
+
   public static CompactionTaskManager getInstance() {
     return INSTANCE;
   }
@@ -124,6 +133,17 @@ public class CompactionTaskManager implements IService {
           TASK_SUBMIT_INTERVAL,
           TASK_SUBMIT_INTERVAL,
           TimeUnit.MILLISECONDS);
+
+      if (IoTDBDescriptor.getInstance().getConfig().isEnableAdaptiveCompactionThrottle()) {
+        long checkInterval =
+            IoTDBDescriptor.getInstance().getConfig().getCompactionThrottleCheckIntervalInMs();
+        ScheduledExecutorUtil.safelyScheduleWithFixedDelay(
+            compactionTaskSubmissionThreadPool,
+            this::adjustThrottle,
+            checkInterval,
+            checkInterval,
+            TimeUnit.MILLISECONDS);
+      }
     }
     logger.info("Compaction task manager started.");
   }
@@ -247,8 +267,7 @@ public class CompactionTaskManager implements IService {
    */
   public synchronized void submitTaskFromTaskQueue() {
     try {
-      while (currentTaskNum.get()
-              < IoTDBDescriptor.getInstance().getConfig().getConcurrentCompactionThread()
+      while (currentTaskNum.get() < getMaxRunningTaskNum()
           && !candidateCompactionTaskQueue.isEmpty()) {
         AbstractCompactionTask task = candidateCompactionTaskQueue.take();
 
@@ -269,9 +288,35 @@ public class CompactionTaskManager implements IService {
     }
   }
 
+  /**
+   * @return the max number of compaction tasks that can run at the same time, which may be lowered
+   *     by the compaction throttle under foreground pressure
+   */
+  private int getMaxRunningTaskNum() {
+    if (IoTDBDescriptor.getInstance().getConfig().isEnableAdaptiveCompactionThrottle()) {
+      return throttleController.getMaxRunningTaskNum();
+    }
+    return IoTDBDescriptor.getInstance().getConfig().getConcurrentCompactionThread();
+  }
+
+  /** Adjust the compaction throttle according to the foreground pressure and apply it. */
+  private void adjustThrottle() {
+    throttleController.check();
+    // apply the new write throughput to the rate limiter shared by the running tasks
+    getMergeWriteRateLimiter();
+  }
+
+  public CompactionThrottleController getThrottleController() {
+    return throttleController;
+  }
+
   public RateLimiter getMergeWriteRateLimiter() {
-    setWriteMergeRate(
-        IoTDBDescriptor.getInstance().getConfig().getCompactionWriteThroughputMbPerSec());
+    if (IoTDBDescriptor.getInstance().getConfig().isEnableAdaptiveCompactionThrottle()) {
+      setWriteMergeRate(throttleController.getWriteThroughputMbPerSec());
+    } else {
+      setWriteMergeRate(
+          IoTDBDescriptor.getInstance().getConfig().getCompactionWriteThroughputMbPerSec());
+    }
     return mergeWriteRateLimiter;
   }
 
@@ -287,6 +332,7 @@ public class CompactionTaskManager implements IService {
   }
   /** wait by throughoutMbPerSec limit to avoid continuous Write Or Read */
   public static void mergeRateLimiterAcquire(RateLimiter limiter, long bytesLength) {
+    INSTANCE.throttleController.recordCompactionIO(bytesLength);
     while (bytesLength >= Integer.MAX_VALUE) {
       limiter.acquire(Integer.MAX_VALUE);
       bytesLength -= Integer.MAX_VALUE;
@@ -296,6 +342,30 @@ public class CompactionTaskManager implements IService {
     }
   }
 
+  /** Record the memory of the data buffered by a compaction task. */
+  public void allocateBufferMemory(long size) {
+    bufferMemoryCost.addAndGet(size);
+  }
+
+  /** Release the memory of the buffered data after it is written into the target file. */
+  public void releaseBufferMemory(long size) {
+    bufferMemoryCost.addAndGet(-size);
+  }
+
+  /**
+   * @return true if the data buffered by all compaction tasks exceeds the compaction buffer memory
+   *     budget after another {@code size} bytes are buffered, and the compaction tasks should write
+   *     out their buffered data before encoding more
+   */
+  public boolean isBufferMemoryExhausted(long size) {
+    return bufferMemoryCost.get() + size
+        > IoTDBDescriptor.getInstance().getConfig().getCompactionBufferMemoryBudget();
+  }
+
+  public long getBufferMemoryCost() {
+    return bufferMemoryCost.get();
+  }
+
   public synchronized void removeRunningTaskFuture(AbstractCompactionTask task) {
     String storageGroupName = task.getFullStorageGroupName();
     if (storageGroupTasks.containsKey(storageGroupName)) {
@@ -328,7 +398,7 @@ public class CompactionTaskManager implements IService {
     return null;
   }
 
-  public synchronized Future<Void> submitSubTask(Callable<Void> subCompactionTask) {
+  public synchronized <T> Future<T> submitSubTask(Callable<T> subCompactionTask) {
     if (subCompactionTaskExecutionPool != null && !subCompactionTaskExecutionPool.isShutdown()) {
       return subCompactionTaskExecutionPool.submit(subCompactionTask);
     }
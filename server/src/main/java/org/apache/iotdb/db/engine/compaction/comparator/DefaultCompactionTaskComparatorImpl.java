@@ -23,6 +23,7 @@ import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.compaction.constant.CompactionPriority;
 import org.apache.iotdb.db.engine.compaction.cross.CrossSpaceCompactionTask;
+import org.apache.iotdb.db.engine.compaction.downsampling.DownsamplingCompactionTask;
 import org.apache.iotdb.db.engine.compaction.inner.InnerSpaceCompactionTask;
 import org.apache.iotdb.db.engine.compaction.task.AbstractCompactionTask;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
@@ -34,6 +35,13 @@ public class DefaultCompactionTaskComparatorImpl implements ICompactionTaskCompa
 
   @Override
   public int compare(AbstractCompactionTask o1, AbstractCompactionTask o2) {
+    if (o1 instanceof DownsamplingCompactionTask || o2 instanceof DownsamplingCompactionTask) {
+      // downsampling reduces the data to be compacted by other tasks, so execute it first
+      if (o1 instanceof DownsamplingCompactionTask && o2 instanceof DownsamplingCompactionTask) {
+        return Long.compare(o1.getTimePartition(), o2.getTimePartition());
+      }
+      return o1 instanceof DownsamplingCompactionTask ? -1 : 1;
+    }
     if ((((o1 instanceof InnerSpaceCompactionTask) && (o2 instanceof CrossSpaceCompactionTask))
         || ((o2 instanceof InnerSpaceCompactionTask)
             && (o1 instanceof CrossSpaceCompactionTask)))) {
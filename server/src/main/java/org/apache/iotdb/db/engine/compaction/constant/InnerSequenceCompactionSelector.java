@@ -20,14 +20,18 @@
 package org.apache.iotdb.db.engine.compaction.constant;
 
 import org.apache.iotdb.db.engine.compaction.inner.IInnerSeqSpaceSelector;
+import org.apache.iotdb.db.engine.compaction.inner.leveled.LeveledCompactionSelector;
 import org.apache.iotdb.db.engine.compaction.inner.sizetiered.SizeTieredCompactionSelector;
 
 public enum InnerSequenceCompactionSelector {
-  SIZE_TIERED;
+  SIZE_TIERED,
+  LEVELED;
 
   public static InnerSequenceCompactionSelector getInnerSequenceCompactionSelector(String name) {
     if (SIZE_TIERED.toString().equalsIgnoreCase(name)) {
       return SIZE_TIERED;
+    } else if (LEVELED.toString().equalsIgnoreCase(name)) {
+      return LEVELED;
     }
     throw new RuntimeException("Illegal Compaction Selector " + name);
   }
@@ -35,6 +39,9 @@ public enum InnerSequenceCompactionSelector {
   public IInnerSeqSpaceSelector createInstance(
       String logicalStorageGroupName, String virtualStorageGroupName, long timePartition) {
     switch (this) {
+      case LEVELED:
+        return new LeveledCompactionSelector(
+            logicalStorageGroupName, virtualStorageGroupName, timePartition, true);
       case SIZE_TIERED:
       default:
         return new SizeTieredCompactionSelector(
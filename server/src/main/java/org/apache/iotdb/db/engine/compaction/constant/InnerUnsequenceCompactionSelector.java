@@ -19,15 +19,19 @@
 package org.apache.iotdb.db.engine.compaction.constant;
 
 import org.apache.iotdb.db.engine.compaction.inner.IInnerUnseqSpaceSelector;
+import org.apache.iotdb.db.engine.compaction.inner.leveled.LeveledCompactionSelector;
 import org.apache.iotdb.db.engine.compaction.inner.sizetiered.SizeTieredCompactionSelector;
 
 public enum InnerUnsequenceCompactionSelector {
-  SIZE_TIERED;
+  SIZE_TIERED,
+  LEVELED;
 
   public static InnerUnsequenceCompactionSelector getInnerUnsequenceCompactionSelector(
       String name) {
     if (SIZE_TIERED.toString().equalsIgnoreCase(name)) {
       return SIZE_TIERED;
+    } else if (LEVELED.toString().equalsIgnoreCase(name)) {
+      return LEVELED;
     }
     throw new RuntimeException("Illegal Compaction Selector " + name);
   }
@@ -35,6 +39,9 @@ public enum InnerUnsequenceCompactionSelector {
   public IInnerUnseqSpaceSelector createInstance(
       String logicalStorageGroupName, String virtualStorageGroupName, long timePartition) {
     switch (this) {
+      case LEVELED:
+        return new LeveledCompactionSelector(
+            logicalStorageGroupName, virtualStorageGroupName, timePartition, false);
       case SIZE_TIERED:
       default:
         return new SizeTieredCompactionSelector(
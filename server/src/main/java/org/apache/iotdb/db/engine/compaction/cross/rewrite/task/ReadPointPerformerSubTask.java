@@ -19,8 +19,10 @@
 package org.apache.iotdb.db.engine.compaction.cross.rewrite.task;
 
 import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.compaction.performer.impl.ReadPointCompactionPerformer;
 import org.apache.iotdb.db.engine.compaction.writer.AbstractCompactionWriter;
+import org.apache.iotdb.db.engine.compaction.writer.CrossSpaceCompactionWriter;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.tsfile.read.reader.IBatchReader;
@@ -39,7 +41,8 @@ import java.util.concurrent.Callable;
 /**
  * This class is used to implement reading the measurements and writing to the target files in
  * parallel in the compaction. Currently, it only works for nonAligned data in cross space
- * compaction and unseq inner space compaction.
+ * compaction and unseq inner space compaction. In cross space compaction, the data of the seq files
+ * which is not overlapped by unseq data is reused by {@link SeqChunkReuseExecutor}.
  */
 public class ReadPointPerformerSubTask implements Callable<Void> {
   private static final Logger logger =
@@ -51,6 +54,8 @@ public class ReadPointPerformerSubTask implements Callable<Void> {
   private final AbstractCompactionWriter compactionWriter;
   private final Map<String, MeasurementSchema> schemaMap;
   private final int taskId;
+  private final boolean enableSeqChunkReuse =
+      IoTDBDescriptor.getInstance().getConfig().isEnableCrossCompactionSeqChunkReuse();
 
   public ReadPointPerformerSubTask(
       String device,
@@ -72,6 +77,19 @@ public class ReadPointPerformerSubTask implements Callable<Void> {
   @Override
   public Void call() throws Exception {
     for (String measurement : measurementList) {
+      if (enableSeqChunkReuse
+          && compactionWriter instanceof CrossSpaceCompactionWriter
+          && new SeqChunkReuseExecutor(
+                  device,
+                  schemaMap.get(measurement),
+                  measurementList,
+                  queryContext,
+                  queryDataSource,
+                  (CrossSpaceCompactionWriter) compactionWriter,
+                  taskId)
+              .execute()) {
+        continue;
+      }
       List<IMeasurementSchema> measurementSchemas =
           Collections.singletonList(schemaMap.get(measurement));
       IBatchReader dataBatchReader =
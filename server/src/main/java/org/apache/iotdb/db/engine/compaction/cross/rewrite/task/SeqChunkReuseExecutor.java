@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.cross.rewrite.task;
+
+import org.apache.iotdb.commons.exception.IllegalPathException;
+import org.apache.iotdb.db.engine.cache.ChunkCache;
+import org.apache.iotdb.db.engine.compaction.performer.impl.ReadPointCompactionPerformer;
+import org.apache.iotdb.db.engine.compaction.writer.CrossSpaceCompactionWriter;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.metadata.path.MeasurementPath;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.service.metrics.recorder.CompactionMetricsRecorder;
+import org.apache.iotdb.db.utils.FileLoaderUtils;
+import org.apache.iotdb.tsfile.file.MetaMarker;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.IChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.TimeseriesMetadata;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+import org.apache.iotdb.tsfile.read.reader.IBatchReader;
+import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * SeqChunkReuseExecutor compacts a non-aligned series in cross space compaction without
+ * deserializing the data of the sequence files which no unsequence data overlaps. The chunks (or
+ * the pages, if the chunk is overlapped but some of its pages are not) of the sequence files are
+ * copied into the corresponding target files as they are, and only the time ranges that intersect
+ * unsequence data, or that contain deletions, are read point by point and rewritten.
+ *
+ * <p>The overlap is checked with the time ranges of the unsequence chunks, so a copied chunk or
+ * page never shares any timestamp with other data and the series remains ordered in the target
+ * files.
+ */
+public class SeqChunkReuseExecutor {
+  private final String device;
+  private final MeasurementSchema schema;
+  private final Set<String> allSensors;
+  private final QueryContext queryContext;
+  private final QueryDataSource queryDataSource;
+  private final CrossSpaceCompactionWriter compactionWriter;
+  private final int subTaskId;
+
+  // the time ranges of all unsequence chunks of the series, sorted and merged
+  private List<TimeRange> unseqTimeRanges;
+
+  public SeqChunkReuseExecutor(
+      String device,
+      MeasurementSchema schema,
+      Set<String> allSensors,
+      QueryContext queryContext,
+      QueryDataSource queryDataSource,
+      CrossSpaceCompactionWriter compactionWriter,
+      int subTaskId) {
+    this.device = device;
+    this.schema = schema;
+    this.allSensors = allSensors;
+    this.queryContext = queryContext;
+    this.queryDataSource = queryDataSource;
+    this.compactionWriter = compactionWriter;
+    this.subTaskId = subTaskId;
+  }
+
+  /**
+   * Compact the series.
+   *
+   * @return false if no chunk or page can be reused, then nothing is written and the caller should
+   *     compact the series by reading all of its points
+   */
+  public boolean execute() throws IOException, IllegalPathException {
+    MeasurementPath seriesPath = new MeasurementPath(device, schema.getMeasurementId(), schema);
+    unseqTimeRanges = collectUnseqTimeRanges(seriesPath);
+    List<SeqChunk> seqChunks = collectSeqChunks(seriesPath);
+
+    List<ReusableData> reusableDataList = new ArrayList<>();
+    List<TimeRange> rewriteTimeRanges = new ArrayList<>(unseqTimeRanges);
+    long maxEndTimeOfPreviousChunks = Long.MIN_VALUE;
+    for (int i = 0; i < seqChunks.size(); i++) {
+      SeqChunk seqChunk = seqChunks.get(i);
+      ChunkMetadata chunkMetadata = seqChunk.chunkMetadata;
+      long nextChunkStartTime =
+          i + 1 < seqChunks.size()
+              ? seqChunks.get(i + 1).chunkMetadata.getStartTime()
+              : Long.MAX_VALUE;
+      boolean overlappedBySeqChunks =
+          chunkMetadata.getStartTime() <= maxEndTimeOfPreviousChunks
+              || chunkMetadata.getEndTime() >= nextChunkStartTime;
+      maxEndTimeOfPreviousChunks = Math.max(maxEndTimeOfPreviousChunks, chunkMetadata.getEndTime());
+
+      if (overlappedBySeqChunks
+          || chunkMetadata.isModified()
+          || chunkMetadata.getDataType() != schema.getType()) {
+        rewriteTimeRanges.add(
+            new TimeRange(chunkMetadata.getStartTime(), chunkMetadata.getEndTime()));
+      } else if (!isOverlappedByUnseqData(
+          chunkMetadata.getStartTime(), chunkMetadata.getEndTime())) {
+        reusableDataList.add(new ReusableData(seqChunk, null, null));
+      } else {
+        splitOverlappedChunk(seqChunk, reusableDataList, rewriteTimeRanges);
+      }
+    }
+    if (reusableDataList.isEmpty()) {
+      return false;
+    }
+    rewriteTimeRanges = TimeRange.sortAndMerge(rewriteTimeRanges);
+
+    // write the reusable data and the rewritten time ranges in the order of time, they never
+    // overlap each other
+    compactionWriter.startMeasurement(Collections.singletonList(schema), subTaskId);
+    int rangeIndex = 0;
+    for (ReusableData reusableData : reusableDataList) {
+      while (rangeIndex < rewriteTimeRanges.size()
+          && rewriteTimeRanges.get(rangeIndex).getMin() < reusableData.getStartTime()) {
+        rewrite(seriesPath, rewriteTimeRanges.get(rangeIndex++));
+      }
+      reuse(reusableData);
+    }
+    while (rangeIndex < rewriteTimeRanges.size()) {
+      rewrite(seriesPath, rewriteTimeRanges.get(rangeIndex++));
+    }
+    compactionWriter.endMeasurement(subTaskId);
+    return true;
+  }
+
+  /**
+   * The chunk is overlapped by unsequence data, but the pages which are not overlapped can still be
+   * reused if they are encoded and compressed in the same way as the target chunk.
+   */
+  private void splitOverlappedChunk(
+      SeqChunk seqChunk, List<ReusableData> reusableDataList, List<TimeRange> rewriteTimeRanges)
+      throws IOException {
+    ChunkMetadata chunkMetadata = seqChunk.chunkMetadata;
+    TimeRange chunkTimeRange =
+        new TimeRange(chunkMetadata.getStartTime(), chunkMetadata.getEndTime());
+    // the chunk is read from the cache, because the rewriting of the overlapped pages reads it
+    // again
+    Chunk chunk = ChunkCache.getInstance().get(chunkMetadata);
+    ChunkHeader chunkHeader = chunk.getHeader();
+    if (((byte) (chunkHeader.getChunkType() & 0x3F)) == MetaMarker.ONLY_ONE_PAGE_CHUNK_HEADER
+        || chunkHeader.getEncodingType() != schema.getEncodingType()
+        || chunkHeader.getCompressionType() != schema.getCompressor()) {
+      rewriteTimeRanges.add(chunkTimeRange);
+      return;
+    }
+    ByteBuffer chunkData = chunk.getData();
+    while (chunkData.remaining() > 0) {
+      PageHeader pageHeader = PageHeader.deserializeFrom(chunkData, chunkHeader.getDataType());
+      ByteBuffer pageData = chunkData.slice();
+      pageData.limit(pageHeader.getCompressedSize());
+      chunkData.position(chunkData.position() + pageHeader.getCompressedSize());
+      if (isOverlappedByUnseqData(pageHeader.getStartTime(), pageHeader.getEndTime())) {
+        rewriteTimeRanges.add(new TimeRange(pageHeader.getStartTime(), pageHeader.getEndTime()));
+      } else {
+        reusableDataList.add(new ReusableData(seqChunk, pageHeader, pageData));
+      }
+    }
+  }
+
+  private void reuse(ReusableData reusableData) throws IOException {
+    SeqChunk seqChunk = reusableData.seqChunk;
+    if (reusableData.pageHeader == null) {
+      Chunk chunk =
+          FileReaderManager.getInstance()
+              .get(seqChunk.resource.getTsFilePath(), true)
+              .readMemChunk(seqChunk.chunkMetadata);
+      CompactionMetricsRecorder.recordReadInfo(
+          chunk.getHeader().getSerializedSize() + chunk.getHeader().getDataSize());
+      compactionWriter.writeChunk(chunk, seqChunk.chunkMetadata, seqChunk.seqFileIndex, subTaskId);
+    } else {
+      compactionWriter.writePage(
+          reusableData.pageHeader, reusableData.pageData, seqChunk.seqFileIndex, subTaskId);
+    }
+  }
+
+  private void rewrite(MeasurementPath seriesPath, TimeRange timeRange)
+      throws IOException, IllegalPathException {
+    List<IMeasurementSchema> measurementSchemas = Collections.singletonList(schema);
+    IBatchReader dataBatchReader =
+        ReadPointCompactionPerformer.constructReader(
+            device,
+            Collections.singletonList(seriesPath.getMeasurement()),
+            measurementSchemas,
+            allSensors,
+            queryContext,
+            queryDataSource,
+            false,
+            FilterFactory.and(
+                TimeFilter.gtEq(timeRange.getMin()), TimeFilter.ltEq(timeRange.getMax())));
+    ReadPointCompactionPerformer.writeWithReader(compactionWriter, dataBatchReader, subTaskId);
+  }
+
+  private List<TimeRange> collectUnseqTimeRanges(MeasurementPath seriesPath) throws IOException {
+    List<TimeRange> timeRanges = new ArrayList<>();
+    for (TsFileResource resource : queryDataSource.getUnseqResources()) {
+      for (IChunkMetadata chunkMetadata : loadChunkMetadataList(resource, seriesPath)) {
+        timeRanges.add(new TimeRange(chunkMetadata.getStartTime(), chunkMetadata.getEndTime()));
+      }
+    }
+    return TimeRange.sortAndMerge(timeRanges);
+  }
+
+  private List<SeqChunk> collectSeqChunks(MeasurementPath seriesPath) throws IOException {
+    List<SeqChunk> seqChunks = new ArrayList<>();
+    List<TsFileResource> seqResources = queryDataSource.getSeqResources();
+    for (int i = 0; i < seqResources.size(); i++) {
+      for (IChunkMetadata chunkMetadata : loadChunkMetadataList(seqResources.get(i), seriesPath)) {
+        seqChunks.add(new SeqChunk(i, seqResources.get(i), (ChunkMetadata) chunkMetadata));
+      }
+    }
+    seqChunks.sort(Comparator.comparingLong(seqChunk -> seqChunk.chunkMetadata.getStartTime()));
+    return seqChunks;
+  }
+
+  /** Load the chunk metadata of the series in the file, the modifications are applied. */
+  private List<IChunkMetadata> loadChunkMetadataList(
+      TsFileResource resource, MeasurementPath seriesPath) throws IOException {
+    if (!resource.mayContainsDevice(device)) {
+      return Collections.emptyList();
+    }
+    TimeseriesMetadata timeseriesMetadata =
+        FileLoaderUtils.loadTimeSeriesMetadata(
+            resource, seriesPath, queryContext, null, allSensors);
+    if (timeseriesMetadata == null) {
+      return Collections.emptyList();
+    }
+    return timeseriesMetadata.loadChunkMetadataList();
+  }
+
+  private boolean isOverlappedByUnseqData(long startTime, long endTime) {
+    // find the first unsequence time range which ends no earlier than startTime
+    int low = 0;
+    int high = unseqTimeRanges.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (unseqTimeRanges.get(mid).getMax() < startTime) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low < unseqTimeRanges.size() && unseqTimeRanges.get(low).getMin() <= endTime;
+  }
+
+  private static class SeqChunk {
+    private final int seqFileIndex;
+    private final TsFileResource resource;
+    private final ChunkMetadata chunkMetadata;
+
+    private SeqChunk(int seqFileIndex, TsFileResource resource, ChunkMetadata chunkMetadata) {
+      this.seqFileIndex = seqFileIndex;
+      this.resource = resource;
+      this.chunkMetadata = chunkMetadata;
+    }
+  }
+
+  /** A whole chunk if pageHeader is null, otherwise a page of the chunk. */
+  private static class ReusableData {
+    private final SeqChunk seqChunk;
+    private final PageHeader pageHeader;
+    private final ByteBuffer pageData;
+
+    private ReusableData(SeqChunk seqChunk, PageHeader pageHeader, ByteBuffer pageData) {
+      this.seqChunk = seqChunk;
+      this.pageHeader = pageHeader;
+      this.pageData = pageData;
+    }
+
+    private long getStartTime() {
+      return pageHeader == null ? seqChunk.chunkMetadata.getStartTime() : pageHeader.getStartTime();
+    }
+  }
+}
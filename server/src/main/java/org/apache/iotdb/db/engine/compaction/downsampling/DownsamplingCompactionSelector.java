@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.downsampling;
+
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.task.ICompactionSelector;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResourceStatus;
+import org.apache.iotdb.tsfile.utils.Pair;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * DownsamplingCompactionSelector selects the sequence files to be downsampled in a time partition.
+ * The tiers are checked from the oldest one. For a tier, the consecutive sequence files which end
+ * before the window of now minus the age of the tier, and still contain the raw data or the
+ * aggregations of lower tiers, are selected together with the unsequence files overlapping them.
+ *
+ * <p>A window must never be split across a selected file and an unselected one, otherwise it would
+ * be aggregated twice into two points of the same timestamp. So the last selected file is dropped
+ * while the next sequence file starts in its last window, and the selection is given up when an
+ * unsequence file crosses the windows of the selected files. Cross space compaction will merge such
+ * unsequence files first.
+ *
+ * <p>The devices whose target device of the tier belongs to another data region, which is decided
+ * by {@link DownsamplingTargetRouter}, are never downsampled here, so they do not make a file
+ * selected.
+ */
+public class DownsamplingCompactionSelector implements ICompactionSelector {
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(IoTDBConstant.COMPACTION_LOGGER_NAME);
+  private final String logicalStorageGroupName;
+  private final String dataRegionId;
+  private final long timePartition;
+  private final DownsamplingPolicy policy;
+  private final DownsamplingTargetRouter router;
+  private final int maxFileNum;
+
+  private int selectedTierIndex = -1;
+
+  public DownsamplingCompactionSelector(
+      String logicalStorageGroupName,
+      String dataRegionId,
+      long timePartition,
+      DownsamplingPolicy policy,
+      DownsamplingTargetRouter router) {
+    this.logicalStorageGroupName = logicalStorageGroupName;
+    this.dataRegionId = dataRegionId;
+    this.timePartition = timePartition;
+    this.policy = policy;
+    this.router = router;
+    this.maxFileNum =
+        Math.max(
+            2, IoTDBDescriptor.getInstance().getConfig().getMaxInnerCompactionCandidateFileNum());
+  }
+
+  /**
+   * @return at most one pair of the selected sequence files and unsequence files, the tier to apply
+   *     is given by {@link #getSelectedTierIndex()}
+   */
+  public List<Pair<List<TsFileResource>, List<TsFileResource>>> selectDownsamplingTask(
+      List<TsFileResource> seqFiles, List<TsFileResource> unseqFiles, long currentTime) {
+    List<DownsamplingPolicy.Tier> tiers = policy.getTiers();
+    for (int tierIndex = tiers.size() - 1; tierIndex >= 0; tierIndex--) {
+      try {
+        Pair<List<TsFileResource>, List<TsFileResource>> selectedFiles =
+            selectFilesOfTier(tierIndex, seqFiles, unseqFiles, currentTime);
+        if (selectedFiles != null) {
+          selectedTierIndex = tierIndex;
+          LOGGER.info(
+              "{}-{} [Compaction] Downsampling selector selects {} seq files and {} unseq files "
+                  + "in time partition {} for tier {}",
+              logicalStorageGroupName,
+              dataRegionId,
+              selectedFiles.left.size(),
+              selectedFiles.right.size(),
+              timePartition,
+              tiers.get(tierIndex));
+          return Collections.singletonList(selectedFiles);
+        }
+      } catch (Exception e) {
+        LOGGER.error("Exception occurs while selecting files", e);
+        return Collections.emptyList();
+      }
+    }
+    return Collections.emptyList();
+  }
+
+  public int getSelectedTierIndex() {
+    return selectedTierIndex;
+  }
+
+  private Pair<List<TsFileResource>, List<TsFileResource>> selectFilesOfTier(
+      int tierIndex,
+      List<TsFileResource> seqFiles,
+      List<TsFileResource> unseqFiles,
+      long currentTime) {
+    DownsamplingPolicy.Tier tier = policy.getTiers().get(tierIndex);
+    long boundary = tier.getWindowStart(currentTime - tier.getAge());
+
+    // search the first run of consecutive files to be downsampled
+    int firstIndex = -1;
+    int lastIndex = -1;
+    for (int i = 0; i < seqFiles.size(); i++) {
+      TsFileResource resource = seqFiles.get(i);
+      if (resource.getStatus() != TsFileResourceStatus.CLOSED
+          || resource.getFileEndTime() >= boundary) {
+        break;
+      }
+      if (!containsLowerTierData(resource, tierIndex)) {
+        if (firstIndex >= 0) {
+          break;
+        }
+        continue;
+      }
+      if (firstIndex < 0) {
+        firstIndex = i;
+      }
+      lastIndex = i;
+      if (lastIndex - firstIndex + 1 >= maxFileNum) {
+        break;
+      }
+    }
+    if (firstIndex < 0) {
+      return null;
+    }
+
+    long startWindow = tier.getWindowStart(seqFiles.get(firstIndex).getFileStartTime());
+    if (firstIndex > 0 && seqFiles.get(firstIndex - 1).getFileEndTime() >= startWindow) {
+      return null;
+    }
+    long endWindow = Long.MIN_VALUE;
+    // drop the last files while the next file starts in their last window
+    for (; lastIndex >= firstIndex; lastIndex--) {
+      endWindow = tier.getWindowStart(seqFiles.get(lastIndex).getFileEndTime()) + tier.getWindow();
+      if (lastIndex + 1 >= seqFiles.size()
+          || seqFiles.get(lastIndex + 1).getFileStartTime() >= endWindow) {
+        break;
+      }
+    }
+    if (lastIndex < firstIndex) {
+      return null;
+    }
+
+    List<TsFileResource> selectedUnseqFiles = new ArrayList<>();
+    for (TsFileResource resource : unseqFiles) {
+      if (resource.getFileEndTime() < startWindow || resource.getFileStartTime() >= endWindow) {
+        continue;
+      }
+      if (resource.getStatus() != TsFileResourceStatus.CLOSED
+          || resource.getFileStartTime() < startWindow
+          || resource.getFileEndTime() >= endWindow) {
+        LOGGER.debug(
+            "{}-{} [Compaction] Unseq file {} crosses the downsampling windows, skip downsampling",
+            logicalStorageGroupName,
+            dataRegionId,
+            resource);
+        return null;
+      }
+      selectedUnseqFiles.add(resource);
+    }
+    return new Pair<>(
+        new ArrayList<>(seqFiles.subList(firstIndex, lastIndex + 1)), selectedUnseqFiles);
+  }
+
+  /**
+   * @return whether the file contains raw data or the aggregations of the tiers lower than it,
+   *     whose target device belongs to this data region
+   */
+  private boolean containsLowerTierData(TsFileResource resource, int tierIndex) {
+    DownsamplingPolicy.Tier tier = policy.getTiers().get(tierIndex);
+    for (String device : resource.getDevices()) {
+      if (policy.getTierIndex(device) < tierIndex
+          && router.isLocal(
+              tier.getTargetDevice(policy.getRelativeDevice(device)),
+              resource.getFileStartTime())) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
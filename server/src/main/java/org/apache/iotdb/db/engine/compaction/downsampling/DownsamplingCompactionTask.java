@@ -0,0 +1,290 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.downsampling;
+
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.engine.compaction.CompactionExceptionHandler;
+import org.apache.iotdb.db.engine.compaction.CompactionUtils;
+import org.apache.iotdb.db.engine.compaction.log.CompactionLogger;
+import org.apache.iotdb.db.engine.compaction.performer.ICompactionPerformer;
+import org.apache.iotdb.db.engine.compaction.task.AbstractCompactionTask;
+import org.apache.iotdb.db.engine.storagegroup.TsFileManager;
+import org.apache.iotdb.db.engine.storagegroup.TsFileNameGenerator;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResourceStatus;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.apache.iotdb.db.engine.compaction.log.CompactionLogger.STR_SOURCE_FILES;
+import static org.apache.iotdb.db.engine.compaction.log.CompactionLogger.STR_TARGET_FILES;
+
+/**
+ * DownsamplingCompactionTask replaces the selected sequence and unsequence files with one target
+ * sequence file produced by the downsampling performer. The target file is named and logged in the
+ * same way as a sequence inner space compaction task, so it is recovered by the inner space
+ * compaction recovery after a restart.
+ */
+public class DownsamplingCompactionTask extends AbstractCompactionTask {
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(IoTDBConstant.COMPACTION_LOGGER_NAME);
+  protected List<TsFileResource> selectedSequenceFiles;
+  protected List<TsFileResource> selectedUnsequenceFiles;
+  private final int tierIndex;
+  private File logFile;
+  protected List<TsFileResource> targetTsFileResourceList;
+  protected List<TsFileResource> holdReadLockList = new ArrayList<>();
+  protected List<TsFileResource> holdWriteLockList = new ArrayList<>();
+  protected long selectedFileSize = 0;
+
+  public DownsamplingCompactionTask(
+      long timePartition,
+      TsFileManager tsFileManager,
+      List<TsFileResource> selectedSequenceFiles,
+      List<TsFileResource> selectedUnsequenceFiles,
+      int tierIndex,
+      ICompactionPerformer performer,
+      AtomicInteger currentTaskNum) {
+    super(
+        tsFileManager.getStorageGroupName() + "-" + tsFileManager.getDataRegion(),
+        timePartition,
+        tsFileManager,
+        currentTaskNum);
+    this.selectedSequenceFiles = selectedSequenceFiles;
+    this.selectedUnsequenceFiles = selectedUnsequenceFiles;
+    this.tierIndex = tierIndex;
+    this.performer = performer;
+    this.hashCode = this.toString().hashCode();
+  }
+
+  @Override
+  protected void doCompaction() throws Exception {
+    try {
+      if (!tsFileManager.isAllowCompaction() || selectedSequenceFiles.isEmpty()) {
+        return;
+      }
+      long startTime = System.currentTimeMillis();
+      // As elements in target files may be removed by the performer, we should use a mutable list
+      targetTsFileResourceList =
+          new ArrayList<>(
+              Collections.singletonList(
+                  TsFileNameGenerator.getInnerCompactionTargetFileResource(
+                      selectedSequenceFiles, true)));
+      List<TsFileResource> sourceFiles = new ArrayList<>(selectedSequenceFiles);
+      sourceFiles.addAll(selectedUnsequenceFiles);
+      for (TsFileResource resource : sourceFiles) {
+        selectedFileSize += resource.getTsFileSize();
+      }
+
+      LOGGER.info(
+          "{} [Compaction] DownsamplingCompactionTask of tier {} start. Sequence files : {}, "
+              + "unsequence files : {}, total size is {} MB",
+          fullStorageGroupName,
+          tierIndex,
+          selectedSequenceFiles,
+          selectedUnsequenceFiles,
+          ((double) selectedFileSize) / 1024.0 / 1024.0);
+      logFile =
+          new File(
+              selectedSequenceFiles.get(0).getTsFile().getParent()
+                  + File.separator
+                  + targetTsFileResourceList.get(0).getTsFile().getName()
+                  + CompactionLogger.INNER_COMPACTION_LOG_NAME_SUFFIX);
+
+      try (CompactionLogger compactionLogger = new CompactionLogger(logFile)) {
+        compactionLogger.logFiles(sourceFiles, STR_SOURCE_FILES);
+        compactionLogger.logFiles(targetTsFileResourceList, STR_TARGET_FILES);
+        compactionLogger.close();
+
+        performer.setSourceFiles(selectedSequenceFiles, selectedUnsequenceFiles);
+        performer.setTargetFiles(targetTsFileResourceList);
+        performer.perform();
+
+        CompactionUtils.moveTargetFile(targetTsFileResourceList, true, fullStorageGroupName);
+        if (!targetTsFileResourceList.isEmpty()) {
+          CompactionUtils.combineModsInInnerCompaction(
+              sourceFiles, targetTsFileResourceList.get(0));
+        }
+        checkInterrupted();
+
+        tsFileManager.replace(
+            selectedSequenceFiles,
+            selectedUnsequenceFiles,
+            targetTsFileResourceList,
+            timePartition,
+            true);
+
+        releaseReadAndLockWrite(selectedSequenceFiles);
+        releaseReadAndLockWrite(selectedUnsequenceFiles);
+
+        CompactionUtils.deleteTsFilesInDisk(sourceFiles, fullStorageGroupName);
+        CompactionUtils.deleteModificationForSourceFile(sourceFiles, fullStorageGroupName);
+
+        if (logFile.exists()) {
+          FileUtils.delete(logFile);
+        }
+        double costTime = (System.currentTimeMillis() - startTime) / 1000.0d;
+        LOGGER.info(
+            "{} [Compaction] DownsamplingCompactionTask costs {} s, compaction speed is {} MB/s",
+            fullStorageGroupName,
+            costTime,
+            ((double) selectedFileSize) / 1024.0d / 1024.0d / costTime);
+      }
+    } catch (Throwable throwable) {
+      // catch throwable to handle OOM errors
+      if (!(throwable instanceof InterruptedException)) {
+        LOGGER.error(
+            "{} [Compaction] Meet errors in downsampling compaction.",
+            fullStorageGroupName,
+            throwable);
+      }
+
+      CompactionExceptionHandler.handleException(
+          fullStorageGroupName,
+          logFile,
+          targetTsFileResourceList,
+          selectedSequenceFiles,
+          selectedUnsequenceFiles,
+          tsFileManager,
+          timePartition,
+          true,
+          true);
+      throw throwable;
+    } finally {
+      releaseAllLock();
+    }
+  }
+
+  @Override
+  public boolean equalsOtherTask(AbstractCompactionTask otherTask) {
+    if (!(otherTask instanceof DownsamplingCompactionTask)) {
+      return false;
+    }
+    DownsamplingCompactionTask otherDownsamplingTask = (DownsamplingCompactionTask) otherTask;
+    return this.selectedSequenceFiles.equals(otherDownsamplingTask.selectedSequenceFiles)
+        && this.selectedUnsequenceFiles.equals(otherDownsamplingTask.selectedUnsequenceFiles)
+        && this.tierIndex == otherDownsamplingTask.tierIndex;
+  }
+
+  private void releaseAllLock() {
+    selectedSequenceFiles.forEach(x -> x.setStatus(TsFileResourceStatus.CLOSED));
+    selectedUnsequenceFiles.forEach(x -> x.setStatus(TsFileResourceStatus.CLOSED));
+    for (TsFileResource tsFileResource : holdReadLockList) {
+      tsFileResource.readUnlock();
+      tsFileResource.setStatus(TsFileResourceStatus.CLOSED);
+    }
+    for (TsFileResource tsFileResource : holdWriteLockList) {
+      tsFileResource.writeUnlock();
+      tsFileResource.setStatus(TsFileResourceStatus.CLOSED);
+    }
+    holdReadLockList.clear();
+    holdWriteLockList.clear();
+  }
+
+  private void releaseReadAndLockWrite(List<TsFileResource> tsFileResourceList) {
+    for (TsFileResource tsFileResource : tsFileResourceList) {
+      tsFileResource.readUnlock();
+      holdReadLockList.remove(tsFileResource);
+      tsFileResource.writeLock();
+      holdWriteLockList.add(tsFileResource);
+    }
+  }
+
+  @Override
+  public void setSourceFilesToCompactionCandidate() {
+    selectedSequenceFiles.forEach(x -> x.setStatus(TsFileResourceStatus.COMPACTION_CANDIDATE));
+    selectedUnsequenceFiles.forEach(x -> x.setStatus(TsFileResourceStatus.COMPACTION_CANDIDATE));
+  }
+
+  @Override
+  public boolean checkValidAndSetMerging() {
+    return addReadLock(selectedSequenceFiles) && addReadLock(selectedUnsequenceFiles);
+  }
+
+  private boolean addReadLock(List<TsFileResource> tsFileResourceList) {
+    if (!tsFileManager.isAllowCompaction()) {
+      return false;
+    }
+    try {
+      for (TsFileResource tsFileResource : tsFileResourceList) {
+        tsFileResource.readLock();
+        holdReadLockList.add(tsFileResource);
+        if (tsFileResource.isCompacting()
+            || !tsFileResource.isClosed()
+            || !tsFileResource.getTsFile().exists()
+            || tsFileResource.isDeleted()) {
+          releaseAllLock();
+          return false;
+        }
+        tsFileResource.setStatus(TsFileResourceStatus.COMPACTING);
+      }
+    } catch (Throwable e) {
+      releaseAllLock();
+      throw e;
+    }
+    return true;
+  }
+
+  @Override
+  public void resetCompactionCandidateStatusForAllSourceFiles() {
+    selectedSequenceFiles.forEach(x -> x.setStatus(TsFileResourceStatus.CLOSED));
+    selectedUnsequenceFiles.forEach(x -> x.setStatus(TsFileResourceStatus.CLOSED));
+  }
+
+  public List<TsFileResource> getSelectedSequenceFiles() {
+    return selectedSequenceFiles;
+  }
+
+  public List<TsFileResource> getSelectedUnsequenceFiles() {
+    return selectedUnsequenceFiles;
+  }
+
+  @Override
+  public String toString() {
+    return fullStorageGroupName
+        + "-"
+        + timePartition
+        + " downsampling task of tier "
+        + tierIndex
+        + ", seq files are "
+        + selectedSequenceFiles.toString()
+        + " , unseq files are "
+        + selectedUnsequenceFiles.toString();
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof DownsamplingCompactionTask)) {
+      return false;
+    }
+    return equalsOtherTask((DownsamplingCompactionTask) other);
+  }
+}
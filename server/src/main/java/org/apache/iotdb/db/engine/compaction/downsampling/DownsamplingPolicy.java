@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.downsampling;
+
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.iotdb.commons.conf.IoTDBConstant.PATH_SEPARATOR;
+
+/**
+ * DownsamplingPolicy holds the downsampling tiers of each storage group, parsed from the
+ * downsampling_compaction_policy configuration. Each tier is "storage group,age,window,target path
+ * pattern", for example "root.sg,604800000,60000,root.sg.rollup_1m.**". The data of the storage
+ * group older than the age is aggregated by the window into the series of the target path pattern,
+ * whose "**" stands for the source device path relative to the storage group, so that root.sg.d1.s1
+ * is aggregated into root.sg.rollup_1m.d1.s1_avg, s1_min, s1_max and s1_count.
+ *
+ * <p>The tiers of a storage group are sorted by age. The data of a higher tier is aggregated from
+ * the raw data and the aggregations of the lower tiers, so the window of each tier must be a
+ * multiple of the window of the previous one. Illegal tiers are ignored with a warning.
+ */
+public class DownsamplingPolicy {
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(IoTDBConstant.COMPACTION_LOGGER_NAME);
+  private static final String TIER_SEPARATOR = ";";
+  private static final String FIELD_SEPARATOR = ",";
+  private static final String MULTI_LEVEL_WILDCARD = PATH_SEPARATOR + "**";
+
+  private static String cachedPolicyString = null;
+  private static Map<String, DownsamplingPolicy> cachedPolicies = Collections.emptyMap();
+
+  private final String storageGroup;
+  private final List<Tier> tiers;
+
+  private DownsamplingPolicy(String storageGroup, List<Tier> tiers) {
+    this.storageGroup = storageGroup;
+    this.tiers = tiers;
+  }
+
+  /** @return the policy of the storage group in the current configuration, null if there is none */
+  public static DownsamplingPolicy getPolicy(String storageGroup) {
+    return getPolicies().get(storageGroup);
+  }
+
+  private static synchronized Map<String, DownsamplingPolicy> getPolicies() {
+    String policyString =
+        IoTDBDescriptor.getInstance().getConfig().getDownsamplingCompactionPolicy();
+    if (!policyString.equals(cachedPolicyString)) {
+      cachedPolicies = parse(policyString);
+      cachedPolicyString = policyString;
+    }
+    return cachedPolicies;
+  }
+
+  public static Map<String, DownsamplingPolicy> parse(String policyString) {
+    Map<String, List<Tier>> tierMap = new HashMap<>();
+    for (String tierString : policyString.split(TIER_SEPARATOR)) {
+      if (tierString.trim().isEmpty()) {
+        continue;
+      }
+      String[] fields = tierString.split(FIELD_SEPARATOR);
+      try {
+        if (fields.length != 4) {
+          throw new IllegalArgumentException("a tier should have 4 fields");
+        }
+        String storageGroup = fields[0].trim();
+        String pattern = fields[3].trim();
+        if (!pattern.endsWith(MULTI_LEVEL_WILDCARD)
+            || !pattern.startsWith(storageGroup + PATH_SEPARATOR)) {
+          throw new IllegalArgumentException(
+              "the target path pattern should be under the storage group and end with **");
+        }
+        Tier tier =
+            new Tier(
+                Long.parseLong(fields[1].trim()),
+                Long.parseLong(fields[2].trim()),
+                pattern.substring(0, pattern.length() - MULTI_LEVEL_WILDCARD.length()));
+        if (tier.age <= 0 || tier.window <= 0) {
+          throw new IllegalArgumentException("the age and the window should be positive");
+        }
+        tierMap.computeIfAbsent(storageGroup, k -> new ArrayList<>()).add(tier);
+      } catch (IllegalArgumentException e) {
+        LOGGER.warn("Ignore illegal downsampling tier {}, because {}", tierString, e.getMessage());
+      }
+    }
+
+    Map<String, DownsamplingPolicy> policies = new HashMap<>();
+    for (Map.Entry<String, List<Tier>> entry : tierMap.entrySet()) {
+      List<Tier> tiers = entry.getValue();
+      tiers.sort(Comparator.comparingLong(tier -> tier.age));
+      List<Tier> legalTiers = new ArrayList<>();
+      for (Tier tier : tiers) {
+        Tier previous = legalTiers.isEmpty() ? null : legalTiers.get(legalTiers.size() - 1);
+        if (previous != null
+            && (tier.window <= previous.window
+                || tier.window % previous.window != 0
+                || isNested(tier.targetPrefix, legalTiers))) {
+          LOGGER.warn(
+              "Ignore downsampling tier {} of {}, because its window is not a multiple of the previous"
+                  + " one or its target path overlaps the previous ones",
+              tier,
+              entry.getKey());
+          continue;
+        }
+        legalTiers.add(tier);
+      }
+      policies.put(entry.getKey(), new DownsamplingPolicy(entry.getKey(), legalTiers));
+    }
+    return policies;
+  }
+
+  private static boolean isNested(String targetPrefix, List<Tier> tiers) {
+    for (Tier tier : tiers) {
+      if (isPrefixOf(targetPrefix, tier.targetPrefix)
+          || isPrefixOf(tier.targetPrefix, targetPrefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isPrefixOf(String prefix, String path) {
+    return path.equals(prefix) || path.startsWith(prefix + PATH_SEPARATOR);
+  }
+
+  public String getStorageGroup() {
+    return storageGroup;
+  }
+
+  public List<Tier> getTiers() {
+    return tiers;
+  }
+
+  /**
+   * @return the index of the tier whose target path contains the device, or -1 if the device holds
+   *     raw data
+   */
+  public int getTierIndex(String device) {
+    for (int i = 0; i < tiers.size(); i++) {
+      if (device.startsWith(tiers.get(i).targetPrefix + PATH_SEPARATOR)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** @return the source device path relative to the storage group */
+  public String getRelativeDevice(String device) {
+    int tierIndex = getTierIndex(device);
+    String prefix = tierIndex < 0 ? storageGroup : tiers.get(tierIndex).targetPrefix;
+    return device.substring(prefix.length() + 1);
+  }
+
+  public static class Tier {
+    private final long age;
+    private final long window;
+    private final String targetPrefix;
+
+    public Tier(long age, long window, String targetPrefix) {
+      this.age = age;
+      this.window = window;
+      this.targetPrefix = targetPrefix;
+    }
+
+    public long getAge() {
+      return age;
+    }
+
+    public long getWindow() {
+      return window;
+    }
+
+    public String getTargetDevice(String relativeDevice) {
+      return targetPrefix + PATH_SEPARATOR + relativeDevice;
+    }
+
+    /** @return the start time of the window containing the timestamp */
+    public long getWindowStart(long timestamp) {
+      return timestamp - Math.floorMod(timestamp, window);
+    }
+
+    @Override
+    public String toString() {
+      return "Tier{age=" + age + ", window=" + window + ", targetPrefix=" + targetPrefix + "}";
+    }
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.downsampling;
+
+import org.apache.iotdb.common.rpc.thrift.TRegionReplicaSet;
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.commons.exception.MetadataException;
+import org.apache.iotdb.commons.partition.DataPartition;
+import org.apache.iotdb.commons.partition.DataPartitionQueryParam;
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.StorageEngineV2;
+import org.apache.iotdb.db.mpp.common.schematree.DeviceSchemaInfo;
+import org.apache.iotdb.db.mpp.common.schematree.SchemaTree;
+import org.apache.iotdb.db.mpp.plan.analyze.ClusterPartitionFetcher;
+import org.apache.iotdb.db.mpp.plan.analyze.ClusterSchemaFetcher;
+import org.apache.iotdb.db.mpp.plan.analyze.IPartitionFetcher;
+import org.apache.iotdb.db.mpp.plan.analyze.ISchemaFetcher;
+import org.apache.iotdb.db.mpp.plan.analyze.StandalonePartitionFetcher;
+import org.apache.iotdb.db.mpp.plan.analyze.StandaloneSchemaFetcher;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DownsamplingTargetRouter routes the target devices of the aggregations through the partition and
+ * schema layers. The aggregations are written into the files of the data region being compacted, so
+ * a target device is accepted only if the partition layer assigns it to the same data region in the
+ * time partition, otherwise they could never be queried. The source devices of the other target
+ * devices keep their data as it is. The aggregation series are registered in the schema before they
+ * are written.
+ *
+ * <p>A router serves the files of one time partition, so the routing result of a target device is
+ * cached without the time partition.
+ */
+public class DownsamplingTargetRouter {
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(IoTDBConstant.COMPACTION_LOGGER_NAME);
+
+  private final String storageGroup;
+  private final int dataRegionId;
+  private final IPartitionFetcher partitionFetcher;
+  private final ISchemaFetcher schemaFetcher;
+  private final Map<String, Boolean> localTargetDevices = new ConcurrentHashMap<>();
+
+  public DownsamplingTargetRouter(String storageGroup, String dataRegionId) {
+    this(
+        storageGroup,
+        dataRegionId,
+        IoTDBDescriptor.getInstance().getConfig().isClusterMode()
+            ? ClusterPartitionFetcher.getInstance()
+            : StandalonePartitionFetcher.getInstance(),
+        IoTDBDescriptor.getInstance().getConfig().isClusterMode()
+            ? ClusterSchemaFetcher.getInstance()
+            : StandaloneSchemaFetcher.getInstance());
+  }
+
+  public DownsamplingTargetRouter(
+      String storageGroup,
+      String dataRegionId,
+      IPartitionFetcher partitionFetcher,
+      ISchemaFetcher schemaFetcher) {
+    this.storageGroup = storageGroup;
+    this.dataRegionId = Integer.parseInt(dataRegionId);
+    this.partitionFetcher = partitionFetcher;
+    this.schemaFetcher = schemaFetcher;
+  }
+
+  /**
+   * @param time any timestamp in the time partition of the compacted files
+   * @return whether the target device belongs to the data region being compacted
+   */
+  public boolean isLocal(String targetDevice, long time) {
+    return localTargetDevices.computeIfAbsent(
+        targetDevice, device -> isAssignedToDataRegion(device, time));
+  }
+
+  protected boolean isAssignedToDataRegion(String targetDevice, long time) {
+    try {
+      DataPartitionQueryParam queryParam = new DataPartitionQueryParam();
+      queryParam.setDevicePath(targetDevice);
+      queryParam.setTimePartitionSlotList(
+          Collections.singletonList(StorageEngineV2.getTimePartitionSlot(time)));
+      DataPartition dataPartition =
+          partitionFetcher.getOrCreateDataPartition(Collections.singletonList(queryParam));
+      TRegionReplicaSet regionReplicaSet =
+          dataPartition.getDataRegionReplicaSetForWriting(
+              targetDevice, StorageEngineV2.getTimePartitionSlot(time));
+      if (regionReplicaSet.getRegionId().getId() == dataRegionId) {
+        return true;
+      }
+      LOGGER.warn(
+          "{}-{} [Compaction] Downsampling target {} belongs to data region {}, "
+              + "its source devices are not downsampled",
+          storageGroup,
+          dataRegionId,
+          targetDevice,
+          regionReplicaSet.getRegionId().getId());
+    } catch (RuntimeException e) {
+      LOGGER.warn(
+          "{}-{} [Compaction] Failed to route downsampling target {}, "
+              + "its source devices are not downsampled",
+          storageGroup,
+          dataRegionId,
+          targetDevice,
+          e);
+    }
+    return false;
+  }
+
+  /**
+   * Registers the aggregation series of the target device, they are created automatically if they
+   * do not exist.
+   *
+   * @throws MetadataException if any of the series does not exist and can not be created, e.g. the
+   *     auto creation of schema is disabled
+   */
+  public void registerSchema(
+      String targetDevice, List<String> measurements, List<TSDataType> dataTypes)
+      throws MetadataException {
+    PartialPath devicePath = new PartialPath(targetDevice);
+    SchemaTree schemaTree =
+        schemaFetcher.fetchSchemaWithAutoCreate(
+            devicePath,
+            measurements.toArray(new String[0]),
+            dataTypes.toArray(new TSDataType[0]),
+            false);
+    DeviceSchemaInfo deviceSchemaInfo = schemaTree.searchDeviceSchemaInfo(devicePath, measurements);
+    List<MeasurementSchema> schemas =
+        deviceSchemaInfo == null ? null : deviceSchemaInfo.getMeasurementSchemaList();
+    for (int i = 0; i < measurements.size(); i++) {
+      if (schemas == null || schemas.get(i) == null) {
+        throw new MetadataException(
+            String.format(
+                "Downsampling target series %s.%s does not exist and can not be created",
+                targetDevice, measurements.get(i)));
+      }
+      if (schemas.get(i).getType() != dataTypes.get(i)) {
+        throw new MetadataException(
+            String.format(
+                "Downsampling target series %s.%s is %s, but %s is expected",
+                targetDevice, measurements.get(i), schemas.get(i).getType(), dataTypes.get(i)));
+      }
+    }
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.inner.leveled;
+
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.inner.IInnerSeqSpaceSelector;
+import org.apache.iotdb.db.engine.compaction.inner.IInnerUnseqSpaceSelector;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResourceStatus;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * LeveledCompactionSelector assigns each file a level according to its size instead of its
+ * compaction count. Files smaller than the base file size are in level 0, and the max file size of
+ * each higher level is fan-out times of the lower one. Files reaching the target compaction file
+ * size are not compacted any more.
+ *
+ * <p>Every time fan-out consecutive files of the same level are found (or their total size reaches
+ * the target compaction file size), they are selected as a task, so that the result lands in the
+ * next level. Each byte is therefore rewritten about once per level, and the number of files in
+ * each level is bounded by the fan-out, which keeps both the write amplification and the file count
+ * steady under continuous ingestion. Only the lowest level which has tasks is selected in one
+ * round.
+ */
+public class LeveledCompactionSelector implements IInnerSeqSpaceSelector, IInnerUnseqSpaceSelector {
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(IoTDBConstant.COMPACTION_LOGGER_NAME);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  protected String logicalStorageGroupName;
+  protected String dataRegionId;
+  protected long timePartition;
+  protected boolean sequence;
+
+  private final long baseFileSize;
+  private final int fanOut;
+  private final long targetCompactionFileSize;
+
+  public LeveledCompactionSelector(
+      String logicalStorageGroupName, String dataRegionId, long timePartition, boolean sequence) {
+    this(
+        logicalStorageGroupName,
+        dataRegionId,
+        timePartition,
+        sequence,
+        config.getLeveledCompactionBaseFileSize(),
+        config.getLeveledCompactionFanOut(),
+        config.getTargetCompactionFileSize());
+  }
+
+  public LeveledCompactionSelector(
+      String logicalStorageGroupName,
+      String dataRegionId,
+      long timePartition,
+      boolean sequence,
+      long baseFileSize,
+      int fanOut,
+      long targetCompactionFileSize) {
+    this.logicalStorageGroupName = logicalStorageGroupName;
+    this.dataRegionId = dataRegionId;
+    this.timePartition = timePartition;
+    this.sequence = sequence;
+    this.baseFileSize = Math.max(1L, baseFileSize);
+    this.fanOut = Math.max(2, fanOut);
+    this.targetCompactionFileSize = targetCompactionFileSize;
+  }
+
+  @Override
+  public List<List<TsFileResource>> selectInnerSpaceTask(List<TsFileResource> tsFileResources) {
+    try {
+      int maxLevel = getLevel(targetCompactionFileSize);
+      for (int level = 0; level <= maxLevel; level++) {
+        List<List<TsFileResource>> taskList = selectLevelTask(level, tsFileResources);
+        if (!taskList.isEmpty()) {
+          LOGGER.debug(
+              "{}-{} [Compaction] Leveled selector selects {} tasks in level {}",
+              logicalStorageGroupName,
+              dataRegionId,
+              taskList.size(),
+              level);
+          return taskList;
+        }
+      }
+    } catch (Exception e) {
+      LOGGER.error("Exception occurs while selecting files", e);
+    }
+    return Collections.emptyList();
+  }
+
+  /**
+   * Search the consecutive files of the given level. A batch is selected when it contains fan-out
+   * files or its total size reaches the target compaction file size.
+   */
+  private List<List<TsFileResource>> selectLevelTask(
+      int level, List<TsFileResource> tsFileResources) {
+    List<List<TsFileResource>> taskList = new ArrayList<>();
+    List<TsFileResource> selectedFileList = new ArrayList<>();
+    long selectedFileSize = 0L;
+    for (TsFileResource currentFile : tsFileResources) {
+      long fileSize = currentFile.getTsFileSize();
+      if (currentFile.getStatus() != TsFileResourceStatus.CLOSED
+          || fileSize >= targetCompactionFileSize
+          || getLevel(fileSize) != level) {
+        selectedFileList.clear();
+        selectedFileSize = 0L;
+        continue;
+      }
+      selectedFileList.add(currentFile);
+      selectedFileSize += fileSize;
+      if (selectedFileList.size() >= fanOut || selectedFileSize >= targetCompactionFileSize) {
+        if (selectedFileList.size() > 1) {
+          taskList.add(selectedFileList);
+        }
+        selectedFileList = new ArrayList<>();
+        selectedFileSize = 0L;
+      }
+    }
+    return taskList;
+  }
+
+  /** @return the level of a file with the given size */
+  public int getLevel(long fileSize) {
+    int level = 0;
+    long levelMaxFileSize = baseFileSize;
+    while (fileSize >= levelMaxFileSize && levelMaxFileSize < targetCompactionFileSize) {
+      level++;
+      levelMaxFileSize =
+          levelMaxFileSize > Long.MAX_VALUE / fanOut ? Long.MAX_VALUE : levelMaxFileSize * fanOut;
+    }
+    return level;
+  }
+}
@@ -0,0 +1,551 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.performer.impl;
+
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.commons.exception.IllegalPathException;
+import org.apache.iotdb.commons.exception.MetadataException;
+import org.apache.iotdb.db.engine.compaction.downsampling.DownsamplingPolicy;
+import org.apache.iotdb.db.engine.compaction.downsampling.DownsamplingTargetRouter;
+import org.apache.iotdb.db.engine.compaction.inner.utils.MultiTsFileDeviceIterator;
+import org.apache.iotdb.db.engine.compaction.writer.AbstractCompactionWriter;
+import org.apache.iotdb.db.engine.compaction.writer.InnerSpaceCompactionWriter;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.apache.iotdb.db.utils.QueryUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.reader.IBatchReader;
+import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
+import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * DownsamplingCompactionPerformer compacts the selected sequence and unsequence files into one
+ * target file, in which the raw data and the aggregations of the lower tiers are replaced by the
+ * aggregations of the given tier. The data is read point by point with the same readers as {@link
+ * ReadPointCompactionPerformer}, so the modifications and the unsequence data are applied before
+ * aggregating. The devices of the higher tiers are copied as they are.
+ *
+ * <p>Each numeric series s is aggregated into s_avg, s_min, s_max (DOUBLE) and s_count (INT64) of
+ * the target device, and each non-numeric series into s_count only. The timestamp of an aggregation
+ * is the start of its window. The aggregations of the lower tiers are merged by weighting s_avg
+ * with s_count, so the result is the same as aggregating the raw data directly.
+ *
+ * <p>The target devices are routed by {@link DownsamplingTargetRouter}. The source devices whose
+ * target device belongs to another data region are copied as they are, and the aggregation series
+ * are registered in the schema before they are written.
+ */
+public class DownsamplingCompactionPerformer extends ReadPointCompactionPerformer {
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(IoTDBConstant.COMPACTION_LOGGER_NAME);
+  private static final String AVG_SUFFIX = "_avg";
+  private static final String COUNT_SUFFIX = "_count";
+  private static final String MAX_SUFFIX = "_max";
+  private static final String MIN_SUFFIX = "_min";
+
+  private final DownsamplingPolicy policy;
+  private final int tierIndex;
+  private final DownsamplingPolicy.Tier tier;
+  private final DownsamplingTargetRouter router;
+
+  public DownsamplingCompactionPerformer(
+      DownsamplingPolicy policy, int tierIndex, DownsamplingTargetRouter router) {
+    this.policy = policy;
+    this.tierIndex = tierIndex;
+    this.tier = policy.getTiers().get(tierIndex);
+    this.router = router;
+  }
+
+  @Override
+  public void perform()
+      throws IOException, MetadataException, StorageEngineException, InterruptedException {
+    long queryId = QueryResourceManager.getInstance().assignCompactionQueryId();
+    QueryContext queryContext = new QueryContext(queryId);
+    QueryDataSource queryDataSource = new QueryDataSource(seqFiles, unseqFiles);
+    QueryResourceManager.getInstance()
+        .getQueryFileManager()
+        .addUsedFilesForQuery(queryId, queryDataSource);
+
+    try (AbstractCompactionWriter compactionWriter =
+        new InnerSpaceCompactionWriter(targetFiles.get(0))) {
+      // the target devices are in a different order from the source devices, so collect all the
+      // source devices first
+      Map<String, Pair<Boolean, Set<String>>> deviceInfoMap = new HashMap<>();
+      Map<String, List<String>> targetDeviceMap = new TreeMap<>();
+      // the devices which are not downsampled in this tier
+      Set<String> copiedDevices = new HashSet<>();
+      long partitionTime = seqFiles.get(0).getFileStartTime();
+      MultiTsFileDeviceIterator deviceIterator =
+          new MultiTsFileDeviceIterator(seqFiles, unseqFiles);
+      while (deviceIterator.hasNextDevice()) {
+        Pair<String, Boolean> deviceInfo = deviceIterator.nextDevice();
+        String device = deviceInfo.left;
+        Set<String> measurements =
+            deviceInfo.right
+                ? deviceIterator.iterateAlignedSeries(device).getAllMeasurements()
+                : deviceIterator.iterateNotAlignedSeries(device, false).getAllMeasurements();
+        deviceInfoMap.put(device, new Pair<>(deviceInfo.right, measurements));
+        String targetDevice =
+            policy.getTierIndex(device) > tierIndex
+                ? device
+                : tier.getTargetDevice(policy.getRelativeDevice(device));
+        if (policy.getTierIndex(device) > tierIndex
+            || !router.isLocal(targetDevice, partitionTime)) {
+          targetDevice = device;
+          copiedDevices.add(device);
+        }
+        targetDeviceMap.computeIfAbsent(targetDevice, k -> new ArrayList<>()).add(device);
+      }
+
+      for (Map.Entry<String, List<String>> entry : targetDeviceMap.entrySet()) {
+        checkThreadInterrupted();
+        String targetDevice = entry.getKey();
+        if (copiedDevices.contains(targetDevice)) {
+          Pair<Boolean, Set<String>> deviceInfo = deviceInfoMap.get(targetDevice);
+          copyDevice(
+              targetDevice,
+              deviceInfo.left,
+              deviceInfo.right,
+              compactionWriter,
+              queryContext,
+              queryDataSource);
+        } else {
+          downsampleDevice(
+              targetDevice,
+              entry.getValue(),
+              deviceInfoMap,
+              compactionWriter,
+              queryContext,
+              queryDataSource);
+        }
+      }
+
+      compactionWriter.endFile();
+      updateDeviceStartTimeAndEndTime(targetFiles, compactionWriter);
+      updatePlanIndexes(targetFiles, seqFiles, unseqFiles);
+    } finally {
+      clearReaderCache();
+      QueryResourceManager.getInstance().endQuery(queryId);
+    }
+  }
+
+  private void downsampleDevice(
+      String targetDevice,
+      List<String> sourceDevices,
+      Map<String, Pair<Boolean, Set<String>>> deviceInfoMap,
+      AbstractCompactionWriter compactionWriter,
+      QueryContext queryContext,
+      QueryDataSource queryDataSource)
+      throws IOException, MetadataException {
+    // measurement -> window start -> aggregation
+    Map<String, TreeMap<Long, WindowAggregation>> aggregations = new TreeMap<>();
+    for (String sourceDevice : sourceDevices) {
+      Pair<Boolean, Set<String>> deviceInfo = deviceInfoMap.get(sourceDevice);
+      QueryUtils.fillOrderIndexes(queryDataSource, sourceDevice, true);
+      if (policy.getTierIndex(sourceDevice) < 0) {
+        aggregateRawData(
+            sourceDevice,
+            deviceInfo.left,
+            deviceInfo.right,
+            aggregations,
+            queryContext,
+            queryDataSource);
+      } else {
+        aggregateLowerTierData(
+            sourceDevice, deviceInfo.right, aggregations, queryContext, queryDataSource);
+      }
+    }
+
+    registerTargetSchema(targetDevice, aggregations);
+    boolean isChunkGroupStarted = false;
+    for (Map.Entry<String, TreeMap<Long, WindowAggregation>> entry : aggregations.entrySet()) {
+      TreeMap<Long, WindowAggregation> windows = entry.getValue();
+      if (windows.isEmpty()) {
+        continue;
+      }
+      if (!isChunkGroupStarted) {
+        // chunk group is serialized only when at least one timeseries under this device has data
+        compactionWriter.startChunkGroup(targetDevice, false);
+        isChunkGroupStarted = true;
+      }
+      String measurement = entry.getKey();
+      writeAggregation(
+          compactionWriter,
+          measurement + AVG_SUFFIX,
+          TSDataType.DOUBLE,
+          windows,
+          aggregation -> aggregation.weight > 0 ? aggregation.sum / aggregation.weight : null);
+      writeAggregation(
+          compactionWriter,
+          measurement + COUNT_SUFFIX,
+          TSDataType.INT64,
+          windows,
+          aggregation -> aggregation.count > 0 ? aggregation.count : null);
+      writeAggregation(
+          compactionWriter,
+          measurement + MAX_SUFFIX,
+          TSDataType.DOUBLE,
+          windows,
+          aggregation -> aggregation.hasMinMax() ? aggregation.max : null);
+      writeAggregation(
+          compactionWriter,
+          measurement + MIN_SUFFIX,
+          TSDataType.DOUBLE,
+          windows,
+          aggregation -> aggregation.hasMinMax() ? aggregation.min : null);
+    }
+    if (isChunkGroupStarted) {
+      compactionWriter.endChunkGroup();
+    }
+  }
+
+  private void registerTargetSchema(
+      String targetDevice, Map<String, TreeMap<Long, WindowAggregation>> aggregations)
+      throws MetadataException {
+    List<String> measurements = new ArrayList<>();
+    List<TSDataType> dataTypes = new ArrayList<>();
+    for (Map.Entry<String, TreeMap<Long, WindowAggregation>> entry : aggregations.entrySet()) {
+      TreeMap<Long, WindowAggregation> windows = entry.getValue();
+      if (windows.isEmpty()) {
+        continue;
+      }
+      String measurement = entry.getKey();
+      measurements.add(measurement + COUNT_SUFFIX);
+      dataTypes.add(TSDataType.INT64);
+      if (windows.values().stream().anyMatch(WindowAggregation::hasMinMax)) {
+        measurements.add(measurement + AVG_SUFFIX);
+        measurements.add(measurement + MAX_SUFFIX);
+        measurements.add(measurement + MIN_SUFFIX);
+        dataTypes.add(TSDataType.DOUBLE);
+        dataTypes.add(TSDataType.DOUBLE);
+        dataTypes.add(TSDataType.DOUBLE);
+      }
+    }
+    if (!measurements.isEmpty()) {
+      router.registerSchema(targetDevice, measurements, dataTypes);
+    }
+  }
+
+  private void aggregateRawData(
+      String device,
+      boolean isAligned,
+      Set<String> measurements,
+      Map<String, TreeMap<Long, WindowAggregation>> aggregations,
+      QueryContext queryContext,
+      QueryDataSource queryDataSource)
+      throws IOException, IllegalPathException {
+    Map<String, MeasurementSchema> schemaMap = getMeasurementSchema(device, measurements);
+    if (isAligned) {
+      List<String> measurementIds = new ArrayList<>(schemaMap.keySet());
+      if (measurementIds.isEmpty()) {
+        return;
+      }
+      List<IMeasurementSchema> measurementSchemas = new ArrayList<>();
+      List<TreeMap<Long, WindowAggregation>> windowsList = new ArrayList<>();
+      for (String measurementId : measurementIds) {
+        measurementSchemas.add(schemaMap.get(measurementId));
+        windowsList.add(aggregations.computeIfAbsent(measurementId, k -> new TreeMap<>()));
+      }
+      IBatchReader reader =
+          constructReader(
+              device,
+              measurementIds,
+              measurementSchemas,
+              measurements,
+              queryContext,
+              queryDataSource,
+              true);
+      readAll(
+          reader,
+          (time, value) -> {
+            TsPrimitiveType[] values = (TsPrimitiveType[]) value;
+            for (int i = 0; i < values.length; i++) {
+              if (values[i] != null) {
+                getWindow(windowsList.get(i), time).addRawValue(values[i].getValue());
+              }
+            }
+          });
+    } else {
+      for (Map.Entry<String, MeasurementSchema> entry : schemaMap.entrySet()) {
+        TreeMap<Long, WindowAggregation> windows =
+            aggregations.computeIfAbsent(entry.getKey(), k -> new TreeMap<>());
+        readAll(
+            constructReader(
+                device,
+                Collections.singletonList(entry.getKey()),
+                Collections.singletonList(entry.getValue()),
+                measurements,
+                queryContext,
+                queryDataSource,
+                false),
+            (time, value) -> getWindow(windows, time).addRawValue(value));
+      }
+    }
+  }
+
+  private void aggregateLowerTierData(
+      String device,
+      Set<String> measurements,
+      Map<String, TreeMap<Long, WindowAggregation>> aggregations,
+      QueryContext queryContext,
+      QueryDataSource queryDataSource)
+      throws IOException, IllegalPathException {
+    Map<String, MeasurementSchema> schemaMap = getMeasurementSchema(device, measurements);
+    for (String measurement : schemaMap.keySet()) {
+      if (!measurement.endsWith(COUNT_SUFFIX)) {
+        if (!measurement.endsWith(AVG_SUFFIX)
+            && !measurement.endsWith(MAX_SUFFIX)
+            && !measurement.endsWith(MIN_SUFFIX)) {
+          LOGGER.warn(
+              "[Compaction] Ignore {}.{}, which is not a downsampling aggregation",
+              device,
+              measurement);
+        }
+        continue;
+      }
+      String rawMeasurement =
+          measurement.substring(0, measurement.length() - COUNT_SUFFIX.length());
+      TreeMap<Long, WindowAggregation> windows =
+          aggregations.computeIfAbsent(rawMeasurement, k -> new TreeMap<>());
+
+      // the count of each lower tier window is the weight of its average
+      Map<Long, Long> counts = new HashMap<>();
+      readSeries(
+          device,
+          measurement,
+          schemaMap,
+          measurements,
+          queryContext,
+          queryDataSource,
+          (time, value) -> {
+            long count = ((Number) value).longValue();
+            counts.put(time, count);
+            getWindow(windows, time).count += count;
+          });
+      readSeries(
+          device,
+          rawMeasurement + AVG_SUFFIX,
+          schemaMap,
+          measurements,
+          queryContext,
+          queryDataSource,
+          (time, value) -> {
+            long count = counts.getOrDefault(time, 0L);
+            WindowAggregation aggregation = getWindow(windows, time);
+            aggregation.sum += ((Number) value).doubleValue() * count;
+            aggregation.weight += count;
+          });
+      readSeries(
+          device,
+          rawMeasurement + MAX_SUFFIX,
+          schemaMap,
+          measurements,
+          queryContext,
+          queryDataSource,
+          (time, value) -> getWindow(windows, time).updateMax(((Number) value).doubleValue()));
+      readSeries(
+          device,
+          rawMeasurement + MIN_SUFFIX,
+          schemaMap,
+          measurements,
+          queryContext,
+          queryDataSource,
+          (time, value) -> getWindow(windows, time).updateMin(((Number) value).doubleValue()));
+    }
+  }
+
+  private void readSeries(
+      String device,
+      String measurement,
+      Map<String, MeasurementSchema> schemaMap,
+      Set<String> allMeasurements,
+      QueryContext queryContext,
+      QueryDataSource queryDataSource,
+      BiConsumer<Long, Object> consumer)
+      throws IOException, IllegalPathException {
+    MeasurementSchema schema = schemaMap.get(measurement);
+    if (schema == null) {
+      return;
+    }
+    readAll(
+        constructReader(
+            device,
+            Collections.singletonList(measurement),
+            Collections.singletonList(schema),
+            allMeasurements,
+            queryContext,
+            queryDataSource,
+            false),
+        consumer);
+  }
+
+  private static void readAll(IBatchReader reader, BiConsumer<Long, Object> consumer)
+      throws IOException {
+    while (reader.hasNextBatch()) {
+      BatchData batchData = reader.nextBatch();
+      while (batchData.hasCurrent()) {
+        consumer.accept(batchData.currentTime(), batchData.currentValue());
+        batchData.next();
+      }
+    }
+  }
+
+  private WindowAggregation getWindow(TreeMap<Long, WindowAggregation> windows, long time) {
+    return windows.computeIfAbsent(tier.getWindowStart(time), k -> new WindowAggregation());
+  }
+
+  private static void writeAggregation(
+      AbstractCompactionWriter compactionWriter,
+      String measurement,
+      TSDataType dataType,
+      TreeMap<Long, WindowAggregation> windows,
+      Function<WindowAggregation, Object> valueGetter)
+      throws IOException {
+    boolean isMeasurementStarted = false;
+    for (Map.Entry<Long, WindowAggregation> entry : windows.entrySet()) {
+      Object value = valueGetter.apply(entry.getValue());
+      if (value == null) {
+        continue;
+      }
+      if (!isMeasurementStarted) {
+        compactionWriter.startMeasurement(
+            Collections.singletonList(new MeasurementSchema(measurement, dataType)), 0);
+        isMeasurementStarted = true;
+      }
+      compactionWriter.write(entry.getKey(), value, 0);
+    }
+    if (isMeasurementStarted) {
+      compactionWriter.endMeasurement(0);
+    }
+  }
+
+  private void copyDevice(
+      String device,
+      boolean isAligned,
+      Set<String> measurements,
+      AbstractCompactionWriter compactionWriter,
+      QueryContext queryContext,
+      QueryDataSource queryDataSource)
+      throws IOException, IllegalPathException {
+    QueryUtils.fillOrderIndexes(queryDataSource, device, true);
+    Map<String, MeasurementSchema> schemaMap = getMeasurementSchema(device, measurements);
+    if (schemaMap.isEmpty()) {
+      return;
+    }
+    if (isAligned) {
+      List<String> measurementIds = new ArrayList<>(schemaMap.keySet());
+      List<IMeasurementSchema> measurementSchemas = new ArrayList<>(schemaMap.values());
+      IBatchReader reader =
+          constructReader(
+              device,
+              measurementIds,
+              measurementSchemas,
+              measurements,
+              queryContext,
+              queryDataSource,
+              true);
+      if (reader.hasNextBatch()) {
+        compactionWriter.startChunkGroup(device, true);
+        compactionWriter.startMeasurement(measurementSchemas, 0);
+        writeWithReader(compactionWriter, reader, 0);
+        compactionWriter.endMeasurement(0);
+        compactionWriter.endChunkGroup();
+      }
+      return;
+    }
+
+    boolean isChunkGroupStarted = false;
+    for (Map.Entry<String, MeasurementSchema> entry : schemaMap.entrySet()) {
+      IBatchReader reader =
+          constructReader(
+              device,
+              Collections.singletonList(entry.getKey()),
+              Collections.singletonList(entry.getValue()),
+              measurements,
+              queryContext,
+              queryDataSource,
+              false);
+      if (!reader.hasNextBatch()) {
+        continue;
+      }
+      if (!isChunkGroupStarted) {
+        compactionWriter.startChunkGroup(device, false);
+        isChunkGroupStarted = true;
+      }
+      compactionWriter.startMeasurement(Collections.singletonList(entry.getValue()), 0);
+      writeWithReader(compactionWriter, reader, 0);
+      compactionWriter.endMeasurement(0);
+    }
+    if (isChunkGroupStarted) {
+      compactionWriter.endChunkGroup();
+    }
+  }
+
+  /** The aggregation of one series in one window. */
+  private static class WindowAggregation {
+    private long count = 0;
+    // the number of points summed up, non-numeric points are only counted
+    private long weight = 0;
+    private double sum = 0;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    private void addRawValue(Object value) {
+      count++;
+      if (value instanceof Number) {
+        double doubleValue = ((Number) value).doubleValue();
+        sum += doubleValue;
+        weight++;
+        updateMin(doubleValue);
+        updateMax(doubleValue);
+      }
+    }
+
+    private void updateMin(double value) {
+      min = Math.min(min, value);
+    }
+
+    private void updateMax(double value) {
+      max = Math.max(max, value);
+    }
+
+    private boolean hasMinMax() {
+      return min <= max;
+    }
+  }
+}
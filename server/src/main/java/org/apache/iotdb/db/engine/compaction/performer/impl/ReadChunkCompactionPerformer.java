@@ -21,6 +21,8 @@ package org.apache.iotdb.db.engine.compaction.performer.impl;
 import org.apache.iotdb.commons.conf.IoTDBConstant;
 import org.apache.iotdb.commons.exception.MetadataException;
 import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.CompactionTaskManager;
 import org.apache.iotdb.db.engine.compaction.inner.utils.AlignedSeriesCompactionExecutor;
 import org.apache.iotdb.db.engine.compaction.inner.utils.MultiTsFileDeviceIterator;
 import org.apache.iotdb.db.engine.compaction.inner.utils.SingleSeriesCompactionExecutor;
@@ -29,17 +31,27 @@ import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.tsfile.file.metadata.AlignedChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.IChunkMetadata;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
+import org.apache.iotdb.tsfile.write.writer.MemTsFileIOWriter;
 import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ReadChunkCompactionPerformer implements ISeqCompactionPerformer {
   private static final Logger LOGGER =
@@ -63,18 +75,12 @@ public class ReadChunkCompactionPerformer implements ISeqCompactionPerformer {
       throws IOException, MetadataException, InterruptedException, StorageEngineException {
     try (MultiTsFileDeviceIterator deviceIterator = new MultiTsFileDeviceIterator(seqFiles);
         TsFileIOWriter writer = new TsFileIOWriter(targetResource.getTsFile())) {
-      while (deviceIterator.hasNextDevice()) {
-        Pair<String, Boolean> deviceInfo = deviceIterator.nextDevice();
-        String device = deviceInfo.left;
-        boolean aligned = deviceInfo.right;
-
-        writer.startChunkGroup(device);
-        if (aligned) {
-          compactAlignedSeries(device, targetResource, writer, deviceIterator);
-        } else {
-          compactNotAlignedSeries(device, targetResource, writer, deviceIterator);
-        }
-        writer.endChunkGroup();
+      int parallelism = IoTDBDescriptor.getInstance().getConfig().getSubCompactionTaskNum();
+      if (IoTDBDescriptor.getInstance().getConfig().isEnableDeviceParallelInnerCompaction()
+          && parallelism > 1) {
+        compactDevicesInParallel(deviceIterator, writer, parallelism);
+      } else {
+        compactDevicesSerially(deviceIterator, writer);
       }
 
       for (TsFileResource tsFileResource : seqFiles) {
@@ -85,6 +91,178 @@ public class ReadChunkCompactionPerformer implements ISeqCompactionPerformer {
     }
   }
 
+  private void compactDevicesSerially(
+      MultiTsFileDeviceIterator deviceIterator, TsFileIOWriter writer)
+      throws IOException, MetadataException, InterruptedException {
+    while (deviceIterator.hasNextDevice()) {
+      Pair<String, Boolean> deviceInfo = deviceIterator.nextDevice();
+      String device = deviceInfo.left;
+      boolean aligned = deviceInfo.right;
+
+      writer.startChunkGroup(device);
+      if (aligned) {
+        compactAlignedSeries(device, targetResource, writer, deviceIterator);
+      } else {
+        compactNotAlignedSeries(device, targetResource, writer, deviceIterator);
+      }
+      writer.endChunkGroup();
+    }
+  }
+
+  /**
+   * Encode the devices concurrently into in-memory chunk groups and append them to the target file
+   * in device order. The metadata of each device is collected by the current thread because the
+   * device iterator is not thread-safe. At most {@code parallelism} devices are encoded at the same
+   * time. The buffer of a device is reserved in CompactionTaskManager by an estimation before it is
+   * submitted, and no more device will be submitted while the data buffered and being encoded by
+   * all compaction tasks exceeds the buffer memory budget.
+   */
+  private void compactDevicesInParallel(
+      MultiTsFileDeviceIterator deviceIterator, TsFileIOWriter writer, int parallelism)
+      throws IOException, MetadataException, InterruptedException {
+    LinkedList<DeviceTask> runningTasks = new LinkedList<>();
+    try {
+      while (deviceIterator.hasNextDevice()) {
+        checkThreadInterrupted();
+        Pair<String, Boolean> deviceInfo = deviceIterator.nextDevice();
+        DeviceTask deviceTask =
+            deviceInfo.right
+                ? prepareAlignedDeviceTask(deviceInfo.left, deviceIterator)
+                : prepareNotAlignedDeviceTask(deviceInfo.left, deviceIterator);
+        while (runningTasks.size() >= parallelism
+            || (!runningTasks.isEmpty()
+                && CompactionTaskManager.getInstance()
+                    .isBufferMemoryExhausted(deviceTask.allocatedMemory.get()))) {
+          appendChunkGroup(writer, runningTasks);
+        }
+        CompactionTaskManager.getInstance().allocateBufferMemory(deviceTask.allocatedMemory.get());
+        runningTasks.add(deviceTask);
+        submitDeviceTask(deviceTask);
+      }
+      while (!runningTasks.isEmpty()) {
+        appendChunkGroup(writer, runningTasks);
+      }
+    } finally {
+      // interrupting a task does not stop it at once, so wait for all the tasks to exit before
+      // releasing their memory
+      for (DeviceTask deviceTask : runningTasks) {
+        if (deviceTask.future != null) {
+          deviceTask.future.cancel(true);
+        }
+        deviceTask.awaitExit();
+        CompactionTaskManager.getInstance().releaseBufferMemory(deviceTask.allocatedMemory.get());
+      }
+    }
+  }
+
+  private DeviceTask prepareAlignedDeviceTask(
+      String device, MultiTsFileDeviceIterator deviceIterator) throws IOException {
+    LinkedList<Pair<TsFileSequenceReader, List<AlignedChunkMetadata>>> readerAndChunkMetadataList =
+        deviceIterator.getReaderAndChunkMetadataForCurrentAlignedSeries();
+    long estimatedSize = 0;
+    for (Pair<TsFileSequenceReader, List<AlignedChunkMetadata>> readerAndChunkMetadata :
+        readerAndChunkMetadataList) {
+      for (AlignedChunkMetadata alignedChunkMetadata : readerAndChunkMetadata.right) {
+        estimatedSize += estimateChunkSize(alignedChunkMetadata.getTimeChunkMetadata(), 0);
+        for (IChunkMetadata valueChunkMetadata : alignedChunkMetadata.getValueChunkMetadataList()) {
+          if (valueChunkMetadata != null) {
+            estimatedSize +=
+                estimateChunkSize(
+                    valueChunkMetadata, valueChunkMetadata.getDataType().getDataTypeSize());
+          }
+        }
+      }
+    }
+    return new DeviceTask(
+        device,
+        estimatedSize,
+        buffer ->
+            new AlignedSeriesCompactionExecutor(
+                    device, buffer.deviceResource, readerAndChunkMetadataList, buffer.writer)
+                .execute());
+  }
+
+  private DeviceTask prepareNotAlignedDeviceTask(
+      String device, MultiTsFileDeviceIterator deviceIterator)
+      throws IOException, MetadataException {
+    MultiTsFileDeviceIterator.MeasurementIterator seriesIterator =
+        deviceIterator.iterateNotAlignedSeries(device, true);
+    List<Pair<PartialPath, LinkedList<Pair<TsFileSequenceReader, List<ChunkMetadata>>>>>
+        seriesList = new ArrayList<>();
+    long estimatedSize = 0;
+    while (seriesIterator.hasNextSeries()) {
+      PartialPath p = new PartialPath(device, seriesIterator.nextSeries());
+      // This statement must be called before next hasNextSeries() called, or it may be trapped in a
+      // dead-loop.
+      LinkedList<Pair<TsFileSequenceReader, List<ChunkMetadata>>> readerAndChunkMetadataList =
+          seriesIterator.getMetadataListForCurrentSeries();
+      for (Pair<TsFileSequenceReader, List<ChunkMetadata>> readerAndChunkMetadata :
+          readerAndChunkMetadataList) {
+        for (ChunkMetadata chunkMetadata : readerAndChunkMetadata.right) {
+          estimatedSize +=
+              estimateChunkSize(chunkMetadata, chunkMetadata.getDataType().getDataTypeSize());
+        }
+      }
+      seriesList.add(new Pair<>(p, readerAndChunkMetadataList));
+    }
+    return new DeviceTask(
+        device,
+        estimatedSize,
+        buffer -> {
+          for (Pair<PartialPath, LinkedList<Pair<TsFileSequenceReader, List<ChunkMetadata>>>>
+              series : seriesList) {
+            checkThreadInterrupted();
+            new SingleSeriesCompactionExecutor(
+                    series.left, series.right, buffer.writer, buffer.deviceResource)
+                .execute();
+          }
+        });
+  }
+
+  /**
+   * The size of a chunk is estimated as the raw size of its points, which is larger than the
+   * encoded size in most cases.
+   */
+  private static long estimateChunkSize(IChunkMetadata chunkMetadata, int valueSize) {
+    return chunkMetadata.getStatistics().getCount() * (Long.BYTES + valueSize);
+  }
+
+  private void submitDeviceTask(DeviceTask task) {
+    Future<DeviceChunkGroupBuffer> future = CompactionTaskManager.getInstance().submitSubTask(task);
+    if (future == null) {
+      // the sub compaction thread pool is not available, run the task in current thread
+      FutureTask<DeviceChunkGroupBuffer> futureTask = new FutureTask<>(task);
+      futureTask.run();
+      future = futureTask;
+    }
+    task.future = future;
+  }
+
+  /**
+   * Append the chunk group of the first running task to the target file and release its memory. The
+   * task is kept in the running list if the current thread is interrupted while waiting for it.
+   */
+  private void appendChunkGroup(TsFileIOWriter writer, LinkedList<DeviceTask> runningTasks)
+      throws IOException, InterruptedException {
+    DeviceTask task = runningTasks.getFirst();
+    DeviceChunkGroupBuffer buffer;
+    try {
+      buffer = task.future.get();
+    } catch (ExecutionException e) {
+      LOGGER.error("[Compaction] Device compaction sub task meets errors ", e);
+      throw new IOException(e);
+    }
+    runningTasks.removeFirst();
+    try {
+      writer.appendChunkGroups(buffer.writer);
+      targetResource.updateStartTime(
+          buffer.device, buffer.deviceResource.getStartTime(buffer.device));
+      targetResource.updateEndTime(buffer.device, buffer.deviceResource.getEndTime(buffer.device));
+    } finally {
+      CompactionTaskManager.getInstance().releaseBufferMemory(task.allocatedMemory.get());
+    }
+  }
+
   @Override
   public void setTargetFiles(List<TsFileResource> targetFiles) {
     if (targetFiles.size() != 1) {
@@ -147,4 +325,89 @@ public class ReadChunkCompactionPerformer implements ISeqCompactionPerformer {
   public void setSourceFiles(List<TsFileResource> seqFiles) {
     this.seqFiles = seqFiles;
   }
+
+  /** The body of a device task, which encodes the chunk group of the device into the buffer. */
+  @FunctionalInterface
+  private interface DeviceCompaction {
+    void compact(DeviceChunkGroupBuffer buffer)
+        throws IOException, MetadataException, InterruptedException;
+  }
+
+  /**
+   * The task encoding one device. The memory reserved for the device in CompactionTaskManager is
+   * kept in {@link #allocatedMemory}, which is the estimated size before the task finishes and the
+   * real buffered size after it, so exactly this amount is released however the task ends.
+   */
+  private class DeviceTask implements Callable<DeviceChunkGroupBuffer> {
+    private final String device;
+    private final DeviceCompaction compaction;
+    private final AtomicLong allocatedMemory;
+    // set once the task starts running or is known never to run
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final CountDownLatch exited = new CountDownLatch(1);
+    private Future<DeviceChunkGroupBuffer> future;
+
+    private DeviceTask(String device, long estimatedSize, DeviceCompaction compaction) {
+      this.device = device;
+      this.compaction = compaction;
+      this.allocatedMemory = new AtomicLong(estimatedSize);
+    }
+
+    @Override
+    public DeviceChunkGroupBuffer call() throws Exception {
+      if (!started.compareAndSet(false, true)) {
+        return null;
+      }
+      try {
+        DeviceChunkGroupBuffer buffer = new DeviceChunkGroupBuffer(device, targetResource);
+        buffer.writer.startChunkGroup(device);
+        compaction.compact(buffer);
+        buffer.writer.endChunkGroup();
+        long bufferSize = buffer.getBufferSize();
+        CompactionTaskManager.getInstance()
+            .allocateBufferMemory(bufferSize - allocatedMemory.getAndSet(bufferSize));
+        return buffer;
+      } finally {
+        exited.countDown();
+      }
+    }
+
+    /** Wait until the task exits, or make sure that it never runs if it has not started. */
+    private void awaitExit() {
+      if (started.compareAndSet(false, true)) {
+        return;
+      }
+      boolean interrupted = false;
+      while (true) {
+        try {
+          exited.await();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * The chunk group of one device encoded in memory. The time range of the device is recorded in a
+   * separate resource, because the time index of the target resource is not thread-safe.
+   */
+  private static class DeviceChunkGroupBuffer {
+    private final String device;
+    private final MemTsFileIOWriter writer = new MemTsFileIOWriter();
+    private final TsFileResource deviceResource;
+
+    private DeviceChunkGroupBuffer(String device, TsFileResource targetResource) {
+      this.device = device;
+      this.deviceResource = new TsFileResource(targetResource.getTsFile());
+    }
+
+    private long getBufferSize() {
+      return writer.getBufferedSize();
+    }
+  }
 }
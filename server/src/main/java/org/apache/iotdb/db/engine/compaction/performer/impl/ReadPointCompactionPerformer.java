@@ -50,6 +50,7 @@ import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.read.reader.IBatchReader;
 import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
@@ -75,13 +76,13 @@ import java.util.stream.Collectors;
 public class ReadPointCompactionPerformer
     implements ICrossCompactionPerformer, IUnseqCompactionPerformer {
   private Logger LOGGER = LoggerFactory.getLogger(IoTDBConstant.COMPACTION_LOGGER_NAME);
-  private List<TsFileResource> seqFiles = Collections.emptyList();
-  private List<TsFileResource> unseqFiles = Collections.emptyList();
+  protected List<TsFileResource> seqFiles = Collections.emptyList();
+  protected List<TsFileResource> unseqFiles = Collections.emptyList();
   private static final int subTaskNum =
       IoTDBDescriptor.getInstance().getConfig().getSubCompactionTaskNum();
   private Map<TsFileResource, TsFileSequenceReader> readerCacheMap = new HashMap<>();
 
-  private List<TsFileResource> targetFiles = Collections.emptyList();
+  protected List<TsFileResource> targetFiles = Collections.emptyList();
 
   public ReadPointCompactionPerformer(
       List<TsFileResource> seqFiles,
@@ -237,7 +238,7 @@ public class ReadPointCompactionPerformer
     compactionWriter.endChunkGroup();
   }
 
-  private Map<String, MeasurementSchema> getMeasurementSchema(
+  protected Map<String, MeasurementSchema> getMeasurementSchema(
       String device, Set<String> measurements) throws IllegalPathException, IOException {
     HashMap<String, MeasurementSchema> schemaMap = new HashMap<>();
     List<TsFileResource> allResources = new LinkedList<>(seqFiles);
@@ -301,13 +302,13 @@ public class ReadPointCompactionPerformer
     return null;
   }
 
-  private void clearReaderCache() throws IOException {
+  protected void clearReaderCache() throws IOException {
     for (TsFileResource resource : readerCacheMap.keySet()) {
       FileReaderManager.getInstance().decreaseFileReaderReference(resource, true);
     }
   }
 
-  private static void updateDeviceStartTimeAndEndTime(
+  protected static void updateDeviceStartTimeAndEndTime(
       List<TsFileResource> targetResources, AbstractCompactionWriter compactionWriter) {
     List<TsFileIOWriter> targetFileWriters = compactionWriter.getFileIOWriter();
     for (int i = 0; i < targetFileWriters.size(); i++) {
@@ -343,6 +344,28 @@ public class ReadPointCompactionPerformer
       QueryDataSource queryDataSource,
       boolean isAlign)
       throws IllegalPathException {
+    return constructReader(
+        deviceId,
+        measurementIds,
+        measurementSchemas,
+        allSensors,
+        queryContext,
+        queryDataSource,
+        isAlign,
+        null);
+  }
+
+  /** @param timeFilter only the data satisfying the filter is read, null to read all the data */
+  public static IBatchReader constructReader(
+      String deviceId,
+      List<String> measurementIds,
+      List<IMeasurementSchema> measurementSchemas,
+      Set<String> allSensors,
+      QueryContext queryContext,
+      QueryDataSource queryDataSource,
+      boolean isAlign,
+      Filter timeFilter)
+      throws IllegalPathException {
     PartialPath seriesPath;
     TSDataType tsDataType;
     if (isAlign) {
@@ -353,7 +376,15 @@ public class ReadPointCompactionPerformer
       tsDataType = measurementSchemas.get(0).getType();
     }
     return new SeriesRawDataBatchReader(
-        seriesPath, allSensors, tsDataType, queryContext, queryDataSource, null, null, null, true);
+        seriesPath,
+        allSensors,
+        tsDataType,
+        queryContext,
+        queryDataSource,
+        timeFilter,
+        null,
+        null,
+        true);
   }
 
   public static void writeWithReader(
@@ -381,7 +412,7 @@ public class ReadPointCompactionPerformer
     }
   }
 
-  private static void updatePlanIndexes(
+  protected static void updatePlanIndexes(
       List<TsFileResource> targetResources,
       List<TsFileResource> seqResources,
       List<TsFileResource> unseqResources) {
@@ -407,7 +438,7 @@ public class ReadPointCompactionPerformer
     }
   }
 
-  private void checkThreadInterrupted() throws InterruptedException {
+  protected void checkThreadInterrupted() throws InterruptedException {
     if (Thread.interrupted()) {
       throw new InterruptedException(
           String.format(
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.throttle;
+
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.flush.FlushManager;
+import org.apache.iotdb.db.service.metrics.recorder.CompactionMetricsRecorder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CompactionThrottleController adjusts the compaction write throughput and the number of running
+ * compaction tasks according to the foreground pressure, which is indicated by the p99 latency of
+ * the recent queries, the number of pending flush tasks and the disk utilization.
+ *
+ * <p>The adjustment is AIMD: if any of the signals exceeds its threshold, the write throughput is
+ * halved (based on the actual compaction I/O rate if it is lower than the limit) and one less
+ * compaction task is allowed to run. Otherwise, the write throughput is increased by a tenth of
+ * compaction_write_throughput_mb_per_sec and one more task is allowed, until the configured values
+ * are reached again. Running tasks are never interrupted, a lower task number only takes effect
+ * when new tasks are submitted.
+ */
+public class CompactionThrottleController {
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(IoTDBConstant.COMPACTION_LOGGER_NAME);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  private static final double DECREASE_FACTOR = 0.5;
+  private static final double INCREASE_RATIO = 0.1;
+  // if the write throughput is unlimited by config, it is recovered by doubling and becomes
+  // unlimited again when reaching this value
+  private static final double UNLIMITED_RECOVERY_THROUGHPUT_MB_PER_SEC = 1024;
+  private static final double MB = 1024.0 * 1024.0;
+
+  public enum Decision {
+    SLOW_DOWN,
+    SPEED_UP,
+    KEEP
+  }
+
+  private final DiskUtilizationMonitor diskUtilizationMonitor = new DiskUtilizationMonitor();
+  // bytes that compaction tasks have acquired from the rate limiter
+  private final AtomicLong compactionIOBytes = new AtomicLong(0);
+  private long lastCompactionIOBytes = 0;
+  private long lastCheckTime = System.currentTimeMillis();
+
+  // the current limit of compaction write throughput, 0 means unlimited
+  private volatile double writeThroughputMbPerSec = config.getCompactionWriteThroughputMbPerSec();
+  private volatile int maxRunningTaskNum = config.getConcurrentCompactionThread();
+
+  /** Record the bytes of the I/O done by compaction tasks, which is used as the actual I/O rate. */
+  public void recordCompactionIO(long bytes) {
+    compactionIOBytes.addAndGet(bytes);
+  }
+
+  /** @return the current limit of compaction write throughput in MB/s, 0 means unlimited */
+  public double getWriteThroughputMbPerSec() {
+    return writeThroughputMbPerSec;
+  }
+
+  public int getMaxRunningTaskNum() {
+    return Math.min(maxRunningTaskNum, config.getConcurrentCompactionThread());
+  }
+
+  /** Collect the foreground signals and adjust the compaction throttle. */
+  public synchronized Decision check() {
+    long queryP99 = QueryLatencyRecorder.getInstance().fetchRecentPercentile(0.99);
+    int flushBacklog = FlushManager.getInstance().getNumberOfPendingTasks();
+    double diskUtilization = diskUtilizationMonitor.fetchMaxUtilization();
+
+    long currentTime = System.currentTimeMillis();
+    long currentCompactionIOBytes = compactionIOBytes.get();
+    double actualThroughputMbPerSec =
+        currentTime > lastCheckTime
+            ? (currentCompactionIOBytes - lastCompactionIOBytes)
+                / MB
+                * 1000
+                / (currentTime - lastCheckTime)
+            : 0;
+    lastCheckTime = currentTime;
+    lastCompactionIOBytes = currentCompactionIOBytes;
+
+    boolean underPressure =
+        queryP99 > config.getCompactionThrottleQueryP99ThresholdInMs()
+            || flushBacklog >= config.getCompactionThrottleFlushBacklogThreshold()
+            || diskUtilization >= config.getCompactionThrottleDiskUtilizationThreshold();
+    Decision decision =
+        adjust(
+            underPressure,
+            actualThroughputMbPerSec,
+            config.getCompactionWriteThroughputMbPerSec(),
+            config.getCompactionThrottleMinWriteThroughputMbPerSec(),
+            config.getConcurrentCompactionThread());
+
+    if (decision != Decision.KEEP) {
+      LOGGER.info(
+          "[Compaction] Throttle decides to {}, query p99 {} ms, pending flush tasks {}, "
+              + "disk utilization {}, actual compaction I/O {} MB/s, write throughput limit {} MB/s, "
+              + "max running tasks {}",
+          decision,
+          queryP99,
+          flushBacklog,
+          String.format("%.2f", diskUtilization),
+          String.format("%.2f", actualThroughputMbPerSec),
+          writeThroughputMbPerSec == 0
+              ? "unlimited"
+              : String.format("%.2f", writeThroughputMbPerSec),
+          maxRunningTaskNum);
+    }
+    CompactionMetricsRecorder.recordThrottleInfo(
+        decision,
+        writeThroughputMbPerSec,
+        maxRunningTaskNum,
+        queryP99,
+        flushBacklog,
+        diskUtilization);
+    return decision;
+  }
+
+  /**
+   * Adjust the write throughput and the running task number.
+   *
+   * @param maxThroughputMbPerSec the configured write throughput, 0 means unlimited
+   */
+  Decision adjust(
+      boolean underPressure,
+      double actualThroughputMbPerSec,
+      double maxThroughputMbPerSec,
+      double minThroughputMbPerSec,
+      int maxTaskNum) {
+    double previousThroughput = writeThroughputMbPerSec;
+    int previousTaskNum = maxRunningTaskNum;
+    double oldThroughput = previousThroughput;
+    int oldTaskNum = previousTaskNum;
+    // the config may be changed by hot loading
+    if (maxThroughputMbPerSec > 0) {
+      minThroughputMbPerSec = Math.min(minThroughputMbPerSec, maxThroughputMbPerSec);
+      if (oldThroughput == 0 || oldThroughput > maxThroughputMbPerSec) {
+        oldThroughput = maxThroughputMbPerSec;
+      }
+    }
+    oldTaskNum = Math.min(oldTaskNum, maxTaskNum);
+
+    double newThroughput;
+    int newTaskNum;
+    if (underPressure) {
+      double base = oldThroughput;
+      if (actualThroughputMbPerSec > 0 && (base == 0 || actualThroughputMbPerSec < base)) {
+        base = actualThroughputMbPerSec;
+      }
+      // nothing to slow down if the throughput is unlimited and no compaction I/O happens
+      newThroughput = base == 0 ? 0 : Math.max(minThroughputMbPerSec, base * DECREASE_FACTOR);
+      newTaskNum = Math.max(1, oldTaskNum - 1);
+    } else {
+      if (oldThroughput == 0) {
+        newThroughput = 0;
+      } else if (maxThroughputMbPerSec > 0) {
+        newThroughput =
+            Math.min(maxThroughputMbPerSec, oldThroughput + maxThroughputMbPerSec * INCREASE_RATIO);
+      } else {
+        newThroughput = oldThroughput * 2;
+        if (newThroughput >= UNLIMITED_RECOVERY_THROUGHPUT_MB_PER_SEC) {
+          newThroughput = 0;
+        }
+      }
+      newTaskNum = Math.min(maxTaskNum, oldTaskNum + 1);
+    }
+
+    writeThroughputMbPerSec = newThroughput;
+    maxRunningTaskNum = newTaskNum;
+    if (newThroughput == previousThroughput && newTaskNum == previousTaskNum) {
+      return Decision.KEEP;
+    }
+    return underPressure ? Decision.SLOW_DOWN : Decision.SPEED_UP;
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.throttle;
+
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DiskUtilizationMonitor calculates the utilization of the disks by the io_ticks field of
+ * /proc/diskstats, i.e., the fraction of time during which the disk has I/O requests in flight.
+ * Only whole disks are considered and the utilization of the busiest one is reported. It is only
+ * available on Linux.
+ */
+public class DiskUtilizationMonitor {
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(IoTDBConstant.COMPACTION_LOGGER_NAME);
+
+  private static final String DISK_STATS_FILE = "/proc/diskstats";
+  private static final String BLOCK_DEVICE_DIR = "/sys/block/";
+  private static final int DEVICE_NAME_INDEX = 2;
+  private static final int IO_TICKS_INDEX = 12;
+
+  private final boolean available;
+  // device name -> io_ticks of the last check, in ms
+  private Map<String, Long> lastIoTicks = new HashMap<>();
+  private long lastCheckTime = -1;
+
+  public DiskUtilizationMonitor() {
+    this.available = new File(DISK_STATS_FILE).canRead();
+  }
+
+  /**
+   * @return the max utilization of all disks in [0, 1] since the last call, or -1 if it is
+   *     unavailable
+   */
+  public synchronized double fetchMaxUtilization() {
+    if (!available) {
+      return -1;
+    }
+    Map<String, Long> currentIoTicks;
+    try {
+      currentIoTicks = readIoTicks();
+    } catch (IOException | RuntimeException e) {
+      LOGGER.debug("Failed to read {}", DISK_STATS_FILE, e);
+      return -1;
+    }
+    long currentTime = System.currentTimeMillis();
+    double maxUtilization = -1;
+    if (lastCheckTime >= 0 && currentTime > lastCheckTime) {
+      for (Map.Entry<String, Long> entry : currentIoTicks.entrySet()) {
+        Long lastTicks = lastIoTicks.get(entry.getKey());
+        if (lastTicks != null && entry.getValue() >= lastTicks) {
+          double utilization =
+              (double) (entry.getValue() - lastTicks) / (currentTime - lastCheckTime);
+          maxUtilization = Math.max(maxUtilization, Math.min(1.0, utilization));
+        }
+      }
+    }
+    lastIoTicks = currentIoTicks;
+    lastCheckTime = currentTime;
+    return maxUtilization;
+  }
+
+  private Map<String, Long> readIoTicks() throws IOException {
+    List<String> lines = Files.readAllLines(Paths.get(DISK_STATS_FILE), StandardCharsets.UTF_8);
+    Map<String, Long> ioTicks = new HashMap<>();
+    for (String line : lines) {
+      String[] fields = line.trim().split("\\s+");
+      if (fields.length <= IO_TICKS_INDEX) {
+        continue;
+      }
+      String deviceName = fields[DEVICE_NAME_INDEX];
+      if (isWholeDisk(deviceName)) {
+        ioTicks.put(deviceName, Long.parseLong(fields[IO_TICKS_INDEX]));
+      }
+    }
+    return ioTicks;
+  }
+
+  private boolean isWholeDisk(String deviceName) {
+    if (deviceName.startsWith("loop") || deviceName.startsWith("ram")) {
+      return false;
+    }
+    // partitions do not appear in /sys/block, and '/' in device names is replaced by '!' there
+    return new File(BLOCK_DEVICE_DIR + deviceName.replace('/', '!')).exists();
+  }
+}
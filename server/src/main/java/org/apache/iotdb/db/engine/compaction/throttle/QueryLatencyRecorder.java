@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.throttle;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * QueryLatencyRecorder keeps the latencies of the most recent queries in a ring buffer, so that the
+ * compaction throttle can know how the foreground queries are served without depending on whether
+ * the metric service is enabled.
+ */
+public class QueryLatencyRecorder {
+
+  private static final int WINDOW_SIZE = 1024;
+
+  private final AtomicLongArray latencies = new AtomicLongArray(WINDOW_SIZE);
+  private final AtomicLong recordedNum = new AtomicLong(0);
+  // the value of recordedNum when the percentile is fetched last time
+  private long fetchedNum = 0;
+
+  private QueryLatencyRecorder() {}
+
+  public static QueryLatencyRecorder getInstance() {
+    return QueryLatencyRecorderHolder.INSTANCE;
+  }
+
+  public void record(long latencyInMs) {
+    long index = recordedNum.getAndIncrement();
+    latencies.set((int) (index % WINDOW_SIZE), latencyInMs);
+  }
+
+  /**
+   * Get the percentile of the latencies of the queries recorded since the last call. At most the
+   * latest {@link #WINDOW_SIZE} queries are considered.
+   *
+   * @param percentile in (0, 1]
+   * @return the latency in ms, or 0 if no query is recorded since the last call
+   */
+  public synchronized long fetchRecentPercentile(double percentile) {
+    long currentNum = recordedNum.get();
+    int count = (int) Math.min(currentNum - fetchedNum, WINDOW_SIZE);
+    fetchedNum = currentNum;
+    if (count <= 0) {
+      return 0;
+    }
+    long[] samples = new long[count];
+    for (int i = 0; i < count; i++) {
+      samples[i] = latencies.get((int) ((currentNum - count + i) % WINDOW_SIZE));
+    }
+    Arrays.sort(samples);
+    int rank = (int) Math.ceil(percentile * count) - 1;
+    return samples[Math.max(0, Math.min(count - 1, rank))];
+  }
+
+  private static class QueryLatencyRecorderHolder {
+    private static final QueryLatencyRecorder INSTANCE = new QueryLatencyRecorder();
+
+    private QueryLatencyRecorderHolder() {}
+  }
+}
@@ -18,12 +18,21 @@
  */
 package org.apache.iotdb.db.engine.compaction.writer;
 
+import org.apache.iotdb.db.engine.compaction.constant.CompactionType;
+import org.apache.iotdb.db.engine.compaction.constant.ProcessChunkType;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.service.metrics.recorder.CompactionMetricsRecorder;
+import org.apache.iotdb.tsfile.exception.write.PageException;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.TimeseriesMetadata;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.write.chunk.ChunkWriterImpl;
 import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -107,6 +116,62 @@ public class CrossSpaceCompactionWriter extends AbstractCompactionWriter {
   @Override
   public void write(long[] timestamps, Object values) {}
 
+  /**
+   * Write a whole chunk of a source seq file into the corresponding target file without
+   * deserializing it. The chunk must be later than all the data written by this sub task and no
+   * other data of this series may fall into its time range.
+   */
+  public void writeChunk(Chunk chunk, ChunkMetadata chunkMetadata, int seqFileIndex, int subTaskId)
+      throws IOException {
+    moveToSeqFile(seqFileIndex, subTaskId);
+    // flush the points in the chunk writer first to keep the chunks in order
+    flushChunkToFileWriter(fileWriterList.get(seqFileIndexArray[subTaskId]), subTaskId);
+    TsFileIOWriter targetWriter = fileWriterList.get(seqFileIndex);
+    long chunkSize = chunk.getHeader().getSerializedSize() + chunk.getHeader().getDataSize();
+    writeRateLimit(chunkSize);
+    synchronized (targetWriter) {
+      targetWriter.writeChunk(chunk, chunkMetadata);
+    }
+    isDeviceExistedInTargetFiles[seqFileIndex] = true;
+    isEmptyFile[seqFileIndex] = false;
+    CompactionMetricsRecorder.recordWriteInfo(
+        CompactionType.CROSS_COMPACTION, ProcessChunkType.FLUSH_CHUNK, false, chunkSize);
+  }
+
+  /**
+   * Append a page of a source seq file to the chunk writer of this sub task without deserializing
+   * it. The page must be encoded and compressed in the same way as the chunk writer, and the same
+   * order constraint as {@link #writeChunk} applies.
+   */
+  public void writePage(
+      PageHeader pageHeader, ByteBuffer compressedPageData, int seqFileIndex, int subTaskId)
+      throws IOException {
+    moveToSeqFile(seqFileIndex, subTaskId);
+    ChunkWriterImpl chunkWriter = (ChunkWriterImpl) chunkWriters[subTaskId];
+    chunkWriter.sealCurrentPage();
+    try {
+      chunkWriter.writePageHeaderAndDataIntoBuff(compressedPageData, pageHeader);
+    } catch (PageException e) {
+      throw new IOException(e);
+    }
+    isDeviceExistedInTargetFiles[seqFileIndexArray[subTaskId]] = true;
+    isEmptyFile[seqFileIndexArray[subTaskId]] = false;
+    if (checkChunkSize(subTaskId)) {
+      long chunkSize = chunkWriter.estimateMaxSeriesMemSize();
+      flushChunkToFileWriter(fileWriterList.get(seqFileIndexArray[subTaskId]), subTaskId);
+      CompactionMetricsRecorder.recordWriteInfo(
+          CompactionType.CROSS_COMPACTION, ProcessChunkType.MERGE_CHUNK, false, chunkSize);
+    }
+  }
+
+  /** Flush the chunk writer of the sub task if the following data belongs to a later file. */
+  private void moveToSeqFile(int seqFileIndex, int subTaskId) throws IOException {
+    if (seqFileIndex > seqFileIndexArray[subTaskId]) {
+      flushChunkToFileWriter(fileWriterList.get(seqFileIndexArray[subTaskId]), subTaskId);
+      seqFileIndexArray[subTaskId] = seqFileIndex;
+    }
+  }
+
   @Override
   public void endFile() throws IOException {
     for (int i = 0; i < isEmptyFile.length; i++) {
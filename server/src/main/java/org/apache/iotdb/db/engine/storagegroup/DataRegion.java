@@ -42,6 +42,7 @@ import org.apache.iotdb.db.engine.flush.CloseFileListener;
 import org.apache.iotdb.db.engine.flush.FlushListener;
 import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy;
 import org.apache.iotdb.db.engine.modification.Deletion;
+import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.engine.trigger.executor.TriggerEngine;
@@ -64,6 +65,7 @@ import org.apache.iotdb.db.metadata.cache.DataNodeSchemaCache;
 import org.apache.iotdb.db.metadata.idtable.IDTable;
 import org.apache.iotdb.db.metadata.idtable.IDTableManager;
 import org.apache.iotdb.db.metadata.mnode.IMeasurementMNode;
+import org.apache.iotdb.db.mpp.plan.execution.cache.GroupByTimeResultCache;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.write.InsertMultiTabletsNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.write.InsertRowNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.write.InsertRowsNode;
@@ -253,6 +255,9 @@ public class DataRegion {
 
   private ILastFlushTimeManager lastFlushTimeManager;
 
+  /** persisted last cache of this data region, null if the last cache is not persisted */
+  private LastCacheCheckpoint lastCacheCheckpoint;
+
   /**
    * record the insertWriteLock in SG is being hold by which method, it will be empty string if on
    * one holds the insertWriteLock
@@ -304,6 +309,12 @@ public class DataRegion {
     } else {
       lastFlushTimeManager = new LastFlushTimeManager();
     }
+    if (config.isLastCacheEnabled() && config.isEnableLastCachePersistence()) {
+      lastCacheCheckpoint = openLastCacheCheckpoint();
+    } else {
+      // a checkpoint left by a previous run misses the data written since then
+      LastCacheCheckpoint.deleteFiles(storageGroupSysDir);
+    }
     // recover tsfiles
     recover();
 
@@ -506,6 +517,10 @@ public class DataRegion {
       lastFlushTimeManager.setMultiDeviceGlobalFlushedTime(endTimeMap);
     }
 
+    if (lastCacheCheckpoint != null) {
+      recoverLastCache();
+    }
+
     // recover and start timed compaction thread
     initCompaction();
 
@@ -522,6 +537,58 @@ public class DataRegion {
     }
   }
 
+  private LastCacheCheckpoint openLastCacheCheckpoint() {
+    try {
+      return new LastCacheCheckpoint(storageGroupSysDir);
+    } catch (IOException e) {
+      logger.warn(
+          "Cannot load the last cache checkpoint of {}[{}], create a new one",
+          logicalStorageGroupName,
+          dataRegionId,
+          e);
+    }
+    LastCacheCheckpoint.deleteFiles(storageGroupSysDir);
+    try {
+      return new LastCacheCheckpoint(storageGroupSysDir);
+    } catch (IOException e) {
+      logger.error(
+          "Cannot create the last cache checkpoint of {}[{}], the last cache will not be persisted",
+          logicalStorageGroupName,
+          dataRegionId,
+          e);
+      return null;
+    }
+  }
+
+  /**
+   * Fill the last cache with the recovered checkpoint. A new checkpoint knows nothing about the
+   * existing TsFiles, so their devices are marked unknown instead.
+   */
+  private void recoverLastCache() {
+    if (!lastCacheCheckpoint.isRestored()) {
+      Map<String, Long> deviceEndTimes = new HashMap<>();
+      List<TsFileResource> resources = new ArrayList<>(tsFileManager.getTsFileList(true));
+      resources.addAll(tsFileManager.getTsFileList(false));
+      resources.addAll(upgradeSeqFileList);
+      resources.addAll(upgradeUnseqFileList);
+      for (TsFileResource resource : resources) {
+        for (String device : resource.getDevices()) {
+          deviceEndTimes.merge(device, resource.getEndTime(device), Math::max);
+        }
+      }
+      lastCacheCheckpoint.invalidateDevices(deviceEndTimes);
+      return;
+    }
+    if (config.isMppMode()) {
+      // the schema cache is empty now, the values are taken when the series are cached
+      lastCacheCheckpoint.forEachLast(DataNodeSchemaCache.getInstance()::putRecoveredLastCache);
+    } else {
+      lastCacheCheckpoint.forEachLast(
+          (path, timeValuePair) ->
+              IoTDB.schemaProcessor.updateLastCache(path, timeValuePair, false, Long.MIN_VALUE));
+    }
+  }
+
   private void initCompaction() {
     timedCompactionScheduleTask =
         IoTDBThreadPoolFactory.newSingleThreadScheduledExecutor(
@@ -704,6 +771,9 @@ public class DataRegion {
   private void callbackAfterUnsealedTsFileRecovered(
       UnsealedTsFileRecoverPerformer recoverPerformer) {
     TsFileResource tsFileResource = recoverPerformer.getTsFileResource();
+    if (lastCacheCheckpoint != null && recoverPerformer.hasCrashed()) {
+      mergeRecoveredChunksIntoLastCache(recoverPerformer);
+    }
     if (!recoverPerformer.canWrite()) {
       // cannot write, just close it
       if (tsFileSyncManager.isEnableSync()) {
@@ -729,6 +799,7 @@ public class DataRegion {
               isSeq ? this::updateLatestFlushTimeCallback : this::unsequenceFlushCallback,
               isSeq,
               writer);
+      tsFileProcessor.setLastCacheCheckpoint(lastCacheCheckpoint);
       if (isSeq) {
         workSequenceTsFileProcessors.put(timePartitionId, tsFileProcessor);
       } else {
@@ -757,6 +828,22 @@ public class DataRegion {
     tsFileManager.add(tsFileResource, recoverPerformer.isSequence());
   }
 
+  /**
+   * The chunks of a crashed TsFile may be flushed without reaching the checkpoint, and the logs of
+   * such chunks are not redone, so merge all the chunks of the file, with its deletions.
+   */
+  private void mergeRecoveredChunksIntoLastCache(UnsealedTsFileRecoverPerformer recoverPerformer) {
+    List<Deletion> deletions = new ArrayList<>();
+    for (Modification modification :
+        recoverPerformer.getTsFileResource().getModFile().getModifications()) {
+      if (modification instanceof Deletion) {
+        deletions.add((Deletion) modification);
+      }
+    }
+    lastCacheCheckpoint.mergeFlushedChunks(
+        recoverPerformer.getWriter().getChunkGroupMetadataList(), deletions);
+  }
+
   /** recover sealed TsFile */
   private void recoverSealedTsFiles(
       TsFileResource sealedTsFile, DataRegionRecoveryContext context, boolean isSeq) {
@@ -1086,6 +1173,19 @@ public class DataRegion {
       long globalLatestFlushedTime =
           lastFlushTimeManager.getGlobalFlushedTime(insertTabletNode.getDevicePath().getFullPath());
       tryToUpdateBatchInsertLastCache(insertTabletNode, globalLatestFlushedTime);
+      if (GroupByTimeResultCache.getInstance().isEnabled()) {
+        // the times of a tablet are not guaranteed to be sorted, e.g. those of the REST service or
+        // Session.insertTablet(tablet, true), so find the bounds of all of them
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        for (int i = 0; i < insertTabletNode.getRowCount(); i++) {
+          long time = insertTabletNode.getTimes()[i];
+          minTime = Math.min(minTime, time);
+          maxTime = Math.max(maxTime, time);
+        }
+        GroupByTimeResultCache.getInstance()
+            .invalidate(insertTabletNode.getDevicePath().getFullPath(), minTime, maxTime);
+      }
 
       if (!noFailure) {
         throw new BatchProcessException(results);
@@ -1308,6 +1408,13 @@ public class DataRegion {
     }
 
     tsFileProcessor.insert(insertRowNode);
+    if (GroupByTimeResultCache.getInstance().isEnabled()) {
+      GroupByTimeResultCache.getInstance()
+          .invalidate(
+              insertRowNode.getDevicePath().getFullPath(),
+              insertRowNode.getTime(),
+              insertRowNode.getTime());
+    }
 
     // try to update the latest time of the device of this tsRecord
     lastFlushTimeManager.updateLastTime(
@@ -1504,6 +1611,7 @@ public class DataRegion {
     tsFileProcessor.addCloseFileListeners(customCloseFileListeners);
     tsFileProcessor.addFlushListeners(customFlushListeners);
     tsFileProcessor.setTimeRangeId(timePartitionId);
+    tsFileProcessor.setLastCacheCheckpoint(lastCacheCheckpoint);
 
     return tsFileProcessor;
   }
@@ -1610,6 +1718,10 @@ public class DataRegion {
         systemDir);
     writeLock("deleteFolder");
     try {
+      GroupByTimeResultCache.getInstance().invalidateStorageGroup(logicalStorageGroupName);
+      if (lastCacheCheckpoint != null) {
+        lastCacheCheckpoint.close();
+      }
       File dataRegionSystemFolder =
           SystemFileFactory.INSTANCE.getFile(
               systemDir + File.separator + logicalStorageGroupName, dataRegionId);
@@ -1645,6 +1757,7 @@ public class DataRegion {
         logicalStorageGroupName + "-" + dataRegionId);
     writeLock("syncDeleteDataFiles");
     try {
+      GroupByTimeResultCache.getInstance().invalidateStorageGroup(logicalStorageGroupName);
 
       syncCloseAllWorkingTsFileProcessors();
       // normally, mergingModification is just need to be closed by after a merge task is finished.
@@ -1657,6 +1770,9 @@ public class DataRegion {
       this.workSequenceTsFileProcessors.clear();
       this.workUnsequenceTsFileProcessors.clear();
       this.tsFileManager.clear();
+      if (lastCacheCheckpoint != null) {
+        lastCacheCheckpoint.clear();
+      }
       lastFlushTimeManager.clearFlushedTime();
       lastFlushTimeManager.clearGlobalFlushedTime();
       lastFlushTimeManager.clearLastTime();
@@ -2056,6 +2172,8 @@ public class DataRegion {
         // delete Last cache record if necessary
         tryToDeleteLastCache(device, path, startTime, endTime);
       }
+      // before the wal, so that a crash does not leave the deleted points in the checkpoint
+      deleteInLastCacheCheckpoint(devicePaths, path, startTime, endTime);
 
       // write log to impacted working TsFileProcessors
       List<WALFlushListener> walListeners =
@@ -2084,6 +2202,9 @@ public class DataRegion {
           updatedModFiles,
           planIndex,
           timePartitionFilter);
+      // again after the memtables, as a flush may have merged the points in between
+      deleteInLastCacheCheckpoint(devicePaths, path, startTime, endTime);
+      GroupByTimeResultCache.getInstance().invalidate(devicePaths, startTime, endTime);
 
     } catch (Exception e) {
       // roll back
@@ -2138,6 +2259,7 @@ public class DataRegion {
       // delete Last cache record if necessary
       // todo implement more precise process
       DataNodeSchemaCache.getInstance().cleanUp();
+      deleteInLastCacheCheckpoint(devicePaths, pattern, startTime, endTime);
 
       // write log to impacted working TsFileProcessors
       List<WALFlushListener> walListeners =
@@ -2166,6 +2288,9 @@ public class DataRegion {
           updatedModFiles,
           planIndex,
           timePartitionFilter);
+      // again after the memtables, as a flush may have merged the points in between
+      deleteInLastCacheCheckpoint(devicePaths, pattern, startTime, endTime);
+      GroupByTimeResultCache.getInstance().invalidate(devicePaths, startTime, endTime);
 
     } catch (Exception e) {
       // roll back
@@ -2294,6 +2419,13 @@ public class DataRegion {
     }
   }
 
+  private void deleteInLastCacheCheckpoint(
+      Set<PartialPath> devicePaths, PartialPath pattern, long startTime, long endTime) {
+    if (lastCacheCheckpoint != null) {
+      lastCacheCheckpoint.delete(devicePaths, pattern, startTime, endTime);
+    }
+  }
+
   private void tryToDeleteLastCache(
       PartialPath deviceId, PartialPath originalPath, long startTime, long endTime)
       throws WriteProcessException {
@@ -2533,8 +2665,13 @@ public class DataRegion {
 
   private void resetLastCacheWhenLoadingTsfile(TsFileResource newTsFileResource)
       throws IllegalPathException {
+    Map<String, Long> deviceEndTimes = new HashMap<>();
     for (String device : newTsFileResource.getDevices()) {
       tryToDeleteLastCacheByDevice(new PartialPath(device));
+      deviceEndTimes.put(device, newTsFileResource.getEndTime(device));
+    }
+    if (lastCacheCheckpoint != null) {
+      lastCacheCheckpoint.invalidateDevices(deviceEndTimes);
     }
   }
 
@@ -2599,6 +2736,13 @@ public class DataRegion {
           insertPos,
           deleteOriginFile);
       resetLastCacheWhenLoadingTsfile(newTsFileResource);
+      for (String device : newTsFileResource.getDevices()) {
+        GroupByTimeResultCache.getInstance()
+            .invalidate(
+                device,
+                newTsFileResource.getStartTime(device),
+                newTsFileResource.getEndTime(device));
+      }
 
       // update latest time map
       updateLatestTimeMap(newTsFileResource);
@@ -3159,6 +3303,7 @@ public class DataRegion {
 
   public void setDataTTL(long dataTTL) {
     this.dataTTL = dataTTL;
+    GroupByTimeResultCache.getInstance().setDataTTL(logicalStorageGroupName, dataTTL);
   }
 
   public List<TsFileResource> getSequenceFileList() {
@@ -0,0 +1,682 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import org.apache.iotdb.commons.exception.IllegalPathException;
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.modification.Deletion;
+import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetadata;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.TimeValuePair;
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * LastCacheCheckpoint persists the last flushed point of every series in a data region, so that the
+ * last cache can be filled right after a restart instead of reading the TsFiles.
+ *
+ * <p>The state of a series is either known, i.e. its last point, or unknown with a bound, meaning
+ * that its last point is before the bound and has to be read from the TsFiles. A device may also
+ * carry a bound, which applies to all its series without a known point. Unknown states come from
+ * deletions which remove the last point, and from data which is not seen by the checkpoint, i.e.
+ * TsFiles written before the checkpoint is created and loaded TsFiles. A flushed point at or after
+ * the bound makes the series known again.
+ *
+ * <p>The number of series kept is bounded. Beyond it, the least recently used devices are forgotten
+ * by setting their bounds after the last points of their series, so only the bounds of those
+ * devices remain.
+ *
+ * <p>Every change is appended to a log file, which is folded into a snapshot file once it grows
+ * larger than the snapshot. Both files consist of CRC protected frames of records setting the state
+ * of a series or the bound of a device, so replaying a log on a snapshot which already contains it
+ * is harmless, and a torn frame at the end of the log is dropped.
+ */
+public class LastCacheCheckpoint {
+
+  private static final Logger logger = LoggerFactory.getLogger(LastCacheCheckpoint.class);
+
+  public static final String SNAPSHOT_FILE_NAME = "last_cache.snapshot";
+  public static final String LOG_FILE_NAME = "last_cache.log";
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private static final byte SERIES_KNOWN = 0;
+  private static final byte SERIES_UNKNOWN = 1;
+  private static final byte SERIES_REMOVED = 2;
+  private static final byte DEVICE_BOUND = 3;
+
+  /** the log is not folded into the snapshot before it reaches this size */
+  private static final long MIN_LOG_SIZE_TO_COMPACT = 4L * 1024 * 1024;
+
+  private final File snapshotFile;
+  private final File logFile;
+
+  /** in the order of access, the least recently used device first */
+  private final Map<String, DeviceState> devices = new LinkedHashMap<>(16, 0.75f, true);
+
+  /** the number of series states in all the devices */
+  private int seriesCount = 0;
+
+  private final int maxSeriesCount;
+
+  /** whether the checkpoint is restored from existing files */
+  private final boolean restored;
+
+  /** records of the change being made, appended to the log as one frame */
+  private final PublicBAOS frame = new PublicBAOS();
+
+  private FileChannel logChannel;
+  private long snapshotSize;
+
+  /** set when the files cannot be written, after which the checkpoint is not persisted any more */
+  private boolean broken = false;
+
+  public LastCacheCheckpoint(File dir) throws IOException {
+    this(dir, IoTDBDescriptor.getInstance().getConfig().getLastCachePersistenceMaxSeriesPerRegion());
+  }
+
+  @TestOnly
+  LastCacheCheckpoint(File dir, int maxSeriesCount) throws IOException {
+    this.maxSeriesCount = maxSeriesCount;
+    this.snapshotFile = new File(dir, SNAPSHOT_FILE_NAME);
+    this.logFile = new File(dir, LOG_FILE_NAME);
+    this.restored = snapshotFile.exists() || logFile.exists();
+    try {
+      if (snapshotFile.exists()) {
+        snapshotSize = snapshotFile.length();
+        if (replay(snapshotFile) != snapshotSize) {
+          throw new IOException("Corrupted last cache snapshot " + snapshotFile);
+        }
+      }
+      long validLogSize = logFile.exists() ? replay(logFile) : 0L;
+      logChannel =
+          FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      if (logChannel.size() > validLogSize) {
+        logger.warn(
+            "Truncate the torn tail of {} from {} to {}", logFile, logChannel.size(), validLogSize);
+        logChannel.truncate(validLogSize);
+      }
+      logChannel.position(validLogSize);
+    } catch (IOException e) {
+      if (logChannel != null) {
+        logChannel.close();
+      }
+      throw e;
+    }
+  }
+
+  /** @return whether the checkpoint is restored from files, i.e. not created just now */
+  public boolean isRestored() {
+    return restored;
+  }
+
+  /**
+   * Merge the last points of flushed chunks.
+   *
+   * @param chunkGroupMetadataList the flushed chunk groups
+   * @param deletions deletions which may not be applied to the flushed chunks
+   */
+  public synchronized void mergeFlushedChunks(
+      List<ChunkGroupMetadata> chunkGroupMetadataList, List<Deletion> deletions) {
+    for (ChunkGroupMetadata chunkGroupMetadata : chunkGroupMetadataList) {
+      String device = chunkGroupMetadata.getDevice();
+      for (ChunkMetadata chunkMetadata : chunkGroupMetadata.getChunkMetadataList()) {
+        Statistics<? extends Serializable> statistics = chunkMetadata.getStatistics();
+        // skip the time column of aligned series and empty value columns
+        if (chunkMetadata.getDataType() == TSDataType.VECTOR
+            || statistics == null
+            || statistics.getCount() == 0) {
+          continue;
+        }
+        String measurement = chunkMetadata.getMeasurementUid();
+        long time = statistics.getEndTime();
+        Deletion deletion = findDeletion(deletions, device, measurement, time);
+        if (deletion == null) {
+          mergePoint(
+              device,
+              measurement,
+              time,
+              TsPrimitiveType.getByType(chunkMetadata.getDataType(), statistics.getLastValue()));
+        } else {
+          // the other points of the memtable are before the deleted range
+          mergeBound(device, measurement, deletion.getStartTime());
+        }
+      }
+    }
+    commit();
+  }
+
+  /**
+   * Forget the last points deleted by a deletion.
+   *
+   * @param devicePaths the devices which the pattern belongs to
+   */
+  public synchronized void delete(
+      Set<PartialPath> devicePaths, PartialPath pattern, long startTime, long endTime) {
+    for (PartialPath devicePath : devicePaths) {
+      String device = devicePath.getFullPath();
+      DeviceState deviceState = devices.get(device);
+      if (deviceState == null) {
+        continue;
+      }
+      // copy the entries as the states may be removed
+      for (Map.Entry<String, SeriesState> entry :
+          new HashMap<>(deviceState.seriesStates).entrySet()) {
+        SeriesState state = entry.getValue();
+        if (!state.isKnown()
+            || state.time < startTime
+            || state.time > endTime
+            || !pattern.matchFullPath(devicePath.concatNode(entry.getKey()))) {
+          continue;
+        }
+        // the remaining points are before the deleted range
+        if (startTime == Long.MIN_VALUE && deviceState.bound == Long.MIN_VALUE) {
+          removeSeries(device, entry.getKey());
+        } else {
+          setSeries(device, entry.getKey(), new SeriesState(startTime, null));
+        }
+      }
+    }
+    commit();
+  }
+
+  /**
+   * Mark the series of the given devices unknown unless their last points are after the given end
+   * times, used when data not seen by the checkpoint is added to the data region.
+   */
+  public synchronized void invalidateDevices(Map<String, Long> deviceEndTimes) {
+    for (Map.Entry<String, Long> entry : deviceEndTimes.entrySet()) {
+      long endTime = entry.getValue();
+      setDeviceBound(entry.getKey(), endTime == Long.MAX_VALUE ? endTime : endTime + 1);
+    }
+    commit();
+  }
+
+  /** Visit the known last point of each series. */
+  public synchronized void forEachLast(BiConsumer<PartialPath, TimeValuePair> consumer) {
+    for (Map.Entry<String, DeviceState> deviceEntry : devices.entrySet()) {
+      for (Map.Entry<String, SeriesState> seriesEntry :
+          deviceEntry.getValue().seriesStates.entrySet()) {
+        SeriesState state = seriesEntry.getValue();
+        if (!state.isKnown()) {
+          continue;
+        }
+        try {
+          consumer.accept(
+              new PartialPath(deviceEntry.getKey(), seriesEntry.getKey()),
+              new TimeValuePair(state.time, state.value));
+        } catch (IllegalPathException e) {
+          logger.warn(
+              "Skip the last cache of illegal path {}.{}",
+              deviceEntry.getKey(),
+              seriesEntry.getKey());
+        }
+      }
+    }
+  }
+
+  /** @return the known last point of a series, or null if it is not known */
+  public synchronized TimeValuePair getLast(String device, String measurement) {
+    DeviceState deviceState = devices.get(device);
+    SeriesState state = deviceState == null ? null : deviceState.seriesStates.get(measurement);
+    return state == null || !state.isKnown() ? null : new TimeValuePair(state.time, state.value);
+  }
+
+  /** Forget everything, used when all the data of the data region is deleted. */
+  public synchronized void clear() {
+    devices.clear();
+    seriesCount = 0;
+    frame.reset();
+    if (broken) {
+      return;
+    }
+    try {
+      compact();
+    } catch (IOException e) {
+      fail(e);
+    }
+  }
+
+  public synchronized void close() {
+    if (logChannel != null) {
+      try {
+        logChannel.close();
+      } catch (IOException e) {
+        logger.warn("Cannot close {}", logFile, e);
+      }
+      logChannel = null;
+    }
+  }
+
+  /** Delete the files of a checkpoint, used when the persistence is disabled. */
+  public static void deleteFiles(File dir) {
+    for (String name :
+        new String[] {SNAPSHOT_FILE_NAME, SNAPSHOT_FILE_NAME + TEMP_SUFFIX, LOG_FILE_NAME}) {
+      File file = new File(dir, name);
+      try {
+        Files.deleteIfExists(file.toPath());
+      } catch (IOException e) {
+        logger.warn("Cannot delete {}", file, e);
+      }
+    }
+  }
+
+  private Deletion findDeletion(
+      List<Deletion> deletions, String device, String measurement, long time) {
+    for (Deletion deletion : deletions) {
+      if (deletion.getStartTime() <= time && time <= deletion.getEndTime()) {
+        try {
+          if (deletion.getPath().matchFullPath(new PartialPath(device, measurement))) {
+            return deletion;
+          }
+        } catch (IllegalPathException e) {
+          // not a path written by a memtable, treat it as deleted to be safe
+          return deletion;
+        }
+      }
+    }
+    return null;
+  }
+
+  private void mergePoint(String device, String measurement, long time, TsPrimitiveType value) {
+    DeviceState deviceState = devices.get(device);
+    SeriesState state = deviceState == null ? null : deviceState.seriesStates.get(measurement);
+    long bound = deviceState == null ? Long.MIN_VALUE : deviceState.bound;
+    if (state != null) {
+      bound = state.isKnown() ? state.time : Math.max(bound, state.time);
+    }
+    if (time >= bound) {
+      setSeries(device, measurement, new SeriesState(time, value));
+    }
+  }
+
+  /** Merge a flushed series whose last point is unknown but before the given bound. */
+  private void mergeBound(String device, String measurement, long bound) {
+    DeviceState deviceState = devices.get(device);
+    SeriesState state = deviceState == null ? null : deviceState.seriesStates.get(measurement);
+    if (state != null && state.isKnown() && state.time >= bound) {
+      return;
+    }
+    if (deviceState != null) {
+      bound = Math.max(bound, deviceState.bound);
+    }
+    if (state != null && !state.isKnown()) {
+      bound = Math.max(bound, state.time);
+    }
+    setSeries(device, measurement, new SeriesState(bound, null));
+  }
+
+  private void setSeries(String device, String measurement, SeriesState state) {
+    putSeriesState(device, measurement, state);
+    try {
+      writeSeries(device, measurement, state);
+    } catch (IOException e) {
+      // writing to a memory stream never fails
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void removeSeries(String device, String measurement) {
+    removeSeriesState(device, measurement);
+    try {
+      ReadWriteIOUtils.write(SERIES_REMOVED, frame);
+      ReadWriteIOUtils.write(device, frame);
+      ReadWriteIOUtils.write(measurement, frame);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void putSeriesState(String device, String measurement, SeriesState state) {
+    if (devices.computeIfAbsent(device, k -> new DeviceState()).seriesStates.put(measurement, state)
+        == null) {
+      seriesCount++;
+    }
+  }
+
+  private void removeSeriesState(String device, String measurement) {
+    DeviceState deviceState = devices.get(device);
+    if (deviceState != null && deviceState.seriesStates.remove(measurement) != null) {
+      seriesCount--;
+    }
+  }
+
+  /** Forget the series of the least recently used devices until the series are within the limit. */
+  private void evictDevices() {
+    if (seriesCount <= maxSeriesCount) {
+      return;
+    }
+    // collect the devices first, as accessing a device reorders the map
+    List<String> evictedDevices = new ArrayList<>();
+    int remainingCount = seriesCount;
+    for (Map.Entry<String, DeviceState> entry : devices.entrySet()) {
+      if (remainingCount <= maxSeriesCount) {
+        break;
+      }
+      int count = entry.getValue().seriesStates.size();
+      if (count > 0) {
+        evictedDevices.add(entry.getKey());
+        remainingCount -= count;
+      }
+    }
+    for (String device : evictedDevices) {
+      DeviceState deviceState = devices.get(device);
+      // no series of the device has a point at or after the bound
+      long bound = deviceState.bound;
+      for (SeriesState state : deviceState.seriesStates.values()) {
+        long seriesBound =
+            state.isKnown() && state.time != Long.MAX_VALUE ? state.time + 1 : state.time;
+        bound = Math.max(bound, seriesBound);
+      }
+      setDeviceBound(device, bound);
+      // only a known point at Long.MAX_VALUE is not covered by the bound
+      for (String measurement : new ArrayList<>(deviceState.seriesStates.keySet())) {
+        removeSeries(device, measurement);
+      }
+    }
+  }
+
+  private void setDeviceBound(String device, long bound) {
+    applyDeviceBound(device, bound);
+    try {
+      writeDeviceBound(device, bound);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void applyDeviceBound(String device, long bound) {
+    DeviceState deviceState = devices.computeIfAbsent(device, k -> new DeviceState());
+    deviceState.bound = Math.max(deviceState.bound, bound);
+    // the states before the bound are covered by the bound of the device
+    Iterator<SeriesState> iterator = deviceState.seriesStates.values().iterator();
+    while (iterator.hasNext()) {
+      SeriesState state = iterator.next();
+      if (state.isKnown() ? state.time < deviceState.bound : state.time <= deviceState.bound) {
+        iterator.remove();
+        seriesCount--;
+      }
+    }
+  }
+
+  private void writeSeries(String device, String measurement, SeriesState state)
+      throws IOException {
+    ReadWriteIOUtils.write(state.isKnown() ? SERIES_KNOWN : SERIES_UNKNOWN, frame);
+    ReadWriteIOUtils.write(device, frame);
+    ReadWriteIOUtils.write(measurement, frame);
+    ReadWriteIOUtils.write(state.time, frame);
+    if (state.isKnown()) {
+      writeValue(state.value);
+    }
+  }
+
+  private void writeDeviceBound(String device, long bound) throws IOException {
+    ReadWriteIOUtils.write(DEVICE_BOUND, frame);
+    ReadWriteIOUtils.write(device, frame);
+    ReadWriteIOUtils.write(bound, frame);
+  }
+
+  private void writeValue(TsPrimitiveType value) throws IOException {
+    ReadWriteIOUtils.write(value.getDataType(), frame);
+    switch (value.getDataType()) {
+      case BOOLEAN:
+        ReadWriteIOUtils.write(value.getBoolean(), frame);
+        break;
+      case INT32:
+        ReadWriteIOUtils.write(value.getInt(), frame);
+        break;
+      case INT64:
+        ReadWriteIOUtils.write(value.getLong(), frame);
+        break;
+      case FLOAT:
+        ReadWriteIOUtils.write(value.getFloat(), frame);
+        break;
+      case DOUBLE:
+        ReadWriteIOUtils.write(value.getDouble(), frame);
+        break;
+      case TEXT:
+        ReadWriteIOUtils.write(value.getBinary(), frame);
+        break;
+      default:
+        throw new UnsupportedOperationException("Unsupported data type " + value.getDataType());
+    }
+  }
+
+  private static TsPrimitiveType readValue(ByteBuffer buffer) {
+    TSDataType dataType = ReadWriteIOUtils.readDataType(buffer);
+    switch (dataType) {
+      case BOOLEAN:
+        return TsPrimitiveType.getByType(dataType, ReadWriteIOUtils.readBool(buffer));
+      case INT32:
+        return TsPrimitiveType.getByType(dataType, ReadWriteIOUtils.readInt(buffer));
+      case INT64:
+        return TsPrimitiveType.getByType(dataType, ReadWriteIOUtils.readLong(buffer));
+      case FLOAT:
+        return TsPrimitiveType.getByType(dataType, ReadWriteIOUtils.readFloat(buffer));
+      case DOUBLE:
+        return TsPrimitiveType.getByType(dataType, ReadWriteIOUtils.readDouble(buffer));
+      case TEXT:
+        return TsPrimitiveType.getByType(dataType, ReadWriteIOUtils.readBinary(buffer));
+      default:
+        throw new UnsupportedOperationException("Unsupported data type " + dataType);
+    }
+  }
+
+  /** Append the records of the current change to the log, and compact the log if it is large. */
+  private void commit() {
+    if (frame.size() == 0) {
+      return;
+    }
+    evictDevices();
+    if (broken) {
+      frame.reset();
+      return;
+    }
+    try {
+      writeFrame(logChannel);
+      logChannel.force(false);
+      if (logChannel.size() > Math.max(MIN_LOG_SIZE_TO_COMPACT, snapshotSize)) {
+        compact();
+      }
+    } catch (IOException e) {
+      fail(e);
+    }
+  }
+
+  /** Write the whole state into a new snapshot, and then empty the log. */
+  private void compact() throws IOException {
+    File tempFile = new File(snapshotFile.getPath() + TEMP_SUFFIX);
+    try (FileChannel channel =
+        FileChannel.open(
+            tempFile.toPath(),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      for (Map.Entry<String, DeviceState> deviceEntry : devices.entrySet()) {
+        String device = deviceEntry.getKey();
+        DeviceState deviceState = deviceEntry.getValue();
+        if (deviceState.bound != Long.MIN_VALUE) {
+          writeDeviceBound(device, deviceState.bound);
+        }
+        for (Map.Entry<String, SeriesState> seriesEntry : deviceState.seriesStates.entrySet()) {
+          writeSeries(device, seriesEntry.getKey(), seriesEntry.getValue());
+        }
+        writeFrame(channel);
+      }
+      channel.force(true);
+      snapshotSize = channel.size();
+    }
+    // replaying the old log on the new snapshot is harmless if we crash before truncating it
+    Files.move(
+        tempFile.toPath(),
+        snapshotFile.toPath(),
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    logChannel.truncate(0);
+    logChannel.position(0);
+    logChannel.force(false);
+  }
+
+  private void writeFrame(FileChannel channel) throws IOException {
+    int length = frame.size();
+    if (length == 0) {
+      return;
+    }
+    CRC32 crc32 = new CRC32();
+    crc32.update(frame.getBuf(), 0, length);
+    ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + length + Long.BYTES);
+    buffer.putInt(length);
+    buffer.put(frame.getBuf(), 0, length);
+    buffer.putLong(crc32.getValue());
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    frame.reset();
+  }
+
+  /** @return the length of the valid frames at the beginning of the file */
+  private long replay(File file) throws IOException {
+    long validLength = 0L;
+    long fileLength = file.length();
+    try (DataInputStream inputStream =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      while (true) {
+        byte[] payload;
+        long checksum;
+        try {
+          int length = inputStream.readInt();
+          if (length <= 0 || length > fileLength - validLength) {
+            break;
+          }
+          payload = new byte[length];
+          inputStream.readFully(payload);
+          checksum = inputStream.readLong();
+        } catch (EOFException e) {
+          break;
+        }
+        CRC32 crc32 = new CRC32();
+        crc32.update(payload);
+        if (crc32.getValue() != checksum) {
+          break;
+        }
+        replayFrame(ByteBuffer.wrap(payload), file);
+        validLength += Integer.BYTES + payload.length + Long.BYTES;
+      }
+    }
+    return validLength;
+  }
+
+  private void replayFrame(ByteBuffer buffer, File file) throws IOException {
+    try {
+      while (buffer.hasRemaining()) {
+        byte type = ReadWriteIOUtils.readByte(buffer);
+        String device = ReadWriteIOUtils.readString(buffer);
+        switch (type) {
+          case SERIES_KNOWN:
+            String measurement = ReadWriteIOUtils.readString(buffer);
+            long time = ReadWriteIOUtils.readLong(buffer);
+            putSeriesState(device, measurement, new SeriesState(time, readValue(buffer)));
+            break;
+          case SERIES_UNKNOWN:
+            measurement = ReadWriteIOUtils.readString(buffer);
+            long bound = ReadWriteIOUtils.readLong(buffer);
+            putSeriesState(device, measurement, new SeriesState(bound, null));
+            break;
+          case SERIES_REMOVED:
+            removeSeriesState(device, ReadWriteIOUtils.readString(buffer));
+            break;
+          case DEVICE_BOUND:
+            applyDeviceBound(device, ReadWriteIOUtils.readLong(buffer));
+            break;
+          default:
+            throw new IOException("Unknown record type " + type + " in " + file);
+        }
+      }
+    } catch (BufferUnderflowException | UnsupportedOperationException e) {
+      throw new IOException("Corrupted record in " + file, e);
+    }
+  }
+
+  /**
+   * Stop persisting and delete the files, so that a restart does not load a checkpoint which has
+   * missed some changes.
+   */
+  private void fail(IOException e) {
+    logger.error(
+        "Cannot persist the last cache into {}, stop persisting it", logFile.getParentFile(), e);
+    broken = true;
+    frame.reset();
+    close();
+    deleteFiles(logFile.getParentFile());
+  }
+
+  private static class DeviceState {
+    /** the series without a known last point have no point at or after the bound */
+    private long bound = Long.MIN_VALUE;
+
+    private final Map<String, SeriesState> seriesStates = new HashMap<>();
+  }
+
+  private static class SeriesState {
+    /** the time of the last point if the value is known, otherwise the bound */
+    private final long time;
+
+    private final TsPrimitiveType value;
+
+    private SeriesState(long time, TsPrimitiveType value) {
+      this.time = time;
+      this.value = value;
+    }
+
+    private boolean isKnown() {
+      return value != null;
+    }
+  }
+}
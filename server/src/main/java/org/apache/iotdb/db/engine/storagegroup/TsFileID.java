@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import org.apache.iotdb.tsfile.utils.FilePathUtils;
+import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.utils.RamUsageEstimator;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TsFileID identifies a TsFile with its directory (storage group, data region and time partition)
+ * and the versions in its name. It is used in the cache keys instead of the file path, so that the
+ * keys are small and cheap to hash and compare. The directory is resolved to an interned {@link
+ * Dir} with a numeric id when the TsFileID is created, which is done once per TsFileResource, and
+ * the keys only compare numbers. A directory is only interned while a TsFileID refers to it, so the
+ * directories of the deleted data regions and time partitions are released with their TsFiles.
+ */
+public class TsFileID {
+
+  public static final long INSTANCE_SIZE = RamUsageEstimator.shallowSizeOfInstance(TsFileID.class);
+
+  // the prefix path, e.g., "root.sg1/0/0"
+  private final Dir dir;
+  private final long fileVersion;
+  // high 32 bit is compaction level, low 32 bit is merge count
+  private final long compactionVersion;
+
+  private TsFileID(Dir dir, long fileVersion, long compactionVersion) {
+    this.dir = dir;
+    this.fileVersion = fileVersion;
+    this.compactionVersion = compactionVersion;
+  }
+
+  public static TsFileID of(String tsFilePrefixPath, long fileVersion, long compactionVersion) {
+    return new TsFileID(Dir.of(tsFilePrefixPath), fileVersion, compactionVersion);
+  }
+
+  public static TsFileID of(String tsFilePath) {
+    Pair<String, long[]> tsFilePrefixPathAndTsFileVersionPair =
+        FilePathUtils.getTsFilePrefixPathAndTsFileVersionPair(tsFilePath);
+    return of(
+        tsFilePrefixPathAndTsFileVersionPair.left,
+        tsFilePrefixPathAndTsFileVersionPair.right[0],
+        tsFilePrefixPathAndTsFileVersionPair.right[1]);
+  }
+
+  public String getTsFilePrefixPath() {
+    return dir.path;
+  }
+
+  public long getFileVersion() {
+    return fileVersion;
+  }
+
+  public long getCompactionVersion() {
+    return compactionVersion;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    TsFileID that = (TsFileID) o;
+    return fileVersion == that.fileVersion
+        && compactionVersion == that.compactionVersion
+        && dir.id == that.dir.id;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = Long.hashCode(dir.id);
+    result = 31 * result + Long.hashCode(fileVersion);
+    result = 31 * result + Long.hashCode(compactionVersion);
+    return result;
+  }
+
+  /** @return the memory used by this TsFileID, the prefix path is shared by those of its dir */
+  public long ramBytesUsed() {
+    return INSTANCE_SIZE;
+  }
+
+  @Override
+  public String toString() {
+    return getTsFilePrefixPath() + "/" + fileVersion + "-" + compactionVersion;
+  }
+
+  /** The prefix path of the TsFiles, interned with an id while any TsFileID refers to it. */
+  private static final class Dir {
+
+    private static final Cache<String, Dir> DIRS = Caffeine.newBuilder().weakValues().build();
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    private final long id;
+    private final String path;
+
+    private Dir(long id, String path) {
+      this.id = id;
+      this.path = path;
+    }
+
+    private static Dir of(String path) {
+      return DIRS.get(path, p -> new Dir(NEXT_ID.getAndIncrement(), p));
+    }
+  }
+}
@@ -65,6 +65,7 @@ import org.apache.iotdb.db.wal.node.IWALNode;
 import org.apache.iotdb.db.wal.utils.listener.WALFlushListener;
 import org.apache.iotdb.rpc.RpcUtils;
 import org.apache.iotdb.rpc.TSStatusCode;
+import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetadata;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.IChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -163,6 +164,9 @@ public class TsFileProcessor {
   /** flush file listener */
   private List<FlushListener> flushListeners = new ArrayList<>();
 
+  /** the last cache checkpoint of the data region, null if the last cache is not persisted */
+  private LastCacheCheckpoint lastCacheCheckpoint;
+
   /** used to collct this TsFile for sync */
   private TsFileSyncManager tsFileSyncManager = TsFileSyncManager.getInstance();
 
@@ -1214,11 +1218,13 @@ public class TsFileProcessor {
   @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
   public void flushOneMemTable() {
     IMemTable memTableToFlush = flushingMemTables.getFirst();
+    int firstFlushedChunkGroupIndex = 0;
 
     // signal memtable only may appear when calling asyncClose()
     if (!memTableToFlush.isSignalMemTable()) {
       try {
         writer.mark();
+        firstFlushedChunkGroupIndex = writer.getChunkGroupMetadataList().size();
         MemTableFlushTask flushTask =
             new MemTableFlushTask(memTableToFlush, writer, storageGroupName);
         flushTask.syncFlushMemTable();
@@ -1285,6 +1291,9 @@ public class TsFileProcessor {
 
     try {
       flushQueryLock.writeLock().lock();
+      if (lastCacheCheckpoint != null && !memTableToFlush.isSignalMemTable()) {
+        updateLastCacheCheckpoint(firstFlushedChunkGroupIndex);
+      }
       Iterator<Pair<Modification, IMemTable>> iterator = modsToMemtable.iterator();
       while (iterator.hasNext()) {
         Pair<Modification, IMemTable> entry = iterator.next();
@@ -1551,6 +1560,29 @@ public class TsFileProcessor {
     this.timeRangeId = timeRangeId;
   }
 
+  public void setLastCacheCheckpoint(LastCacheCheckpoint lastCacheCheckpoint) {
+    this.lastCacheCheckpoint = lastCacheCheckpoint;
+  }
+
+  /**
+   * Merge the chunks written by the flush into the last cache checkpoint. Must be called under the
+   * write lock of flushQueryLock, so that a deletion either is in modsToMemtable or reaches the
+   * checkpoint after the flush.
+   */
+  private void updateLastCacheCheckpoint(int firstFlushedChunkGroupIndex) {
+    List<ChunkGroupMetadata> chunkGroupMetadataList = writer.getChunkGroupMetadataList();
+    // all the deletions waiting for a flushing memtable happen after this memtable is frozen
+    List<Deletion> pendingDeletions = new ArrayList<>();
+    for (Pair<Modification, IMemTable> entry : modsToMemtable) {
+      if (entry.left instanceof Deletion) {
+        pendingDeletions.add((Deletion) entry.left);
+      }
+    }
+    lastCacheCheckpoint.mergeFlushedChunks(
+        chunkGroupMetadataList.subList(firstFlushedChunkGroupIndex, chunkGroupMetadataList.size()),
+        pendingDeletions);
+  }
+
   /** release resource of a memtable */
   public void putMemTableBackAndClose() throws TsFileProcessorException {
     if (workMemTable != null) {
@@ -129,6 +129,9 @@ public class TsFileResource {
 
   private long version = 0;
 
+  /** numeric id of the file used in the cache keys, lazily built from the file path */
+  private volatile TsFileID tsFileID;
+
   private long ramSize;
 
   private volatile long tsFileSize = -1L;
@@ -368,6 +371,7 @@ public class TsFileResource {
 
   public void setFile(File file) {
     this.file = file;
+    this.tsFileID = null;
   }
 
   public File getTsFile() {
@@ -378,6 +382,15 @@ public class TsFileResource {
     return file.getPath();
   }
 
+  public TsFileID getTsFileID() {
+    TsFileID id = tsFileID;
+    if (id == null) {
+      id = TsFileID.of(file.getPath());
+      tsFileID = id;
+    }
+    return id;
+  }
+
   public long getTsFileSize() {
     if (isClosed()) {
       if (tsFileSize == -1) {
@@ -68,6 +68,7 @@ import org.apache.iotdb.db.metadata.template.TemplateManager;
 import org.apache.iotdb.db.metadata.utils.MetaUtils;
 import org.apache.iotdb.db.mpp.common.schematree.PathPatternTree;
 import org.apache.iotdb.db.mpp.plan.constant.DataNodeEndPoints;
+import org.apache.iotdb.db.mpp.plan.execution.cache.AnalyzedPlanCache;
 import org.apache.iotdb.db.mpp.plan.statement.sys.AuthorStatement;
 import org.apache.iotdb.db.qp.logical.sys.AuthorOperator;
 import org.apache.iotdb.db.qp.physical.sys.ActivateTemplatePlan;
@@ -262,6 +263,7 @@ public class LocalConfigNode {
     if (!config.isEnableMemControl()) {
       MemTableManager.getInstance().addOrDeleteStorageGroup(1);
     }
+    AnalyzedPlanCache.getInstance().invalidateAll();
   }
 
   public void deleteStorageGroup(PartialPath storageGroup) throws MetadataException {
@@ -808,6 +810,7 @@ public class LocalConfigNode {
     } catch (StorageGroupAlreadySetException e) {
       throw new MetadataException("Template should not be set above storageGroup");
     }
+    AnalyzedPlanCache.getInstance().invalidateAll();
   }
 
   public synchronized void unsetSchemaTemplate(UnsetTemplatePlan plan) throws MetadataException {
@@ -817,6 +820,7 @@ public class LocalConfigNode {
     } catch (StorageGroupNotSetException e) {
       throw new PathNotExistException(plan.getPrefixPath());
     }
+    AnalyzedPlanCache.getInstance().invalidateAll();
   }
 
   public void setUsingSchemaTemplate(ActivateTemplatePlan plan) throws MetadataException {
@@ -830,6 +834,7 @@ public class LocalConfigNode {
           String.format(
               "Path [%s] has not been set any template.", plan.getPrefixPath().toString()));
     }
+    AnalyzedPlanCache.getInstance().invalidateAll();
   }
 
   // endregion
@@ -872,6 +877,7 @@ public class LocalConfigNode {
     if (dataRegionId == null) {
       dataPartitionTable.setDataPartitionInfo(storageGroup);
       dataRegionId = dataPartitionTable.getDataRegionId(storageGroup, path);
+      AnalyzedPlanCache.getInstance().invalidateAll();
     }
     DataRegion dataRegion = storageEngine.getDataRegion(dataRegionId);
     if (dataRegion == null) {
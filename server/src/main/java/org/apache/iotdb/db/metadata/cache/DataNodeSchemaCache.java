@@ -24,6 +24,7 @@ import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.metadata.path.MeasurementPath;
 import org.apache.iotdb.db.mpp.common.schematree.SchemaTree;
+import org.apache.iotdb.db.mpp.plan.execution.cache.AnalyzedPlanCache;
 import org.apache.iotdb.db.service.metrics.MetricsService;
 import org.apache.iotdb.db.service.metrics.enums.Metric;
 import org.apache.iotdb.db.service.metrics.enums.Tag;
@@ -35,6 +36,8 @@ import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * This class takes the responsibility of metadata cache management of all DataRegions under
  * StorageEngine
@@ -45,8 +48,20 @@ public class DataNodeSchemaCache {
 
   private final Cache<PartialPath, SchemaCacheEntry> cache;
 
+  /**
+   * last values recovered from the persisted last cache, which are moved into the cache when their
+   * series are cached. They are bounded by the size of the cache, and the values of the series not
+   * cached for a configured time are dropped.
+   */
+  private final Cache<PartialPath, TimeValuePair> recoveredLastCache;
+
   private DataNodeSchemaCache() {
     cache = Caffeine.newBuilder().maximumSize(config.getDataNodeSchemaCacheSize()).build();
+    recoveredLastCache =
+        Caffeine.newBuilder()
+            .maximumSize(config.getDataNodeSchemaCacheSize())
+            .expireAfterWrite(config.getRecoveredLastCacheExpireTimeInMs(), TimeUnit.MILLISECONDS)
+            .build();
     if (MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric()) {
       // add metrics
       MetricsService.getInstance()
@@ -101,10 +116,29 @@ public class DataNodeSchemaCache {
           new SchemaCacheEntry(
               (MeasurementSchema) measurementPath.getMeasurementSchema(),
               measurementPath.isUnderAlignedEntity());
-      cache.put(new PartialPath(measurementPath.getNodes()), schemaCacheEntry);
+      PartialPath path = new PartialPath(measurementPath.getNodes());
+      cache.put(path, schemaCacheEntry);
+      // taken after the entry is cached, so that a value written meanwhile is either applied to
+      // the entry, which the older recovered value does not replace, or has dropped it
+      TimeValuePair recoveredLast = takeRecoveredLastCache(path);
+      if (recoveredLast != null) {
+        DataNodeLastCacheManager.updateLastCache(
+            schemaCacheEntry, recoveredLast, false, Long.MIN_VALUE);
+      }
     }
   }
 
+  /** Keep a recovered last value until its series is cached. */
+  public void putRecoveredLastCache(PartialPath seriesPath, TimeValuePair timeValuePair) {
+    recoveredLastCache.put(seriesPath, timeValuePair);
+  }
+
+  private TimeValuePair takeRecoveredLastCache(PartialPath seriesPath) {
+    return recoveredLastCache.estimatedSize() == 0
+        ? null
+        : recoveredLastCache.asMap().remove(seriesPath);
+  }
+
   public TimeValuePair getLastCache(PartialPath seriesPath) {
     SchemaCacheEntry entry = cache.getIfPresent(seriesPath);
     if (null == entry) {
@@ -121,7 +155,13 @@ public class DataNodeSchemaCache {
       Long latestFlushedTime) {
     SchemaCacheEntry entry = cache.getIfPresent(seriesPath);
     if (null == entry) {
-      return;
+      // the recovered value is older than the written one, so it must not be cached later
+      takeRecoveredLastCache(seriesPath);
+      // the series may have been cached meanwhile, with or without the recovered value
+      entry = cache.getIfPresent(seriesPath);
+      if (null == entry) {
+        return;
+      }
     }
 
     DataNodeLastCacheManager.updateLastCache(
@@ -129,6 +169,7 @@ public class DataNodeSchemaCache {
   }
 
   public void resetLastCache(PartialPath seriesPath) {
+    takeRecoveredLastCache(seriesPath);
     SchemaCacheEntry entry = cache.getIfPresent(seriesPath);
     if (null == entry) {
       return;
@@ -146,6 +187,7 @@ public class DataNodeSchemaCache {
   public void invalidate(PartialPath partialPath) {
     resetLastCache(partialPath);
     cache.invalidate(partialPath);
+    AnalyzedPlanCache.getInstance().invalidateAll();
   }
 
   public long estimatedSize() {
@@ -153,7 +195,9 @@ public class DataNodeSchemaCache {
   }
 
   public void cleanUp() {
+    recoveredLastCache.invalidateAll();
     cache.invalidateAll();
     cache.cleanUp();
+    AnalyzedPlanCache.getInstance().invalidateAll();
   }
 }
@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.aggregation;
+
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * GroupByHash assigns a dense group id, starting from 0, to each distinct combination of the group
+ * key columns. It is an open-addressing hash table with linear probing, the keys of the groups are
+ * stored column by column in primitive arrays, i.e., the values of BOOLEAN, INT32, INT64, FLOAT and
+ * DOUBLE are all stored as long bits, so that no object is allocated per row. Null is treated as a
+ * key value, and all the null values of a column fall into the same group.
+ */
+public class GroupByHash {
+
+  private static final int EMPTY_BUCKET = -1;
+  private static final int DEFAULT_CAPACITY = 1024;
+  private static final long NULL_HASH = 0x9E3779B97F4A7C15L;
+
+  private final TSDataType[] keyTypes;
+
+  // the key values of the groups, indexed by [keyColumnIndex][groupId]
+  private final long[][] longKeys;
+  private final Binary[][] binaryKeys;
+  private final boolean[][] nullKeys;
+  private long[] groupHashes;
+  private int groupCapacity;
+  private int groupCount;
+  private long binaryKeySizeInBytes;
+
+  // group id of each bucket, EMPTY_BUCKET if the bucket is not used
+  private int[] buckets;
+  private int mask;
+
+  public GroupByHash(List<TSDataType> keyTypes) {
+    this.keyTypes = keyTypes.toArray(new TSDataType[0]);
+    this.longKeys = new long[this.keyTypes.length][];
+    this.binaryKeys = new Binary[this.keyTypes.length][];
+    this.nullKeys = new boolean[this.keyTypes.length][];
+    init();
+  }
+
+  private void init() {
+    groupCapacity = DEFAULT_CAPACITY;
+    groupCount = 0;
+    binaryKeySizeInBytes = 0;
+    groupHashes = new long[groupCapacity];
+    for (int i = 0; i < keyTypes.length; i++) {
+      if (keyTypes[i] == TSDataType.TEXT) {
+        binaryKeys[i] = new Binary[groupCapacity];
+      } else {
+        longKeys[i] = new long[groupCapacity];
+      }
+      nullKeys[i] = new boolean[groupCapacity];
+    }
+    // keep the load factor under 0.5
+    buckets = new int[groupCapacity * 2];
+    Arrays.fill(buckets, EMPTY_BUCKET);
+    mask = buckets.length - 1;
+  }
+
+  /**
+   * Get the group id of each row, the new groups are added to the table.
+   *
+   * @param keyColumns the group key columns, in the same order as the key types
+   * @return the group ids of the first positionCount rows
+   */
+  public int[] getGroupIds(Column[] keyColumns, int positionCount) {
+    int[] groupIds = new int[positionCount];
+    for (int position = 0; position < positionCount; position++) {
+      groupIds[position] = putIfAbsent(keyColumns, position);
+    }
+    return groupIds;
+  }
+
+  private int putIfAbsent(Column[] keyColumns, int position) {
+    long hash = hash(keyColumns, position);
+    int bucket = (int) mix(hash) & mask;
+    while (buckets[bucket] != EMPTY_BUCKET) {
+      int groupId = buckets[bucket];
+      if (groupHashes[groupId] == hash && keyEquals(groupId, keyColumns, position)) {
+        return groupId;
+      }
+      bucket = (bucket + 1) & mask;
+    }
+    int groupId = addGroup(keyColumns, position, hash);
+    buckets[bucket] = groupId;
+    if (groupCount == groupCapacity) {
+      grow();
+    }
+    return groupId;
+  }
+
+  private long hash(Column[] keyColumns, int position) {
+    long hash = 0;
+    for (int i = 0; i < keyTypes.length; i++) {
+      long valueHash;
+      if (keyColumns[i].isNull(position)) {
+        valueHash = NULL_HASH;
+      } else if (keyTypes[i] == TSDataType.TEXT) {
+        valueHash = keyColumns[i].getBinary(position).hashCode();
+      } else {
+        valueHash = mix(toLongBits(keyTypes[i], keyColumns[i], position));
+      }
+      hash = hash * 31 + valueHash;
+    }
+    return hash;
+  }
+
+  private boolean keyEquals(int groupId, Column[] keyColumns, int position) {
+    for (int i = 0; i < keyTypes.length; i++) {
+      boolean isNull = keyColumns[i].isNull(position);
+      if (isNull != nullKeys[i][groupId]) {
+        return false;
+      }
+      if (isNull) {
+        continue;
+      }
+      if (keyTypes[i] == TSDataType.TEXT) {
+        if (!binaryKeys[i][groupId].equals(keyColumns[i].getBinary(position))) {
+          return false;
+        }
+      } else if (longKeys[i][groupId] != toLongBits(keyTypes[i], keyColumns[i], position)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int addGroup(Column[] keyColumns, int position, long hash) {
+    int groupId = groupCount++;
+    groupHashes[groupId] = hash;
+    for (int i = 0; i < keyTypes.length; i++) {
+      if (keyColumns[i].isNull(position)) {
+        nullKeys[i][groupId] = true;
+      } else if (keyTypes[i] == TSDataType.TEXT) {
+        Binary value = keyColumns[i].getBinary(position);
+        binaryKeys[i][groupId] = value;
+        binaryKeySizeInBytes += value.getLength();
+      } else {
+        longKeys[i][groupId] = toLongBits(keyTypes[i], keyColumns[i], position);
+      }
+    }
+    return groupId;
+  }
+
+  private void grow() {
+    groupCapacity *= 2;
+    groupHashes = Arrays.copyOf(groupHashes, groupCapacity);
+    for (int i = 0; i < keyTypes.length; i++) {
+      if (keyTypes[i] == TSDataType.TEXT) {
+        binaryKeys[i] = Arrays.copyOf(binaryKeys[i], groupCapacity);
+      } else {
+        longKeys[i] = Arrays.copyOf(longKeys[i], groupCapacity);
+      }
+      nullKeys[i] = Arrays.copyOf(nullKeys[i], groupCapacity);
+    }
+    buckets = new int[groupCapacity * 2];
+    Arrays.fill(buckets, EMPTY_BUCKET);
+    mask = buckets.length - 1;
+    for (int groupId = 0; groupId < groupCount; groupId++) {
+      int bucket = (int) mix(groupHashes[groupId]) & mask;
+      while (buckets[bucket] != EMPTY_BUCKET) {
+        bucket = (bucket + 1) & mask;
+      }
+      buckets[bucket] = groupId;
+    }
+  }
+
+  /** Append the key values of the group to the column builders, one builder per key column. */
+  public void appendKeys(int groupId, ColumnBuilder[] columnBuilders) {
+    for (int i = 0; i < keyTypes.length; i++) {
+      ColumnBuilder columnBuilder = columnBuilders[i];
+      if (nullKeys[i][groupId]) {
+        columnBuilder.appendNull();
+        continue;
+      }
+      long bits = keyTypes[i] == TSDataType.TEXT ? 0 : longKeys[i][groupId];
+      switch (keyTypes[i]) {
+        case BOOLEAN:
+          columnBuilder.writeBoolean(bits != 0);
+          break;
+        case INT32:
+          columnBuilder.writeInt((int) bits);
+          break;
+        case INT64:
+          columnBuilder.writeLong(bits);
+          break;
+        case FLOAT:
+          columnBuilder.writeFloat(Float.intBitsToFloat((int) bits));
+          break;
+        case DOUBLE:
+          columnBuilder.writeDouble(Double.longBitsToDouble(bits));
+          break;
+        case TEXT:
+          columnBuilder.writeBinary(binaryKeys[i][groupId]);
+          break;
+        default:
+          throw new UnsupportedOperationException("Unsupported data type: " + keyTypes[i]);
+      }
+    }
+  }
+
+  /** The hash of the group keys, it is the same for the same keys in different tables. */
+  public long getGroupHash(int groupId) {
+    return groupHashes[groupId];
+  }
+
+  public int getGroupCount() {
+    return groupCount;
+  }
+
+  public long getEstimatedSizeInBytes() {
+    // bucket + hash + long key and null flag (or reference to Binary) of each key column
+    return (long) buckets.length * Integer.BYTES
+        + (long) groupCapacity * (Long.BYTES + keyTypes.length * (Long.BYTES + 1))
+        + binaryKeySizeInBytes;
+  }
+
+  /** Remove all the groups, the group ids will be assigned from 0 again. */
+  public void reset() {
+    init();
+  }
+
+  private static long toLongBits(TSDataType dataType, Column column, int position) {
+    switch (dataType) {
+      case BOOLEAN:
+        return column.getBoolean(position) ? 1 : 0;
+      case INT32:
+        return column.getInt(position);
+      case INT64:
+        return column.getLong(position);
+      case FLOAT:
+        return Float.floatToIntBits(column.getFloat(position));
+      case DOUBLE:
+        return Double.doubleToLongBits(column.getDouble(position));
+      default:
+        throw new UnsupportedOperationException("Unsupported data type: " + dataType);
+    }
+  }
+
+  /** The finalizer of MurmurHash3, which spreads the bits of the hash. */
+  private static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
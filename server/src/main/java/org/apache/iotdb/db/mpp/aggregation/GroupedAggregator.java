@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.aggregation;
+
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.AggregationStep;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.InputLocation;
+import org.apache.iotdb.db.query.aggregation.AggregationType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * GroupedAggregator keeps one {@link Accumulator} for each group of a {@link GroupByHash}, the
+ * accumulators are created lazily by {@link AccumulatorFactory} when new group ids appear.
+ */
+public class GroupedAggregator {
+
+  /** rough size of an accumulator and its reference */
+  private static final long ACCUMULATOR_SIZE = 64L;
+
+  // the rows of one group are not in a time window
+  private static final TimeRange ALL_TIME = new TimeRange(Long.MIN_VALUE, Long.MAX_VALUE);
+
+  private final AggregationType aggregationType;
+  private final TSDataType inputDataType;
+  private final boolean ascending;
+  private final AggregationStep step;
+  private final List<InputLocation[]> inputLocationList;
+
+  private final List<Accumulator> accumulators = new ArrayList<>();
+  private final TSDataType[] intermediateType;
+  private final TSDataType finalType;
+
+  public GroupedAggregator(
+      AggregationType aggregationType,
+      TSDataType inputDataType,
+      boolean ascending,
+      AggregationStep step,
+      List<InputLocation[]> inputLocationList) {
+    checkArgument(!step.isInputFinal(), "GroupedAggregator can only process raw or partial input");
+    this.aggregationType = aggregationType;
+    this.inputDataType = inputDataType;
+    this.ascending = ascending;
+    this.step = step;
+    this.inputLocationList = inputLocationList;
+    Accumulator accumulator = createAccumulator();
+    this.intermediateType = accumulator.getIntermediateType();
+    this.finalType = accumulator.getFinalType();
+  }
+
+  private Accumulator createAccumulator() {
+    return AccumulatorFactory.createAccumulator(aggregationType, inputDataType, ascending);
+  }
+
+  private void ensureCapacity(int groupCount) {
+    while (accumulators.size() < groupCount) {
+      accumulators.add(createAccumulator());
+    }
+  }
+
+  /**
+   * Process the raw rows which are sorted by group, the rows of the i-th group are in the range
+   * [groupOffsets[i], groupOffsets[i + 1]).
+   *
+   * @param tsBlock the rows sorted by group
+   * @param groupIds the group id of each range
+   * @param groupOffsets the start offset of each range, with the end offset at last
+   * @param groupCount the total number of groups in the hash table
+   */
+  public void processRawInput(TsBlock tsBlock, int[] groupIds, int[] groupOffsets, int groupCount) {
+    checkArgument(step.isInputRaw(), "Step in GroupedAggregator is not raw input");
+    ensureCapacity(groupCount);
+    for (InputLocation[] inputLocations : inputLocationList) {
+      checkArgument(
+          inputLocations[0].getTsBlockIndex() == 0,
+          "HashAggregationOperator can only process one tsBlock input.");
+      Column timeColumn = tsBlock.getTimeColumn();
+      Column valueColumn = tsBlock.getColumn(inputLocations[0].getValueColumnIndex());
+      for (int i = 0; i < groupIds.length; i++) {
+        int offset = groupOffsets[i];
+        int length = groupOffsets[i + 1] - offset;
+        accumulators
+            .get(groupIds[i])
+            .addInput(
+                new Column[] {
+                  timeColumn.getRegion(offset, length), valueColumn.getRegion(offset, length)
+                },
+                ALL_TIME);
+      }
+    }
+  }
+
+  /** Process the partial results of the input, each row belongs to the group of groupIds. */
+  public void processIntermediateInput(TsBlock tsBlock, int[] groupIds, int groupCount) {
+    checkArgument(step.isInputPartial(), "Step in GroupedAggregator is not partial input");
+    for (InputLocation[] inputLocations : inputLocationList) {
+      Column[] columns = new Column[inputLocations.length];
+      for (int i = 0; i < inputLocations.length; i++) {
+        checkArgument(
+            inputLocations[i].getTsBlockIndex() == 0,
+            "HashAggregationOperator can only process one tsBlock input.");
+        columns[i] = tsBlock.getColumn(inputLocations[i].getValueColumnIndex());
+      }
+      addIntermediate(columns, groupIds, groupCount);
+    }
+  }
+
+  /**
+   * Merge the partial results, the partial result of each row is added to the group of groupIds. It
+   * is also used to merge the spilled partial results no matter what the step is.
+   */
+  public void addIntermediate(Column[] partialColumns, int[] groupIds, int groupCount) {
+    ensureCapacity(groupCount);
+    Column[] partialResult = new Column[partialColumns.length];
+    for (int position = 0; position < groupIds.length; position++) {
+      for (int i = 0; i < partialColumns.length; i++) {
+        partialResult[i] = partialColumns[i].getRegion(position, 1);
+      }
+      accumulators.get(groupIds[position]).addIntermediate(partialResult);
+    }
+  }
+
+  public void outputResult(int groupId, ColumnBuilder[] columnBuilders) {
+    if (step.isOutputPartial()) {
+      outputIntermediate(groupId, columnBuilders);
+    } else {
+      getAccumulator(groupId).outputFinal(columnBuilders[0]);
+    }
+  }
+
+  public void outputIntermediate(int groupId, ColumnBuilder[] columnBuilders) {
+    getAccumulator(groupId).outputIntermediate(columnBuilders);
+  }
+
+  private Accumulator getAccumulator(int groupId) {
+    // the group may have no input of this aggregation yet
+    ensureCapacity(groupId + 1);
+    return accumulators.get(groupId);
+  }
+
+  public AggregationStep getStep() {
+    return step;
+  }
+
+  public TSDataType[] getOutputType() {
+    return step.isOutputPartial() ? intermediateType : new TSDataType[] {finalType};
+  }
+
+  public TSDataType[] getIntermediateType() {
+    return intermediateType;
+  }
+
+  public long getEstimatedSizeInBytes() {
+    return accumulators.size() * ACCUMULATOR_SIZE;
+  }
+
+  /** Remove the accumulators of all the groups. */
+  public void reset() {
+    accumulators.clear();
+  }
+}
@@ -20,6 +20,10 @@ package org.apache.iotdb.db.mpp.common;
 
 import org.apache.iotdb.common.rpc.thrift.TEndPoint;
 import org.apache.iotdb.db.mpp.plan.analyze.QueryType;
+import org.apache.iotdb.db.mpp.plan.execution.cache.AnalyzedPlanCache.AnalyzedPlan;
+
+import java.util.Collections;
+import java.util.List;
 
 /**
  * This class is used to record the context of a query including QueryId, query statement, session
@@ -35,6 +39,13 @@ public class MPPQueryContext {
   private TEndPoint localInternalEndpoint;
   private ResultNodeContext resultNodeContext;
 
+  // the key of this query in the AnalyzedPlanCache, null if its plan is not cached
+  private String planCacheKey;
+  // the values bound to the prepared statement of this query, empty if it is not prepared
+  private List<String> planCacheParameters = Collections.emptyList();
+  // the plan found in the AnalyzedPlanCache, null if the query is to be analyzed
+  private AnalyzedPlan cachedPlan;
+
   public MPPQueryContext(QueryId queryId) {
     this.queryId = queryId;
   }
@@ -57,6 +68,10 @@ public class MPPQueryContext {
     return queryId;
   }
 
+  public SessionInfo getSession() {
+    return session;
+  }
+
   public QueryType getQueryType() {
     return queryType;
   }
@@ -76,4 +91,28 @@ public class MPPQueryContext {
   public TEndPoint getLocalInternalEndpoint() {
     return localInternalEndpoint;
   }
+
+  public String getPlanCacheKey() {
+    return planCacheKey;
+  }
+
+  public void setPlanCacheKey(String planCacheKey) {
+    this.planCacheKey = planCacheKey;
+  }
+
+  public List<String> getPlanCacheParameters() {
+    return planCacheParameters;
+  }
+
+  public void setPlanCacheParameters(List<String> planCacheParameters) {
+    this.planCacheParameters = planCacheParameters;
+  }
+
+  public AnalyzedPlan getCachedPlan() {
+    return cachedPlan;
+  }
+
+  public void setCachedPlan(AnalyzedPlan cachedPlan) {
+    this.cachedPlan = cachedPlan;
+  }
 }
@@ -53,6 +53,15 @@ public class QueryId {
     return new PlanNodeId(String.format("%d", nextPlanNodeIndex++));
   }
 
+  public int getNextPlanNodeIndex() {
+    return nextPlanNodeIndex;
+  }
+
+  /** Skip the ids taken by a plan node tree reused from another query, e.g., a cached plan. */
+  public void skipPlanNodeIndexTo(int planNodeIndex) {
+    nextPlanNodeIndex = Math.max(nextPlanNodeIndex, planNodeIndex);
+  }
+
   public PlanFragmentId genPlanFragmentId() {
     return new PlanFragmentId(this, nextPlanFragmentIndex++);
   }
@@ -23,4 +23,19 @@ import java.time.ZoneId;
 public class SessionInfo {
   private String userName;
   private ZoneId zoneId;
+
+  public SessionInfo() {}
+
+  public SessionInfo(String userName, ZoneId zoneId) {
+    this.userName = userName;
+    this.zoneId = zoneId;
+  }
+
+  public String getUserName() {
+    return userName;
+  }
+
+  public ZoneId getZoneId() {
+    return zoneId;
+  }
 }
@@ -48,6 +48,15 @@ public class DatasetHeader {
     this.isIgnoreTimestamp = isIgnoreTimestamp;
   }
 
+  /** Copy the header, whose map to the output tsBlock indexes can be set separately. */
+  public DatasetHeader copy() {
+    DatasetHeader copy = new DatasetHeader(columnHeaders, isIgnoreTimestamp);
+    if (columnToTsBlockIndexMap != null) {
+      copy.columnToTsBlockIndexMap = new HashMap<>(columnToTsBlockIndexMap);
+    }
+    return copy;
+  }
+
   public List<ColumnHeader> getColumnHeaders() {
     return columnHeaders;
   }
@@ -22,6 +22,7 @@ package org.apache.iotdb.db.mpp.execution.datatransfer;
 import org.apache.iotdb.common.rpc.thrift.TEndPoint;
 import org.apache.iotdb.commons.client.IClientManager;
 import org.apache.iotdb.commons.client.sync.SyncDataNodeDataBlockServiceClient;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceContext;
 import org.apache.iotdb.db.mpp.execution.memory.LocalMemoryManager;
 import org.apache.iotdb.mpp.rpc.thrift.DataBlockService;
@@ -92,14 +93,25 @@ public class DataBlockManager implements IDataBlockManager {
         }
         TGetDataBlockResponse resp = new TGetDataBlockResponse();
         SinkHandle sinkHandle = (SinkHandle) sinkHandles.get(req.getSourceFragmentInstanceId());
+        if (tsBlockCompressor.isCompressed()) {
+          resp.setCompressionType(tsBlockCompressor.getCompressionType().serialize());
+        }
+        long serializedBytes = 0L;
+        long sentBytes = 0L;
         for (int i = req.getStartSequenceId(); i < req.getEndSequenceId(); i++) {
           try {
             ByteBuffer serializedTsBlock = sinkHandle.getSerializedTsBlock(i);
+            serializedBytes += serializedTsBlock.remaining();
+            if (tsBlockCompressor.isCompressed()) {
+              serializedTsBlock = tsBlockCompressor.compress(serializedTsBlock);
+            }
+            sentBytes += serializedTsBlock.remaining();
             resp.addToTsBlocks(serializedTsBlock);
           } catch (IOException e) {
             throw new TException(e);
           }
         }
+        sinkHandle.recordSentBytes(serializedBytes, sentBytes);
         return resp;
       }
     }
@@ -289,6 +301,9 @@ public class DataBlockManager implements IDataBlockManager {
       dataBlockServiceClientManager;
   private final Map<TFragmentInstanceId, Map<String, ISourceHandle>> sourceHandles;
   private final Map<TFragmentInstanceId, ISinkHandle> sinkHandles;
+  private final TsBlockCompressor tsBlockCompressor =
+      new TsBlockCompressor(
+          IoTDBDescriptor.getInstance().getConfig().getDataBlockCompressionType());
 
   private DataBlockServiceImpl dataBlockService;
 
@@ -305,6 +320,10 @@ public class DataBlockManager implements IDataBlockManager {
     sinkHandles = new ConcurrentHashMap<>();
   }
 
+  public LocalMemoryManager getLocalMemoryManager() {
+    return localMemoryManager;
+  }
+
   public DataBlockServiceImpl getOrCreateDataBlockServiceImpl() {
     if (dataBlockService == null) {
       dataBlockService = new DataBlockServiceImpl();
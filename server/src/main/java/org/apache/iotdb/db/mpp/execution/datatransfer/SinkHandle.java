@@ -25,6 +25,7 @@ import org.apache.iotdb.commons.client.sync.SyncDataNodeDataBlockServiceClient;
 import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.db.mpp.execution.datatransfer.DataBlockManager.SinkHandleListener;
 import org.apache.iotdb.db.mpp.execution.memory.LocalMemoryManager;
+import org.apache.iotdb.db.service.metrics.recorder.DataExchangeMetricsRecorder;
 import org.apache.iotdb.mpp.rpc.thrift.TEndOfDataBlockEvent;
 import org.apache.iotdb.mpp.rpc.thrift.TFragmentInstanceId;
 import org.apache.iotdb.mpp.rpc.thrift.TNewDataBlockEvent;
@@ -45,9 +46,11 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static com.google.common.util.concurrent.Futures.nonCancellationPropagating;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static org.apache.iotdb.db.mpp.execution.datatransfer.DataBlockManager.createFullIdFrom;
 
 public class SinkHandle implements ISinkHandle {
@@ -84,6 +87,18 @@ public class SinkHandle implements ISinkHandle {
   private boolean aborted = false;
   private boolean noMoreTsBlocks = false;
 
+  /**
+   * Whether a NewDataBlockEvent is being sent. The data blocks sent meanwhile are notified in one
+   * event after it.
+   */
+  private boolean sendingNewDataBlockEvent = false;
+  /** The sequence ID of the first data block not notified to the downstream yet. */
+  private int nextSequenceIdToNotify = 0;
+
+  private final AtomicLong serializedBytes = new AtomicLong();
+  private final AtomicLong sentBytes = new AtomicLong();
+  private final AtomicLong blockedTimeInMs = new AtomicLong();
+
   public SinkHandle(
       TEndPoint remoteEndpoint,
       TFragmentInstanceId remoteFragmentInstanceId,
@@ -115,8 +130,18 @@ public class SinkHandle implements ISinkHandle {
     return nonCancellationPropagating(blocked);
   }
 
-  private void submitSendNewDataBlockEventTask(int startSequenceId, List<Long> blockSizes) {
-    executorService.submit(new SendNewDataBlockEventTask(startSequenceId, blockSizes));
+  /** Notify the data blocks not notified yet unless a NewDataBlockEvent is being sent. */
+  private synchronized void trySubmitSendNewDataBlockEventTask() {
+    if (aborted || sendingNewDataBlockEvent || nextSequenceIdToNotify == nextSequenceId) {
+      return;
+    }
+    List<Long> blockSizes = new ArrayList<>(nextSequenceId - nextSequenceIdToNotify);
+    for (int i = nextSequenceIdToNotify; i < nextSequenceId; i++) {
+      blockSizes.add(sequenceIdToTsBlock.get(i).getRetainedSizeInBytes());
+    }
+    sendingNewDataBlockEvent = true;
+    executorService.submit(new SendNewDataBlockEventTask(nextSequenceIdToNotify, blockSizes));
+    nextSequenceIdToNotify = nextSequenceId;
   }
 
   @Override
@@ -135,9 +160,6 @@ public class SinkHandle implements ISinkHandle {
     for (TsBlock tsBlock : tsBlocks) {
       retainedSizeInBytes += tsBlock.getRetainedSizeInBytes();
     }
-    int startSequenceId;
-    List<Long> tsBlockSizes = new ArrayList<>();
-    startSequenceId = nextSequenceId;
     blocked =
         localMemoryManager
             .getQueryPool()
@@ -147,12 +169,19 @@ public class SinkHandle implements ISinkHandle {
       sequenceIdToTsBlock.put(nextSequenceId, tsBlock);
       nextSequenceId += 1;
     }
-    for (int i = startSequenceId; i < nextSequenceId; i++) {
-      tsBlockSizes.add(sequenceIdToTsBlock.get(i).getRetainedSizeInBytes());
+    if (!blocked.isDone()) {
+      // the listener may be run while the memory pool is locked, so it must not lock this handle
+      long blockedStartTime = System.currentTimeMillis();
+      blocked.addListener(
+          () -> {
+            long blockedTime = System.currentTimeMillis() - blockedStartTime;
+            blockedTimeInMs.addAndGet(blockedTime);
+            DataExchangeMetricsRecorder.recordSinkBlockedTime(blockedTime);
+          },
+          directExecutor());
     }
 
-    // TODO: consider merge multiple NewDataBlockEvent for less network traffic.
-    submitSendNewDataBlockEventTask(startSequenceId, tsBlockSizes);
+    trySubmitSendNewDataBlockEventTask();
   }
 
   @Override
@@ -199,6 +228,7 @@ public class SinkHandle implements ISinkHandle {
     logger.info("set noMoreTsBlocks to true");
     noMoreTsBlocks = true;
     if (isFinished()) {
+      logger.info("SinkHandle finished, {}", getExchangeSummary());
       logger.info("revoke onFinish() of sinkHandleListener");
       sinkHandleListener.onFinish(this);
     }
@@ -219,7 +249,7 @@ public class SinkHandle implements ISinkHandle {
       bufferRetainedSizeInBytes = 0;
     }
     sinkHandleListener.onAborted(this);
-    logger.info("SinkHandle is aborted");
+    logger.info("SinkHandle is aborted, {}", getExchangeSummary());
   }
 
   @Override
@@ -275,11 +305,25 @@ public class SinkHandle implements ISinkHandle {
       }
     }
     if (isFinished()) {
+      logger.info("SinkHandle finished, {}", getExchangeSummary());
       sinkHandleListener.onFinish(this);
     }
     localMemoryManager.getQueryPool().free(localFragmentInstanceId.getQueryId(), freedBytes);
   }
 
+  /** Record the bytes of the data blocks sent to the downstream, before and after compression. */
+  void recordSentBytes(long serializedBytes, long sentBytes) {
+    this.serializedBytes.addAndGet(serializedBytes);
+    this.sentBytes.addAndGet(sentBytes);
+    DataExchangeMetricsRecorder.recordSentBytes(serializedBytes, sentBytes);
+  }
+
+  private String getExchangeSummary() {
+    return String.format(
+        "serialized bytes: %d, sent bytes: %d, blocked time: %dms",
+        serializedBytes.get(), sentBytes.get(), blockedTimeInMs.get());
+  }
+
   public TEndPoint getRemoteEndpoint() {
     return remoteEndpoint;
   }
@@ -363,6 +407,11 @@ public class SinkHandle implements ISinkHandle {
             }
           }
         }
+      } finally {
+        synchronized (SinkHandle.this) {
+          sendingNewDataBlockEvent = false;
+          trySubmitSendNewDataBlockEventTask();
+        }
       }
     }
   }
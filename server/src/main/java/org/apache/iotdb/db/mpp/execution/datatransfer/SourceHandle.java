@@ -23,12 +23,16 @@ import org.apache.iotdb.common.rpc.thrift.TEndPoint;
 import org.apache.iotdb.commons.client.IClientManager;
 import org.apache.iotdb.commons.client.sync.SyncDataNodeDataBlockServiceClient;
 import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.mpp.execution.datatransfer.DataBlockManager.SourceHandleListener;
 import org.apache.iotdb.db.mpp.execution.memory.LocalMemoryManager;
+import org.apache.iotdb.db.service.metrics.recorder.DataExchangeMetricsRecorder;
 import org.apache.iotdb.mpp.rpc.thrift.TAcknowledgeDataBlockEvent;
 import org.apache.iotdb.mpp.rpc.thrift.TFragmentInstanceId;
 import org.apache.iotdb.mpp.rpc.thrift.TGetDataBlockRequest;
 import org.apache.iotdb.mpp.rpc.thrift.TGetDataBlockResponse;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
 import org.apache.iotdb.tsfile.read.common.block.column.TsBlockSerde;
 
@@ -81,6 +85,15 @@ public class SourceHandle implements ISourceHandle {
   /** The actual buffered memory in bytes, including the amount of memory being reserved. */
   private long bufferRetainedSizeInBytes = 0L;
 
+  /**
+   * The max bytes buffered by this handle, which is the credit granted to the upstream. Computed
+   * lazily from the per query memory budget. See {@link #getMaxBufferedBytes()}.
+   */
+  private long maxBufferedBytes = -1L;
+
+  private long receivedBytes = 0L;
+  private long blockedOnMemoryTimeInMs = 0L;
+
   private int currSequenceId = 0;
   private int nextSequenceId = 0;
   private int lastSequenceId = Integer.MAX_VALUE;
@@ -137,6 +150,10 @@ public class SourceHandle implements ISourceHandle {
         blocked = SettableFuture.create();
       }
       if (isFinished()) {
+        logger.info(
+            "SourceHandle finished, received bytes: {}, blocked on memory time: {}ms",
+            receivedBytes,
+            blockedOnMemoryTimeInMs);
         sourceHandleListener.onFinished(this);
       }
       trySubmitGetDataBlocksTask();
@@ -162,6 +179,11 @@ public class SourceHandle implements ISourceHandle {
         if (bytesToReserve == null) {
           throw new IllegalStateException("Data block size is null.");
         }
+        if (bufferRetainedSizeInBytes > 0L
+            && bufferRetainedSizeInBytes + bytesToReserve > getMaxBufferedBytes()) {
+          // Out of credit. The rest of blocks will be fetched after some blocks are received.
+          break;
+        }
         future =
             localMemoryManager
                 .getQueryPool()
@@ -183,6 +205,16 @@ public class SourceHandle implements ISourceHandle {
       executorService.submit(new GetDataBlocksTask(startSequenceId, endSequenceId, reservedBytes));
       if (!future.isDone()) {
         blockedOnMemory = future;
+        long blockedStartTime = System.currentTimeMillis();
+        future.addListener(
+            () -> {
+              long blockedTime = System.currentTimeMillis() - blockedStartTime;
+              DataExchangeMetricsRecorder.recordSourceBlockedTime(blockedTime);
+              synchronized (SourceHandle.this) {
+                blockedOnMemoryTimeInMs += blockedTime;
+              }
+            },
+            executorService);
         // The future being not completed indicates,
         //   1. Memory has been reserved for blocks in [startSequenceId, endSequenceId).
         //   2. Memory reservation for block whose sequence ID equals endSequenceId - 1 is blocked.
@@ -212,6 +244,10 @@ public class SourceHandle implements ISourceHandle {
       blocked.set(null);
     }
     if (isFinished()) {
+      logger.info(
+          "SourceHandle finished, received bytes: {}, blocked on memory time: {}ms",
+          receivedBytes,
+          blockedOnMemoryTimeInMs);
       sourceHandleListener.onFinished(this);
     }
   }
@@ -300,6 +336,21 @@ public class SourceHandle implements ISourceHandle {
         localPlanNodeId);
   }
 
+  /**
+   * The max bytes buffered by this handle, which is a proportion of the max memory of a query. A
+   * non-positive result means there is no limit other than the memory pool itself.
+   */
+  private long getMaxBufferedBytes() {
+    if (maxBufferedBytes < 0L) {
+      long maxBytes =
+          (long)
+              (localMemoryManager.getQueryPool().getMaxBytesPerQuery()
+                  * IoTDBDescriptor.getInstance().getConfig().getDataBlockMaxBufferProportion());
+      maxBufferedBytes = maxBytes > 0L ? maxBytes : Long.MAX_VALUE;
+    }
+    return maxBufferedBytes;
+  }
+
   @TestOnly
   public void setRetryIntervalInMs(long retryIntervalInMs) {
     this.retryIntervalInMs = retryIntervalInMs;
@@ -340,18 +391,30 @@ public class SourceHandle implements ISourceHandle {
           try (SyncDataNodeDataBlockServiceClient client =
               dataBlockServiceClientManager.borrowClient(remoteEndpoint)) {
             TGetDataBlockResponse resp = client.getDataBlock(req);
+            IUnCompressor unCompressor =
+                resp.isSetCompressionType()
+                    ? IUnCompressor.getUnCompressor(
+                        CompressionType.deserialize(resp.getCompressionType()))
+                    : null;
             List<TsBlock> tsBlocks = new ArrayList<>(resp.getTsBlocks().size());
+            long bytes = 0L;
             for (ByteBuffer byteBuffer : resp.getTsBlocks()) {
+              bytes += byteBuffer.remaining();
+              if (unCompressor != null) {
+                byteBuffer = TsBlockCompressor.uncompress(byteBuffer, unCompressor);
+              }
               TsBlock tsBlock = serde.deserialize(byteBuffer);
               tsBlocks.add(tsBlock);
             }
-            logger.info("got data blocks. count: {}", tsBlocks.size());
+            logger.info("got data blocks. count: {}, bytes: {}", tsBlocks.size(), bytes);
+            DataExchangeMetricsRecorder.recordReceivedBytes(bytes);
             executorService.submit(
                 new SendAcknowledgeDataBlockEventTask(startSequenceId, endSequenceId));
             synchronized (SourceHandle.this) {
               if (aborted) {
                 return;
               }
+              receivedBytes += bytes;
               for (int i = startSequenceId; i < endSequenceId; i++) {
                 sequenceIdToTsBlock.put(i, tsBlocks.get(i - startSequenceId));
               }
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.datatransfer;
+
+import org.apache.iotdb.tsfile.compress.ICompressor;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compresses the serialized TsBlocks sent to the other data nodes. A compressed TsBlock is the size
+ * of the serialized TsBlock followed by the compressed bytes.
+ */
+public class TsBlockCompressor {
+
+  private final ICompressor compressor;
+
+  public TsBlockCompressor(CompressionType compressionType) {
+    this.compressor = ICompressor.getCompressor(compressionType);
+  }
+
+  public CompressionType getCompressionType() {
+    return compressor.getType();
+  }
+
+  public boolean isCompressed() {
+    return compressor.getType() != CompressionType.UNCOMPRESSED;
+  }
+
+  public ByteBuffer compress(ByteBuffer serializedTsBlock) throws IOException {
+    byte[] serialized = new byte[serializedTsBlock.remaining()];
+    serializedTsBlock.duplicate().get(serialized);
+    byte[] compressed = compressor.compress(serialized);
+    ByteBuffer compressedTsBlock = ByteBuffer.allocate(Integer.BYTES + compressed.length);
+    compressedTsBlock.putInt(serialized.length);
+    compressedTsBlock.put(compressed);
+    compressedTsBlock.flip();
+    return compressedTsBlock;
+  }
+
+  public static ByteBuffer uncompress(ByteBuffer compressedTsBlock, IUnCompressor unCompressor)
+      throws IOException {
+    ByteBuffer buffer = compressedTsBlock.duplicate();
+    byte[] serialized = new byte[buffer.getInt()];
+    byte[] compressed = new byte[buffer.remaining()];
+    buffer.get(compressed);
+    unCompressor.uncompress(compressed, 0, compressed.length, serialized, 0);
+    return ByteBuffer.wrap(serialized);
+  }
+}
@@ -21,6 +21,7 @@ package org.apache.iotdb.db.mpp.execution.fragment;
 import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
 import org.apache.iotdb.db.mpp.execution.driver.DriverContext;
 import org.apache.iotdb.db.mpp.execution.operator.OperatorContext;
+import org.apache.iotdb.db.mpp.execution.spill.SpillContext;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
 import org.apache.iotdb.db.query.context.QueryContext;
 
@@ -48,6 +49,8 @@ public class FragmentInstanceContext extends QueryContext {
 
   private final FragmentInstanceStateMachine stateMachine;
 
+  private final SpillContext spillContext;
+
   private final long createNanos = System.nanoTime();
 
   private final AtomicLong startNanos = new AtomicLong();
@@ -76,6 +79,7 @@ public class FragmentInstanceContext extends QueryContext {
       FragmentInstanceId id, FragmentInstanceStateMachine stateMachine) {
     this.id = id;
     this.stateMachine = stateMachine;
+    this.spillContext = new SpillContext(id);
     this.executionEndTime.set(END_TIME_INITIAL_VALUE);
   }
 
@@ -110,6 +114,8 @@ public class FragmentInstanceContext extends QueryContext {
       // were a duplicate notification, which shouldn't happen
       executionEndTime.compareAndSet(END_TIME_INITIAL_VALUE, now);
       endNanos.compareAndSet(0, System.nanoTime());
+
+      spillContext.report();
     }
   }
 
@@ -138,6 +144,10 @@ public class FragmentInstanceContext extends QueryContext {
     return id;
   }
 
+  public SpillContext getSpillContext() {
+    return spillContext;
+  }
+
   public DriverContext getDriverContext() {
     return driverContext;
   }
@@ -20,11 +20,14 @@ package org.apache.iotdb.db.mpp.execution.fragment;
 
 import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.commons.concurrent.threadpool.ScheduledExecutorUtil;
+import org.apache.iotdb.db.engine.cache.DecodedPageCache;
 import org.apache.iotdb.db.engine.storagegroup.DataRegion;
 import org.apache.iotdb.db.metadata.schemaregion.ISchemaRegion;
 import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
+import org.apache.iotdb.db.mpp.execution.datatransfer.DataBlockService;
 import org.apache.iotdb.db.mpp.execution.driver.DataDriver;
 import org.apache.iotdb.db.mpp.execution.driver.SchemaDriver;
+import org.apache.iotdb.db.mpp.execution.memory.LocalMemoryManager;
 import org.apache.iotdb.db.mpp.execution.schedule.DriverScheduler;
 import org.apache.iotdb.db.mpp.execution.schedule.IDriverScheduler;
 import org.apache.iotdb.db.mpp.plan.planner.LocalExecutionPlanner;
@@ -54,6 +57,8 @@ public class FragmentInstanceManager {
   private final Map<FragmentInstanceId, FragmentInstanceExecution> instanceExecution;
   private final LocalExecutionPlanner planner = LocalExecutionPlanner.getInstance();
   private final IDriverScheduler scheduler = DriverScheduler.getInstance();
+  private final LocalMemoryManager localMemoryManager =
+      DataBlockService.getInstance().getDataBlockManager().getLocalMemoryManager();
 
   private final ScheduledExecutorService instanceManagementExecutor;
   private final ExecutorService instanceNotificationExecutor;
@@ -98,6 +103,10 @@ public class FragmentInstanceManager {
                         instanceId,
                         fragmentInstanceId ->
                             createFragmentInstanceContext(fragmentInstanceId, stateMachine));
+                // the large scans should not flush out the hot pages of the decoded page cache
+                context.setBypassDecodedPageCache(
+                    DecodedPageCache.isLargeScan(instance.getTimeFilter()));
+                registerResourceGroup(instance, stateMachine);
 
                 try {
                   DataDriver driver =
@@ -108,7 +117,13 @@ public class FragmentInstanceManager {
                           instance.getTimeFilter(),
                           dataRegion);
                   return createFragmentInstanceExecution(
-                      scheduler, instanceId, context, driver, stateMachine, failedInstances);
+                      scheduler,
+                      instanceId,
+                      context,
+                      driver,
+                      stateMachine,
+                      failedInstances,
+                      instance.getResourceGroup());
                 } catch (Throwable t) {
                   logger.error("error when create FragmentInstanceExecution.", t);
                   stateMachine.failed(t);
@@ -135,12 +150,19 @@ public class FragmentInstanceManager {
                       instanceId,
                       fragmentInstanceId ->
                           createFragmentInstanceContext(fragmentInstanceId, stateMachine));
+              registerResourceGroup(instance, stateMachine);
 
               try {
                 SchemaDriver driver =
                     planner.plan(instance.getFragment().getRoot(), context, schemaRegion);
                 return createFragmentInstanceExecution(
-                    scheduler, instanceId, context, driver, stateMachine, failedInstances);
+                    scheduler,
+                    instanceId,
+                    context,
+                    driver,
+                    stateMachine,
+                    failedInstances,
+                    instance.getResourceGroup());
               } catch (Throwable t) {
                 logger.error("Execute error caused by ", t);
                 stateMachine.failed(t);
@@ -150,6 +172,22 @@ public class FragmentInstanceManager {
     return execution != null ? execution.getInstanceInfo() : createFailedInstanceInfo(instanceId);
   }
 
+  /**
+   * Limit the memory of the query by its resource group until the instance is done. It should be
+   * called before the instance is planned, as the operators may reserve memory when created.
+   */
+  private void registerResourceGroup(
+      FragmentInstance instance, FragmentInstanceStateMachine stateMachine) {
+    String queryId = instance.getId().getQueryId().getId();
+    localMemoryManager.registerQuery(queryId, instance.getResourceGroup());
+    stateMachine.addStateChangeListener(
+        state -> {
+          if (state.isDone()) {
+            localMemoryManager.deregisterQuery(queryId);
+          }
+        });
+  }
+
   /** Aborts a FragmentInstance. */
   public FragmentInstanceInfo abortFragmentInstance(FragmentInstanceId fragmentInstanceId) {
     FragmentInstanceExecution execution = instanceExecution.remove(fragmentInstanceId);
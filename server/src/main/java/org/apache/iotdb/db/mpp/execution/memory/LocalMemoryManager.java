@@ -20,14 +20,26 @@
 package org.apache.iotdb.db.mpp.execution.memory;
 
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.mpp.execution.resourcegroup.ResourceGroup;
+import org.apache.iotdb.db.mpp.execution.resourcegroup.ResourceGroupManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Manages memory of a data node. The memory is divided into two memory pools so that the memory for
- * read and for write can be isolated.
+ * read and for write can be isolated. The memory for read used by the queries of each resource
+ * group is limited by the memory proportion of the group.
  */
 public class LocalMemoryManager {
 
   private final MemoryPool queryPool;
+  // resource group name -> memory group
+  private final Map<String, MemoryPool.MemoryGroup> memoryGroups;
+  // query id -> number of the registered fragment instances of the query
+  private final ConcurrentMap<String, Integer> registeredQueries;
 
   public LocalMemoryManager() {
     queryPool =
@@ -35,9 +47,51 @@ public class LocalMemoryManager {
             "query",
             IoTDBDescriptor.getInstance().getConfig().getAllocateMemoryForRead(),
             (long) (IoTDBDescriptor.getInstance().getConfig().getAllocateMemoryForRead() * 0.5));
+    memoryGroups = new HashMap<>();
+    for (ResourceGroup group : ResourceGroupManager.getInstance().getGroups()) {
+      memoryGroups.put(
+          group.getName(),
+          new MemoryPool.MemoryGroup(
+              group.getName(),
+              Math.max(1L, (long) (queryPool.getMaxBytes() * group.getMemoryProportion()))));
+    }
+    registeredQueries = new ConcurrentHashMap<>();
   }
 
   public MemoryPool getQueryPool() {
     return queryPool;
   }
+
+  public MemoryPool.MemoryGroup getMemoryGroup(String resourceGroup) {
+    return memoryGroups.get(ResourceGroupManager.getInstance().getGroup(resourceGroup).getName());
+  }
+
+  /**
+   * Register a fragment instance of the query before it reserves any memory, so that the memory of
+   * the query is limited by its resource group until all its registered instances are deregistered.
+   */
+  public void registerQuery(String queryId, String resourceGroup) {
+    MemoryPool.MemoryGroup memoryGroup = getMemoryGroup(resourceGroup);
+    registeredQueries.compute(
+        queryId,
+        (id, count) -> {
+          if (count == null) {
+            queryPool.setQueryGroup(id, memoryGroup);
+            return 1;
+          }
+          return count + 1;
+        });
+  }
+
+  public void deregisterQuery(String queryId) {
+    registeredQueries.computeIfPresent(
+        queryId,
+        (id, count) -> {
+          if (count == 1) {
+            queryPool.removeQueryGroup(id);
+            return null;
+          }
+          return count - 1;
+        });
+  }
 }
@@ -26,13 +26,19 @@ import org.apache.commons.lang3.Validate;
 
 import javax.annotation.Nullable;
 
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-/** A thread-safe memory pool. */
+/**
+ * A thread-safe memory pool. It takes no global lock: the reserved bytes of the pool and of each
+ * query are updated by CAS, and the blocked reservations are completed by whichever thread frees
+ * memory, one thread at a time.
+ */
 public class MemoryPool {
 
   public static class MemoryReservationFuture<V> extends AbstractFuture<V> {
@@ -63,13 +69,119 @@ public class MemoryPool {
     }
   }
 
+  /**
+   * The memory reserved by a group of queries, e.g. the queries of a resource group, whose total is
+   * limited by the max bytes of the group.
+   */
+  public static class MemoryGroup {
+    private final String name;
+    private final long maxBytes;
+    private final AtomicLong reservedBytes = new AtomicLong();
+
+    public MemoryGroup(String name, long maxBytes) {
+      this.name = Validate.notNull(name);
+      Validate.isTrue(maxBytes > 0L, "max bytes should be greater than zero.");
+      this.maxBytes = maxBytes;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public long getMaxBytes() {
+      return maxBytes;
+    }
+
+    public long getReservedBytes() {
+      return reservedBytes.get();
+    }
+
+    private boolean tryReserve(long bytes) {
+      while (true) {
+        long current = reservedBytes.get();
+        if (maxBytes - current < bytes) {
+          return false;
+        }
+        if (reservedBytes.compareAndSet(current, current + bytes)) {
+          return true;
+        }
+      }
+    }
+
+    private void free(long bytes) {
+      reservedBytes.addAndGet(-bytes);
+    }
+  }
+
+  /**
+   * The memory reserved by a query. Once its reserved bytes drop to zero, it is retired and removed
+   * from the pool, and the next reservation of the query creates a new one.
+   */
+  private static class QueryReservation {
+    private static final long RETIRED = -1L;
+
+    private final AtomicLong reservedBytes = new AtomicLong();
+    // the group of the query when the reservation is created, null if it has none
+    private final MemoryGroup group;
+
+    private QueryReservation(MemoryGroup group) {
+      this.group = group;
+    }
+
+    /**
+     * @return 1 if reserved, 0 if the query would exceed maxBytesPerQuery, or -1 if this
+     *     reservation is retired.
+     */
+    private int tryReserve(long bytes, long maxBytesPerQuery) {
+      while (true) {
+        long current = reservedBytes.get();
+        if (current == RETIRED) {
+          return -1;
+        }
+        if (maxBytesPerQuery - current < bytes) {
+          return 0;
+        }
+        if (reservedBytes.compareAndSet(current, current + bytes)) {
+          return 1;
+        }
+      }
+    }
+
+    /** @return the reserved bytes left. */
+    private long free(long bytes) {
+      while (true) {
+        long current = reservedBytes.get();
+        Validate.isTrue(bytes <= current);
+        if (reservedBytes.compareAndSet(current, current - bytes)) {
+          return current - bytes;
+        }
+      }
+    }
+
+    private boolean tryRetire() {
+      return reservedBytes.compareAndSet(0L, RETIRED);
+    }
+
+    private long getReservedBytes() {
+      return Math.max(reservedBytes.get(), 0L);
+    }
+  }
+
   private final String id;
   private final long maxBytes;
   private final long maxBytesPerQuery;
 
-  private long reservedBytes = 0L;
-  private final Map<String, Long> queryMemoryReservations = new HashMap<>();
-  private final Queue<MemoryReservationFuture<Void>> memoryReservationFutures = new LinkedList<>();
+  private final AtomicLong reservedBytes = new AtomicLong();
+  private final ConcurrentMap<String, QueryReservation> queryMemoryReservations =
+      new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, MemoryGroup> queryGroups = new ConcurrentHashMap<>();
+  private final Queue<MemoryReservationFuture<Void>> memoryReservationFutures =
+      new ConcurrentLinkedQueue<>();
+  /**
+   * The number of requests to complete the blocked reservations. The thread that increases it from
+   * zero completes them until no request is left, so only one thread does so at a time.
+   */
+  private final AtomicInteger pendingCompletionRequests = new AtomicInteger();
 
   public MemoryPool(String id, long maxBytes, long maxBytesPerQuery) {
     this.id = Validate.notNull(id);
@@ -89,25 +201,37 @@ public class MemoryPool {
     return maxBytes;
   }
 
+  public long getMaxBytesPerQuery() {
+    return maxBytesPerQuery;
+  }
+
+  /**
+   * Limit the memory of the query by the group together with the other queries of the group. It
+   * should be set before the query reserves any memory, and the memory it has reserved is not
+   * counted into the group.
+   */
+  public void setQueryGroup(String queryId, MemoryGroup group) {
+    queryGroups.put(Validate.notNull(queryId), Validate.notNull(group));
+  }
+
+  /** The memory reserved by the query later is no longer limited by its group. */
+  public void removeQueryGroup(String queryId) {
+    queryGroups.remove(queryId);
+  }
+
   public ListenableFuture<Void> reserve(String queryId, long bytes) {
     Validate.notNull(queryId);
     Validate.isTrue(
         bytes > 0L && bytes <= maxBytesPerQuery,
         "bytes should be greater than zero while less than or equal to max bytes per query.");
 
-    ListenableFuture<Void> result;
-    synchronized (this) {
-      if (maxBytes - reservedBytes < bytes
-          || maxBytesPerQuery - queryMemoryReservations.getOrDefault(queryId, 0L) < bytes) {
-        result = MemoryReservationFuture.create(queryId, bytes);
-        memoryReservationFutures.add((MemoryReservationFuture<Void>) result);
-      } else {
-        reservedBytes += bytes;
-        queryMemoryReservations.merge(queryId, bytes, Long::sum);
-        result = Futures.immediateFuture(null);
-      }
+    if (tryReserveInternal(queryId, bytes)) {
+      return Futures.immediateFuture(null);
     }
-
+    MemoryReservationFuture<Void> result = MemoryReservationFuture.create(queryId, bytes);
+    memoryReservationFutures.add(result);
+    // The memory may have been freed before the future is queued, so try once more.
+    tryCompleteMemoryReservationFutures();
     return result;
   }
 
@@ -117,20 +241,14 @@ public class MemoryPool {
         bytes > 0L && bytes <= maxBytesPerQuery,
         "bytes should be greater than zero while less than or equal to max bytes per query.");
 
-    if (maxBytes - reservedBytes < bytes
-        || maxBytesPerQuery - queryMemoryReservations.getOrDefault(queryId, 0L) < bytes) {
-      return false;
+    if (tryReserveInternal(queryId, bytes)) {
+      return true;
     }
-    synchronized (this) {
-      if (maxBytes - reservedBytes < bytes
-          || maxBytesPerQuery - queryMemoryReservations.getOrDefault(queryId, 0L) < bytes) {
-        return false;
-      }
-      reservedBytes += bytes;
-      queryMemoryReservations.merge(queryId, bytes, Long::sum);
+    // Another reservation may have been blocked by the bytes held for a while by this one.
+    if (!memoryReservationFutures.isEmpty()) {
+      tryCompleteMemoryReservationFutures();
     }
-
-    return true;
+    return false;
   }
 
   /**
@@ -140,7 +258,7 @@ public class MemoryPool {
    * @return If the future has not complete, return the number of bytes being reserved. Otherwise,
    *     return 0.
    */
-  public synchronized long tryCancel(ListenableFuture<Void> future) {
+  public long tryCancel(ListenableFuture<Void> future) {
     Validate.notNull(future);
     // If the future is not a MemoryReservationFuture, it must have been completed.
     if (future.isDone()) {
@@ -149,54 +267,102 @@ public class MemoryPool {
     Validate.isTrue(
         future instanceof MemoryReservationFuture,
         "invalid future type " + future.getClass().getSimpleName());
-    future.cancel(true);
-    return ((MemoryReservationFuture<Void>) future).getBytes();
+    // The future may be completed concurrently, in which case it cannot be cancelled.
+    return future.cancel(true) ? ((MemoryReservationFuture<Void>) future).getBytes() : 0L;
   }
 
-  public synchronized void free(String queryId, long bytes) {
+  public void free(String queryId, long bytes) {
     Validate.notNull(queryId);
     Validate.isTrue(bytes > 0L);
 
-    Long queryReservedBytes = queryMemoryReservations.get(queryId);
-    Validate.notNull(queryReservedBytes);
-    Validate.isTrue(bytes <= queryReservedBytes);
-
-    queryReservedBytes -= bytes;
-    if (queryReservedBytes == 0) {
-      queryMemoryReservations.remove(queryId);
-    } else {
-      queryMemoryReservations.put(queryId, queryReservedBytes);
+    QueryReservation queryReservation = queryMemoryReservations.get(queryId);
+    Validate.notNull(queryReservation);
+    MemoryGroup group = queryReservation.group;
+    freeQueryReservation(queryId, queryReservation, bytes);
+    if (group != null) {
+      group.free(bytes);
     }
-    reservedBytes -= bytes;
+    reservedBytes.addAndGet(-bytes);
 
-    if (memoryReservationFutures.isEmpty()) {
-      return;
+    if (!memoryReservationFutures.isEmpty()) {
+      tryCompleteMemoryReservationFutures();
     }
-    Iterator<MemoryReservationFuture<Void>> iterator = memoryReservationFutures.iterator();
-    while (iterator.hasNext()) {
-      MemoryReservationFuture<Void> future = iterator.next();
-      if (future.isCancelled()) {
-        continue;
+  }
+
+  public long getQueryMemoryReservedBytes(String queryId) {
+    QueryReservation queryReservation = queryMemoryReservations.get(queryId);
+    return queryReservation == null ? 0L : queryReservation.getReservedBytes();
+  }
+
+  public long getReservedBytes() {
+    return reservedBytes.get();
+  }
+
+  private boolean tryReserveInternal(String queryId, long bytes) {
+    // Reserve from the pool first, so that a query never holds bytes the pool does not have.
+    while (true) {
+      long current = reservedBytes.get();
+      if (maxBytes - current < bytes) {
+        return false;
       }
-      long bytesToReserve = future.getBytes();
-      if (maxBytes - reservedBytes < bytesToReserve) {
-        return;
+      if (reservedBytes.compareAndSet(current, current + bytes)) {
+        break;
       }
-      if (maxBytesPerQuery - queryMemoryReservations.getOrDefault(future.getQueryId(), 0L)
-          >= bytesToReserve) {
-        reservedBytes += bytesToReserve;
-        queryMemoryReservations.merge(future.getQueryId(), bytesToReserve, Long::sum);
-        future.set(null);
-        iterator.remove();
+    }
+    while (true) {
+      QueryReservation queryReservation =
+          queryMemoryReservations.computeIfAbsent(
+              queryId, k -> new QueryReservation(queryGroups.get(k)));
+      int result = queryReservation.tryReserve(bytes, maxBytesPerQuery);
+      if (result > 0) {
+        if (queryReservation.group == null || queryReservation.group.tryReserve(bytes)) {
+          return true;
+        }
+        // The group of the query is out of its quota, give the bytes back.
+        freeQueryReservation(queryId, queryReservation, bytes);
+        reservedBytes.addAndGet(-bytes);
+        return false;
       }
+      if (result == 0) {
+        reservedBytes.addAndGet(-bytes);
+        return false;
+      }
+      // Retired but not removed yet, remove it and retry.
+      queryMemoryReservations.remove(queryId, queryReservation);
     }
   }
 
-  public long getQueryMemoryReservedBytes(String queryId) {
-    return queryMemoryReservations.getOrDefault(queryId, 0L);
+  private void freeQueryReservation(String queryId, QueryReservation queryReservation, long bytes) {
+    if (queryReservation.free(bytes) == 0L && queryReservation.tryRetire()) {
+      queryMemoryReservations.remove(queryId, queryReservation);
+    }
   }
 
-  public long getReservedBytes() {
-    return reservedBytes;
+  private void tryCompleteMemoryReservationFutures() {
+    if (pendingCompletionRequests.getAndIncrement() != 0) {
+      // The thread completing the futures will do it again for this request.
+      return;
+    }
+    do {
+      Iterator<MemoryReservationFuture<Void>> iterator = memoryReservationFutures.iterator();
+      while (iterator.hasNext()) {
+        MemoryReservationFuture<Void> future = iterator.next();
+        if (future.isCancelled()) {
+          iterator.remove();
+          continue;
+        }
+        long bytesToReserve = future.getBytes();
+        if (maxBytes - reservedBytes.get() < bytesToReserve) {
+          break;
+        }
+        if (tryReserveInternal(future.getQueryId(), bytesToReserve)) {
+          iterator.remove();
+          if (!future.set(null)) {
+            // Cancelled concurrently, give the bytes back.
+            free(future.getQueryId(), bytesToReserve);
+          }
+        }
+      }
+    } while (pendingCompletionRequests.decrementAndGet() != 0);
   }
 }
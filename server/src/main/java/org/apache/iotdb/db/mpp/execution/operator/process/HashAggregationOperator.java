@@ -0,0 +1,436 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.operator.process;
+
+import org.apache.iotdb.db.mpp.aggregation.GroupByHash;
+import org.apache.iotdb.db.mpp.aggregation.GroupedAggregator;
+import org.apache.iotdb.db.mpp.execution.memory.MemoryPool;
+import org.apache.iotdb.db.mpp.execution.operator.Operator;
+import org.apache.iotdb.db.mpp.execution.operator.OperatorContext;
+import org.apache.iotdb.db.mpp.execution.spill.SpillContext;
+import org.apache.iotdb.db.mpp.execution.spill.SpillFile;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * HashAggregationOperator groups the rows of its children by the values of the group key columns,
+ * which may be tags, TEXT fields or any other value columns, and aggregates each group by the
+ * {@link GroupedAggregator}s. The children are consumed one by one and should have the same
+ * columns, which are either raw data or the partial results of the same operator in other
+ * fragments. The output is one row per group, in which the group keys are followed by the partial
+ * or final results of the aggregations. The time column of the output is always 0.
+ *
+ * <p>The groups are kept in a {@link GroupByHash} with memory reserved from the {@link MemoryPool}.
+ * When the table exceeds the max size or the pool cannot reserve more memory, the partial results
+ * of the groups are spilled to {@link SpillFile}s partitioned by the hash of the group keys, and
+ * the table is cleared. At last, the partitions are merged one by one, so the same group is never
+ * split between two partitions.
+ */
+public class HashAggregationOperator implements ProcessOperator {
+
+  private static final Logger logger = LoggerFactory.getLogger(HashAggregationOperator.class);
+
+  private static final int SPILL_PARTITION_NUM = 8;
+  private static final long OUTPUT_TIME = 0;
+
+  private final OperatorContext operatorContext;
+  private final List<Operator> children;
+  private final int[] groupKeyColumnIndexes;
+  private final List<GroupedAggregator> aggregators;
+  private final boolean inputRaw;
+  private final List<TSDataType> outputDataTypes;
+  // group keys followed by the partial results of the aggregations
+  private final List<TSDataType> spillDataTypes;
+
+  private final MemoryPool memoryPool;
+  private final String queryId;
+  private final long maxBufferSizeInBytes;
+  private final SpillContext spillContext;
+  private final String spillFilePrefix;
+
+  private final GroupByHash groupByHash;
+  private long reservedBytes = 0;
+  // reused to find the rows of the same group in one TsBlock, -1 if the group is absent
+  private int[] localGroupIndexes = new int[0];
+
+  private SpillFile[] spillFiles;
+
+  private int currentChildIndex = 0;
+  private boolean childFinished = false;
+  private int nextOutputGroupId = 0;
+  private int nextPartition = 0;
+
+  public HashAggregationOperator(
+      OperatorContext operatorContext,
+      List<Operator> children,
+      List<Integer> groupKeyColumnIndexes,
+      List<TSDataType> groupKeyDataTypes,
+      List<GroupedAggregator> aggregators,
+      MemoryPool memoryPool,
+      long maxBufferSizeInBytes,
+      String spillDir) {
+    this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+    this.children = requireNonNull(children, "children is null");
+    checkArgument(!children.isEmpty(), "children cannot be empty");
+    checkArgument(
+        groupKeyColumnIndexes.size() == groupKeyDataTypes.size(),
+        "group key column indexes and data types should have the same size");
+    checkArgument(!aggregators.isEmpty(), "aggregators cannot be empty");
+    this.groupKeyColumnIndexes = groupKeyColumnIndexes.stream().mapToInt(i -> i).toArray();
+    this.aggregators = aggregators;
+    this.inputRaw = aggregators.get(0).getStep().isInputRaw();
+    for (GroupedAggregator aggregator : aggregators) {
+      checkArgument(
+          aggregator.getStep().isInputRaw() == inputRaw,
+          "the aggregators should have the same input type");
+    }
+    this.outputDataTypes = new ArrayList<>(groupKeyDataTypes);
+    this.spillDataTypes = new ArrayList<>(groupKeyDataTypes);
+    for (GroupedAggregator aggregator : aggregators) {
+      outputDataTypes.addAll(Arrays.asList(aggregator.getOutputType()));
+      spillDataTypes.addAll(Arrays.asList(aggregator.getIntermediateType()));
+    }
+    this.groupByHash = new GroupByHash(groupKeyDataTypes);
+    this.memoryPool = requireNonNull(memoryPool, "memoryPool is null");
+    this.queryId = operatorContext.getInstanceContext().getId().getQueryId().getId();
+    this.maxBufferSizeInBytes = maxBufferSizeInBytes;
+    this.spillContext = operatorContext.getInstanceContext().getSpillContext();
+    this.spillFilePrefix =
+        spillDir
+            + File.separator
+            + operatorContext.getInstanceContext().getId().getFullId()
+            + "-"
+            + operatorContext.getOperatorId()
+            + "-hash-aggregation-";
+  }
+
+  @Override
+  public OperatorContext getOperatorContext() {
+    return operatorContext;
+  }
+
+  @Override
+  public ListenableFuture<Void> isBlocked() {
+    return childFinished ? NOT_BLOCKED : children.get(currentChildIndex).isBlocked();
+  }
+
+  @Override
+  public TsBlock next() {
+    try {
+      if (!childFinished) {
+        Operator child = children.get(currentChildIndex);
+        if (child.hasNext()) {
+          TsBlock tsBlock = child.next();
+          if (tsBlock != null && !tsBlock.isEmpty()) {
+            addInput(tsBlock);
+          }
+          return null;
+        }
+        if (++currentChildIndex < children.size()) {
+          return null;
+        }
+        childFinished = true;
+        if (spillFiles != null) {
+          // the rest groups are spilled too, so that each partition is merged as a whole
+          spill();
+        } else {
+          // no more partition to merge
+          nextPartition = SPILL_PARTITION_NUM;
+        }
+      }
+      if (nextOutputGroupId >= groupByHash.getGroupCount()) {
+        if (nextPartition >= SPILL_PARTITION_NUM) {
+          return null;
+        }
+        mergePartition(nextPartition++);
+      }
+      return buildOutput();
+    } catch (IOException e) {
+      throw new RuntimeException("Error happened while aggregating the groups", e);
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    return !childFinished
+        || nextOutputGroupId < groupByHash.getGroupCount()
+        || nextPartition < SPILL_PARTITION_NUM;
+  }
+
+  @Override
+  public boolean isFinished() {
+    return !hasNext();
+  }
+
+  @Override
+  public void close() throws Exception {
+    clearTable();
+    if (spillFiles != null) {
+      for (SpillFile file : spillFiles) {
+        file.close();
+      }
+      spillFiles = null;
+    }
+    for (Operator child : children) {
+      child.close();
+    }
+  }
+
+  private void addInput(TsBlock tsBlock) throws IOException {
+    int positionCount = tsBlock.getPositionCount();
+    Column[] keyColumns = new Column[groupKeyColumnIndexes.length];
+    for (int i = 0; i < groupKeyColumnIndexes.length; i++) {
+      keyColumns[i] = tsBlock.getColumn(groupKeyColumnIndexes[i]);
+    }
+    int[] groupIds = groupByHash.getGroupIds(keyColumns, positionCount);
+    int groupCount = groupByHash.getGroupCount();
+    if (inputRaw) {
+      addRawInput(tsBlock, groupIds, groupCount);
+    } else {
+      for (GroupedAggregator aggregator : aggregators) {
+        aggregator.processIntermediateInput(tsBlock, groupIds, groupCount);
+      }
+    }
+    if (!reserveTable()) {
+      spill();
+    }
+  }
+
+  /**
+   * The raw rows are sorted by group with a counting sort, so that the accumulator of each group
+   * consumes its rows as a region of the columns in one call.
+   */
+  private void addRawInput(TsBlock tsBlock, int[] groupIds, int groupCount) {
+    int positionCount = tsBlock.getPositionCount();
+    if (localGroupIndexes.length < groupCount) {
+      int oldLength = localGroupIndexes.length;
+      localGroupIndexes = Arrays.copyOf(localGroupIndexes, Math.max(groupCount, oldLength * 2));
+      Arrays.fill(localGroupIndexes, oldLength, localGroupIndexes.length, -1);
+    }
+    int[] distinctGroupIds = new int[positionCount];
+    int[] rowLocalIndexes = new int[positionCount];
+    int[] groupOffsets = new int[positionCount + 1];
+    int distinctGroupCount = 0;
+    boolean sorted = true;
+    for (int position = 0; position < positionCount; position++) {
+      int groupId = groupIds[position];
+      int localIndex = localGroupIndexes[groupId];
+      if (localIndex < 0) {
+        localIndex = distinctGroupCount++;
+        localGroupIndexes[groupId] = localIndex;
+        distinctGroupIds[localIndex] = groupId;
+      }
+      if (position > 0 && localIndex < rowLocalIndexes[position - 1]) {
+        sorted = false;
+      }
+      rowLocalIndexes[position] = localIndex;
+      groupOffsets[localIndex + 1]++;
+    }
+    for (int i = 0; i < distinctGroupCount; i++) {
+      localGroupIndexes[distinctGroupIds[i]] = -1;
+      groupOffsets[i + 1] += groupOffsets[i];
+    }
+
+    TsBlock sortedTsBlock = tsBlock;
+    if (!sorted) {
+      int[] positions = new int[positionCount];
+      int[] nextIndexes = Arrays.copyOf(groupOffsets, distinctGroupCount);
+      for (int position = 0; position < positionCount; position++) {
+        positions[nextIndexes[rowLocalIndexes[position]]++] = position;
+      }
+      sortedTsBlock = gather(tsBlock, positions);
+    }
+    int[] rangeGroupIds = Arrays.copyOf(distinctGroupIds, distinctGroupCount);
+    int[] rangeOffsets = Arrays.copyOf(groupOffsets, distinctGroupCount + 1);
+    for (GroupedAggregator aggregator : aggregators) {
+      aggregator.processRawInput(sortedTsBlock, rangeGroupIds, rangeOffsets, groupCount);
+    }
+  }
+
+  private TsBlock gather(TsBlock tsBlock, int[] positions) {
+    List<TSDataType> dataTypes = new ArrayList<>(tsBlock.getValueColumnCount());
+    for (int i = 0; i < tsBlock.getValueColumnCount(); i++) {
+      dataTypes.add(tsBlock.getColumn(i).getDataType());
+    }
+    TsBlockBuilder builder = new TsBlockBuilder(positions.length, dataTypes);
+    for (int position : positions) {
+      builder.getTimeColumnBuilder().writeLong(tsBlock.getTimeByIndex(position));
+      for (int i = 0; i < dataTypes.size(); i++) {
+        Column column = tsBlock.getColumn(i);
+        ColumnBuilder columnBuilder = builder.getColumnBuilder(i);
+        if (column.isNull(position)) {
+          columnBuilder.appendNull();
+        } else {
+          columnBuilder.write(column, position);
+        }
+      }
+      builder.declarePosition();
+    }
+    return builder.build();
+  }
+
+  /** @return false if the memory of the table cannot be reserved, then the table should spill */
+  private boolean reserveTable() {
+    long size = groupByHash.getEstimatedSizeInBytes();
+    for (GroupedAggregator aggregator : aggregators) {
+      size += aggregator.getEstimatedSizeInBytes();
+    }
+    if (size > maxBufferSizeInBytes) {
+      return false;
+    }
+    if (size > reservedBytes) {
+      if (!memoryPool.tryReserve(queryId, size - reservedBytes)) {
+        return false;
+      }
+      reservedBytes = size;
+    }
+    return true;
+  }
+
+  private void clearTable() {
+    groupByHash.reset();
+    for (GroupedAggregator aggregator : aggregators) {
+      aggregator.reset();
+    }
+    nextOutputGroupId = 0;
+    if (reservedBytes > 0) {
+      memoryPool.free(queryId, reservedBytes);
+      reservedBytes = 0;
+    }
+  }
+
+  /** Write the group keys and the partial results to the partition files, then clear the table. */
+  private void spill() throws IOException {
+    int groupCount = groupByHash.getGroupCount();
+    if (groupCount == 0) {
+      return;
+    }
+    if (spillFiles == null) {
+      spillFiles = new SpillFile[SPILL_PARTITION_NUM];
+      for (int i = 0; i < SPILL_PARTITION_NUM; i++) {
+        spillFiles[i] = spillContext.createSpillFile(new File(spillFilePrefix + i));
+      }
+    }
+    TsBlockBuilder[] builders = new TsBlockBuilder[SPILL_PARTITION_NUM];
+    for (int groupId = 0; groupId < groupCount; groupId++) {
+      int partition =
+          (int) Math.floorMod(groupByHash.getGroupHash(groupId), (long) SPILL_PARTITION_NUM);
+      if (builders[partition] == null) {
+        builders[partition] = new TsBlockBuilder(spillDataTypes);
+      }
+      TsBlockBuilder builder = builders[partition];
+      appendGroup(builder, groupId, true);
+      if (builder.isFull()) {
+        spillFiles[partition].write(builder.build());
+        builder.reset();
+      }
+    }
+    for (int i = 0; i < SPILL_PARTITION_NUM; i++) {
+      if (builders[i] != null && !builders[i].isEmpty()) {
+        spillFiles[i].write(builders[i].build());
+      }
+    }
+    logger.debug("spill {} groups into {}*", groupCount, spillFilePrefix);
+    clearTable();
+  }
+
+  /** Load the spilled partial results of one partition into the cleared table. */
+  private void mergePartition(int partition) throws IOException {
+    clearTable();
+    SpillFile file = spillFiles[partition];
+    int keyCount = groupKeyColumnIndexes.length;
+    SpillFile.Reader reader = file.reader();
+    while (reader.hasNext()) {
+      TsBlock tsBlock = reader.next();
+      Column[] keyColumns = new Column[keyCount];
+      for (int i = 0; i < keyCount; i++) {
+        keyColumns[i] = tsBlock.getColumn(i);
+      }
+      int[] groupIds = groupByHash.getGroupIds(keyColumns, tsBlock.getPositionCount());
+      int groupCount = groupByHash.getGroupCount();
+      int columnIndex = keyCount;
+      for (GroupedAggregator aggregator : aggregators) {
+        Column[] partialColumns = new Column[aggregator.getIntermediateType().length];
+        for (int i = 0; i < partialColumns.length; i++) {
+          partialColumns[i] = tsBlock.getColumn(columnIndex++);
+        }
+        aggregator.addIntermediate(partialColumns, groupIds, groupCount);
+      }
+    }
+    file.close();
+    if (!reserveTable()) {
+      // the partition cannot be split again, go on with the memory not reserved
+      logger.warn(
+          "cannot reserve memory for {} groups of the spilled partition {}",
+          groupByHash.getGroupCount(),
+          file.getFile());
+    }
+  }
+
+  private TsBlock buildOutput() {
+    TsBlockBuilder builder = new TsBlockBuilder(outputDataTypes);
+    int groupCount = groupByHash.getGroupCount();
+    while (nextOutputGroupId < groupCount && !builder.isFull()) {
+      appendGroup(builder, nextOutputGroupId++, false);
+    }
+    if (nextOutputGroupId >= groupCount) {
+      clearTable();
+    }
+    return builder.isEmpty() ? null : builder.build();
+  }
+
+  private void appendGroup(TsBlockBuilder builder, int groupId, boolean intermediate) {
+    builder.getTimeColumnBuilder().writeLong(OUTPUT_TIME);
+    ColumnBuilder[] columnBuilders = builder.getValueColumnBuilders();
+    int keyCount = groupKeyColumnIndexes.length;
+    groupByHash.appendKeys(groupId, Arrays.copyOfRange(columnBuilders, 0, keyCount));
+    int columnIndex = keyCount;
+    for (GroupedAggregator aggregator : aggregators) {
+      int columnCount =
+          intermediate
+              ? aggregator.getIntermediateType().length
+              : aggregator.getOutputType().length;
+      ColumnBuilder[] aggregationBuilders =
+          Arrays.copyOfRange(columnBuilders, columnIndex, columnIndex + columnCount);
+      if (intermediate) {
+        aggregator.outputIntermediate(groupId, aggregationBuilders);
+      } else {
+        aggregator.outputResult(groupId, aggregationBuilders);
+      }
+      columnIndex += columnCount;
+    }
+    builder.declarePosition();
+  }
+}
@@ -18,30 +18,34 @@
  */
 package org.apache.iotdb.db.mpp.execution.operator.process;
 
+import org.apache.iotdb.db.mpp.execution.memory.MemoryPool;
 import org.apache.iotdb.db.mpp.execution.operator.Operator;
 import org.apache.iotdb.db.mpp.execution.operator.OperatorContext;
 import org.apache.iotdb.db.mpp.execution.operator.process.fill.linear.LinearFill;
+import org.apache.iotdb.db.mpp.execution.spill.SpillableTsBlockList;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
 import org.apache.iotdb.tsfile.read.common.block.column.Column;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
-import java.util.ArrayList;
+import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
-import java.util.List;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
-/** Used for linear fill */
+/**
+ * Used for linear fill. The TsBlocks cached to find the next non-null values are kept in memory
+ * reserved from the {@link MemoryPool}, and are spilled to disk beyond the max buffer size.
+ */
 public class LinearFillOperator implements ProcessOperator {
 
   private final OperatorContext operatorContext;
   private final LinearFill[] fillArray;
   private final Operator child;
   private final int outputColumnCount;
-  // TODO need to spill it to disk if it consumes too much memory
-  private final List<TsBlock> cachedTsBlock;
+  private final SpillableTsBlockList cachedTsBlock;
   // next TsBlock Index for each Column
   private final int[] nextTsBlockIndex;
 
@@ -51,15 +55,37 @@ public class LinearFillOperator implements ProcessOperator {
   // indicate whether there is more TsBlock for child operator
   private boolean noMoreTsBlock;
 
+  /** All the cached TsBlocks are kept in memory. */
   public LinearFillOperator(
       OperatorContext operatorContext, LinearFill[] fillArray, Operator child) {
+    this(operatorContext, fillArray, child, null, Long.MAX_VALUE, null);
+  }
+
+  public LinearFillOperator(
+      OperatorContext operatorContext,
+      LinearFill[] fillArray,
+      Operator child,
+      MemoryPool memoryPool,
+      long maxBufferSizeInBytes,
+      String spillDir) {
     this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
     checkArgument(
         fillArray != null && fillArray.length > 0, "fillArray should not be null or empty");
     this.fillArray = fillArray;
     this.child = requireNonNull(child, "child operator is null");
     this.outputColumnCount = fillArray.length;
-    this.cachedTsBlock = new ArrayList<>();
+    this.cachedTsBlock =
+        new SpillableTsBlockList(
+            memoryPool,
+            operatorContext.getInstanceContext().getId().getQueryId().getId(),
+            maxBufferSizeInBytes,
+            operatorContext.getInstanceContext().getSpillContext(),
+            spillDir
+                + File.separator
+                + operatorContext.getInstanceContext().getId().getFullId()
+                + "-"
+                + operatorContext.getOperatorId()
+                + "-linear-fill-");
     this.nextTsBlockIndex = new int[outputColumnCount];
     Arrays.fill(this.nextTsBlockIndex, 1);
     this.canCallNext = false;
@@ -78,7 +104,14 @@ public class LinearFillOperator implements ProcessOperator {
 
   @Override
   public TsBlock next() {
+    try {
+      return fillNext();
+    } catch (IOException e) {
+      throw new RuntimeException("Error happened while reading the cached TsBlocks", e);
+    }
+  }
 
+  private TsBlock fillNext() throws IOException {
     // make sure we call child.next() at most once
     if (cachedTsBlock.isEmpty()) {
       canCallNext = false;
@@ -117,7 +150,7 @@ public class LinearFillOperator implements ProcessOperator {
       }
     }
     // Step 2: fill current TsBlock
-    originTsBlock = cachedTsBlock.remove(0);
+    originTsBlock = cachedTsBlock.removeFirst();
     Column[] columns = new Column[outputColumnCount];
     for (int i = 0; i < outputColumnCount; i++) {
       columns[i] = fillArray[i].fill(originTsBlock.getTimeColumn(), originTsBlock.getColumn(i));
@@ -142,6 +175,7 @@ public class LinearFillOperator implements ProcessOperator {
 
   @Override
   public void close() throws Exception {
+    cachedTsBlock.close();
     child.close();
   }
 
@@ -158,7 +192,7 @@ public class LinearFillOperator implements ProcessOperator {
    * @return true if current cached TsBlock is enough to fill Column at columnIndex, otherwise
    *     false.
    */
-  private boolean isCachedTsBlockEnough(int columnIndex, long currentEndTime) {
+  private boolean isCachedTsBlockEnough(int columnIndex, long currentEndTime) throws IOException {
     // next TsBlock has already been in the cachedTsBlock
     while (nextTsBlockIndex[columnIndex] < cachedTsBlock.size()) {
       TsBlock nextTsBlock = cachedTsBlock.get(nextTsBlockIndex[columnIndex]);
@@ -174,7 +208,7 @@ public class LinearFillOperator implements ProcessOperator {
   /**
    * @return true if we succeed to get next TsBlock and add it into cachedTsBlock, otherwise false
    */
-  private boolean tryToGetNextTsBlock() {
+  private boolean tryToGetNextTsBlock() throws IOException {
     if (canCallNext) { // if we can call child.next(), we call that and cache it in
       // cachedTsBlock
       canCallNext = false;
@@ -7,7 +7,7 @@
  * "License"); you may not use this file except in compliance
  * with the License.  You may obtain a copy of the License at
  *
- *      http://www.apache.org/licenses/LICENSE-2.0
+ *     http://www.apache.org/licenses/LICENSE-2.0
  *
  * Unless required by applicable law or agreed to in writing,
  * software distributed under the License is distributed on an
@@ -18,40 +18,449 @@
  */
 package org.apache.iotdb.db.mpp.execution.operator.process;
 
+import org.apache.iotdb.db.mpp.execution.memory.MemoryPool;
+import org.apache.iotdb.db.mpp.execution.operator.Operator;
 import org.apache.iotdb.db.mpp.execution.operator.OperatorContext;
+import org.apache.iotdb.db.mpp.execution.spill.SpillContext;
+import org.apache.iotdb.db.mpp.execution.spill.SpillFile;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
 
 import com.google.common.util.concurrent.ListenableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * SortOperator sorts all the rows of its child by the comparator. The rows are buffered in memory
+ * reserved from the {@link MemoryPool}. When the buffer exceeds the max size or the pool cannot
+ * reserve more memory, the buffered rows are sorted and spilled to a {@link SpillFile} as a sorted
+ * run, and all the runs are k-way merged at last.
+ *
+ * <p>If only the first topN rows are needed, e.g., the operator is under a LimitOperator, the
+ * buffer is compacted to its first topN rows whenever it holds 2 * topN rows. The kept rows are
+ * still spilled like above if they exceed the max size or the pool cannot reserve them.
+ */
 public class SortOperator implements ProcessOperator {
 
+  private static final Logger logger = LoggerFactory.getLogger(SortOperator.class);
+
+  /** rough size of a buffered SortKey */
+  private static final long SORT_KEY_SIZE = 32L;
+
+  private final OperatorContext operatorContext;
+  private final Operator child;
+  private final List<TSDataType> dataTypes;
+  private final Comparator<SortKey> comparator;
+  private final long topN;
+
+  private final MemoryPool memoryPool;
+  private final String queryId;
+  private final long maxBufferSizeInBytes;
+  private final SpillContext spillContext;
+  private final String spillFilePrefix;
+
+  private final List<SortKey> bufferedKeys = new ArrayList<>();
+  private final List<TsBlock> bufferedTsBlocks = new ArrayList<>();
+  private long bufferedSizeInBytes = 0;
+  private long reservedBytes = 0;
+
+  private final List<SpillFile> spilledRuns = new ArrayList<>();
+
+  private boolean childFinished = false;
+  // the rows to output in order, exactly one of them is used
+  private int nextKeyIndex = 0;
+  private PriorityQueue<RunCursor> mergeQueue;
+  private long remainingOutputNum;
+
+  public SortOperator(
+      OperatorContext operatorContext,
+      Operator child,
+      List<TSDataType> dataTypes,
+      Comparator<SortKey> comparator,
+      long topN,
+      MemoryPool memoryPool,
+      long maxBufferSizeInBytes,
+      String spillDir) {
+    this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+    this.child = requireNonNull(child, "child operator is null");
+    this.dataTypes = dataTypes;
+    this.comparator = comparator;
+    checkArgument(topN > 0, "topN must be greater than zero");
+    this.topN = topN;
+    this.remainingOutputNum = topN;
+    this.memoryPool = requireNonNull(memoryPool, "memoryPool is null");
+    this.queryId = operatorContext.getInstanceContext().getId().getQueryId().getId();
+    this.maxBufferSizeInBytes = maxBufferSizeInBytes;
+    this.spillContext = operatorContext.getInstanceContext().getSpillContext();
+    this.spillFilePrefix =
+        spillDir
+            + File.separator
+            + operatorContext.getInstanceContext().getId().getFullId()
+            + "-"
+            + operatorContext.getOperatorId()
+            + "-sort-";
+  }
+
   @Override
   public OperatorContext getOperatorContext() {
-    return null;
+    return operatorContext;
   }
 
   @Override
   public ListenableFuture<Void> isBlocked() {
-    return ProcessOperator.super.isBlocked();
+    return childFinished ? NOT_BLOCKED : child.isBlocked();
   }
 
   @Override
   public TsBlock next() {
-    return null;
+    try {
+      if (!childFinished) {
+        if (child.hasNext()) {
+          TsBlock tsBlock = child.next();
+          if (tsBlock != null && !tsBlock.isEmpty()) {
+            addTsBlock(tsBlock);
+          }
+          return null;
+        }
+        childFinished = true;
+        prepareOutput();
+      }
+      return buildOutput();
+    } catch (IOException e) {
+      throw new RuntimeException("Error happened while sorting the rows", e);
+    }
   }
 
   @Override
   public boolean hasNext() {
-    return false;
+    if (!childFinished) {
+      return true;
+    }
+    if (remainingOutputNum <= 0) {
+      return false;
+    }
+    return mergeQueue != null ? !mergeQueue.isEmpty() : nextKeyIndex < bufferedKeys.size();
   }
 
   @Override
-  public void close() throws Exception {
-    ProcessOperator.super.close();
+  public boolean isFinished() {
+    return !hasNext();
   }
 
   @Override
-  public boolean isFinished() {
+  public void close() throws Exception {
+    releaseBuffer();
+    mergeQueue = null;
+    for (SpillFile run : spilledRuns) {
+      run.close();
+    }
+    spilledRuns.clear();
+    child.close();
+  }
+
+  private void addTsBlock(TsBlock tsBlock) throws IOException {
+    long size = tsBlock.getRetainedSizeInBytes() + SORT_KEY_SIZE * tsBlock.getPositionCount();
+    if (!reserve(size)) {
+      // spill the buffer to make room for the tsBlock
+      spill();
+      if (!reserve(size)) {
+        // the pool is used up by the others, spill the tsBlock alone
+        bufferTsBlock(tsBlock);
+        spill();
+        return;
+      }
+    }
+    bufferedSizeInBytes += size;
+    bufferTsBlock(tsBlock);
+    if (topN != Long.MAX_VALUE && bufferedKeys.size() >= Math.max(2 * topN, 1024)) {
+      compactToTopN();
+    }
+  }
+
+  private boolean reserve(long size) {
+    if (!bufferedKeys.isEmpty() && bufferedSizeInBytes + size > maxBufferSizeInBytes) {
+      return false;
+    }
+    return reservePool(size);
+  }
+
+  private boolean reservePool(long size) {
+    if (memoryPool.tryReserve(queryId, size)) {
+      reservedBytes += size;
+      return true;
+    }
     return false;
   }
+
+  private void bufferTsBlock(TsBlock tsBlock) {
+    bufferedTsBlocks.add(tsBlock);
+    for (int i = 0; i < tsBlock.getPositionCount(); i++) {
+      bufferedKeys.add(new SortKey(tsBlock, i));
+    }
+  }
+
+  /** Keep only the first topN rows in the buffer, which are copied into a new TsBlock. */
+  private void compactToTopN() throws IOException {
+    bufferedKeys.sort(comparator);
+    TsBlockBuilder builder = new TsBlockBuilder((int) topN, dataTypes);
+    for (int i = 0; i < topN; i++) {
+      appendRow(builder, bufferedKeys.get(i));
+    }
+    TsBlock tsBlock = builder.build();
+    releaseBuffer();
+    long size = tsBlock.getRetainedSizeInBytes() + SORT_KEY_SIZE * tsBlock.getPositionCount();
+    if (reservePool(size)) {
+      bufferedSizeInBytes = size;
+      bufferTsBlock(tsBlock);
+    } else {
+      // the released memory is taken by the others
+      bufferTsBlock(tsBlock);
+      spill();
+    }
+  }
+
+  private void releaseBuffer() {
+    bufferedKeys.clear();
+    bufferedTsBlocks.clear();
+    bufferedSizeInBytes = 0;
+    if (reservedBytes > 0) {
+      memoryPool.free(queryId, reservedBytes);
+      reservedBytes = 0;
+    }
+  }
+
+  /** Sort the buffered rows and write them to a file as a sorted run. */
+  private void spill() throws IOException {
+    if (bufferedKeys.isEmpty()) {
+      return;
+    }
+    bufferedKeys.sort(comparator);
+    SpillFile run = spillContext.createSpillFile(new File(spillFilePrefix + spilledRuns.size()));
+    spilledRuns.add(run);
+    TsBlockBuilder builder = new TsBlockBuilder(dataTypes);
+    for (SortKey key : bufferedKeys) {
+      appendRow(builder, key);
+      if (builder.isFull()) {
+        run.write(builder.build());
+        builder.reset();
+      }
+    }
+    if (!builder.isEmpty()) {
+      run.write(builder.build());
+    }
+    logger.debug("spill {} sorted rows into {}", bufferedKeys.size(), run.getFile());
+    releaseBuffer();
+  }
+
+  private void prepareOutput() throws IOException {
+    if (spilledRuns.isEmpty()) {
+      bufferedKeys.sort(comparator);
+      return;
+    }
+    // the buffered rows are merged with the spilled runs as one more run
+    List<RunCursor> cursors = new ArrayList<>();
+    if (!bufferedKeys.isEmpty()) {
+      bufferedKeys.sort(comparator);
+      cursors.add(new RunCursor(null, new ArrayList<>(bufferedKeys)));
+    }
+    for (SpillFile run : spilledRuns) {
+      cursors.add(new RunCursor(run.reader(), null));
+    }
+    mergeQueue = new PriorityQueue<>((a, b) -> comparator.compare(a.current, b.current));
+    for (RunCursor cursor : cursors) {
+      if (cursor.advance()) {
+        mergeQueue.add(cursor);
+      }
+    }
+  }
+
+  private TsBlock buildOutput() throws IOException {
+    TsBlockBuilder builder = new TsBlockBuilder(dataTypes);
+    while (remainingOutputNum > 0 && !builder.isFull()) {
+      SortKey key;
+      if (mergeQueue != null) {
+        RunCursor cursor = mergeQueue.poll();
+        if (cursor == null) {
+          break;
+        }
+        key = cursor.current;
+        appendRow(builder, key);
+        if (cursor.advance()) {
+          mergeQueue.add(cursor);
+        }
+      } else {
+        if (nextKeyIndex >= bufferedKeys.size()) {
+          break;
+        }
+        key = bufferedKeys.get(nextKeyIndex++);
+        appendRow(builder, key);
+      }
+      remainingOutputNum--;
+    }
+    return builder.isEmpty() ? null : builder.build();
+  }
+
+  private void appendRow(TsBlockBuilder builder, SortKey key) {
+    TsBlock tsBlock = key.tsBlock;
+    builder.getTimeColumnBuilder().writeLong(tsBlock.getTimeByIndex(key.rowIndex));
+    for (int i = 0; i < dataTypes.size(); i++) {
+      Column column = tsBlock.getColumn(i);
+      ColumnBuilder columnBuilder = builder.getColumnBuilder(i);
+      if (column.isNull(key.rowIndex)) {
+        columnBuilder.appendNull();
+      } else {
+        columnBuilder.write(column, key.rowIndex);
+      }
+    }
+    builder.declarePosition();
+  }
+
+  /**
+   * Create the comparator of the rows, the rows are compared by the columns one by one.
+   *
+   * @param columnIndexes the indexes of the value columns to sort by, -1 means the time column
+   * @param ascending whether each column is sorted in ascending order. The null values are always
+   *     placed after the others
+   */
+  public static Comparator<SortKey> createComparator(
+      List<Integer> columnIndexes, List<Boolean> ascending, List<TSDataType> dataTypes) {
+    Comparator<SortKey> result = null;
+    for (int i = 0; i < columnIndexes.size(); i++) {
+      int columnIndex = columnIndexes.get(i);
+      Comparator<SortKey> comparator =
+          columnIndex < 0
+              ? createTimeComparator(ascending.get(i))
+              : createValueComparator(columnIndex, dataTypes.get(columnIndex), ascending.get(i));
+      result = result == null ? comparator : result.thenComparing(comparator);
+    }
+    return result;
+  }
+
+  private static Comparator<SortKey> createTimeComparator(boolean ascending) {
+    Comparator<SortKey> comparator =
+        (a, b) ->
+            Long.compare(
+                a.tsBlock.getTimeByIndex(a.rowIndex), b.tsBlock.getTimeByIndex(b.rowIndex));
+    return ascending ? comparator : comparator.reversed();
+  }
+
+  private static Comparator<SortKey> createValueComparator(
+      int columnIndex, TSDataType dataType, boolean ascending) {
+    Comparator<SortKey> comparator;
+    switch (dataType) {
+      case BOOLEAN:
+        comparator =
+            (a, b) ->
+                Boolean.compare(
+                    a.tsBlock.getColumn(columnIndex).getBoolean(a.rowIndex),
+                    b.tsBlock.getColumn(columnIndex).getBoolean(b.rowIndex));
+        break;
+      case INT32:
+        comparator =
+            (a, b) ->
+                Integer.compare(
+                    a.tsBlock.getColumn(columnIndex).getInt(a.rowIndex),
+                    b.tsBlock.getColumn(columnIndex).getInt(b.rowIndex));
+        break;
+      case INT64:
+        comparator =
+            (a, b) ->
+                Long.compare(
+                    a.tsBlock.getColumn(columnIndex).getLong(a.rowIndex),
+                    b.tsBlock.getColumn(columnIndex).getLong(b.rowIndex));
+        break;
+      case FLOAT:
+        comparator =
+            (a, b) ->
+                Float.compare(
+                    a.tsBlock.getColumn(columnIndex).getFloat(a.rowIndex),
+                    b.tsBlock.getColumn(columnIndex).getFloat(b.rowIndex));
+        break;
+      case DOUBLE:
+        comparator =
+            (a, b) ->
+                Double.compare(
+                    a.tsBlock.getColumn(columnIndex).getDouble(a.rowIndex),
+                    b.tsBlock.getColumn(columnIndex).getDouble(b.rowIndex));
+        break;
+      case TEXT:
+        comparator =
+            (a, b) ->
+                a.tsBlock
+                    .getColumn(columnIndex)
+                    .getBinary(a.rowIndex)
+                    .compareTo(b.tsBlock.getColumn(columnIndex).getBinary(b.rowIndex));
+        break;
+      default:
+        throw new UnsupportedOperationException("Unsupported data type: " + dataType);
+    }
+    Comparator<SortKey> ordered = ascending ? comparator : comparator.reversed();
+    return (a, b) -> {
+      boolean aIsNull = a.tsBlock.getColumn(columnIndex).isNull(a.rowIndex);
+      boolean bIsNull = b.tsBlock.getColumn(columnIndex).isNull(b.rowIndex);
+      if (aIsNull || bIsNull) {
+        return aIsNull == bIsNull ? 0 : (aIsNull ? 1 : -1);
+      }
+      return ordered.compare(a, b);
+    };
+  }
+
+  /** A row in a TsBlock. */
+  public static class SortKey {
+
+    private final TsBlock tsBlock;
+    private final int rowIndex;
+
+    public SortKey(TsBlock tsBlock, int rowIndex) {
+      this.tsBlock = tsBlock;
+      this.rowIndex = rowIndex;
+    }
+  }
+
+  /** Iterates the rows of a sorted run, either spilled or in memory. */
+  private static class RunCursor {
+
+    private final SpillFile.Reader reader;
+    private final List<SortKey> keys;
+    private TsBlock tsBlock;
+    private int index = -1;
+    private SortKey current;
+
+    private RunCursor(SpillFile.Reader reader, List<SortKey> keys) {
+      this.reader = reader;
+      this.keys = keys;
+    }
+
+    /** @return false if there is no more row */
+    private boolean advance() throws IOException {
+      index++;
+      if (keys != null) {
+        current = index < keys.size() ? keys.get(index) : null;
+        return current != null;
+      }
+      if (tsBlock == null || index >= tsBlock.getPositionCount()) {
+        if (!reader.hasNext()) {
+          current = null;
+          return false;
+        }
+        tsBlock = reader.next();
+        index = 0;
+      }
+      current = new SortKey(tsBlock, index);
+      return true;
+    }
+  }
 }
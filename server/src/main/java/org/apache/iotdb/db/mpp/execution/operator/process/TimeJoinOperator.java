@@ -21,16 +21,18 @@ package org.apache.iotdb.db.mpp.execution.operator.process;
 import org.apache.iotdb.db.mpp.execution.operator.Operator;
 import org.apache.iotdb.db.mpp.execution.operator.OperatorContext;
 import org.apache.iotdb.db.mpp.execution.operator.process.merge.ColumnMerger;
+import org.apache.iotdb.db.mpp.execution.operator.process.merge.TimeColumnLoserTree;
 import org.apache.iotdb.db.mpp.execution.operator.process.merge.TimeComparator;
 import org.apache.iotdb.db.mpp.plan.statement.component.OrderBy;
-import org.apache.iotdb.db.utils.datastructure.TimeSelector;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
 import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.TimeColumn;
 import org.apache.iotdb.tsfile.read.common.block.column.TimeColumnBuilder;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.Arrays;
 import java.util.List;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -59,7 +61,13 @@ public class TimeJoinOperator implements ProcessOperator {
    */
   private final boolean[] noMoreTsBlocks;
 
-  private final TimeSelector timeSelector;
+  /** used to merge the time columns of the inputs which are really interleaved */
+  private final TimeColumnLoserTree loserTree;
+
+  // time columns, start and end index of the inputs taking part in the current output TsBlock
+  private final TimeColumn[] activeTimeColumns;
+  private final int[] activeStartIndex;
+  private final int[] activeEndIndex;
 
   private final int outputColumnCount;
 
@@ -94,8 +102,10 @@ public class TimeJoinOperator implements ProcessOperator {
     this.inputIndex = new int[this.inputOperatorsCount];
     this.shadowInputIndex = new int[this.inputOperatorsCount];
     this.noMoreTsBlocks = new boolean[this.inputOperatorsCount];
-    this.timeSelector =
-        new TimeSelector(this.inputOperatorsCount << 1, OrderBy.TIMESTAMP_ASC == mergeOrder);
+    this.loserTree = new TimeColumnLoserTree(OrderBy.TIMESTAMP_ASC == mergeOrder);
+    this.activeTimeColumns = new TimeColumn[this.inputOperatorsCount];
+    this.activeStartIndex = new int[this.inputOperatorsCount];
+    this.activeEndIndex = new int[this.inputOperatorsCount];
     this.outputColumnCount = dataTypes.size();
     this.dataTypes = dataTypes;
     this.tsBlockBuilder = new TsBlockBuilder(dataTypes);
@@ -129,19 +139,14 @@ public class TimeJoinOperator implements ProcessOperator {
     long currentEndTime = 0;
     boolean init = false;
 
-    // get TsBlock for each input, put their time stamp into TimeSelector and then use the min Time
-    // among all the input TsBlock as the current output TsBlock's endTime.
+    // get TsBlock for each input and then use the min Time among all the input TsBlock as the
+    // current output TsBlock's endTime.
     for (int i = 0; i < inputOperatorsCount; i++) {
       if (!noMoreTsBlocks[i] && empty(i)) {
         if (children.get(i).hasNext()) {
           inputIndex[i] = 0;
           inputTsBlocks[i] = children.get(i).next();
-          if (!empty(i)) {
-            int rowSize = inputTsBlocks[i].getPositionCount();
-            for (int row = 0; row < rowSize; row++) {
-              timeSelector.add(inputTsBlocks[i].getTimeByIndex(row));
-            }
-          } else {
+          if (empty(i)) {
             // child operator has next but return an empty TsBlock which means that it may not
             // finish calculation in given time slice.
             // In such case, TimeJoinOperator can't go on calculating, so we just return null.
@@ -166,18 +171,14 @@ public class TimeJoinOperator implements ProcessOperator {
       }
     }
 
-    if (timeSelector.isEmpty()) {
+    if (!init) {
       // return empty TsBlock
       TsBlockBuilder tsBlockBuilder = new TsBlockBuilder(0, dataTypes);
       return tsBlockBuilder.build();
     }
 
     TimeColumnBuilder timeBuilder = tsBlockBuilder.getTimeColumnBuilder();
-    while (!timeSelector.isEmpty()
-        && comparator.satisfyCurEndTime(timeSelector.first(), currentEndTime)) {
-      timeBuilder.writeLong(timeSelector.pollFirst());
-      tsBlockBuilder.declarePosition();
-    }
+    tsBlockBuilder.declarePositions(mergeTimeColumns(currentEndTime, timeBuilder));
 
     for (int i = 0; i < outputColumnCount; i++) {
       ColumnMerger merger = mergers.get(i);
@@ -240,6 +241,80 @@ public class TimeJoinOperator implements ProcessOperator {
     return finished;
   }
 
+  /**
+   * Write the union of all the input timestamps not after currentEndTime into timeBuilder. Instead
+   * of pushing every timestamp through a heap, the rows of each input are bounded by binary search
+   * first. If only one input has rows to output, which is always the case for inputs whose time
+   * ranges don't overlap, or all the inputs share exactly the same timestamps, which is common for
+   * series of one device, the time column is copied directly. Only the really interleaved inputs
+   * are merged by the loser tree.
+   *
+   * @return the number of the written rows
+   */
+  private int mergeTimeColumns(long currentEndTime, TimeColumnBuilder timeBuilder) {
+    int activeCount = 0;
+    for (int i = 0; i < inputOperatorsCount; i++) {
+      if (empty(i)) {
+        continue;
+      }
+      TimeColumn timeColumn = inputTsBlocks[i].getTimeColumn();
+      int endIndex = searchEndIndex(timeColumn, inputIndex[i], currentEndTime);
+      if (endIndex > inputIndex[i]) {
+        activeTimeColumns[activeCount] = timeColumn;
+        activeStartIndex[activeCount] = inputIndex[i];
+        activeEndIndex[activeCount] = endIndex;
+        activeCount++;
+      }
+    }
+
+    int rowCount;
+    if (activeCount == 1 || sameTimestamps(activeCount)) {
+      rowCount = activeEndIndex[0] - activeStartIndex[0];
+      timeBuilder.writeTimes(activeTimeColumns[0], activeStartIndex[0], rowCount);
+    } else {
+      rowCount =
+          loserTree.merge(
+              activeTimeColumns, activeStartIndex, activeEndIndex, activeCount, timeBuilder);
+    }
+    Arrays.fill(activeTimeColumns, 0, activeCount, null);
+    return rowCount;
+  }
+
+  /** @return the first index in [startIndex, positionCount) whose time is after currentEndTime */
+  private int searchEndIndex(TimeColumn timeColumn, int startIndex, long currentEndTime) {
+    int low = startIndex;
+    int high = timeColumn.getPositionCount();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (comparator.satisfyCurEndTime(timeColumn.getLong(mid), currentEndTime)) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private boolean sameTimestamps(int activeCount) {
+    int length = activeEndIndex[0] - activeStartIndex[0];
+    for (int i = 1; i < activeCount; i++) {
+      if (activeEndIndex[i] - activeStartIndex[i] != length) {
+        return false;
+      }
+    }
+    for (int i = 1; i < activeCount; i++) {
+      TimeColumn first = activeTimeColumns[0];
+      TimeColumn other = activeTimeColumns[i];
+      int offset = activeStartIndex[i] - activeStartIndex[0];
+      for (int row = activeStartIndex[0]; row < activeEndIndex[0]; row++) {
+        if (first.getLong(row) != other.getLong(row + offset)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
   /**
    * If the tsBlock of columnIndex is null or has no more data in the tsBlock, return true; else
    * return false;
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.operator.process;
+
+import org.apache.iotdb.db.mpp.execution.operator.Operator;
+import org.apache.iotdb.db.mpp.execution.operator.OperatorContext;
+import org.apache.iotdb.db.mpp.transformation.column.ColumnEvaluator;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+
+/**
+ * Column-at-a-time counterpart of {@link FilterOperator}. The predicate narrows a selection vector
+ * over each input block, and the output expressions are then evaluated only on the selected rows.
+ */
+public class VectorizedFilterOperator extends VectorizedTransformOperator {
+
+  private final ColumnEvaluator filterEvaluator;
+
+  public VectorizedFilterOperator(
+      OperatorContext operatorContext,
+      Operator inputOperator,
+      ColumnEvaluator filterEvaluator,
+      ColumnEvaluator[] outputEvaluators) {
+    // the predicate decides which rows are kept, so null output rows are never dropped
+    super(operatorContext, inputOperator, outputEvaluators, true);
+    if (filterEvaluator.getDataType() != TSDataType.BOOLEAN) {
+      throw new UnSupportedDataTypeException(
+          String.format(
+              "Data type of the filter expression should be BOOLEAN, but %s is received.",
+              filterEvaluator.getDataType()));
+    }
+    this.filterEvaluator = filterEvaluator;
+  }
+
+  @Override
+  protected int selectRows(TsBlock input, int[] positions, int positionCount) {
+    return positionCount == 0 ? 0 : filterEvaluator.select(input, positions, positionCount);
+  }
+}
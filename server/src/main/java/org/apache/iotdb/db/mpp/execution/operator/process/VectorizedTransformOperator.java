@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.operator.process;
+
+import org.apache.iotdb.db.mpp.execution.operator.Operator;
+import org.apache.iotdb.db.mpp.execution.operator.OperatorContext;
+import org.apache.iotdb.db.mpp.transformation.column.ColumnEvaluator;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.TimeColumn;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Column-at-a-time counterpart of {@link TransformOperator}, used when none of the output
+ * expressions needs a UDF. Each input block is transformed as a whole by {@link ColumnEvaluator}s
+ * instead of being replayed point by point through the evaluation DAG.
+ */
+public class VectorizedTransformOperator implements ProcessOperator {
+
+  protected final OperatorContext operatorContext;
+  protected final Operator inputOperator;
+  protected final ColumnEvaluator[] outputEvaluators;
+  protected final boolean keepNull;
+
+  public VectorizedTransformOperator(
+      OperatorContext operatorContext,
+      Operator inputOperator,
+      ColumnEvaluator[] outputEvaluators,
+      boolean keepNull) {
+    this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+    this.inputOperator = requireNonNull(inputOperator, "inputOperator is null");
+    this.outputEvaluators = requireNonNull(outputEvaluators, "outputEvaluators is null");
+    this.keepNull = keepNull;
+  }
+
+  @Override
+  public TsBlock next() {
+    TsBlock input = inputOperator.next();
+    if (input == null) {
+      return null;
+    }
+
+    int[] positions = ColumnEvaluator.allPositions(input.getPositionCount());
+    int positionCount = selectRows(input, positions, input.getPositionCount());
+    Column[] valueColumns = evaluateOutputs(input, positions, positionCount);
+
+    if (!keepNull) {
+      // like TransformOperator, drop the rows in which every output value is null
+      int[] nonNullIndexes = new int[positionCount];
+      int nonNullCount = 0;
+      for (int i = 0; i < positionCount; ++i) {
+        if (!isAllNull(valueColumns, i)) {
+          nonNullIndexes[nonNullCount] = i;
+          positions[nonNullCount++] = positions[i];
+        }
+      }
+      if (nonNullCount != positionCount) {
+        positionCount = nonNullCount;
+        // compact the evaluated columns rather than evaluating the outputs again
+        for (int i = 0; i < valueColumns.length; ++i) {
+          valueColumns[i] =
+              ColumnEvaluator.copyPositions(
+                  valueColumns[i],
+                  outputEvaluators[i].getDataType(),
+                  nonNullIndexes,
+                  positionCount);
+        }
+      }
+    }
+
+    TimeColumn inputTimeColumn = input.getTimeColumn();
+    long[] times = new long[positionCount];
+    for (int i = 0; i < positionCount; ++i) {
+      times[i] = inputTimeColumn.getLong(positions[i]);
+    }
+    return new TsBlock(positionCount, new TimeColumn(positionCount, times), valueColumns);
+  }
+
+  /**
+   * Narrows {@code positions} to the input rows that should be transformed.
+   *
+   * @return the number of rows left in {@code positions}
+   */
+  protected int selectRows(TsBlock input, int[] positions, int positionCount) {
+    return positionCount;
+  }
+
+  private Column[] evaluateOutputs(TsBlock input, int[] positions, int positionCount) {
+    Column[] valueColumns = new Column[outputEvaluators.length];
+    for (int i = 0; i < outputEvaluators.length; ++i) {
+      valueColumns[i] = outputEvaluators[i].evaluate(input, positions, positionCount);
+    }
+    return valueColumns;
+  }
+
+  private static boolean isAllNull(Column[] columns, int position) {
+    for (Column column : columns) {
+      if (!column.isNull(position)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return inputOperator.hasNext();
+  }
+
+  @Override
+  public ListenableFuture<Void> isBlocked() {
+    return inputOperator.isBlocked();
+  }
+
+  @Override
+  public boolean isFinished() {
+    return inputOperator.isFinished();
+  }
+
+  @Override
+  public void close() throws Exception {
+    inputOperator.close();
+  }
+
+  @Override
+  public OperatorContext getOperatorContext() {
+    return operatorContext;
+  }
+}
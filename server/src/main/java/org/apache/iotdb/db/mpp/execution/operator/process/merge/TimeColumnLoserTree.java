@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.operator.process.merge;
+
+import org.apache.iotdb.tsfile.read.common.block.column.TimeColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.TimeColumnBuilder;
+
+/**
+ * A loser tree to merge several time columns, each of which is already sorted in the merge order,
+ * into one time column without duplicated timestamps. Each of the k leaves is a range of one time
+ * column, and the internal nodes keep the losers of the matches, so that only log(k) comparisons
+ * are needed to find the next timestamp, which is half of those of a binary heap.
+ */
+public class TimeColumnLoserTree {
+
+  // the virtual leaf which beats all the others, only used to initialize the tree
+  private static final int VIRTUAL_WINNER = -1;
+
+  private final boolean ascending;
+
+  private TimeColumn[] timeColumns;
+  private int[] positions;
+  private int[] endPositions;
+  private int leafCount;
+
+  // tree[0] is the winner, and tree[1..leafCount) are the losers of the matches
+  private int[] tree = new int[0];
+
+  public TimeColumnLoserTree(boolean ascending) {
+    this.ascending = ascending;
+  }
+
+  /**
+   * Merge the ranges [startPositions[i], endPositions[i]) of the first leafCount time columns into
+   * the builder, equal timestamps are written only once.
+   *
+   * @return the number of the written timestamps
+   */
+  public int merge(
+      TimeColumn[] timeColumns,
+      int[] startPositions,
+      int[] endPositions,
+      int leafCount,
+      TimeColumnBuilder timeColumnBuilder) {
+    this.timeColumns = timeColumns;
+    this.positions = startPositions.clone();
+    this.endPositions = endPositions;
+    this.leafCount = leafCount;
+    if (tree.length < leafCount) {
+      tree = new int[leafCount];
+    }
+    for (int i = 0; i < leafCount; i++) {
+      tree[i] = VIRTUAL_WINNER;
+    }
+    for (int i = leafCount - 1; i >= 0; i--) {
+      adjust(i);
+    }
+
+    int count = 0;
+    long lastTime = 0;
+    while (true) {
+      int winner = tree[0];
+      if (exhausted(winner)) {
+        break;
+      }
+      long time = timeColumns[winner].getLong(positions[winner]);
+      if (count == 0 || time != lastTime) {
+        timeColumnBuilder.writeLong(time);
+        lastTime = time;
+        count++;
+      }
+      positions[winner]++;
+      adjust(winner);
+    }
+    this.timeColumns = null;
+    return count;
+  }
+
+  /** Replay the matches from the leaf to the root after the leaf changes. */
+  private void adjust(int leaf) {
+    int winner = leaf;
+    for (int node = (leaf + leafCount) >> 1; node > 0; node >>= 1) {
+      if (beats(tree[node], winner)) {
+        int loser = winner;
+        winner = tree[node];
+        tree[node] = loser;
+      }
+    }
+    tree[0] = winner;
+  }
+
+  private boolean beats(int a, int b) {
+    if (a == VIRTUAL_WINNER) {
+      return true;
+    }
+    if (b == VIRTUAL_WINNER) {
+      return false;
+    }
+    if (exhausted(a)) {
+      return false;
+    }
+    if (exhausted(b)) {
+      return true;
+    }
+    long timeA = timeColumns[a].getLong(positions[a]);
+    long timeB = timeColumns[b].getLong(positions[b]);
+    if (timeA == timeB) {
+      return a < b;
+    }
+    return ascending ? timeA < timeB : timeA > timeB;
+  }
+
+  private boolean exhausted(int leaf) {
+    return positions[leaf] >= endPositions[leaf];
+  }
+}
@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.mpp.execution.operator.source;
 
 import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache.SeriesName;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.metadata.path.AlignedPath;
 import org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceContext;
@@ -44,6 +45,10 @@ public class AlignedSeriesScanUtil extends SeriesScanUtil {
 
   private final List<TSDataType> dataTypes;
 
+  // names of the series in the keys of TimeSeriesMetadataCache, resolved once for all the files
+  private SeriesName deviceName;
+  private List<SeriesName> measurementNames;
+
   public AlignedSeriesScanUtil(
       PartialPath seriesPath,
       Set<String> allSensors,
@@ -75,8 +80,16 @@ public class AlignedSeriesScanUtil extends SeriesScanUtil {
       Filter filter,
       Set<String> allSensors)
       throws IOException {
+    AlignedPath alignedPath = (AlignedPath) seriesPath;
+    if (deviceName == null) {
+      deviceName = SeriesName.of(alignedPath.getDevice());
+      measurementNames =
+          alignedPath.getMeasurementList().stream()
+              .map(SeriesName::of)
+              .collect(Collectors.toList());
+    }
     return FileLoaderUtils.loadTimeSeriesMetadata(
-        resource, (AlignedPath) seriesPath, context, filter);
+        resource, alignedPath, deviceName, measurementNames, context, filter);
   }
 
   @Override
@@ -19,11 +19,13 @@
 package org.apache.iotdb.db.mpp.execution.operator.source;
 
 import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache.SeriesName;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.metadata.idtable.IDTable;
 import org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceContext;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.reader.chunk.DecodedPageReader;
 import org.apache.iotdb.db.query.reader.universal.DescPriorityMergeReader;
 import org.apache.iotdb.db.query.reader.universal.PriorityMergeReader;
 import org.apache.iotdb.db.utils.FileLoaderUtils;
@@ -120,6 +122,16 @@ public class SeriesScanUtil {
   protected boolean hasCachedNextOverlappedPage;
   protected TsBlock cachedTsBlock;
 
+  /*
+   * scans without time filter (or hinted by the query) read the whole history of the series, the
+   * pages decoded by them are not put into the decoded page cache to keep the hot pages there
+   */
+  protected final boolean bypassDecodedPageCache;
+
+  // names of the series in the keys of TimeSeriesMetadataCache, resolved once for all the files
+  private SeriesName deviceName;
+  private SeriesName measurementName;
+
   public SeriesScanUtil(
       PartialPath seriesPath,
       Set<String> allSensors,
@@ -134,6 +146,8 @@ public class SeriesScanUtil {
     this.context = context;
     this.timeFilter = timeFilter;
     this.valueFilter = valueFilter;
+    this.bypassDecodedPageCache =
+        timeFilter == null || (context != null && context.isBypassDecodedPageCache());
     if (ascending) {
       this.orderUtils = new AscTimeOrderUtils();
       mergeReader = getPriorityMergeReader();
@@ -512,7 +526,7 @@ public class SeriesScanUtil {
 
   private void unpackOneChunkMetaData(IChunkMetadata chunkMetaData) throws IOException {
     List<IPageReader> pageReaderList =
-        FileLoaderUtils.loadPageReaderList(chunkMetaData, timeFilter);
+        FileLoaderUtils.loadPageReaderList(chunkMetaData, timeFilter, bypassDecodedPageCache);
 
     // init TsBlockBuilder for each page reader
     pageReaderList.forEach(p -> p.initTsBlockBuilder(getTsDataTypeList()));
@@ -1066,8 +1080,12 @@ public class SeriesScanUtil {
       Filter filter,
       Set<String> allSensors)
       throws IOException {
+    if (deviceName == null) {
+      deviceName = SeriesName.of(seriesPath.getDevice());
+      measurementName = SeriesName.of(seriesPath.getMeasurement());
+    }
     return FileLoaderUtils.loadTimeSeriesMetadata(
-        resource, seriesPath, context, filter, allSensors);
+        resource, seriesPath, deviceName, measurementName, context, filter, allSensors);
   }
 
   protected List<TSDataType> getTsDataTypeList() {
@@ -1130,6 +1148,10 @@ public class SeriesScanUtil {
     }
 
     TsBlock getAllSatisfiedPageData(boolean ascending) throws IOException {
+      if (data instanceof DecodedPageReader) {
+        // the cached page may be returned as it is, so it is read in the order instead of reversed
+        return ((DecodedPageReader) data).getAllSatisfiedData(ascending);
+      }
       TsBlock tsBlock = data.getAllSatisfiedData();
       if (!ascending) {
         tsBlock.reverse();
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.resourcegroup;
+
+import org.apache.iotdb.db.mpp.execution.schedule.queue.IWeightedGroup;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A resource group of queries. On the coordinator, it limits the number of its running queries and
+ * queues the others in FIFO order without blocking their callers. On each data node, its drivers
+ * share the query threads with the other groups by its cpu share, and the memory for read used by
+ * its queries is limited by its memory proportion.
+ */
+public class ResourceGroup implements IWeightedGroup {
+
+  /** The result of {@link #admit}. */
+  public enum Admission {
+    ADMITTED,
+    QUEUED,
+    REJECTED
+  }
+
+  private final String name;
+  private final int cpuShare;
+  // 0 means no limit
+  private final int maxRunningQueries;
+  private final double memoryProportion;
+
+  // the number of the queries queued in all the groups sharing it, see ResourceGroupManager
+  private final AtomicInteger totalQueuedQueryNum;
+  private final int maxTotalQueuedQueries;
+
+  // guarded by this, only counted if the running queries are limited
+  private int runningQueryNum;
+  // guarded by this, the starts of the queued queries
+  private final Queue<Runnable> queuedQueries = new ArrayDeque<>();
+  // the time the drivers of the group have run on the query threads of this node
+  private final AtomicLong usedTimeInNanos = new AtomicLong();
+
+  public ResourceGroup(String name, int cpuShare, int maxRunningQueries, double memoryProportion) {
+    this(
+        name,
+        cpuShare,
+        maxRunningQueries,
+        memoryProportion,
+        new AtomicInteger(),
+        Integer.MAX_VALUE);
+  }
+
+  ResourceGroup(
+      String name,
+      int cpuShare,
+      int maxRunningQueries,
+      double memoryProportion,
+      AtomicInteger totalQueuedQueryNum,
+      int maxTotalQueuedQueries) {
+    if (cpuShare <= 0) {
+      throw new IllegalArgumentException("the cpu share should be positive");
+    }
+    if (maxRunningQueries < 0) {
+      throw new IllegalArgumentException("the max running queries should not be negative");
+    }
+    if (memoryProportion <= 0 || memoryProportion > 1) {
+      throw new IllegalArgumentException("the memory proportion should be in (0, 1]");
+    }
+    this.name = name;
+    this.cpuShare = cpuShare;
+    this.maxRunningQueries = maxRunningQueries;
+    this.memoryProportion = memoryProportion;
+    this.totalQueuedQueryNum = totalQueuedQueryNum;
+    this.maxTotalQueuedQueries = maxTotalQueuedQueries;
+  }
+
+  /**
+   * Count the query as running if the number of the running queries of the group is below the
+   * limit. Otherwise queue the query, unless too many queries are queued in all the groups. The
+   * caller is never blocked.
+   *
+   * @param start starts the queued query once it is admitted, which is run in FIFO order by the
+   *     thread releasing a running query
+   */
+  public synchronized Admission admit(Runnable start) {
+    if (maxRunningQueries == 0) {
+      return Admission.ADMITTED;
+    }
+    if (runningQueryNum < maxRunningQueries) {
+      runningQueryNum++;
+      return Admission.ADMITTED;
+    }
+    if (totalQueuedQueryNum.incrementAndGet() > maxTotalQueuedQueries) {
+      totalQueuedQueryNum.decrementAndGet();
+      return Admission.REJECTED;
+    }
+    queuedQueries.add(start);
+    return Admission.QUEUED;
+  }
+
+  /**
+   * Remove a queued query which is not admitted yet, e.g. after it has been queued for too long.
+   *
+   * @return false if the query is not queued, e.g. it has been admitted.
+   */
+  public synchronized boolean cancel(Runnable start) {
+    if (!queuedQueries.remove(start)) {
+      return false;
+    }
+    totalQueuedQueryNum.decrementAndGet();
+    return true;
+  }
+
+  /** Count an admitted query as finished, and pass its place to the first queued query if any. */
+  public void release() {
+    Runnable start;
+    synchronized (this) {
+      if (maxRunningQueries == 0) {
+        return;
+      }
+      start = queuedQueries.poll();
+      if (start == null) {
+        runningQueryNum--;
+        return;
+      }
+      totalQueuedQueryNum.decrementAndGet();
+    }
+    start.run();
+  }
+
+  public synchronized int getRunningQueryNum() {
+    return runningQueryNum;
+  }
+
+  public synchronized int getQueuedQueryNum() {
+    return queuedQueries.size();
+  }
+
+  public void addUsedTime(long timeInNanos) {
+    usedTimeInNanos.addAndGet(timeInNanos);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getCpuShare() {
+    return cpuShare;
+  }
+
+  public int getMaxRunningQueries() {
+    return maxRunningQueries;
+  }
+
+  public double getMemoryProportion() {
+    return memoryProportion;
+  }
+
+  @Override
+  public int getWeight() {
+    return cpuShare;
+  }
+
+  @Override
+  public long getUsage() {
+    return usedTimeInNanos.get();
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "ResourceGroup{name=%s, cpuShare=%d, maxRunningQueries=%d, memoryProportion=%s}",
+        name, cpuShare, maxRunningQueries, memoryProportion);
+  }
+}
@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.resourcegroup;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.mpp.common.SessionInfo;
+import org.apache.iotdb.db.mpp.plan.analyze.QueryType;
+import org.apache.iotdb.db.mpp.plan.statement.Statement;
+import org.apache.iotdb.db.mpp.plan.statement.crud.QueryStatement;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ResourceGroupManager holds the resource groups parsed from the resource_groups configuration, and
+ * assigns the queries to them by the resource_group_selectors configuration.
+ *
+ * <p>Each group is "name,cpu share,max running queries,memory proportion", for example
+ * "dashboard,4,0,0.5;adhoc,1,2,0.2", where 0 running queries means no limit. Each selector is
+ * "user:user name=group" or "type:last|aggregation|raw=group", for example
+ * "type:last=dashboard;user:analyst=adhoc", and the first matched one is used. The queries matched
+ * by no selector belong to the {@link #DEFAULT_GROUP}, which has 1 cpu share, no limit of the
+ * running queries and the whole memory for read unless it is configured. Illegal groups and
+ * selectors are ignored with a warning. The queries queued in all the groups are limited by
+ * resource_group_max_queued_queries.
+ */
+public class ResourceGroupManager {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ResourceGroupManager.class);
+
+  public static final String DEFAULT_GROUP = "default";
+
+  private static final String ITEM_SEPARATOR = ";";
+  private static final String FIELD_SEPARATOR = ",";
+  private static final String SELECTOR_SEPARATOR = "=";
+  private static final String USER_SELECTOR_PREFIX = "user:";
+  private static final String TYPE_SELECTOR_PREFIX = "type:";
+
+  /** The kinds of the queries which the selectors can assign to the groups. */
+  public enum QueryKind {
+    LAST,
+    AGGREGATION,
+    RAW
+  }
+
+  private final Map<String, ResourceGroup> groups;
+  private final List<Selector> selectors;
+
+  public static ResourceGroupManager getInstance() {
+    return InstanceHolder.INSTANCE;
+  }
+
+  ResourceGroupManager(String groupsString, String selectorsString) {
+    this(groupsString, selectorsString, Integer.MAX_VALUE);
+  }
+
+  ResourceGroupManager(String groupsString, String selectorsString, int maxQueuedQueries) {
+    this.groups = parseGroups(groupsString, new AtomicInteger(), maxQueuedQueries);
+    this.selectors = parseSelectors(selectorsString, groups);
+    LOGGER.info("Resource groups: {}", groups.values());
+  }
+
+  /** @return the group of the name, or the default group if there is no such group */
+  public ResourceGroup getGroup(String name) {
+    ResourceGroup group = name == null ? null : groups.get(name);
+    return group != null ? group : groups.get(DEFAULT_GROUP);
+  }
+
+  public Collection<ResourceGroup> getGroups() {
+    return Collections.unmodifiableCollection(groups.values());
+  }
+
+  /** @return the name of the group of the query issued by the user */
+  public String selectGroup(String userName, QueryKind queryKind) {
+    for (Selector selector : selectors) {
+      if (selector.matches(userName, queryKind)) {
+        return selector.group;
+      }
+    }
+    return DEFAULT_GROUP;
+  }
+
+  /**
+   * Only the queries issued by the clients are admitted by the resource groups. The writes and the
+   * internal queries without a session, e.g. the schema fetching of the analyzer, never wait in a
+   * resource group, otherwise a saturated group would block the writes depending on them.
+   */
+  public static boolean needAdmission(
+      QueryType queryType, Statement statement, SessionInfo session) {
+    return queryType == QueryType.READ && statement instanceof QueryStatement && session != null;
+  }
+
+  public static QueryKind getQueryKind(Statement statement) {
+    if (statement instanceof QueryStatement) {
+      QueryStatement queryStatement = (QueryStatement) statement;
+      if (queryStatement.isLastQuery()) {
+        return QueryKind.LAST;
+      }
+      if (queryStatement.isAggregationQuery()) {
+        return QueryKind.AGGREGATION;
+      }
+    }
+    return QueryKind.RAW;
+  }
+
+  private static Map<String, ResourceGroup> parseGroups(
+      String groupsString, AtomicInteger queuedQueryNum, int maxQueuedQueries) {
+    Map<String, ResourceGroup> groups = new LinkedHashMap<>();
+    for (String groupString : groupsString.split(ITEM_SEPARATOR)) {
+      if (groupString.trim().isEmpty()) {
+        continue;
+      }
+      String[] fields = groupString.split(FIELD_SEPARATOR);
+      try {
+        if (fields.length != 4) {
+          throw new IllegalArgumentException("a group should have 4 fields");
+        }
+        String name = fields[0].trim();
+        if (name.isEmpty() || groups.containsKey(name)) {
+          throw new IllegalArgumentException("the name should be non-empty and unique");
+        }
+        groups.put(
+            name,
+            new ResourceGroup(
+                name,
+                Integer.parseInt(fields[1].trim()),
+                Integer.parseInt(fields[2].trim()),
+                Double.parseDouble(fields[3].trim()),
+                queuedQueryNum,
+                maxQueuedQueries));
+      } catch (IllegalArgumentException e) {
+        LOGGER.warn("Ignore illegal resource group {}, because {}", groupString, e.getMessage());
+      }
+    }
+    groups.computeIfAbsent(
+        DEFAULT_GROUP,
+        name -> new ResourceGroup(name, 1, 0, 1, queuedQueryNum, maxQueuedQueries));
+    return groups;
+  }
+
+  private static List<Selector> parseSelectors(
+      String selectorsString, Map<String, ResourceGroup> groups) {
+    List<Selector> selectors = new ArrayList<>();
+    for (String selectorString : selectorsString.split(ITEM_SEPARATOR)) {
+      if (selectorString.trim().isEmpty()) {
+        continue;
+      }
+      String[] fields = selectorString.split(SELECTOR_SEPARATOR);
+      try {
+        if (fields.length != 2) {
+          throw new IllegalArgumentException("a selector should be \"condition=group\"");
+        }
+        String condition = fields[0].trim();
+        String group = fields[1].trim();
+        if (!groups.containsKey(group)) {
+          throw new IllegalArgumentException("the group " + group + " does not exist");
+        }
+        if (condition.startsWith(USER_SELECTOR_PREFIX)) {
+          selectors.add(
+              new Selector(condition.substring(USER_SELECTOR_PREFIX.length()).trim(), null, group));
+        } else if (condition.startsWith(TYPE_SELECTOR_PREFIX)) {
+          QueryKind queryKind =
+              QueryKind.valueOf(
+                  condition.substring(TYPE_SELECTOR_PREFIX.length()).trim().toUpperCase());
+          selectors.add(new Selector(null, queryKind, group));
+        } else {
+          throw new IllegalArgumentException("the condition should start with user: or type:");
+        }
+      } catch (IllegalArgumentException e) {
+        LOGGER.warn(
+            "Ignore illegal resource group selector {}, because {}",
+            selectorString,
+            e.getMessage());
+      }
+    }
+    return selectors;
+  }
+
+  private static class Selector {
+
+    // null if any user matches
+    private final String userName;
+    // null if any kind of query matches
+    private final QueryKind queryKind;
+    private final String group;
+
+    private Selector(String userName, QueryKind queryKind, String group) {
+      this.userName = userName;
+      this.queryKind = queryKind;
+      this.group = group;
+    }
+
+    private boolean matches(String userName, QueryKind queryKind) {
+      return (this.userName == null || this.userName.equals(userName))
+          && (this.queryKind == null || this.queryKind == queryKind);
+    }
+  }
+
+  private static class InstanceHolder {
+
+    private InstanceHolder() {}
+
+    private static final IoTDBConfig CONFIG = IoTDBDescriptor.getInstance().getConfig();
+
+    private static final ResourceGroupManager INSTANCE =
+        new ResourceGroupManager(
+            CONFIG.getResourceGroups(),
+            CONFIG.getResourceGroupSelectors(),
+            CONFIG.getResourceGroupMaxQueuedQueries());
+  }
+}
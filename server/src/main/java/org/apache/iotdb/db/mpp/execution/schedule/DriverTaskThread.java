@@ -57,6 +57,8 @@ public class DriverTaskThread extends AbstractDriverThread {
     CpuTimer timer = new CpuTimer();
     ListenableFuture<Void> future = instance.processFor(EXECUTION_TIME_SLICE);
     CpuTimer.CpuDuration duration = timer.elapsedTime();
+    // the resource groups share the query threads by the time their drivers occupy them
+    task.getResourceGroup().addUsedTime(duration.getWall().roundTo(TimeUnit.NANOSECONDS));
     // long cost = System.nanoTime() - startTime;
     // If the future is cancelled, the task is in an error and should be thrown.
     if (future.isCancelled()) {
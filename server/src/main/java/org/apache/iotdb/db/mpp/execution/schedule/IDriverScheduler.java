@@ -21,6 +21,7 @@ package org.apache.iotdb.db.mpp.execution.schedule;
 import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
 import org.apache.iotdb.db.mpp.common.QueryId;
 import org.apache.iotdb.db.mpp.execution.driver.IDriver;
+import org.apache.iotdb.db.mpp.execution.resourcegroup.ResourceGroupManager;
 
 import java.util.List;
 
@@ -33,7 +34,18 @@ public interface IDriverScheduler {
    * @param queryId the queryId these instances belong to.
    * @param instances the submitted instances.
    */
-  void submitDrivers(QueryId queryId, List<IDriver> instances);
+  default void submitDrivers(QueryId queryId, List<IDriver> instances) {
+    submitDrivers(queryId, instances, ResourceGroupManager.DEFAULT_GROUP);
+  }
+
+  /**
+   * Submit one or more {@link IDriver} in one query for later scheduling.
+   *
+   * @param queryId the queryId these instances belong to.
+   * @param instances the submitted instances.
+   * @param resourceGroup the name of the resource group of the query.
+   */
+  void submitDrivers(QueryId queryId, List<IDriver> instances, String resourceGroup);
 
   /**
    * Abort all the instances in this query.
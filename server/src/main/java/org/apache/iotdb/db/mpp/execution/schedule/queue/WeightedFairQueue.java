@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.schedule.queue;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A subclass of {@link IndexedBlockingQueue} whose elements are divided into weighted groups. The
+ * elements of each group are kept in an {@link L2PriorityQueue}, and the next element is polled
+ * from the non-empty group with the least usage per weight, so that the groups share the resource
+ * used by the polled elements by their weights.
+ *
+ * <p>A group becoming non-empty takes no credit from the time it was empty: its usage per weight is
+ * raised to the least one of the groups polled so far, so it cannot starve the other groups.
+ *
+ * <p>The time complexity of operations are:
+ *
+ * <ul>
+ *   <li><b>{@link #remove(IDIndexedAccessible)} ()}: </b> O(logN).
+ *   <li><b>{@link #push(IDIndexedAccessible)}: </b> O(logN).
+ *   <li><b>{@link #poll()}: </b> O(logN + G), G is the number of the groups.
+ *   <li><b>{@link #get(ID)}}: </b> O(1).
+ * </ul>
+ */
+public class WeightedFairQueue<E extends IDIndexedAccessible> extends IndexedBlockingQueue<E> {
+
+  private final int maxCapacity;
+  private final Comparator<E> comparator;
+  private final E queryHolder;
+  private final Function<E, ? extends IWeightedGroup> groupGetter;
+
+  private final Map<IWeightedGroup, GroupQueue<E>> groupQueues;
+  private final Map<ID, IWeightedGroup> elementGroups;
+
+  // the usage per weight of the last polled group, which never decreases
+  private double virtualUsage;
+
+  /**
+   * Init the queue with max capacity and specified comparator.
+   *
+   * @see IndexedBlockingQueue
+   * @param maxCapacity the max capacity of the queue.
+   * @param comparator the comparator for comparing the elements in the same group.
+   * @param queryHolder the query holder instance.
+   * @param groupGetter the function getting the group of an element.
+   * @throws IllegalArgumentException if maxCapacity <= 0.
+   */
+  public WeightedFairQueue(
+      int maxCapacity,
+      Comparator<E> comparator,
+      E queryHolder,
+      Function<E, ? extends IWeightedGroup> groupGetter) {
+    super(maxCapacity, queryHolder);
+    this.maxCapacity = maxCapacity;
+    this.comparator = comparator;
+    this.queryHolder = queryHolder;
+    this.groupGetter = groupGetter;
+    this.groupQueues = new HashMap<>();
+    this.elementGroups = new HashMap<>();
+  }
+
+  @Override
+  protected boolean isEmpty() {
+    return elementGroups.isEmpty();
+  }
+
+  @Override
+  protected E pollFirst() {
+    GroupQueue<E> selected = null;
+    double selectedUsage = Double.MAX_VALUE;
+    for (GroupQueue<E> groupQueue : groupQueues.values()) {
+      if (groupQueue.elements.isEmpty()) {
+        continue;
+      }
+      double usage = groupQueue.getUsagePerWeight();
+      if (usage < selectedUsage) {
+        selected = groupQueue;
+        selectedUsage = usage;
+      }
+    }
+    virtualUsage = Math.max(virtualUsage, selectedUsage);
+    E element = selected.elements.pollFirst();
+    elementGroups.remove(element.getId());
+    return element;
+  }
+
+  @Override
+  protected void pushToQueue(E element) {
+    IWeightedGroup group = groupGetter.apply(element);
+    GroupQueue<E> groupQueue =
+        groupQueues.computeIfAbsent(
+            group, g -> new GroupQueue<>(g, maxCapacity, comparator, queryHolder));
+    if (groupQueue.elements.isEmpty()) {
+      groupQueue.catchUp(virtualUsage);
+    }
+    groupQueue.elements.pushToQueue(element);
+    elementGroups.put(element.getId(), group);
+  }
+
+  @Override
+  protected E remove(E element) {
+    IWeightedGroup group = elementGroups.remove(element.getId());
+    return group == null ? null : groupQueues.get(group).elements.remove(element);
+  }
+
+  @Override
+  protected boolean contains(E element) {
+    return elementGroups.containsKey(element.getId());
+  }
+
+  @Override
+  protected E get(E element) {
+    IWeightedGroup group = elementGroups.get(element.getId());
+    return group == null ? null : groupQueues.get(group).elements.get(element);
+  }
+
+  @Override
+  protected void clearAllElements() {
+    groupQueues.values().forEach(groupQueue -> groupQueue.elements.clearAllElements());
+    elementGroups.clear();
+  }
+
+  private static class GroupQueue<E extends IDIndexedAccessible> {
+
+    private final IWeightedGroup group;
+    private final L2PriorityQueue<E> elements;
+    // the usage credited to the group when it becomes non-empty
+    private long usageOffset;
+
+    private GroupQueue(
+        IWeightedGroup group, int maxCapacity, Comparator<E> comparator, E queryHolder) {
+      this.group = group;
+      this.elements = new L2PriorityQueue<>(maxCapacity, comparator, queryHolder);
+    }
+
+    private double getUsagePerWeight() {
+      return (double) (group.getUsage() + usageOffset) / Math.max(1, group.getWeight());
+    }
+
+    private void catchUp(double virtualUsage) {
+      double lag = virtualUsage - getUsagePerWeight();
+      if (lag > 0) {
+        usageOffset += (long) Math.ceil(lag * Math.max(1, group.getWeight()));
+      }
+    }
+  }
+}
@@ -23,6 +23,8 @@ import org.apache.iotdb.db.mpp.common.PlanFragmentId;
 import org.apache.iotdb.db.mpp.common.QueryId;
 import org.apache.iotdb.db.mpp.execution.datatransfer.ISinkHandle;
 import org.apache.iotdb.db.mpp.execution.driver.IDriver;
+import org.apache.iotdb.db.mpp.execution.resourcegroup.ResourceGroup;
+import org.apache.iotdb.db.mpp.execution.resourcegroup.ResourceGroupManager;
 import org.apache.iotdb.db.mpp.execution.schedule.DriverTaskThread;
 import org.apache.iotdb.db.mpp.execution.schedule.ExecutionContext;
 import org.apache.iotdb.db.mpp.execution.schedule.queue.ID;
@@ -47,6 +49,7 @@ public class DriverTask implements IDIndexedAccessible {
   private volatile double schedulePriority;
   private final long ddl;
   private final Lock lock;
+  private final ResourceGroup resourceGroup;
 
   // Running stats
   private long cpuWallNano;
@@ -59,12 +62,22 @@ public class DriverTask implements IDIndexedAccessible {
   }
 
   public DriverTask(IDriver instance, long timeoutMs, DriverTaskStatus status) {
+    this(
+        instance,
+        timeoutMs,
+        status,
+        ResourceGroupManager.getInstance().getGroup(ResourceGroupManager.DEFAULT_GROUP));
+  }
+
+  public DriverTask(
+      IDriver instance, long timeoutMs, DriverTaskStatus status, ResourceGroup resourceGroup) {
     this.fragmentInstance = instance;
     this.id = new DriverTaskID(instance.getInfo());
     this.setStatus(status);
     this.schedulePriority = 0.0D;
     this.ddl = System.currentTimeMillis() + timeoutMs;
     this.lock = new ReentrantLock();
+    this.resourceGroup = resourceGroup;
   }
 
   public DriverTaskID getId() {
@@ -128,6 +141,10 @@ public class DriverTask implements IDIndexedAccessible {
     return ddl;
   }
 
+  public ResourceGroup getResourceGroup() {
+    return resourceGroup;
+  }
+
   @Override
   public int hashCode() {
     return id.hashCode();
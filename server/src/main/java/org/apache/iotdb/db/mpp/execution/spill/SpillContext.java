@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.spill;
+
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
+import org.apache.iotdb.db.service.metrics.recorder.SpillMetricsRecorder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates the {@link SpillFile}s of the operators in a fragment instance and collects their
+ * statistics, which are reported with the query ID when the fragment instance is done.
+ */
+public class SpillContext {
+
+  private static final Logger logger = LoggerFactory.getLogger(SpillContext.class);
+
+  private final FragmentInstanceId instanceId;
+
+  private final AtomicLong spilledTsBlockCount = new AtomicLong();
+  private final AtomicLong serializedBytes = new AtomicLong();
+  private final AtomicLong spilledBytes = new AtomicLong();
+  private final AtomicLong spillTimeInNanos = new AtomicLong();
+  private final AtomicLong readTimeInNanos = new AtomicLong();
+
+  public SpillContext(FragmentInstanceId instanceId) {
+    this.instanceId = instanceId;
+  }
+
+  /** Create an empty spill file, which is deleted when it is closed. */
+  public SpillFile createSpillFile(File file) throws IOException {
+    return new SpillFile(
+        file, IoTDBDescriptor.getInstance().getConfig().getSpillCompressionType(), this);
+  }
+
+  void recordSpill(long serializedBytes, long spilledBytes, long timeInNanos) {
+    spilledTsBlockCount.incrementAndGet();
+    this.serializedBytes.addAndGet(serializedBytes);
+    this.spilledBytes.addAndGet(spilledBytes);
+    spillTimeInNanos.addAndGet(timeInNanos);
+    SpillMetricsRecorder.recordSpill(spilledBytes, timeInNanos);
+  }
+
+  void recordRead(long readBytes, long timeInNanos) {
+    readTimeInNanos.addAndGet(timeInNanos);
+    SpillMetricsRecorder.recordRead(readBytes, timeInNanos);
+  }
+
+  public long getSpilledTsBlockCount() {
+    return spilledTsBlockCount.get();
+  }
+
+  /** @return the bytes written to the spill files, after compression */
+  public long getSpilledBytes() {
+    return spilledBytes.get();
+  }
+
+  public long getSpillTimeInMs() {
+    return TimeUnit.NANOSECONDS.toMillis(spillTimeInNanos.get());
+  }
+
+  /** Log the statistics of the fragment instance if anything is spilled. */
+  public void report() {
+    if (spilledTsBlockCount.get() == 0) {
+      return;
+    }
+    logger.info(
+        "Query {} fragment instance {} spilled {} TsBlocks, serialized bytes: {}, spilled bytes: {}, "
+            + "spill time: {}ms, read time: {}ms",
+        instanceId.getQueryId(),
+        instanceId.getInstanceId(),
+        spilledTsBlockCount.get(),
+        serializedBytes.get(),
+        spilledBytes.get(),
+        getSpillTimeInMs(),
+        TimeUnit.NANOSECONDS.toMillis(readTimeInNanos.get()));
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.spill;
+
+import org.apache.iotdb.db.mpp.execution.datatransfer.TsBlockCompressor;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.TsBlockSerde;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+/**
+ * An append-only file of the TsBlocks spilled by an operator. Each TsBlock is serialized,
+ * compressed by the {@link TsBlockCompressor} and written as its length followed by the bytes. The
+ * TsBlocks can be read back by their offsets, or one by one in the written order by a {@link
+ * Reader}. The file is deleted when it is closed.
+ */
+public class SpillFile implements AutoCloseable {
+
+  private final File file;
+  private final SpillContext spillContext;
+  private final TsBlockCompressor compressor;
+  private final IUnCompressor unCompressor;
+  private final TsBlockSerde serde = new TsBlockSerde();
+
+  private FileChannel channel;
+  private long sizeInBytes = 0L;
+  private int tsBlockCount = 0;
+
+  SpillFile(File file, CompressionType compressionType, SpillContext spillContext)
+      throws IOException {
+    this.file = file;
+    this.spillContext = spillContext;
+    this.compressor = new TsBlockCompressor(compressionType);
+    this.unCompressor = IUnCompressor.getUnCompressor(compressionType);
+    Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+    this.channel =
+        FileChannel.open(
+            file.toPath(),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+  }
+
+  /** @return the offset of the TsBlock in the file */
+  public long write(TsBlock tsBlock) throws IOException {
+    long startTime = System.nanoTime();
+    ByteBuffer serialized = serde.serialize(tsBlock);
+    int serializedSize = serialized.remaining();
+    ByteBuffer body = compressor.isCompressed() ? compressor.compress(serialized) : serialized;
+    ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+    header.putInt(body.remaining());
+    header.flip();
+
+    long offset = sizeInBytes;
+    long length = (long) Integer.BYTES + body.remaining();
+    ByteBuffer[] buffers = new ByteBuffer[] {header, body};
+    while (body.hasRemaining()) {
+      channel.write(buffers);
+    }
+    sizeInBytes += length;
+    tsBlockCount++;
+    spillContext.recordSpill(serializedSize, length, System.nanoTime() - startTime);
+    return offset;
+  }
+
+  /** Read the TsBlock written at the offset. */
+  public TsBlock read(long offset) throws IOException {
+    long startTime = System.nanoTime();
+    return decode(readBody(offset), startTime);
+  }
+
+  /** Iterates the TsBlocks in the written order. */
+  public Reader reader() {
+    return new Reader();
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  public long getSizeInBytes() {
+    return sizeInBytes;
+  }
+
+  public int getTsBlockCount() {
+    return tsBlockCount;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (channel != null) {
+      channel.close();
+      channel = null;
+    }
+    Files.deleteIfExists(file.toPath());
+  }
+
+  private ByteBuffer readBody(long offset) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+    readFully(header, offset);
+    ByteBuffer body = ByteBuffer.allocate(header.getInt(0));
+    readFully(body, offset + Integer.BYTES);
+    body.flip();
+    return body;
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position);
+      if (read < 0) {
+        throw new EOFException("Unexpected end of spill file " + file);
+      }
+      position += read;
+    }
+  }
+
+  private TsBlock decode(ByteBuffer body, long startTime) throws IOException {
+    int readBytes = body.remaining();
+    ByteBuffer serialized =
+        compressor.isCompressed() ? TsBlockCompressor.uncompress(body, unCompressor) : body;
+    TsBlock tsBlock = serde.deserialize(serialized);
+    spillContext.recordRead(readBytes, System.nanoTime() - startTime);
+    return tsBlock;
+  }
+
+  /** Reads the TsBlocks of the file one by one, from the first one. */
+  public class Reader {
+
+    private long nextOffset = 0L;
+    private int readTsBlockCount = 0;
+
+    private Reader() {}
+
+    public boolean hasNext() {
+      return readTsBlockCount < tsBlockCount;
+    }
+
+    public TsBlock next() throws IOException {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      long startTime = System.nanoTime();
+      ByteBuffer body = readBody(nextOffset);
+      nextOffset += Integer.BYTES + body.remaining();
+      readTsBlockCount++;
+      return decode(body, startTime);
+    }
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.spill;
+
+import org.apache.iotdb.db.mpp.execution.memory.MemoryPool;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A list of the TsBlocks buffered by an operator. The TsBlocks are kept in memory reserved from the
+ * {@link MemoryPool} until the list holds maxBufferSizeInBytes, and the others are spilled to a
+ * {@link SpillFile}. A spilled TsBlock is read back each time it is got, except that the last one
+ * read is cached, as the TsBlocks are usually got one by one.
+ *
+ * <p>If the memory pool is null, all the TsBlocks are kept in memory without reservation.
+ */
+public class SpillableTsBlockList implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(SpillableTsBlockList.class);
+
+  private final MemoryPool memoryPool;
+  private final String queryId;
+  private final long maxBufferSizeInBytes;
+  private final SpillContext spillContext;
+  private final String spillFilePrefix;
+
+  private final List<Entry> entries = new ArrayList<>();
+  private long reservedBytes = 0L;
+  private int spilledCount = 0;
+
+  private SpillFile spillFile;
+  private int spillFileCount = 0;
+
+  private Entry cachedEntry;
+  private TsBlock cachedTsBlock;
+
+  /**
+   * @param spillFilePrefix the path prefix of the spill files, which is followed by the sequence
+   *     number of the file
+   */
+  public SpillableTsBlockList(
+      MemoryPool memoryPool,
+      String queryId,
+      long maxBufferSizeInBytes,
+      SpillContext spillContext,
+      String spillFilePrefix) {
+    this.memoryPool = memoryPool;
+    this.queryId = queryId;
+    this.maxBufferSizeInBytes = maxBufferSizeInBytes;
+    this.spillContext = spillContext;
+    this.spillFilePrefix = spillFilePrefix;
+  }
+
+  public void add(TsBlock tsBlock) throws IOException {
+    long size = tsBlock.getRetainedSizeInBytes();
+    if (reserve(size)) {
+      entries.add(new Entry(tsBlock, size));
+      return;
+    }
+    if (spillFile == null) {
+      spillFile = spillContext.createSpillFile(new File(spillFilePrefix + spillFileCount++));
+    }
+    entries.add(new Entry(spillFile.write(tsBlock)));
+    spilledCount++;
+  }
+
+  public TsBlock get(int index) throws IOException {
+    Entry entry = entries.get(index);
+    if (entry.tsBlock != null) {
+      return entry.tsBlock;
+    }
+    if (cachedEntry != entry) {
+      cachedTsBlock = spillFile.read(entry.offset);
+      cachedEntry = entry;
+    }
+    return cachedTsBlock;
+  }
+
+  public TsBlock removeFirst() throws IOException {
+    TsBlock tsBlock = get(0);
+    Entry entry = entries.remove(0);
+    if (entry.tsBlock != null) {
+      if (memoryPool != null && entry.size > 0) {
+        reservedBytes -= entry.size;
+        memoryPool.free(queryId, entry.size);
+      }
+    } else {
+      spilledCount--;
+      if (cachedEntry == entry) {
+        cachedEntry = null;
+        cachedTsBlock = null;
+      }
+      if (spilledCount == 0) {
+        // all the spilled TsBlocks are removed, so the file can be dropped
+        closeSpillFile();
+      }
+    }
+    return tsBlock;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public boolean isEmpty() {
+    return entries.isEmpty();
+  }
+
+  @Override
+  public void close() throws IOException {
+    entries.clear();
+    spilledCount = 0;
+    cachedEntry = null;
+    cachedTsBlock = null;
+    if (reservedBytes > 0) {
+      memoryPool.free(queryId, reservedBytes);
+      reservedBytes = 0;
+    }
+    closeSpillFile();
+  }
+
+  private boolean reserve(long size) {
+    if (memoryPool == null) {
+      return true;
+    }
+    // once a TsBlock is spilled, the later ones are spilled too until it is removed, so that the
+    // TsBlocks in memory are always the first ones
+    if (spilledCount > 0
+        || size > memoryPool.getMaxBytesPerQuery()
+        || reservedBytes + size > maxBufferSizeInBytes) {
+      return false;
+    }
+    if (size == 0 || memoryPool.tryReserve(queryId, size)) {
+      reservedBytes += size;
+      return true;
+    }
+    return false;
+  }
+
+  private void closeSpillFile() throws IOException {
+    if (spillFile != null) {
+      logger.debug(
+          "drop spill file {} of {} TsBlocks", spillFile.getFile(), spillFile.getTsBlockCount());
+      spillFile.close();
+      spillFile = null;
+    }
+  }
+
+  private static class Entry {
+
+    /** null if the TsBlock is spilled */
+    private final TsBlock tsBlock;
+
+    private final long size;
+    private final long offset;
+
+    private Entry(TsBlock tsBlock, long size) {
+      this.tsBlock = tsBlock;
+      this.size = size;
+      this.offset = -1L;
+    }
+
+    private Entry(long offset) {
+      this.tsBlock = null;
+      this.size = 0L;
+      this.offset = offset;
+    }
+  }
+}
@@ -20,6 +20,7 @@ package org.apache.iotdb.db.mpp.plan;
 
 import org.apache.iotdb.common.rpc.thrift.TEndPoint;
 import org.apache.iotdb.commons.client.IClientManager;
+import org.apache.iotdb.commons.client.async.AsyncDataNodeInternalServiceClient;
 import org.apache.iotdb.commons.client.sync.SyncDataNodeInternalServiceClient;
 import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.db.client.DataNodeClientPoolFactory;
@@ -30,9 +31,13 @@ import org.apache.iotdb.db.mpp.execution.QueryIdGenerator;
 import org.apache.iotdb.db.mpp.plan.analyze.IPartitionFetcher;
 import org.apache.iotdb.db.mpp.plan.analyze.ISchemaFetcher;
 import org.apache.iotdb.db.mpp.plan.constant.DataNodeEndPoints;
+import org.apache.iotdb.db.mpp.plan.execution.CachedGroupByTimeQueryExecution;
 import org.apache.iotdb.db.mpp.plan.execution.ExecutionResult;
 import org.apache.iotdb.db.mpp.plan.execution.IQueryExecution;
 import org.apache.iotdb.db.mpp.plan.execution.QueryExecution;
+import org.apache.iotdb.db.mpp.plan.execution.cache.AnalyzedPlanCache;
+import org.apache.iotdb.db.mpp.plan.execution.cache.AnalyzedPlanCache.AnalyzedPlan;
+import org.apache.iotdb.db.mpp.plan.execution.cache.GroupByTimeResultCache;
 import org.apache.iotdb.db.mpp.plan.execution.config.ConfigExecution;
 import org.apache.iotdb.db.mpp.plan.statement.IConfigStatement;
 import org.apache.iotdb.db.mpp.plan.statement.Statement;
@@ -41,6 +46,8 @@ import io.airlift.concurrent.SetThreadName;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
@@ -66,6 +73,12 @@ public class Coordinator {
               .createClientManager(
                   new DataNodeClientPoolFactory.SyncDataNodeInternalServiceClientPoolFactory());
 
+  private static final IClientManager<TEndPoint, AsyncDataNodeInternalServiceClient>
+      ASYNC_INTERNAL_SERVICE_CLIENT_MANAGER =
+          new IClientManager.Factory<TEndPoint, AsyncDataNodeInternalServiceClient>()
+              .createClientManager(
+                  new DataNodeClientPoolFactory.AsyncDataNodeInternalServiceClientPoolFactory());
+
   private final ExecutorService executor;
   private final ExecutorService writeOperationExecutor;
   private final ScheduledExecutorService scheduledExecutor;
@@ -92,47 +105,88 @@ public class Coordinator {
       queryContext.setQueryType(((IConfigStatement) statement).getQueryType());
       return new ConfigExecution(queryContext, statement, executor);
     }
-    return new QueryExecution(
+    QueryExecution queryExecution =
+        new QueryExecution(
+            statement,
+            queryContext,
+            executor,
+            writeOperationExecutor,
+            scheduledExecutor,
+            partitionFetcher,
+            schemaFetcher,
+            INTERNAL_SERVICE_CLIENT_MANAGER,
+            ASYNC_INTERNAL_SERVICE_CLIENT_MANAGER);
+    if (GroupByTimeResultCache.getInstance().isEnabled()
+        && GroupByTimeResultCache.isCacheable(statement)) {
+      return new CachedGroupByTimeQueryExecution(queryExecution);
+    }
+    return queryExecution;
+  }
+
+  public ExecutionResult execute(
+      Statement statement,
+      long queryId,
+      SessionInfo session,
+      String sql,
+      IPartitionFetcher partitionFetcher,
+      ISchemaFetcher schemaFetcher) {
+    return execute(
         statement,
-        queryContext,
-        executor,
-        writeOperationExecutor,
-        scheduledExecutor,
+        queryId,
+        session,
+        sql,
         partitionFetcher,
         schemaFetcher,
-        INTERNAL_SERVICE_CLIENT_MANAGER);
+        null,
+        Collections.emptyList(),
+        null);
   }
 
+  /**
+   * Execute the statement with the AnalyzedPlanCache. If cachedPlan is bound to planCacheParameters,
+   * the statement is the one in it and its analysis and logical plan are reused. If it is bound to
+   * other values, the statement is analyzed with its schema tree and data partition. The plan of an
+   * analyzed statement is cached with planCacheKey after the logical planning, unless the key is
+   * null.
+   */
   public ExecutionResult execute(
       Statement statement,
       long queryId,
       SessionInfo session,
       String sql,
       IPartitionFetcher partitionFetcher,
-      ISchemaFetcher schemaFetcher) {
+      ISchemaFetcher schemaFetcher,
+      String planCacheKey,
+      List<String> planCacheParameters,
+      AnalyzedPlan cachedPlan) {
 
     QueryId globalQueryId = queryIdGenerator.createNextQueryId();
     try (SetThreadName queryName = new SetThreadName(globalQueryId.getId())) {
       if (sql != null) {
         LOGGER.info("start executing sql: {}", sql);
       }
+      MPPQueryContext queryContext =
+          new MPPQueryContext(
+              sql,
+              globalQueryId,
+              session,
+              DataNodeEndPoints.LOCAL_HOST_DATA_BLOCK_ENDPOINT,
+              DataNodeEndPoints.LOCAL_HOST_INTERNAL_ENDPOINT);
+      queryContext.setPlanCacheKey(planCacheKey);
+      queryContext.setPlanCacheParameters(planCacheParameters);
+      queryContext.setCachedPlan(cachedPlan);
       IQueryExecution execution =
-          createQueryExecution(
-              statement,
-              new MPPQueryContext(
-                  sql,
-                  globalQueryId,
-                  session,
-                  DataNodeEndPoints.LOCAL_HOST_DATA_BLOCK_ENDPOINT,
-                  DataNodeEndPoints.LOCAL_HOST_INTERNAL_ENDPOINT),
-              partitionFetcher,
-              schemaFetcher);
+          createQueryExecution(statement, queryContext, partitionFetcher, schemaFetcher);
       if (execution.isQuery()) {
         queryExecutionMap.put(queryId, execution);
       }
       execution.start();
 
-      return execution.getStatus();
+      ExecutionResult result = execution.getStatus();
+      if (AnalyzedPlanCache.isInvalidatedBy(statement)) {
+        AnalyzedPlanCache.getInstance().invalidateAll();
+      }
+      return result;
     }
   }
 
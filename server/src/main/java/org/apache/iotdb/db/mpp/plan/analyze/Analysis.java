@@ -21,6 +21,7 @@ package org.apache.iotdb.db.mpp.plan.analyze;
 
 import org.apache.iotdb.common.rpc.thrift.TRegionReplicaSet;
 import org.apache.iotdb.commons.partition.DataPartition;
+import org.apache.iotdb.commons.partition.DataPartitionQueryParam;
 import org.apache.iotdb.commons.partition.SchemaPartition;
 import org.apache.iotdb.commons.path.PartialPath;
 import org.apache.iotdb.db.mpp.common.header.DatasetHeader;
@@ -29,6 +30,7 @@ import org.apache.iotdb.db.mpp.plan.expression.Expression;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.FillDescriptor;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.FilterNullParameter;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.GroupByTimeParameter;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.SortKeyDescriptor;
 import org.apache.iotdb.db.mpp.plan.statement.Statement;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 
@@ -51,6 +53,9 @@ public class Analysis {
 
   private DataPartition dataPartition;
 
+  // the devices whose data partition is fetched, kept to fetch it again when the analysis is reused
+  private Map<String, List<DataPartitionQueryParam>> dataPartitionQueryParams;
+
   private SchemaPartition schemaPartition;
 
   private SchemaTree schemaTree;
@@ -84,6 +89,9 @@ public class Analysis {
   // map from raw path to grouped path in `GROUP BY LEVEL` clause
   private Map<Expression, Expression> rawPathToGroupedPathMap;
 
+  // expressions of `GROUP BY VALUES` clause, each of them is one column of the raw data
+  private List<Expression> groupByValueExpressions;
+
   private boolean isRawDataSource;
 
   /////////////////////////////////////////////////////////////////////////////////////////////////
@@ -133,6 +141,9 @@ public class Analysis {
   // parameter of `GROUP BY TIME` clause
   private GroupByTimeParameter groupByTimeParameter;
 
+  // keys of `ORDER BY` clause, null if the result is only ordered by time
+  private List<SortKeyDescriptor> sortKeys;
+
   // header of result dataset
   private DatasetHeader respDatasetHeader;
 
@@ -147,6 +158,49 @@ public class Analysis {
     this.finishQueryAfterAnalyze = false;
   }
 
+  /**
+   * Copy the analysis for another execution of the same query. The type provider and the header of
+   * the result dataset are filled by the distribution planning of each execution, so they are
+   * copied, and the other fields are shared as they are not modified after the analysis.
+   */
+  public Analysis copy() {
+    Analysis copy = new Analysis();
+    copy.statement = statement;
+    copy.queryType = queryType;
+    copy.dataPartition = dataPartition;
+    copy.dataPartitionQueryParams = dataPartitionQueryParams;
+    copy.schemaPartition = schemaPartition;
+    copy.schemaTree = schemaTree;
+    copy.typeProvider = typeProvider == null ? null : typeProvider.copy();
+    copy.finishQueryAfterAnalyze = finishQueryAfterAnalyze;
+    copy.sourceExpressions = sourceExpressions;
+    copy.aggregationTransformExpressions = aggregationTransformExpressions;
+    copy.aggregationExpressions = aggregationExpressions;
+    copy.transformExpressions = transformExpressions;
+    copy.queryFilter = queryFilter;
+    copy.groupByLevelExpressions = groupByLevelExpressions;
+    copy.rawPathToGroupedPathMap = rawPathToGroupedPathMap;
+    copy.groupByValueExpressions = groupByValueExpressions;
+    copy.isRawDataSource = isRawDataSource;
+    copy.deviceToSourceExpressions = deviceToSourceExpressions;
+    copy.deviceToAggregationTransformExpressions = deviceToAggregationTransformExpressions;
+    copy.deviceToAggregationExpressions = deviceToAggregationExpressions;
+    copy.deviceToTransformExpressions = deviceToTransformExpressions;
+    copy.deviceToQueryFilter = deviceToQueryFilter;
+    copy.deviceToMeasurementIndexesMap = deviceToMeasurementIndexesMap;
+    copy.deviceToIsRawDataSource = deviceToIsRawDataSource;
+    copy.hasValueFilter = hasValueFilter;
+    copy.isHasRawDataInputAggregation = isHasRawDataInputAggregation;
+    copy.globalTimeFilter = globalTimeFilter;
+    copy.filterNullParameter = filterNullParameter;
+    copy.fillDescriptor = fillDescriptor;
+    copy.groupByTimeParameter = groupByTimeParameter;
+    copy.sortKeys = sortKeys;
+    copy.respDatasetHeader = respDatasetHeader == null ? null : respDatasetHeader.copy();
+    copy.matchedNodes = matchedNodes;
+    return copy;
+  }
+
   public List<TRegionReplicaSet> getPartitionInfo(PartialPath seriesPath, Filter timefilter) {
     // TODO: (xingtanzjr) implement the calculation of timePartitionIdList
     return dataPartition.getDataRegionReplicaSet(seriesPath.getDevice(), null);
@@ -172,6 +226,15 @@ public class Analysis {
     this.dataPartition = dataPartition;
   }
 
+  public Map<String, List<DataPartitionQueryParam>> getDataPartitionQueryParams() {
+    return dataPartitionQueryParams;
+  }
+
+  public void setDataPartitionQueryParams(
+      Map<String, List<DataPartitionQueryParam>> dataPartitionQueryParams) {
+    this.dataPartitionQueryParams = dataPartitionQueryParams;
+  }
+
   public SchemaPartition getSchemaPartitionInfo() {
     return schemaPartition;
   }
@@ -233,6 +296,14 @@ public class Analysis {
     this.groupByLevelExpressions = groupByLevelExpressions;
   }
 
+  public List<Expression> getGroupByValueExpressions() {
+    return groupByValueExpressions;
+  }
+
+  public void setGroupByValueExpressions(List<Expression> groupByValueExpressions) {
+    this.groupByValueExpressions = groupByValueExpressions;
+  }
+
   public void setRawPathToGroupedPathMap(Map<Expression, Expression> rawPathToGroupedPathMap) {
     this.rawPathToGroupedPathMap = rawPathToGroupedPathMap;
   }
@@ -264,6 +335,14 @@ public class Analysis {
     this.fillDescriptor = fillDescriptor;
   }
 
+  public List<SortKeyDescriptor> getSortKeys() {
+    return sortKeys;
+  }
+
+  public void setSortKeys(List<SortKeyDescriptor> sortKeys) {
+    this.sortKeys = sortKeys;
+  }
+
   public boolean hasValueFilter() {
     return hasValueFilter;
   }
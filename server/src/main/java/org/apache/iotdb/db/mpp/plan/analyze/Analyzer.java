@@ -43,13 +43,16 @@ import org.apache.iotdb.db.mpp.plan.expression.leaf.TimeSeriesOperand;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.FillDescriptor;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.FilterNullParameter;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.GroupByTimeParameter;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.SortKeyDescriptor;
 import org.apache.iotdb.db.mpp.plan.statement.Statement;
 import org.apache.iotdb.db.mpp.plan.statement.StatementNode;
 import org.apache.iotdb.db.mpp.plan.statement.StatementVisitor;
 import org.apache.iotdb.db.mpp.plan.statement.component.FillComponent;
 import org.apache.iotdb.db.mpp.plan.statement.component.FillPolicy;
 import org.apache.iotdb.db.mpp.plan.statement.component.GroupByTimeComponent;
+import org.apache.iotdb.db.mpp.plan.statement.component.OrderBy;
 import org.apache.iotdb.db.mpp.plan.statement.component.ResultColumn;
+import org.apache.iotdb.db.mpp.plan.statement.component.SortItem;
 import org.apache.iotdb.db.mpp.plan.statement.crud.DeleteDataStatement;
 import org.apache.iotdb.db.mpp.plan.statement.crud.InsertMultiTabletsStatement;
 import org.apache.iotdb.db.mpp.plan.statement.crud.InsertRowStatement;
@@ -348,6 +351,21 @@ public class Analyzer {
                     transformExpressions, aggregationExpressions, aggregationTransformExpressions);
             analysis.setAggregationExpressions(aggregationExpressions);
             analysis.setAggregationTransformExpressions(aggregationTransformExpressions);
+
+            if (queryStatement.isGroupByValues()) {
+              List<Expression> groupByValueExpressions =
+                  analyzeGroupByValues(queryStatement, schemaTree);
+              analysis.setGroupByValueExpressions(groupByValueExpressions);
+              // the rows are grouped by the raw data, and the keys lead the output columns
+              aggregationTransformExpressions.addAll(groupByValueExpressions);
+              Set<Expression> groupedTransformExpressions =
+                  new LinkedHashSet<>(groupByValueExpressions);
+              groupedTransformExpressions.addAll(transformExpressions);
+              transformExpressions = groupedTransformExpressions;
+              for (int i = 0; i < groupByValueExpressions.size(); i++) {
+                outputExpressions.add(i, new Pair<>(groupByValueExpressions.get(i), null));
+              }
+            }
           }
 
           // generate sourceExpression according to transformExpressions
@@ -356,7 +374,8 @@ public class Analyzer {
           boolean isRawDataSource =
               !queryStatement.isAggregationQuery()
                   || isValueFilterAggregation
-                  || isHasRawDataInputAggregation;
+                  || isHasRawDataInputAggregation
+                  || queryStatement.isGroupByValues();
           for (Expression expression : transformExpressions) {
             updateSource(expression, sourceExpressions, isRawDataSource);
           }
@@ -415,6 +434,11 @@ public class Analyzer {
         // generate result set header according to output expressions
         DatasetHeader datasetHeader = analyzeOutput(queryStatement, outputExpressions);
         analysis.setRespDatasetHeader(datasetHeader);
+
+        // resolve the keys of ORDER BY to the output columns
+        if (queryStatement.hasSortItems()) {
+          analysis.setSortKeys(analyzeSortItems(queryStatement, schemaTree, outputExpressions));
+        }
         analysis.setTypeProvider(typeProvider);
 
         // fetch partition information
@@ -426,8 +450,7 @@ public class Analyzer {
             deviceSet.add(ExpressionAnalyzer.getDeviceNameInSourceExpression(expression));
           }
         }
-        DataPartition dataPartition = fetchDataPartitionByDevices(deviceSet, schemaTree);
-        analysis.setDataPartitionInfo(dataPartition);
+        fetchDataPartitionByDevices(analysis, deviceSet, schemaTree);
       } catch (StatementAnalyzeException e) {
         logger.error("Meet error when analyzing the query statement: ", e);
         throw new StatementAnalyzeException("Meet error when analyzing the query statement");
@@ -637,6 +660,29 @@ public class Analyzer {
       return isHasRawDataInputAggregation;
     }
 
+    /** Resolve each key of GROUP BY VALUES to one column of the raw data. */
+    private List<Expression> analyzeGroupByValues(
+        QueryStatement queryStatement, SchemaTree schemaTree) {
+      List<Expression> groupByValueExpressions = new ArrayList<>();
+      for (Expression expression : queryStatement.getGroupByValueExpressions()) {
+        List<Expression> resultExpressions =
+            ExpressionAnalyzer.removeWildcardInExpression(expression, schemaTree);
+        if (resultExpressions.size() != 1) {
+          throw new SemanticException(
+              String.format(
+                  "GROUP BY VALUES key '%s' can only be matched with one column", expression));
+        }
+        Expression groupByValueExpression =
+            ExpressionAnalyzer.removeAliasFromExpression(resultExpressions.get(0));
+        ExpressionAnalyzer.updateTypeProvider(groupByValueExpression, typeProvider);
+        groupByValueExpression.inferTypes(typeProvider);
+        if (!groupByValueExpressions.contains(groupByValueExpression)) {
+          groupByValueExpressions.add(groupByValueExpression);
+        }
+      }
+      return groupByValueExpressions;
+    }
+
     private Expression analyzeWhere(QueryStatement queryStatement, SchemaTree schemaTree) {
       List<Expression> rewrittenPredicates =
           ExpressionAnalyzer.removeWildcardInQueryFilter(
@@ -771,6 +817,56 @@ public class Analyzer {
       return resultFilterNullColumns;
     }
 
+    /**
+     * Resolve each key of ORDER BY to the output column it matches. The rows with equal keys are
+     * ordered by time, so the time is always the last key.
+     *
+     * @return the keys to sort the output rows, or null if they are only ordered by time
+     */
+    private List<SortKeyDescriptor> analyzeSortItems(
+        QueryStatement queryStatement,
+        SchemaTree schemaTree,
+        List<Pair<Expression, String>> outputExpressions) {
+      Set<Expression> outputColumns =
+          outputExpressions.stream().map(Pair::getLeft).collect(Collectors.toSet());
+      List<SortKeyDescriptor> sortKeys = new ArrayList<>();
+      for (SortItem sortItem : queryStatement.getSortItems()) {
+        if (sortItem.isTime()) {
+          sortKeys.add(SortKeyDescriptor.time(sortItem.isAscending()));
+          if (queryStatement.isAlignByDevice()) {
+            continue;
+          }
+          // the time is unique in a result set aligned by time, the keys after it are useless
+          break;
+        }
+        Expression sortKey = sortItem.getSortKey();
+        if (!queryStatement.isAlignByDevice()) {
+          List<Expression> resultExpressions =
+              ExpressionAnalyzer.removeWildcardInExpression(sortKey, schemaTree);
+          if (resultExpressions.size() != 1) {
+            throw new SemanticException(
+                String.format("ORDER BY key '%s' can only be matched with one column", sortKey));
+          }
+          sortKey = ExpressionAnalyzer.removeAliasFromExpression(resultExpressions.get(0));
+        }
+        if (!outputColumns.contains(sortKey)) {
+          throw new SemanticException(
+              String.format("The ORDER BY key '%s' doesn't match the columns queried.", sortKey));
+        }
+        sortKeys.add(new SortKeyDescriptor(sortKey.getExpressionString(), sortItem.isAscending()));
+      }
+
+      if (sortKeys.get(0).isTime() && !queryStatement.isAlignByDevice()) {
+        // already ordered by the scan
+        return null;
+      }
+      if (sortKeys.stream().noneMatch(SortKeyDescriptor::isTime)) {
+        sortKeys.add(
+            SortKeyDescriptor.time(queryStatement.getResultOrder() == OrderBy.TIMESTAMP_ASC));
+      }
+      return sortKeys;
+    }
+
     private DatasetHeader analyzeOutput(
         QueryStatement queryStatement, List<Pair<Expression, String>> outputExpressions) {
       boolean isIgnoreTimestamp =
@@ -809,23 +905,13 @@ public class Analyzer {
 
       Set<String> deviceSet =
           allSelectedPath.stream().map(MeasurementPath::getDevice).collect(Collectors.toSet());
-      Map<String, List<DataPartitionQueryParam>> sgNameToQueryParamsMap = new HashMap<>();
-      for (String devicePath : deviceSet) {
-        DataPartitionQueryParam queryParam = new DataPartitionQueryParam();
-        queryParam.setDevicePath(devicePath);
-        sgNameToQueryParamsMap
-            .computeIfAbsent(
-                schemaTree.getBelongedStorageGroup(devicePath), key -> new ArrayList<>())
-            .add(queryParam);
-      }
-      DataPartition dataPartition = partitionFetcher.getDataPartition(sgNameToQueryParamsMap);
-      analysis.setDataPartitionInfo(dataPartition);
+      fetchDataPartitionByDevices(analysis, deviceSet, schemaTree);
 
       return analysis;
     }
 
-    private DataPartition fetchDataPartitionByDevices(
-        Set<String> deviceSet, SchemaTree schemaTree) {
+    private void fetchDataPartitionByDevices(
+        Analysis analysis, Set<String> deviceSet, SchemaTree schemaTree) {
       Map<String, List<DataPartitionQueryParam>> sgNameToQueryParamsMap = new HashMap<>();
       for (String devicePath : deviceSet) {
         DataPartitionQueryParam queryParam = new DataPartitionQueryParam();
@@ -835,7 +921,8 @@ public class Analyzer {
                 schemaTree.getBelongedStorageGroup(devicePath), key -> new ArrayList<>())
             .add(queryParam);
       }
-      return partitionFetcher.getDataPartition(sgNameToQueryParamsMap);
+      analysis.setDataPartitionQueryParams(sgNameToQueryParamsMap);
+      analysis.setDataPartitionInfo(partitionFetcher.getDataPartition(sgNameToQueryParamsMap));
     }
 
     /**
@@ -48,6 +48,7 @@ import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.sql.StatementAnalyzeException;
 import org.apache.iotdb.db.metadata.utils.MetaUtils;
 import org.apache.iotdb.db.mpp.common.schematree.PathPatternTree;
+import org.apache.iotdb.db.mpp.plan.execution.cache.AnalyzedPlanCache;
 import org.apache.iotdb.db.service.metrics.recorder.CacheMetricsRecorder;
 import org.apache.iotdb.rpc.TSStatusCode;
 import org.apache.iotdb.tsfile.utils.PublicBAOS;
@@ -142,6 +143,8 @@ public class ClusterPartitionFetcher implements IPartitionFetcher {
             == TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
           schemaPartition = parseSchemaPartitionResp(schemaPartitionResp);
           partitionCache.updateSchemaPartitionCache(devicePaths, schemaPartition);
+          // the partitions may be newly created
+          AnalyzedPlanCache.getInstance().invalidateAll();
         }
       }
       return schemaPartition;
@@ -217,6 +220,7 @@ public class ClusterPartitionFetcher implements IPartitionFetcher {
       TDataPartitionResp dataPartitionResp =
           client.getOrCreateDataPartition(constructDataPartitionReq(sgNameToQueryParamsMap));
       if (dataPartitionResp.getStatus().getCode() == TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
+        AnalyzedPlanCache.getInstance().invalidateAll();
         return parseDataPartitionResp(dataPartitionResp);
       }
     } catch (TException | IOException e) {
@@ -242,6 +246,8 @@ public class ClusterPartitionFetcher implements IPartitionFetcher {
             == TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
           dataPartition = parseDataPartitionResp(dataPartitionResp);
           partitionCache.updateDataPartitionCache(dataPartition);
+          // the partitions may be newly created
+          AnalyzedPlanCache.getInstance().invalidateAll();
         }
       }
       return dataPartition;
@@ -257,6 +263,7 @@ public class ClusterPartitionFetcher implements IPartitionFetcher {
     partitionCache.storageGroupCache.clear();
     partitionCache.invalidAllDataPartitionCache();
     partitionCache.invalidAllSchemaPartitionCache();
+    AnalyzedPlanCache.getInstance().invalidateAll();
     logger.debug("PartitionCache is invalid:{}", partitionCache);
   }
 
@@ -27,6 +27,7 @@ import org.apache.iotdb.db.mpp.plan.statement.Statement;
 import org.apache.iotdb.db.mpp.plan.statement.component.FilterNullComponent;
 import org.apache.iotdb.db.mpp.plan.statement.component.ResultColumn;
 import org.apache.iotdb.db.mpp.plan.statement.component.SelectComponent;
+import org.apache.iotdb.db.mpp.plan.statement.component.SortItem;
 import org.apache.iotdb.db.mpp.plan.statement.crud.QueryStatement;
 
 import java.util.ArrayList;
@@ -37,8 +38,8 @@ import java.util.stream.Collectors;
 /**
  * This rewriter:
  *
- * <p>1. Concat prefix path in SELECT, WHERE, and WITHOUT NULL clause with the suffix path in the
- * FROM clause.
+ * <p>1. Concat prefix path in SELECT, WHERE, WITHOUT NULL, ORDER BY and GROUP BY VALUES clause with
+ * the suffix path in the FROM clause.
  *
  * <p>2. Construct a {@link PathPatternTree}.
  */
@@ -93,6 +94,50 @@ public class ConcatPathRewriter {
       }
     }
 
+    // concat ORDER BY with FROM
+    if (queryStatement.hasSortItems()) {
+      Map<String, Expression> aliasToColumnMap =
+          queryStatement.getSelectComponent().getAliasToColumnMap();
+      for (SortItem sortItem : queryStatement.getSortItems()) {
+        if (sortItem.isTime()) {
+          continue;
+        }
+        // replace alias
+        Expression sortKey =
+            aliasToColumnMap.getOrDefault(
+                sortItem.getSortKey().getExpressionString(), sortItem.getSortKey());
+        if (!queryStatement.isAlignByDevice()) {
+          List<Expression> sortKeys =
+              ExpressionAnalyzer.concatExpressionWithSuffixPaths(sortKey, prefixPaths, patternTree);
+          if (sortKeys.size() != 1) {
+            throw new SemanticException(
+                String.format(
+                    "ORDER BY key '%s' can only be matched with one column",
+                    sortItem.getSortKey()));
+          }
+          sortKey = sortKeys.get(0);
+        }
+        sortItem.setSortKey(sortKey);
+      }
+    }
+
+    // concat GROUP BY VALUES with FROM
+    if (queryStatement.isGroupByValues()) {
+      List<Expression> groupByValueExpressions = new ArrayList<>();
+      for (Expression expression : queryStatement.getGroupByValueExpressions()) {
+        List<Expression> concatedExpressions =
+            ExpressionAnalyzer.concatExpressionWithSuffixPaths(
+                expression, prefixPaths, patternTree);
+        if (concatedExpressions.size() != 1) {
+          throw new SemanticException(
+              String.format(
+                  "GROUP BY VALUES key '%s' can only be matched with one column", expression));
+        }
+        groupByValueExpressions.add(concatedExpressions.get(0));
+      }
+      queryStatement.setGroupByValueExpressions(groupByValueExpressions);
+    }
+
     // concat WHERE with FROM
     if (queryStatement.getWhereCondition() != null) {
       ExpressionAnalyzer.constructPatternTreeFromExpression(
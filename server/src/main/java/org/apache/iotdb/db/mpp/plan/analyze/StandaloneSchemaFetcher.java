@@ -30,6 +30,7 @@ import org.apache.iotdb.db.metadata.schemaregion.SchemaEngine;
 import org.apache.iotdb.db.mpp.common.schematree.DeviceSchemaInfo;
 import org.apache.iotdb.db.mpp.common.schematree.PathPatternTree;
 import org.apache.iotdb.db.mpp.common.schematree.SchemaTree;
+import org.apache.iotdb.db.mpp.plan.execution.cache.AnalyzedPlanCache;
 import org.apache.iotdb.db.qp.physical.sys.CreateAlignedTimeSeriesPlan;
 import org.apache.iotdb.db.qp.physical.sys.CreateTimeSeriesPlan;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
@@ -302,6 +303,7 @@ public class StandaloneSchemaFetcher implements ISchemaFetcher {
           schemaRegion.createTimeseries(createTimeSeriesPlan, -1);
         }
       }
+      AnalyzedPlanCache.getInstance().invalidateAll();
     } catch (MetadataException e) {
       throw new RuntimeException("cannot auto create schema ", e);
     }
@@ -61,6 +61,11 @@ public class TypeProvider {
     return typeMap.containsKey(path);
   }
 
+  /** Copy the types, so that the types set to the copy are not visible to this one. */
+  public TypeProvider copy() {
+    return new TypeProvider(new HashMap<>(typeMap));
+  }
+
   public void serialize(ByteBuffer byteBuffer) {
     ReadWriteIOUtils.write(typeMap.size(), byteBuffer);
     for (Map.Entry<String, TSDataType> entry : typeMap.entrySet()) {
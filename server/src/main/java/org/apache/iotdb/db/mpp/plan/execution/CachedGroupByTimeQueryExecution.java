@@ -0,0 +1,450 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.execution;
+
+import org.apache.iotdb.common.rpc.thrift.TDataNodeLocation;
+import org.apache.iotdb.common.rpc.thrift.TRegionReplicaSet;
+import org.apache.iotdb.commons.partition.DataPartition;
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.mpp.common.header.DatasetHeader;
+import org.apache.iotdb.db.mpp.plan.analyze.Analysis;
+import org.apache.iotdb.db.mpp.plan.execution.cache.GroupByTimeResultCache;
+import org.apache.iotdb.db.mpp.plan.execution.cache.GroupByTimeResultCache.CachedWindow;
+import org.apache.iotdb.db.mpp.plan.execution.cache.GroupByTimeResultCache.WindowResults;
+import org.apache.iotdb.db.mpp.plan.expression.Expression;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.GroupByTimeParameter;
+import org.apache.iotdb.db.mpp.plan.statement.component.OrderBy;
+import org.apache.iotdb.db.mpp.plan.statement.crud.QueryStatement;
+import org.apache.iotdb.rpc.RpcUtils;
+import org.apache.iotdb.rpc.TSStatusCode;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The execution of a GROUP BY time query whose windows may be partly cached in {@link
+ * GroupByTimeResultCache}. The time range of the analyzed query is narrowed to the contiguous
+ * windows which are not cached before it is planned, and its result is put between the cached
+ * windows before and after them. The windows it computes are cached for the following queries.
+ */
+public class CachedGroupByTimeQueryExecution implements IQueryExecution {
+
+  private static final Logger logger =
+      LoggerFactory.getLogger(CachedGroupByTimeQueryExecution.class);
+
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  /** the queries with more windows than this are not cached */
+  private static final int MAX_WINDOW_NUM = 100_000;
+
+  private final QueryExecution queryExecution;
+  private final GroupByTimeResultCache cache;
+
+  private boolean useCache = false;
+  private boolean ascending;
+  private List<TSDataType> dataTypes;
+  private WindowResults windowResults;
+
+  // the start time and end time of all the windows in ascending order
+  private long firstWindowStartTime;
+  private long slidingStep;
+  private long[] windowEndTimes;
+  private CachedWindow[] cachedWindows;
+  // the windows in [firstMissIndex, lastMissIndex] are computed by the queryExecution
+  private int firstMissIndex;
+  private int lastMissIndex;
+  private long ttlLowerBound;
+
+  private long fillSeq;
+  private boolean fillEnded = true;
+  private final List<CachedWindow> computedWindows = new ArrayList<>();
+
+  private boolean headReturned = false;
+  private boolean queryExecutionFinished = false;
+  private boolean tailReturned = false;
+
+  public CachedGroupByTimeQueryExecution(QueryExecution queryExecution) {
+    this.queryExecution = queryExecution;
+    this.cache = GroupByTimeResultCache.getInstance();
+  }
+
+  @Override
+  public void start() {
+    try {
+      useCache = prepare(queryExecution.getAnalysis());
+    } catch (RuntimeException e) {
+      logger.warn("Failed to look up the group by time result cache, bypass it", e);
+      abortFill();
+      useCache = false;
+    }
+    if (!useCache) {
+      queryExecution.start();
+      return;
+    }
+    if (isAllCached()) {
+      logger.debug("all the windows of the query are cached, skip the execution");
+      return;
+    }
+    fillSeq = windowResults.beginFill();
+    fillEnded = false;
+    queryExecution.start();
+  }
+
+  /** @return false if the query should not use the cache */
+  private boolean prepare(Analysis analysis) {
+    if (analysis.isFinishQueryAfterAnalyze()
+        || !analysis.hasDataSource()
+        || analysis.getGroupByTimeParameter() == null
+        || analysis.getSourceExpressions() == null
+        || analysis.getRespDatasetHeader() == null
+        || (config.isClusterMode() && !isAllRegionsLocal(analysis.getDataPartitionInfo()))) {
+      return false;
+    }
+    GroupByTimeParameter groupByTimeParameter = analysis.getGroupByTimeParameter();
+    long startTime = groupByTimeParameter.getStartTime();
+    long endTime = groupByTimeParameter.getEndTime();
+    slidingStep = groupByTimeParameter.getSlidingStep();
+    long interval = groupByTimeParameter.getInterval();
+    if (slidingStep <= 0
+        || interval <= 0
+        || endTime <= startTime
+        || (endTime - startTime) / slidingStep >= MAX_WINDOW_NUM) {
+      return false;
+    }
+
+    QueryStatement queryStatement = (QueryStatement) analysis.getStatement();
+    ascending = queryStatement.getResultOrder() != OrderBy.TIMESTAMP_DESC;
+    dataTypes = analysis.getRespDatasetHeader().getRespDataTypes();
+
+    Set<PartialPath> paths = new HashSet<>();
+    for (Expression expression : analysis.getSourceExpressions()) {
+      expression.collectPaths(paths);
+    }
+    Set<String> devices = new HashSet<>();
+    for (PartialPath path : paths) {
+      devices.add(path.getDevice());
+    }
+    windowResults = cache.getOrCreate(getCacheKey(analysis, queryStatement), devices);
+    ttlLowerBound = cache.getTTLLowerBound(devices);
+
+    int windowNum = (int) ((endTime - startTime - 1) / slidingStep) + 1;
+    firstWindowStartTime = startTime;
+    windowEndTimes = new long[windowNum];
+    cachedWindows = new CachedWindow[windowNum];
+    firstMissIndex = windowNum;
+    lastMissIndex = -1;
+    boolean typeMatched = dataTypes.equals(windowResults.getDataTypes());
+    for (int i = 0; i < windowNum; i++) {
+      long windowStartTime = startTime + i * slidingStep;
+      windowEndTimes[i] = Math.min(windowStartTime + interval, endTime);
+      if (typeMatched && windowStartTime >= ttlLowerBound) {
+        cachedWindows[i] = windowResults.get(windowStartTime, windowEndTimes[i]);
+      }
+      if (cachedWindows[i] == null) {
+        firstMissIndex = Math.min(firstMissIndex, i);
+        lastMissIndex = i;
+      }
+    }
+
+    if (!isAllCached()) {
+      narrowTimeRange(analysis, getWindowStartTime(firstMissIndex), windowEndTimes[lastMissIndex]);
+    }
+    return true;
+  }
+
+  /**
+   * The result of the query is identified by its output columns, source series, filter and windows,
+   * and the time range is not included.
+   */
+  private static String getCacheKey(Analysis analysis, QueryStatement queryStatement) {
+    DatasetHeader datasetHeader = analysis.getRespDatasetHeader();
+    List<String> sourceExpressions = new ArrayList<>();
+    for (Expression expression : analysis.getSourceExpressions()) {
+      sourceExpressions.add(expression.getExpressionString());
+    }
+    Collections.sort(sourceExpressions);
+    GroupByTimeParameter groupByTimeParameter = analysis.getGroupByTimeParameter();
+    StringBuilder builder = new StringBuilder();
+    builder
+        .append(datasetHeader.getRespColumns())
+        .append(datasetHeader.getRespDataTypeList())
+        .append(sourceExpressions);
+    if (analysis.getQueryFilter() != null) {
+      builder.append(" where ").append(analysis.getQueryFilter().getExpressionString());
+    }
+    builder
+        .append(" interval ")
+        .append(groupByTimeParameter.getInterval())
+        .append(" step ")
+        .append(groupByTimeParameter.getSlidingStep());
+    if (queryStatement.isGroupByLevel()) {
+      builder
+          .append(" level ")
+          .append(Arrays.toString(queryStatement.getGroupByLevelComponent().getLevels()));
+    }
+    return builder.toString();
+  }
+
+  private static boolean isAllRegionsLocal(DataPartition dataPartition) {
+    if (dataPartition == null) {
+      return false;
+    }
+    int localDataNodeId = config.getDataNodeId();
+    for (Map<?, ? extends Map<?, List<TRegionReplicaSet>>> seriesSlotMap :
+        dataPartition.getDataPartitionMap().values()) {
+      for (Map<?, List<TRegionReplicaSet>> timeSlotMap : seriesSlotMap.values()) {
+        for (List<TRegionReplicaSet> regionReplicaSets : timeSlotMap.values()) {
+          for (TRegionReplicaSet regionReplicaSet : regionReplicaSets) {
+            boolean local = false;
+            for (TDataNodeLocation dataNodeLocation : regionReplicaSet.getDataNodeLocations()) {
+              if (dataNodeLocation.getDataNodeId() == localDataNodeId) {
+                local = true;
+                break;
+              }
+            }
+            if (!local) {
+              return false;
+            }
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  /** Let the query only compute the windows starting in [startTime, endTime). */
+  private static void narrowTimeRange(Analysis analysis, long startTime, long endTime) {
+    GroupByTimeParameter groupByTimeParameter = analysis.getGroupByTimeParameter();
+    groupByTimeParameter.setStartTime(startTime);
+    groupByTimeParameter.setEndTime(endTime);
+    Filter timeFilter = FilterFactory.and(TimeFilter.gtEq(startTime), TimeFilter.lt(endTime));
+    analysis.setGlobalTimeFilter(
+        analysis.getGlobalTimeFilter() == null
+            ? timeFilter
+            : FilterFactory.and(analysis.getGlobalTimeFilter(), timeFilter));
+  }
+
+  private boolean isAllCached() {
+    return lastMissIndex < 0;
+  }
+
+  private long getWindowStartTime(int index) {
+    return firstWindowStartTime + index * slidingStep;
+  }
+
+  @Override
+  public void stop() {
+    queryExecution.stop();
+  }
+
+  @Override
+  public void stopAndCleanup() {
+    queryExecution.stopAndCleanup();
+    abortFill();
+  }
+
+  @Override
+  public ExecutionResult getStatus() {
+    if (useCache && isAllCached()) {
+      return new ExecutionResult(
+          queryExecution.getContext().getQueryId(),
+          RpcUtils.getStatus(TSStatusCode.SUCCESS_STATUS));
+    }
+    ExecutionResult result = queryExecution.getStatus();
+    if (result.status.getCode() != TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
+      abortFill();
+    }
+    return result;
+  }
+
+  @Override
+  public Optional<TsBlock> getBatchResult() {
+    if (!useCache) {
+      return queryExecution.getBatchResult();
+    }
+    if (!headReturned) {
+      headReturned = true;
+      TsBlock head =
+          ascending
+              ? buildCachedWindows(0, firstMissIndex)
+              : buildCachedWindows(lastMissIndex + 1, cachedWindows.length);
+      if (head != null) {
+        return Optional.of(head);
+      }
+    }
+    if (!isAllCached() && !queryExecutionFinished) {
+      try {
+        while (true) {
+          Optional<TsBlock> tsBlock = queryExecution.getBatchResult();
+          if (!tsBlock.isPresent()) {
+            queryExecutionFinished = true;
+            endFill();
+            break;
+          }
+          TsBlock computed = collectComputedWindows(tsBlock.get());
+          if (!computed.isEmpty()) {
+            return Optional.of(computed);
+          }
+        }
+      } catch (RuntimeException e) {
+        abortFill();
+        throw e;
+      }
+    }
+    if (!tailReturned) {
+      tailReturned = true;
+      TsBlock tail =
+          ascending
+              ? buildCachedWindows(lastMissIndex + 1, cachedWindows.length)
+              : buildCachedWindows(0, firstMissIndex);
+      if (tail != null) {
+        return Optional.of(tail);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /** Build the cached windows in [from, to), null if there is none. */
+  private TsBlock buildCachedWindows(int from, int to) {
+    if (from >= to) {
+      return null;
+    }
+    TsBlockBuilder builder = new TsBlockBuilder(to - from, dataTypes);
+    for (int i = 0; i < to - from; i++) {
+      CachedWindow window = cachedWindows[ascending ? from + i : to - 1 - i];
+      builder.getTimeColumnBuilder().writeLong(window.getStartTime());
+      Object[] values = window.getValues();
+      for (int j = 0; j < values.length; j++) {
+        ColumnBuilder columnBuilder = builder.getColumnBuilder(j);
+        if (values[j] == null) {
+          columnBuilder.appendNull();
+        } else {
+          columnBuilder.writeObject(values[j]);
+        }
+      }
+      builder.declarePosition();
+    }
+    return builder.build();
+  }
+
+  /**
+   * Record the windows computed by the queryExecution. The overlapped windows starting after the
+   * last missing window may be computed as well, which are dropped.
+   *
+   * @return the windows to return
+   */
+  private TsBlock collectComputedWindows(TsBlock tsBlock) {
+    int from = -1;
+    int to = -1;
+    for (int i = 0; i < tsBlock.getPositionCount(); i++) {
+      long time = tsBlock.getTimeByIndex(i);
+      long offset = time - firstWindowStartTime;
+      int index = (int) (offset / slidingStep);
+      if (offset % slidingStep != 0 || index < firstMissIndex || index > lastMissIndex) {
+        continue;
+      }
+      if (from < 0) {
+        from = i;
+      }
+      to = i + 1;
+      if (time >= ttlLowerBound) {
+        Object[] values = new Object[tsBlock.getValueColumnCount()];
+        for (int j = 0; j < values.length; j++) {
+          Column column = tsBlock.getColumn(j);
+          values[j] = column.isNull(i) ? null : column.getObject(i);
+        }
+        computedWindows.add(new CachedWindow(time, windowEndTimes[index], values));
+      }
+    }
+    if (from < 0) {
+      return tsBlock.getRegion(0, 0);
+    }
+    return from == 0 && to == tsBlock.getPositionCount()
+        ? tsBlock
+        : tsBlock.getRegion(from, to - from);
+  }
+
+  private void endFill() {
+    if (!fillEnded) {
+      fillEnded = true;
+      windowResults.endFill(fillSeq, dataTypes, computedWindows);
+      computedWindows.clear();
+    }
+  }
+
+  private void abortFill() {
+    if (!fillEnded) {
+      fillEnded = true;
+      computedWindows.clear();
+      windowResults.endFill(fillSeq, dataTypes, Collections.emptyList());
+    }
+  }
+
+  @Override
+  public boolean hasNextResult() {
+    if (!useCache) {
+      return queryExecution.hasNextResult();
+    }
+    return !tailReturned;
+  }
+
+  @Override
+  public int getOutputValueColumnCount() {
+    return queryExecution.getOutputValueColumnCount();
+  }
+
+  @Override
+  public DatasetHeader getDatasetHeader() {
+    return queryExecution.getDatasetHeader();
+  }
+
+  @Override
+  public boolean isQuery() {
+    return queryExecution.isQuery();
+  }
+
+  @Override
+  public String getQueryId() {
+    return queryExecution.getQueryId();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("CachedGroupByTimeQueryExecution[%s]", getQueryId());
+  }
+}
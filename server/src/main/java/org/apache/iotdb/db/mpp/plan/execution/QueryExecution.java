@@ -21,6 +21,7 @@ package org.apache.iotdb.db.mpp.plan.execution;
 import org.apache.iotdb.common.rpc.thrift.TEndPoint;
 import org.apache.iotdb.common.rpc.thrift.TSStatus;
 import org.apache.iotdb.commons.client.IClientManager;
+import org.apache.iotdb.commons.client.async.AsyncDataNodeInternalServiceClient;
 import org.apache.iotdb.commons.client.sync.SyncDataNodeInternalServiceClient;
 import org.apache.iotdb.commons.utils.StatusUtils;
 import org.apache.iotdb.db.conf.IoTDBConfig;
@@ -31,16 +32,22 @@ import org.apache.iotdb.db.mpp.execution.QueryState;
 import org.apache.iotdb.db.mpp.execution.QueryStateMachine;
 import org.apache.iotdb.db.mpp.execution.datatransfer.DataBlockService;
 import org.apache.iotdb.db.mpp.execution.datatransfer.ISourceHandle;
+import org.apache.iotdb.db.mpp.execution.resourcegroup.ResourceGroup;
+import org.apache.iotdb.db.mpp.execution.resourcegroup.ResourceGroupManager;
 import org.apache.iotdb.db.mpp.plan.analyze.Analysis;
 import org.apache.iotdb.db.mpp.plan.analyze.Analyzer;
 import org.apache.iotdb.db.mpp.plan.analyze.IPartitionFetcher;
 import org.apache.iotdb.db.mpp.plan.analyze.ISchemaFetcher;
 import org.apache.iotdb.db.mpp.plan.analyze.QueryType;
+import org.apache.iotdb.db.mpp.plan.execution.cache.AnalyzedPlanCache;
+import org.apache.iotdb.db.mpp.plan.execution.cache.AnalyzedPlanCache.AnalyzedPlan;
+import org.apache.iotdb.db.mpp.plan.execution.cache.CachedAnalysisFetcher;
 import org.apache.iotdb.db.mpp.plan.execution.memory.MemorySourceHandle;
 import org.apache.iotdb.db.mpp.plan.execution.memory.StatementMemorySource;
 import org.apache.iotdb.db.mpp.plan.execution.memory.StatementMemorySourceContext;
 import org.apache.iotdb.db.mpp.plan.execution.memory.StatementMemorySourceVisitor;
 import org.apache.iotdb.db.mpp.plan.optimization.PlanOptimizer;
+import org.apache.iotdb.db.mpp.plan.optimization.RuleBasedOptimizer;
 import org.apache.iotdb.db.mpp.plan.planner.LogicalPlanner;
 import org.apache.iotdb.db.mpp.plan.planner.distribution.DistributionPlanner;
 import org.apache.iotdb.db.mpp.plan.planner.plan.DistributedQueryPlan;
@@ -73,6 +80,8 @@ import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.google.common.base.Throwables.throwIfUnchecked;
 import static org.apache.iotdb.db.mpp.plan.constant.DataNodeEndPoints.isSameNode;
@@ -96,8 +105,17 @@ public class QueryExecution implements IQueryExecution {
 
   private final Analysis analysis;
   private LogicalQueryPlan logicalPlan;
+  // the version of AnalyzedPlanCache when the analysis started
+  private long planCacheVersion;
   private DistributedQueryPlan distributedPlan;
 
+  // the resource group of the query, null if it is not a query to be admitted
+  private ResourceGroup resourceGroup;
+  // whether the query is admitted to run by its resource group and not released yet
+  private final AtomicBoolean admitted = new AtomicBoolean(false);
+  // starts the query once it is admitted, null if the query is not queued in its resource group
+  private volatile Runnable queuedStart;
+
   private final ExecutorService executor;
   private final ExecutorService writeOperationExecutor;
   private final ScheduledExecutorService scheduledExecutor;
@@ -112,6 +130,8 @@ public class QueryExecution implements IQueryExecution {
 
   private final IClientManager<TEndPoint, SyncDataNodeInternalServiceClient>
       internalServiceClientManager;
+  private final IClientManager<TEndPoint, AsyncDataNodeInternalServiceClient>
+      asyncInternalServiceClientManager;
 
   public QueryExecution(
       Statement statement,
@@ -121,17 +141,34 @@ public class QueryExecution implements IQueryExecution {
       ScheduledExecutorService scheduledExecutor,
       IPartitionFetcher partitionFetcher,
       ISchemaFetcher schemaFetcher,
-      IClientManager<TEndPoint, SyncDataNodeInternalServiceClient> internalServiceClientManager) {
+      IClientManager<TEndPoint, SyncDataNodeInternalServiceClient> internalServiceClientManager,
+      IClientManager<TEndPoint, AsyncDataNodeInternalServiceClient>
+          asyncInternalServiceClientManager) {
     this.executor = executor;
     this.writeOperationExecutor = writeOperationExecutor;
     this.scheduledExecutor = scheduledExecutor;
     this.context = context;
     this.planOptimizers = new ArrayList<>();
-    this.analysis = analyze(statement, context, partitionFetcher, schemaFetcher);
+    this.planOptimizers.add(RuleBasedOptimizer.createLogicalOptimizer());
+    AnalyzedPlan cachedPlan = context.getCachedPlan();
+    if (cachedPlan == null) {
+      this.planCacheVersion = AnalyzedPlanCache.getInstance().getVersion();
+      this.analysis = analyze(statement, context, partitionFetcher, schemaFetcher);
+    } else if (cachedPlan.isBoundTo(context.getPlanCacheParameters())) {
+      this.analysis = cachedPlan.copyAnalysis();
+      this.logicalPlan = cachedPlan.copyLogicalPlan(context);
+      refreshDataPartition(analysis, partitionFetcher);
+    } else {
+      // the schema and the partitions used are those of the cached plan
+      this.planCacheVersion = cachedPlan.getVersion();
+      this.analysis = rebind(statement, context, cachedPlan, partitionFetcher, schemaFetcher);
+      refreshDataPartition(analysis, partitionFetcher);
+    }
     this.stateMachine = new QueryStateMachine(context.getQueryId(), executor);
     this.partitionFetcher = partitionFetcher;
     this.schemaFetcher = schemaFetcher;
     this.internalServiceClientManager = internalServiceClientManager;
+    this.asyncInternalServiceClientManager = asyncInternalServiceClientManager;
 
     // We add the abort logic inside the QueryExecution.
     // So that the other components can only focus on the state change.
@@ -142,6 +179,10 @@ public class QueryExecution implements IQueryExecution {
               return;
             }
             this.stop();
+            if (queuedStart != null) {
+              resourceGroup.cancel(queuedStart);
+            }
+            releaseAdmission();
             // TODO: (xingtanzjr) If the query is in abnormal state, the releaseResource() should be
             // invoked
             if (state == QueryState.FAILED
@@ -161,12 +202,27 @@ public class QueryExecution implements IQueryExecution {
       stateMachine.transitionToRunning();
       return;
     }
-    doLogicalPlan();
-    doDistributedPlan();
-    if (context.getQueryType() == QueryType.READ) {
-      initResultHandle();
+    if (ResourceGroupManager.needAdmission(
+            context.getQueryType(), analysis.getStatement(), context.getSession())
+        && !admit()) {
+      return;
+    }
+    startAdmitted();
+  }
+
+  private void startAdmitted() {
+    try {
+      doLogicalPlan();
+      doDistributedPlan();
+      if (context.getQueryType() == QueryType.READ) {
+        initResultHandle();
+      }
+      schedule();
+    } catch (RuntimeException e) {
+      // the query may never be done, so let the queued ones run
+      releaseAdmission();
+      throw e;
     }
-    schedule();
   }
 
   private boolean skipExecute() {
@@ -174,6 +230,81 @@ public class QueryExecution implements IQueryExecution {
         || (context.getQueryType() == QueryType.READ && !analysis.hasDataSource());
   }
 
+  /**
+   * Admit the query by its resource group if the number of the running queries of the group is
+   * below its limit. Otherwise the query is queued without blocking the caller, and it is started
+   * by the query executor once a running query of the group is released, or it fails after being
+   * queued for too long. The query also fails if too many queries are queued already.
+   *
+   * @return true if the query is admitted and should be started by the caller.
+   */
+  private boolean admit() {
+    ResourceGroupManager manager = ResourceGroupManager.getInstance();
+    resourceGroup =
+        manager.getGroup(
+            manager.selectGroup(
+                context.getSession().getUserName(),
+                ResourceGroupManager.getQueryKind(analysis.getStatement())));
+    Runnable start = () -> executor.execute(this::startQueued);
+    switch (resourceGroup.admit(start)) {
+      case ADMITTED:
+        admitted.set(true);
+        return true;
+      case QUEUED:
+        queuedStart = start;
+        long maxQueuedTimeInMs = config.getResourceGroupMaxQueuedTimeInMs();
+        scheduledExecutor.schedule(
+            () -> {
+              if (resourceGroup.cancel(start)) {
+                logger.warn(
+                    "The query is queued in resource group {} for more than {} ms",
+                    resourceGroup.getName(),
+                    maxQueuedTimeInMs);
+                stateMachine.transitionToFailed(
+                    new IllegalStateException(
+                        String.format(
+                            "The query is queued in resource group %s for more than %d ms",
+                            resourceGroup.getName(), maxQueuedTimeInMs)));
+              }
+            },
+            maxQueuedTimeInMs,
+            TimeUnit.MILLISECONDS);
+        return false;
+      default:
+        logger.warn(
+            "The query of resource group {} is rejected as too many queries are queued",
+            resourceGroup.getName());
+        stateMachine.transitionToFailed(
+            new IllegalStateException(
+                String.format(
+                    "The query of resource group %s is rejected as more than %d queries are queued",
+                    resourceGroup.getName(), config.getResourceGroupMaxQueuedQueries())));
+        return false;
+    }
+  }
+
+  // Start the query admitted after being queued in its resource group
+  private void startQueued() {
+    admitted.set(true);
+    if (stateMachine.getState().isDone()) {
+      // the query is cancelled while being queued
+      releaseAdmission();
+      return;
+    }
+    try (SetThreadName queryName = new SetThreadName(context.getQueryId().getId())) {
+      startAdmitted();
+    } catch (RuntimeException e) {
+      logger.warn("Failed to start the queued query", e);
+      stateMachine.transitionToFailed(e);
+    }
+  }
+
+  private void releaseAdmission() {
+    if (admitted.compareAndSet(true, false)) {
+      resourceGroup.release();
+    }
+  }
+
   private void constructResultForMemorySource() {
     StatementMemorySource memorySource =
         new StatementMemorySourceVisitor()
@@ -193,6 +324,30 @@ public class QueryExecution implements IQueryExecution {
     return new Analyzer(context, partitionFetcher, schemaFetcher).analyze(statement);
   }
 
+  // Analyze the prepared statement bound to other values than those of its cached plan, with the
+  // schema tree and the data partition of the plan
+  private Analysis rebind(
+      Statement statement,
+      MPPQueryContext context,
+      AnalyzedPlan cachedPlan,
+      IPartitionFetcher partitionFetcher,
+      ISchemaFetcher schemaFetcher) {
+    logger.info("start to analyze query with the cached schema and partitions");
+    CachedAnalysisFetcher cachedFetcher =
+        new CachedAnalysisFetcher(cachedPlan, partitionFetcher, schemaFetcher);
+    return new Analyzer(context, cachedFetcher, cachedFetcher).analyze(statement);
+  }
+
+  // Fetch the data partition of the reused analysis again if it may miss the time partitions
+  // created after the plan was cached, see AnalyzedPlanCache#covers
+  private static void refreshDataPartition(Analysis analysis, IPartitionFetcher partitionFetcher) {
+    if (!AnalyzedPlanCache.covers(analysis)) {
+      logger.debug("fetch the data partition of the cached plan again");
+      analysis.setDataPartitionInfo(
+          partitionFetcher.getDataPartition(analysis.getDataPartitionQueryParams()));
+    }
+  }
+
   private void schedule() {
     // TODO: (xingtanzjr) initialize the query scheduler according to configuration
     this.scheduler =
@@ -205,7 +360,8 @@ public class QueryExecution implements IQueryExecution {
                 executor,
                 writeOperationExecutor,
                 scheduledExecutor,
-                internalServiceClientManager)
+                internalServiceClientManager,
+                asyncInternalServiceClientManager)
             : new StandaloneScheduler(
                 context,
                 stateMachine,
@@ -219,11 +375,24 @@ public class QueryExecution implements IQueryExecution {
 
   // Use LogicalPlanner to do the logical query plan and logical optimization
   public void doLogicalPlan() {
+    if (this.logicalPlan != null) {
+      logger.debug("reuse the cached logical plan");
+      return;
+    }
     logger.info("do logical plan...");
     LogicalPlanner planner = new LogicalPlanner(this.context, this.planOptimizers);
     this.logicalPlan = planner.plan(this.analysis);
     logger.info(
         "logical plan is: \n {}", PlanNodeUtil.nodeToString(this.logicalPlan.getRootNode()));
+    if (context.getPlanCacheKey() != null) {
+      AnalyzedPlanCache.getInstance()
+          .put(
+              context.getPlanCacheKey(),
+              analysis,
+              logicalPlan,
+              context.getPlanCacheParameters(),
+              planCacheVersion);
+    }
   }
 
   // Generate the distributed plan and split it into fragments
@@ -231,6 +400,11 @@ public class QueryExecution implements IQueryExecution {
     logger.info("do distribution plan...");
     DistributionPlanner planner = new DistributionPlanner(this.analysis, this.logicalPlan);
     this.distributedPlan = planner.planFragments();
+    if (resourceGroup != null) {
+      distributedPlan
+          .getInstances()
+          .forEach(instance -> instance.setResourceGroup(resourceGroup.getName()));
+    }
     logger.info(
         "distribution plan done. Fragment instance count is {}, details is: \n {}",
         distributedPlan.getInstances().size(),
@@ -260,6 +434,7 @@ public class QueryExecution implements IQueryExecution {
 
   /** Release the resources that current QueryExecution hold. */
   private void releaseResource() {
+    releaseAdmission();
     // close ResultHandle to unblock client's getResult request
     // Actually, we should not close the ResultHandle when the QueryExecution is Finished.
     // There are only two scenarios where the ResultHandle should be closed:
@@ -423,6 +598,14 @@ public class QueryExecution implements IQueryExecution {
     return new ExecutionResult(context.getQueryId(), tsstatus);
   }
 
+  Analysis getAnalysis() {
+    return analysis;
+  }
+
+  MPPQueryContext getContext() {
+    return context;
+  }
+
   public DistributedQueryPlan getDistributedPlan() {
     return distributedPlan;
   }
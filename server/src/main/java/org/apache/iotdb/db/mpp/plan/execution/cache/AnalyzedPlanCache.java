@@ -0,0 +1,444 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.execution.cache;
+
+import org.apache.iotdb.common.rpc.thrift.TRegionReplicaSet;
+import org.apache.iotdb.common.rpc.thrift.TSeriesPartitionSlot;
+import org.apache.iotdb.common.rpc.thrift.TTimePartitionSlot;
+import org.apache.iotdb.commons.partition.DataPartition;
+import org.apache.iotdb.commons.partition.DataPartitionQueryParam;
+import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.StorageEngineV2;
+import org.apache.iotdb.db.mpp.common.MPPQueryContext;
+import org.apache.iotdb.db.mpp.plan.analyze.Analysis;
+import org.apache.iotdb.db.mpp.plan.planner.plan.LogicalQueryPlan;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeUtil;
+import org.apache.iotdb.db.mpp.plan.statement.Statement;
+import org.apache.iotdb.db.mpp.plan.statement.crud.QueryStatement;
+import org.apache.iotdb.db.mpp.plan.statement.internal.InternalCreateTimeSeriesStatement;
+import org.apache.iotdb.db.mpp.plan.statement.metadata.AlterTimeSeriesStatement;
+import org.apache.iotdb.db.mpp.plan.statement.metadata.CreateAlignedTimeSeriesStatement;
+import org.apache.iotdb.db.mpp.plan.statement.metadata.CreateFunctionStatement;
+import org.apache.iotdb.db.mpp.plan.statement.metadata.CreateMultiTimeSeriesStatement;
+import org.apache.iotdb.db.mpp.plan.statement.metadata.CreateTimeSeriesStatement;
+import org.apache.iotdb.db.mpp.plan.statement.metadata.DeleteStorageGroupStatement;
+import org.apache.iotdb.db.mpp.plan.statement.metadata.DeleteTimeSeriesStatement;
+import org.apache.iotdb.db.mpp.plan.statement.metadata.DropFunctionStatement;
+import org.apache.iotdb.db.mpp.plan.statement.metadata.SetStorageGroupStatement;
+import org.apache.iotdb.db.utils.TimeValuePairUtils;
+import org.apache.iotdb.db.utils.TimeValuePairUtils.Intervals;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * This class caches the analyzed plans of the repeated queries, keyed by the normalized SQL, or the
+ * normalized template of a prepared statement, and the time zone. A query hitting the cache with
+ * the same SQL, or the same values bound to the template, reuses the parsed statement, a copy of
+ * the {@link Analysis} and the logical plan, so it skips parsing, fetching the schema and the
+ * partitions, and logical planning.
+ *
+ * <p>A prepared statement hitting the cache with other values re-binds them: the bound SQL is
+ * parsed and analyzed again, but with the schema tree and the data partition of the cached plan, so
+ * it still skips fetching them. Only the literals in the slots standing for values are re-bound,
+ * see {@link #isRebindable}, as the others may change the paths of the query.
+ *
+ * <p>A cached plan depends on the schema and the partition table, so all plans are dropped when
+ * either of them changes locally. The data partitions created through the other data nodes are not
+ * notified to this one, and they may belong to any time partition, e.g. of the backfilled data. So
+ * the data partition of a reused plan is fetched again unless it has all the time partitions of the
+ * time range for all the devices queried, see {@link #covers}, and the plans also expire after a
+ * configured time for the timeseries created elsewhere. The caching strategy is LRU.
+ */
+public class AnalyzedPlanCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(AnalyzedPlanCache.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private static final int ANALYZED_PLAN_CACHE_SIZE = config.getAnalyzedPlanCacheSize();
+  private static final boolean CACHE_ENABLE = config.isMppMode() && ANALYZED_PLAN_CACHE_SIZE > 0;
+
+  private static final char KEY_SEPARATOR = '\0';
+
+  /** now() is evaluated while parsing, so the plans of the queries using it are not reusable */
+  private static final Pattern NOW_FUNCTION =
+      Pattern.compile("\\bnow\\s*\\(", Pattern.CASE_INSENSITIVE);
+
+  /** a number, a quoted string, a boolean, null, NaN or a datetime */
+  private static final Pattern LITERAL =
+      Pattern.compile(
+          "[+-]?(\\d+(\\.\\d*)?|\\.\\d+)(e[+-]?\\d+)?"
+              + "|'([^'\\\\]|\\\\.|'')*'|\"([^\"\\\\]|\\\\.|\"\")*\""
+              + "|true|false|null|nan"
+              + "|\\d+(?<sep>[-/.])\\d+\\k<sep>\\d+([t ]\\d+:\\d+:\\d+(\\.\\d+)?([+-]\\d+:\\d+)?)?",
+          Pattern.CASE_INSENSITIVE);
+
+  /** the characters of the names besides letters and digits, and the quote of the names */
+  private static final String PATH_CHARS = "_`*:@#${}";
+
+  private final Cache<String, AnalyzedPlan> cache;
+
+  /** increased by every invalidation, the plans analyzed before one are not cached */
+  private final AtomicLong version = new AtomicLong();
+
+  private AnalyzedPlanCache() {
+    this(ANALYZED_PLAN_CACHE_SIZE, config.getAnalyzedPlanCacheExpireTimeInMs());
+    if (CACHE_ENABLE) {
+      logger.info("AnalyzedPlanCache size = " + ANALYZED_PLAN_CACHE_SIZE);
+    }
+  }
+
+  @TestOnly
+  AnalyzedPlanCache(int maxSize, long expireTimeInMs) {
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(expireTimeInMs, TimeUnit.MILLISECONDS)
+            .build();
+  }
+
+  public static AnalyzedPlanCache getInstance() {
+    return AnalyzedPlanCacheHolder.INSTANCE;
+  }
+
+  public boolean isEnabled() {
+    return CACHE_ENABLE;
+  }
+
+  /**
+   * Whether the analyzed plan of the statement can be reused. Only the queries are cached, except
+   * those served by the {@link GroupByTimeResultCache}, which narrows the time range of their
+   * analysis.
+   */
+  public static boolean isCacheable(Statement statement) {
+    return statement instanceof QueryStatement
+        && !(GroupByTimeResultCache.getInstance().isEnabled()
+            && GroupByTimeResultCache.isCacheable(statement));
+  }
+
+  /** Whether the cached plans should be dropped after executing the statement. */
+  public static boolean isInvalidatedBy(Statement statement) {
+    return statement instanceof CreateTimeSeriesStatement
+        || statement instanceof CreateAlignedTimeSeriesStatement
+        || statement instanceof CreateMultiTimeSeriesStatement
+        || statement instanceof InternalCreateTimeSeriesStatement
+        || statement instanceof AlterTimeSeriesStatement
+        || statement instanceof DeleteTimeSeriesStatement
+        || statement instanceof SetStorageGroupStatement
+        || statement instanceof DeleteStorageGroupStatement
+        || statement instanceof CreateFunctionStatement
+        || statement instanceof DropFunctionStatement;
+  }
+
+  /** Get the cache key of the SQL, null if its plan should not be reused. */
+  public static String getCacheKey(String sql, ZoneId zoneId) {
+    return getCacheKey(normalize(sql), zoneId);
+  }
+
+  /**
+   * Get the cache key of the normalized template of a prepared statement, null if its plan should
+   * not be reused. The template bound to different values shares one key, and its cached plan is
+   * re-bound to the values of the executions, see {@link AnalyzedPlan#isBoundTo}.
+   */
+  public static String getCacheKey(String normalizedSql, List<String> parameters, ZoneId zoneId) {
+    if (!isRebindable(normalizedSql, parameters)) {
+      return null;
+    }
+    return getCacheKey(normalizedSql, zoneId);
+  }
+
+  /**
+   * Whether the values can be re-bound to a cached plan of the template. Each slot of the template
+   * must stand for a whole value, not for a part of a path or a name like in "root.sg.d?", and each
+   * value must be a literal, so that they neither change the paths nor the schema and partitions of
+   * the query.
+   */
+  public static boolean isRebindable(String normalizedSql, List<String> parameters) {
+    for (String parameter : parameters) {
+      if (!LITERAL.matcher(parameter.trim()).matches()) {
+        return false;
+      }
+    }
+    char quote = 0;
+    for (int i = 0; i < normalizedSql.length(); i++) {
+      char c = normalizedSql.charAt(i);
+      if (quote != 0) {
+        if (c == '\\') {
+          i++;
+        } else if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '\'' || c == '"' || c == '`') {
+        quote = c;
+      } else if (c == '?'
+          && (isPartOfPath(normalizedSql, i - 1, -1) || isPartOfPath(normalizedSql, i + 1, 1))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Whether the character next to a slot joins the slot to a path or a name. A dot does even after
+   * a space, e.g. "root.sg. ?", the other characters of the names only do right next to the slot.
+   */
+  private static boolean isPartOfPath(String sql, int index, int step) {
+    boolean spaced = index >= 0 && index < sql.length() && sql.charAt(index) == ' ';
+    if (spaced) {
+      index += step;
+    }
+    if (index < 0 || index >= sql.length()) {
+      return false;
+    }
+    char c = sql.charAt(index);
+    return c == '.' || (!spaced && (Character.isLetterOrDigit(c) || PATH_CHARS.indexOf(c) >= 0));
+  }
+
+  private static String getCacheKey(String normalizedSql, ZoneId zoneId) {
+    if (NOW_FUNCTION.matcher(normalizedSql).find()) {
+      return null;
+    }
+    return zoneId.getId() + KEY_SEPARATOR + normalizedSql;
+  }
+
+  /** Collapse the whitespaces outside the quoted strings and names. */
+  public static String normalize(String sql) {
+    StringBuilder builder = new StringBuilder(sql.length());
+    char quote = 0;
+    boolean pendingSpace = false;
+    for (int i = 0; i < sql.length(); i++) {
+      char c = sql.charAt(i);
+      if (quote != 0) {
+        builder.append(c);
+        if (c == '\\' && i + 1 < sql.length()) {
+          builder.append(sql.charAt(++i));
+        } else if (c == quote) {
+          quote = 0;
+        }
+      } else if (Character.isWhitespace(c)) {
+        pendingSpace = builder.length() > 0;
+      } else {
+        if (pendingSpace) {
+          builder.append(' ');
+          pendingSpace = false;
+        }
+        if (c == '\'' || c == '"' || c == '`') {
+          quote = c;
+        }
+        builder.append(c);
+      }
+    }
+    return builder.toString();
+  }
+
+  public AnalyzedPlan get(String key) {
+    return cache.getIfPresent(key);
+  }
+
+  /** The version to pass to {@link #put} for a plan to be analyzed from now on. */
+  public long getVersion() {
+    return version.get();
+  }
+
+  /**
+   * Cache the analyzed plan of the SQL, or the template bound to the parameters, unless the schema
+   * or the partition table has changed since it was analyzed. The analysis and the plan node tree
+   * are copied, as the distribution planning modifies them.
+   */
+  public synchronized void put(
+      String key,
+      Analysis analysis,
+      LogicalQueryPlan logicalPlan,
+      List<String> parameters,
+      long analyzedVersion) {
+    if (version.get() != analyzedVersion) {
+      return;
+    }
+    cache.put(
+        key,
+        new AnalyzedPlan(
+            analysis.copy(),
+            PlanNodeUtil.deepCopy(logicalPlan.getRootNode()),
+            logicalPlan.getContext().getQueryId().getNextPlanNodeIndex(),
+            parameters,
+            analyzedVersion));
+  }
+
+  /**
+   * Whether the data partition of the analysis has all the time partitions of its time range for
+   * all the devices queried, so that it is still complete when the analysis is reused. Any time
+   * partition may be created through the other data nodes after the analysis, so the unbounded time
+   * ranges are not covered unless all the data belongs to one time partition.
+   */
+  public static boolean covers(Analysis analysis) {
+    Map<String, List<DataPartitionQueryParam>> queryParams = analysis.getDataPartitionQueryParams();
+    if (queryParams == null) {
+      // no data partition is needed by the query
+      return true;
+    }
+    DataPartition dataPartition = analysis.getDataPartitionInfo();
+    if (dataPartition == null || dataPartition.getDataPartitionMap() == null) {
+      return false;
+    }
+
+    long firstTimePartition = 0;
+    long lastTimePartition = 0;
+    if (StorageEngineV2.isEnablePartition()) {
+      Intervals intervals = TimeValuePairUtils.extractTimeInterval(analysis.getGlobalTimeFilter());
+      if (intervals.getIntervalSize() == 0) {
+        return true;
+      }
+      long lowerBound = intervals.getLowerBound(0);
+      long upperBound = intervals.getUpperBound(intervals.getIntervalSize() - 1);
+      if (lowerBound == Long.MIN_VALUE || upperBound == Long.MAX_VALUE) {
+        return false;
+      }
+      firstTimePartition = StorageEngineV2.getTimePartition(lowerBound);
+      lastTimePartition = StorageEngineV2.getTimePartition(upperBound);
+    }
+    long timePartitionCount;
+    try {
+      timePartitionCount =
+          Math.addExact(Math.subtractExact(lastTimePartition, firstTimePartition), 1);
+    } catch (ArithmeticException e) {
+      return false;
+    }
+
+    long interval = StorageEngineV2.getTimePartitionInterval();
+    for (Map.Entry<String, List<DataPartitionQueryParam>> entry : queryParams.entrySet()) {
+      Map<TSeriesPartitionSlot, Map<TTimePartitionSlot, List<TRegionReplicaSet>>>
+          seriesPartitions = dataPartition.getDataPartitionMap().get(entry.getKey());
+      for (DataPartitionQueryParam queryParam : entry.getValue()) {
+        Map<TTimePartitionSlot, List<TRegionReplicaSet>> timePartitions =
+            seriesPartitions == null
+                ? null
+                : seriesPartitions.get(
+                    dataPartition.getSeriesPartitionSlot(queryParam.getDevicePath()));
+        if (timePartitions == null || timePartitions.size() < timePartitionCount) {
+          return false;
+        }
+        for (long i = firstTimePartition; i <= lastTimePartition; i++) {
+          if (!timePartitions.containsKey(new TTimePartitionSlot(i * interval))) {
+            return false;
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  /** Called when the schema, the templates or the partition table change. */
+  public synchronized void invalidateAll() {
+    version.incrementAndGet();
+    cache.invalidateAll();
+  }
+
+  @TestOnly
+  public long size() {
+    cache.cleanUp();
+    return cache.estimatedSize();
+  }
+
+  /**
+   * The parsed statement, its analysis and its logical plan before distribution. They are never
+   * modified after being cached, and each query reusing them gets its own copies.
+   */
+  public static class AnalyzedPlan {
+
+    private final Analysis analysis;
+    private final PlanNode logicalPlanRoot;
+
+    /** the plan node ids generated by the query which cached the plan */
+    private final int planNodeIdCount;
+
+    /** the values bound to the template, empty if the plan is not of a prepared statement */
+    private final List<String> parameters;
+
+    /** the version of the cache when the plan was analyzed */
+    private final long version;
+
+    private AnalyzedPlan(
+        Analysis analysis,
+        PlanNode logicalPlanRoot,
+        int planNodeIdCount,
+        List<String> parameters,
+        long version) {
+      this.analysis = analysis;
+      this.logicalPlanRoot = logicalPlanRoot;
+      this.planNodeIdCount = planNodeIdCount;
+      this.parameters = parameters;
+      this.version = version;
+    }
+
+    /** The statement after the analysis, whose paths have been concatenated and resolved. */
+    public Statement getStatement() {
+      return analysis.getStatement();
+    }
+
+    /**
+     * Whether the plan is analyzed with the values, so that it can be reused as is. Otherwise the
+     * values are re-bound by analyzing the statement again with the schema tree and the data
+     * partition of the plan.
+     */
+    public boolean isBoundTo(List<String> parameters) {
+      return this.parameters.equals(parameters);
+    }
+
+    /** Copy the analysis for a new query, which fills the copy in its distribution planning. */
+    public Analysis copyAnalysis() {
+      return analysis.copy();
+    }
+
+    /** The schema tree and the data partition of the analysis are shared, as they are read only. */
+    public Analysis getAnalysis() {
+      return analysis;
+    }
+
+    public long getVersion() {
+      return version;
+    }
+
+    /**
+     * Copy the logical plan for a new query, whose plan node ids generated later are kept from
+     * colliding with those in the plan.
+     */
+    public LogicalQueryPlan copyLogicalPlan(MPPQueryContext context) {
+      context.getQueryId().skipPlanNodeIndexTo(planNodeIdCount);
+      return new LogicalQueryPlan(context, PlanNodeUtil.deepCopy(logicalPlanRoot));
+    }
+  }
+
+  private static class AnalyzedPlanCacheHolder {
+
+    private AnalyzedPlanCacheHolder() {}
+
+    private static final AnalyzedPlanCache INSTANCE = new AnalyzedPlanCache();
+  }
+}
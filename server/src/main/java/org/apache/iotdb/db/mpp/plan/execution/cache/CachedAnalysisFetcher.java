@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.execution.cache;
+
+import org.apache.iotdb.commons.partition.DataPartition;
+import org.apache.iotdb.commons.partition.DataPartitionQueryParam;
+import org.apache.iotdb.commons.partition.SchemaNodeManagementPartition;
+import org.apache.iotdb.commons.partition.SchemaPartition;
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.mpp.common.schematree.PathPatternTree;
+import org.apache.iotdb.db.mpp.common.schematree.SchemaTree;
+import org.apache.iotdb.db.mpp.plan.analyze.Analysis;
+import org.apache.iotdb.db.mpp.plan.analyze.IPartitionFetcher;
+import org.apache.iotdb.db.mpp.plan.analyze.ISchemaFetcher;
+import org.apache.iotdb.db.mpp.plan.execution.cache.AnalyzedPlanCache.AnalyzedPlan;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves the schema tree and the data partition of a cached plan to the analysis of its prepared
+ * statement bound to other values, and delegates the rest. The paths of the statement do not depend
+ * on the values, see {@link AnalyzedPlanCache#isRebindable}, so neither do its schema and its data
+ * partition, which is fetched for all the time partitions. The data partition may still miss the
+ * time partitions created after the plan was cached, which is checked by {@link
+ * AnalyzedPlanCache#covers} after the analysis.
+ */
+public class CachedAnalysisFetcher implements ISchemaFetcher, IPartitionFetcher {
+
+  private final Analysis cachedAnalysis;
+  private final IPartitionFetcher partitionFetcher;
+  private final ISchemaFetcher schemaFetcher;
+
+  public CachedAnalysisFetcher(
+      AnalyzedPlan cachedPlan, IPartitionFetcher partitionFetcher, ISchemaFetcher schemaFetcher) {
+    this.cachedAnalysis = cachedPlan.getAnalysis();
+    this.partitionFetcher = partitionFetcher;
+    this.schemaFetcher = schemaFetcher;
+  }
+
+  @Override
+  public SchemaTree fetchSchema(PathPatternTree patternTree) {
+    return cachedAnalysis.getSchemaTree();
+  }
+
+  @Override
+  public SchemaTree fetchSchema(PathPatternTree patternTree, SchemaPartition schemaPartition) {
+    return cachedAnalysis.getSchemaTree();
+  }
+
+  @Override
+  public SchemaTree fetchSchemaWithAutoCreate(
+      PartialPath devicePath, String[] measurements, TSDataType[] tsDataTypes, boolean aligned) {
+    return schemaFetcher.fetchSchemaWithAutoCreate(devicePath, measurements, tsDataTypes, aligned);
+  }
+
+  @Override
+  public SchemaTree fetchSchemaListWithAutoCreate(
+      List<PartialPath> devicePath,
+      List<String[]> measurements,
+      List<TSDataType[]> tsDataTypes,
+      List<Boolean> aligned) {
+    return schemaFetcher.fetchSchemaListWithAutoCreate(
+        devicePath, measurements, tsDataTypes, aligned);
+  }
+
+  @Override
+  public SchemaPartition getSchemaPartition(PathPatternTree patternTree) {
+    return partitionFetcher.getSchemaPartition(patternTree);
+  }
+
+  @Override
+  public SchemaPartition getOrCreateSchemaPartition(PathPatternTree patternTree) {
+    return partitionFetcher.getOrCreateSchemaPartition(patternTree);
+  }
+
+  @Override
+  public SchemaNodeManagementPartition getSchemaNodeManagementPartitionWithLevel(
+      PathPatternTree patternTree, Integer level) {
+    return partitionFetcher.getSchemaNodeManagementPartitionWithLevel(patternTree, level);
+  }
+
+  @Override
+  public DataPartition getDataPartition(
+      Map<String, List<DataPartitionQueryParam>> sgNameToQueryParamsMap) {
+    return cachedAnalysis.getDataPartitionInfo();
+  }
+
+  @Override
+  public DataPartition getDataPartition(List<DataPartitionQueryParam> dataPartitionQueryParams) {
+    return partitionFetcher.getDataPartition(dataPartitionQueryParams);
+  }
+
+  @Override
+  public DataPartition getOrCreateDataPartition(
+      Map<String, List<DataPartitionQueryParam>> sgNameToQueryParamsMap) {
+    return partitionFetcher.getOrCreateDataPartition(sgNameToQueryParamsMap);
+  }
+
+  @Override
+  public DataPartition getOrCreateDataPartition(
+      List<DataPartitionQueryParam> dataPartitionQueryParams) {
+    return partitionFetcher.getOrCreateDataPartition(dataPartitionQueryParams);
+  }
+
+  @Override
+  public void invalidAllCache() {
+    partitionFetcher.invalidAllCache();
+    schemaFetcher.invalidAllCache();
+  }
+}
@@ -0,0 +1,466 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.execution.cache;
+
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.mpp.plan.statement.Statement;
+import org.apache.iotdb.db.mpp.plan.statement.component.GroupByTimeComponent;
+import org.apache.iotdb.db.mpp.plan.statement.crud.QueryStatement;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class caches the results of GROUP BY time queries window by window. The result of a window
+ * only depends on the data inside it, so a query whose time range slides forward, e.g., the one
+ * refreshed by a dashboard, only computes the windows which are not cached and takes the others
+ * from here.
+ *
+ * <p>The cached windows of a query are kept in a {@link WindowResults}, keyed by the normalized
+ * query without its time range. The writes, deletions and loaded TsFiles drop the windows
+ * overlapping their time ranges on the written devices. The compactions are not considered, as they
+ * do not change the query results. The caching strategy is LRU.
+ */
+public class GroupByTimeResultCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(GroupByTimeResultCache.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private static final long MEMORY_THRESHOLD_IN_GROUP_BY_TIME_RESULT_CACHE =
+      config.getAllocateMemoryForGroupByTimeResultCache();
+  private static final boolean CACHE_ENABLE =
+      config.isMppMode() && MEMORY_THRESHOLD_IN_GROUP_BY_TIME_RESULT_CACHE > 0;
+
+  /** the invalidations recorded for the running queries are merged into one beyond this size */
+  private static final int MAX_PENDING_INVALIDATION_NUM = 64;
+
+  private final long maxMemory;
+  private final AtomicLong usedMemory = new AtomicLong();
+
+  /** guarded by this, in access order */
+  private final LinkedHashMap<String, WindowResults> lruCache =
+      new LinkedHashMap<>(16, 0.75f, true);
+
+  private final Map<String, Set<WindowResults>> deviceToWindowResults = new ConcurrentHashMap<>();
+
+  /** storage group -> TTL, only the storage groups with TTL are kept */
+  private final Map<String, Long> storageGroupToTTL = new ConcurrentHashMap<>();
+
+  private GroupByTimeResultCache() {
+    this(MEMORY_THRESHOLD_IN_GROUP_BY_TIME_RESULT_CACHE);
+    if (CACHE_ENABLE) {
+      logger.info("GroupByTimeResultCache size = " + maxMemory);
+    }
+  }
+
+  @TestOnly
+  GroupByTimeResultCache(long maxMemory) {
+    this.maxMemory = maxMemory;
+  }
+
+  public static GroupByTimeResultCache getInstance() {
+    return GroupByTimeResultCacheHolder.INSTANCE;
+  }
+
+  public boolean isEnabled() {
+    return CACHE_ENABLE;
+  }
+
+  /**
+   * Whether the result of the statement can be assembled from independently computed windows. The
+   * FILL, LIMIT, OFFSET and WITHOUT NULL clauses make a row depend on the others, and the month
+   * intervals and the left open intervals are not supported.
+   */
+  public static boolean isCacheable(Statement statement) {
+    if (!(statement instanceof QueryStatement)) {
+      return false;
+    }
+    QueryStatement queryStatement = (QueryStatement) statement;
+    if (!queryStatement.isGroupByTime()
+        || queryStatement.isLastQuery()
+        || queryStatement.isAlignByDevice()
+        || queryStatement.disableAlign()
+        || queryStatement.getFillComponent() != null
+        || queryStatement.getFilterNullComponent() != null
+        || queryStatement.getRowLimit() != 0
+        || queryStatement.getRowOffset() != 0
+        || queryStatement.getSeriesLimit() != 0
+        || queryStatement.getSeriesOffset() != 0) {
+      return false;
+    }
+    GroupByTimeComponent groupByTimeComponent = queryStatement.getGroupByTimeComponent();
+    return groupByTimeComponent.isLeftCRightO()
+        && !groupByTimeComponent.isIntervalByMonth()
+        && !groupByTimeComponent.isSlidingStepByMonth();
+  }
+
+  /** Get the cached windows of the query, the devices are those read by the query. */
+  public WindowResults getOrCreate(String key, Set<String> devices) {
+    WindowResults windowResults;
+    synchronized (this) {
+      windowResults = lruCache.get(key);
+      if (windowResults != null) {
+        return windowResults;
+      }
+      windowResults = new WindowResults(key, devices);
+      lruCache.put(key, windowResults);
+      usedMemory.addAndGet(windowResults.memory);
+      for (String device : devices) {
+        deviceToWindowResults
+            .computeIfAbsent(device, k -> ConcurrentHashMap.newKeySet())
+            .add(windowResults);
+      }
+    }
+    evictIfNecessary();
+    return windowResults;
+  }
+
+  /**
+   * The windows whose start time is less than the returned time should not be cached, as the data
+   * in them may be expired by the TTL of the storage groups.
+   */
+  public long getTTLLowerBound(Set<String> devices) {
+    long lowerBound = Long.MIN_VALUE;
+    if (storageGroupToTTL.isEmpty()) {
+      return lowerBound;
+    }
+    long now = System.currentTimeMillis();
+    for (Map.Entry<String, Long> entry : storageGroupToTTL.entrySet()) {
+      for (String device : devices) {
+        if (belongsTo(device, entry.getKey())) {
+          lowerBound = Math.max(lowerBound, now - entry.getValue());
+          break;
+        }
+      }
+    }
+    return lowerBound;
+  }
+
+  /** Record the TTL of the storage group and drop the windows computed with the previous one. */
+  public void setDataTTL(String storageGroup, long dataTTL) {
+    if (dataTTL == Long.MAX_VALUE) {
+      storageGroupToTTL.remove(storageGroup);
+    } else {
+      storageGroupToTTL.put(storageGroup, dataTTL);
+    }
+    invalidateStorageGroup(storageGroup);
+  }
+
+  /** Drop the cached windows of the device overlapping [startTime, endTime]. */
+  public void invalidate(String device, long startTime, long endTime) {
+    Set<WindowResults> windowResultsSet = deviceToWindowResults.get(device);
+    if (windowResultsSet == null) {
+      return;
+    }
+    for (WindowResults windowResults : windowResultsSet) {
+      usedMemory.addAndGet(-windowResults.invalidate(startTime, endTime));
+    }
+  }
+
+  public void invalidate(Set<PartialPath> devices, long startTime, long endTime) {
+    if (deviceToWindowResults.isEmpty()) {
+      return;
+    }
+    for (PartialPath device : devices) {
+      invalidate(device.getFullPath(), startTime, endTime);
+    }
+  }
+
+  /** Drop all the cached queries reading the storage group. */
+  public synchronized void invalidateStorageGroup(String storageGroup) {
+    Iterator<WindowResults> iterator = lruCache.values().iterator();
+    while (iterator.hasNext()) {
+      WindowResults windowResults = iterator.next();
+      for (String device : windowResults.devices) {
+        if (belongsTo(device, storageGroup)) {
+          iterator.remove();
+          remove(windowResults);
+          break;
+        }
+      }
+    }
+  }
+
+  /** clear the cache */
+  public synchronized void clear() {
+    for (WindowResults windowResults : lruCache.values()) {
+      remove(windowResults);
+    }
+    lruCache.clear();
+  }
+
+  public long getUsedMemory() {
+    return usedMemory.get();
+  }
+
+  @TestOnly
+  synchronized int size() {
+    return lruCache.size();
+  }
+
+  private void evictIfNecessary() {
+    if (usedMemory.get() <= maxMemory) {
+      return;
+    }
+    synchronized (this) {
+      Iterator<WindowResults> iterator = lruCache.values().iterator();
+      while (usedMemory.get() > maxMemory && iterator.hasNext()) {
+        WindowResults windowResults = iterator.next();
+        iterator.remove();
+        remove(windowResults);
+      }
+    }
+  }
+
+  /** the caller should hold the lock of this and remove the windowResults from lruCache */
+  private void remove(WindowResults windowResults) {
+    usedMemory.addAndGet(-windowResults.clearAndRemove());
+    for (String device : windowResults.devices) {
+      deviceToWindowResults.computeIfPresent(
+          device,
+          (k, set) -> {
+            set.remove(windowResults);
+            return set.isEmpty() ? null : set;
+          });
+    }
+  }
+
+  private static boolean belongsTo(String device, String storageGroup) {
+    return device.startsWith(storageGroup)
+        && (device.length() == storageGroup.length()
+            || device.charAt(storageGroup.length()) == '.');
+  }
+
+  /** The result row of a window [startTime, endTime), whose timestamp is the startTime. */
+  public static class CachedWindow {
+
+    private final long startTime;
+    private final long endTime;
+    private final Object[] values;
+
+    public CachedWindow(long startTime, long endTime, Object[] values) {
+      this.startTime = startTime;
+      this.endTime = endTime;
+      this.values = values;
+    }
+
+    public long getStartTime() {
+      return startTime;
+    }
+
+    public long getEndTime() {
+      return endTime;
+    }
+
+    /** the values of the value columns, null for null */
+    public Object[] getValues() {
+      return values;
+    }
+
+    private long estimateSize() {
+      // object header, fields, TreeMap entry, the array and the boxed values
+      long size = 120L + 8L * values.length;
+      for (Object value : values) {
+        if (value instanceof Binary) {
+          size += 40L + ((Binary) value).getLength();
+        } else if (value != null) {
+          size += 24L;
+        }
+      }
+      return size;
+    }
+  }
+
+  /**
+   * The cached windows of one query. The queries computing windows for it register themselves by
+   * {@link #beginFill()}, the invalidations happening meanwhile are recorded, so that the windows
+   * computed before the invalidations are not cached by {@link #endFill}.
+   */
+  public class WindowResults {
+
+    private final String key;
+    private final Set<String> devices;
+
+    /** window start time -> result, guarded by this */
+    private final NavigableMap<Long, CachedWindow> windows = new TreeMap<>();
+
+    private List<TSDataType> dataTypes;
+    private long maxInterval;
+    private long memory;
+    private boolean removed = false;
+
+    private long invalidationSeq = 0;
+    private int fillingQueryNum = 0;
+    /** {seq, startTime, endTime} of the invalidations since the oldest filling query began */
+    private final List<long[]> pendingInvalidations = new ArrayList<>();
+
+    private WindowResults(String key, Set<String> devices) {
+      this.key = key;
+      this.devices = devices;
+      this.memory = 64L + 2L * key.length() + 64L * devices.size();
+    }
+
+    public String getKey() {
+      return key;
+    }
+
+    public synchronized List<TSDataType> getDataTypes() {
+      return dataTypes;
+    }
+
+    /** @return the cached window [startTime, endTime), null if it is not cached */
+    public synchronized CachedWindow get(long startTime, long endTime) {
+      CachedWindow window = windows.get(startTime);
+      return window != null && window.endTime == endTime ? window : null;
+    }
+
+    /** @return the sequence to be passed to {@link #endFill} */
+    public synchronized long beginFill() {
+      fillingQueryNum++;
+      return invalidationSeq;
+    }
+
+    /**
+     * Cache the windows computed by a query registered by {@link #beginFill()}, except those
+     * overlapping the invalidations happened after it. Pass an empty list if the query failed.
+     */
+    public void endFill(long seq, List<TSDataType> dataTypes, List<CachedWindow> computedWindows) {
+      long delta = 0;
+      synchronized (this) {
+        fillingQueryNum--;
+        if (!removed && !computedWindows.isEmpty()) {
+          if (this.dataTypes == null) {
+            this.dataTypes = dataTypes;
+          }
+          for (CachedWindow window : computedWindows) {
+            if (this.dataTypes.equals(dataTypes) && !isInvalidatedAfter(seq, window)) {
+              CachedWindow previous = windows.put(window.startTime, window);
+              delta += window.estimateSize() - (previous == null ? 0 : previous.estimateSize());
+              maxInterval = Math.max(maxInterval, window.endTime - window.startTime);
+            }
+          }
+          memory += delta;
+        }
+        if (fillingQueryNum == 0) {
+          pendingInvalidations.clear();
+        }
+      }
+      if (delta != 0) {
+        usedMemory.addAndGet(delta);
+        synchronized (GroupByTimeResultCache.this) {
+          // refresh the access order
+          lruCache.get(key);
+        }
+        evictIfNecessary();
+      }
+    }
+
+    private boolean isInvalidatedAfter(long seq, CachedWindow window) {
+      for (long[] invalidation : pendingInvalidations) {
+        if (invalidation[0] > seq
+            && window.startTime <= invalidation[2]
+            && window.endTime > invalidation[1]) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /** @return the memory freed */
+    private synchronized long invalidate(long startTime, long endTime) {
+      if (removed) {
+        return 0;
+      }
+      invalidationSeq++;
+      if (fillingQueryNum > 0) {
+        recordPendingInvalidation(startTime, endTime);
+      }
+      if (windows.isEmpty()) {
+        return 0;
+      }
+      // the windows starting in (startTime - maxInterval, endTime] may overlap [startTime, endTime]
+      long fromKey =
+          startTime <= Long.MIN_VALUE + maxInterval ? Long.MIN_VALUE : startTime - maxInterval;
+      long freed = 0;
+      Iterator<CachedWindow> iterator =
+          windows.subMap(fromKey, true, endTime, true).values().iterator();
+      while (iterator.hasNext()) {
+        CachedWindow window = iterator.next();
+        if (window.endTime > startTime) {
+          iterator.remove();
+          freed += window.estimateSize();
+        }
+      }
+      memory -= freed;
+      return freed;
+    }
+
+    private void recordPendingInvalidation(long startTime, long endTime) {
+      if (pendingInvalidations.size() >= MAX_PENDING_INVALIDATION_NUM) {
+        // merge them into one covering all, which only makes more windows not cached
+        long mergedStart = startTime;
+        long mergedEnd = endTime;
+        for (long[] invalidation : pendingInvalidations) {
+          mergedStart = Math.min(mergedStart, invalidation[1]);
+          mergedEnd = Math.max(mergedEnd, invalidation[2]);
+        }
+        pendingInvalidations.clear();
+        startTime = mergedStart;
+        endTime = mergedEnd;
+      }
+      pendingInvalidations.add(new long[] {invalidationSeq, startTime, endTime});
+    }
+
+    /** @return the memory freed */
+    private synchronized long clearAndRemove() {
+      removed = true;
+      windows.clear();
+      long freed = memory;
+      memory = 0;
+      return freed;
+    }
+
+    @TestOnly
+    synchronized int getWindowNum() {
+      return windows.size();
+    }
+  }
+
+  private static class GroupByTimeResultCacheHolder {
+
+    private GroupByTimeResultCacheHolder() {}
+
+    private static final GroupByTimeResultCache INSTANCE = new GroupByTimeResultCache();
+  }
+}
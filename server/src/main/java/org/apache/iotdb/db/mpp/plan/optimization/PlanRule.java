@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.optimization;
+
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
+
+/**
+ * A rewrite rule used by {@link RuleBasedOptimizer}. A rule only looks at the given node and the
+ * subtree below it, and is applied to every node of the plan from the leaves to the root.
+ */
+public interface PlanRule {
+
+  /** The name used to disable this rule by the config disabled_plan_optimizer_rules. */
+  String getName();
+
+  /**
+   * Try to rewrite the given node. The given node must not be modified in place.
+   *
+   * @return the rewritten node, or the given node itself if the rule is not applicable
+   */
+  PlanNode apply(PlanNode node, RuleContext context);
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.optimization;
+
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.mpp.common.MPPQueryContext;
+import org.apache.iotdb.db.mpp.plan.optimization.rule.PruneAlignedColumns;
+import org.apache.iotdb.db.mpp.plan.optimization.rule.PushFilterIntoScan;
+import org.apache.iotdb.db.mpp.plan.optimization.rule.PushLimitIntoScan;
+import org.apache.iotdb.db.mpp.plan.optimization.rule.RemoveRedundantExchange;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.WritePlanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.ExchangeNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Rewrite a plan by a list of {@link PlanRule}s. The plan is traversed once from the leaves to the
+ * root, and all the enabled rules are applied in order to each node after its children have been
+ * rewritten. Rules can be switched off one by one by the config disabled_plan_optimizer_rules.
+ */
+public class RuleBasedOptimizer implements PlanOptimizer {
+
+  private final List<PlanRule> rules;
+
+  private final Set<PlanNodeId> parallelScanSplits;
+
+  public RuleBasedOptimizer(List<PlanRule> rules) {
+    this(rules, Collections.emptySet());
+  }
+
+  public RuleBasedOptimizer(List<PlanRule> rules, Set<PlanNodeId> parallelScanSplits) {
+    this.rules = rules;
+    this.parallelScanSplits = parallelScanSplits;
+  }
+
+  /** The rules applied to the logical plan of a query. */
+  public static RuleBasedOptimizer createLogicalOptimizer() {
+    return new RuleBasedOptimizer(
+        Arrays.asList(
+            new PushFilterIntoScan(),
+            new PruneAlignedColumns(),
+            new PushLimitIntoScan()));
+  }
+
+  /** The rules applied to the distributed plan after ExchangeNodes are added. */
+  public static RuleBasedOptimizer createDistributionOptimizer(Set<PlanNodeId> parallelScanSplits) {
+    return new RuleBasedOptimizer(
+        Collections.singletonList(new RemoveRedundantExchange()), parallelScanSplits);
+  }
+
+  @Override
+  public PlanNode optimize(PlanNode plan, MPPQueryContext context) {
+    List<PlanRule> enabledRules = getEnabledRules();
+    if (enabledRules.isEmpty()) {
+      return plan;
+    }
+    return rewrite(plan, enabledRules, new RuleContext(context, parallelScanSplits));
+  }
+
+  private List<PlanRule> getEnabledRules() {
+    String[] disabledRules =
+        IoTDBDescriptor.getInstance().getConfig().getDisabledPlanOptimizerRules();
+    List<PlanRule> enabledRules = new ArrayList<>();
+    for (PlanRule rule : rules) {
+      if (Arrays.stream(disabledRules).noneMatch(name -> name.equalsIgnoreCase(rule.getName()))) {
+        enabledRules.add(rule);
+      }
+    }
+    return enabledRules;
+  }
+
+  private PlanNode rewrite(PlanNode node, List<PlanRule> enabledRules, RuleContext context) {
+    if (node instanceof WritePlanNode) {
+      return node;
+    }
+
+    List<PlanNode> children = new ArrayList<>();
+    boolean childrenChanged = false;
+    for (PlanNode child : node.getChildren()) {
+      PlanNode newChild = rewrite(child, enabledRules, context);
+      childrenChanged |= newChild != child;
+      children.add(newChild);
+    }
+
+    PlanNode result = node;
+    if (childrenChanged) {
+      if (node instanceof ExchangeNode) {
+        // ExchangeNode.clone() does not keep the output columns
+        ExchangeNode exchangeNode = new ExchangeNode(node.getPlanNodeId());
+        exchangeNode.setChild(children.get(0));
+        exchangeNode.setOutputColumnNames(node.getOutputColumnNames());
+        result = exchangeNode;
+      } else {
+        result = node.cloneWithChildren(children);
+      }
+    }
+
+    for (PlanRule rule : enabledRules) {
+      result = rule.apply(result, context);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.optimization;
+
+import org.apache.iotdb.db.mpp.common.MPPQueryContext;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
+
+import java.util.Set;
+
+public class RuleContext {
+
+  private final MPPQueryContext queryContext;
+
+  // ids of the source nodes split by time in one DataRegion, which must stay in their own fragments
+  private final Set<PlanNodeId> parallelScanSplits;
+
+  public RuleContext(MPPQueryContext queryContext, Set<PlanNodeId> parallelScanSplits) {
+    this.queryContext = queryContext;
+    this.parallelScanSplits = parallelScanSplits;
+  }
+
+  public MPPQueryContext getQueryContext() {
+    return queryContext;
+  }
+
+  public PlanNodeId genPlanNodeId() {
+    return queryContext.getQueryId().genPlanNodeId();
+  }
+
+  public boolean isParallelScanSplit(PlanNodeId id) {
+    return parallelScanSplits.contains(id);
+  }
+}
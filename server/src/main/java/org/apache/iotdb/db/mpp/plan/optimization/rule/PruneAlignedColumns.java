@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.optimization.rule;
+
+import org.apache.iotdb.commons.exception.IllegalPathException;
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.metadata.path.AlignedPath;
+import org.apache.iotdb.db.mpp.plan.expression.Expression;
+import org.apache.iotdb.db.mpp.plan.optimization.PlanRule;
+import org.apache.iotdb.db.mpp.plan.optimization.RuleContext;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.AggregationNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.FilterNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.source.AlignedSeriesScanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.AggregationDescriptor;
+import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
+import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Remove the measurements of an aligned series scan which are not referenced by the node above it,
+ * so that their value chunks are not read at all.
+ *
+ * <p>Only FilterNode and AggregationNode are handled, both of which ignore the rows whose
+ * referenced columns are all null. A plain TransformNode may output such rows, and the rows of an
+ * aligned scan depend on which measurements it reads, so it is skipped.
+ *
+ * <p>Pattern: Filter | Aggregation -> AlignedSeriesScan | TimeJoin(scans)
+ */
+public class PruneAlignedColumns implements PlanRule {
+
+  @Override
+  public String getName() {
+    return "PruneAlignedColumns";
+  }
+
+  @Override
+  public PlanNode apply(PlanNode node, RuleContext context) {
+    Set<PartialPath> referencedPaths = new HashSet<>();
+    if (node instanceof FilterNode) {
+      FilterNode filterNode = (FilterNode) node;
+      Arrays.stream(filterNode.getOutputExpressions())
+          .forEach(expression -> expression.collectPaths(referencedPaths));
+      filterNode.getPredicate().collectPaths(referencedPaths);
+    } else if (node instanceof AggregationNode && node.getChildren().size() == 1) {
+      for (AggregationDescriptor descriptor :
+          ((AggregationNode) node).getAggregationDescriptorList()) {
+        for (Expression expression : descriptor.getInputExpressions()) {
+          expression.collectPaths(referencedPaths);
+        }
+      }
+    } else {
+      return node;
+    }
+
+    Set<String> referencedColumns =
+        referencedPaths.stream().map(PartialPath::getFullPath).collect(Collectors.toSet());
+    PlanNode newChild = prune(node.getChildren().get(0), referencedColumns);
+    if (newChild == null) {
+      return node;
+    }
+    List<PlanNode> children = new ArrayList<>();
+    children.add(newChild);
+    return node.cloneWithChildren(children);
+  }
+
+  /** @return the node with unused measurements removed, or null if nothing is changed */
+  private PlanNode prune(PlanNode node, Set<String> referencedColumns) {
+    if (node instanceof AlignedSeriesScanNode) {
+      AlignedSeriesScanNode scanNode = (AlignedSeriesScanNode) node;
+      if (scanNode.getValueFilter() != null) {
+        return null;
+      }
+      AlignedPath prunedPath = prunePath(scanNode.getAlignedPath(), referencedColumns);
+      if (prunedPath == null) {
+        return null;
+      }
+      return new AlignedSeriesScanNode(
+          scanNode.getPlanNodeId(),
+          prunedPath,
+          scanNode.getScanOrder(),
+          scanNode.getTimeFilter(),
+          scanNode.getValueFilter(),
+          scanNode.getLimit(),
+          scanNode.getOffset(),
+          scanNode.getRegionReplicaSet());
+    } else if (node instanceof TimeJoinNode) {
+      List<PlanNode> children = new ArrayList<>();
+      boolean changed = false;
+      for (PlanNode child : node.getChildren()) {
+        PlanNode newChild = prune(child, referencedColumns);
+        changed |= newChild != null;
+        children.add(newChild == null ? child : newChild);
+      }
+      return changed ? node.cloneWithChildren(children) : null;
+    }
+    return null;
+  }
+
+  /**
+   * @return the path which only contains the referenced measurements, or null if all or none of the
+   *     measurements are referenced
+   */
+  private AlignedPath prunePath(AlignedPath alignedPath, Set<String> referencedColumns) {
+    String device = alignedPath.getDevice();
+    List<String> measurements = alignedPath.getMeasurementList();
+    List<IMeasurementSchema> schemas = alignedPath.getSchemaList();
+    List<String> prunedMeasurements = new ArrayList<>();
+    List<IMeasurementSchema> prunedSchemas = new ArrayList<>();
+    for (int i = 0; i < measurements.size(); i++) {
+      String measurement = measurements.get(i);
+      if (referencedColumns.contains(device + TsFileConstant.PATH_SEPARATOR + measurement)) {
+        prunedMeasurements.add(measurement);
+        if (i < schemas.size()) {
+          prunedSchemas.add(schemas.get(i));
+        }
+      }
+    }
+    if (prunedMeasurements.isEmpty() || prunedMeasurements.size() == measurements.size()) {
+      return null;
+    }
+    try {
+      return new AlignedPath(device, prunedMeasurements, prunedSchemas);
+    } catch (IllegalPathException e) {
+      return null;
+    }
+  }
+}
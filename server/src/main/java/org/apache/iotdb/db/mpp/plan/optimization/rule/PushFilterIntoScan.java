@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.optimization.rule;
+
+import org.apache.iotdb.db.mpp.plan.expression.Expression;
+import org.apache.iotdb.db.mpp.plan.expression.ExpressionType;
+import org.apache.iotdb.db.mpp.plan.expression.binary.BinaryExpression;
+import org.apache.iotdb.db.mpp.plan.expression.leaf.ConstantOperand;
+import org.apache.iotdb.db.mpp.plan.expression.leaf.TimeSeriesOperand;
+import org.apache.iotdb.db.mpp.plan.optimization.PlanRule;
+import org.apache.iotdb.db.mpp.plan.optimization.RuleContext;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.FilterNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.source.SeriesScanNode;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.filter.ValueFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Push the conjuncts of a FilterNode predicate in the form of {@code series <op> constant} into the
+ * value filter of the series scan, so that the pages and rows which can not satisfy them are
+ * skipped while reading. The FilterNode is kept, so that the pushed filter only needs to keep all
+ * the rows that satisfy the predicate.
+ *
+ * <p>Only non-aligned series of INT32, INT64, DOUBLE and BOOLEAN are handled, for which the value
+ * filter compares the same way as the expression evaluator. FLOAT and TEXT series are skipped.
+ *
+ * <p>Pattern: Filter -> SeriesScan | TimeJoin(scans)
+ */
+public class PushFilterIntoScan implements PlanRule {
+
+  // INT64 constants beyond this are not exact when compared as double by the expression evaluator
+  private static final long MAX_EXACT_LONG = 1L << 53;
+
+  @Override
+  public String getName() {
+    return "PushFilterIntoScan";
+  }
+
+  @Override
+  public PlanNode apply(PlanNode node, RuleContext context) {
+    if (!(node instanceof FilterNode)) {
+      return node;
+    }
+    FilterNode filterNode = (FilterNode) node;
+    PlanNode child = filterNode.getChildren().get(0);
+
+    List<Expression> conjuncts = new ArrayList<>();
+    extractConjuncts(filterNode.getPredicate(), conjuncts);
+    Map<String, List<Expression>> pathToConjuncts = new HashMap<>();
+    for (Expression conjunct : conjuncts) {
+      TimeSeriesOperand operand = getSeriesOperand(conjunct);
+      if (operand != null) {
+        pathToConjuncts
+            .computeIfAbsent(operand.getPath().getFullPath(), k -> new ArrayList<>())
+            .add(conjunct);
+      }
+    }
+    if (pathToConjuncts.isEmpty()) {
+      return node;
+    }
+
+    PlanNode newChild = pushFilter(child, pathToConjuncts);
+    return newChild == null
+        ? node
+        : filterNode.cloneWithChildren(Collections.singletonList(newChild));
+  }
+
+  /** @return the node with the value filters pushed down, or null if nothing is changed */
+  private PlanNode pushFilter(PlanNode node, Map<String, List<Expression>> pathToConjuncts) {
+    if (node instanceof SeriesScanNode) {
+      SeriesScanNode scanNode = (SeriesScanNode) node;
+      List<Expression> seriesConjuncts =
+          pathToConjuncts.get(scanNode.getSeriesPath().getFullPath());
+      if (seriesConjuncts == null || scanNode.getValueFilter() != null) {
+        return null;
+      }
+      Filter valueFilter = null;
+      for (Expression conjunct : seriesConjuncts) {
+        Filter filter = toValueFilter(conjunct, scanNode.getSeriesPath().getSeriesType());
+        if (filter != null) {
+          valueFilter = valueFilter == null ? filter : FilterFactory.and(valueFilter, filter);
+        }
+      }
+      if (valueFilter == null) {
+        return null;
+      }
+      SeriesScanNode newScanNode = (SeriesScanNode) scanNode.clone();
+      newScanNode.setValueFilter(valueFilter);
+      return newScanNode;
+    } else if (node instanceof TimeJoinNode) {
+      List<PlanNode> children = new ArrayList<>();
+      boolean changed = false;
+      for (PlanNode child : node.getChildren()) {
+        PlanNode newChild = pushFilter(child, pathToConjuncts);
+        changed |= newChild != null;
+        children.add(newChild == null ? child : newChild);
+      }
+      return changed ? node.cloneWithChildren(children) : null;
+    }
+    return null;
+  }
+
+  private void extractConjuncts(Expression predicate, List<Expression> conjuncts) {
+    if (predicate.getExpressionType() == ExpressionType.LOGIC_AND) {
+      BinaryExpression andExpression = (BinaryExpression) predicate;
+      extractConjuncts(andExpression.getLeftExpression(), conjuncts);
+      extractConjuncts(andExpression.getRightExpression(), conjuncts);
+    } else {
+      conjuncts.add(predicate);
+    }
+  }
+
+  private TimeSeriesOperand getSeriesOperand(Expression conjunct) {
+    if (!isComparison(conjunct.getExpressionType())) {
+      return null;
+    }
+    BinaryExpression comparison = (BinaryExpression) conjunct;
+    if (comparison.getLeftExpression() instanceof TimeSeriesOperand
+        && comparison.getRightExpression() instanceof ConstantOperand) {
+      return (TimeSeriesOperand) comparison.getLeftExpression();
+    }
+    if (comparison.getLeftExpression() instanceof ConstantOperand
+        && comparison.getRightExpression() instanceof TimeSeriesOperand) {
+      return (TimeSeriesOperand) comparison.getRightExpression();
+    }
+    return null;
+  }
+
+  private boolean isComparison(ExpressionType type) {
+    switch (type) {
+      case EQUAL_TO:
+      case NON_EQUAL:
+      case GREATER_THAN:
+      case GREATER_EQUAL:
+      case LESS_THAN:
+      case LESS_EQUAL:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private Filter toValueFilter(Expression conjunct, TSDataType seriesType) {
+    BinaryExpression comparison = (BinaryExpression) conjunct;
+    ExpressionType type = conjunct.getExpressionType();
+    ConstantOperand constant;
+    if (comparison.getRightExpression() instanceof ConstantOperand) {
+      constant = (ConstantOperand) comparison.getRightExpression();
+    } else {
+      // constant <op> series, flip the operator so that the series is on the left side
+      constant = (ConstantOperand) comparison.getLeftExpression();
+      type = flip(type);
+    }
+
+    try {
+      switch (seriesType) {
+        case INT32:
+          if (!isNumeric(constant)) {
+            return null;
+          }
+          return createFilter(type, Integer.parseInt(constant.getValueString()));
+        case INT64:
+          if (!isNumeric(constant)) {
+            return null;
+          }
+          long longValue = Long.parseLong(constant.getValueString());
+          return Math.abs(longValue) < MAX_EXACT_LONG ? createFilter(type, longValue) : null;
+        case DOUBLE:
+          if (!isNumeric(constant)) {
+            return null;
+          }
+          return createFilter(type, Double.parseDouble(constant.getValueString()));
+        case BOOLEAN:
+          if (constant.getDataType() != TSDataType.BOOLEAN
+              || (type != ExpressionType.EQUAL_TO && type != ExpressionType.NON_EQUAL)) {
+            return null;
+          }
+          return createFilter(type, Boolean.parseBoolean(constant.getValueString()));
+        default:
+          return null;
+      }
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private boolean isNumeric(ConstantOperand constant) {
+    return constant.getDataType() != TSDataType.TEXT
+        && constant.getDataType() != TSDataType.BOOLEAN;
+  }
+
+  private ExpressionType flip(ExpressionType type) {
+    switch (type) {
+      case GREATER_THAN:
+        return ExpressionType.LESS_THAN;
+      case GREATER_EQUAL:
+        return ExpressionType.LESS_EQUAL;
+      case LESS_THAN:
+        return ExpressionType.GREATER_THAN;
+      case LESS_EQUAL:
+        return ExpressionType.GREATER_EQUAL;
+      default:
+        return type;
+    }
+  }
+
+  private <T extends Comparable<T>> Filter createFilter(ExpressionType type, T value) {
+    switch (type) {
+      case EQUAL_TO:
+        return ValueFilter.eq(value);
+      case NON_EQUAL:
+        return ValueFilter.notEq(value);
+      case GREATER_THAN:
+        return ValueFilter.gt(value);
+      case GREATER_EQUAL:
+        return ValueFilter.gtEq(value);
+      case LESS_THAN:
+        return ValueFilter.lt(value);
+      case LESS_EQUAL:
+        return ValueFilter.ltEq(value);
+      default:
+        return null;
+    }
+  }
+}
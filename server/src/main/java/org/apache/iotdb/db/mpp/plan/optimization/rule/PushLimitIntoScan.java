@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.optimization.rule;
+
+import org.apache.iotdb.db.mpp.plan.optimization.PlanRule;
+import org.apache.iotdb.db.mpp.plan.optimization.RuleContext;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.LimitNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.OffsetNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.source.AlignedSeriesScanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.source.SeriesScanNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Push LIMIT (and OFFSET) into the series scans below it, so that a scan stops reading once it has
+ * returned enough rows. Each scan is limited to limit + offset rows, because the rows of a time
+ * join are the union of the rows of its children. The LimitNode and OffsetNode are kept.
+ *
+ * <p>Pattern: Limit -> [Offset] -> SeriesScan | AlignedSeriesScan | TimeJoin(scans)
+ */
+public class PushLimitIntoScan implements PlanRule {
+
+  @Override
+  public String getName() {
+    return "PushLimitIntoScan";
+  }
+
+  @Override
+  public PlanNode apply(PlanNode node, RuleContext context) {
+    if (!(node instanceof LimitNode)) {
+      return node;
+    }
+    LimitNode limitNode = (LimitNode) node;
+    PlanNode child = limitNode.getChild();
+    long rowLimit = limitNode.getLimit();
+    OffsetNode offsetNode = null;
+    if (child instanceof OffsetNode) {
+      offsetNode = (OffsetNode) child;
+      rowLimit += offsetNode.getOffset();
+      child = offsetNode.getChild();
+    }
+    if (rowLimit <= 0 || rowLimit > Integer.MAX_VALUE) {
+      return node;
+    }
+
+    PlanNode newSource = pushLimit(child, (int) rowLimit);
+    if (newSource == null) {
+      return node;
+    }
+    PlanNode newChild =
+        offsetNode == null
+            ? newSource
+            : offsetNode.cloneWithChildren(Collections.singletonList(newSource));
+    return limitNode.cloneWithChildren(Collections.singletonList(newChild));
+  }
+
+  /** @return the node with the limit pushed down, or null if nothing is changed */
+  private PlanNode pushLimit(PlanNode node, int rowLimit) {
+    if (node instanceof SeriesScanNode) {
+      SeriesScanNode scanNode = (SeriesScanNode) node;
+      if (!canPushLimit(scanNode.getLimit(), scanNode.getOffset(), rowLimit)) {
+        return null;
+      }
+      SeriesScanNode newScanNode = (SeriesScanNode) scanNode.clone();
+      newScanNode.setLimit(rowLimit);
+      return newScanNode;
+    } else if (node instanceof AlignedSeriesScanNode) {
+      AlignedSeriesScanNode scanNode = (AlignedSeriesScanNode) node;
+      if (!canPushLimit(scanNode.getLimit(), scanNode.getOffset(), rowLimit)) {
+        return null;
+      }
+      AlignedSeriesScanNode newScanNode = (AlignedSeriesScanNode) scanNode.clone();
+      newScanNode.setLimit(rowLimit);
+      return newScanNode;
+    } else if (node instanceof TimeJoinNode) {
+      List<PlanNode> children = new ArrayList<>();
+      boolean changed = false;
+      for (PlanNode child : node.getChildren()) {
+        PlanNode newChild = pushLimit(child, rowLimit);
+        changed |= newChild != null;
+        children.add(newChild == null ? child : newChild);
+      }
+      return changed ? node.cloneWithChildren(children) : null;
+    }
+    return null;
+  }
+
+  private boolean canPushLimit(int scanLimit, int scanOffset, int rowLimit) {
+    return scanOffset == 0 && (scanLimit == 0 || scanLimit > rowLimit);
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.optimization.rule;
+
+import org.apache.iotdb.common.rpc.thrift.TRegionReplicaSet;
+import org.apache.iotdb.commons.partition.DataPartition;
+import org.apache.iotdb.db.mpp.plan.optimization.PlanRule;
+import org.apache.iotdb.db.mpp.plan.optimization.RuleContext;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.IPartitionRelatedNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.ExchangeNode;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Remove the ExchangeNode between two parts of the plan which are in the same region. Such
+ * ExchangeNodes are added by ExchangeNodeAdder for the children whose region is unknown, e.g. a
+ * TransformNode over a scan, and cost an extra fragment instance and a local data block exchange.
+ *
+ * <p>An ExchangeNode under a node is removed if all the source nodes in the fragment of the node
+ * and all the source nodes in the fragment below the ExchangeNode belong to the same region. The
+ * ExchangeNodes of the parallel time splits of one series scan are kept.
+ */
+public class RemoveRedundantExchange implements PlanRule {
+
+  @Override
+  public String getName() {
+    return "RemoveRedundantExchange";
+  }
+
+  @Override
+  public PlanNode apply(PlanNode node, RuleContext context) {
+    if (node instanceof ExchangeNode) {
+      return node;
+    }
+
+    Set<TRegionReplicaSet> localRegions = new HashSet<>();
+    for (PlanNode child : node.getChildren()) {
+      if (!(child instanceof ExchangeNode)) {
+        collectLocalRegions(child, localRegions);
+      }
+    }
+    // only merge into a fragment whose region is already known
+    if (localRegions.size() != 1) {
+      return node;
+    }
+    TRegionReplicaSet region = localRegions.iterator().next();
+
+    List<PlanNode> children = new ArrayList<>();
+    boolean changed = false;
+    for (PlanNode child : node.getChildren()) {
+      if (child instanceof ExchangeNode && isRedundant((ExchangeNode) child, region, context)) {
+        children.add(((ExchangeNode) child).getChild());
+        changed = true;
+      } else {
+        children.add(child);
+      }
+    }
+    return changed ? node.cloneWithChildren(children) : node;
+  }
+
+  private boolean isRedundant(
+      ExchangeNode exchangeNode, TRegionReplicaSet region, RuleContext context) {
+    PlanNode child = exchangeNode.getChild();
+    if (child == null || context.isParallelScanSplit(child.getPlanNodeId())) {
+      return false;
+    }
+    Set<TRegionReplicaSet> childRegions = new HashSet<>();
+    collectLocalRegions(child, childRegions);
+    return childRegions.size() == 1 && childRegions.contains(region);
+  }
+
+  /** Collect the regions of the source nodes in the same fragment as the given node. */
+  private void collectLocalRegions(PlanNode node, Set<TRegionReplicaSet> regions) {
+    if (node instanceof ExchangeNode) {
+      return;
+    }
+    if (node instanceof IPartitionRelatedNode) {
+      TRegionReplicaSet region = ((IPartitionRelatedNode) node).getRegionReplicaSet();
+      if (region != null && region != DataPartition.NOT_ASSIGNED) {
+        regions.add(region);
+      }
+    }
+    for (PlanNode child : node.getChildren()) {
+      collectLocalRegions(child, regions);
+    }
+  }
+}
@@ -67,6 +67,7 @@ import org.apache.iotdb.db.mpp.plan.statement.component.OrderBy;
 import org.apache.iotdb.db.mpp.plan.statement.component.ResultColumn;
 import org.apache.iotdb.db.mpp.plan.statement.component.ResultSetFormat;
 import org.apache.iotdb.db.mpp.plan.statement.component.SelectComponent;
+import org.apache.iotdb.db.mpp.plan.statement.component.SortItem;
 import org.apache.iotdb.db.mpp.plan.statement.component.WhereCondition;
 import org.apache.iotdb.db.mpp.plan.statement.crud.DeleteDataStatement;
 import org.apache.iotdb.db.mpp.plan.statement.crud.InsertStatement;
@@ -949,6 +950,32 @@ public class ASTVisitor extends IoTDBSqlParserBaseVisitor<Statement> {
     queryStatement.setGroupByLevelComponent(groupByLevelComponent);
   }
 
+  // Group By Values Clause
+  @Override
+  public Statement visitGroupByValuesStatement(IoTDBSqlParser.GroupByValuesStatementContext ctx) {
+    // parse GroupByValues clause
+    List<Expression> groupByValueExpressions = new ArrayList<>();
+    for (IoTDBSqlParser.ExpressionContext expressionContext :
+        ctx.groupByValuesClause().expression()) {
+      Expression groupByValueExpression = parseExpression(expressionContext, false);
+      if (groupByValueExpression.isConstantOperand()) {
+        throw new SemanticException(
+            "Constant operand is not allowed in GROUP BY VALUES: " + groupByValueExpression);
+      }
+      if (groupByValueExpression instanceof TimestampOperand) {
+        throw new SemanticException("Time is not allowed in GROUP BY VALUES");
+      }
+      groupByValueExpressions.add(groupByValueExpression);
+    }
+    queryStatement.setGroupByValueExpressions(groupByValueExpressions);
+
+    // parse limit & offset
+    if (ctx.specialLimit() != null) {
+      return visit(ctx.specialLimit());
+    }
+    return queryStatement;
+  }
+
   // Fill Clause
   @Override
   public Statement visitFillStatement(IoTDBSqlParser.FillStatementContext ctx) {
@@ -1189,6 +1216,41 @@ public class ASTVisitor extends IoTDBSqlParserBaseVisitor<Statement> {
     }
   }
 
+  // ORDER BY Clause
+
+  @Override
+  public Statement visitOrderByStatement(IoTDBSqlParser.OrderByStatementContext ctx) {
+    // parse ORDER BY
+    parseOrderByClause(ctx.orderByClause());
+
+    // parse others
+    if (ctx.specialLimit() != null) {
+      return visit(ctx.specialLimit());
+    }
+    return queryStatement;
+  }
+
+  // parse ORDER BY, the order of time alone is pushed down to the scan as ORDER BY TIME
+  private void parseOrderByClause(IoTDBSqlParser.OrderByClauseContext ctx) {
+    List<SortItem> sortItems = new ArrayList<>();
+    for (IoTDBSqlParser.OrderByAttributeClauseContext attributeContext :
+        ctx.orderByAttributeClause()) {
+      Expression sortKey = parseExpression(attributeContext.expression(), false);
+      if (sortKey.isConstantOperand()) {
+        throw new SemanticException("Constant operand is not allowed in ORDER BY: " + sortKey);
+      }
+      sortItems.add(new SortItem(sortKey, attributeContext.DESC() == null));
+    }
+    if (sortItems.get(0).isTime()) {
+      queryStatement.setResultOrder(
+          sortItems.get(0).isAscending() ? OrderBy.TIMESTAMP_ASC : OrderBy.TIMESTAMP_DESC);
+      if (sortItems.size() == 1) {
+        return;
+      }
+    }
+    queryStatement.setSortItems(sortItems);
+  }
+
   // ResultSetFormat Clause
 
   @Override
@@ -20,6 +20,8 @@ package org.apache.iotdb.db.mpp.plan.planner;
 
 import org.apache.iotdb.common.rpc.thrift.TEndPoint;
 import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.storagegroup.DataRegion;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.metadata.cache.DataNodeSchemaCache;
@@ -28,6 +30,7 @@ import org.apache.iotdb.db.metadata.path.MeasurementPath;
 import org.apache.iotdb.db.metadata.schemaregion.ISchemaRegion;
 import org.apache.iotdb.db.mpp.aggregation.AccumulatorFactory;
 import org.apache.iotdb.db.mpp.aggregation.Aggregator;
+import org.apache.iotdb.db.mpp.aggregation.GroupedAggregator;
 import org.apache.iotdb.db.mpp.aggregation.slidingwindow.SlidingWindowAggregator;
 import org.apache.iotdb.db.mpp.aggregation.slidingwindow.SlidingWindowAggregatorFactory;
 import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
@@ -48,6 +51,7 @@ import org.apache.iotdb.db.mpp.execution.operator.process.DeviceMergeOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.DeviceViewOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.FillOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.FilterOperator;
+import org.apache.iotdb.db.mpp.execution.operator.process.HashAggregationOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.LastQueryMergeOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.LimitOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.LinearFillOperator;
@@ -55,9 +59,12 @@ import org.apache.iotdb.db.mpp.execution.operator.process.OffsetOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.ProcessOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.RawDataAggregationOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.SlidingWindowAggregationOperator;
+import org.apache.iotdb.db.mpp.execution.operator.process.SortOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.TimeJoinOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.TransformOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.UpdateLastCacheOperator;
+import org.apache.iotdb.db.mpp.execution.operator.process.VectorizedFilterOperator;
+import org.apache.iotdb.db.mpp.execution.operator.process.VectorizedTransformOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.fill.IFill;
 import org.apache.iotdb.db.mpp.execution.operator.process.fill.constant.BinaryConstantFill;
 import org.apache.iotdb.db.mpp.execution.operator.process.fill.constant.BooleanConstantFill;
@@ -105,6 +112,7 @@ import org.apache.iotdb.db.mpp.execution.operator.source.LastCacheScanOperator;
 import org.apache.iotdb.db.mpp.execution.operator.source.SeriesAggregationScanOperator;
 import org.apache.iotdb.db.mpp.execution.operator.source.SeriesScanOperator;
 import org.apache.iotdb.db.mpp.plan.analyze.TypeProvider;
+import org.apache.iotdb.db.mpp.plan.expression.Expression;
 import org.apache.iotdb.db.mpp.plan.expression.leaf.TimeSeriesOperand;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
@@ -132,6 +140,7 @@ import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.FillNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.FilterNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.FilterNullNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.GroupByLevelNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.HashAggregationNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.LastQueryMergeNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.LimitNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.OffsetNode;
@@ -151,9 +160,12 @@ import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.FillDescriptor;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.GroupByLevelDescriptor;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.InputLocation;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.OutputColumn;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.SortKeyDescriptor;
 import org.apache.iotdb.db.mpp.plan.statement.component.FillPolicy;
 import org.apache.iotdb.db.mpp.plan.statement.component.OrderBy;
 import org.apache.iotdb.db.mpp.plan.statement.literal.Literal;
+import org.apache.iotdb.db.mpp.transformation.column.ColumnEvaluator;
+import org.apache.iotdb.db.mpp.transformation.column.ColumnEvaluatorBuilder;
 import org.apache.iotdb.db.utils.datastructure.TimeSelector;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.TimeValuePair;
@@ -188,6 +200,8 @@ import static org.apache.iotdb.db.mpp.plan.constant.DataNodeEndPoints.isSameNode
  */
 public class LocalExecutionPlanner {
 
+  private static final IoTDBConfig CONFIG = IoTDBDescriptor.getInstance().getConfig();
+
   private static final DataBlockManager DATA_BLOCK_MANAGER =
       DataBlockService.getInstance().getDataBlockManager();
 
@@ -269,7 +283,8 @@ public class LocalExecutionPlanner {
       context.addSourceOperator(seriesScanOperator);
       context.addPath(seriesPath);
 
-      return seriesScanOperator;
+      return generateLimitAndOffsetOfScan(
+          seriesScanOperator, node.getPlanNodeId(), node.getLimit(), node.getOffset(), context);
     }
 
     @Override
@@ -295,7 +310,38 @@ public class LocalExecutionPlanner {
       context.addSourceOperator(seriesScanOperator);
       context.addPath(seriesPath);
 
-      return seriesScanOperator;
+      return generateLimitAndOffsetOfScan(
+          seriesScanOperator, node.getPlanNodeId(), node.getLimit(), node.getOffset(), context);
+    }
+
+    /**
+     * The limit and offset of a scan are pushed down by the plan optimizer, which keeps the
+     * LimitNode and OffsetNode above, so the scan only needs to stop early.
+     */
+    private Operator generateLimitAndOffsetOfScan(
+        Operator scanOperator,
+        PlanNodeId planNodeId,
+        int limit,
+        int offset,
+        LocalExecutionPlanContext context) {
+      Operator operator = scanOperator;
+      if (offset > 0) {
+        operator =
+            new OffsetOperator(
+                context.instanceContext.addOperatorContext(
+                    context.getNextOperatorId(), planNodeId, OffsetOperator.class.getSimpleName()),
+                offset,
+                operator);
+      }
+      if (limit > 0) {
+        operator =
+            new LimitOperator(
+                context.instanceContext.addOperatorContext(
+                    context.getNextOperatorId(), planNodeId, LimitOperator.class.getSimpleName()),
+                limit,
+                operator);
+      }
+      return operator;
     }
 
     @Override
@@ -666,7 +712,10 @@ public class LocalExecutionPlanner {
                   node.getPlanNodeId(),
                   LinearFillOperator.class.getSimpleName()),
               getLinearFill(inputColumns, inputDataTypes),
-              child);
+              child,
+              DATA_BLOCK_MANAGER.getLocalMemoryManager().getQueryPool(),
+              CONFIG.getFillBufferSizeInByte(),
+              CONFIG.getQueryDir());
         default:
           throw new IllegalArgumentException("Unknown fill policy: " + fillPolicy);
       }
@@ -760,16 +809,33 @@ public class LocalExecutionPlanner {
 
     @Override
     public Operator visitTransform(TransformNode node, LocalExecutionPlanContext context) {
-      final OperatorContext operatorContext =
-          context.instanceContext.addOperatorContext(
-              context.getNextOperatorId(),
-              node.getPlanNodeId(),
-              TransformOperator.class.getSimpleName());
-      final Operator inputOperator = generateOnlyChildOperator(node, context);
       final List<TSDataType> inputDataTypes = getInputColumnTypes(node, context.getTypeProvider());
       final Map<String, List<InputLocation>> inputLocations = makeLayout(node);
 
       try {
+        // expressions without UDFs are evaluated column by column
+        final ColumnEvaluator[] outputEvaluators =
+            new ColumnEvaluatorBuilder(inputLocations, inputDataTypes)
+                .build(node.getOutputExpressions());
+        if (outputEvaluators != null) {
+          final OperatorContext operatorContext =
+              context.instanceContext.addOperatorContext(
+                  context.getNextOperatorId(),
+                  node.getPlanNodeId(),
+                  VectorizedTransformOperator.class.getSimpleName());
+          return new VectorizedTransformOperator(
+              operatorContext,
+              generateOnlyChildOperator(node, context),
+              outputEvaluators,
+              node.isKeepNull());
+        }
+
+        final OperatorContext operatorContext =
+            context.instanceContext.addOperatorContext(
+                context.getNextOperatorId(),
+                node.getPlanNodeId(),
+                TransformOperator.class.getSimpleName());
+        final Operator inputOperator = generateOnlyChildOperator(node, context);
         return new TransformOperator(
             operatorContext,
             inputOperator,
@@ -786,16 +852,35 @@ public class LocalExecutionPlanner {
 
     @Override
     public Operator visitFilter(FilterNode node, LocalExecutionPlanContext context) {
-      final OperatorContext operatorContext =
-          context.instanceContext.addOperatorContext(
-              context.getNextOperatorId(),
-              node.getPlanNodeId(),
-              FilterOperator.class.getSimpleName());
-      final Operator inputOperator = generateOnlyChildOperator(node, context);
       final List<TSDataType> inputDataTypes = getInputColumnTypes(node, context.getTypeProvider());
       final Map<String, List<InputLocation>> inputLocations = makeLayout(node);
 
       try {
+        // predicates and expressions without UDFs are evaluated column by column
+        final ColumnEvaluatorBuilder evaluatorBuilder =
+            new ColumnEvaluatorBuilder(inputLocations, inputDataTypes);
+        final ColumnEvaluator filterEvaluator = evaluatorBuilder.build(node.getPredicate());
+        final ColumnEvaluator[] outputEvaluators =
+            filterEvaluator == null ? null : evaluatorBuilder.build(node.getOutputExpressions());
+        if (outputEvaluators != null) {
+          final OperatorContext operatorContext =
+              context.instanceContext.addOperatorContext(
+                  context.getNextOperatorId(),
+                  node.getPlanNodeId(),
+                  VectorizedFilterOperator.class.getSimpleName());
+          return new VectorizedFilterOperator(
+              operatorContext,
+              generateOnlyChildOperator(node, context),
+              filterEvaluator,
+              outputEvaluators);
+        }
+
+        final OperatorContext operatorContext =
+            context.instanceContext.addOperatorContext(
+                context.getNextOperatorId(),
+                node.getPlanNodeId(),
+                FilterOperator.class.getSimpleName());
+        final Operator inputOperator = generateOnlyChildOperator(node, context);
         return new FilterOperator(
             operatorContext,
             inputOperator,
@@ -885,7 +970,7 @@ public class LocalExecutionPlanner {
 
     @Override
     public Operator visitLimit(LimitNode node, LocalExecutionPlanContext context) {
-      Operator child = node.getChild().accept(this, context);
+      Operator child = generateChildOfLimit(node.getChild(), node.getLimit(), context);
       return new LimitOperator(
           context.instanceContext.addOperatorContext(
               context.getNextOperatorId(),
@@ -895,6 +980,30 @@ public class LocalExecutionPlanner {
           child);
     }
 
+    /** Only the first limit rows of the SortNode under the LimitNode need to be sorted. */
+    private Operator generateChildOfLimit(
+        PlanNode node, long limit, LocalExecutionPlanContext context) {
+      if (limit > 0 && node instanceof SortNode) {
+        return generateSortOperator((SortNode) node, limit, context);
+      }
+      if (limit > 0
+          && node instanceof OffsetNode
+          && ((OffsetNode) node).getChild() instanceof SortNode) {
+        OffsetNode offsetNode = (OffsetNode) node;
+        Operator child =
+            generateSortOperator(
+                (SortNode) offsetNode.getChild(), limit + offsetNode.getOffset(), context);
+        return new OffsetOperator(
+            context.instanceContext.addOperatorContext(
+                context.getNextOperatorId(),
+                offsetNode.getPlanNodeId(),
+                OffsetOperator.class.getSimpleName()),
+            offsetNode.getOffset(),
+            child);
+      }
+      return node.accept(this, context);
+    }
+
     @Override
     public Operator visitOffset(OffsetNode node, LocalExecutionPlanContext context) {
       Operator child = node.getChild().accept(this, context);
@@ -963,6 +1072,69 @@ public class LocalExecutionPlanner {
       }
     }
 
+    @Override
+    public Operator visitHashAggregation(
+        HashAggregationNode node, LocalExecutionPlanContext context) {
+      checkArgument(
+          node.getAggregationDescriptorList().size() >= 1,
+          "Aggregation descriptorList cannot be empty");
+      List<Operator> children =
+          node.getChildren().stream()
+              .map(child -> child.accept(this, context))
+              .collect(Collectors.toList());
+      OperatorContext operatorContext =
+          context.instanceContext.addOperatorContext(
+              context.getNextOperatorId(),
+              node.getPlanNodeId(),
+              HashAggregationOperator.class.getSimpleName());
+      // all the children have the same columns
+      List<String> inputColumnNames = node.getChildren().get(0).getOutputColumnNames();
+      List<Integer> groupKeyColumnIndexes = new ArrayList<>();
+      List<TSDataType> groupKeyDataTypes = new ArrayList<>();
+      for (Expression expression : node.getGroupByExpressions()) {
+        int columnIndex = inputColumnNames.indexOf(expression.getExpressionString());
+        checkArgument(columnIndex >= 0, "group by column %s is not found", expression);
+        groupKeyColumnIndexes.add(columnIndex);
+        groupKeyDataTypes.add(context.getTypeProvider().getType(expression.getExpressionString()));
+      }
+      boolean ascending = node.getScanOrder() == OrderBy.TIMESTAMP_ASC;
+      List<GroupedAggregator> aggregators = new ArrayList<>();
+      for (AggregationDescriptor descriptor : node.getAggregationDescriptorList()) {
+        List<InputLocation[]> inputLocationList = new ArrayList<>();
+        for (List<String> inputColumnNamesOfOneInput : descriptor.getInputColumnNamesList()) {
+          InputLocation[] inputLocations = new InputLocation[inputColumnNamesOfOneInput.size()];
+          for (int i = 0; i < inputLocations.length; i++) {
+            int columnIndex = inputColumnNames.indexOf(inputColumnNamesOfOneInput.get(i));
+            checkArgument(
+                columnIndex >= 0,
+                "input column %s is not found",
+                inputColumnNamesOfOneInput.get(i));
+            inputLocations[i] = new InputLocation(0, columnIndex);
+          }
+          inputLocationList.add(inputLocations);
+        }
+        aggregators.add(
+            new GroupedAggregator(
+                descriptor.getAggregationType(),
+                context
+                    .getTypeProvider()
+                    // get the type of first inputExpression
+                    .getType(descriptor.getInputExpressions().get(0).toString()),
+                ascending,
+                descriptor.getStep(),
+                inputLocationList));
+      }
+      return new HashAggregationOperator(
+          operatorContext,
+          children,
+          groupKeyColumnIndexes,
+          groupKeyDataTypes,
+          aggregators,
+          DATA_BLOCK_MANAGER.getLocalMemoryManager().getQueryPool(),
+          CONFIG.getHashAggregationBufferSizeInByte(),
+          CONFIG.getQueryDir());
+    }
+
     private List<InputLocation[]> calcInputLocationList(
         AggregationDescriptor descriptor, Map<String, List<InputLocation>> layout) {
       List<List<String>> inputColumnNames = descriptor.getInputColumnNamesList();
@@ -988,7 +1160,39 @@ public class LocalExecutionPlanner {
 
     @Override
     public Operator visitSort(SortNode node, LocalExecutionPlanContext context) {
-      return super.visitSort(node, context);
+      return generateSortOperator(node, Long.MAX_VALUE, context);
+    }
+
+    private Operator generateSortOperator(
+        SortNode node, long topN, LocalExecutionPlanContext context) {
+      Operator child = node.getChildren().get(0).accept(this, context);
+      OperatorContext operatorContext =
+          context.instanceContext.addOperatorContext(
+              context.getNextOperatorId(),
+              node.getPlanNodeId(),
+              SortOperator.class.getSimpleName());
+      List<TSDataType> dataTypes = getOutputColumnTypes(node, context.getTypeProvider());
+      List<Integer> columnIndexes = new ArrayList<>();
+      List<Boolean> ascending = new ArrayList<>();
+      for (SortKeyDescriptor sortKey : node.getSortKeys()) {
+        if (sortKey.isTime()) {
+          columnIndexes.add(-1);
+        } else {
+          int columnIndex = node.getOutputColumnNames().indexOf(sortKey.getColumnName());
+          checkArgument(columnIndex >= 0, "sort key %s is not found", sortKey.getColumnName());
+          columnIndexes.add(columnIndex);
+        }
+        ascending.add(sortKey.isAscending());
+      }
+      return new SortOperator(
+          operatorContext,
+          child,
+          dataTypes,
+          SortOperator.createComparator(columnIndexes, ascending, dataTypes),
+          topN,
+          DATA_BLOCK_MANAGER.getLocalMemoryManager().getQueryPool(),
+          CONFIG.getSortBufferSizeInByte(),
+          CONFIG.getQueryDir());
     }
 
     @Override
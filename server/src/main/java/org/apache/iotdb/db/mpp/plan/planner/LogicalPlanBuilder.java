@@ -52,10 +52,12 @@ import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.FillNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.FilterNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.FilterNullNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.GroupByLevelNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.HashAggregationNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.LastQueryMergeNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.LimitNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.OffsetNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.SlidingWindowAggregationNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.SortNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TimeJoinNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TransformNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.source.AlignedLastQueryScanNode;
@@ -71,6 +73,7 @@ import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.FillDescriptor;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.FilterNullParameter;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.GroupByLevelDescriptor;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.GroupByTimeParameter;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.SortKeyDescriptor;
 import org.apache.iotdb.db.mpp.plan.statement.component.OrderBy;
 import org.apache.iotdb.db.query.aggregation.AggregationType;
 import org.apache.iotdb.db.utils.SchemaUtils;
@@ -472,6 +475,24 @@ public class LogicalPlanBuilder {
     return this;
   }
 
+  public LogicalPlanBuilder planHashAggregation(
+      List<Expression> groupByExpressions,
+      Set<Expression> aggregationExpressions,
+      OrderBy scanOrder) {
+    if (aggregationExpressions == null) {
+      return this;
+    }
+
+    this.root =
+        new HashAggregationNode(
+            context.getQueryId().genPlanNodeId(),
+            Collections.singletonList(this.getRoot()),
+            groupByExpressions,
+            constructAggregationDescriptorList(aggregationExpressions, AggregationStep.SINGLE),
+            scanOrder);
+    return this;
+  }
+
   public LogicalPlanBuilder planSlidingWindowAggregation(
       Set<Expression> aggregationExpressions,
       GroupByTimeParameter groupByTimeParameter,
@@ -637,6 +658,15 @@ public class LogicalPlanBuilder {
     return this;
   }
 
+  public LogicalPlanBuilder planSort(List<SortKeyDescriptor> sortKeys) {
+    if (sortKeys == null || sortKeys.isEmpty()) {
+      return this;
+    }
+
+    this.root = new SortNode(context.getQueryId().genPlanNodeId(), this.getRoot(), sortKeys);
+    return this;
+  }
+
   public LogicalPlanBuilder planLimit(int rowLimit) {
     if (rowLimit == 0) {
       return this;
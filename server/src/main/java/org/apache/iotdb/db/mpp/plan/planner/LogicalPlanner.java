@@ -171,6 +171,7 @@ public class LogicalPlanner {
           planBuilder
               .planFilterNull(analysis.getFilterNullParameter())
               .planFill(analysis.getFillDescriptor())
+              .planSort(analysis.getSortKeys())
               .planOffset(queryStatement.getRowOffset())
               .planLimit(queryStatement.getRowLimit());
 
@@ -211,42 +212,51 @@ public class LogicalPlanner {
                     queryStatement.getSelectComponent().getZoneId());
           }
 
-          boolean outputPartial =
-              queryStatement.isGroupByLevel()
-                  || (queryStatement.isGroupByTime()
-                      && analysis.getGroupByTimeParameter().hasOverlap());
-          AggregationStep curStep =
-              outputPartial ? AggregationStep.PARTIAL : AggregationStep.SINGLE;
-          planBuilder =
-              planBuilder.planAggregation(
-                  aggregationExpressions,
-                  analysis.getGroupByTimeParameter(),
-                  curStep,
-                  analysis.getTypeProvider(),
-                  queryStatement.getResultOrder());
-
-          if (curStep.isOutputPartial()) {
-            if (queryStatement.isGroupByTime() && analysis.getGroupByTimeParameter().hasOverlap()) {
-              curStep =
-                  queryStatement.isGroupByLevel()
-                      ? AggregationStep.INTERMEDIATE
-                      : AggregationStep.FINAL;
-              planBuilder =
-                  planBuilder.planSlidingWindowAggregation(
-                      aggregationExpressions,
-                      analysis.getGroupByTimeParameter(),
-                      curStep,
-                      queryStatement.getResultOrder());
-            }
-
-            if (queryStatement.isGroupByLevel()) {
-              curStep = AggregationStep.FINAL;
-              planBuilder =
-                  planBuilder.planGroupByLevel(
-                      analysis.getGroupByLevelExpressions(),
-                      curStep,
-                      analysis.getGroupByTimeParameter(),
-                      queryStatement.getResultOrder());
+          if (queryStatement.isGroupByValues()) {
+            planBuilder =
+                planBuilder.planHashAggregation(
+                    analysis.getGroupByValueExpressions(),
+                    aggregationExpressions,
+                    queryStatement.getResultOrder());
+          } else {
+            boolean outputPartial =
+                queryStatement.isGroupByLevel()
+                    || (queryStatement.isGroupByTime()
+                        && analysis.getGroupByTimeParameter().hasOverlap());
+            AggregationStep curStep =
+                outputPartial ? AggregationStep.PARTIAL : AggregationStep.SINGLE;
+            planBuilder =
+                planBuilder.planAggregation(
+                    aggregationExpressions,
+                    analysis.getGroupByTimeParameter(),
+                    curStep,
+                    analysis.getTypeProvider(),
+                    queryStatement.getResultOrder());
+
+            if (curStep.isOutputPartial()) {
+              if (queryStatement.isGroupByTime()
+                  && analysis.getGroupByTimeParameter().hasOverlap()) {
+                curStep =
+                    queryStatement.isGroupByLevel()
+                        ? AggregationStep.INTERMEDIATE
+                        : AggregationStep.FINAL;
+                planBuilder =
+                    planBuilder.planSlidingWindowAggregation(
+                        aggregationExpressions,
+                        analysis.getGroupByTimeParameter(),
+                        curStep,
+                        queryStatement.getResultOrder());
+              }
+
+              if (queryStatement.isGroupByLevel()) {
+                curStep = AggregationStep.FINAL;
+                planBuilder =
+                    planBuilder.planGroupByLevel(
+                        analysis.getGroupByLevelExpressions(),
+                        curStep,
+                        analysis.getGroupByTimeParameter(),
+                        queryStatement.getResultOrder());
+              }
             }
           }
 
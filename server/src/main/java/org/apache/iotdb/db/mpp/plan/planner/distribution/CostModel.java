@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.planner.distribution;
+
+import org.apache.iotdb.common.rpc.thrift.TConsensusGroupType;
+import org.apache.iotdb.common.rpc.thrift.TRegionReplicaSet;
+import org.apache.iotdb.commons.consensus.ConsensusGroupId;
+import org.apache.iotdb.commons.consensus.DataRegionId;
+import org.apache.iotdb.db.engine.StorageEngineV2;
+import org.apache.iotdb.db.engine.storagegroup.DataRegion;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.timeindex.TimeIndexLevel;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.ExchangeNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.source.SeriesSourceNode;
+import org.apache.iotdb.db.utils.TimeValuePairUtils;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Estimate the cost of reading the data of a query from the statistics of the DataRegions on this
+ * DataNode. The cost of a device in a DataRegion is the number of bytes of the device in the
+ * TsFiles containing it, weighted by how much of the time range of the device in each file is
+ * selected by the time filter. The estimation only uses the time index of TsFileResource, so no
+ * file is read while planning.
+ *
+ * <p>The statistics of a DataRegion which is not on this DataNode are unknown, and such sources are
+ * counted as {@link #UNKNOWN_SOURCE_COST} each.
+ */
+public class CostModel {
+
+  public static final long UNKNOWN_SOURCE_COST = 1;
+
+  /**
+   * @return the statistics of the device selected by the time filter, or null if the DataRegion is
+   *     not on this DataNode
+   */
+  public DeviceStatistics getDeviceStatistics(
+      TRegionReplicaSet regionReplicaSet, String device, Filter timeFilter) {
+    DataRegion dataRegion = getLocalDataRegion(regionReplicaSet);
+    if (dataRegion == null) {
+      return null;
+    }
+    TimeValuePairUtils.Intervals intervals = TimeValuePairUtils.extractTimeInterval(timeFilter);
+    if (intervals.getIntervalSize() == 0) {
+      return new DeviceStatistics(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+    DeviceStatistics statistics =
+        new DeviceStatistics(
+            intervals.getLowerBound(0), intervals.getUpperBound(intervals.getIntervalSize() - 1));
+    addFiles(statistics, dataRegion.getSequenceFileList(), device, timeFilter);
+    addFiles(statistics, dataRegion.getUnSequenceFileList(), device, timeFilter);
+    return statistics;
+  }
+
+  /** Estimate the cost of the source nodes in a fragment, not including the fragments below it. */
+  public long estimateFragmentCost(PlanNode root) {
+    if (root instanceof ExchangeNode) {
+      return 0;
+    }
+    long cost = 0;
+    if (root instanceof SeriesSourceNode) {
+      cost += estimateSourceCost((SeriesSourceNode) root);
+    }
+    for (PlanNode child : root.getChildren()) {
+      cost += estimateFragmentCost(child);
+    }
+    return cost;
+  }
+
+  public long estimateSourceCost(SeriesSourceNode node) {
+    if (node.getRegionReplicaSet() == null) {
+      return UNKNOWN_SOURCE_COST;
+    }
+    DeviceStatistics statistics =
+        getDeviceStatistics(
+            node.getRegionReplicaSet(),
+            node.getPartitionPath().getDevice(),
+            node.getPartitionTimeFilter());
+    return statistics == null
+        ? UNKNOWN_SOURCE_COST
+        : Math.max(UNKNOWN_SOURCE_COST, statistics.getTotalCost());
+  }
+
+  private DataRegion getLocalDataRegion(TRegionReplicaSet regionReplicaSet) {
+    if (regionReplicaSet == null
+        || regionReplicaSet.getRegionId() == null
+        || regionReplicaSet.getRegionId().getType() != TConsensusGroupType.DataRegion) {
+      return null;
+    }
+    ConsensusGroupId regionId =
+        ConsensusGroupId.Factory.createFromTConsensusGroupId(regionReplicaSet.getRegionId());
+    return StorageEngineV2.getInstance().getDataRegion((DataRegionId) regionId);
+  }
+
+  private void addFiles(
+      DeviceStatistics statistics,
+      List<TsFileResource> resources,
+      String device,
+      Filter timeFilter) {
+    for (TsFileResource resource : resources) {
+      if (!resource.mayContainsDevice(device)) {
+        continue;
+      }
+      long startTime = resource.getStartTime(device);
+      // the end time of an unclosed file is not known until it is closed
+      long endTime = resource.isClosed() ? resource.getEndTime(device) : Long.MAX_VALUE;
+      if (startTime > endTime
+          || (timeFilter != null && !timeFilter.satisfyStartEndTime(startTime, endTime))) {
+        continue;
+      }
+      statistics.addFile(startTime, endTime, estimateDeviceSize(resource));
+    }
+  }
+
+  /**
+   * Estimate the bytes of a device in a file as its even share among the devices of the file. The
+   * devices are only known without reading the file if the time index is at the device level,
+   * otherwise the whole file is charged to the device, which over-estimates the cost of the files
+   * containing many devices.
+   */
+  private long estimateDeviceSize(TsFileResource resource) {
+    long size = resource.getTsFileSize();
+    if (resource.getTimeIndexType() != TimeIndexLevel.DEVICE_TIME_INDEX.ordinal()) {
+      return size;
+    }
+    return size / Math.max(1, resource.getDevices().size());
+  }
+
+  /** The time ranges and sizes of the files containing one device in a DataRegion. */
+  public static class DeviceStatistics {
+
+    // the time range selected by the query
+    private final long lowerBound;
+    private final long upperBound;
+
+    private final List<long[]> files = new ArrayList<>();
+    private double totalCost = 0;
+
+    DeviceStatistics(long lowerBound, long upperBound) {
+      this.lowerBound = lowerBound;
+      this.upperBound = upperBound;
+    }
+
+    void addFile(long startTime, long endTime, long size) {
+      long[] file = new long[] {startTime, endTime, size};
+      files.add(file);
+      totalCost += size * selectedRatio(file, lowerBound, upperBound);
+    }
+
+    public long getTotalCost() {
+      return (long) totalCost;
+    }
+
+    public int getFileNum() {
+      return files.size();
+    }
+
+    /**
+     * Find the time points which split the selected data into the given number of parts of about
+     * the same cost, assuming the data of each file is distributed evenly over its time range.
+     *
+     * @return the ascending split points, the i-th part is [point(i - 1), point(i)), which may be
+     *     fewer than splitNum - 1 if the data can't be split so many times
+     */
+    public List<Long> getSplitPoints(int splitNum) {
+      List<Long> points = new ArrayList<>();
+      if (files.isEmpty() || splitNum <= 1) {
+        return points;
+      }
+      long minTime = Long.MAX_VALUE;
+      long maxTime = Long.MIN_VALUE;
+      for (long[] file : files) {
+        minTime = Math.min(minTime, file[0]);
+        // the unclosed files are bounded by the start times of other files
+        maxTime = Math.max(maxTime, file[1] == Long.MAX_VALUE ? file[0] : file[1]);
+      }
+      minTime = Math.max(minTime, lowerBound);
+      maxTime = Math.min(maxTime, upperBound);
+
+      for (int i = 1; i < splitNum; i++) {
+        double targetCost = totalCost * i / splitNum;
+        // find the smallest time t that the cost of [minTime, t) is not less than targetCost
+        long low = minTime;
+        long high = maxTime;
+        while (low < high) {
+          long mid = low + (high - low) / 2;
+          if (costBefore(minTime, mid) < targetCost) {
+            low = mid + 1;
+          } else {
+            high = mid;
+          }
+        }
+        if (low > minTime && (points.isEmpty() || low > points.get(points.size() - 1))) {
+          points.add(low);
+        }
+      }
+      return points;
+    }
+
+    /** The cost of the data in [from, to). */
+    private double costBefore(long from, long to) {
+      if (to == Long.MIN_VALUE) {
+        return 0;
+      }
+      double cost = 0;
+      for (long[] file : files) {
+        cost += file[2] * selectedRatio(file, from, to - 1);
+      }
+      return cost;
+    }
+
+    /** The ratio of the time range of the file which is in [from, to]. */
+    private static double selectedRatio(long[] file, long from, long to) {
+      long start = Math.max(file[0], from);
+      long end = Math.min(file[1], to);
+      if (start > end) {
+        return 0;
+      }
+      if (file[1] == Long.MAX_VALUE) {
+        // the time range of an unclosed file is unknown, take all of it once it is touched
+        return 1;
+      }
+      return ((double) end - start + 1) / ((double) file[1] - file[0] + 1);
+    }
+  }
+}
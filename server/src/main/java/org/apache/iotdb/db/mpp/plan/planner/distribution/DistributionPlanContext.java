@@ -20,20 +20,28 @@
 package org.apache.iotdb.db.mpp.plan.planner.distribution;
 
 import org.apache.iotdb.db.mpp.common.MPPQueryContext;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
+
+import java.util.Set;
 
 public class DistributionPlanContext {
   protected boolean isRoot;
   protected MPPQueryContext queryContext;
   protected boolean forceAddParent;
+  // ids of the source nodes split from one series scan by time in one DataRegion, each of them
+  // should be executed by its own driver
+  protected Set<PlanNodeId> parallelScanSplits;
 
-  protected DistributionPlanContext(MPPQueryContext queryContext) {
+  protected DistributionPlanContext(
+      MPPQueryContext queryContext, Set<PlanNodeId> parallelScanSplits) {
     this.isRoot = true;
     this.queryContext = queryContext;
     this.forceAddParent = false;
+    this.parallelScanSplits = parallelScanSplits;
   }
 
   protected DistributionPlanContext copy() {
-    return new DistributionPlanContext(queryContext);
+    return new DistributionPlanContext(queryContext, parallelScanSplits);
   }
 
   protected DistributionPlanContext setRoot(boolean isRoot) {
@@ -22,6 +22,7 @@ import org.apache.iotdb.db.mpp.common.MPPQueryContext;
 import org.apache.iotdb.db.mpp.common.PlanFragmentId;
 import org.apache.iotdb.db.mpp.plan.analyze.Analysis;
 import org.apache.iotdb.db.mpp.plan.analyze.QueryType;
+import org.apache.iotdb.db.mpp.plan.optimization.RuleBasedOptimizer;
 import org.apache.iotdb.db.mpp.plan.planner.IFragmentParallelPlaner;
 import org.apache.iotdb.db.mpp.plan.planner.plan.DistributedQueryPlan;
 import org.apache.iotdb.db.mpp.plan.planner.plan.FragmentInstance;
@@ -29,13 +30,16 @@ import org.apache.iotdb.db.mpp.plan.planner.plan.LogicalQueryPlan;
 import org.apache.iotdb.db.mpp.plan.planner.plan.PlanFragment;
 import org.apache.iotdb.db.mpp.plan.planner.plan.SubPlan;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeUtil;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.WritePlanNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.ExchangeNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.sink.FragmentSinkNode;
 import org.apache.iotdb.db.mpp.plan.statement.crud.QueryStatement;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class DistributionPlanner {
   private Analysis analysis;
@@ -44,6 +48,9 @@ public class DistributionPlanner {
 
   private int planFragmentIndex = 0;
 
+  // ids of the source nodes split by time in one DataRegion, see SourceRewriter
+  private final Set<PlanNodeId> parallelScanSplits = new HashSet<>();
+
   public DistributionPlanner(Analysis analysis, LogicalQueryPlan logicalPlan) {
     this.analysis = analysis;
     this.logicalPlan = logicalPlan;
@@ -52,12 +59,18 @@ public class DistributionPlanner {
 
   public PlanNode rewriteSource() {
     SourceRewriter rewriter = new SourceRewriter(this.analysis);
-    return rewriter.visit(logicalPlan.getRootNode(), new DistributionPlanContext(context));
+    return rewriter.visit(
+        logicalPlan.getRootNode(), new DistributionPlanContext(context, parallelScanSplits));
   }
 
   public PlanNode addExchangeNode(PlanNode root) {
     ExchangeNodeAdder adder = new ExchangeNodeAdder();
-    return adder.visit(root, new NodeGroupContext(context));
+    return adder.visit(root, new NodeGroupContext(context, parallelScanSplits));
+  }
+
+  public PlanNode optimizeDistributedPlan(PlanNode root) {
+    return RuleBasedOptimizer.createDistributionOptimizer(parallelScanSplits)
+        .optimize(root, context);
   }
 
   public SubPlan splitFragment(PlanNode root) {
@@ -68,7 +81,7 @@ public class DistributionPlanner {
   public DistributedQueryPlan planFragments() {
     PlanNode rootAfterRewrite = rewriteSource();
     System.out.println(PlanNodeUtil.nodeToString(rootAfterRewrite));
-    PlanNode rootWithExchange = addExchangeNode(rootAfterRewrite);
+    PlanNode rootWithExchange = optimizeDistributedPlan(addExchangeNode(rootAfterRewrite));
     System.out.println(PlanNodeUtil.nodeToString(rootWithExchange));
     if (analysis.getStatement() instanceof QueryStatement) {
       analysis
@@ -36,6 +36,7 @@ import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.DeviceMergeNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.DeviceViewNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.ExchangeNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.GroupByLevelNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.HashAggregationNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.LastQueryMergeNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.MultiChildNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.SlidingWindowAggregationNode;
@@ -201,6 +202,11 @@ public class ExchangeNodeAdder extends PlanVisitor<PlanNode, NodeGroupContext> {
     return processMultiChildNode(node, context);
   }
 
+  @Override
+  public PlanNode visitHashAggregation(HashAggregationNode node, NodeGroupContext context) {
+    return processMultiChildNode(node, context);
+  }
+
   @Override
   public PlanNode visitSchemaQueryOrderByHeat(
       SchemaQueryOrderByHeatNode node, NodeGroupContext context) {
@@ -229,21 +235,38 @@ public class ExchangeNodeAdder extends PlanVisitor<PlanNode, NodeGroupContext> {
     context.putNodeDistribution(
         newNode.getPlanNodeId(), new NodeDistribution(distributionType, dataRegion));
 
-    // If the distributionType of all the children are same, no ExchangeNode need to be added.
-    if (distributionType == NodeDistributionType.SAME_WITH_ALL_CHILDREN) {
+    // If the distributionType of all the children are same, no ExchangeNode need to be added unless
+    // some of them are parallel splits of one series scan.
+    boolean hasParallelScanSplit =
+        visitedChildren.stream()
+            .anyMatch(child -> context.isParallelScanSplit(child.getPlanNodeId()));
+    if (distributionType == NodeDistributionType.SAME_WITH_ALL_CHILDREN && !hasParallelScanSplit) {
       newNode.setChildren(visitedChildren);
       return newNode;
     }
 
     // Otherwise, we need to add ExchangeNode for the child whose DataRegion is different from the
-    // parent.
+    // parent. The parallel splits of one series scan are put into different fragments even if they
+    // are in the same DataRegion as the parent, except the first one, so that each of them is
+    // executed by its own driver.
+    boolean[] keepOneSplit = {false};
     visitedChildren.forEach(
         child -> {
+          TRegionReplicaSet childRegion = context.getNodeDistribution(child.getPlanNodeId()).region;
+          boolean needExchange;
           // If the child's region is NOT_ASSIGNED, it means the child do not belong to any
           // existing DataRegion. We make it belong to its parent and no ExchangeNode will be added.
-          if (context.getNodeDistribution(child.getPlanNodeId()).region
-                  != DataPartition.NOT_ASSIGNED
-              && !dataRegion.equals(context.getNodeDistribution(child.getPlanNodeId()).region)) {
+          if (childRegion == DataPartition.NOT_ASSIGNED) {
+            needExchange = false;
+          } else if (!dataRegion.equals(childRegion)) {
+            needExchange = true;
+          } else if (context.isParallelScanSplit(child.getPlanNodeId())) {
+            needExchange = keepOneSplit[0];
+            keepOneSplit[0] = true;
+          } else {
+            needExchange = false;
+          }
+          if (needExchange) {
             ExchangeNode exchangeNode =
                 new ExchangeNode(context.queryContext.getQueryId().genPlanNodeId());
             exchangeNode.setChild(child);
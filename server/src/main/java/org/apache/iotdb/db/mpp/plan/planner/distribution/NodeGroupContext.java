@@ -22,16 +22,24 @@ package org.apache.iotdb.db.mpp.plan.planner.distribution;
 import org.apache.iotdb.db.mpp.common.MPPQueryContext;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 public class NodeGroupContext {
   protected MPPQueryContext queryContext;
   protected Map<PlanNodeId, NodeDistribution> nodeDistributionMap;
+  protected Set<PlanNodeId> parallelScanSplits;
 
   public NodeGroupContext(MPPQueryContext queryContext) {
+    this(queryContext, Collections.emptySet());
+  }
+
+  public NodeGroupContext(MPPQueryContext queryContext, Set<PlanNodeId> parallelScanSplits) {
     this.queryContext = queryContext;
     this.nodeDistributionMap = new HashMap<>();
+    this.parallelScanSplits = parallelScanSplits;
   }
 
   public void putNodeDistribution(PlanNodeId nodeId, NodeDistribution distribution) {
@@ -41,4 +49,8 @@ public class NodeGroupContext {
   public NodeDistribution getNodeDistribution(PlanNodeId nodeId) {
     return this.nodeDistributionMap.get(nodeId);
   }
+
+  public boolean isParallelScanSplit(PlanNodeId nodeId) {
+    return this.parallelScanSplits.contains(nodeId);
+  }
 }
@@ -18,7 +18,11 @@
  */
 package org.apache.iotdb.db.mpp.plan.planner.distribution;
 
+import org.apache.iotdb.common.rpc.thrift.TConsensusGroupType;
+import org.apache.iotdb.common.rpc.thrift.TDataNodeLocation;
 import org.apache.iotdb.common.rpc.thrift.TRegionReplicaSet;
+import org.apache.iotdb.consensus.ConsensusFactory;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.mpp.common.MPPQueryContext;
 import org.apache.iotdb.db.mpp.common.PlanFragmentId;
 import org.apache.iotdb.db.mpp.plan.analyze.Analysis;
@@ -54,6 +58,10 @@ public class SimpleFragmentParallelPlanner implements IFragmentParallelPlaner {
   Map<PlanNodeId, PlanFragmentId> planNodeMap;
   List<FragmentInstance> fragmentInstanceList;
 
+  private final CostModel costModel = new CostModel();
+  // the estimated cost of the fragments assigned to each DataNode by this query
+  private final Map<Integer, Long> assignedCost = new HashMap<>();
+
   public SimpleFragmentParallelPlanner(
       SubPlan subPlan, Analysis analysis, MPPQueryContext context) {
     this.subPlan = subPlan;
@@ -99,12 +107,49 @@ public class SimpleFragmentParallelPlanner implements IFragmentParallelPlaner {
     // We need to store all the replica host in case of the scenario that the instance need to be
     // redirected
     // to another host when scheduling
-    fragmentInstance.setDataRegionAndHost(regionReplicaSet);
+    TDataNodeLocation hostDataNode = selectHostDataNode(fragment, regionReplicaSet);
+    if (hostDataNode == null) {
+      fragmentInstance.setDataRegionAndHost(regionReplicaSet);
+    } else {
+      fragmentInstance.setDataRegionAndHost(regionReplicaSet, hostDataNode);
+    }
     fragmentInstance.getFragment().setTypeProvider(analysis.getTypeProvider());
     instanceMap.putIfAbsent(fragment.getId(), fragmentInstance);
     fragmentInstanceList.add(fragmentInstance);
   }
 
+  /**
+   * Select the replica with the least estimated cost assigned by this query among the replicas of
+   * the region, so that the fragments reading the same replicated regions are spread over the
+   * DataNodes instead of all going to the first replica. It only applies to the DataRegions whose
+   * consensus protocol can read any replica.
+   *
+   * @return the selected DataNode, or null to use the default one
+   */
+  TDataNodeLocation selectHostDataNode(PlanFragment fragment, TRegionReplicaSet regionReplicaSet) {
+    if (regionReplicaSet == null
+        || regionReplicaSet.getRegionId() == null
+        || regionReplicaSet.getRegionId().getType() != TConsensusGroupType.DataRegion
+        || regionReplicaSet.getDataNodeLocations() == null
+        || regionReplicaSet.getDataNodeLocations().size() <= 1
+        || !ConsensusFactory.MultiLeaderConsensus.equals(
+            IoTDBDescriptor.getInstance().getConfig().getDataRegionConsensusProtocolClass())) {
+      return null;
+    }
+    long fragmentCost = costModel.estimateFragmentCost(fragment.getRoot());
+    TDataNodeLocation selected = null;
+    long selectedCost = Long.MAX_VALUE;
+    for (TDataNodeLocation location : regionReplicaSet.getDataNodeLocations()) {
+      long cost = assignedCost.getOrDefault(location.getDataNodeId(), 0L);
+      if (cost < selectedCost) {
+        selected = location;
+        selectedCost = cost;
+      }
+    }
+    assignedCost.merge(selected.getDataNodeId(), fragmentCost, Long::sum);
+    return selected;
+  }
+
   private void calculateNodeTopologyBetweenInstance() {
     for (FragmentInstance instance : fragmentInstanceList) {
       PlanNode rootNode = instance.getFragment().getRoot();
@@ -21,9 +21,12 @@ package org.apache.iotdb.db.mpp.plan.planner.distribution;
 
 import org.apache.iotdb.common.rpc.thrift.TRegionReplicaSet;
 import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.mpp.common.MPPQueryContext;
 import org.apache.iotdb.db.mpp.plan.analyze.Analysis;
 import org.apache.iotdb.db.mpp.plan.expression.Expression;
+import org.apache.iotdb.db.mpp.plan.expression.leaf.TimeSeriesOperand;
 import org.apache.iotdb.db.mpp.plan.planner.LogicalPlanBuilder;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.SimplePlanNodeRewriter;
@@ -36,6 +39,7 @@ import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.AggregationNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.DeviceMergeNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.DeviceViewNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.GroupByLevelNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.HashAggregationNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.LastQueryMergeNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.MultiChildNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.SlidingWindowAggregationNode;
@@ -52,6 +56,10 @@ import org.apache.iotdb.db.mpp.plan.planner.plan.node.source.SourceNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.AggregationDescriptor;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.AggregationStep;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.GroupByLevelDescriptor;
+import org.apache.iotdb.db.utils.TimeValuePairUtils;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -68,8 +76,12 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 public class SourceRewriter extends SimplePlanNodeRewriter<DistributionPlanContext> {
 
+  private static final IoTDBConfig CONFIG = IoTDBDescriptor.getInstance().getConfig();
+
   private Analysis analysis;
 
+  private final CostModel costModel = new CostModel();
+
   public SourceRewriter(Analysis analysis) {
     this.analysis = analysis;
   }
@@ -253,6 +265,10 @@ public class SourceRewriter extends SimplePlanNodeRewriter<DistributionPlanConte
   private PlanNode processRawSeriesScan(
       SeriesSourceNode node, DistributionPlanContext context, MultiChildNode parent) {
     List<SeriesSourceNode> sourceNodes = splitSeriesSourceNodeByPartition(node, context);
+    if (sourceNodes.size() == 1) {
+      // the ranges of the splits are not overlapped, the parent will just concat them
+      sourceNodes = splitSeriesSourceNodeByTime(sourceNodes.get(0), context);
+    }
     if (sourceNodes.size() == 1) {
       return sourceNodes.get(0);
     }
@@ -280,6 +296,132 @@ public class SourceRewriter extends SimplePlanNodeRewriter<DistributionPlanConte
     return ret;
   }
 
+  /**
+   * Split a series source node which only reads one DataRegion into several nodes over disjoint
+   * time ranges, so that the files of the DataRegion can be read by several drivers in parallel.
+   * The number of splits is limited by max_scan_parallelism_in_region, the planner runs on the
+   * coordinator so the load of the DataNode executing the splits is unknown here.
+   *
+   * <p>If the DataRegion is on this DataNode, the number of splits and their time ranges are chosen
+   * by the estimated cost of {@link CostModel}. Otherwise only the scan bounded by its time filter
+   * is split into ranges of the same length.
+   *
+   * @return the splits, or a list only containing the node itself if it can't be split
+   */
+  private List<SeriesSourceNode> splitSeriesSourceNodeByTime(
+      SeriesSourceNode node, DistributionPlanContext context) {
+    int parallelism = CONFIG.getMaxScanParallelismInRegion();
+    if (parallelism <= 1 || !canSplitByTime(node)) {
+      return Collections.singletonList(node);
+    }
+    Filter timeFilter = node.getPartitionTimeFilter();
+    CostModel.DeviceStatistics statistics =
+        costModel.getDeviceStatistics(
+            node.getRegionReplicaSet(), node.getPartitionPath().getDevice(), timeFilter);
+    if (statistics != null) {
+      return splitSeriesSourceNodeByCost(node, statistics, parallelism, context);
+    }
+    TimeValuePairUtils.Intervals intervals = TimeValuePairUtils.extractTimeInterval(timeFilter);
+    if (intervals.getIntervalSize() == 0) {
+      return Collections.singletonList(node);
+    }
+    long lowerBound = intervals.getLowerBound(0);
+    long upperBound = intervals.getUpperBound(intervals.getIntervalSize() - 1);
+    long range = upperBound - lowerBound;
+    // the range is unbounded, overflowed or too narrow to split
+    if (lowerBound == Long.MIN_VALUE || upperBound == Long.MAX_VALUE || range < parallelism) {
+      return Collections.singletonList(node);
+    }
+
+    List<SeriesSourceNode> ret = new ArrayList<>();
+    long step = range / parallelism + 1;
+    for (int i = 0; i < parallelism; i++) {
+      long startTime = lowerBound + i * step;
+      if (startTime > upperBound) {
+        break;
+      }
+      long endTime = Math.min(upperBound, startTime + step - 1);
+      SeriesSourceNode split = (SeriesSourceNode) node.clone();
+      split.setPlanNodeId(context.queryContext.getQueryId().genPlanNodeId());
+      setTimeFilter(
+          split,
+          FilterFactory.and(
+              timeFilter, FilterFactory.and(TimeFilter.gtEq(startTime), TimeFilter.ltEq(endTime))));
+      context.parallelScanSplits.add(split.getPlanNodeId());
+      ret.add(split);
+    }
+    return ret;
+  }
+
+  private List<SeriesSourceNode> splitSeriesSourceNodeByCost(
+      SeriesSourceNode node,
+      CostModel.DeviceStatistics statistics,
+      int parallelism,
+      DistributionPlanContext context) {
+    long minSplitSize = Math.max(1, CONFIG.getMinScanSplitSizeInByte());
+    int splitNum = (int) Math.min(parallelism, statistics.getTotalCost() / minSplitSize);
+    List<Long> splitPoints = statistics.getSplitPoints(splitNum);
+    if (splitPoints.isEmpty()) {
+      return Collections.singletonList(node);
+    }
+
+    Filter timeFilter = node.getPartitionTimeFilter();
+    List<SeriesSourceNode> ret = new ArrayList<>();
+    for (Filter rangeFilter : getSplitRangeFilters(splitPoints)) {
+      SeriesSourceNode split = (SeriesSourceNode) node.clone();
+      split.setPlanNodeId(context.queryContext.getQueryId().genPlanNodeId());
+      setTimeFilter(
+          split, timeFilter == null ? rangeFilter : FilterFactory.and(timeFilter, rangeFilter));
+      context.parallelScanSplits.add(split.getPlanNodeId());
+      ret.add(split);
+    }
+    return ret;
+  }
+
+  /**
+   * @return the time ranges split by the ascending split points. The first and the last ranges are
+   *     not bounded, so that the data out of the statistics, e.g. inserted after planning, is still
+   *     read by one of them
+   */
+  static List<Filter> getSplitRangeFilters(List<Long> splitPoints) {
+    List<Filter> ret = new ArrayList<>();
+    for (int i = 0; i <= splitPoints.size(); i++) {
+      if (i == 0) {
+        ret.add(TimeFilter.lt(splitPoints.get(0)));
+      } else if (i == splitPoints.size()) {
+        ret.add(TimeFilter.gtEq(splitPoints.get(i - 1)));
+      } else {
+        ret.add(
+            FilterFactory.and(
+                TimeFilter.gtEq(splitPoints.get(i - 1)), TimeFilter.lt(splitPoints.get(i))));
+      }
+    }
+    return ret;
+  }
+
+  private boolean canSplitByTime(SeriesSourceNode node) {
+    // the limit and offset can't be applied to each split
+    if (node instanceof SeriesScanNode) {
+      return ((SeriesScanNode) node).getLimit() <= 0 && ((SeriesScanNode) node).getOffset() <= 0;
+    } else if (node instanceof AlignedSeriesScanNode) {
+      return ((AlignedSeriesScanNode) node).getLimit() <= 0
+          && ((AlignedSeriesScanNode) node).getOffset() <= 0;
+    }
+    return node instanceof SeriesAggregationSourceNode;
+  }
+
+  private void setTimeFilter(SeriesSourceNode node, Filter timeFilter) {
+    if (node instanceof SeriesScanNode) {
+      ((SeriesScanNode) node).setTimeFilter(timeFilter);
+    } else if (node instanceof AlignedSeriesScanNode) {
+      ((AlignedSeriesScanNode) node).setTimeFilter(timeFilter);
+    } else if (node instanceof SeriesAggregationScanNode) {
+      ((SeriesAggregationScanNode) node).setTimeFilter(timeFilter);
+    } else if (node instanceof AlignedSeriesAggregationScanNode) {
+      ((AlignedSeriesAggregationScanNode) node).setTimeFilter(timeFilter);
+    }
+  }
+
   @Override
   public PlanNode visitSeriesAggregationScan(
       SeriesAggregationScanNode node, DistributionPlanContext context) {
@@ -296,9 +438,20 @@ public class SourceRewriter extends SimplePlanNodeRewriter<DistributionPlanConte
       SeriesAggregationSourceNode node, DistributionPlanContext context) {
     List<TRegionReplicaSet> dataDistribution =
         analysis.getPartitionInfo(node.getPartitionPath(), node.getPartitionTimeFilter());
+    List<SeriesSourceNode> splits = new ArrayList<>();
     if (dataDistribution.size() == 1) {
       node.setRegionReplicaSet(dataDistribution.get(0));
-      return node;
+      splits = splitSeriesSourceNodeByTime(node, context);
+      if (splits.size() == 1) {
+        return node;
+      }
+    } else {
+      for (TRegionReplicaSet dataRegion : dataDistribution) {
+        SeriesSourceNode split = (SeriesSourceNode) node.clone();
+        split.setPlanNodeId(context.queryContext.getQueryId().genPlanNodeId());
+        split.setRegionReplicaSet(dataRegion);
+        splits.add(split);
+      }
     }
     List<AggregationDescriptor> leafAggDescriptorList = new ArrayList<>();
     node.getAggregationDescriptorList()
@@ -331,11 +484,8 @@ public class SourceRewriter extends SimplePlanNodeRewriter<DistributionPlanConte
             rootAggDescriptorList,
             node.getGroupByTimeParameter(),
             node.getScanOrder());
-    for (TRegionReplicaSet dataRegion : dataDistribution) {
-      SeriesAggregationScanNode split = (SeriesAggregationScanNode) node.clone();
-      split.setAggregationDescriptorList(leafAggDescriptorList);
-      split.setPlanNodeId(context.queryContext.getQueryId().genPlanNodeId());
-      split.setRegionReplicaSet(dataRegion);
+    for (SeriesSourceNode split : splits) {
+      ((SeriesAggregationSourceNode) split).setAggregationDescriptorList(leafAggDescriptorList);
       aggregationNode.addChild(split);
     }
     return aggregationNode;
@@ -472,6 +622,99 @@ public class SourceRewriter extends SimplePlanNodeRewriter<DistributionPlanConte
     return newRoot;
   }
 
+  /**
+   * The HashAggregationNode is split into a PARTIAL one in each DataRegion and a FINAL one on the
+   * top, if its child is a TimeJoinNode of the series of one device. The rows of one device are
+   * never split between DataRegions, because a time partition of the device belongs to only one
+   * DataRegion. Otherwise, the HashAggregationNode is kept above the distributed child.
+   */
+  @Override
+  public PlanNode visitHashAggregation(HashAggregationNode node, DistributionPlanContext context) {
+    Map<TRegionReplicaSet, List<SeriesSourceNode>> sourceGroup =
+        groupSourcesOfOneDevice(node, context);
+    if (sourceGroup == null || sourceGroup.size() == 1) {
+      DistributionPlanContext childContext = context.copy().setRoot(false);
+      HashAggregationNode newRoot = (HashAggregationNode) node.clone();
+      node.getChildren().forEach(child -> newRoot.addChild(visit(child, childContext)));
+      return newRoot;
+    }
+
+    List<AggregationDescriptor> partialDescriptorList = new ArrayList<>();
+    List<AggregationDescriptor> finalDescriptorList = new ArrayList<>();
+    for (AggregationDescriptor descriptor : node.getAggregationDescriptorList()) {
+      checkArgument(
+          descriptor.getStep() == AggregationStep.SINGLE,
+          "HashAggregationNode should be SINGLE before distribution planning");
+      partialDescriptorList.add(
+          new AggregationDescriptor(
+              descriptor.getAggregationFuncName(),
+              AggregationStep.PARTIAL,
+              descriptor.getInputExpressions()));
+      finalDescriptorList.add(
+          new AggregationDescriptor(
+              descriptor.getAggregationFuncName(),
+              context.isRoot ? AggregationStep.FINAL : AggregationStep.INTERMEDIATE,
+              descriptor.getInputExpressions()));
+      if (descriptor.getInputExpressions().get(0) instanceof TimeSeriesOperand) {
+        LogicalPlanBuilder.updateTypeProviderByPartialAggregation(
+            descriptor, analysis.getTypeProvider());
+      }
+    }
+
+    HashAggregationNode newRoot =
+        new HashAggregationNode(
+            node.getPlanNodeId(),
+            node.getGroupByExpressions(),
+            finalDescriptorList,
+            node.getScanOrder());
+    TimeJoinNode timeJoinNode = (TimeJoinNode) node.getChildren().get(0);
+    sourceGroup.forEach(
+        (dataRegion, sourceNodes) -> {
+          TimeJoinNode parentOfGroup = (TimeJoinNode) timeJoinNode.clone();
+          parentOfGroup.setPlanNodeId(context.queryContext.getQueryId().genPlanNodeId());
+          sourceNodes.forEach(parentOfGroup::addChild);
+          HashAggregationNode partialNode =
+              new HashAggregationNode(
+                  context.queryContext.getQueryId().genPlanNodeId(),
+                  node.getGroupByExpressions(),
+                  partialDescriptorList,
+                  node.getScanOrder());
+          partialNode.addChild(parentOfGroup);
+          newRoot.addChild(partialNode);
+        });
+    return newRoot;
+  }
+
+  /**
+   * Split the series sources under the TimeJoinNode child by DataRegion.
+   *
+   * @return null if the child is not a TimeJoinNode of the raw series of one device
+   */
+  private Map<TRegionReplicaSet, List<SeriesSourceNode>> groupSourcesOfOneDevice(
+      HashAggregationNode node, DistributionPlanContext context) {
+    if (node.getChildren().size() != 1
+        || !(node.getChildren().get(0) instanceof TimeJoinNode)
+        || !node.getAggregationDescriptorList().get(0).getStep().isInputRaw()) {
+      return null;
+    }
+    Set<String> devices = new HashSet<>();
+    Map<TRegionReplicaSet, List<SeriesSourceNode>> sourceGroup = new HashMap<>();
+    for (PlanNode child : node.getChildren().get(0).getChildren()) {
+      if (!(child instanceof SeriesScanNode || child instanceof AlignedSeriesScanNode)) {
+        return null;
+      }
+      SeriesSourceNode handle = (SeriesSourceNode) child;
+      devices.add(handle.getPartitionPath().getDevice());
+      for (SeriesSourceNode split : splitSeriesSourceNodeByPartition(handle, context)) {
+        sourceGroup.computeIfAbsent(split.getRegionReplicaSet(), k -> new ArrayList<>()).add(split);
+      }
+    }
+    if (devices.size() != 1) {
+      return null;
+    }
+    return sourceGroup;
+  }
+
   private PlanNode planAggregationWithTimeJoin(TimeJoinNode root, DistributionPlanContext context) {
 
     List<SeriesAggregationSourceNode> sources = splitAggregationSourceByPartition(root, context);
@@ -58,6 +58,9 @@ public class FragmentInstance implements IConsensusRequest {
 
   private Filter timeFilter;
 
+  // The name of the resource group of the query, null for the default group
+  private String resourceGroup;
+
   // We can add some more params for a specific FragmentInstance
   // So that we can make different FragmentInstance owns different data range.
 
@@ -87,6 +90,13 @@ public class FragmentInstance implements IConsensusRequest {
     }
   }
 
+  /** Set DataRegion and use the given replica of it as the target host. */
+  public void setDataRegionAndHost(
+      TRegionReplicaSet regionReplicaSet, TDataNodeLocation hostDataNode) {
+    this.regionReplicaSet = regionReplicaSet;
+    this.hostDataNode = hostDataNode;
+  }
+
   public TRegionReplicaSet getRegionReplicaSet() {
     return regionReplicaSet;
   }
@@ -128,6 +138,14 @@ public class FragmentInstance implements IConsensusRequest {
     return type;
   }
 
+  public String getResourceGroup() {
+    return resourceGroup;
+  }
+
+  public void setResourceGroup(String resourceGroup) {
+    this.resourceGroup = resourceGroup;
+  }
+
   public String toString() {
     StringBuilder ret = new StringBuilder();
     ret.append(String.format("FragmentInstance-%s:", getId()));
@@ -157,6 +175,7 @@ public class FragmentInstance implements IConsensusRequest {
     boolean hasHostDataNode = ReadWriteIOUtils.readBool(buffer);
     fragmentInstance.hostDataNode =
         hasHostDataNode ? ThriftCommonsSerDeUtils.deserializeTDataNodeLocation(buffer) : null;
+    fragmentInstance.resourceGroup = ReadWriteIOUtils.readString(buffer);
     return fragmentInstance;
   }
 
@@ -174,6 +193,7 @@ public class FragmentInstance implements IConsensusRequest {
       if (hostDataNode != null) {
         ThriftCommonsSerDeUtils.serializeTDataNodeLocation(hostDataNode, outputStream);
       }
+      ReadWriteIOUtils.write(resourceGroup, outputStream);
       return ByteBuffer.wrap(publicBAOS.getBuf(), 0, publicBAOS.size());
     } catch (IOException e) {
       logger.error("Unexpected error occurs when serializing this FragmentInstance.", e);
@@ -191,12 +211,14 @@ public class FragmentInstance implements IConsensusRequest {
         && Objects.equals(fragment, instance.fragment)
         && Objects.equals(regionReplicaSet, instance.regionReplicaSet)
         && Objects.equals(hostDataNode, instance.hostDataNode)
-        && Objects.equals(timeFilter, instance.timeFilter);
+        && Objects.equals(timeFilter, instance.timeFilter)
+        && Objects.equals(resourceGroup, instance.resourceGroup);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(id, type, fragment, regionReplicaSet, hostDataNode, timeFilter);
+    return Objects.hash(
+        id, type, fragment, regionReplicaSet, hostDataNode, timeFilter, resourceGroup);
   }
 
   public TDataNodeLocation getHostDataNode() {
@@ -48,6 +48,7 @@ import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.FillNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.FilterNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.FilterNullNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.GroupByLevelNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.HashAggregationNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.LastQueryMergeNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.LimitNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.OffsetNode;
@@ -126,7 +127,8 @@ public enum PlanNodeType {
   ALIGNED_LAST_QUERY_SCAN((short) 47),
   LAST_QUERY_MERGE((short) 48),
   NODE_PATHS_COUNT((short) 49),
-  INTERNAL_CREATE_TIMESERIES((short) 50);
+  INTERNAL_CREATE_TIMESERIES((short) 50),
+  HASH_AGGREGATE((short) 51);
 
   private final short nodeType;
 
@@ -258,6 +260,8 @@ public enum PlanNodeType {
         return NodePathsCountNode.deserialize(buffer);
       case 50:
         return InternalCreateTimeSeriesNode.deserialize(buffer);
+      case 51:
+        return HashAggregationNode.deserialize(buffer);
       default:
         throw new IllegalArgumentException("Invalid node type: " + nodeType);
     }
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.planner.plan.node.process;
+
+import org.apache.iotdb.db.mpp.plan.expression.Expression;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeType;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanVisitor;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.AggregationDescriptor;
+import org.apache.iotdb.db.mpp.plan.statement.component.OrderBy;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * This node groups the rows of its children by the values of the group key expressions, e.g., tags
+ * or TEXT fields, and aggregates each group. All the children should output the same columns, which
+ * may be raw data or the partial results of other HashAggregationNodes. This node will output one
+ * row per group, in which the group keys are followed by the aggregated results.
+ */
+public class HashAggregationNode extends MultiChildNode {
+
+  // The expressions to group by, each of them is one column of the children
+  private final List<Expression> groupByExpressions;
+
+  // The list of aggregate functions, each AggregateDescriptor will be output as one or two column
+  // of result TsBlock
+  private List<AggregationDescriptor> aggregationDescriptorList;
+
+  private final OrderBy scanOrder;
+
+  public HashAggregationNode(
+      PlanNodeId id,
+      List<Expression> groupByExpressions,
+      List<AggregationDescriptor> aggregationDescriptorList,
+      OrderBy scanOrder) {
+    super(id, new ArrayList<>());
+    this.groupByExpressions = groupByExpressions;
+    this.aggregationDescriptorList =
+        AggregationNode.getDeduplicatedDescriptors(aggregationDescriptorList);
+    this.scanOrder = scanOrder;
+  }
+
+  public HashAggregationNode(
+      PlanNodeId id,
+      List<PlanNode> children,
+      List<Expression> groupByExpressions,
+      List<AggregationDescriptor> aggregationDescriptorList,
+      OrderBy scanOrder) {
+    this(id, groupByExpressions, aggregationDescriptorList, scanOrder);
+    this.children = children;
+  }
+
+  public List<Expression> getGroupByExpressions() {
+    return groupByExpressions;
+  }
+
+  public List<AggregationDescriptor> getAggregationDescriptorList() {
+    return aggregationDescriptorList;
+  }
+
+  public void setAggregationDescriptorList(List<AggregationDescriptor> aggregationDescriptorList) {
+    this.aggregationDescriptorList = aggregationDescriptorList;
+  }
+
+  public OrderBy getScanOrder() {
+    return scanOrder;
+  }
+
+  @Override
+  public List<PlanNode> getChildren() {
+    return children;
+  }
+
+  @Override
+  public void addChild(PlanNode child) {
+    this.children.add(child);
+  }
+
+  @Override
+  public int allowedChildCount() {
+    return CHILD_COUNT_NO_LIMIT;
+  }
+
+  @Override
+  public PlanNode clone() {
+    return new HashAggregationNode(
+        getPlanNodeId(), groupByExpressions, aggregationDescriptorList, scanOrder);
+  }
+
+  @Override
+  public List<String> getOutputColumnNames() {
+    List<String> outputColumnNames =
+        groupByExpressions.stream()
+            .map(Expression::getExpressionString)
+            .collect(Collectors.toList());
+    aggregationDescriptorList.stream()
+        .map(AggregationDescriptor::getOutputColumnNames)
+        .forEach(outputColumnNames::addAll);
+    return outputColumnNames;
+  }
+
+  @Override
+  public <R, C> R accept(PlanVisitor<R, C> visitor, C context) {
+    return visitor.visitHashAggregation(this, context);
+  }
+
+  @Override
+  protected void serializeAttributes(ByteBuffer byteBuffer) {
+    PlanNodeType.HASH_AGGREGATE.serialize(byteBuffer);
+    ReadWriteIOUtils.write(groupByExpressions.size(), byteBuffer);
+    for (Expression expression : groupByExpressions) {
+      Expression.serialize(expression, byteBuffer);
+    }
+    ReadWriteIOUtils.write(aggregationDescriptorList.size(), byteBuffer);
+    for (AggregationDescriptor aggregationDescriptor : aggregationDescriptorList) {
+      aggregationDescriptor.serialize(byteBuffer);
+    }
+    ReadWriteIOUtils.write(scanOrder.ordinal(), byteBuffer);
+  }
+
+  @Override
+  protected void serializeAttributes(DataOutputStream stream) throws IOException {
+    PlanNodeType.HASH_AGGREGATE.serialize(stream);
+    ReadWriteIOUtils.write(groupByExpressions.size(), stream);
+    for (Expression expression : groupByExpressions) {
+      Expression.serialize(expression, stream);
+    }
+    ReadWriteIOUtils.write(aggregationDescriptorList.size(), stream);
+    for (AggregationDescriptor aggregationDescriptor : aggregationDescriptorList) {
+      aggregationDescriptor.serialize(stream);
+    }
+    ReadWriteIOUtils.write(scanOrder.ordinal(), stream);
+  }
+
+  public static HashAggregationNode deserialize(ByteBuffer byteBuffer) {
+    int expressionSize = ReadWriteIOUtils.readInt(byteBuffer);
+    List<Expression> groupByExpressions = new ArrayList<>(expressionSize);
+    while (expressionSize > 0) {
+      groupByExpressions.add(Expression.deserialize(byteBuffer));
+      expressionSize--;
+    }
+    int descriptorSize = ReadWriteIOUtils.readInt(byteBuffer);
+    List<AggregationDescriptor> aggregationDescriptorList = new ArrayList<>(descriptorSize);
+    while (descriptorSize > 0) {
+      aggregationDescriptorList.add(AggregationDescriptor.deserialize(byteBuffer));
+      descriptorSize--;
+    }
+    OrderBy scanOrder = OrderBy.values()[ReadWriteIOUtils.readInt(byteBuffer)];
+    PlanNodeId planNodeId = PlanNodeId.deserialize(byteBuffer);
+    return new HashAggregationNode(
+        planNodeId, groupByExpressions, aggregationDescriptorList, scanOrder);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    if (!super.equals(o)) {
+      return false;
+    }
+    HashAggregationNode that = (HashAggregationNode) o;
+    return Objects.equals(groupByExpressions, that.groupByExpressions)
+        && Objects.equals(aggregationDescriptorList, that.aggregationDescriptorList)
+        && scanOrder == that.scanOrder;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(super.hashCode(), groupByExpressions, aggregationDescriptorList, scanOrder);
+  }
+
+  public String toString() {
+    return String.format("HashAggregationNode-%s", getPlanNodeId());
+  }
+}
@@ -18,10 +18,12 @@
  */
 package org.apache.iotdb.db.mpp.plan.planner.plan.node.process;
 
+import org.apache.iotdb.db.mpp.common.header.HeaderConstant;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeType;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanVisitor;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.SortKeyDescriptor;
 import org.apache.iotdb.db.mpp.plan.statement.component.OrderBy;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 
@@ -30,31 +32,57 @@ import com.google.common.collect.ImmutableList;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
 /**
- * In general, the parameter in sortNode should be pushed down to the upstream operators. In our
- * optimized logical query plan, the sortNode should not appear.
+ * SortNode sorts the rows of its child by the keys one by one. A key is the time column or an
+ * output column of the child, e.g., for {@code ORDER BY s1 DESC}. The orders of time and device are
+ * pushed down to the upstream operators in general, and SortNode only appears for the orders which
+ * can't be pushed down.
  */
 public class SortNode extends ProcessNode {
 
   private PlanNode child;
 
-  private final OrderBy sortOrder;
+  private final List<SortKeyDescriptor> sortKeys;
 
-  public SortNode(PlanNodeId id, OrderBy sortOrder) {
+  public SortNode(PlanNodeId id, List<SortKeyDescriptor> sortKeys) {
     super(id);
-    this.sortOrder = sortOrder;
+    this.sortKeys = sortKeys;
   }
 
-  public SortNode(PlanNodeId id, PlanNode child, OrderBy sortOrder) {
-    this(id, sortOrder);
+  public SortNode(PlanNodeId id, PlanNode child, List<SortKeyDescriptor> sortKeys) {
+    this(id, sortKeys);
     this.child = child;
   }
 
-  public OrderBy getSortOrder() {
-    return sortOrder;
+  public SortNode(PlanNodeId id, PlanNode child, OrderBy sortOrder) {
+    this(id, child, toSortKeys(sortOrder));
+  }
+
+  /** The rows of one device are still in the order of time. */
+  private static List<SortKeyDescriptor> toSortKeys(OrderBy sortOrder) {
+    switch (sortOrder) {
+      case TIMESTAMP_ASC:
+      case TIMESTAMP_DESC:
+        return Collections.singletonList(
+            SortKeyDescriptor.time(sortOrder == OrderBy.TIMESTAMP_ASC));
+      case DEVICE_ASC:
+      case DEVICE_DESC:
+        return Arrays.asList(
+            new SortKeyDescriptor(HeaderConstant.COLUMN_DEVICE, sortOrder == OrderBy.DEVICE_ASC),
+            SortKeyDescriptor.time(true));
+      default:
+        throw new IllegalArgumentException("Unsupported sort order: " + sortOrder);
+    }
+  }
+
+  public List<SortKeyDescriptor> getSortKeys() {
+    return sortKeys;
   }
 
   @Override
@@ -74,7 +102,7 @@ public class SortNode extends ProcessNode {
 
   @Override
   public PlanNode clone() {
-    return new SortNode(getPlanNodeId(), sortOrder);
+    return new SortNode(getPlanNodeId(), sortKeys);
   }
 
   @Override
@@ -90,19 +118,29 @@ public class SortNode extends ProcessNode {
   @Override
   protected void serializeAttributes(ByteBuffer byteBuffer) {
     PlanNodeType.SORT.serialize(byteBuffer);
-    ReadWriteIOUtils.write(sortOrder.ordinal(), byteBuffer);
+    ReadWriteIOUtils.write(sortKeys.size(), byteBuffer);
+    for (SortKeyDescriptor sortKey : sortKeys) {
+      sortKey.serialize(byteBuffer);
+    }
   }
 
   @Override
   protected void serializeAttributes(DataOutputStream stream) throws IOException {
     PlanNodeType.SORT.serialize(stream);
-    ReadWriteIOUtils.write(sortOrder.ordinal(), stream);
+    ReadWriteIOUtils.write(sortKeys.size(), stream);
+    for (SortKeyDescriptor sortKey : sortKeys) {
+      sortKey.serialize(stream);
+    }
   }
 
   public static SortNode deserialize(ByteBuffer byteBuffer) {
-    OrderBy orderBy = OrderBy.values()[ReadWriteIOUtils.readInt(byteBuffer)];
+    int sortKeyNum = ReadWriteIOUtils.readInt(byteBuffer);
+    List<SortKeyDescriptor> sortKeys = new ArrayList<>(sortKeyNum);
+    for (int i = 0; i < sortKeyNum; i++) {
+      sortKeys.add(SortKeyDescriptor.deserialize(byteBuffer));
+    }
     PlanNodeId planNodeId = PlanNodeId.deserialize(byteBuffer);
-    return new SortNode(planNodeId, orderBy);
+    return new SortNode(planNodeId, sortKeys);
   }
 
   @Override
@@ -117,11 +155,11 @@ public class SortNode extends ProcessNode {
       return false;
     }
     SortNode sortNode = (SortNode) o;
-    return child.equals(sortNode.child) && sortOrder == sortNode.sortOrder;
+    return child.equals(sortNode.child) && sortKeys.equals(sortNode.sortKeys);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(super.hashCode(), child, sortOrder);
+    return Objects.hash(super.hashCode(), child, sortKeys);
   }
 }
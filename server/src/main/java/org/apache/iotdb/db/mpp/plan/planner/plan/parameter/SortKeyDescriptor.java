@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.planner.plan.parameter;
+
+import org.apache.iotdb.db.mpp.common.header.HeaderConstant;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/** A key of SortNode, which is the time column or an output column of the child by its name. */
+public class SortKeyDescriptor {
+
+  private final String columnName;
+
+  private final boolean ascending;
+
+  public SortKeyDescriptor(String columnName, boolean ascending) {
+    this.columnName = columnName;
+    this.ascending = ascending;
+  }
+
+  public static SortKeyDescriptor time(boolean ascending) {
+    return new SortKeyDescriptor(HeaderConstant.COLUMN_TIME, ascending);
+  }
+
+  public String getColumnName() {
+    return columnName;
+  }
+
+  public boolean isAscending() {
+    return ascending;
+  }
+
+  public boolean isTime() {
+    return HeaderConstant.COLUMN_TIME.equals(columnName);
+  }
+
+  public void serialize(ByteBuffer byteBuffer) {
+    ReadWriteIOUtils.write(columnName, byteBuffer);
+    ReadWriteIOUtils.write(ascending, byteBuffer);
+  }
+
+  public void serialize(DataOutputStream stream) throws IOException {
+    ReadWriteIOUtils.write(columnName, stream);
+    ReadWriteIOUtils.write(ascending, stream);
+  }
+
+  public static SortKeyDescriptor deserialize(ByteBuffer byteBuffer) {
+    String columnName = ReadWriteIOUtils.readString(byteBuffer);
+    boolean ascending = ReadWriteIOUtils.readBool(byteBuffer);
+    return new SortKeyDescriptor(columnName, ascending);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SortKeyDescriptor that = (SortKeyDescriptor) o;
+    return ascending == that.ascending && columnName.equals(that.columnName);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(columnName, ascending);
+  }
+
+  @Override
+  public String toString() {
+    return columnName + (ascending ? " ASC" : " DESC");
+  }
+}
@@ -21,6 +21,7 @@ package org.apache.iotdb.db.mpp.plan.scheduler;
 
 import org.apache.iotdb.common.rpc.thrift.TEndPoint;
 import org.apache.iotdb.commons.client.IClientManager;
+import org.apache.iotdb.commons.client.async.AsyncDataNodeInternalServiceClient;
 import org.apache.iotdb.commons.client.sync.SyncDataNodeInternalServiceClient;
 import org.apache.iotdb.commons.consensus.ConsensusGroupId;
 import org.apache.iotdb.commons.consensus.DataRegionId;
@@ -31,14 +32,24 @@ import org.apache.iotdb.db.consensus.DataRegionConsensusImpl;
 import org.apache.iotdb.db.consensus.SchemaRegionConsensusImpl;
 import org.apache.iotdb.db.exception.mpp.FragmentInstanceDispatchException;
 import org.apache.iotdb.db.exception.sql.SemanticException;
+import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
+import org.apache.iotdb.db.mpp.common.MPPQueryContext;
 import org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceInfo;
 import org.apache.iotdb.db.mpp.plan.analyze.QueryType;
 import org.apache.iotdb.db.mpp.plan.analyze.SchemaValidator;
 import org.apache.iotdb.db.mpp.plan.planner.plan.FragmentInstance;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.sink.FragmentSinkNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.write.InsertNode;
+import org.apache.iotdb.db.service.metrics.MetricsService;
+import org.apache.iotdb.db.service.metrics.enums.Metric;
+import org.apache.iotdb.db.service.metrics.enums.Tag;
+import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
+import org.apache.iotdb.metrics.utils.MetricLevel;
 import org.apache.iotdb.mpp.rpc.thrift.TFragmentInstance;
 import org.apache.iotdb.mpp.rpc.thrift.TPlanNode;
+import org.apache.iotdb.mpp.rpc.thrift.TSendBatchFragmentInstanceReq;
+import org.apache.iotdb.mpp.rpc.thrift.TSendBatchFragmentInstanceResp;
 import org.apache.iotdb.mpp.rpc.thrift.TSendFragmentInstanceReq;
 import org.apache.iotdb.mpp.rpc.thrift.TSendFragmentInstanceResp;
 import org.apache.iotdb.mpp.rpc.thrift.TSendPlanNodeReq;
@@ -48,20 +59,26 @@ import org.apache.iotdb.rpc.TSStatusCode;
 import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.concurrent.SetThreadName;
 import org.apache.thrift.TException;
+import org.apache.thrift.async.AsyncMethodCallback;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class FragmentInstanceDispatcherImpl implements IFragInstanceDispatcher {
 
   private static final Logger logger =
       LoggerFactory.getLogger(FragmentInstanceDispatcherImpl.class);
+  private final MPPQueryContext queryContext;
   private final ExecutorService executor;
   private final ExecutorService writeOperationExecutor;
   private final QueryType type;
@@ -69,16 +86,23 @@ public class FragmentInstanceDispatcherImpl implements IFragInstanceDispatcher {
   private final int localhostInternalPort;
   private final IClientManager<TEndPoint, SyncDataNodeInternalServiceClient>
       internalServiceClientManager;
+  private final IClientManager<TEndPoint, AsyncDataNodeInternalServiceClient>
+      asyncInternalServiceClientManager;
 
   public FragmentInstanceDispatcherImpl(
+      MPPQueryContext queryContext,
       QueryType type,
       ExecutorService executor,
       ExecutorService writeOperationExecutor,
-      IClientManager<TEndPoint, SyncDataNodeInternalServiceClient> internalServiceClientManager) {
+      IClientManager<TEndPoint, SyncDataNodeInternalServiceClient> internalServiceClientManager,
+      IClientManager<TEndPoint, AsyncDataNodeInternalServiceClient>
+          asyncInternalServiceClientManager) {
+    this.queryContext = queryContext;
     this.type = type;
     this.executor = executor;
     this.writeOperationExecutor = writeOperationExecutor;
     this.internalServiceClientManager = internalServiceClientManager;
+    this.asyncInternalServiceClientManager = asyncInternalServiceClientManager;
     this.localhostIpAddr = IoTDBDescriptor.getInstance().getConfig().getInternalIp();
     this.localhostInternalPort = IoTDBDescriptor.getInstance().getConfig().getInternalPort();
   }
@@ -92,22 +116,145 @@ public class FragmentInstanceDispatcherImpl implements IFragInstanceDispatcher {
     }
   }
 
-  // TODO: (xingtanzjr) currently we use a sequential dispatch policy for READ, which is
-  //  unsafe for current FragmentInstance scheduler framework. We need to implement the
-  //  topological dispatch according to dependency relations between FragmentInstances
+  /**
+   * Dispatch the FragmentInstances in the topological order of their data dependencies. An instance
+   * is dispatched after the one consuming its output, whose SourceHandle must be registered before
+   * any data block arrives. The instances of the same level are dispatched concurrently, and those
+   * hosted by the same remote node are sent in one request.
+   */
   private Future<FragInstanceDispatchResult> dispatchRead(List<FragmentInstance> instances) {
     return executor.submit(
         () -> {
-          for (FragmentInstance instance : instances) {
-            boolean accepted = dispatchOneInstance(instance);
-            if (!accepted) {
-              return new FragInstanceDispatchResult(false);
+          long startTime = System.currentTimeMillis();
+          try {
+            for (List<FragmentInstance> level : sortByDependency(instances)) {
+              if (!dispatchReadConcurrently(level)) {
+                return new FragInstanceDispatchResult(false);
+              }
             }
+            return new FragInstanceDispatchResult(true);
+          } finally {
+            recordReadDispatchCost(instances.size(), System.currentTimeMillis() - startTime);
           }
-          return new FragInstanceDispatchResult(true);
         });
   }
 
+  /**
+   * Group the instances by their levels in the dependency tree. The instances of level 0 send their
+   * output to no other instance in the query, and the ones of level i send their output to those of
+   * level i - 1.
+   */
+  static List<List<FragmentInstance>> sortByDependency(List<FragmentInstance> instances) {
+    Map<FragmentInstanceId, FragmentInstance> idToInstance = new HashMap<>();
+    for (FragmentInstance instance : instances) {
+      idToInstance.put(instance.getId(), instance);
+    }
+    Map<FragmentInstanceId, Integer> idToLevel = new HashMap<>();
+    List<List<FragmentInstance>> levels = new ArrayList<>();
+    for (FragmentInstance instance : instances) {
+      int level = getLevel(instance, idToInstance, idToLevel);
+      while (levels.size() <= level) {
+        levels.add(new ArrayList<>());
+      }
+      levels.get(level).add(instance);
+    }
+    return levels;
+  }
+
+  private static int getLevel(
+      FragmentInstance instance,
+      Map<FragmentInstanceId, FragmentInstance> idToInstance,
+      Map<FragmentInstanceId, Integer> idToLevel) {
+    Integer level = idToLevel.get(instance.getId());
+    if (level != null) {
+      return level;
+    }
+    FragmentInstance downstream = null;
+    PlanNode root = instance.getFragment().getRoot();
+    if (root instanceof FragmentSinkNode) {
+      downstream = idToInstance.get(((FragmentSinkNode) root).getDownStreamInstanceId());
+    }
+    level = downstream == null ? 0 : getLevel(downstream, idToInstance, idToLevel) + 1;
+    idToLevel.put(instance.getId(), level);
+    return level;
+  }
+
+  private boolean dispatchReadConcurrently(List<FragmentInstance> instances)
+      throws FragmentInstanceDispatchException, InterruptedException {
+    List<FragmentInstance> localInstances = new ArrayList<>();
+    Map<TEndPoint, List<FragmentInstance>> endPointToInstances = new HashMap<>();
+    for (FragmentInstance instance : instances) {
+      TEndPoint endPoint = instance.getHostDataNode().getInternalEndPoint();
+      if (isDispatchedToLocal(endPoint)) {
+        localInstances.add(instance);
+      } else {
+        endPointToInstances.computeIfAbsent(endPoint, k -> new ArrayList<>()).add(instance);
+      }
+    }
+
+    // the remote requests are sent asynchronously before dispatching the local instances
+    List<SettableFuture<Boolean>> remoteResults = new ArrayList<>(endPointToInstances.size());
+    for (Map.Entry<TEndPoint, List<FragmentInstance>> entry : endPointToInstances.entrySet()) {
+      remoteResults.add(dispatchRemoteInBatch(entry.getValue(), entry.getKey()));
+    }
+    boolean accepted = true;
+    for (FragmentInstance instance : localInstances) {
+      if (!dispatchOneInstance(instance)) {
+        accepted = false;
+        break;
+      }
+    }
+    for (SettableFuture<Boolean> remoteResult : remoteResults) {
+      try {
+        accepted &= remoteResult.get();
+      } catch (ExecutionException e) {
+        throw new FragmentInstanceDispatchException(e.getCause());
+      }
+    }
+    return accepted;
+  }
+
+  private SettableFuture<Boolean> dispatchRemoteInBatch(
+      List<FragmentInstance> instances, TEndPoint endPoint) {
+    SettableFuture<Boolean> result = SettableFuture.create();
+    TSendBatchFragmentInstanceReq req =
+        new TSendBatchFragmentInstanceReq(new ArrayList<>(instances.size()));
+    for (FragmentInstance instance : instances) {
+      req.addToRequests(
+          new TSendFragmentInstanceReq(
+              new TFragmentInstance(instance.serializeToByteBuffer()),
+              instance.getRegionReplicaSet().getRegionId()));
+    }
+    try {
+      asyncInternalServiceClientManager
+          .borrowClient(endPoint)
+          .sendBatchFragmentInstance(req, new BatchDispatchHandler(endPoint, result));
+    } catch (IOException | TException e) {
+      logger.error("can't connect to node {}", endPoint, e);
+      result.setException(e);
+    }
+    return result;
+  }
+
+  private void recordReadDispatchCost(int instanceNum, long cost) {
+    logger.info(
+        "dispatch {} FragmentInstances of query {} cost {}ms",
+        instanceNum,
+        queryContext.getQueryId(),
+        cost);
+    if (MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric()) {
+      MetricsService.getInstance()
+          .getMetricManager()
+          .timer(
+              cost,
+              TimeUnit.MILLISECONDS,
+              Metric.COST_TASK.toString(),
+              MetricLevel.IMPORTANT,
+              Tag.NAME.toString(),
+              "dispatch_read");
+    }
+  }
+
   // TODO: (xingtanzjr) Return the detailed write states for each FragmentInstance
   private Future<FragInstanceDispatchResult> dispatchWrite(List<FragmentInstance> instances) {
     List<Future<Boolean>> futures = new LinkedList<>();
@@ -232,4 +379,37 @@ public class FragmentInstanceDispatcherImpl implements IFragInstanceDispatcher {
 
   @Override
   public void abort() {}
+
+  private static class BatchDispatchHandler
+      implements AsyncMethodCallback<TSendBatchFragmentInstanceResp> {
+
+    private final TEndPoint endPoint;
+    private final SettableFuture<Boolean> result;
+
+    private BatchDispatchHandler(TEndPoint endPoint, SettableFuture<Boolean> result) {
+      this.endPoint = endPoint;
+      this.result = result;
+    }
+
+    @Override
+    public void onComplete(TSendBatchFragmentInstanceResp response) {
+      for (TSendFragmentInstanceResp resp : response.getResponses()) {
+        if (!resp.isAccepted()) {
+          logger.error(
+              "dispatch FragmentInstance to node {} failed because {}",
+              endPoint,
+              resp.getMessage());
+          result.set(false);
+          return;
+        }
+      }
+      result.set(true);
+    }
+
+    @Override
+    public void onError(Exception e) {
+      logger.error("dispatch FragmentInstances to node {} failed", endPoint, e);
+      result.setException(e);
+    }
+  }
 }
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.statement.component;
+
+import org.apache.iotdb.db.mpp.plan.expression.Expression;
+import org.apache.iotdb.db.mpp.plan.expression.leaf.TimestampOperand;
+import org.apache.iotdb.db.mpp.plan.statement.StatementNode;
+
+import java.util.Objects;
+
+/**
+ * This class maintains one key of {@code ORDER BY} clause, which is the time or a result column.
+ */
+public class SortItem extends StatementNode {
+
+  private Expression sortKey;
+
+  private final boolean ascending;
+
+  public SortItem(Expression sortKey, boolean ascending) {
+    this.sortKey = sortKey;
+    this.ascending = ascending;
+  }
+
+  public Expression getSortKey() {
+    return sortKey;
+  }
+
+  public void setSortKey(Expression sortKey) {
+    this.sortKey = sortKey;
+  }
+
+  public boolean isAscending() {
+    return ascending;
+  }
+
+  public boolean isTime() {
+    return sortKey instanceof TimestampOperand;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SortItem sortItem = (SortItem) o;
+    return ascending == sortItem.ascending && Objects.equals(sortKey, sortItem.sortKey);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(sortKey, ascending);
+  }
+
+  @Override
+  public String toString() {
+    return sortKey + (ascending ? " ASC" : " DESC");
+  }
+}
@@ -36,8 +36,10 @@ import org.apache.iotdb.db.mpp.plan.statement.component.OrderBy;
 import org.apache.iotdb.db.mpp.plan.statement.component.ResultColumn;
 import org.apache.iotdb.db.mpp.plan.statement.component.ResultSetFormat;
 import org.apache.iotdb.db.mpp.plan.statement.component.SelectComponent;
+import org.apache.iotdb.db.mpp.plan.statement.component.SortItem;
 import org.apache.iotdb.db.mpp.plan.statement.component.WhereCondition;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -82,6 +84,9 @@ public class QueryStatement extends Statement {
 
   protected OrderBy resultOrder = OrderBy.TIMESTAMP_ASC;
 
+  // `ORDER BY` clause of the keys other than time, which can't be pushed down to the scan
+  protected List<SortItem> sortItems = new ArrayList<>();
+
   protected ResultSetFormat resultSetFormat = ResultSetFormat.ALIGN_BY_TIME;
 
   // `GROUP BY TIME` clause
@@ -90,6 +95,9 @@ public class QueryStatement extends Statement {
   // `GROUP BY LEVEL` clause
   protected GroupByLevelComponent groupByLevelComponent;
 
+  // `GROUP BY VALUES` clause, the rows are grouped by the values of these expressions
+  protected List<Expression> groupByValueExpressions = new ArrayList<>();
+
   public QueryStatement() {
     this.statementType = StatementType.QUERY;
   }
@@ -179,6 +187,18 @@ public class QueryStatement extends Statement {
     this.resultOrder = resultOrder;
   }
 
+  public List<SortItem> getSortItems() {
+    return sortItems;
+  }
+
+  public void setSortItems(List<SortItem> sortItems) {
+    this.sortItems = sortItems;
+  }
+
+  public boolean hasSortItems() {
+    return !sortItems.isEmpty();
+  }
+
   public ResultSetFormat getResultSetFormat() {
     return resultSetFormat;
   }
@@ -203,6 +223,14 @@ public class QueryStatement extends Statement {
     this.groupByLevelComponent = groupByLevelComponent;
   }
 
+  public List<Expression> getGroupByValueExpressions() {
+    return groupByValueExpressions;
+  }
+
+  public void setGroupByValueExpressions(List<Expression> groupByValueExpressions) {
+    this.groupByValueExpressions = groupByValueExpressions;
+  }
+
   public boolean isLastQuery() {
     return selectComponent.isHasLast();
   }
@@ -215,6 +243,10 @@ public class QueryStatement extends Statement {
     return groupByLevelComponent != null;
   }
 
+  public boolean isGroupByValues() {
+    return !groupByValueExpressions.isEmpty();
+  }
+
   public boolean isGroupByTime() {
     return groupByTimeComponent != null;
   }
@@ -235,17 +267,30 @@ public class QueryStatement extends Statement {
       if (isGroupByLevel() && isAlignByDevice()) {
         throw new SemanticException("group by level does not support align by device now.");
       }
+      if (isGroupByValues() && isAlignByDevice()) {
+        throw new SemanticException("group by values does not support align by device now.");
+      }
+      for (Expression groupByValueExpression : groupByValueExpressions) {
+        if (!ExpressionAnalyzer.searchAggregationExpressions(groupByValueExpression).isEmpty()) {
+          throw new SemanticException(
+              "Aggregation function is not allowed in GROUP BY VALUES: " + groupByValueExpression);
+        }
+      }
       for (ResultColumn resultColumn : selectComponent.getResultColumns()) {
         if (resultColumn.getColumnType() != ResultColumn.ColumnType.AGGREGATION) {
           throw new SemanticException("Raw data and aggregation hybrid query is not supported.");
         }
       }
     } else {
-      if (isGroupByTime() || isGroupByLevel()) {
+      if (isGroupByTime() || isGroupByLevel() || isGroupByValues()) {
         throw new SemanticException("Raw data query doesn't support GROUP BY.");
       }
     }
 
+    if (hasSortItems() && disableAlign()) {
+      throw new SemanticException("ORDER BY columns doesn't support disable align clause.");
+    }
+
     if (isAlignByDevice()) {
       // the paths can only be measurement or one-level wildcard in ALIGN BY DEVICE
       for (ResultColumn resultColumn : selectComponent.getResultColumns()) {
@@ -263,6 +308,9 @@ public class QueryStatement extends Statement {
       if (disableAlign()) {
         throw new SemanticException("Disable align cannot be applied to LAST query.");
       }
+      if (hasSortItems()) {
+        throw new SemanticException("Last query doesn't support ORDER BY columns.");
+      }
       for (ResultColumn resultColumn : selectComponent.getResultColumns()) {
         Expression expression = resultColumn.getExpression();
         if (!(expression instanceof TimeSeriesOperand)) {
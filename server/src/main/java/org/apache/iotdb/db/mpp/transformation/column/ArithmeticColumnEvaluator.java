@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.transformation.column;
+
+import org.apache.iotdb.db.mpp.plan.expression.ExpressionType;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.DoubleColumn;
+
+/**
+ * +, -, *, / and % on numeric operands. Like {@code ArithmeticBinaryTransformer}, both operands are
+ * cast to double and the result is always DOUBLE.
+ */
+public class ArithmeticColumnEvaluator extends ColumnEvaluator {
+
+  private final ExpressionType operator;
+  private final ColumnEvaluator left;
+  private final ColumnEvaluator right;
+
+  public ArithmeticColumnEvaluator(
+      ExpressionType operator, ColumnEvaluator left, ColumnEvaluator right) {
+    super(TSDataType.DOUBLE);
+    checkOperandType(left.getDataType());
+    checkOperandType(right.getDataType());
+    this.operator = operator;
+    this.left = left;
+    this.right = right;
+  }
+
+  ExpressionType getOperator() {
+    return operator;
+  }
+
+  ColumnEvaluator getLeft() {
+    return left;
+  }
+
+  ColumnEvaluator getRight() {
+    return right;
+  }
+
+  private static void checkOperandType(TSDataType type) {
+    if (type == TSDataType.BOOLEAN || type == TSDataType.TEXT) {
+      throw new UnSupportedDataTypeException(type.name());
+    }
+  }
+
+  @Override
+  public Column evaluate(TsBlock input, int[] positions, int positionCount) {
+    Column leftColumn = left.evaluate(input, positions, positionCount);
+    Column rightColumn = right.evaluate(input, positions, positionCount);
+    boolean[] leftIsNull = getNullFlags(leftColumn, positionCount);
+    boolean[] rightIsNull = getNullFlags(rightColumn, positionCount);
+    double[] l = toDoubleArray(leftColumn, left.getDataType(), leftIsNull, positionCount);
+    double[] r = toDoubleArray(rightColumn, right.getDataType(), rightIsNull, positionCount);
+
+    // the operator is dispatched once per block so that each loop stays branch-free
+    double[] values = new double[positionCount];
+    switch (operator) {
+      case ADDITION:
+        for (int i = 0; i < positionCount; ++i) {
+          values[i] = l[i] + r[i];
+        }
+        break;
+      case SUBTRACTION:
+        for (int i = 0; i < positionCount; ++i) {
+          values[i] = l[i] - r[i];
+        }
+        break;
+      case MULTIPLICATION:
+        for (int i = 0; i < positionCount; ++i) {
+          values[i] = l[i] * r[i];
+        }
+        break;
+      case DIVISION:
+        for (int i = 0; i < positionCount; ++i) {
+          values[i] = l[i] / r[i];
+        }
+        break;
+      case MODULO:
+        for (int i = 0; i < positionCount; ++i) {
+          values[i] = l[i] % r[i];
+        }
+        break;
+      default:
+        throw new UnsupportedOperationException("Unsupported arithmetic operator: " + operator);
+    }
+    return new DoubleColumn(
+        positionCount, toOptional(unionNullFlags(leftIsNull, rightIsNull, positionCount)), values);
+  }
+}
@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.transformation.column;
+
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.BinaryColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.BooleanColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.DoubleColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.FloatColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.IntColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.LongColumn;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import java.util.Optional;
+
+/**
+ * Evaluates an expression one {@link TsBlock} at a time. Unlike the point-wise transformers in
+ * {@code transformation.dag}, an evaluator works on whole {@link Column}s and only looks at the
+ * rows listed in a selection vector, so that a conjunction can skip the rows already rejected by
+ * its left operand.
+ *
+ * <p>A selection vector is an ascending array of row indexes of the input block, of which only the
+ * first {@code positionCount} entries are valid.
+ */
+public abstract class ColumnEvaluator {
+
+  protected final TSDataType dataType;
+
+  protected ColumnEvaluator(TSDataType dataType) {
+    this.dataType = dataType;
+  }
+
+  public TSDataType getDataType() {
+    return dataType;
+  }
+
+  /**
+   * Evaluates the expression on the selected rows of {@code input}.
+   *
+   * @return a column with {@code positionCount} positions, the i-th of which holds the value for
+   *     row {@code positions[i]}
+   */
+  public abstract Column evaluate(TsBlock input, int[] positions, int positionCount);
+
+  /**
+   * Narrows {@code positions} to the rows on which this boolean expression evaluates to true. Rows
+   * evaluating to null are dropped. The relative order of the remaining rows is kept.
+   *
+   * @return the number of rows left in {@code positions}
+   */
+  public int select(TsBlock input, int[] positions, int positionCount) {
+    Column column = evaluate(input, positions, positionCount);
+    int selected = 0;
+    for (int i = 0; i < positionCount; ++i) {
+      if (!column.isNull(i) && column.getBoolean(i)) {
+        positions[selected++] = positions[i];
+      }
+    }
+    return selected;
+  }
+
+  public static int[] allPositions(int positionCount) {
+    int[] positions = new int[positionCount];
+    for (int i = 0; i < positionCount; ++i) {
+      positions[i] = i;
+    }
+    return positions;
+  }
+
+  /**
+   * Copies the rows {@code positions[0..positionCount)} of {@code column} into a new column of
+   * {@code positionCount} positions.
+   */
+  public static Column copyPositions(
+      Column column, TSDataType dataType, int[] positions, int positionCount) {
+    boolean[] isNull = null;
+    if (column.mayHaveNull()) {
+      for (int i = 0; i < positionCount; ++i) {
+        if (column.isNull(positions[i])) {
+          if (isNull == null) {
+            isNull = new boolean[positionCount];
+          }
+          isNull[i] = true;
+        }
+      }
+    }
+
+    switch (dataType) {
+      case INT32:
+        int[] ints = new int[positionCount];
+        for (int i = 0; i < positionCount; ++i) {
+          if (isNull == null || !isNull[i]) {
+            ints[i] = column.getInt(positions[i]);
+          }
+        }
+        return new IntColumn(positionCount, toOptional(isNull), ints);
+      case INT64:
+        long[] longs = new long[positionCount];
+        for (int i = 0; i < positionCount; ++i) {
+          if (isNull == null || !isNull[i]) {
+            longs[i] = column.getLong(positions[i]);
+          }
+        }
+        return new LongColumn(positionCount, toOptional(isNull), longs);
+      case FLOAT:
+        float[] floats = new float[positionCount];
+        for (int i = 0; i < positionCount; ++i) {
+          if (isNull == null || !isNull[i]) {
+            floats[i] = column.getFloat(positions[i]);
+          }
+        }
+        return new FloatColumn(positionCount, toOptional(isNull), floats);
+      case DOUBLE:
+        double[] doubles = new double[positionCount];
+        for (int i = 0; i < positionCount; ++i) {
+          if (isNull == null || !isNull[i]) {
+            doubles[i] = column.getDouble(positions[i]);
+          }
+        }
+        return new DoubleColumn(positionCount, toOptional(isNull), doubles);
+      case BOOLEAN:
+        boolean[] booleans = new boolean[positionCount];
+        for (int i = 0; i < positionCount; ++i) {
+          if (isNull == null || !isNull[i]) {
+            booleans[i] = column.getBoolean(positions[i]);
+          }
+        }
+        return new BooleanColumn(positionCount, toOptional(isNull), booleans);
+      case TEXT:
+        Binary[] binaries = new Binary[positionCount];
+        for (int i = 0; i < positionCount; ++i) {
+          if (isNull == null || !isNull[i]) {
+            binaries[i] = column.getBinary(positions[i]);
+          }
+        }
+        return new BinaryColumn(positionCount, toOptional(isNull), binaries);
+      default:
+        throw new UnSupportedDataTypeException("Unsupported data type: " + dataType);
+    }
+  }
+
+  /** @return the null flags of the first {@code positionCount} positions, or null if none is set */
+  protected static boolean[] getNullFlags(Column column, int positionCount) {
+    if (!column.mayHaveNull()) {
+      return null;
+    }
+    boolean[] isNull = null;
+    for (int i = 0; i < positionCount; ++i) {
+      if (column.isNull(i)) {
+        if (isNull == null) {
+          isNull = new boolean[positionCount];
+        }
+        isNull[i] = true;
+      }
+    }
+    return isNull;
+  }
+
+  /** @return the union of two sets of null flags, either of which may be null */
+  protected static boolean[] unionNullFlags(boolean[] left, boolean[] right, int positionCount) {
+    if (left == null) {
+      return right;
+    }
+    if (right == null) {
+      return left;
+    }
+    boolean[] isNull = new boolean[positionCount];
+    for (int i = 0; i < positionCount; ++i) {
+      isNull[i] = left[i] || right[i];
+    }
+    return isNull;
+  }
+
+  protected static Optional<boolean[]> toOptional(boolean[] isNull) {
+    return Optional.ofNullable(isNull);
+  }
+
+  /**
+   * Casts the non-null values of a numeric or boolean column to double, in the same way as {@code
+   * BinaryTransformer#castCurrentValueToDoubleOperand} does. Null positions are left as 0.
+   */
+  protected static double[] toDoubleArray(
+      Column column, TSDataType type, boolean[] isNull, int positionCount) {
+    double[] values = new double[positionCount];
+    switch (type) {
+      case INT32:
+        for (int i = 0; i < positionCount; ++i) {
+          if (isNull == null || !isNull[i]) {
+            values[i] = column.getInt(i);
+          }
+        }
+        break;
+      case INT64:
+        for (int i = 0; i < positionCount; ++i) {
+          if (isNull == null || !isNull[i]) {
+            values[i] = column.getLong(i);
+          }
+        }
+        break;
+      case FLOAT:
+        for (int i = 0; i < positionCount; ++i) {
+          if (isNull == null || !isNull[i]) {
+            values[i] = column.getFloat(i);
+          }
+        }
+        break;
+      case DOUBLE:
+        for (int i = 0; i < positionCount; ++i) {
+          if (isNull == null || !isNull[i]) {
+            values[i] = column.getDouble(i);
+          }
+        }
+        break;
+      case BOOLEAN:
+        for (int i = 0; i < positionCount; ++i) {
+          if (isNull == null || !isNull[i]) {
+            values[i] = column.getBoolean(i) ? 1.0d : 0.0d;
+          }
+        }
+        break;
+      default:
+        throw new UnSupportedDataTypeException("Unsupported data type: " + type);
+    }
+    return values;
+  }
+}
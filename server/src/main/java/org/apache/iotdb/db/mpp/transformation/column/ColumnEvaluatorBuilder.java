@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.transformation.column;
+
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.mpp.plan.expression.Expression;
+import org.apache.iotdb.db.mpp.plan.expression.ExpressionType;
+import org.apache.iotdb.db.mpp.plan.expression.binary.BinaryExpression;
+import org.apache.iotdb.db.mpp.plan.expression.leaf.ConstantOperand;
+import org.apache.iotdb.db.mpp.plan.expression.unary.UnaryExpression;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.InputLocation;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds {@link ColumnEvaluator}s for expressions over the output of a single child operator.
+ * Functions (UDFs included), IN, LIKE and REGEXP are not supported and are left to the point-wise
+ * evaluation DAG.
+ */
+public class ColumnEvaluatorBuilder {
+
+  private final Map<String, List<InputLocation>> inputLocations;
+  private final List<TSDataType> inputDataTypes;
+
+  public ColumnEvaluatorBuilder(
+      Map<String, List<InputLocation>> inputLocations, List<TSDataType> inputDataTypes) {
+    this.inputLocations = inputLocations;
+    this.inputDataTypes = inputDataTypes;
+  }
+
+  /** @return the evaluators of all the expressions, or null if any of them is not supported */
+  public ColumnEvaluator[] build(Expression[] expressions) throws QueryProcessException {
+    ColumnEvaluator[] evaluators = new ColumnEvaluator[expressions.length];
+    for (int i = 0; i < expressions.length; ++i) {
+      evaluators[i] = build(expressions[i]);
+      if (evaluators[i] == null) {
+        return null;
+      }
+    }
+    return evaluators;
+  }
+
+  /**
+   * @return the evaluator of the expression, compiled if possible, or null if it is not supported
+   */
+  public ColumnEvaluator build(Expression expression) throws QueryProcessException {
+    ColumnEvaluator evaluator = buildInterpreted(expression);
+    return evaluator == null ? null : ColumnEvaluatorCompiler.compile(evaluator);
+  }
+
+  private ColumnEvaluator buildInterpreted(Expression expression) throws QueryProcessException {
+    // the child may have computed the expression already
+    List<InputLocation> locations = inputLocations.get(expression.getExpressionString());
+    if (locations != null) {
+      InputLocation location = locations.get(0);
+      if (location.getTsBlockIndex() != 0) {
+        return null;
+      }
+      return new InputColumnEvaluator(
+          location.getValueColumnIndex(), inputDataTypes.get(location.getValueColumnIndex()));
+    }
+
+    switch (expression.getExpressionType()) {
+      case CONSTANT:
+        return new ConstantColumnEvaluator((ConstantOperand) expression);
+      case TIMESTAMP:
+        return new InputColumnEvaluator(InputColumnEvaluator.TIME_COLUMN_INDEX, TSDataType.INT64);
+      case NEGATION:
+      case LOGIC_NOT:
+        return buildUnary((UnaryExpression) expression);
+      case ADDITION:
+      case SUBTRACTION:
+      case MULTIPLICATION:
+      case DIVISION:
+      case MODULO:
+      case EQUAL_TO:
+      case NON_EQUAL:
+      case GREATER_THAN:
+      case GREATER_EQUAL:
+      case LESS_THAN:
+      case LESS_EQUAL:
+      case LOGIC_AND:
+      case LOGIC_OR:
+        return buildBinary((BinaryExpression) expression);
+      default:
+        // TIMESERIES missing from the input, FUNCTION, IN, LIKE and REGEXP
+        return null;
+    }
+  }
+
+  private ColumnEvaluator buildUnary(UnaryExpression expression) throws QueryProcessException {
+    ColumnEvaluator operand = buildInterpreted(expression.getExpression());
+    if (operand == null) {
+      return null;
+    }
+    return expression.getExpressionType() == ExpressionType.NEGATION
+        ? new NegationColumnEvaluator(operand)
+        : new LogicNotColumnEvaluator(operand);
+  }
+
+  private ColumnEvaluator buildBinary(BinaryExpression expression) throws QueryProcessException {
+    ColumnEvaluator left = buildInterpreted(expression.getLeftExpression());
+    if (left == null) {
+      return null;
+    }
+    ColumnEvaluator right = buildInterpreted(expression.getRightExpression());
+    if (right == null) {
+      return null;
+    }
+
+    switch (expression.getExpressionType()) {
+      case ADDITION:
+      case SUBTRACTION:
+      case MULTIPLICATION:
+      case DIVISION:
+      case MODULO:
+        return new ArithmeticColumnEvaluator(expression.getExpressionType(), left, right);
+      case LOGIC_AND:
+        return new LogicAndColumnEvaluator(left, right);
+      case LOGIC_OR:
+        return new LogicOrColumnEvaluator(left, right);
+      default:
+        return new CompareColumnEvaluator(expression.getExpressionType(), left, right);
+    }
+  }
+}
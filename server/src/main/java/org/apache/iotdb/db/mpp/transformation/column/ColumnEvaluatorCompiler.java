@@ -0,0 +1,740 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.transformation.column;
+
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.TimeColumn;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compiles a tree of {@link ColumnEvaluator}s into a {@link CompiledExpression} with ASM. The
+ * generated class walks the selected rows once and evaluates the whole tree for each of them with
+ * typed local variables, so that no virtual call is made between the nodes and every column access
+ * has its own call site.
+ *
+ * <p>The generated classes are cached by the shape of the tree, i.e. its operators and the data
+ * types of its leaves. The input columns and the constants of a tree are passed to the constructor
+ * of the class, so expressions differing only in them share one class. If the compilation of a
+ * shape fails, the trees of that shape are interpreted.
+ */
+public class ColumnEvaluatorCompiler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ColumnEvaluatorCompiler.class);
+
+  private static final int MAX_CACHED_SHAPES = 1024;
+
+  private static final String COMPILED_EXPRESSION = Type.getInternalName(CompiledExpression.class);
+  private static final String TS_BLOCK = Type.getInternalName(TsBlock.class);
+  private static final String COLUMN = Type.getInternalName(Column.class);
+  private static final String TIME_COLUMN = Type.getInternalName(TimeColumn.class);
+  private static final String BINARY = Type.getInternalName(Binary.class);
+
+  private static final String CONSTRUCTOR_DESCRIPTOR = "([Ljava/lang/Object;[I)V";
+  private static final String EVALUATE_DESCRIPTOR = "(L" + TS_BLOCK + ";[IILjava/lang/Object;[Z)V";
+  private static final String SELECT_DESCRIPTOR = "(L" + TS_BLOCK + ";[II)I";
+
+  private static final AtomicLong CLASS_ID = new AtomicLong();
+
+  /** constructors of the generated classes by shape, empty if the shape can not be compiled */
+  private static final Cache<String, Optional<Constructor<? extends CompiledExpression>>>
+      COMPILED_CLASSES = Caffeine.newBuilder().maximumSize(MAX_CACHED_SHAPES).build();
+
+  private ColumnEvaluatorCompiler() {}
+
+  /** @return the compiled evaluator, or {@code evaluator} itself if it is not compiled */
+  public static ColumnEvaluator compile(ColumnEvaluator evaluator) {
+    if (!IoTDBDescriptor.getInstance().getConfig().isEnableExpressionCodeGeneration()
+        || evaluator instanceof InputColumnEvaluator
+        || evaluator instanceof ConstantColumnEvaluator) {
+      return evaluator;
+    }
+
+    List<ColumnEvaluator> leaves = new ArrayList<>();
+    StringBuilder shape = new StringBuilder();
+    if (!describe(evaluator, leaves, shape)) {
+      return evaluator;
+    }
+
+    Optional<Constructor<? extends CompiledExpression>> constructor =
+        COMPILED_CLASSES.get(shape.toString(), key -> generate(evaluator, leaves, key));
+    if (constructor == null || !constructor.isPresent()) {
+      return evaluator;
+    }
+
+    List<Object> constants = new ArrayList<>();
+    List<Integer> inputColumnIndexes = new ArrayList<>();
+    for (ColumnEvaluator leaf : leaves) {
+      if (leaf instanceof InputColumnEvaluator) {
+        int valueColumnIndex = ((InputColumnEvaluator) leaf).getValueColumnIndex();
+        if (valueColumnIndex != InputColumnEvaluator.TIME_COLUMN_INDEX) {
+          inputColumnIndexes.add(valueColumnIndex);
+        }
+      } else {
+        constants.add(getConstant((ConstantColumnEvaluator) leaf));
+      }
+    }
+    try {
+      return new CompiledColumnEvaluator(
+          evaluator,
+          constructor
+              .get()
+              .newInstance(
+                  constants.toArray(),
+                  inputColumnIndexes.stream().mapToInt(Integer::intValue).toArray()));
+    } catch (ReflectiveOperationException | LinkageError e) {
+      LOGGER.warn("Failed to instantiate the compiled expression of shape {}", shape, e);
+      return evaluator;
+    }
+  }
+
+  /**
+   * Appends the shape of the tree to {@code shape} and collects its leaves from left to right.
+   *
+   * @return false if the tree contains a node that can not be compiled
+   */
+  private static boolean describe(
+      ColumnEvaluator evaluator, List<ColumnEvaluator> leaves, StringBuilder shape) {
+    if (evaluator instanceof InputColumnEvaluator) {
+      leaves.add(evaluator);
+      if (((InputColumnEvaluator) evaluator).getValueColumnIndex()
+          == InputColumnEvaluator.TIME_COLUMN_INDEX) {
+        shape.append("time");
+      } else {
+        shape.append("input:").append(evaluator.getDataType());
+      }
+      return true;
+    }
+    if (evaluator instanceof ConstantColumnEvaluator) {
+      leaves.add(evaluator);
+      shape.append("constant:").append(evaluator.getDataType());
+      return true;
+    }
+    if (evaluator instanceof NegationColumnEvaluator) {
+      shape.append("-(");
+      boolean supported =
+          describe(((NegationColumnEvaluator) evaluator).getOperand(), leaves, shape);
+      shape.append(')');
+      return supported;
+    }
+    if (evaluator instanceof LogicNotColumnEvaluator) {
+      shape.append("!(");
+      boolean supported =
+          describe(((LogicNotColumnEvaluator) evaluator).getOperand(), leaves, shape);
+      shape.append(')');
+      return supported;
+    }
+
+    ColumnEvaluator left;
+    ColumnEvaluator right;
+    if (evaluator instanceof ArithmeticColumnEvaluator) {
+      ArithmeticColumnEvaluator arithmetic = (ArithmeticColumnEvaluator) evaluator;
+      shape.append(arithmetic.getOperator());
+      left = arithmetic.getLeft();
+      right = arithmetic.getRight();
+    } else if (evaluator instanceof CompareColumnEvaluator) {
+      CompareColumnEvaluator compare = (CompareColumnEvaluator) evaluator;
+      shape.append(compare.getOperator());
+      left = compare.getLeft();
+      right = compare.getRight();
+    } else if (evaluator instanceof LogicBinaryColumnEvaluator) {
+      shape.append(evaluator instanceof LogicAndColumnEvaluator ? "AND" : "OR");
+      left = ((LogicBinaryColumnEvaluator) evaluator).left;
+      right = ((LogicBinaryColumnEvaluator) evaluator).right;
+    } else {
+      return false;
+    }
+    shape.append('(');
+    boolean supported = describe(left, leaves, shape);
+    shape.append(',');
+    supported = supported && describe(right, leaves, shape);
+    shape.append(')');
+    return supported;
+  }
+
+  private static Object getConstant(ConstantColumnEvaluator constant) {
+    Column value = constant.getValue();
+    switch (constant.getDataType()) {
+      case INT32:
+        return value.getInt(0);
+      case INT64:
+        return value.getLong(0);
+      case FLOAT:
+        return value.getFloat(0);
+      case DOUBLE:
+        return value.getDouble(0);
+      case BOOLEAN:
+        return value.getBoolean(0);
+      default:
+        return value.getBinary(0);
+    }
+  }
+
+  private static Optional<Constructor<? extends CompiledExpression>> generate(
+      ColumnEvaluator root, List<ColumnEvaluator> leaves, String shape) {
+    String className =
+        ColumnEvaluatorCompiler.class.getName() + "$Generated" + CLASS_ID.incrementAndGet();
+    try {
+      byte[] bytecode = new Generator(root, leaves).generate(className.replace('.', '/'));
+      GeneratedClassLoader classLoader = new GeneratedClassLoader();
+      classLoader.define(className, bytecode);
+      // initialize the class now so that a verification error shows up here
+      Class<?> generatedClass = Class.forName(className, true, classLoader);
+      return Optional.of(
+          generatedClass
+              .asSubclass(CompiledExpression.class)
+              .getConstructor(Object[].class, int[].class));
+    } catch (Exception | LinkageError e) {
+      LOGGER.warn("Failed to compile the expression of shape {}, it will be interpreted", shape, e);
+      return Optional.empty();
+    }
+  }
+
+  private static class GeneratedClassLoader extends ClassLoader {
+
+    private GeneratedClassLoader() {
+      super(CompiledExpression.class.getClassLoader());
+    }
+
+    private void define(String className, byte[] bytecode) {
+      defineClass(className, bytecode, 0, bytecode.length);
+    }
+  }
+
+  /** The local variables holding the value and the null flag of a node for the current row. */
+  private static class Slot {
+
+    private final Type type;
+    private final int valueLocal;
+    /** -1 if the node is never null */
+    private final int nullLocal;
+    /** the local variable of the column read by an input node */
+    private final int columnLocal;
+
+    private Slot(Type type, int valueLocal, int nullLocal, int columnLocal) {
+      this.type = type;
+      this.valueLocal = valueLocal;
+      this.nullLocal = nullLocal;
+      this.columnLocal = columnLocal;
+    }
+  }
+
+  private static class Generator {
+
+    private final ColumnEvaluator root;
+    private final List<ColumnEvaluator> leaves;
+
+    private MethodVisitor mv;
+    private int nextLocal;
+    private Map<ColumnEvaluator, Slot> leafSlots;
+
+    private Generator(ColumnEvaluator root, List<ColumnEvaluator> leaves) {
+      this.root = root;
+      this.leaves = leaves;
+    }
+
+    private byte[] generate(String internalName) {
+      ClassWriter cw =
+          new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+              // locals are never merged across unrelated types, and the generated class can not
+              // be loaded by the class loader of ASM
+              return "java/lang/Object";
+            }
+          };
+      cw.visit(
+          Opcodes.V1_8,
+          Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER,
+          internalName,
+          null,
+          COMPILED_EXPRESSION,
+          null);
+
+      mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", CONSTRUCTOR_DESCRIPTOR, null, null);
+      mv.visitCode();
+      mv.visitVarInsn(Opcodes.ALOAD, 0);
+      mv.visitVarInsn(Opcodes.ALOAD, 1);
+      mv.visitVarInsn(Opcodes.ALOAD, 2);
+      mv.visitMethodInsn(
+          Opcodes.INVOKESPECIAL, COMPILED_EXPRESSION, "<init>", CONSTRUCTOR_DESCRIPTOR, false);
+      mv.visitInsn(Opcodes.RETURN);
+      mv.visitMaxs(0, 0);
+      mv.visitEnd();
+
+      mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "evaluate", EVALUATE_DESCRIPTOR, null, null);
+      generateEvaluate();
+      mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "select", SELECT_DESCRIPTOR, null, null);
+      generateSelect();
+
+      cw.visitEnd();
+      return cw.toByteArray();
+    }
+
+    // locals of evaluate: 0 this, 1 input, 2 positions, 3 positionCount, 4 values, 5 isNull
+    private void generateEvaluate() {
+      mv.visitCode();
+      nextLocal = 6;
+      Type rootType = asmType(root.getDataType());
+      int valuesLocal = newLocal(1);
+      mv.visitVarInsn(Opcodes.ALOAD, 4);
+      mv.visitTypeInsn(Opcodes.CHECKCAST, "[" + rootType.getDescriptor());
+      mv.visitVarInsn(Opcodes.ASTORE, valuesLocal);
+      loadLeaves();
+
+      int indexLocal = newLocal(1);
+      int positionLocal = newLocal(1);
+      Label condition = new Label();
+      Label end = new Label();
+      mv.visitInsn(Opcodes.ICONST_0);
+      mv.visitVarInsn(Opcodes.ISTORE, indexLocal);
+      mv.visitLabel(condition);
+      mv.visitVarInsn(Opcodes.ILOAD, indexLocal);
+      mv.visitVarInsn(Opcodes.ILOAD, 3);
+      mv.visitJumpInsn(Opcodes.IF_ICMPGE, end);
+      mv.visitVarInsn(Opcodes.ALOAD, 2);
+      mv.visitVarInsn(Opcodes.ILOAD, indexLocal);
+      mv.visitInsn(Opcodes.IALOAD);
+      mv.visitVarInsn(Opcodes.ISTORE, positionLocal);
+
+      Slot result = evaluate(root, positionLocal);
+      mv.visitVarInsn(Opcodes.ALOAD, valuesLocal);
+      mv.visitVarInsn(Opcodes.ILOAD, indexLocal);
+      mv.visitVarInsn(rootType.getOpcode(Opcodes.ILOAD), result.valueLocal);
+      mv.visitInsn(rootType.getOpcode(Opcodes.IASTORE));
+      if (result.nullLocal != -1) {
+        mv.visitVarInsn(Opcodes.ALOAD, 5);
+        mv.visitVarInsn(Opcodes.ILOAD, indexLocal);
+        mv.visitVarInsn(Opcodes.ILOAD, result.nullLocal);
+        mv.visitInsn(Opcodes.BASTORE);
+      }
+
+      mv.visitIincInsn(indexLocal, 1);
+      mv.visitJumpInsn(Opcodes.GOTO, condition);
+      mv.visitLabel(end);
+      mv.visitInsn(Opcodes.RETURN);
+      mv.visitMaxs(0, 0);
+      mv.visitEnd();
+    }
+
+    // locals of select: 0 this, 1 input, 2 positions, 3 positionCount
+    private void generateSelect() {
+      mv.visitCode();
+      if (root.getDataType() != TSDataType.BOOLEAN) {
+        mv.visitTypeInsn(Opcodes.NEW, "java/lang/UnsupportedOperationException");
+        mv.visitInsn(Opcodes.DUP);
+        mv.visitMethodInsn(
+            Opcodes.INVOKESPECIAL,
+            "java/lang/UnsupportedOperationException",
+            "<init>",
+            "()V",
+            false);
+        mv.visitInsn(Opcodes.ATHROW);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        return;
+      }
+
+      nextLocal = 4;
+      loadLeaves();
+      int indexLocal = newLocal(1);
+      int positionLocal = newLocal(1);
+      int selectedLocal = newLocal(1);
+      Label condition = new Label();
+      Label skip = new Label();
+      Label end = new Label();
+      mv.visitInsn(Opcodes.ICONST_0);
+      mv.visitVarInsn(Opcodes.ISTORE, indexLocal);
+      mv.visitInsn(Opcodes.ICONST_0);
+      mv.visitVarInsn(Opcodes.ISTORE, selectedLocal);
+      mv.visitLabel(condition);
+      mv.visitVarInsn(Opcodes.ILOAD, indexLocal);
+      mv.visitVarInsn(Opcodes.ILOAD, 3);
+      mv.visitJumpInsn(Opcodes.IF_ICMPGE, end);
+      mv.visitVarInsn(Opcodes.ALOAD, 2);
+      mv.visitVarInsn(Opcodes.ILOAD, indexLocal);
+      mv.visitInsn(Opcodes.IALOAD);
+      mv.visitVarInsn(Opcodes.ISTORE, positionLocal);
+
+      loadTruth(evaluate(root, positionLocal));
+      mv.visitJumpInsn(Opcodes.IFEQ, skip);
+      mv.visitVarInsn(Opcodes.ALOAD, 2);
+      mv.visitVarInsn(Opcodes.ILOAD, selectedLocal);
+      mv.visitVarInsn(Opcodes.ILOAD, positionLocal);
+      mv.visitInsn(Opcodes.IASTORE);
+      mv.visitIincInsn(selectedLocal, 1);
+      mv.visitLabel(skip);
+
+      mv.visitIincInsn(indexLocal, 1);
+      mv.visitJumpInsn(Opcodes.GOTO, condition);
+      mv.visitLabel(end);
+      mv.visitVarInsn(Opcodes.ILOAD, selectedLocal);
+      mv.visitInsn(Opcodes.IRETURN);
+      mv.visitMaxs(0, 0);
+      mv.visitEnd();
+    }
+
+    /** Loads the input columns and unboxes the constants into local variables, once per call. */
+    private void loadLeaves() {
+      leafSlots = new IdentityHashMap<>();
+      int inputOrdinal = 0;
+      int constantOrdinal = 0;
+      for (ColumnEvaluator leaf : leaves) {
+        Type type = asmType(leaf.getDataType());
+        if (leaf instanceof InputColumnEvaluator) {
+          int columnLocal = newLocal(1);
+          boolean isTime =
+              ((InputColumnEvaluator) leaf).getValueColumnIndex()
+                  == InputColumnEvaluator.TIME_COLUMN_INDEX;
+          mv.visitVarInsn(Opcodes.ALOAD, 1);
+          if (isTime) {
+            mv.visitMethodInsn(
+                Opcodes.INVOKEVIRTUAL, TS_BLOCK, "getTimeColumn", "()L" + TIME_COLUMN + ";", false);
+          } else {
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, COMPILED_EXPRESSION, "inputColumnIndexes", "[I");
+            mv.visitLdcInsn(inputOrdinal++);
+            mv.visitInsn(Opcodes.IALOAD);
+            mv.visitMethodInsn(
+                Opcodes.INVOKEVIRTUAL, TS_BLOCK, "getColumn", "(I)L" + COLUMN + ";", false);
+          }
+          mv.visitVarInsn(Opcodes.ASTORE, columnLocal);
+          leafSlots.put(
+              leaf,
+              new Slot(type, newLocal(type.getSize()), isTime ? -1 : newLocal(1), columnLocal));
+        } else {
+          int valueLocal = newLocal(type.getSize());
+          mv.visitVarInsn(Opcodes.ALOAD, 0);
+          mv.visitFieldInsn(
+              Opcodes.GETFIELD, COMPILED_EXPRESSION, "constants", "[Ljava/lang/Object;");
+          mv.visitLdcInsn(constantOrdinal++);
+          mv.visitInsn(Opcodes.AALOAD);
+          unbox(leaf.getDataType());
+          mv.visitVarInsn(type.getOpcode(Opcodes.ISTORE), valueLocal);
+          leafSlots.put(leaf, new Slot(type, valueLocal, -1, -1));
+        }
+      }
+    }
+
+    /** Emits the evaluation of a node for the row in {@code positionLocal}. */
+    private Slot evaluate(ColumnEvaluator node, int positionLocal) {
+      if (node instanceof ConstantColumnEvaluator) {
+        return leafSlots.get(node);
+      }
+      if (node instanceof InputColumnEvaluator) {
+        Slot slot = leafSlots.get(node);
+        mv.visitVarInsn(Opcodes.ALOAD, slot.columnLocal);
+        mv.visitVarInsn(Opcodes.ILOAD, positionLocal);
+        mv.visitMethodInsn(
+            Opcodes.INVOKEINTERFACE,
+            COLUMN,
+            getterName(node.getDataType()),
+            "(I)" + slot.type.getDescriptor(),
+            true);
+        mv.visitVarInsn(slot.type.getOpcode(Opcodes.ISTORE), slot.valueLocal);
+        if (slot.nullLocal != -1) {
+          mv.visitVarInsn(Opcodes.ALOAD, slot.columnLocal);
+          mv.visitVarInsn(Opcodes.ILOAD, positionLocal);
+          mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, COLUMN, "isNull", "(I)Z", true);
+          mv.visitVarInsn(Opcodes.ISTORE, slot.nullLocal);
+        }
+        return slot;
+      }
+      if (node instanceof NegationColumnEvaluator) {
+        Slot operand = evaluate(((NegationColumnEvaluator) node).getOperand(), positionLocal);
+        int valueLocal = newLocal(operand.type.getSize());
+        mv.visitVarInsn(operand.type.getOpcode(Opcodes.ILOAD), operand.valueLocal);
+        mv.visitInsn(operand.type.getOpcode(Opcodes.INEG));
+        mv.visitVarInsn(operand.type.getOpcode(Opcodes.ISTORE), valueLocal);
+        return new Slot(operand.type, valueLocal, operand.nullLocal, -1);
+      }
+      if (node instanceof LogicNotColumnEvaluator) {
+        Slot operand = evaluate(((LogicNotColumnEvaluator) node).getOperand(), positionLocal);
+        int valueLocal = newLocal(1);
+        mv.visitVarInsn(Opcodes.ILOAD, operand.valueLocal);
+        mv.visitInsn(Opcodes.ICONST_1);
+        mv.visitInsn(Opcodes.IXOR);
+        mv.visitVarInsn(Opcodes.ISTORE, valueLocal);
+        return new Slot(Type.BOOLEAN_TYPE, valueLocal, operand.nullLocal, -1);
+      }
+      if (node instanceof ArithmeticColumnEvaluator) {
+        ArithmeticColumnEvaluator arithmetic = (ArithmeticColumnEvaluator) node;
+        Slot left = evaluate(arithmetic.getLeft(), positionLocal);
+        Slot right = evaluate(arithmetic.getRight(), positionLocal);
+        int valueLocal = newLocal(2);
+        loadAsDouble(left);
+        loadAsDouble(right);
+        mv.visitInsn(arithmeticOpcode(arithmetic));
+        mv.visitVarInsn(Opcodes.DSTORE, valueLocal);
+        return new Slot(Type.DOUBLE_TYPE, valueLocal, eitherNull(left, right), -1);
+      }
+      if (node instanceof CompareColumnEvaluator) {
+        return evaluateCompare((CompareColumnEvaluator) node, positionLocal);
+      }
+
+      // AND and OR treat null as false and are null only if both operands are null
+      LogicBinaryColumnEvaluator logic = (LogicBinaryColumnEvaluator) node;
+      Slot left = evaluate(logic.left, positionLocal);
+      Slot right = evaluate(logic.right, positionLocal);
+      int valueLocal = newLocal(1);
+      loadTruth(left);
+      loadTruth(right);
+      mv.visitInsn(node instanceof LogicAndColumnEvaluator ? Opcodes.IAND : Opcodes.IOR);
+      mv.visitVarInsn(Opcodes.ISTORE, valueLocal);
+      int nullLocal = -1;
+      if (left.nullLocal != -1 && right.nullLocal != -1) {
+        nullLocal = newLocal(1);
+        mv.visitVarInsn(Opcodes.ILOAD, left.nullLocal);
+        mv.visitVarInsn(Opcodes.ILOAD, right.nullLocal);
+        mv.visitInsn(Opcodes.IAND);
+        mv.visitVarInsn(Opcodes.ISTORE, nullLocal);
+      }
+      return new Slot(Type.BOOLEAN_TYPE, valueLocal, nullLocal, -1);
+    }
+
+    private Slot evaluateCompare(CompareColumnEvaluator compare, int positionLocal) {
+      Slot left = evaluate(compare.getLeft(), positionLocal);
+      Slot right = evaluate(compare.getRight(), positionLocal);
+      int nullLocal = eitherNull(left, right);
+      int valueLocal = newLocal(1);
+
+      if (compare.getLeft().getDataType() == TSDataType.TEXT) {
+        // the Binary of a null row may be null, so it must not be dereferenced
+        Label compute = new Label();
+        Label end = new Label();
+        if (nullLocal != -1) {
+          mv.visitVarInsn(Opcodes.ILOAD, nullLocal);
+          mv.visitJumpInsn(Opcodes.IFEQ, compute);
+          mv.visitInsn(Opcodes.ICONST_0);
+          mv.visitVarInsn(Opcodes.ISTORE, valueLocal);
+          mv.visitJumpInsn(Opcodes.GOTO, end);
+          mv.visitLabel(compute);
+        }
+        mv.visitVarInsn(Opcodes.ALOAD, left.valueLocal);
+        mv.visitMethodInsn(
+            Opcodes.INVOKEVIRTUAL, BINARY, "getStringValue", "()Ljava/lang/String;", false);
+        mv.visitVarInsn(Opcodes.ALOAD, right.valueLocal);
+        mv.visitMethodInsn(
+            Opcodes.INVOKEVIRTUAL, BINARY, "getStringValue", "()Ljava/lang/String;", false);
+        mv.visitMethodInsn(
+            Opcodes.INVOKEVIRTUAL, "java/lang/String", "compareTo", "(Ljava/lang/String;)I", false);
+        pushComparisonResult(compare);
+        mv.visitVarInsn(Opcodes.ISTORE, valueLocal);
+        if (nullLocal != -1) {
+          mv.visitLabel(end);
+        }
+      } else {
+        loadAsDouble(left);
+        loadAsDouble(right);
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Double", "compare", "(DD)I", false);
+        pushComparisonResult(compare);
+        mv.visitVarInsn(Opcodes.ISTORE, valueLocal);
+      }
+      return new Slot(Type.BOOLEAN_TYPE, valueLocal, nullLocal, -1);
+    }
+
+    /** Turns the int comparison result on the stack into the boolean of the operator. */
+    private void pushComparisonResult(CompareColumnEvaluator compare) {
+      Label isTrue = new Label();
+      Label end = new Label();
+      mv.visitJumpInsn(comparisonOpcode(compare), isTrue);
+      mv.visitInsn(Opcodes.ICONST_0);
+      mv.visitJumpInsn(Opcodes.GOTO, end);
+      mv.visitLabel(isTrue);
+      mv.visitInsn(Opcodes.ICONST_1);
+      mv.visitLabel(end);
+    }
+
+    /** Pushes 1 if the boolean node is non-null and true, otherwise 0. */
+    private void loadTruth(Slot slot) {
+      mv.visitVarInsn(Opcodes.ILOAD, slot.valueLocal);
+      if (slot.nullLocal != -1) {
+        mv.visitVarInsn(Opcodes.ILOAD, slot.nullLocal);
+        mv.visitInsn(Opcodes.ICONST_1);
+        mv.visitInsn(Opcodes.IXOR);
+        mv.visitInsn(Opcodes.IAND);
+      }
+    }
+
+    private void loadAsDouble(Slot slot) {
+      mv.visitVarInsn(slot.type.getOpcode(Opcodes.ILOAD), slot.valueLocal);
+      switch (slot.type.getSort()) {
+        case Type.INT:
+        case Type.BOOLEAN:
+          mv.visitInsn(Opcodes.I2D);
+          break;
+        case Type.LONG:
+          mv.visitInsn(Opcodes.L2D);
+          break;
+        case Type.FLOAT:
+          mv.visitInsn(Opcodes.F2D);
+          break;
+        case Type.DOUBLE:
+          break;
+        default:
+          throw new IllegalArgumentException("Can not cast " + slot.type + " to double");
+      }
+    }
+
+    /** @return the null flag of a node that is null if either of its operands is */
+    private int eitherNull(Slot left, Slot right) {
+      if (left.nullLocal == -1) {
+        return right.nullLocal;
+      }
+      if (right.nullLocal == -1) {
+        return left.nullLocal;
+      }
+      int nullLocal = newLocal(1);
+      mv.visitVarInsn(Opcodes.ILOAD, left.nullLocal);
+      mv.visitVarInsn(Opcodes.ILOAD, right.nullLocal);
+      mv.visitInsn(Opcodes.IOR);
+      mv.visitVarInsn(Opcodes.ISTORE, nullLocal);
+      return nullLocal;
+    }
+
+    private void unbox(TSDataType dataType) {
+      switch (dataType) {
+        case INT32:
+          mv.visitTypeInsn(Opcodes.CHECKCAST, "java/lang/Integer");
+          mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Integer", "intValue", "()I", false);
+          break;
+        case INT64:
+          mv.visitTypeInsn(Opcodes.CHECKCAST, "java/lang/Long");
+          mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Long", "longValue", "()J", false);
+          break;
+        case FLOAT:
+          mv.visitTypeInsn(Opcodes.CHECKCAST, "java/lang/Float");
+          mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Float", "floatValue", "()F", false);
+          break;
+        case DOUBLE:
+          mv.visitTypeInsn(Opcodes.CHECKCAST, "java/lang/Double");
+          mv.visitMethodInsn(
+              Opcodes.INVOKEVIRTUAL, "java/lang/Double", "doubleValue", "()D", false);
+          break;
+        case BOOLEAN:
+          mv.visitTypeInsn(Opcodes.CHECKCAST, "java/lang/Boolean");
+          mv.visitMethodInsn(
+              Opcodes.INVOKEVIRTUAL, "java/lang/Boolean", "booleanValue", "()Z", false);
+          break;
+        default:
+          mv.visitTypeInsn(Opcodes.CHECKCAST, BINARY);
+      }
+    }
+
+    private int newLocal(int size) {
+      int local = nextLocal;
+      nextLocal += size;
+      return local;
+    }
+  }
+
+  private static Type asmType(TSDataType dataType) {
+    switch (dataType) {
+      case INT32:
+        return Type.INT_TYPE;
+      case INT64:
+        return Type.LONG_TYPE;
+      case FLOAT:
+        return Type.FLOAT_TYPE;
+      case DOUBLE:
+        return Type.DOUBLE_TYPE;
+      case BOOLEAN:
+        return Type.BOOLEAN_TYPE;
+      case TEXT:
+        return Type.getObjectType(BINARY);
+      default:
+        throw new IllegalArgumentException("Unsupported data type: " + dataType);
+    }
+  }
+
+  private static String getterName(TSDataType dataType) {
+    switch (dataType) {
+      case INT32:
+        return "getInt";
+      case INT64:
+        return "getLong";
+      case FLOAT:
+        return "getFloat";
+      case DOUBLE:
+        return "getDouble";
+      case BOOLEAN:
+        return "getBoolean";
+      case TEXT:
+        return "getBinary";
+      default:
+        throw new IllegalArgumentException("Unsupported data type: " + dataType);
+    }
+  }
+
+  private static int arithmeticOpcode(ArithmeticColumnEvaluator arithmetic) {
+    switch (arithmetic.getOperator()) {
+      case ADDITION:
+        return Opcodes.DADD;
+      case SUBTRACTION:
+        return Opcodes.DSUB;
+      case MULTIPLICATION:
+        return Opcodes.DMUL;
+      case DIVISION:
+        return Opcodes.DDIV;
+      case MODULO:
+        return Opcodes.DREM;
+      default:
+        throw new IllegalArgumentException("Unsupported operator: " + arithmetic.getOperator());
+    }
+  }
+
+  private static int comparisonOpcode(CompareColumnEvaluator compare) {
+    switch (compare.getOperator()) {
+      case EQUAL_TO:
+        return Opcodes.IFEQ;
+      case NON_EQUAL:
+        return Opcodes.IFNE;
+      case GREATER_THAN:
+        return Opcodes.IFGT;
+      case GREATER_EQUAL:
+        return Opcodes.IFGE;
+      case LESS_THAN:
+        return Opcodes.IFLT;
+      case LESS_EQUAL:
+        return Opcodes.IFLE;
+      default:
+        throw new IllegalArgumentException("Unsupported operator: " + compare.getOperator());
+    }
+  }
+}
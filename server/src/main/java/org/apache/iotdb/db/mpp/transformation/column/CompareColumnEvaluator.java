@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.transformation.column;
+
+import org.apache.iotdb.db.mpp.plan.expression.ExpressionType;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.BooleanColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+
+/**
+ * =, !=, >, >=, < and <=. Numeric operands are compared as doubles and TEXT operands
+ * lexicographically, the same way as {@code CompareBinaryTransformer} does. A null operand yields
+ * null.
+ */
+public class CompareColumnEvaluator extends ColumnEvaluator {
+
+  private final ExpressionType operator;
+  private final ColumnEvaluator left;
+  private final ColumnEvaluator right;
+  private final boolean isText;
+
+  public CompareColumnEvaluator(
+      ExpressionType operator, ColumnEvaluator left, ColumnEvaluator right) {
+    super(TSDataType.BOOLEAN);
+    TSDataType leftType = left.getDataType();
+    TSDataType rightType = right.getDataType();
+    if (leftType != rightType) {
+      if (leftType == TSDataType.BOOLEAN || rightType == TSDataType.BOOLEAN) {
+        throw new UnSupportedDataTypeException(TSDataType.BOOLEAN.toString());
+      }
+      if (leftType == TSDataType.TEXT || rightType == TSDataType.TEXT) {
+        throw new UnSupportedDataTypeException(TSDataType.TEXT.toString());
+      }
+    }
+    this.operator = operator;
+    this.left = left;
+    this.right = right;
+    this.isText = leftType == TSDataType.TEXT;
+  }
+
+  ExpressionType getOperator() {
+    return operator;
+  }
+
+  ColumnEvaluator getLeft() {
+    return left;
+  }
+
+  ColumnEvaluator getRight() {
+    return right;
+  }
+
+  @Override
+  public Column evaluate(TsBlock input, int[] positions, int positionCount) {
+    boolean[] values = new boolean[positionCount];
+    boolean[] isNull = compare(input, positions, positionCount, values);
+    return new BooleanColumn(positionCount, toOptional(isNull), values);
+  }
+
+  @Override
+  public int select(TsBlock input, int[] positions, int positionCount) {
+    boolean[] values = new boolean[positionCount];
+    boolean[] isNull = compare(input, positions, positionCount, values);
+    int selected = 0;
+    if (isNull == null) {
+      for (int i = 0; i < positionCount; ++i) {
+        if (values[i]) {
+          positions[selected++] = positions[i];
+        }
+      }
+    } else {
+      for (int i = 0; i < positionCount; ++i) {
+        if (!isNull[i] && values[i]) {
+          positions[selected++] = positions[i];
+        }
+      }
+    }
+    return selected;
+  }
+
+  /**
+   * Writes the comparison results of the selected rows into {@code values}.
+   *
+   * @return the null flags of the results, or null if none of them is null
+   */
+  private boolean[] compare(TsBlock input, int[] positions, int positionCount, boolean[] values) {
+    Column leftColumn = left.evaluate(input, positions, positionCount);
+    Column rightColumn = right.evaluate(input, positions, positionCount);
+    boolean[] leftIsNull = getNullFlags(leftColumn, positionCount);
+    boolean[] rightIsNull = getNullFlags(rightColumn, positionCount);
+    boolean[] isNull = unionNullFlags(leftIsNull, rightIsNull, positionCount);
+
+    int[] results = new int[positionCount];
+    if (isText) {
+      for (int i = 0; i < positionCount; ++i) {
+        if (isNull == null || !isNull[i]) {
+          results[i] =
+              leftColumn
+                  .getBinary(i)
+                  .getStringValue()
+                  .compareTo(rightColumn.getBinary(i).getStringValue());
+        }
+      }
+    } else {
+      double[] l = toDoubleArray(leftColumn, left.getDataType(), leftIsNull, positionCount);
+      double[] r = toDoubleArray(rightColumn, right.getDataType(), rightIsNull, positionCount);
+      for (int i = 0; i < positionCount; ++i) {
+        results[i] = Double.compare(l[i], r[i]);
+      }
+    }
+
+    switch (operator) {
+      case EQUAL_TO:
+        for (int i = 0; i < positionCount; ++i) {
+          values[i] = results[i] == 0;
+        }
+        break;
+      case NON_EQUAL:
+        for (int i = 0; i < positionCount; ++i) {
+          values[i] = results[i] != 0;
+        }
+        break;
+      case GREATER_THAN:
+        for (int i = 0; i < positionCount; ++i) {
+          values[i] = results[i] > 0;
+        }
+        break;
+      case GREATER_EQUAL:
+        for (int i = 0; i < positionCount; ++i) {
+          values[i] = results[i] >= 0;
+        }
+        break;
+      case LESS_THAN:
+        for (int i = 0; i < positionCount; ++i) {
+          values[i] = results[i] < 0;
+        }
+        break;
+      case LESS_EQUAL:
+        for (int i = 0; i < positionCount; ++i) {
+          values[i] = results[i] <= 0;
+        }
+        break;
+      default:
+        throw new UnsupportedOperationException("Unsupported compare operator: " + operator);
+    }
+    return isNull;
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.transformation.column;
+
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.BinaryColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.BooleanColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.DoubleColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.FloatColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.IntColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.LongColumn;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+/** Adapts a {@link CompiledExpression} to the {@link ColumnEvaluator} interface. */
+public class CompiledColumnEvaluator extends ColumnEvaluator {
+
+  private final CompiledExpression compiledExpression;
+
+  CompiledColumnEvaluator(ColumnEvaluator interpreted, CompiledExpression compiledExpression) {
+    super(interpreted.getDataType());
+    this.compiledExpression = compiledExpression;
+  }
+
+  CompiledExpression getCompiledExpression() {
+    return compiledExpression;
+  }
+
+  @Override
+  public Column evaluate(TsBlock input, int[] positions, int positionCount) {
+    boolean[] isNull = new boolean[positionCount];
+    switch (dataType) {
+      case INT32:
+        int[] ints = new int[positionCount];
+        compiledExpression.evaluate(input, positions, positionCount, ints, isNull);
+        return new IntColumn(positionCount, toOptional(compact(isNull)), ints);
+      case INT64:
+        long[] longs = new long[positionCount];
+        compiledExpression.evaluate(input, positions, positionCount, longs, isNull);
+        return new LongColumn(positionCount, toOptional(compact(isNull)), longs);
+      case FLOAT:
+        float[] floats = new float[positionCount];
+        compiledExpression.evaluate(input, positions, positionCount, floats, isNull);
+        return new FloatColumn(positionCount, toOptional(compact(isNull)), floats);
+      case DOUBLE:
+        double[] doubles = new double[positionCount];
+        compiledExpression.evaluate(input, positions, positionCount, doubles, isNull);
+        return new DoubleColumn(positionCount, toOptional(compact(isNull)), doubles);
+      case BOOLEAN:
+        boolean[] booleans = new boolean[positionCount];
+        compiledExpression.evaluate(input, positions, positionCount, booleans, isNull);
+        return new BooleanColumn(positionCount, toOptional(compact(isNull)), booleans);
+      case TEXT:
+        Binary[] binaries = new Binary[positionCount];
+        compiledExpression.evaluate(input, positions, positionCount, binaries, isNull);
+        return new BinaryColumn(positionCount, toOptional(compact(isNull)), binaries);
+      default:
+        throw new UnSupportedDataTypeException("Unsupported data type: " + dataType);
+    }
+  }
+
+  @Override
+  public int select(TsBlock input, int[] positions, int positionCount) {
+    return compiledExpression.select(input, positions, positionCount);
+  }
+
+  /** @return null if none of the flags is set */
+  private static boolean[] compact(boolean[] isNull) {
+    for (boolean flag : isNull) {
+      if (flag) {
+        return isNull;
+      }
+    }
+    return null;
+  }
+}
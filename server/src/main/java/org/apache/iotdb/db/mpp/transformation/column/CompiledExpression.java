@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.transformation.column;
+
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+
+/**
+ * Super class of the classes generated by {@link ColumnEvaluatorCompiler}. A generated class
+ * evaluates the whole expression tree of one shape row by row in a single loop, reading the input
+ * columns listed in {@link #inputColumnIndexes} and the constants in {@link #constants}, both in
+ * the left-to-right order of the leaves of the tree.
+ */
+public abstract class CompiledExpression {
+
+  protected final Object[] constants;
+  protected final int[] inputColumnIndexes;
+
+  protected CompiledExpression(Object[] constants, int[] inputColumnIndexes) {
+    this.constants = constants;
+    this.inputColumnIndexes = inputColumnIndexes;
+  }
+
+  /**
+   * Writes the results of the selected rows into {@code values}, a primitive array (or a Binary
+   * array for TEXT) matching the data type of the expression, and their null flags into {@code
+   * isNull}.
+   */
+  public abstract void evaluate(
+      TsBlock input, int[] positions, int positionCount, Object values, boolean[] isNull);
+
+  /** @see ColumnEvaluator#select(TsBlock, int[], int) */
+  public abstract int select(TsBlock input, int[] positions, int positionCount);
+}
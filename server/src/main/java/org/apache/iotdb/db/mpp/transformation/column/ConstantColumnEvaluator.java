@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.transformation.column;
+
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.mpp.plan.expression.leaf.ConstantOperand;
+import org.apache.iotdb.db.utils.CommonUtils;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.BinaryColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.BooleanColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.DoubleColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.FloatColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.IntColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.LongColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.RunLengthEncodedColumn;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import java.util.Optional;
+
+/** Evaluates a {@link ConstantOperand} as a run-length encoded column. */
+public class ConstantColumnEvaluator extends ColumnEvaluator {
+
+  private final Column value;
+
+  public ConstantColumnEvaluator(ConstantOperand expression) throws QueryProcessException {
+    super(expression.getDataType());
+
+    Object parsed = CommonUtils.parseValue(dataType, expression.getExpressionString());
+    if (parsed == null) {
+      throw new QueryProcessException(
+          "Invalid constant operand: " + expression.getExpressionString());
+    }
+
+    switch (dataType) {
+      case INT32:
+        value = new IntColumn(1, Optional.empty(), new int[] {(int) parsed});
+        break;
+      case INT64:
+        value = new LongColumn(1, Optional.empty(), new long[] {(long) parsed});
+        break;
+      case FLOAT:
+        value = new FloatColumn(1, Optional.empty(), new float[] {(float) parsed});
+        break;
+      case DOUBLE:
+        value = new DoubleColumn(1, Optional.empty(), new double[] {(double) parsed});
+        break;
+      case TEXT:
+        value = new BinaryColumn(1, Optional.empty(), new Binary[] {(Binary) parsed});
+        break;
+      case BOOLEAN:
+        value = new BooleanColumn(1, Optional.empty(), new boolean[] {(boolean) parsed});
+        break;
+      default:
+        throw new QueryProcessException("Unsupported type: " + dataType);
+    }
+  }
+
+  /** @return the constant as a single-position column */
+  Column getValue() {
+    return value;
+  }
+
+  @Override
+  public Column evaluate(TsBlock input, int[] positions, int positionCount) {
+    return new RunLengthEncodedColumn(value, positionCount);
+  }
+}
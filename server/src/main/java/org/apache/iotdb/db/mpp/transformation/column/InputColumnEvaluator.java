@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.transformation.column;
+
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+
+/** Reads a value column, or the time column, of the input block. */
+public class InputColumnEvaluator extends ColumnEvaluator {
+
+  /** Index used to refer to the time column of the input block. */
+  public static final int TIME_COLUMN_INDEX = -1;
+
+  private final int valueColumnIndex;
+
+  public InputColumnEvaluator(int valueColumnIndex, TSDataType dataType) {
+    super(dataType);
+    this.valueColumnIndex = valueColumnIndex;
+  }
+
+  int getValueColumnIndex() {
+    return valueColumnIndex;
+  }
+
+  @Override
+  public Column evaluate(TsBlock input, int[] positions, int positionCount) {
+    Column column =
+        valueColumnIndex == TIME_COLUMN_INDEX
+            ? input.getTimeColumn()
+            : input.getColumn(valueColumnIndex);
+    if (positionCount == input.getPositionCount()) {
+      // positions are ascending and distinct, so all rows are selected
+      return column;
+    }
+    return copyPositions(column, dataType, positions, positionCount);
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.transformation.column;
+
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+
+public class LogicAndColumnEvaluator extends LogicBinaryColumnEvaluator {
+
+  public LogicAndColumnEvaluator(ColumnEvaluator left, ColumnEvaluator right) {
+    super(left, right);
+  }
+
+  @Override
+  protected boolean evaluate(boolean leftOperand, boolean rightOperand) {
+    return leftOperand && rightOperand;
+  }
+
+  /** The right operand is only evaluated on the rows accepted by the left one. */
+  @Override
+  public int select(TsBlock input, int[] positions, int positionCount) {
+    int selected = left.select(input, positions, positionCount);
+    return selected == 0 ? 0 : right.select(input, positions, selected);
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.transformation.column;
+
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.BooleanColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+
+/**
+ * AND and OR. Following {@code LogicBinaryTransformer}, a null operand is treated as false, and the
+ * result is null only if both operands are null.
+ */
+public abstract class LogicBinaryColumnEvaluator extends ColumnEvaluator {
+
+  protected final ColumnEvaluator left;
+  protected final ColumnEvaluator right;
+
+  protected LogicBinaryColumnEvaluator(ColumnEvaluator left, ColumnEvaluator right) {
+    super(TSDataType.BOOLEAN);
+    if (left.getDataType() != TSDataType.BOOLEAN || right.getDataType() != TSDataType.BOOLEAN) {
+      throw new UnSupportedDataTypeException("Unsupported data type: " + TSDataType.BOOLEAN);
+    }
+    this.left = left;
+    this.right = right;
+  }
+
+  @Override
+  public Column evaluate(TsBlock input, int[] positions, int positionCount) {
+    Column leftColumn = left.evaluate(input, positions, positionCount);
+    Column rightColumn = right.evaluate(input, positions, positionCount);
+    boolean[] leftIsNull = getNullFlags(leftColumn, positionCount);
+    boolean[] rightIsNull = getNullFlags(rightColumn, positionCount);
+
+    boolean[] isNull = null;
+    boolean[] values = new boolean[positionCount];
+    for (int i = 0; i < positionCount; ++i) {
+      boolean leftNull = leftIsNull != null && leftIsNull[i];
+      boolean rightNull = rightIsNull != null && rightIsNull[i];
+      if (leftNull && rightNull) {
+        if (isNull == null) {
+          isNull = new boolean[positionCount];
+        }
+        isNull[i] = true;
+      } else {
+        values[i] =
+            evaluate(
+                !leftNull && leftColumn.getBoolean(i), !rightNull && rightColumn.getBoolean(i));
+      }
+    }
+    return new BooleanColumn(positionCount, toOptional(isNull), values);
+  }
+
+  protected abstract boolean evaluate(boolean leftOperand, boolean rightOperand);
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.transformation.column;
+
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.BooleanColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+
+/** Logical negation. A null operand yields null. */
+public class LogicNotColumnEvaluator extends ColumnEvaluator {
+
+  private final ColumnEvaluator operand;
+
+  public LogicNotColumnEvaluator(ColumnEvaluator operand) {
+    super(TSDataType.BOOLEAN);
+    if (operand.getDataType() != TSDataType.BOOLEAN) {
+      throw new UnSupportedDataTypeException("Unsupported data type: " + operand.getDataType());
+    }
+    this.operand = operand;
+  }
+
+  ColumnEvaluator getOperand() {
+    return operand;
+  }
+
+  @Override
+  public Column evaluate(TsBlock input, int[] positions, int positionCount) {
+    Column column = operand.evaluate(input, positions, positionCount);
+    boolean[] isNull = getNullFlags(column, positionCount);
+    boolean[] values = new boolean[positionCount];
+    for (int i = 0; i < positionCount; ++i) {
+      if (isNull == null || !isNull[i]) {
+        values[i] = !column.getBoolean(i);
+      }
+    }
+    return new BooleanColumn(positionCount, toOptional(isNull), values);
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.transformation.column;
+
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+
+public class LogicOrColumnEvaluator extends LogicBinaryColumnEvaluator {
+
+  public LogicOrColumnEvaluator(ColumnEvaluator left, ColumnEvaluator right) {
+    super(left, right);
+  }
+
+  @Override
+  protected boolean evaluate(boolean leftOperand, boolean rightOperand) {
+    return leftOperand || rightOperand;
+  }
+
+  /** The right operand is only evaluated on the rows rejected by the left one. */
+  @Override
+  public int select(TsBlock input, int[] positions, int positionCount) {
+    int[] leftPositions = new int[positionCount];
+    System.arraycopy(positions, 0, leftPositions, 0, positionCount);
+    int leftSelected = left.select(input, leftPositions, positionCount);
+    if (leftSelected == positionCount) {
+      return positionCount;
+    }
+
+    // rows rejected by the left operand, in ascending order
+    int[] rightPositions = new int[positionCount - leftSelected];
+    int rightCount = 0;
+    for (int i = 0, j = 0; i < positionCount; ++i) {
+      if (j < leftSelected && leftPositions[j] == positions[i]) {
+        ++j;
+      } else {
+        rightPositions[rightCount++] = positions[i];
+      }
+    }
+    int rightSelected = right.select(input, rightPositions, rightCount);
+
+    // merge the two ascending selections back into positions
+    int i = 0;
+    int j = 0;
+    int selected = 0;
+    while (i < leftSelected && j < rightSelected) {
+      positions[selected++] =
+          leftPositions[i] < rightPositions[j] ? leftPositions[i++] : rightPositions[j++];
+    }
+    while (i < leftSelected) {
+      positions[selected++] = leftPositions[i++];
+    }
+    while (j < rightSelected) {
+      positions[selected++] = rightPositions[j++];
+    }
+    return selected;
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.transformation.column;
+
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.DoubleColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.FloatColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.IntColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.LongColumn;
+
+/** Arithmetic negation. The result keeps the data type of the operand. */
+public class NegationColumnEvaluator extends ColumnEvaluator {
+
+  private final ColumnEvaluator operand;
+
+  public NegationColumnEvaluator(ColumnEvaluator operand) {
+    super(operand.getDataType());
+    this.operand = operand;
+  }
+
+  ColumnEvaluator getOperand() {
+    return operand;
+  }
+
+  @Override
+  public Column evaluate(TsBlock input, int[] positions, int positionCount) {
+    Column column = operand.evaluate(input, positions, positionCount);
+    boolean[] isNull = getNullFlags(column, positionCount);
+    switch (dataType) {
+      case INT32:
+        int[] ints = new int[positionCount];
+        for (int i = 0; i < positionCount; ++i) {
+          if (isNull == null || !isNull[i]) {
+            ints[i] = -column.getInt(i);
+          }
+        }
+        return new IntColumn(positionCount, toOptional(isNull), ints);
+      case INT64:
+        long[] longs = new long[positionCount];
+        for (int i = 0; i < positionCount; ++i) {
+          if (isNull == null || !isNull[i]) {
+            longs[i] = -column.getLong(i);
+          }
+        }
+        return new LongColumn(positionCount, toOptional(isNull), longs);
+      case FLOAT:
+        float[] floats = new float[positionCount];
+        for (int i = 0; i < positionCount; ++i) {
+          if (isNull == null || !isNull[i]) {
+            floats[i] = -column.getFloat(i);
+          }
+        }
+        return new FloatColumn(positionCount, toOptional(isNull), floats);
+      case DOUBLE:
+        double[] doubles = new double[positionCount];
+        for (int i = 0; i < positionCount; ++i) {
+          if (isNull == null || !isNull[i]) {
+            doubles[i] = -column.getDouble(i);
+          }
+        }
+        return new DoubleColumn(positionCount, toOptional(isNull), doubles);
+      default:
+        throw new UnSupportedDataTypeException("Unsupported data type: " + dataType);
+    }
+  }
+}
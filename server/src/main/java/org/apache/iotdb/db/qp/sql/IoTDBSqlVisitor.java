@@ -1346,6 +1346,16 @@ public class IoTDBSqlVisitor extends IoTDBSqlParserBaseVisitor<Operator> {
     return queryOp;
   }
 
+  @Override
+  public Operator visitOrderByStatement(IoTDBSqlParser.OrderByStatementContext ctx) {
+    throw new SQLParserException("ORDER BY columns other than time is not supported");
+  }
+
+  @Override
+  public Operator visitGroupByValuesStatement(IoTDBSqlParser.GroupByValuesStatementContext ctx) {
+    throw new SQLParserException("GROUP BY VALUES is not supported");
+  }
+
   @Override
   public Operator visitGroupByTimeStatement(IoTDBSqlParser.GroupByTimeStatementContext ctx) {
     queryOp = new GroupByQueryOperator();
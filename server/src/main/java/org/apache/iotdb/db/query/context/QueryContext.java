@@ -55,6 +55,9 @@ public class QueryContext {
   private boolean debug;
   private boolean enableTracing = false;
 
+  /** whether the pages decoded by this query should not be put into the decoded page cache */
+  private boolean bypassDecodedPageCache = false;
+
   /**
    * To reduce the cost of memory, we only keep the a certain size statement. For statement whose
    * length is over this, we keep its head and tail.
@@ -142,6 +145,14 @@ public class QueryContext {
     this.enableTracing = enableTracing;
   }
 
+  public boolean isBypassDecodedPageCache() {
+    return bypassDecodedPageCache;
+  }
+
+  public void setBypassDecodedPageCache(boolean bypassDecodedPageCache) {
+    this.bypassDecodedPageCache = bypassDecodedPageCache;
+  }
+
   public long getQueryTimeLowerBound() {
     return queryTimeLowerBound;
   }
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.control;
+
+import org.apache.iotdb.db.mpp.plan.execution.cache.AnalyzedPlanCache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A SQL prepared on the server. Its parameter slots are the '?' outside the quoted strings and
+ * names, and the values bound to them are SQL literals.
+ */
+public class PreparedStatementInfo {
+
+  private final String sql;
+  private final String normalizedSql;
+
+  /** the SQL split by the parameter slots */
+  private final List<String> parts;
+
+  public PreparedStatementInfo(String sql) {
+    this.sql = sql;
+    this.normalizedSql = AnalyzedPlanCache.normalize(sql);
+    this.parts = splitByParameterSlots(sql);
+  }
+
+  public String getSql() {
+    return sql;
+  }
+
+  /** The SQL normalized for the AnalyzedPlanCache, whose parameter slots are kept. */
+  public String getNormalizedSql() {
+    return normalizedSql;
+  }
+
+  public int getParameterCount() {
+    return parts.size() - 1;
+  }
+
+  /** Get the SQL whose parameter slots are replaced by the parameters in order. */
+  public String bind(List<String> parameters) {
+    if (parameters.size() != getParameterCount()) {
+      throw new IllegalArgumentException(
+          String.format(
+              "%d parameters are bound to a statement with %d parameter slots",
+              parameters.size(), getParameterCount()));
+    }
+    StringBuilder builder = new StringBuilder(parts.get(0));
+    for (int i = 0; i < parameters.size(); i++) {
+      builder.append(parameters.get(i)).append(parts.get(i + 1));
+    }
+    return builder.toString();
+  }
+
+  private static List<String> splitByParameterSlots(String sql) {
+    List<String> parts = new ArrayList<>();
+    char quote = 0;
+    int start = 0;
+    for (int i = 0; i < sql.length(); i++) {
+      char c = sql.charAt(i);
+      if (quote != 0) {
+        if (c == '\\') {
+          i++;
+        } else if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '\'' || c == '"' || c == '`') {
+        quote = c;
+      } else if (c == '?') {
+        parts.add(sql.substring(start, i));
+        start = i + 1;
+      }
+    }
+    parts.add(sql.substring(start));
+    return parts;
+  }
+}
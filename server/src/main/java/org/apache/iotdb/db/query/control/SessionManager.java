@@ -69,6 +69,9 @@ public class SessionManager {
   private final Map<Long, Set<Long>> sessionIdToStatementId = new ConcurrentHashMap<>();
   // (statementId -> Set(queryId))
   private final Map<Long, Set<Long>> statementIdToQueryId = new ConcurrentHashMap<>();
+  // (statementId -> the statement prepared on it)
+  private final Map<Long, PreparedStatementInfo> statementIdToPreparedStatement =
+      new ConcurrentHashMap<>();
   // (queryId -> QueryDataSet)
   private final Map<Long, QueryDataSet> queryIdToDataSet = new ConcurrentHashMap<>();
 
@@ -212,6 +215,7 @@ public class SessionManager {
     sessionIdToUsername.put(sessionId, username);
     sessionIdToZoneId.put(sessionId, ZoneId.of(zoneId));
     sessionIdToClientVersion.put(sessionId, clientVersion);
+    sessionIdToSessionInfo.put(sessionId, new SessionInfo(username, ZoneId.of(zoneId)));
 
     return sessionId;
   }
@@ -223,10 +227,12 @@ public class SessionManager {
   public boolean releaseSessionResource(long sessionId, Consumer<Long> releaseQueryResource) {
     sessionIdToZoneId.remove(sessionId);
     sessionIdToClientVersion.remove(sessionId);
+    sessionIdToSessionInfo.remove(sessionId);
 
     Set<Long> statementIdSet = sessionIdToStatementId.remove(sessionId);
     if (statementIdSet != null) {
       for (Long statementId : statementIdSet) {
+        statementIdToPreparedStatement.remove(statementId);
         Set<Long> queryIdSet = statementIdToQueryId.remove(statementId);
         if (queryIdSet != null) {
           for (Long queryId : queryIdSet) {
@@ -262,6 +268,7 @@ public class SessionManager {
   }
 
   public void closeStatement(long sessionId, long statementId) {
+    statementIdToPreparedStatement.remove(statementId);
     Set<Long> queryIdSet = statementIdToQueryId.remove(statementId);
     if (queryIdSet != null) {
       for (Long queryId : queryIdSet) {
@@ -274,6 +281,21 @@ public class SessionManager {
     }
   }
 
+  public PreparedStatementInfo prepareStatement(long statementId, String sql) {
+    PreparedStatementInfo preparedStatement = new PreparedStatementInfo(sql);
+    statementIdToPreparedStatement.put(statementId, preparedStatement);
+    return preparedStatement;
+  }
+
+  /** Get the SQL prepared on the statement, which is prepared now if it has not been yet. */
+  public PreparedStatementInfo getOrPrepareStatement(long statementId, String sql) {
+    PreparedStatementInfo preparedStatement = statementIdToPreparedStatement.get(statementId);
+    if (preparedStatement == null || !preparedStatement.getSql().equals(sql)) {
+      preparedStatement = prepareStatement(statementId, sql);
+    }
+    return preparedStatement;
+  }
+
   public long requestQueryId(Long statementId, boolean isDataQuery) {
     long queryId = requestQueryId(isDataQuery);
     statementIdToQueryId
@@ -359,6 +381,8 @@ public class SessionManager {
 
   public void setTimezone(Long sessionId, String zone) {
     sessionIdToZoneId.put(sessionId, ZoneId.of(zone));
+    sessionIdToSessionInfo.computeIfPresent(
+        sessionId, (id, info) -> new SessionInfo(info.getUserName(), ZoneId.of(zone)));
   }
 
   public boolean hasDataset(Long queryId) {
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.reader.chunk;
+
+import org.apache.iotdb.db.engine.cache.ChunkCache.ChunkCacheKey;
+import org.apache.iotdb.db.engine.cache.DecodedPageCache.DecodedPageCacheKey;
+import org.apache.iotdb.tsfile.file.MetaMarker;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.reader.IChunkReader;
+import org.apache.iotdb.tsfile.read.reader.IPageReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * To read the pages of one chunk in a sealed TsFile through the decoded page cache. Unlike {@link
+ * org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader}, the satisfied pages are not decompressed
+ * when the reader is constructed, but only when they are not found in the cache.
+ */
+public class DecodedPageChunkReader implements IChunkReader {
+
+  private final List<IPageReader> pageReaderList = new LinkedList<>();
+
+  public DecodedPageChunkReader(
+      ChunkCacheKey chunkKey, Chunk chunk, Filter filter, boolean bypassCache) throws IOException {
+    ChunkHeader chunkHeader = chunk.getHeader();
+    ByteBuffer chunkDataBuffer = chunk.getData().duplicate();
+    List<TimeRange> deleteIntervalList = chunk.getDeleteIntervalList();
+    int chunkDataStart = chunkDataBuffer.position();
+    while (chunkDataBuffer.remaining() > 0) {
+      int offsetInChunk = chunkDataBuffer.position() - chunkDataStart;
+      PageHeader pageHeader;
+      if (((byte) (chunkHeader.getChunkType() & 0x3F)) == MetaMarker.ONLY_ONE_PAGE_CHUNK_HEADER) {
+        pageHeader = PageHeader.deserializeFrom(chunkDataBuffer, chunk.getChunkStatistic());
+      } else {
+        pageHeader = PageHeader.deserializeFrom(chunkDataBuffer, chunkHeader.getDataType());
+      }
+      int compressedPageBodyLength = pageHeader.getCompressedSize();
+      if (compressedPageBodyLength > chunkDataBuffer.remaining()) {
+        throw new IOException(
+            "do not has a complete page body. Expected:"
+                + compressedPageBodyLength
+                + ". Actual:"
+                + chunkDataBuffer.remaining());
+      }
+      if (pageSatisfied(pageHeader, filter, deleteIntervalList)) {
+        ByteBuffer compressedPageBody = chunkDataBuffer.slice();
+        compressedPageBody.limit(compressedPageBodyLength);
+        pageReaderList.add(
+            new DecodedPageReader(
+                new DecodedPageCacheKey(chunkKey, offsetInChunk),
+                pageHeader,
+                chunkHeader,
+                compressedPageBody,
+                filter,
+                deleteIntervalList,
+                bypassCache));
+      }
+      chunkDataBuffer.position(chunkDataBuffer.position() + compressedPageBodyLength);
+    }
+  }
+
+  private boolean pageSatisfied(
+      PageHeader pageHeader, Filter filter, List<TimeRange> deleteIntervalList) {
+    if (deleteIntervalList != null) {
+      for (TimeRange range : deleteIntervalList) {
+        if (range.contains(pageHeader.getStartTime(), pageHeader.getEndTime())) {
+          return false;
+        }
+        if (range.overlaps(new TimeRange(pageHeader.getStartTime(), pageHeader.getEndTime()))) {
+          pageHeader.setModified(true);
+        }
+      }
+    }
+    return filter == null || filter.satisfy(pageHeader.getStatistics());
+  }
+
+  @Override
+  public boolean hasNextSatisfiedPage() {
+    return !pageReaderList.isEmpty();
+  }
+
+  @Override
+  public BatchData nextPageData() throws IOException {
+    if (pageReaderList.isEmpty()) {
+      throw new IOException("No more page");
+    }
+    return pageReaderList.remove(0).getAllSatisfiedPageData();
+  }
+
+  @Override
+  public void close() {
+    // do nothing
+  }
+
+  @Override
+  public List<IPageReader> loadPageReaderList() {
+    return pageReaderList;
+  }
+}
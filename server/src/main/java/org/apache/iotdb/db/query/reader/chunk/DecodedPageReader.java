@@ -0,0 +1,420 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.reader.chunk;
+
+import org.apache.iotdb.db.engine.cache.DecodedPageCache;
+import org.apache.iotdb.db.engine.cache.DecodedPageCache.DecodedPageCacheKey;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
+import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.BatchDataFactory;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.TimeColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.TimeColumnBuilder;
+import org.apache.iotdb.tsfile.read.filter.GroupByFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.BinaryFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.basic.UnaryFilter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterType;
+import org.apache.iotdb.tsfile.read.filter.operator.AndFilter;
+import org.apache.iotdb.tsfile.read.filter.operator.NotFilter;
+import org.apache.iotdb.tsfile.read.reader.IPageReader;
+import org.apache.iotdb.tsfile.read.reader.page.PageReader;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * To read one page of a chunk in a sealed TsFile through {@link DecodedPageCache}. The page is only
+ * decompressed and decoded when it is not cached, and the filter and the deletions are applied on
+ * the cached points.
+ */
+public class DecodedPageReader implements IPageReader {
+
+  private final DecodedPageCacheKey key;
+  private final PageHeader pageHeader;
+  private final ChunkHeader chunkHeader;
+  // compressed page body, only used if the page is not cached
+  private final ByteBuffer compressedPageBody;
+  private final boolean bypassCache;
+
+  private Filter filter;
+
+  /** A list of deleted intervals. */
+  private List<TimeRange> deleteIntervalList;
+
+  private int deleteCursor = 0;
+
+  public DecodedPageReader(
+      DecodedPageCacheKey key,
+      PageHeader pageHeader,
+      ChunkHeader chunkHeader,
+      ByteBuffer compressedPageBody,
+      Filter filter,
+      List<TimeRange> deleteIntervalList,
+      boolean bypassCache) {
+    this.key = key;
+    this.pageHeader = pageHeader;
+    this.chunkHeader = chunkHeader;
+    this.compressedPageBody = compressedPageBody;
+    this.filter = filter;
+    this.deleteIntervalList = deleteIntervalList;
+    this.bypassCache = bypassCache;
+  }
+
+  private TsBlock getDecodedPage() throws IOException {
+    return DecodedPageCache.getInstance().get(key, this::decodePage, bypassCache);
+  }
+
+  /** decode all the points of the page, without the filter and the deletions */
+  private TsBlock decodePage() throws IOException {
+    byte[] uncompressedPageData = new byte[pageHeader.getUncompressedSize()];
+    ByteBuffer compressed = compressedPageBody.duplicate();
+    byte[] compressedBytes = new byte[compressed.remaining()];
+    compressed.get(compressedBytes);
+    try {
+      IUnCompressor.getUnCompressor(chunkHeader.getCompressionType())
+          .uncompress(compressedBytes, 0, compressedBytes.length, uncompressedPageData, 0);
+    } catch (Exception e) {
+      throw new IOException(
+          "Uncompress error! uncompress size: "
+              + pageHeader.getUncompressedSize()
+              + "compressed size: "
+              + pageHeader.getCompressedSize()
+              + "page header: "
+              + pageHeader
+              + e.getMessage());
+    }
+    Decoder valueDecoder =
+        Decoder.getDecoderByType(chunkHeader.getEncodingType(), chunkHeader.getDataType());
+    Decoder timeDecoder =
+        Decoder.getDecoderByType(
+            TSEncoding.valueOf(TSFileDescriptor.getInstance().getConfig().getTimeEncoder()),
+            TSDataType.INT64);
+    return new PageReader(
+            pageHeader,
+            ByteBuffer.wrap(uncompressedPageData),
+            chunkHeader.getDataType(),
+            valueDecoder,
+            timeDecoder,
+            null)
+        .getAllSatisfiedData();
+  }
+
+  @Override
+  public BatchData getAllSatisfiedPageData(boolean ascending) throws IOException {
+    TSDataType dataType = chunkHeader.getDataType();
+    BatchData batchData = BatchDataFactory.createBatchData(dataType, ascending, false);
+    if (filter != null && !filter.satisfy(getStatistics())) {
+      return batchData.flip();
+    }
+    TsBlock tsBlock = getDecodedPage();
+    deleteCursor = 0;
+    Filter pointFilter = getPointFilter();
+    boolean timeOnly = isTimeOnly(pointFilter);
+    TimeColumn timeColumn = tsBlock.getTimeColumn();
+    Column valueColumn = tsBlock.getColumn(0);
+    int positionCount = tsBlock.getPositionCount();
+    switch (dataType) {
+      case BOOLEAN:
+        for (int i = 0; i < positionCount; i++) {
+          long time = timeColumn.getLong(i);
+          boolean value = valueColumn.getBoolean(i);
+          if (satisfy(pointFilter, timeOnly, time, value)) {
+            batchData.putBoolean(time, value);
+          }
+        }
+        break;
+      case INT32:
+        for (int i = 0; i < positionCount; i++) {
+          long time = timeColumn.getLong(i);
+          int value = valueColumn.getInt(i);
+          if (satisfy(pointFilter, timeOnly, time, value)) {
+            batchData.putInt(time, value);
+          }
+        }
+        break;
+      case INT64:
+        for (int i = 0; i < positionCount; i++) {
+          long time = timeColumn.getLong(i);
+          long value = valueColumn.getLong(i);
+          if (satisfy(pointFilter, timeOnly, time, value)) {
+            batchData.putLong(time, value);
+          }
+        }
+        break;
+      case FLOAT:
+        for (int i = 0; i < positionCount; i++) {
+          long time = timeColumn.getLong(i);
+          float value = valueColumn.getFloat(i);
+          if (satisfy(pointFilter, timeOnly, time, value)) {
+            batchData.putFloat(time, value);
+          }
+        }
+        break;
+      case DOUBLE:
+        for (int i = 0; i < positionCount; i++) {
+          long time = timeColumn.getLong(i);
+          double value = valueColumn.getDouble(i);
+          if (satisfy(pointFilter, timeOnly, time, value)) {
+            batchData.putDouble(time, value);
+          }
+        }
+        break;
+      case TEXT:
+        for (int i = 0; i < positionCount; i++) {
+          long time = timeColumn.getLong(i);
+          Binary value = valueColumn.getBinary(i);
+          if (satisfy(pointFilter, timeOnly, time, value)) {
+            batchData.putBinary(time, value);
+          }
+        }
+        break;
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    }
+    return batchData.flip();
+  }
+
+  @Override
+  public TsBlock getAllSatisfiedData() throws IOException {
+    return getAllSatisfiedData(true);
+  }
+
+  /**
+   * The cached page is shared by the readers. It is returned as it is if all its points are
+   * satisfied and the order is ascending, so the caller must not modify it. Otherwise the satisfied
+   * points are copied to a new TsBlock in the given order, which saves the caller from reversing
+   * it.
+   */
+  public TsBlock getAllSatisfiedData(boolean ascending) throws IOException {
+    TSDataType dataType = chunkHeader.getDataType();
+    TsBlockBuilder builder = new TsBlockBuilder(Collections.singletonList(dataType));
+    if (filter != null && !filter.satisfy(getStatistics())) {
+      return builder.build();
+    }
+    TsBlock tsBlock = getDecodedPage();
+    deleteCursor = 0;
+    Filter pointFilter = getPointFilter();
+    if (ascending && pointFilter == null && !isAnyDeleted()) {
+      return tsBlock;
+    }
+    boolean timeOnly = isTimeOnly(pointFilter);
+    TimeColumn timeColumn = tsBlock.getTimeColumn();
+    Column valueColumn = tsBlock.getColumn(0);
+    TimeColumnBuilder timeBuilder = builder.getTimeColumnBuilder();
+    ColumnBuilder valueBuilder = builder.getColumnBuilder(0);
+    int positionCount = tsBlock.getPositionCount();
+    int first = ascending ? 0 : positionCount - 1;
+    int step = ascending ? 1 : -1;
+    if (!ascending) {
+      // the deletions are checked in the ascending order of time
+      deleteCursor = deleteIntervalList == null ? 0 : deleteIntervalList.size() - 1;
+    }
+    switch (dataType) {
+      case BOOLEAN:
+        for (int k = 0, i = first; k < positionCount; k++, i += step) {
+          long time = timeColumn.getLong(i);
+          boolean value = valueColumn.getBoolean(i);
+          if (satisfy(pointFilter, timeOnly, time, value, ascending)) {
+            timeBuilder.writeLong(time);
+            valueBuilder.writeBoolean(value);
+            builder.declarePosition();
+          }
+        }
+        break;
+      case INT32:
+        for (int k = 0, i = first; k < positionCount; k++, i += step) {
+          long time = timeColumn.getLong(i);
+          int value = valueColumn.getInt(i);
+          if (satisfy(pointFilter, timeOnly, time, value, ascending)) {
+            timeBuilder.writeLong(time);
+            valueBuilder.writeInt(value);
+            builder.declarePosition();
+          }
+        }
+        break;
+      case INT64:
+        for (int k = 0, i = first; k < positionCount; k++, i += step) {
+          long time = timeColumn.getLong(i);
+          long value = valueColumn.getLong(i);
+          if (satisfy(pointFilter, timeOnly, time, value, ascending)) {
+            timeBuilder.writeLong(time);
+            valueBuilder.writeLong(value);
+            builder.declarePosition();
+          }
+        }
+        break;
+      case FLOAT:
+        for (int k = 0, i = first; k < positionCount; k++, i += step) {
+          long time = timeColumn.getLong(i);
+          float value = valueColumn.getFloat(i);
+          if (satisfy(pointFilter, timeOnly, time, value, ascending)) {
+            timeBuilder.writeLong(time);
+            valueBuilder.writeFloat(value);
+            builder.declarePosition();
+          }
+        }
+        break;
+      case DOUBLE:
+        for (int k = 0, i = first; k < positionCount; k++, i += step) {
+          long time = timeColumn.getLong(i);
+          double value = valueColumn.getDouble(i);
+          if (satisfy(pointFilter, timeOnly, time, value, ascending)) {
+            timeBuilder.writeLong(time);
+            valueBuilder.writeDouble(value);
+            builder.declarePosition();
+          }
+        }
+        break;
+      case TEXT:
+        for (int k = 0, i = first; k < positionCount; k++, i += step) {
+          long time = timeColumn.getLong(i);
+          Binary value = valueColumn.getBinary(i);
+          if (satisfy(pointFilter, timeOnly, time, value, ascending)) {
+            timeBuilder.writeLong(time);
+            valueBuilder.writeBinary(value);
+            builder.declarePosition();
+          }
+        }
+        break;
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    }
+    return builder.build();
+  }
+
+  /**
+   * @return the filter to be checked on each point, or null if all the points of the page satisfy
+   *     the filter
+   */
+  private Filter getPointFilter() {
+    if (filter == null
+        || (isTimeOnly(filter)
+            && filter.containStartEndTime(
+                getStatistics().getStartTime(), getStatistics().getEndTime()))) {
+      return null;
+    }
+    return filter;
+  }
+
+  /** @return true if the filter only depends on the time, so the value needs not to be boxed */
+  private static boolean isTimeOnly(Filter filter) {
+    if (filter instanceof UnaryFilter) {
+      return ((UnaryFilter<?>) filter).getFilterType() == FilterType.TIME_FILTER;
+    } else if (filter instanceof GroupByFilter) {
+      return true;
+    } else if (filter instanceof BinaryFilter) {
+      return isTimeOnly(((BinaryFilter) filter).getLeft())
+          && isTimeOnly(((BinaryFilter) filter).getRight());
+    } else if (filter instanceof NotFilter) {
+      return isTimeOnly(((NotFilter) filter).getFilter());
+    }
+    return false;
+  }
+
+  private boolean satisfy(Filter pointFilter, boolean timeOnly, long time, Object value) {
+    return satisfy(pointFilter, timeOnly, time, value, true);
+  }
+
+  private boolean satisfy(
+      Filter pointFilter, boolean timeOnly, long time, Object value, boolean ascending) {
+    if (ascending ? isDeleted(time) : isDeletedDescending(time)) {
+      return false;
+    }
+    return pointFilter == null || pointFilter.satisfy(time, timeOnly ? null : value);
+  }
+
+  @Override
+  public Statistics getStatistics() {
+    return pageHeader.getStatistics();
+  }
+
+  @Override
+  public void setFilter(Filter filter) {
+    if (this.filter == null) {
+      this.filter = filter;
+    } else {
+      this.filter = new AndFilter(this.filter, filter);
+    }
+  }
+
+  @Override
+  public boolean isModified() {
+    return pageHeader.isModified();
+  }
+
+  @Override
+  public void initTsBlockBuilder(List<TSDataType> dataTypes) {}
+
+  /** @return true if any of the deletions overlaps the page */
+  private boolean isAnyDeleted() {
+    if (deleteIntervalList == null) {
+      return false;
+    }
+    TimeRange pageRange =
+        new TimeRange(getStatistics().getStartTime(), getStatistics().getEndTime());
+    for (TimeRange range : deleteIntervalList) {
+      if (range.overlaps(pageRange)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isDeletedDescending(long timestamp) {
+    while (deleteIntervalList != null && deleteCursor >= 0) {
+      if (deleteIntervalList.get(deleteCursor).contains(timestamp)) {
+        return true;
+      } else if (deleteIntervalList.get(deleteCursor).getMin() > timestamp) {
+        deleteCursor--;
+      } else {
+        return false;
+      }
+    }
+    return false;
+  }
+
+  private boolean isDeleted(long timestamp) {
+    while (deleteIntervalList != null && deleteCursor < deleteIntervalList.size()) {
+      if (deleteIntervalList.get(deleteCursor).contains(timestamp)) {
+        return true;
+      } else if (deleteIntervalList.get(deleteCursor).getMax() < timestamp) {
+        deleteCursor++;
+      } else {
+        return false;
+      }
+    }
+    return false;
+  }
+}
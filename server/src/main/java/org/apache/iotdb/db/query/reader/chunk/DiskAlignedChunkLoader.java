@@ -19,6 +19,8 @@
 package org.apache.iotdb.db.query.reader.chunk;
 
 import org.apache.iotdb.db.engine.cache.ChunkCache;
+import org.apache.iotdb.db.engine.cache.ChunkCache.ChunkCacheKey;
+import org.apache.iotdb.db.engine.storagegroup.TsFileID;
 import org.apache.iotdb.tsfile.file.metadata.AlignedChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.IChunkMetadata;
@@ -34,9 +36,12 @@ import java.util.List;
 
 public class DiskAlignedChunkLoader implements IChunkLoader {
 
+  // id of the TsFile of the chunks, which builds their keys in the ChunkCache
+  private final TsFileID tsFileID;
   private final boolean debug;
 
-  public DiskAlignedChunkLoader(boolean debug) {
+  public DiskAlignedChunkLoader(TsFileID tsFileID, boolean debug) {
+    this.tsFileID = tsFileID;
     this.debug = debug;
   }
 
@@ -52,16 +57,22 @@ public class DiskAlignedChunkLoader implements IChunkLoader {
   public IChunkReader getChunkReader(IChunkMetadata chunkMetaData, Filter timeFilter)
       throws IOException {
     AlignedChunkMetadata alignedChunkMetadata = (AlignedChunkMetadata) chunkMetaData;
-    Chunk timeChunk =
-        ChunkCache.getInstance()
-            .get((ChunkMetadata) alignedChunkMetadata.getTimeChunkMetadata(), debug);
+    Chunk timeChunk = getChunk((ChunkMetadata) alignedChunkMetadata.getTimeChunkMetadata());
     List<Chunk> valueChunkList = new ArrayList<>();
     for (IChunkMetadata valueChunkMetadata : alignedChunkMetadata.getValueChunkMetadataList()) {
       valueChunkList.add(
           valueChunkMetadata == null
               ? null
-              : ChunkCache.getInstance().get((ChunkMetadata) valueChunkMetadata, debug));
+              : getChunk((ChunkMetadata) valueChunkMetadata));
     }
     return new AlignedChunkReader(timeChunk, valueChunkList, timeFilter);
   }
+
+  private Chunk getChunk(ChunkMetadata chunkMetadata) throws IOException {
+    return ChunkCache.getInstance()
+        .get(
+            new ChunkCacheKey(tsFileID, chunkMetadata.getOffsetOfChunkHeader()),
+            chunkMetadata,
+            debug);
+  }
 }
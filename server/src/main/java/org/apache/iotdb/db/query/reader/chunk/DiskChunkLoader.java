@@ -20,6 +20,9 @@
 package org.apache.iotdb.db.query.reader.chunk;
 
 import org.apache.iotdb.db.engine.cache.ChunkCache;
+import org.apache.iotdb.db.engine.cache.ChunkCache.ChunkCacheKey;
+import org.apache.iotdb.db.engine.cache.DecodedPageCache;
+import org.apache.iotdb.db.engine.storagegroup.TsFileID;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.IChunkMetadata;
 import org.apache.iotdb.tsfile.read.common.Chunk;
@@ -33,15 +36,26 @@ import java.io.IOException;
 /** To read one chunk from disk, and only used in iotdb server module */
 public class DiskChunkLoader implements IChunkLoader {
 
+  // id of the TsFile of the chunks, which builds their keys in the ChunkCache
+  private final TsFileID tsFileID;
   private final boolean debug;
 
-  public DiskChunkLoader(boolean debug) {
+  public DiskChunkLoader(TsFileID tsFileID, boolean debug) {
+    this.tsFileID = tsFileID;
     this.debug = debug;
   }
 
   @Override
   public Chunk loadChunk(ChunkMetadata chunkMetaData) throws IOException {
-    return ChunkCache.getInstance().get(chunkMetaData, debug);
+    return getChunk(chunkMetaData);
+  }
+
+  private Chunk getChunk(ChunkMetadata chunkMetadata) throws IOException {
+    return ChunkCache.getInstance()
+        .get(
+            new ChunkCacheKey(tsFileID, chunkMetadata.getOffsetOfChunkHeader()),
+            chunkMetadata,
+            debug);
   }
 
   @Override
@@ -52,8 +66,28 @@ public class DiskChunkLoader implements IChunkLoader {
   @Override
   public IChunkReader getChunkReader(IChunkMetadata chunkMetaData, Filter timeFilter)
       throws IOException {
-    Chunk chunk = ChunkCache.getInstance().get((ChunkMetadata) chunkMetaData, debug);
+    Chunk chunk = getChunk((ChunkMetadata) chunkMetaData);
     chunk.setFromOldFile(chunkMetaData.isFromOldTsFile());
     return new ChunkReader(chunk, timeFilter);
   }
+
+  /**
+   * Get the reader of a chunk, whose pages are read through the decoded page cache if it is enabled
+   * and the chunk is in a sealed TsFile.
+   *
+   * @param bypassDecodedPageCache true if the decoded pages should not be put into the cache
+   */
+  public IChunkReader getChunkReader(
+      IChunkMetadata chunkMetaData, Filter timeFilter, boolean bypassDecodedPageCache)
+      throws IOException {
+    ChunkMetadata chunkMetadata = (ChunkMetadata) chunkMetaData;
+    if (!DecodedPageCache.getInstance().isEnabled()
+        || !chunkMetadata.isClosed()
+        || chunkMetadata.isFromOldTsFile()) {
+      return getChunkReader(chunkMetaData, timeFilter);
+    }
+    ChunkCacheKey chunkKey = new ChunkCacheKey(tsFileID, chunkMetadata.getOffsetOfChunkHeader());
+    Chunk chunk = ChunkCache.getInstance().get(chunkKey, chunkMetadata, debug);
+    return new DecodedPageChunkReader(chunkKey, chunk, timeFilter, bypassDecodedPageCache);
+  }
 }
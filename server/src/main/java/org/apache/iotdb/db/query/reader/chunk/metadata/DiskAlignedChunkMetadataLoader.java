@@ -95,7 +95,8 @@ public class DiskAlignedChunkMetadataLoader implements IChunkMetadataLoader {
           if (chunkMetadata.needSetChunkLoader()) {
             chunkMetadata.setFilePath(resource.getTsFilePath());
             chunkMetadata.setClosed(resource.isClosed());
-            chunkMetadata.setChunkLoader(new DiskAlignedChunkLoader(context.isDebug()));
+            chunkMetadata.setChunkLoader(
+                new DiskAlignedChunkLoader(resource.getTsFileID(), context.isDebug()));
           }
         });
 
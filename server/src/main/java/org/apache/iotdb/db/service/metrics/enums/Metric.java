@@ -32,7 +32,11 @@ public enum Metric {
   QUANTITY,
   DATA_WRITTEN,
   DATA_READ,
+  DATA_EXCHANGE,
+  DATA_SPILL,
   COMPACTION_TASK_COUNT,
+  COMPACTION_THROTTLE,
+  COMPACTION_THROTTLE_DECISION,
   CLUSTER_NODE_STATUS,
   CLUSTER_NODE_LEADER_COUNT,
   CLUSTER_ELECT,
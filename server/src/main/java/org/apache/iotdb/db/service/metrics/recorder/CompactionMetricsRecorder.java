@@ -22,8 +22,10 @@ import org.apache.iotdb.db.engine.compaction.constant.CompactionTaskStatus;
 import org.apache.iotdb.db.engine.compaction.constant.CompactionType;
 import org.apache.iotdb.db.engine.compaction.constant.ProcessChunkType;
 import org.apache.iotdb.db.engine.compaction.cross.CrossSpaceCompactionTask;
+import org.apache.iotdb.db.engine.compaction.downsampling.DownsamplingCompactionTask;
 import org.apache.iotdb.db.engine.compaction.inner.InnerSpaceCompactionTask;
 import org.apache.iotdb.db.engine.compaction.task.AbstractCompactionTask;
+import org.apache.iotdb.db.engine.compaction.throttle.CompactionThrottleController;
 import org.apache.iotdb.db.service.metrics.MetricsService;
 import org.apache.iotdb.db.service.metrics.enums.Metric;
 import org.apache.iotdb.db.service.metrics.enums.Tag;
@@ -97,6 +99,8 @@ public class CompactionMetricsRecorder {
       taskType = "inner";
     } else if (task instanceof CrossSpaceCompactionTask) {
       taskType = "cross";
+    } else if (task instanceof DownsamplingCompactionTask) {
+      taskType = "downsampling";
     }
 
     switch (status) {
@@ -172,4 +176,43 @@ public class CompactionMetricsRecorder {
         break;
     }
   }
+
+  /**
+   * Record a decision of the compaction throttle and the signals it is based on. The write
+   * throughput is in KB/s and 0 means unlimited, the disk utilization is in percent and -1 means
+   * unavailable.
+   */
+  public static void recordThrottleInfo(
+      CompactionThrottleController.Decision decision,
+      double writeThroughputMbPerSec,
+      int maxRunningTaskNum,
+      long queryP99,
+      int flushBacklog,
+      double diskUtilization) {
+    if (!ENABLE_METRIC) {
+      return;
+    }
+    MetricsService.getInstance()
+        .getMetricManager()
+        .count(
+            1,
+            Metric.COMPACTION_THROTTLE_DECISION.toString(),
+            MetricLevel.IMPORTANT,
+            Tag.TYPE.toString(),
+            decision.toString().toLowerCase());
+    setThrottleGauge("write_throughput_kb_per_sec", (long) (writeThroughputMbPerSec * 1024));
+    setThrottleGauge("max_running_task", maxRunningTaskNum);
+    setThrottleGauge("query_p99_ms", queryP99);
+    setThrottleGauge("flush_backlog", flushBacklog);
+    setThrottleGauge(
+        "disk_utilization_percent", diskUtilization < 0 ? -1 : (long) (diskUtilization * 100));
+  }
+
+  private static void setThrottleGauge(String name, long value) {
+    MetricsService.getInstance()
+        .getMetricManager()
+        .getOrCreateGauge(
+            Metric.COMPACTION_THROTTLE.toString(), MetricLevel.IMPORTANT, Tag.NAME.toString(), name)
+        .set(value);
+  }
 }
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.service.metrics.recorder;
+
+import org.apache.iotdb.db.service.metrics.MetricsService;
+import org.apache.iotdb.db.service.metrics.enums.Metric;
+import org.apache.iotdb.db.service.metrics.enums.Tag;
+import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
+import org.apache.iotdb.metrics.utils.MetricLevel;
+
+import java.util.concurrent.TimeUnit;
+
+/** Records the throughput and the backpressure of the data block exchanges between data nodes. */
+public class DataExchangeMetricsRecorder {
+
+  private static final boolean ENABLE_METRIC =
+      MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric();
+
+  private static final String SINK = "sink";
+  private static final String SOURCE = "source";
+
+  private DataExchangeMetricsRecorder() {}
+
+  /** Record the bytes of the data blocks sent by a sink handle, before and after compression. */
+  public static void recordSentBytes(long serializedBytes, long sentBytes) {
+    if (!ENABLE_METRIC) {
+      return;
+    }
+    MetricsService.getInstance()
+        .getMetricManager()
+        .count(
+            serializedBytes,
+            Metric.DATA_EXCHANGE.toString(),
+            MetricLevel.IMPORTANT,
+            Tag.NAME.toString(),
+            SINK,
+            Tag.TYPE.toString(),
+            "serialized");
+    MetricsService.getInstance()
+        .getMetricManager()
+        .count(
+            sentBytes,
+            Metric.DATA_EXCHANGE.toString(),
+            MetricLevel.IMPORTANT,
+            Tag.NAME.toString(),
+            SINK,
+            Tag.TYPE.toString(),
+            "sent");
+  }
+
+  /** Record the bytes of the data blocks received by a source handle. */
+  public static void recordReceivedBytes(long receivedBytes) {
+    if (!ENABLE_METRIC) {
+      return;
+    }
+    MetricsService.getInstance()
+        .getMetricManager()
+        .count(
+            receivedBytes,
+            Metric.DATA_EXCHANGE.toString(),
+            MetricLevel.IMPORTANT,
+            Tag.NAME.toString(),
+            SOURCE,
+            Tag.TYPE.toString(),
+            "received");
+  }
+
+  /** Record the time a sink handle is blocked because the buffered data blocks take up memory. */
+  public static void recordSinkBlockedTime(long timeInMs) {
+    recordBlockedTime(SINK, timeInMs);
+  }
+
+  /** Record the time a source handle waits for the memory to fetch the data blocks. */
+  public static void recordSourceBlockedTime(long timeInMs) {
+    recordBlockedTime(SOURCE, timeInMs);
+  }
+
+  private static void recordBlockedTime(String handle, long timeInMs) {
+    if (!ENABLE_METRIC) {
+      return;
+    }
+    MetricsService.getInstance()
+        .getMetricManager()
+        .timer(
+            timeInMs,
+            TimeUnit.MILLISECONDS,
+            Metric.COST_TASK.toString(),
+            MetricLevel.IMPORTANT,
+            Tag.NAME.toString(),
+            "data_exchange_blocked",
+            Tag.TYPE.toString(),
+            handle);
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.service.metrics.recorder;
+
+import org.apache.iotdb.db.service.metrics.MetricsService;
+import org.apache.iotdb.db.service.metrics.enums.Metric;
+import org.apache.iotdb.db.service.metrics.enums.Tag;
+import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
+import org.apache.iotdb.metrics.utils.MetricLevel;
+
+import java.util.concurrent.TimeUnit;
+
+/** Records the volume and the time of the TsBlocks spilled to disk by the query operators. */
+public class SpillMetricsRecorder {
+
+  private static final boolean ENABLE_METRIC =
+      MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric();
+
+  private static final String WRITE = "write";
+  private static final String READ = "read";
+
+  private SpillMetricsRecorder() {}
+
+  /** Record a TsBlock written to a spill file. */
+  public static void recordSpill(long bytes, long timeInNanos) {
+    record(WRITE, bytes, timeInNanos);
+  }
+
+  /** Record a TsBlock read back from a spill file. */
+  public static void recordRead(long bytes, long timeInNanos) {
+    record(READ, bytes, timeInNanos);
+  }
+
+  private static void record(String type, long bytes, long timeInNanos) {
+    if (!ENABLE_METRIC) {
+      return;
+    }
+    MetricsService.getInstance()
+        .getMetricManager()
+        .count(
+            bytes, Metric.DATA_SPILL.toString(), MetricLevel.IMPORTANT, Tag.TYPE.toString(), type);
+    MetricsService.getInstance()
+        .getMetricManager()
+        .timer(
+            timeInNanos,
+            TimeUnit.NANOSECONDS,
+            Metric.COST_TASK.toString(),
+            MetricLevel.IMPORTANT,
+            Tag.NAME.toString(),
+            "spill",
+            Tag.TYPE.toString(),
+            type);
+  }
+}
@@ -27,6 +27,7 @@ import org.apache.iotdb.db.auth.AuthorizerManager;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.OperationType;
+import org.apache.iotdb.db.engine.compaction.throttle.QueryLatencyRecorder;
 import org.apache.iotdb.db.mpp.common.header.DatasetHeader;
 import org.apache.iotdb.db.mpp.plan.Coordinator;
 import org.apache.iotdb.db.mpp.plan.analyze.ClusterPartitionFetcher;
@@ -37,6 +38,8 @@ import org.apache.iotdb.db.mpp.plan.analyze.StandalonePartitionFetcher;
 import org.apache.iotdb.db.mpp.plan.analyze.StandaloneSchemaFetcher;
 import org.apache.iotdb.db.mpp.plan.execution.ExecutionResult;
 import org.apache.iotdb.db.mpp.plan.execution.IQueryExecution;
+import org.apache.iotdb.db.mpp.plan.execution.cache.AnalyzedPlanCache;
+import org.apache.iotdb.db.mpp.plan.execution.cache.AnalyzedPlanCache.AnalyzedPlan;
 import org.apache.iotdb.db.mpp.plan.parser.StatementGenerator;
 import org.apache.iotdb.db.mpp.plan.statement.Statement;
 import org.apache.iotdb.db.mpp.plan.statement.crud.DeleteDataStatement;
@@ -50,6 +53,7 @@ import org.apache.iotdb.db.mpp.plan.statement.metadata.CreateMultiTimeSeriesStat
 import org.apache.iotdb.db.mpp.plan.statement.metadata.CreateTimeSeriesStatement;
 import org.apache.iotdb.db.mpp.plan.statement.metadata.DeleteStorageGroupStatement;
 import org.apache.iotdb.db.mpp.plan.statement.metadata.SetStorageGroupStatement;
+import org.apache.iotdb.db.query.control.PreparedStatementInfo;
 import org.apache.iotdb.db.query.control.SessionManager;
 import org.apache.iotdb.db.query.control.SessionTimeoutManager;
 import org.apache.iotdb.db.service.basic.BasicOpenSessionResp;
@@ -91,6 +95,8 @@ import org.apache.iotdb.service.rpc.thrift.TSInsertTabletsReq;
 import org.apache.iotdb.service.rpc.thrift.TSLastDataQueryReq;
 import org.apache.iotdb.service.rpc.thrift.TSOpenSessionReq;
 import org.apache.iotdb.service.rpc.thrift.TSOpenSessionResp;
+import org.apache.iotdb.service.rpc.thrift.TSPrepareStatementReq;
+import org.apache.iotdb.service.rpc.thrift.TSPrepareStatementResp;
 import org.apache.iotdb.service.rpc.thrift.TSPruneSchemaTemplateReq;
 import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
 import org.apache.iotdb.service.rpc.thrift.TSQueryTemplateReq;
@@ -131,6 +137,8 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
 
   private static final SessionManager SESSION_MANAGER = SessionManager.getInstance();
 
+  private static final AnalyzedPlanCache PLAN_CACHE = AnalyzedPlanCache.getInstance();
+
   private final IPartitionFetcher PARTITION_FETCHER;
 
   private final ISchemaFetcher SCHEMA_FETCHER;
@@ -531,10 +539,38 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
     }
 
     long startTime = System.currentTimeMillis();
+    boolean isQuery = false;
     try {
-      Statement s =
-          StatementGenerator.createStatement(
-              statement, SESSION_MANAGER.getZoneId(req.getSessionId()));
+      ZoneId zoneId = SESSION_MANAGER.getZoneId(req.getSessionId());
+      String planCacheKey = null;
+      List<String> planCacheParameters = Collections.emptyList();
+      if (req.isSetParameters()) {
+        PreparedStatementInfo preparedStatement =
+            SESSION_MANAGER.getOrPrepareStatement(req.statementId, statement);
+        statement = preparedStatement.bind(req.getParameters());
+        if (PLAN_CACHE.isEnabled()) {
+          planCacheKey =
+              AnalyzedPlanCache.getCacheKey(
+                  preparedStatement.getNormalizedSql(), req.getParameters(), zoneId);
+          planCacheParameters = req.getParameters();
+        }
+      } else if (PLAN_CACHE.isEnabled()) {
+        planCacheKey = AnalyzedPlanCache.getCacheKey(statement, zoneId);
+      }
+      AnalyzedPlan cachedPlan = planCacheKey == null ? null : PLAN_CACHE.get(planCacheKey);
+
+      Statement s;
+      if (cachedPlan != null && cachedPlan.isBoundTo(planCacheParameters)) {
+        s = cachedPlan.getStatement();
+      } else {
+        // the cached plan of a prepared statement bound to other values is re-bound to these
+        s = StatementGenerator.createStatement(statement, zoneId);
+        if (!AnalyzedPlanCache.isCacheable(s)) {
+          planCacheKey = null;
+          cachedPlan = null;
+        }
+      }
+      isQuery = s.isQuery();
 
       // permission check
       TSStatus status = AuthorityChecker.checkAuthority(s, req.sessionId);
@@ -554,7 +590,10 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
               SESSION_MANAGER.getSessionInfo(req.sessionId),
               statement,
               PARTITION_FETCHER,
-              SCHEMA_FETCHER);
+              SCHEMA_FETCHER,
+              planCacheKey,
+              planCacheParameters,
+              cachedPlan);
 
       if (result.status.code != TSStatusCode.SUCCESS_STATUS.getStatusCode()
           && result.status.code != TSStatusCode.NEED_REDIRECTION.getStatusCode()) {
@@ -583,6 +622,9 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
     } finally {
       addOperationLatency(Operation.EXECUTE_QUERY, startTime);
       long costTime = System.currentTimeMillis() - startTime;
+      if (isQuery) {
+        QueryLatencyRecorder.getInstance().record(costTime);
+      }
       if (costTime >= CONFIG.getSlowQueryThreshold()) {
         SLOW_SQL_LOGGER.info("Cost: {} ms, sql is {}", costTime, statement);
       }
@@ -1099,6 +1141,7 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
     } finally {
       addOperationLatency(Operation.EXECUTE_QUERY, startTime);
       long costTime = System.currentTimeMillis() - startTime;
+      QueryLatencyRecorder.getInstance().record(costTime);
       if (costTime >= CONFIG.getSlowQueryThreshold()) {
         SLOW_SQL_LOGGER.info("Cost: {} ms, sql is {}", costTime, req);
       }
@@ -1160,6 +1203,7 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
     } finally {
       addOperationLatency(Operation.EXECUTE_QUERY, startTime);
       long costTime = System.currentTimeMillis() - startTime;
+      QueryLatencyRecorder.getInstance().record(costTime);
       if (costTime >= CONFIG.getSlowQueryThreshold()) {
         SLOW_SQL_LOGGER.info("Cost: {} ms, sql is {}", costTime, req);
       }
@@ -1171,6 +1215,19 @@ public class DataNodeTSIServiceImpl implements TSIEventHandler {
     return SESSION_MANAGER.requestStatementId(sessionId);
   }
 
+  @Override
+  public TSPrepareStatementResp prepareStatement(TSPrepareStatementReq req) {
+    if (!SESSION_MANAGER.checkLogin(req.getSessionId())) {
+      return new TSPrepareStatementResp(getNotLoggedInStatus());
+    }
+    PreparedStatementInfo preparedStatement =
+        SESSION_MANAGER.prepareStatement(req.getStatementId(), req.getStatement());
+    TSPrepareStatementResp resp =
+        new TSPrepareStatementResp(RpcUtils.getStatus(TSStatusCode.SUCCESS_STATUS));
+    resp.setParameterCount(preparedStatement.getParameterCount());
+    return resp;
+  }
+
   @Override
   public TSStatus createSchemaTemplate(TSCreateSchemaTemplateReq req) {
     // todo: check measurement using isLegalSingleMeasurements()
@@ -81,6 +81,8 @@ import org.apache.iotdb.mpp.rpc.thrift.TMigrateRegionReq;
 import org.apache.iotdb.mpp.rpc.thrift.TMigrateRegionResp;
 import org.apache.iotdb.mpp.rpc.thrift.TSchemaFetchRequest;
 import org.apache.iotdb.mpp.rpc.thrift.TSchemaFetchResponse;
+import org.apache.iotdb.mpp.rpc.thrift.TSendBatchFragmentInstanceReq;
+import org.apache.iotdb.mpp.rpc.thrift.TSendBatchFragmentInstanceResp;
 import org.apache.iotdb.mpp.rpc.thrift.TSendFragmentInstanceReq;
 import org.apache.iotdb.mpp.rpc.thrift.TSendFragmentInstanceResp;
 import org.apache.iotdb.mpp.rpc.thrift.TSendPlanNodeReq;
@@ -135,6 +137,16 @@ public class InternalServiceImpl implements InternalService.Iface {
     return new TSendFragmentInstanceResp(!info.getState().isFailed());
   }
 
+  @Override
+  public TSendBatchFragmentInstanceResp sendBatchFragmentInstance(
+      TSendBatchFragmentInstanceReq req) {
+    List<TSendFragmentInstanceResp> responses = new ArrayList<>(req.getRequestsSize());
+    for (TSendFragmentInstanceReq request : req.getRequests()) {
+      responses.add(sendFragmentInstance(request));
+    }
+    return new TSendBatchFragmentInstanceResp(responses);
+  }
+
   @Override
   public TSendPlanNodeResp sendPlanNode(TSendPlanNodeReq req) {
     LOGGER.info("receive PlanNode to group[{}]", req.getConsensusGroupId());
@@ -20,12 +20,14 @@ package org.apache.iotdb.db.utils;
 
 import org.apache.iotdb.commons.path.PartialPath;
 import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache;
+import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache.SeriesName;
 import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache.TimeSeriesMetadataCacheKey;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResourceStatus;
 import org.apache.iotdb.db.metadata.path.AlignedPath;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.reader.chunk.DiskChunkLoader;
 import org.apache.iotdb.db.query.reader.chunk.metadata.DiskAlignedChunkMetadataLoader;
 import org.apache.iotdb.db.query.reader.chunk.metadata.DiskChunkMetadataLoader;
 import org.apache.iotdb.db.query.reader.chunk.metadata.MemAlignedChunkMetadataLoader;
@@ -46,9 +48,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 public class FileLoaderUtils {
 
+  // the measurement of the time column of aligned series in the keys of TimeSeriesMetadataCache
+  private static final SeriesName TIME_COLUMN = SeriesName.of("");
+
   private FileLoaderUtils() {}
 
   public static void loadOrGenerateResource(TsFileResource tsFileResource) throws IOException {
@@ -87,10 +93,37 @@ public class FileLoaderUtils {
    * @param allSensors measurements queried at the same time of this device
    * @param filter any filter, only used to check time range
    */
+  public static TimeseriesMetadata loadTimeSeriesMetadata(
+      TsFileResource resource,
+      PartialPath seriesPath,
+      QueryContext context,
+      Filter filter,
+      Set<String> allSensors)
+      throws IOException {
+    return loadTimeSeriesMetadata(
+        resource,
+        seriesPath,
+        SeriesName.of(seriesPath.getDevice()),
+        SeriesName.of(seriesPath.getMeasurement()),
+        context,
+        filter,
+        allSensors);
+  }
+
+  /**
+   * @param resource TsFile
+   * @param seriesPath Timeseries path
+   * @param device the device of seriesPath, resolved once by the reader of the series
+   * @param measurement the measurement of seriesPath, resolved once by the reader of the series
+   * @param allSensors measurements queried at the same time of this device
+   * @param filter any filter, only used to check time range
+   */
   @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
   public static TimeseriesMetadata loadTimeSeriesMetadata(
       TsFileResource resource,
       PartialPath seriesPath,
+      SeriesName device,
+      SeriesName measurement,
       QueryContext context,
       Filter filter,
       Set<String> allSensors)
@@ -105,10 +138,8 @@ public class FileLoaderUtils {
       timeSeriesMetadata =
           TimeSeriesMetadataCache.getInstance()
               .get(
-                  new TimeSeriesMetadataCache.TimeSeriesMetadataCacheKey(
-                      resource.getTsFilePath(),
-                      seriesPath.getDevice(),
-                      seriesPath.getMeasurement()),
+                  resource.getTsFilePath(),
+                  new TimeSeriesMetadataCacheKey(resource, device, measurement),
                   allSensors,
                   resource.getTimeIndexType() != 1,
                   context.isDebug());
@@ -152,6 +183,33 @@ public class FileLoaderUtils {
   public static AlignedTimeSeriesMetadata loadTimeSeriesMetadata(
       TsFileResource resource, AlignedPath vectorPath, QueryContext context, Filter filter)
       throws IOException {
+    return loadTimeSeriesMetadata(
+        resource,
+        vectorPath,
+        SeriesName.of(vectorPath.getDevice()),
+        vectorPath.getMeasurementList().stream().map(SeriesName::of).collect(Collectors.toList()),
+        context,
+        filter);
+  }
+
+  /**
+   * Load VectorTimeSeriesMetadata for Vector
+   *
+   * @param resource corresponding TsFileResource
+   * @param vectorPath instance of VectorPartialPath, vector's full path, e.g. (root.sg1.d1.vector,
+   *     [root.sg1.d1.vector.s1, root.sg1.d1.vector.s2])
+   * @param device the device of vectorPath, resolved once by the reader of the series
+   * @param measurements the measurements of vectorPath in the same order, resolved once by the
+   *     reader of the series
+   */
+  public static AlignedTimeSeriesMetadata loadTimeSeriesMetadata(
+      TsFileResource resource,
+      AlignedPath vectorPath,
+      SeriesName device,
+      List<SeriesName> measurements,
+      QueryContext context,
+      Filter filter)
+      throws IOException {
     AlignedTimeSeriesMetadata alignedTimeSeriesMetadata = null;
     // If the tsfile is closed, we need to load from tsfile
     if (resource.isClosed()) {
@@ -166,14 +224,13 @@ public class FileLoaderUtils {
       Set<String> allSensors = new HashSet<>(valueMeasurementList);
       allSensors.add("");
       boolean isDebug = context.isDebug();
-      String filePath = resource.getTsFilePath();
-      String deviceId = vectorPath.getDevice();
 
       // when resource.getTimeIndexType() == 1, TsFileResource.timeIndexType is deviceTimeIndex
       // we should not ignore the non-exist of device in TsFileMetadata
       TimeseriesMetadata timeColumn =
           cache.get(
-              new TimeSeriesMetadataCacheKey(filePath, deviceId, ""),
+              resource.getTsFilePath(),
+              new TimeSeriesMetadataCacheKey(resource, device, TIME_COLUMN),
               allSensors,
               resource.getTimeIndexType() != 1,
               isDebug);
@@ -182,10 +239,11 @@ public class FileLoaderUtils {
             new ArrayList<>(valueMeasurementList.size());
         // if all the queried aligned sensors does not exist, we will return null
         boolean exist = false;
-        for (String valueMeasurement : valueMeasurementList) {
+        for (SeriesName valueMeasurement : measurements) {
           TimeseriesMetadata valueColumn =
               cache.get(
-                  new TimeSeriesMetadataCacheKey(filePath, deviceId, valueMeasurement),
+                  resource.getTsFilePath(),
+                  new TimeSeriesMetadataCacheKey(resource, device, valueMeasurement),
                   allSensors,
                   resource.getTimeIndexType() != 1,
                   isDebug);
@@ -263,4 +321,27 @@ public class FileLoaderUtils {
     IChunkReader chunkReader = chunkLoader.getChunkReader(chunkMetaData, timeFilter);
     return chunkReader.loadPageReaderList();
   }
+
+  /**
+   * load all page readers in one chunk that satisfying the timeFilter, the pages of sealed TsFiles
+   * are read through the decoded page cache if it is enabled.
+   *
+   * @param chunkMetaData the corresponding chunk metadata
+   * @param timeFilter it should be a TimeFilter instead of a ValueFilter
+   * @param bypassDecodedPageCache true if the decoded pages should not be put into the cache
+   */
+  public static List<IPageReader> loadPageReaderList(
+      IChunkMetadata chunkMetaData, Filter timeFilter, boolean bypassDecodedPageCache)
+      throws IOException {
+    if (chunkMetaData == null) {
+      throw new IOException("Can't init null chunkMeta");
+    }
+    IChunkLoader chunkLoader = chunkMetaData.getChunkLoader();
+    if (chunkLoader instanceof DiskChunkLoader) {
+      return ((DiskChunkLoader) chunkLoader)
+          .getChunkReader(chunkMetaData, timeFilter, bypassDecodedPageCache)
+          .loadPageReaderList();
+    }
+    return chunkLoader.getChunkReader(chunkMetaData, timeFilter).loadPageReaderList();
+  }
 }
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.db.engine.cache.ChunkCache.ChunkCacheKey;
+import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache.SeriesName;
+import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache.TimeSeriesMetadataCacheKey;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.utils.FilePathUtils;
+import org.apache.iotdb.tsfile.utils.Pair;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+/**
+ * Compare the heap used by the keys of TimeSeriesMetadataCache and ChunkCache, and the cost of
+ * looking them up in a hash map, between the compact keys and the previous keys: a key of three
+ * strings and two versions for TimeSeriesMetadataCache, and the whole ChunkMetadata for ChunkCache.
+ *
+ * <p>Usage: CacheKeyMemoryBenchmark [fileNum] [deviceNum] [measurementNum]
+ */
+public class CacheKeyMemoryBenchmark {
+
+  private static final String DATA_DIR =
+      "data" + File.separator + "sequence" + File.separator + "root.benchmark" + File.separator;
+
+  public static void main(String[] args) {
+    int fileNum = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+    int deviceNum = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+    int measurementNum = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+    int keyNum = fileNum * deviceNum * measurementNum;
+    System.out.println(
+        String.format(
+            "%d files * %d devices * %d measurements = %d keys",
+            fileNum, deviceNum, measurementNum, keyNum));
+
+    TsFileResource[] resources = new TsFileResource[fileNum];
+    for (int i = 0; i < fileNum; i++) {
+      resources[i] =
+          new TsFileResource(
+              new File(
+                  DATA_DIR
+                      + "0"
+                      + File.separator
+                      + (i % 10)
+                      + File.separator
+                      + i
+                      + "-"
+                      + i
+                      + "-0-0.tsfile"));
+    }
+
+    IntFunction<Object> legacyTimeSeriesMetadataKey =
+        i -> {
+          TsFileResource resource = resources[i / (deviceNum * measurementNum)];
+          return new LegacyTimeSeriesMetadataCacheKey(
+              resource.getTsFilePath(),
+              "root.benchmark.d" + (i / measurementNum % deviceNum),
+              "s" + (i % measurementNum));
+        };
+    IntFunction<Object> timeSeriesMetadataKey =
+        i -> {
+          TsFileResource resource = resources[i / (deviceNum * measurementNum)];
+          return new TimeSeriesMetadataCacheKey(
+              resource,
+              "root.benchmark.d" + (i / measurementNum % deviceNum),
+              "s" + (i % measurementNum));
+        };
+    // names resolved once, as the readers of the series do
+    SeriesName[] devices = new SeriesName[deviceNum];
+    for (int i = 0; i < deviceNum; i++) {
+      devices[i] = SeriesName.of("root.benchmark.d" + i);
+    }
+    SeriesName[] measurements = new SeriesName[measurementNum];
+    for (int i = 0; i < measurementNum; i++) {
+      measurements[i] = SeriesName.of("s" + i);
+    }
+    IntFunction<Object> resolvedTimeSeriesMetadataKey =
+        i ->
+            new TimeSeriesMetadataCacheKey(
+                resources[i / (deviceNum * measurementNum)],
+                devices[i / measurementNum % deviceNum],
+                measurements[i % measurementNum]);
+    IntFunction<ChunkMetadata> chunkMetadata =
+        i -> {
+          ChunkMetadata metadata =
+              new ChunkMetadata(
+                  "s" + (i % measurementNum),
+                  TSDataType.DOUBLE,
+                  i * 1024L,
+                  Statistics.getStatsByType(TSDataType.DOUBLE));
+          metadata.setFilePath(resources[i / (deviceNum * measurementNum)].getTsFilePath());
+          return metadata;
+        };
+
+    run("TimeSeriesMetadataCache legacy key", keyNum, legacyTimeSeriesMetadataKey);
+    run("TimeSeriesMetadataCache compact key", keyNum, timeSeriesMetadataKey);
+    run(
+        "TimeSeriesMetadataCache compact key of resolved names",
+        keyNum,
+        resolvedTimeSeriesMetadataKey);
+    run("ChunkCache ChunkMetadata key", keyNum, chunkMetadata::apply);
+    run("ChunkCache compact key", keyNum, i -> new ChunkCacheKey(chunkMetadata.apply(i)));
+    run(
+        "ChunkCache compact key of TsFileResource",
+        keyNum,
+        i ->
+            new ChunkCacheKey(
+                resources[i / (deviceNum * measurementNum)].getTsFileID(), i * 1024L));
+  }
+
+  private static void run(String name, int keyNum, IntFunction<Object> keyGenerator) {
+    // warm up the id registries and the JIT
+    for (int i = 0; i < Math.min(keyNum, 100_000); i++) {
+      keyGenerator.apply(i).hashCode();
+    }
+    long usedBefore = usedMemory();
+    Object[] keys = new Object[keyNum];
+    for (int i = 0; i < keyNum; i++) {
+      keys[i] = keyGenerator.apply(i);
+    }
+    long usedAfter = usedMemory();
+
+    Map<Object, Object> map = new HashMap<>(keyNum * 2);
+    long startTime = System.nanoTime();
+    for (Object key : keys) {
+      map.put(key, key);
+    }
+    long hits = 0;
+    for (int i = 0; i < keyNum; i++) {
+      // a new key object, as a query does
+      if (map.containsKey(keyGenerator.apply(i))) {
+        hits++;
+      }
+    }
+    long costInNs = System.nanoTime() - startTime;
+    System.out.println(
+        String.format(
+            "[%s] heap of keys: %d bytes per key, put and get: %d ns per key, hits: %d",
+            name, (usedAfter - usedBefore) / keyNum, costInNs / keyNum, hits));
+  }
+
+  private static long usedMemory() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /** The key used by TimeSeriesMetadataCache before the compact key. */
+  private static class LegacyTimeSeriesMetadataCacheKey {
+
+    private final String filePath;
+    private final String tsFilePrefixPath;
+    private final long tsFileVersion;
+    private final long compactionVersion;
+    private final String device;
+    private final String measurement;
+
+    private LegacyTimeSeriesMetadataCacheKey(String filePath, String device, String measurement) {
+      this.filePath = filePath;
+      Pair<String, long[]> tsFilePrefixPathAndTsFileVersionPair =
+          FilePathUtils.getTsFilePrefixPathAndTsFileVersionPair(filePath);
+      this.tsFilePrefixPath = tsFilePrefixPathAndTsFileVersionPair.left;
+      this.tsFileVersion = tsFilePrefixPathAndTsFileVersionPair.right[0];
+      this.compactionVersion = tsFilePrefixPathAndTsFileVersionPair.right[1];
+      this.device = device;
+      this.measurement = measurement;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      LegacyTimeSeriesMetadataCacheKey that = (LegacyTimeSeriesMetadataCacheKey) o;
+      return Objects.equals(measurement, that.measurement)
+          && Objects.equals(device, that.device)
+          && tsFileVersion == that.tsFileVersion
+          && compactionVersion == that.compactionVersion
+          && tsFilePrefixPath.equals(that.tsFilePrefixPath);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(tsFilePrefixPath, tsFileVersion, compactionVersion, device, measurement);
+    }
+  }
+}
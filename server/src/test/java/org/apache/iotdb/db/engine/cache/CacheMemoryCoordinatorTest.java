@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class CacheMemoryCoordinatorTest {
+
+  @Test
+  public void testGhostCache() {
+    GhostCache ghostCache = new GhostCache();
+    // nothing is remembered when the capacity is 0
+    ghostCache.recordEviction("a", 10);
+    Assert.assertEquals(0, ghostCache.size());
+
+    ghostCache.setCapacity(30);
+    ghostCache.recordEviction("a", 10);
+    ghostCache.recordEviction("b", 10);
+    ghostCache.recordEviction("c", 10);
+    ghostCache.recordEviction("d", 10);
+    // "a" is dropped as the oldest one
+    Assert.assertEquals(3, ghostCache.size());
+    ghostCache.recordMiss("a");
+    ghostCache.recordMiss("b");
+    ghostCache.recordMiss("e");
+    Assert.assertEquals(1, ghostCache.getAndResetHitCount());
+    Assert.assertEquals(0, ghostCache.getAndResetHitCount());
+    Assert.assertEquals(2, ghostCache.size());
+  }
+
+  @Test
+  public void testRebalance() {
+    FakeCache chunkCache = new FakeCache("chunk", 1000);
+    FakeCache metadataCache = new FakeCache("metadata", 1000);
+    FakeCache bloomFilterCache = new FakeCache("bloomFilter", 1000);
+    CacheMemoryCoordinator coordinator =
+        new CacheMemoryCoordinator(Arrays.asList(chunkCache, metadataCache, bloomFilterCache));
+    long step = coordinator.getStep();
+    Assert.assertEquals(150, step);
+    for (FakeCache cache : Arrays.asList(chunkCache, metadataCache, bloomFilterCache)) {
+      cache.getGhostCache().setCapacity(step);
+    }
+
+    // too few ghost hits to move memory
+    addGhostHits(chunkCache, 5);
+    Assert.assertFalse(coordinator.rebalance());
+
+    // the chunk cache gains the most with more memory, the bloom filter cache gains the least
+    addGhostHits(chunkCache, 100);
+    addGhostHits(metadataCache, 20);
+    addGhostHits(bloomFilterCache, 1);
+    Assert.assertTrue(coordinator.rebalance());
+    Assert.assertEquals(1150, chunkCache.getMaxMemory());
+    Assert.assertEquals(1000, metadataCache.getMaxMemory());
+    Assert.assertEquals(850, bloomFilterCache.getMaxMemory());
+
+    // similar gains, keep the budgets
+    addGhostHits(chunkCache, 30);
+    addGhostHits(metadataCache, 25);
+    addGhostHits(bloomFilterCache, 28);
+    Assert.assertFalse(coordinator.rebalance());
+
+    // the budget of a cache never drops below 20% of its initial budget
+    for (int i = 0; i < 10; i++) {
+      addGhostHits(chunkCache, 100);
+      coordinator.rebalance();
+    }
+    Assert.assertEquals(2500, chunkCache.getMaxMemory());
+    Assert.assertEquals(250, metadataCache.getMaxMemory());
+    Assert.assertEquals(250, bloomFilterCache.getMaxMemory());
+    addGhostHits(chunkCache, 100);
+    Assert.assertFalse(coordinator.rebalance());
+  }
+
+  private void addGhostHits(FakeCache cache, int hits) {
+    for (int i = 0; i < hits; i++) {
+      cache.getGhostCache().recordEviction(i, 1);
+      cache.getGhostCache().recordMiss(i);
+    }
+  }
+
+  private static class FakeCache implements IResizableCache {
+
+    private final String name;
+    private final GhostCache ghostCache = new GhostCache();
+    private long maxMemory;
+
+    private FakeCache(String name, long maxMemory) {
+      this.name = name;
+      this.maxMemory = maxMemory;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public long getMaxMemory() {
+      return maxMemory;
+    }
+
+    @Override
+    public void setMaxMemory(long maxMemory) {
+      this.maxMemory = maxMemory;
+    }
+
+    @Override
+    public GhostCache getGhostCache() {
+      return ghostCache;
+    }
+  }
+}
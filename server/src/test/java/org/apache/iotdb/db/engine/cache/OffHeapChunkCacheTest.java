@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.db.engine.cache.ChunkCache.ChunkCacheKey;
+import org.apache.iotdb.db.engine.storagegroup.TsFileID;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class OffHeapChunkCacheTest {
+
+  private static final TsFileID TS_FILE_ID = TsFileID.of("root.sg/0/0", 1, 0);
+
+  @Test
+  public void testPutAndPromote() {
+    OffHeapChunkCache cache = new OffHeapChunkCache(OffHeapChunkCache.SLAB_SIZE);
+    Chunk chunk = createChunk(10000, (byte) 1);
+    cache.put(new ChunkCacheKey(TS_FILE_ID, 100L), chunk);
+    Assert.assertFalse(cache.isEmpty());
+    Assert.assertEquals(10000, cache.getUsedMemory());
+    Assert.assertEquals(OffHeapChunkCache.SLAB_SIZE, cache.getAllocatedMemory());
+
+    Assert.assertNull(cache.promote(new ChunkCacheKey(TS_FILE_ID, 200L)));
+    Chunk promoted = cache.promote(new ChunkCacheKey(TS_FILE_ID, 100L));
+    Assert.assertNotNull(promoted);
+    Assert.assertEquals("s1", promoted.getHeader().getMeasurementID());
+    Assert.assertEquals(chunk.getData(), promoted.getData());
+    Assert.assertEquals(0.5, cache.getHitRatio(), 0.0001);
+
+    // the promoted chunk is moved to the on-heap tier
+    Assert.assertTrue(cache.isEmpty());
+    Assert.assertEquals(0, cache.getUsedMemory());
+    Assert.assertNull(cache.promote(new ChunkCacheKey(TS_FILE_ID, 100L)));
+  }
+
+  @Test
+  public void testRejectAndRemove() {
+    OffHeapChunkCache cache = new OffHeapChunkCache(OffHeapChunkCache.SLAB_SIZE);
+    cache.put(
+        new ChunkCacheKey(TS_FILE_ID, 100L),
+        createChunk(OffHeapChunkCache.SLAB_SIZE + 1, (byte) 1));
+    Assert.assertEquals(1, cache.getRejectionCount());
+    Assert.assertTrue(cache.isEmpty());
+
+    cache.put(new ChunkCacheKey(TS_FILE_ID, 100L), createChunk(1000, (byte) 2));
+    cache.put(new ChunkCacheKey(TS_FILE_ID, 200L), createChunk(1000, (byte) 3));
+    cache.remove(new ChunkCacheKey(TS_FILE_ID, 100L));
+    Assert.assertNull(cache.promote(new ChunkCacheKey(TS_FILE_ID, 100L)));
+    cache.clear();
+    Assert.assertTrue(cache.isEmpty());
+    Assert.assertEquals(0, cache.getUsedMemory());
+  }
+
+  @Test
+  public void testReuseReleasedSlab() {
+    OffHeapChunkCache cache = new OffHeapChunkCache(OffHeapChunkCache.SLAB_SIZE);
+    int largeSize = OffHeapChunkCache.SLAB_SIZE / 2 + 1;
+    // the only slab is assigned to the size class of the small chunk
+    cache.put(new ChunkCacheKey(TS_FILE_ID, 100L), createChunk(1000, (byte) 1));
+    cache.put(new ChunkCacheKey(TS_FILE_ID, 200L), createChunk(largeSize, (byte) 2));
+    Assert.assertEquals(1, cache.getRejectionCount());
+    Assert.assertEquals(1000, cache.getUsedMemory());
+
+    // the slab is released once its only chunk is promoted, and reused by another size class
+    Assert.assertNotNull(cache.promote(new ChunkCacheKey(TS_FILE_ID, 100L)));
+    cache.put(new ChunkCacheKey(TS_FILE_ID, 200L), createChunk(largeSize, (byte) 2));
+    Assert.assertEquals(1, cache.getRejectionCount());
+    Assert.assertEquals(largeSize, cache.getUsedMemory());
+    Assert.assertEquals(OffHeapChunkCache.SLAB_SIZE, cache.getAllocatedMemory());
+    Chunk promoted = cache.promote(new ChunkCacheKey(TS_FILE_ID, 200L));
+    Assert.assertNotNull(promoted);
+    Assert.assertEquals(createChunk(largeSize, (byte) 2).getData(), promoted.getData());
+
+    // so does clear
+    cache.put(new ChunkCacheKey(TS_FILE_ID, 100L), createChunk(1000, (byte) 1));
+    cache.clear();
+    cache.put(new ChunkCacheKey(TS_FILE_ID, 200L), createChunk(largeSize, (byte) 2));
+    Assert.assertEquals(largeSize, cache.getUsedMemory());
+  }
+
+  @Test
+  public void testConcurrentPutAndPromote() throws Exception {
+    OffHeapChunkCache cache = new OffHeapChunkCache(4L * OffHeapChunkCache.SLAB_SIZE);
+    int threadNum = 4;
+    int chunkNum = 200;
+    ExecutorService executor = Executors.newFixedThreadPool(threadNum);
+    try {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < threadNum; i++) {
+        long offsetBase = (long) i * chunkNum;
+        futures.add(
+            executor.submit(
+                () -> {
+                  int promotedNum = 0;
+                  for (long offset = offsetBase; offset < offsetBase + chunkNum; offset++) {
+                    cache.put(
+                        new ChunkCacheKey(TS_FILE_ID, offset),
+                        createChunk(1000 + (int) offset, (byte) offset));
+                  }
+                  for (long offset = offsetBase; offset < offsetBase + chunkNum; offset++) {
+                    Chunk chunk = cache.promote(new ChunkCacheKey(TS_FILE_ID, offset));
+                    if (chunk != null) {
+                      Assert.assertEquals(
+                          createChunk(1000 + (int) offset, (byte) offset).getData(),
+                          chunk.getData());
+                      promotedNum++;
+                    }
+                  }
+                  return promotedNum;
+                }));
+      }
+      for (Future<Integer> future : futures) {
+        Assert.assertEquals(chunkNum, (int) future.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    Assert.assertTrue(cache.isEmpty());
+  }
+
+  private Chunk createChunk(int size, byte value) {
+    byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++) {
+      bytes[i] = (byte) (value + i);
+    }
+    ChunkHeader header =
+        new ChunkHeader("s1", size, TSDataType.INT64, CompressionType.SNAPPY, TSEncoding.PLAIN, 1);
+    return new Chunk(header, ByteBuffer.wrap(bytes), null, null);
+  }
+}
@@ -40,6 +40,7 @@ import org.apache.iotdb.tsfile.file.header.ChunkHeader;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.reader.IBatchReader;
 import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.utils.TsFileGeneratorUtils;
@@ -1771,6 +1772,132 @@ public class ReadPointCompactionPerformerTest extends AbstractCompactionTest {
     assertEquals(500, count);
   }
 
+  /**
+   * Total 5 seq files and 1 unseq file, the unseq file only overlaps the middle seq file, so the
+   * chunks of the other seq files are reused directly.
+   *
+   * <p>Seq files has d0 ~ d1 and s0 ~ s2, time range is 0 ~ 99, 100 ~ 199, 200 ~ 299, 300 ~ 399 and
+   * 400 ~ 499, value range is 0 ~ 99, 100 ~ 199, 200 ~ 299, 300 ~ 399 and 400 ~ 499.
+   *
+   * <p>UnSeq file has d0 ~ d1 and s0 ~ s2, time range is 210 ~ 229, value range is 10210 ~ 10229.
+   */
+  @Test
+  public void testCrossSpaceCompactionWithPartiallyOverlappedSeqChunks()
+      throws IOException, WriteProcessException, MetadataException, StorageEngineException,
+          InterruptedException {
+    registerTimeseriesInMManger(2, 3, false);
+    createFiles(5, 2, 3, 100, 0, 0, 0, 0, false, true);
+    createFiles(1, 2, 3, 20, 210, 10210, 0, 0, false, false);
+
+    List<TsFileResource> targetResources =
+        CompactionFileGeneratorUtils.getCrossCompactionTargetTsFileResources(seqResources);
+    new ReadPointCompactionPerformer(seqResources, unseqResources, targetResources).perform();
+    CompactionUtils.moveTargetFile(targetResources, false, COMPACTION_TEST_SG);
+
+    for (int i = 0; i < 2; i++) {
+      for (int j = 0; j < 3; j++) {
+        PartialPath path =
+            new MeasurementPath(
+                COMPACTION_TEST_SG + PATH_SEPARATOR + "d" + i,
+                "s" + j,
+                new MeasurementSchema("s" + j, TSDataType.INT64));
+        IBatchReader tsFilesReader =
+            new SeriesRawDataBatchReader(
+                path,
+                TSDataType.INT64,
+                EnvironmentUtils.TEST_QUERY_CONTEXT,
+                targetResources,
+                new ArrayList<>(),
+                null,
+                null,
+                true);
+        long expectedTime = 0;
+        while (tsFilesReader.hasNextBatch()) {
+          BatchData batchData = tsFilesReader.nextBatch();
+          while (batchData.hasCurrent()) {
+            assertEquals(expectedTime, batchData.currentTime());
+            if (expectedTime >= 210 && expectedTime < 230) {
+              assertEquals(expectedTime + 10000, batchData.currentValue());
+            } else {
+              assertEquals(expectedTime, batchData.currentValue());
+            }
+            expectedTime++;
+            batchData.next();
+          }
+        }
+        tsFilesReader.close();
+        assertEquals(500, expectedTime);
+      }
+    }
+  }
+
+  /**
+   * Total 3 seq files and 1 unseq file, the unseq file overlaps two pages of the middle seq file,
+   * so the other pages of its chunk are copied one by one into several target chunks.
+   *
+   * <p>Seq files has d0 ~ d1 and s0 ~ s2, time range is 0 ~ 299, 300 ~ 599 and 600 ~ 899, value
+   * range is the same as the time range, and each page has 10 points.
+   *
+   * <p>UnSeq file has d0 ~ d1 and s0 ~ s2, time range is 305 ~ 314, value range is 10305 ~ 10314.
+   */
+  @Test
+  public void testCrossSpaceCompactionWithCopiedPagesInMultipleChunks()
+      throws IOException, WriteProcessException, MetadataException, StorageEngineException,
+          InterruptedException {
+    TSFileDescriptor.getInstance().getConfig().setMaxNumberOfPointsInPage(10);
+    registerTimeseriesInMManger(2, 3, false);
+    createFiles(3, 2, 3, 300, 0, 0, 0, 0, false, true);
+    createFiles(1, 2, 3, 10, 305, 10305, 0, 0, false, false);
+
+    List<TsFileResource> targetResources =
+        CompactionFileGeneratorUtils.getCrossCompactionTargetTsFileResources(seqResources);
+    new ReadPointCompactionPerformer(seqResources, unseqResources, targetResources).perform();
+    CompactionUtils.moveTargetFile(targetResources, false, COMPACTION_TEST_SG);
+
+    for (int i = 0; i < 2; i++) {
+      for (int j = 0; j < 3; j++) {
+        PartialPath path =
+            new MeasurementPath(
+                COMPACTION_TEST_SG + PATH_SEPARATOR + "d" + i,
+                "s" + j,
+                new MeasurementSchema("s" + j, TSDataType.INT64));
+        // the pages of the middle file are split into several chunks by the target chunk size
+        try (TsFileSequenceReader reader =
+            new TsFileSequenceReader(targetResources.get(1).getTsFilePath())) {
+          Assert.assertTrue(
+              reader.getChunkMetadataList(new Path(path.getDevice(), path.getMeasurement())).size()
+                  > 1);
+        }
+        IBatchReader tsFilesReader =
+            new SeriesRawDataBatchReader(
+                path,
+                TSDataType.INT64,
+                EnvironmentUtils.TEST_QUERY_CONTEXT,
+                targetResources,
+                new ArrayList<>(),
+                null,
+                null,
+                true);
+        long expectedTime = 0;
+        while (tsFilesReader.hasNextBatch()) {
+          BatchData batchData = tsFilesReader.nextBatch();
+          while (batchData.hasCurrent()) {
+            assertEquals(expectedTime, batchData.currentTime());
+            if (expectedTime >= 305 && expectedTime < 315) {
+              assertEquals(expectedTime + 10000, batchData.currentValue());
+            } else {
+              assertEquals(expectedTime, batchData.currentValue());
+            }
+            expectedTime++;
+            batchData.next();
+          }
+        }
+        tsFilesReader.close();
+        assertEquals(900, expectedTime);
+      }
+    }
+  }
+
   /**
    * Total 4 seq files and 5 unseq files, each file has different nonAligned timeseries.
    *
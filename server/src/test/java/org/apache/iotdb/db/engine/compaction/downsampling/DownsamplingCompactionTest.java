@@ -0,0 +1,304 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.downsampling;
+
+import org.apache.iotdb.commons.exception.MetadataException;
+import org.apache.iotdb.db.engine.compaction.AbstractCompactionTest;
+import org.apache.iotdb.db.engine.compaction.CompactionUtils;
+import org.apache.iotdb.db.engine.compaction.performer.impl.DownsamplingCompactionPerformer;
+import org.apache.iotdb.db.engine.storagegroup.TsFileNameGenerator;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.metadata.path.MeasurementPath;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.query.reader.series.SeriesRawDataBatchReader;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.reader.IBatchReader;
+import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.iotdb.commons.conf.IoTDBConstant.PATH_SEPARATOR;
+
+public class DownsamplingCompactionTest extends AbstractCompactionTest {
+  private final String oldThreadName = Thread.currentThread().getName();
+  private TestTargetRouter router;
+
+  @Before
+  public void setUp() throws IOException, WriteProcessException, MetadataException {
+    super.setUp();
+    Thread.currentThread().setName("pool-1-IoTDB-Compaction-1");
+    router = new TestTargetRouter();
+  }
+
+  @After
+  public void tearDown() throws IOException, StorageEngineException {
+    super.tearDown();
+    Thread.currentThread().setName(oldThreadName);
+    for (TsFileResource tsFileResource : seqResources) {
+      FileReaderManager.getInstance().closeFileAndRemoveReader(tsFileResource.getTsFilePath());
+    }
+    for (TsFileResource tsFileResource : unseqResources) {
+      FileReaderManager.getInstance().closeFileAndRemoveReader(tsFileResource.getTsFilePath());
+    }
+  }
+
+  @Test
+  public void testParsePolicy() {
+    Map<String, DownsamplingPolicy> policies =
+        DownsamplingPolicy.parse(
+            "root.sg,100,10,root.sg.rollup_10.**;"
+                + "root.sg,1000,100,root.sg.rollup_100.**;"
+                // the window is not a multiple of the previous one
+                + "root.sg,2000,150,root.sg.rollup_150.**;"
+                // the target path is not under the storage group
+                + "root.sg2,100,10,root.other.**;"
+                + "root.sg3,100,abc,root.sg3.rollup.**");
+    Assert.assertEquals(2, policies.size());
+    DownsamplingPolicy policy = policies.get("root.sg");
+    Assert.assertEquals(2, policy.getTiers().size());
+    Assert.assertEquals(10, policy.getTiers().get(0).getWindow());
+    Assert.assertEquals(100, policy.getTiers().get(1).getWindow());
+    Assert.assertTrue(policies.get("root.sg3").getTiers().isEmpty());
+
+    Assert.assertEquals(-1, policy.getTierIndex("root.sg.d1"));
+    Assert.assertEquals(0, policy.getTierIndex("root.sg.rollup_10.d1"));
+    Assert.assertEquals(1, policy.getTierIndex("root.sg.rollup_100.a.d1"));
+    Assert.assertEquals("a.d1", policy.getRelativeDevice("root.sg.rollup_100.a.d1"));
+    Assert.assertEquals("d1", policy.getRelativeDevice("root.sg.d1"));
+    Assert.assertEquals("root.sg.rollup_100.d1", policy.getTiers().get(1).getTargetDevice("d1"));
+    Assert.assertEquals(-10, policy.getTiers().get(0).getWindowStart(-1));
+  }
+
+  /**
+   * Total 5 seq files with d0 ~ d1 and s0 ~ s1, time range is 0 ~ 99, 100 ~ 199, 200 ~ 299, 300 ~
+   * 399 and 400 ~ 499, and 1 unseq file with time range 100 ~ 149. The first 3 seq files and the
+   * unseq file are downsampled by 10 and then by 100.
+   */
+  @Test
+  public void testDownsampleByTiers() throws Exception {
+    registerTimeseriesInMManger(2, 2, false);
+    createFiles(5, 2, 2, 100, 0, 0, 0, 0, false, true);
+    createFiles(1, 2, 2, 50, 100, 10100, 0, 0, false, false);
+    String rollup10 = COMPACTION_TEST_SG + PATH_SEPARATOR + "rollup_10";
+    String rollup100 = COMPACTION_TEST_SG + PATH_SEPARATOR + "rollup_100";
+    DownsamplingPolicy policy =
+        DownsamplingPolicy.parse(
+                COMPACTION_TEST_SG
+                    + ",1000,10,"
+                    + rollup10
+                    + ".**;"
+                    + COMPACTION_TEST_SG
+                    + ",2000,100,"
+                    + rollup100
+                    + ".**")
+            .get(COMPACTION_TEST_SG);
+
+    // data before 300 is older than the age of the first tier
+    DownsamplingCompactionSelector selector =
+        new DownsamplingCompactionSelector(COMPACTION_TEST_SG, "0", 0, policy, router);
+    List<Pair<List<TsFileResource>, List<TsFileResource>>> taskList =
+        selector.selectDownsamplingTask(seqResources, unseqResources, 1300);
+    Assert.assertEquals(1, taskList.size());
+    Assert.assertEquals(0, selector.getSelectedTierIndex());
+    Assert.assertEquals(seqResources.subList(0, 3), taskList.get(0).left);
+    Assert.assertEquals(unseqResources, taskList.get(0).right);
+
+    List<TsFileResource> targetResources = downsample(policy, 0, taskList.get(0));
+    // the aggregation series are registered before they are written
+    Assert.assertEquals(
+        new HashSet<>(
+            Arrays.asList(
+                "s0_count",
+                "s0_avg",
+                "s0_max",
+                "s0_min",
+                "s1_count",
+                "s1_avg",
+                "s1_max",
+                "s1_min")),
+        router.registeredSeries.get(rollup10 + PATH_SEPARATOR + "d0"));
+    for (int i = 0; i < 2; i++) {
+      String device = rollup10 + PATH_SEPARATOR + "d" + i;
+      for (int j = 0; j < 2; j++) {
+        List<Pair<Long, Object>> avg = readSeries(device, "s" + j + "_avg", targetResources);
+        List<Pair<Long, Object>> count = readSeries(device, "s" + j + "_count", targetResources);
+        List<Pair<Long, Object>> max = readSeries(device, "s" + j + "_max", targetResources);
+        List<Pair<Long, Object>> min = readSeries(device, "s" + j + "_min", targetResources);
+        Assert.assertEquals(30, avg.size());
+        for (int k = 0; k < 30; k++) {
+          long windowStart = k * 10L;
+          // the unseq file overwrites 100 ~ 149 with value time + 10000
+          long offset = windowStart >= 100 && windowStart < 150 ? 10000 : 0;
+          Assert.assertEquals(windowStart, (long) avg.get(k).left);
+          Assert.assertEquals(windowStart + offset + 4.5, (double) avg.get(k).right, 0.001);
+          Assert.assertEquals(10L, count.get(k).right);
+          Assert.assertEquals(windowStart + offset + 9.0, (double) max.get(k).right, 0.001);
+          Assert.assertEquals(windowStart + offset, (double) min.get(k).right, 0.001);
+        }
+        // the raw data is dropped
+        Assert.assertTrue(
+            readSeries(COMPACTION_TEST_SG + PATH_SEPARATOR + "d" + i, "s" + j, targetResources)
+                .isEmpty());
+      }
+    }
+
+    // the downsampled file is selected again for the second tier
+    List<TsFileResource> seqFiles = new ArrayList<>(targetResources);
+    seqFiles.addAll(seqResources.subList(3, 5));
+    taskList = selector.selectDownsamplingTask(seqFiles, Collections.emptyList(), 2300);
+    Assert.assertEquals(1, selector.getSelectedTierIndex());
+    Assert.assertEquals(targetResources, taskList.get(0).left);
+
+    targetResources = downsample(policy, 1, taskList.get(0));
+    String device = rollup100 + PATH_SEPARATOR + "d0";
+    List<Pair<Long, Object>> avg = readSeries(device, "s0_avg", targetResources);
+    List<Pair<Long, Object>> count = readSeries(device, "s0_count", targetResources);
+    Assert.assertEquals(3, avg.size());
+    Assert.assertEquals(49.5, (double) avg.get(0).right, 0.001);
+    Assert.assertEquals(149.5 + 5000, (double) avg.get(1).right, 0.001);
+    Assert.assertEquals(249.5, (double) avg.get(2).right, 0.001);
+    Assert.assertEquals(100L, count.get(1).right);
+    Assert.assertTrue(
+        readSeries(rollup10 + PATH_SEPARATOR + "d0", "s0_avg", targetResources).isEmpty());
+  }
+
+  /**
+   * The target device of d1 belongs to another data region, so d1 keeps its raw data and does not
+   * make the files selected again.
+   */
+  @Test
+  public void testKeepDevicesOfOtherDataRegion() throws Exception {
+    registerTimeseriesInMManger(2, 2, false);
+    createFiles(5, 2, 2, 100, 0, 0, 0, 0, false, true);
+    String rollup10 = COMPACTION_TEST_SG + PATH_SEPARATOR + "rollup_10";
+    DownsamplingPolicy policy =
+        DownsamplingPolicy.parse(COMPACTION_TEST_SG + ",1000,10," + rollup10 + ".**")
+            .get(COMPACTION_TEST_SG);
+    router.foreignDevices.add(rollup10 + PATH_SEPARATOR + "d1");
+
+    DownsamplingCompactionSelector selector =
+        new DownsamplingCompactionSelector(COMPACTION_TEST_SG, "0", 0, policy, router);
+    List<Pair<List<TsFileResource>, List<TsFileResource>>> taskList =
+        selector.selectDownsamplingTask(seqResources, unseqResources, 1300);
+    Assert.assertEquals(1, taskList.size());
+    Assert.assertEquals(seqResources.subList(0, 3), taskList.get(0).left);
+
+    List<TsFileResource> targetResources = downsample(policy, 0, taskList.get(0));
+    Assert.assertEquals(
+        30, readSeries(rollup10 + PATH_SEPARATOR + "d0", "s0_avg", targetResources).size());
+    Assert.assertTrue(
+        readSeries(COMPACTION_TEST_SG + PATH_SEPARATOR + "d0", "s0", targetResources).isEmpty());
+    Assert.assertTrue(
+        readSeries(rollup10 + PATH_SEPARATOR + "d1", "s0_avg", targetResources).isEmpty());
+    List<Pair<Long, Object>> rawPoints =
+        readSeries(COMPACTION_TEST_SG + PATH_SEPARATOR + "d1", "s0", targetResources);
+    Assert.assertEquals(300, rawPoints.size());
+    Assert.assertFalse(router.registeredSeries.containsKey(rollup10 + PATH_SEPARATOR + "d1"));
+
+    // the raw data of d1 left in the target file does not make it selected again
+    Assert.assertTrue(
+        selector.selectDownsamplingTask(targetResources, Collections.emptyList(), 1300).isEmpty());
+  }
+
+  private List<TsFileResource> downsample(
+      DownsamplingPolicy policy,
+      int tierIndex,
+      Pair<List<TsFileResource>, List<TsFileResource>> selectedFiles)
+      throws Exception {
+    List<TsFileResource> targetResources =
+        new ArrayList<>(
+            Collections.singletonList(
+                TsFileNameGenerator.getInnerCompactionTargetFileResource(
+                    selectedFiles.left, true)));
+    DownsamplingCompactionPerformer performer =
+        new DownsamplingCompactionPerformer(policy, tierIndex, router);
+    performer.setSourceFiles(selectedFiles.left, selectedFiles.right);
+    performer.setTargetFiles(targetResources);
+    performer.perform();
+    CompactionUtils.moveTargetFile(targetResources, true, COMPACTION_TEST_SG);
+    return targetResources;
+  }
+
+  private List<Pair<Long, Object>> readSeries(
+      String device, String measurement, List<TsFileResource> resources) throws Exception {
+    TSDataType dataType = measurement.endsWith("_count") ? TSDataType.INT64 : TSDataType.DOUBLE;
+    if (!measurement.contains("_")) {
+      dataType = TSDataType.INT64;
+    }
+    IBatchReader reader =
+        new SeriesRawDataBatchReader(
+            new MeasurementPath(device, measurement, new MeasurementSchema(measurement, dataType)),
+            dataType,
+            EnvironmentUtils.TEST_QUERY_CONTEXT,
+            resources,
+            new ArrayList<>(),
+            null,
+            null,
+            true);
+    List<Pair<Long, Object>> points = new ArrayList<>();
+    while (reader.hasNextBatch()) {
+      BatchData batchData = reader.nextBatch();
+      while (batchData.hasCurrent()) {
+        points.add(new Pair<>(batchData.currentTime(), batchData.currentValue()));
+        batchData.next();
+      }
+    }
+    reader.close();
+    return points;
+  }
+
+  /** Routes all the target devices to this data region except the foreign ones. */
+  private class TestTargetRouter extends DownsamplingTargetRouter {
+    private final Set<String> foreignDevices = new HashSet<>();
+    private final Map<String, Set<String>> registeredSeries = new HashMap<>();
+
+    private TestTargetRouter() {
+      super(COMPACTION_TEST_SG, "0", null, null);
+    }
+
+    @Override
+    protected boolean isAssignedToDataRegion(String targetDevice, long time) {
+      return !foreignDevices.contains(targetDevice);
+    }
+
+    @Override
+    public void registerSchema(
+        String targetDevice, List<String> measurements, List<TSDataType> dataTypes) {
+      registeredSeries.computeIfAbsent(targetDevice, k -> new HashSet<>()).addAll(measurements);
+    }
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.inner;
+
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.engine.compaction.inner.leveled.LeveledCompactionSelector;
+import org.apache.iotdb.db.engine.compaction.inner.sizetiered.SizeTieredCompactionSelector;
+import org.apache.iotdb.db.engine.storagegroup.TsFileNameGenerator;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResourceStatus;
+import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Simulate the inner space compaction of a synthetic ingestion trace under the size tiered and the
+ * leveled selector, and report their write amplification and read amplification. Every flush
+ * produces a file covering the next time slot, then the selector is called and all the selected
+ * tasks are finished immediately. The files are created as sparse files, so no real data is
+ * written.
+ *
+ * <p>Usage: CompactionSelectorSimulator [flushNum] [avgFlushSizeInMB] [sizeJitter]
+ * [queryWindowInFlushes]
+ */
+public class CompactionSelectorSimulator {
+
+  private static final long MB = 1024L * 1024L;
+
+  private final List<TsFileResource> resources = new ArrayList<>();
+  // file -> [first flush slot, last flush slot] covered by the file
+  private final Map<TsFileResource, long[]> timeRanges = new HashMap<>();
+  private final File dir;
+
+  private long flushedBytes = 0L;
+  private long compactedBytes = 0L;
+  private long maxCompactedBytesInOneRound = 0L;
+  private long fileNumSum = 0L;
+  private long fileNumSquareSum = 0L;
+  private int maxFileNum = 0;
+  private long windowQueryFileNumSum = 0L;
+
+  private CompactionSelectorSimulator(File dir) {
+    this.dir = dir;
+  }
+
+  public static void main(String[] args) throws IOException {
+    int flushNum = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+    long avgFlushSize = (args.length > 1 ? Long.parseLong(args[1]) : 8L) * MB;
+    double sizeJitter = args.length > 2 ? Double.parseDouble(args[2]) : 0.5;
+    int queryWindow = args.length > 3 ? Integer.parseInt(args[3]) : 60;
+
+    long[] flushSizes = generateTrace(flushNum, avgFlushSize, sizeJitter);
+    System.out.println(
+        String.format(
+            "Trace: %d flushes, average flush size %d MB, size jitter %.2f, query window %d flushes",
+            flushNum, avgFlushSize / MB, sizeJitter, queryWindow));
+    simulate(
+        "size_tiered",
+        new SizeTieredCompactionSelector("root.sim", "0", 0, true),
+        flushSizes,
+        queryWindow);
+    simulate(
+        "leveled",
+        new LeveledCompactionSelector("root.sim", "0", 0, true),
+        flushSizes,
+        queryWindow);
+  }
+
+  private static long[] generateTrace(int flushNum, long avgFlushSize, double sizeJitter) {
+    Random random = new Random(0);
+    long[] flushSizes = new long[flushNum];
+    for (int i = 0; i < flushNum; i++) {
+      double factor = 1.0 + sizeJitter * (2 * random.nextDouble() - 1);
+      flushSizes[i] = Math.max(1L, (long) (avgFlushSize * factor));
+    }
+    return flushSizes;
+  }
+
+  private static void simulate(
+      String name, IInnerSeqSpaceSelector selector, long[] flushSizes, int queryWindow)
+      throws IOException {
+    File dir = Files.createTempDirectory("compaction-simulation").toFile();
+    try {
+      CompactionSelectorSimulator simulator = new CompactionSelectorSimulator(dir);
+      for (int i = 0; i < flushSizes.length; i++) {
+        simulator.flush(i, flushSizes[i]);
+        simulator.compact(selector);
+        simulator.record(i, queryWindow);
+      }
+      simulator.report(name, flushSizes.length);
+    } finally {
+      FileUtils.deleteDirectory(dir);
+    }
+  }
+
+  private void flush(int slot, long size) throws IOException {
+    TsFileResource resource =
+        createResource(TsFileNameGenerator.generateNewTsFileName(slot, slot, 0, 0), size);
+    timeRanges.put(resource, new long[] {slot, slot});
+    resources.add(resource);
+    flushedBytes += size;
+  }
+
+  private void compact(IInnerSeqSpaceSelector selector) throws IOException {
+    long compactedBytesInThisRound = 0L;
+    for (List<TsFileResource> task : selector.selectInnerSpaceTask(new ArrayList<>(resources))) {
+      long targetSize = 0L;
+      long[] targetRange = new long[] {Long.MAX_VALUE, Long.MIN_VALUE};
+      for (TsFileResource source : task) {
+        targetSize += source.getTsFileSize();
+        long[] range = timeRanges.remove(source);
+        targetRange[0] = Math.min(targetRange[0], range[0]);
+        targetRange[1] = Math.max(targetRange[1], range[1]);
+      }
+      String targetName =
+          TsFileNameGenerator.getInnerCompactionTargetFileResource(task, true)
+              .getTsFile()
+              .getName()
+              .replace(
+                  IoTDBConstant.INNER_COMPACTION_TMP_FILE_SUFFIX, TsFileConstant.TSFILE_SUFFIX);
+      TsFileResource target = createResource(targetName, targetSize);
+      timeRanges.put(target, targetRange);
+      int index = resources.indexOf(task.get(0));
+      resources.removeAll(task);
+      resources.add(index, target);
+      for (TsFileResource source : task) {
+        Files.delete(source.getTsFile().toPath());
+      }
+      compactedBytesInThisRound += targetSize;
+    }
+    compactedBytes += compactedBytesInThisRound;
+    maxCompactedBytesInOneRound = Math.max(maxCompactedBytesInOneRound, compactedBytesInThisRound);
+  }
+
+  private void record(int slot, int queryWindow) {
+    int fileNum = resources.size();
+    fileNumSum += fileNum;
+    fileNumSquareSum += (long) fileNum * fileNum;
+    maxFileNum = Math.max(maxFileNum, fileNum);
+    long windowStart = slot - queryWindow + 1L;
+    for (TsFileResource resource : resources) {
+      if (timeRanges.get(resource)[1] >= windowStart) {
+        windowQueryFileNumSum++;
+      }
+    }
+  }
+
+  private void report(String name, int flushNum) {
+    double avgFileNum = (double) fileNumSum / flushNum;
+    double fileNumStdDev =
+        Math.sqrt((double) fileNumSquareSum / flushNum - avgFileNum * avgFileNum);
+    System.out.println(
+        String.format(
+            "[%s] write amplification: %.2f, max compacted in one round: %d MB, "
+                + "file num avg/stddev/max: %.1f/%.1f/%d, "
+                + "read amplification (files per query) window/full: %.2f/%.2f",
+            name,
+            (double) (flushedBytes + compactedBytes) / flushedBytes,
+            maxCompactedBytesInOneRound / MB,
+            avgFileNum,
+            fileNumStdDev,
+            maxFileNum,
+            (double) windowQueryFileNumSum / flushNum,
+            avgFileNum));
+  }
+
+  private TsFileResource createResource(String fileName, long size) throws IOException {
+    File file = new File(dir, fileName);
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+      // a sparse file of the given size
+      randomAccessFile.setLength(size);
+    }
+    TsFileResource resource = new TsFileResource(file);
+    resource.setStatus(TsFileResourceStatus.CLOSED);
+    return resource;
+  }
+}
@@ -25,6 +25,7 @@ import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.constant.TestConstant;
 import org.apache.iotdb.db.engine.cache.ChunkCache;
 import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache;
+import org.apache.iotdb.db.engine.compaction.CompactionTaskManager;
 import org.apache.iotdb.db.engine.compaction.performer.impl.ReadChunkCompactionPerformer;
 import org.apache.iotdb.db.engine.compaction.utils.CompactionCheckerUtils;
 import org.apache.iotdb.db.engine.compaction.utils.CompactionConfigRestorer;
@@ -221,6 +222,77 @@ public class ReadChunkCompactionPerformerNoAlignedTest {
     }
   }
 
+  /**
+   * Compact the devices concurrently, the target file should be the same as the one compacted
+   * serially, with devices appended in order.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testCompactDevicesInParallel() throws Exception {
+    IoTDBDescriptor.getInstance().getConfig().setEnableDeviceParallelInnerCompaction(true);
+    IoTDBDescriptor.getInstance().getConfig().setSubCompactionTaskNum(4);
+    long originTargetChunkSize = IoTDBDescriptor.getInstance().getConfig().getTargetChunkSize();
+    long originTargetChunkPointNum =
+        IoTDBDescriptor.getInstance().getConfig().getTargetChunkPointNum();
+    IoTDBDescriptor.getInstance().getConfig().setTargetChunkSize(100);
+    IoTDBDescriptor.getInstance().getConfig().setTargetChunkPointNum(100);
+    try {
+      List<TsFileResource> sourceFiles = new ArrayList();
+      int fileNum = 6;
+      long pointStep = 200L;
+      for (int i = 0; i < fileNum; ++i) {
+        List<List<Long>> chunkPagePointsNum = new ArrayList<>();
+        List<Long> pagePointsNum = new ArrayList<>();
+        pagePointsNum.add((i + 1L) * pointStep);
+        chunkPagePointsNum.add(pagePointsNum);
+        TsFileResource resource =
+            new TsFileResource(new File(SEQ_DIRS, String.format("%d-%d-0-0.tsfile", i + 1, i + 1)));
+        sourceFiles.add(resource);
+        CompactionFileGeneratorUtils.writeTsFile(
+            fullPathSet, chunkPagePointsNum, i * 1500L, resource);
+      }
+      Map<PartialPath, List<TimeValuePair>> originData =
+          CompactionCheckerUtils.getDataByQuery(paths, schemaList, sourceFiles, new ArrayList<>());
+      TsFileNameGenerator.TsFileName tsFileName =
+          TsFileNameGenerator.getTsFileName(sourceFiles.get(0).getTsFile().getName());
+      TsFileResource targetResource =
+          new TsFileResource(
+              new File(
+                  SEQ_DIRS,
+                  String.format(
+                      "%d-%d-%d-%d.tsfile",
+                      tsFileName.getTime(),
+                      tsFileName.getVersion(),
+                      tsFileName.getInnerCompactionCnt() + 1,
+                      tsFileName.getCrossCompactionCnt())));
+      new ReadChunkCompactionPerformer(sourceFiles, targetResource).perform();
+      Map<String, List<List<Long>>> chunkPagePointsNumMerged = new HashMap<>();
+      long[] points = new long[fileNum];
+      for (int i = 1; i <= fileNum; i++) {
+        points[i - 1] = i * pointStep;
+      }
+      for (String path : fullPathSet) {
+        CompactionCheckerUtils.putOnePageChunks(chunkPagePointsNumMerged, path, points);
+      }
+      CompactionCheckerUtils.checkChunkAndPage(chunkPagePointsNumMerged, targetResource);
+      for (PartialPath device : devicePath) {
+        Assert.assertEquals(0L, targetResource.getStartTime(device.getFullPath()));
+        Assert.assertEquals(
+            (fileNum - 1) * 1500L + fileNum * pointStep - 1,
+            targetResource.getEndTime(device.getFullPath()));
+      }
+      Map<PartialPath, List<TimeValuePair>> compactedData =
+          CompactionCheckerUtils.getDataByQuery(
+              paths, schemaList, Collections.singletonList(targetResource), new ArrayList<>());
+      CompactionCheckerUtils.validDataByValueList(originData, compactedData);
+      Assert.assertEquals(0L, CompactionTaskManager.getInstance().getBufferMemoryCost());
+    } finally {
+      IoTDBDescriptor.getInstance().getConfig().setTargetChunkSize(originTargetChunkSize);
+      IoTDBDescriptor.getInstance().getConfig().setTargetChunkPointNum(originTargetChunkPointNum);
+    }
+  }
+
   /**
    * Generate some middle chunk that should be merged and cached in memory, and a large chunk that
    * is larger than target size. The latter should be merged with previously cached chunk and
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.inner.leveled;
+
+import org.apache.iotdb.db.engine.storagegroup.TsFileNameGenerator;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResourceStatus;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LeveledCompactionSelectorTest {
+
+  private static final long MB = 1024L * 1024L;
+  private static final long BASE_FILE_SIZE = 10 * MB;
+  private static final int FAN_OUT = 4;
+  private static final long TARGET_FILE_SIZE = 640 * MB;
+
+  private File dir;
+  private int fileIndex = 0;
+  private final LeveledCompactionSelector selector =
+      new LeveledCompactionSelector(
+          "root.sg", "0", 0, true, BASE_FILE_SIZE, FAN_OUT, TARGET_FILE_SIZE);
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("leveled-selector-test").toFile();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(dir);
+  }
+
+  @Test
+  public void testGetLevel() {
+    Assert.assertEquals(0, selector.getLevel(MB));
+    Assert.assertEquals(1, selector.getLevel(BASE_FILE_SIZE));
+    Assert.assertEquals(1, selector.getLevel(39 * MB));
+    Assert.assertEquals(2, selector.getLevel(40 * MB));
+    Assert.assertEquals(3, selector.getLevel(160 * MB));
+    Assert.assertEquals(4, selector.getLevel(TARGET_FILE_SIZE));
+    Assert.assertEquals(4, selector.getLevel(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testSelectConsecutiveFilesOfLowestLevel() throws IOException {
+    List<TsFileResource> resources = new ArrayList<>();
+    // two level 1 files, which will not be selected while level 0 has tasks
+    resources.add(createResource(20 * MB));
+    resources.add(createResource(20 * MB));
+    // five level 0 files, the first four of them make a task
+    for (int i = 0; i < 5; i++) {
+      resources.add(createResource(MB));
+    }
+    // a level 1 file breaks the run of level 0 files
+    resources.add(createResource(20 * MB));
+    for (int i = 0; i < 4; i++) {
+      resources.add(createResource(MB));
+    }
+
+    List<List<TsFileResource>> taskList = selector.selectInnerSpaceTask(resources);
+    Assert.assertEquals(2, taskList.size());
+    Assert.assertEquals(resources.subList(2, 6), taskList.get(0));
+    Assert.assertEquals(resources.subList(8, 12), taskList.get(1));
+  }
+
+  @Test
+  public void testSkipUnclosedAndLargeFiles() throws IOException {
+    List<TsFileResource> resources = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      resources.add(createResource(MB));
+    }
+    TsFileResource unclosed = createResource(MB);
+    unclosed.setStatus(TsFileResourceStatus.UNCLOSED);
+    resources.add(unclosed);
+    resources.add(createResource(MB));
+    Assert.assertTrue(selector.selectInnerSpaceTask(resources).isEmpty());
+
+    resources.clear();
+    for (int i = 0; i < FAN_OUT; i++) {
+      resources.add(createResource(TARGET_FILE_SIZE));
+    }
+    Assert.assertTrue(selector.selectInnerSpaceTask(resources).isEmpty());
+  }
+
+  private TsFileResource createResource(long size) throws IOException {
+    File file =
+        new File(dir, TsFileNameGenerator.generateNewTsFileName(fileIndex, fileIndex, 0, 0));
+    fileIndex++;
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+      randomAccessFile.setLength(size);
+    }
+    TsFileResource resource = new TsFileResource(file);
+    resource.setStatus(TsFileResourceStatus.CLOSED);
+    return resource;
+  }
+}
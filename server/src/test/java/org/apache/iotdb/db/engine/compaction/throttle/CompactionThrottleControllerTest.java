@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.throttle;
+
+import org.apache.iotdb.db.engine.compaction.throttle.CompactionThrottleController.Decision;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompactionThrottleControllerTest {
+
+  private static final double DELTA = 1e-6;
+
+  @Test
+  public void testSlowDownAndRecover() {
+    CompactionThrottleController controller = new CompactionThrottleController();
+    // make sure the controller starts from the configured limits
+    controller.adjust(false, 0, 16, 2, 10);
+    Assert.assertEquals(16, controller.getWriteThroughputMbPerSec(), DELTA);
+
+    Assert.assertEquals(Decision.SLOW_DOWN, controller.adjust(true, 16, 16, 2, 10));
+    Assert.assertEquals(8, controller.getWriteThroughputMbPerSec(), DELTA);
+    Assert.assertEquals(9, controller.getMaxRunningTaskNum());
+
+    // the actual compaction I/O is lower than the limit, so the decrease is based on it
+    Assert.assertEquals(Decision.SLOW_DOWN, controller.adjust(true, 5, 16, 2, 10));
+    Assert.assertEquals(2.5, controller.getWriteThroughputMbPerSec(), DELTA);
+
+    // never lower than the min write throughput
+    controller.adjust(true, 5, 16, 2, 10);
+    Assert.assertEquals(2, controller.getWriteThroughputMbPerSec(), DELTA);
+
+    // recover additively until the configured throughput is reached
+    Assert.assertEquals(Decision.SPEED_UP, controller.adjust(false, 2, 16, 2, 10));
+    Assert.assertEquals(3.6, controller.getWriteThroughputMbPerSec(), DELTA);
+    for (int i = 0; i < 20; i++) {
+      controller.adjust(false, 2, 16, 2, 10);
+    }
+    Assert.assertEquals(16, controller.getWriteThroughputMbPerSec(), DELTA);
+    Assert.assertEquals(Decision.KEEP, controller.adjust(false, 16, 16, 2, 10));
+  }
+
+  @Test
+  public void testUnlimitedThroughput() {
+    CompactionThrottleController controller = new CompactionThrottleController();
+    for (int i = 0; i < 20; i++) {
+      controller.adjust(false, 0, 0, 2, 4);
+    }
+    Assert.assertEquals(0, controller.getWriteThroughputMbPerSec(), DELTA);
+
+    // only the task number is lowered if no compaction I/O is observed
+    Assert.assertEquals(Decision.SLOW_DOWN, controller.adjust(true, 0, 0, 2, 4));
+    Assert.assertEquals(0, controller.getWriteThroughputMbPerSec(), DELTA);
+
+    Assert.assertEquals(Decision.SLOW_DOWN, controller.adjust(true, 100, 0, 2, 4));
+    Assert.assertEquals(50, controller.getWriteThroughputMbPerSec(), DELTA);
+
+    // recover by doubling, and become unlimited again at last
+    controller.adjust(false, 50, 0, 2, 4);
+    Assert.assertEquals(100, controller.getWriteThroughputMbPerSec(), DELTA);
+    for (int i = 0; i < 10; i++) {
+      controller.adjust(false, 100, 0, 2, 4);
+    }
+    Assert.assertEquals(0, controller.getWriteThroughputMbPerSec(), DELTA);
+  }
+
+  @Test
+  public void testQueryLatencyPercentile() {
+    QueryLatencyRecorder recorder = QueryLatencyRecorder.getInstance();
+    recorder.fetchRecentPercentile(0.99);
+    for (int i = 1; i <= 100; i++) {
+      recorder.record(i);
+    }
+    Assert.assertEquals(99, recorder.fetchRecentPercentile(0.99));
+    // no query since the last fetch
+    Assert.assertEquals(0, recorder.fetchRecentPercentile(0.99));
+  }
+}
@@ -44,6 +44,8 @@ public class CompactionConfigRestorer {
   private long compactionScheduleIntervalInMs = 60000L;
   private long compactionSubmissionIntervalInMs = 60000L;
   private int compactionWriteThroughputMbPerSec = 8;
+  private int subCompactionTaskNum = 4;
+  private boolean enableDeviceParallelInnerCompaction = false;
 
   public CompactionConfigRestorer() {}
 
@@ -66,5 +68,7 @@ public class CompactionConfigRestorer {
     config.setCompactionScheduleIntervalInMs(compactionScheduleIntervalInMs);
     config.setCompactionSubmissionIntervalInMs(compactionSubmissionIntervalInMs);
     config.setCompactionWriteThroughputMbPerSec(compactionWriteThroughputMbPerSec);
+    config.setSubCompactionTaskNum(subCompactionTaskNum);
+    config.setEnableDeviceParallelInnerCompaction(enableDeviceParallelInnerCompaction);
   }
 }
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import org.apache.iotdb.commons.exception.IllegalPathException;
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.modification.Deletion;
+import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetadata;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.TimeValuePair;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LastCacheCheckpointTest {
+
+  private static final String DEVICE = "root.sg.d1";
+  private static final String OTHER_DEVICE = "root.sg.d2";
+
+  private File dir;
+  private LastCacheCheckpoint checkpoint;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = new File(TestConstant.BASE_OUTPUT_PATH.concat("lastCacheCheckpoint"));
+    dir.mkdirs();
+    checkpoint = new LastCacheCheckpoint(dir);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    checkpoint.close();
+    FileUtils.deleteDirectory(dir);
+  }
+
+  @Test
+  public void testMergeAndRestore() throws IOException {
+    assertFalse(checkpoint.isRestored());
+    checkpoint.mergeFlushedChunks(
+        chunkGroup(chunk("s1", 10, 100), chunk("s2", 20, 200)), noDeletion());
+    // an out-of-order flush does not replace the last point
+    checkpoint.mergeFlushedChunks(
+        chunkGroup(chunk("s1", 5, 50), chunk("s2", 30, 300)), noDeletion());
+
+    restore();
+    assertTrue(checkpoint.isRestored());
+    assertLast("s1", 10, 100);
+    assertLast("s2", 30, 300);
+    List<PartialPath> paths = new ArrayList<>();
+    checkpoint.forEachLast((path, timeValuePair) -> paths.add(path));
+    assertEquals(2, paths.size());
+  }
+
+  @Test
+  public void testDelete() throws IOException, IllegalPathException {
+    checkpoint.mergeFlushedChunks(
+        chunkGroup(chunk("s1", 10, 100), chunk("s2", 20, 200)), noDeletion());
+    checkpoint.delete(
+        Collections.singleton(new PartialPath(DEVICE)), new PartialPath(DEVICE, "s1"), 8, 15);
+    assertNull(checkpoint.getLast(DEVICE, "s1"));
+    assertLast("s2", 20, 200);
+
+    // the remaining points are before 8, an older point does not make the series known
+    checkpoint.mergeFlushedChunks(chunkGroup(chunk("s1", 6, 60)), noDeletion());
+    assertNull(checkpoint.getLast(DEVICE, "s1"));
+    checkpoint.mergeFlushedChunks(chunkGroup(chunk("s1", 9, 90)), noDeletion());
+
+    restore();
+    assertLast("s1", 9, 90);
+    assertLast("s2", 20, 200);
+  }
+
+  @Test
+  public void testPendingDeletion() throws IOException, IllegalPathException {
+    checkpoint.mergeFlushedChunks(chunkGroup(chunk("s1", 10, 100)), noDeletion());
+    // the last point of the flushed memtable is deleted while it is flushing
+    Deletion deletion = new Deletion(new PartialPath(DEVICE, "s1"), Long.MAX_VALUE, 15, 25);
+    checkpoint.mergeFlushedChunks(
+        chunkGroup(chunk("s1", 20, 200)), Collections.singletonList(deletion));
+    assertNull(checkpoint.getLast(DEVICE, "s1"));
+
+    restore();
+    assertNull(checkpoint.getLast(DEVICE, "s1"));
+    checkpoint.mergeFlushedChunks(chunkGroup(chunk("s1", 30, 300)), noDeletion());
+    assertLast("s1", 30, 300);
+  }
+
+  @Test
+  public void testInvalidateDevices() throws IOException {
+    checkpoint.mergeFlushedChunks(
+        chunkGroup(chunk("s1", 10, 100), chunk("s2", 50, 500)), noDeletion());
+    checkpoint.invalidateDevices(Collections.singletonMap(DEVICE, 40L));
+    assertNull(checkpoint.getLast(DEVICE, "s1"));
+    assertLast("s2", 50, 500);
+
+    restore();
+    // series without a known point are covered by the bound of the device
+    checkpoint.mergeFlushedChunks(
+        chunkGroup(chunk("s1", 30, 300), chunk("s3", 20, 200)), noDeletion());
+    assertNull(checkpoint.getLast(DEVICE, "s1"));
+    assertNull(checkpoint.getLast(DEVICE, "s3"));
+    checkpoint.mergeFlushedChunks(chunkGroup(chunk("s3", 41, 410)), noDeletion());
+    assertLast("s3", 41, 410);
+  }
+
+  @Test
+  public void testTornLog() throws IOException {
+    checkpoint.mergeFlushedChunks(chunkGroup(chunk("s1", 10, 100)), noDeletion());
+    checkpoint.close();
+    try (FileOutputStream outputStream =
+        new FileOutputStream(new File(dir, LastCacheCheckpoint.LOG_FILE_NAME), true)) {
+      outputStream.write(new byte[] {0, 0, 1, 0, 42});
+    }
+
+    checkpoint = new LastCacheCheckpoint(dir);
+    assertLast("s1", 10, 100);
+    checkpoint.mergeFlushedChunks(chunkGroup(chunk("s1", 20, 200)), noDeletion());
+    restore();
+    assertLast("s1", 20, 200);
+  }
+
+  @Test
+  public void testClear() throws IOException {
+    checkpoint.mergeFlushedChunks(chunkGroup(chunk("s1", 10, 100)), noDeletion());
+    checkpoint.clear();
+    assertEquals(0, new File(dir, LastCacheCheckpoint.LOG_FILE_NAME).length());
+
+    restore();
+    assertTrue(checkpoint.isRestored());
+    assertNull(checkpoint.getLast(DEVICE, "s1"));
+    checkpoint.mergeFlushedChunks(chunkGroup(chunk("s1", 5, 50)), noDeletion());
+    assertLast("s1", 5, 50);
+  }
+
+  @Test
+  public void testEvictDevices() throws IOException {
+    checkpoint.close();
+    checkpoint = new LastCacheCheckpoint(dir, 3);
+    checkpoint.mergeFlushedChunks(
+        chunkGroup(chunk("s1", 10, 100), chunk("s2", 20, 200)), noDeletion());
+    checkpoint.mergeFlushedChunks(
+        chunkGroup(OTHER_DEVICE, chunk("s1", 30, 300), chunk("s2", 40, 400)), noDeletion());
+    // the least recently used device is forgotten
+    assertNull(checkpoint.getLast(DEVICE, "s1"));
+    assertNull(checkpoint.getLast(DEVICE, "s2"));
+    assertEquals(30, checkpoint.getLast(OTHER_DEVICE, "s1").getTimestamp());
+
+    checkpoint.close();
+    checkpoint = new LastCacheCheckpoint(dir, 3);
+    assertNull(checkpoint.getLast(DEVICE, "s1"));
+    assertEquals(40, checkpoint.getLast(OTHER_DEVICE, "s2").getTimestamp());
+    // a point older than the forgotten ones does not make the series known
+    checkpoint.mergeFlushedChunks(chunkGroup(chunk("s1", 15, 150)), noDeletion());
+    assertNull(checkpoint.getLast(DEVICE, "s1"));
+    checkpoint.mergeFlushedChunks(chunkGroup(chunk("s1", 25, 250)), noDeletion());
+    assertLast("s1", 25, 250);
+  }
+
+  private void restore() throws IOException {
+    checkpoint.close();
+    checkpoint = new LastCacheCheckpoint(dir);
+  }
+
+  private void assertLast(String measurement, long time, long value) {
+    TimeValuePair last = checkpoint.getLast(DEVICE, measurement);
+    assertEquals(time, last.getTimestamp());
+    assertEquals(value, last.getValue().getLong());
+  }
+
+  private static List<Deletion> noDeletion() {
+    return Collections.emptyList();
+  }
+
+  private static List<ChunkGroupMetadata> chunkGroup(ChunkMetadata... chunkMetadata) {
+    return chunkGroup(DEVICE, chunkMetadata);
+  }
+
+  private static List<ChunkGroupMetadata> chunkGroup(
+      String device, ChunkMetadata... chunkMetadata) {
+    List<ChunkMetadata> chunkMetadataList = new ArrayList<>();
+    Collections.addAll(chunkMetadataList, chunkMetadata);
+    return Collections.singletonList(new ChunkGroupMetadata(device, chunkMetadataList));
+  }
+
+  private static ChunkMetadata chunk(String measurement, long lastTime, long lastValue) {
+    Statistics<? extends Serializable> statistics = Statistics.getStatsByType(TSDataType.INT64);
+    statistics.update(lastTime - 1, lastValue - 1);
+    statistics.update(lastTime, lastValue);
+    return new ChunkMetadata(measurement, TSDataType.INT64, 0, statistics);
+  }
+}
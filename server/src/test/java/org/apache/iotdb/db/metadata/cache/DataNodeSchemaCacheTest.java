@@ -173,6 +173,39 @@ public class DataNodeSchemaCacheTest {
     Assert.assertNull(dataNodeSchemaCache.getLastCache(seriesPath3));
   }
 
+  @Test
+  public void testRecoveredLastCache() throws IllegalPathException {
+    PartialPath seriesPath1 = new PartialPath("root.sg1.d1.s1");
+    PartialPath seriesPath2 = new PartialPath("root.sg1.d1.s2");
+    TimeValuePair recovered =
+        new TimeValuePair(100, TsPrimitiveType.getByType(TSDataType.INT32, 100));
+    dataNodeSchemaCache.putRecoveredLastCache(seriesPath1, recovered);
+    dataNodeSchemaCache.putRecoveredLastCache(seriesPath2, recovered);
+
+    // a write before the series is cached drops the recovered value
+    dataNodeSchemaCache.updateLastCache(
+        seriesPath1,
+        new TimeValuePair(200, TsPrimitiveType.getByType(TSDataType.INT32, 200)),
+        false,
+        Long.MIN_VALUE);
+    dataNodeSchemaCache.put(generateSchemaTree1());
+    Assert.assertNull(dataNodeSchemaCache.getLastCache(seriesPath1));
+
+    TimeValuePair cachedTimeValuePair = dataNodeSchemaCache.getLastCache(seriesPath2);
+    Assert.assertNotNull(cachedTimeValuePair);
+    Assert.assertEquals(100, cachedTimeValuePair.getTimestamp());
+
+    // the written value is newer than the recovered one
+    dataNodeSchemaCache.updateLastCache(
+        seriesPath1,
+        new TimeValuePair(300, TsPrimitiveType.getByType(TSDataType.INT32, 300)),
+        false,
+        Long.MIN_VALUE);
+    cachedTimeValuePair = dataNodeSchemaCache.getLastCache(seriesPath1);
+    Assert.assertNotNull(cachedTimeValuePair);
+    Assert.assertEquals(300, cachedTimeValuePair.getTimestamp());
+  }
+
   private SchemaTree generateSchemaTree1() throws IllegalPathException {
     SchemaTree schemaTree = new SchemaTree();
 
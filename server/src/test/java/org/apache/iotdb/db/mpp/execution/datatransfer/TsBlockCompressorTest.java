@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.datatransfer;
+
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class TsBlockCompressorTest {
+
+  @Test
+  public void testCompressAndUncompress() throws IOException {
+    byte[] serialized = new byte[4096];
+    for (int i = 0; i < serialized.length; i++) {
+      serialized[i] = (byte) (i % 16);
+    }
+    for (CompressionType compressionType :
+        new CompressionType[] {CompressionType.SNAPPY, CompressionType.LZ4, CompressionType.GZIP}) {
+      TsBlockCompressor compressor = new TsBlockCompressor(compressionType);
+      Assert.assertTrue(compressor.isCompressed());
+
+      ByteBuffer compressed = compressor.compress(ByteBuffer.wrap(serialized));
+      Assert.assertTrue(compressed.remaining() < serialized.length);
+
+      ByteBuffer uncompressed =
+          TsBlockCompressor.uncompress(
+              compressed, IUnCompressor.getUnCompressor(compressor.getCompressionType()));
+      Assert.assertEquals(ByteBuffer.wrap(serialized), uncompressed);
+    }
+  }
+
+  @Test
+  public void testUncompressed() {
+    Assert.assertFalse(new TsBlockCompressor(CompressionType.UNCOMPRESSED).isCompressed());
+  }
+}
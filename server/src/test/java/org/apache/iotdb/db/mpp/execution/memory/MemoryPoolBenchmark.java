@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.memory;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MemoryPool benchmark. Many driver threads reserve and free memory for their own queries on one
+ * pool, as the sink handles do for every TsBlock, and the throughput is printed.
+ */
+public class MemoryPoolBenchmark {
+
+  private static final int numOfThreads = 64;
+  private static final int numOfQueries = 16;
+  private static final int numOfOperationsPerThread = 1_000_000;
+  private static final long bytesPerOperation = 1024L;
+
+  public static void main(String[] args) throws InterruptedException {
+    // Leave room for half of the threads, so that some reservations are blocked.
+    MemoryPool pool =
+        new MemoryPool(
+            "benchmark",
+            numOfThreads * bytesPerOperation / 2,
+            numOfThreads * bytesPerOperation / numOfQueries);
+    CountDownLatch startLatch = new CountDownLatch(1);
+    CountDownLatch finishLatch = new CountDownLatch(numOfThreads);
+    AtomicLong blockedReservations = new AtomicLong();
+
+    for (int i = 0; i < numOfThreads; i++) {
+      String queryId = "q" + (i % numOfQueries);
+      new Thread(
+              () -> {
+                try {
+                  startLatch.await();
+                  for (int j = 0; j < numOfOperationsPerThread; j++) {
+                    ListenableFuture<Void> future = pool.reserve(queryId, bytesPerOperation);
+                    if (!future.isDone()) {
+                      blockedReservations.incrementAndGet();
+                      future.get();
+                    }
+                    pool.free(queryId, bytesPerOperation);
+                  }
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                  e.printStackTrace();
+                } finally {
+                  finishLatch.countDown();
+                }
+              },
+              "driver-" + i)
+          .start();
+    }
+
+    final long startTime = System.currentTimeMillis();
+    startLatch.countDown();
+    finishLatch.await();
+    final long endTime = System.currentTimeMillis();
+
+    long totalOperations = (long) numOfThreads * numOfOperationsPerThread;
+    System.out.println(
+        String.format(
+            "Num of threads: %d, "
+                + "Num of reserve and free for each thread: %d, "
+                + "Blocked reservations: %d, "
+                + "The total time: %d ms, "
+                + "Throughput: %d ops/ms, "
+                + "Reserved bytes left: %d. ",
+            numOfThreads,
+            numOfOperationsPerThread,
+            blockedReservations.get(),
+            endTime - startTime,
+            totalOperations / Math.max(endTime - startTime, 1),
+            pool.getReservedBytes()));
+  }
+}
@@ -24,6 +24,13 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 public class MemoryPoolTest {
 
   MemoryPool pool;
@@ -272,4 +279,78 @@ public class MemoryPoolTest {
     Assert.assertTrue(f.isDone());
     Assert.assertFalse(f.isCancelled());
   }
+
+  @Test
+  public void testConcurrentReserveAndFree() throws Exception {
+    int numOfThreads = 16;
+    ExecutorService executor = Executors.newFixedThreadPool(numOfThreads);
+    try {
+      List<Future<?>> results = new ArrayList<>();
+      for (int i = 0; i < numOfThreads; i++) {
+        String queryId = "q" + (i % 4);
+        results.add(
+            executor.submit(
+                () -> {
+                  for (int j = 0; j < 10000; j++) {
+                    pool.reserve(queryId, 128L).get(10, TimeUnit.SECONDS);
+                    pool.free(queryId, 128L);
+                  }
+                  return null;
+                }));
+      }
+      for (Future<?> result : results) {
+        result.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    Assert.assertEquals(0L, pool.getReservedBytes());
+    for (int i = 0; i < 4; i++) {
+      Assert.assertEquals(0L, pool.getQueryMemoryReservedBytes("q" + i));
+    }
+  }
+
+  @Test
+  public void testFreeAfterCancel() {
+    String queryId = "q0";
+    Assert.assertTrue(pool.tryReserve(queryId, 512L));
+    ListenableFuture<Void> f1 = pool.reserve(queryId, 256L);
+    ListenableFuture<Void> f2 = pool.reserve(queryId, 256L);
+    Assert.assertEquals(256L, pool.tryCancel(f1));
+
+    pool.free(queryId, 256L);
+    Assert.assertTrue(f1.isCancelled());
+    Assert.assertTrue(f2.isDone());
+    Assert.assertFalse(f2.isCancelled());
+    Assert.assertEquals(512L, pool.getQueryMemoryReservedBytes(queryId));
+    Assert.assertEquals(512L, pool.getReservedBytes());
+  }
+
+  @Test
+  public void testMemoryGroup() {
+    MemoryPool.MemoryGroup group = new MemoryPool.MemoryGroup("adhoc", 384L);
+    pool.setQueryGroup("q0", group);
+    pool.setQueryGroup("q1", group);
+
+    Assert.assertTrue(pool.tryReserve("q0", 256L));
+    Assert.assertFalse(pool.tryReserve("q1", 256L));
+    Assert.assertEquals(0L, pool.getQueryMemoryReservedBytes("q1"));
+    ListenableFuture<Void> future = pool.reserve("q1", 256L);
+    Assert.assertFalse(future.isDone());
+    // the queries out of the group are not limited by it
+    Assert.assertTrue(pool.tryReserve("q2", 512L));
+    Assert.assertEquals(256L, group.getReservedBytes());
+    Assert.assertEquals(768L, pool.getReservedBytes());
+
+    pool.free("q0", 256L);
+    Assert.assertTrue(future.isDone());
+    Assert.assertEquals(256L, pool.getQueryMemoryReservedBytes("q1"));
+    Assert.assertEquals(256L, group.getReservedBytes());
+
+    // the memory reserved before the group is removed is still freed from it
+    pool.removeQueryGroup("q1");
+    pool.free("q1", 256L);
+    Assert.assertEquals(0L, group.getReservedBytes());
+    Assert.assertEquals(512L, pool.getReservedBytes());
+  }
 }
@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.operator;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.mpp.aggregation.GroupedAggregator;
+import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
+import org.apache.iotdb.db.mpp.common.PlanFragmentId;
+import org.apache.iotdb.db.mpp.common.QueryId;
+import org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceContext;
+import org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceStateMachine;
+import org.apache.iotdb.db.mpp.execution.memory.MemoryPool;
+import org.apache.iotdb.db.mpp.execution.operator.process.HashAggregationOperator;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.AggregationStep;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.InputLocation;
+import org.apache.iotdb.db.query.aggregation.AggregationType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import static org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceContext.createFragmentInstanceContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HashAggregationOperatorTest {
+
+  private static final String SPILL_DIR = TestConstant.BASE_OUTPUT_PATH + "hash-aggregation";
+  private static final List<TSDataType> DATA_TYPES =
+      Arrays.asList(TSDataType.TEXT, TSDataType.INT64);
+  private static final AggregationType[] AGGREGATION_TYPES = {
+    AggregationType.COUNT, AggregationType.SUM, AggregationType.MAX_VALUE
+  };
+
+  private ExecutorService instanceNotificationExecutor;
+  private FragmentInstanceContext fragmentInstanceContext;
+
+  @Before
+  public void setUp() throws IOException {
+    FileUtils.forceMkdir(new File(SPILL_DIR));
+    instanceNotificationExecutor =
+        IoTDBThreadPoolFactory.newFixedThreadPool(1, "test-instance-notification");
+    QueryId queryId = new QueryId("stub_query");
+    FragmentInstanceId instanceId =
+        new FragmentInstanceId(new PlanFragmentId(queryId, 0), "stub-instance");
+    FragmentInstanceStateMachine stateMachine =
+        new FragmentInstanceStateMachine(instanceId, instanceNotificationExecutor);
+    fragmentInstanceContext = createFragmentInstanceContext(instanceId, stateMachine);
+    for (int i = 1; i <= 3; i++) {
+      fragmentInstanceContext.addOperatorContext(
+          i, new PlanNodeId(String.valueOf(i)), HashAggregationOperator.class.getSimpleName());
+    }
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    instanceNotificationExecutor.shutdown();
+    FileUtils.deleteDirectory(new File(SPILL_DIR));
+  }
+
+  /** rows of time i with tag "t" + (i % groupNum) and value i, every tenth value is null */
+  private static List<TsBlock> generateTsBlocks(
+      int startTime, int tsBlockNum, int rowNumPerTsBlock, int groupNum) {
+    List<TsBlock> tsBlocks = new ArrayList<>();
+    for (int i = 0; i < tsBlockNum; i++) {
+      TsBlockBuilder builder = new TsBlockBuilder(DATA_TYPES);
+      for (int j = 0; j < rowNumPerTsBlock; j++) {
+        long time = startTime + (long) i * rowNumPerTsBlock + j;
+        builder.getTimeColumnBuilder().writeLong(time);
+        builder.getColumnBuilder(0).writeBinary(new Binary("t" + time % groupNum));
+        if (time % 10 == 9) {
+          builder.getColumnBuilder(1).appendNull();
+        } else {
+          builder.getColumnBuilder(1).writeLong(time);
+        }
+        builder.declarePosition();
+      }
+      tsBlocks.add(builder.build());
+    }
+    return tsBlocks;
+  }
+
+  private static Operator createChild(List<TsBlock> tsBlocks) {
+    return new Operator() {
+      private int index = 0;
+
+      @Override
+      public OperatorContext getOperatorContext() {
+        return null;
+      }
+
+      @Override
+      public TsBlock next() {
+        return tsBlocks.get(index++);
+      }
+
+      @Override
+      public boolean hasNext() {
+        return index < tsBlocks.size();
+      }
+
+      @Override
+      public boolean isFinished() {
+        return !hasNext();
+      }
+    };
+  }
+
+  /** count, sum and max_value of the value column grouped by the tag column */
+  private HashAggregationOperator createOperator(
+      int operatorIndex,
+      List<Operator> children,
+      AggregationStep step,
+      MemoryPool memoryPool,
+      long maxBufferSize) {
+    List<GroupedAggregator> aggregators = new ArrayList<>();
+    for (int i = 0; i < AGGREGATION_TYPES.length; i++) {
+      // the partial result of each aggregation is one column after the tag column
+      int inputColumnIndex = step.isInputRaw() ? 1 : i + 1;
+      aggregators.add(
+          new GroupedAggregator(
+              AGGREGATION_TYPES[i],
+              TSDataType.INT64,
+              true,
+              step,
+              Collections.singletonList(
+                  new InputLocation[] {new InputLocation(0, inputColumnIndex)})));
+    }
+    return new HashAggregationOperator(
+        fragmentInstanceContext.getOperatorContexts().get(operatorIndex),
+        children,
+        Collections.singletonList(0),
+        Collections.singletonList(TSDataType.TEXT),
+        aggregators,
+        memoryPool,
+        maxBufferSize,
+        SPILL_DIR);
+  }
+
+  private static List<TsBlock> collectOutput(Operator operator) throws Exception {
+    List<TsBlock> tsBlocks = new ArrayList<>();
+    while (operator.hasNext()) {
+      TsBlock tsBlock = operator.next();
+      if (tsBlock != null) {
+        tsBlocks.add(tsBlock);
+      }
+    }
+    assertTrue(operator.isFinished());
+    return tsBlocks;
+  }
+
+  /** Check the results of the rows in [0, rowNum) grouped by time % groupNum. */
+  private static void checkOutput(List<TsBlock> tsBlocks, int rowNum, int groupNum) {
+    Map<String, Integer> groupToRow = new HashMap<>();
+    for (TsBlock tsBlock : tsBlocks) {
+      for (int i = 0; i < tsBlock.getPositionCount(); i++) {
+        String tag = tsBlock.getColumn(0).getBinary(i).toString();
+        assertFalse(groupToRow.containsKey(tag));
+        groupToRow.put(tag, i);
+        int group = Integer.parseInt(tag.substring(1));
+        long count = 0;
+        double sum = 0;
+        long max = Long.MIN_VALUE;
+        for (long time = group; time < rowNum; time += groupNum) {
+          if (time % 10 != 9) {
+            count++;
+            sum += time;
+            max = Math.max(max, time);
+          }
+        }
+        assertEquals(count, tsBlock.getColumn(1).getLong(i));
+        if (count == 0) {
+          assertTrue(tsBlock.getColumn(2).isNull(i));
+          assertTrue(tsBlock.getColumn(3).isNull(i));
+        } else {
+          assertEquals(sum, tsBlock.getColumn(2).getDouble(i), 0.001);
+          assertEquals(max, tsBlock.getColumn(3).getLong(i));
+        }
+      }
+    }
+    assertEquals(groupNum, groupToRow.size());
+  }
+
+  @Test
+  public void testHashAggregationInMemory() throws Exception {
+    MemoryPool memoryPool = new MemoryPool("test", 1024 * 1024 * 1024, 1024 * 1024 * 1024);
+    HashAggregationOperator operator =
+        createOperator(
+            0,
+            Collections.singletonList(createChild(generateTsBlocks(0, 10, 100, 30))),
+            AggregationStep.SINGLE,
+            memoryPool,
+            Long.MAX_VALUE);
+    checkOutput(collectOutput(operator), 1000, 30);
+    assertEquals(0, new File(SPILL_DIR).list().length);
+    operator.close();
+    assertEquals(0, memoryPool.getReservedBytes());
+  }
+
+  @Test
+  public void testHashAggregationWithSpill() throws Exception {
+    MemoryPool memoryPool = new MemoryPool("test", 1024 * 1024 * 1024, 1024 * 1024 * 1024);
+    // the groups are spilled after each TsBlock
+    HashAggregationOperator operator =
+        createOperator(
+            0,
+            Collections.singletonList(createChild(generateTsBlocks(0, 20, 500, 3000))),
+            AggregationStep.SINGLE,
+            memoryPool,
+            1);
+    List<TsBlock> tsBlocks = new ArrayList<>();
+    while (operator.hasNext()) {
+      TsBlock tsBlock = operator.next();
+      if (tsBlock != null) {
+        tsBlocks.add(tsBlock);
+        // the spilled partitions are merged and deleted one by one
+        assertTrue(new File(SPILL_DIR).list().length < 8);
+      }
+    }
+    checkOutput(tsBlocks, 10000, 3000);
+    operator.close();
+    assertEquals(0, new File(SPILL_DIR).list().length);
+    assertEquals(0, memoryPool.getReservedBytes());
+  }
+
+  @Test
+  public void testPartialAndFinalAggregation() throws Exception {
+    MemoryPool memoryPool = new MemoryPool("test", 1024 * 1024 * 1024, 1024 * 1024 * 1024);
+    // the rows are split into two fragments, each of which outputs the partial results
+    HashAggregationOperator partial1 =
+        createOperator(
+            0,
+            Collections.singletonList(createChild(generateTsBlocks(0, 5, 100, 30))),
+            AggregationStep.PARTIAL,
+            memoryPool,
+            Long.MAX_VALUE);
+    HashAggregationOperator partial2 =
+        createOperator(
+            1,
+            Collections.singletonList(createChild(generateTsBlocks(500, 5, 100, 30))),
+            AggregationStep.PARTIAL,
+            memoryPool,
+            Long.MAX_VALUE);
+    HashAggregationOperator finalOperator =
+        createOperator(
+            2,
+            Arrays.asList(
+                createChild(collectOutput(partial1)), createChild(collectOutput(partial2))),
+            AggregationStep.FINAL,
+            memoryPool,
+            Long.MAX_VALUE);
+    checkOutput(collectOutput(finalOperator), 1000, 30);
+    finalOperator.close();
+    partial1.close();
+    partial2.close();
+    assertEquals(0, memoryPool.getReservedBytes());
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.operator;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
+import org.apache.iotdb.db.mpp.common.PlanFragmentId;
+import org.apache.iotdb.db.mpp.common.QueryId;
+import org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceContext;
+import org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceStateMachine;
+import org.apache.iotdb.db.mpp.execution.memory.MemoryPool;
+import org.apache.iotdb.db.mpp.execution.operator.process.SortOperator;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+
+import static org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceContext.createFragmentInstanceContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SortOperatorTest {
+
+  private static final String SPILL_DIR = TestConstant.BASE_OUTPUT_PATH + "sort";
+  private static final List<TSDataType> DATA_TYPES =
+      Arrays.asList(TSDataType.INT64, TSDataType.TEXT);
+
+  private ExecutorService instanceNotificationExecutor;
+  private FragmentInstanceContext fragmentInstanceContext;
+
+  @Before
+  public void setUp() throws IOException {
+    FileUtils.forceMkdir(new File(SPILL_DIR));
+    instanceNotificationExecutor =
+        IoTDBThreadPoolFactory.newFixedThreadPool(1, "test-instance-notification");
+    QueryId queryId = new QueryId("stub_query");
+    FragmentInstanceId instanceId =
+        new FragmentInstanceId(new PlanFragmentId(queryId, 0), "stub-instance");
+    FragmentInstanceStateMachine stateMachine =
+        new FragmentInstanceStateMachine(instanceId, instanceNotificationExecutor);
+    fragmentInstanceContext = createFragmentInstanceContext(instanceId, stateMachine);
+    fragmentInstanceContext.addOperatorContext(
+        1, new PlanNodeId("1"), SortOperator.class.getSimpleName());
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    instanceNotificationExecutor.shutdown();
+    FileUtils.deleteDirectory(new File(SPILL_DIR));
+  }
+
+  /** rows of time i with value (i * 7919) % rowNum, every tenth value is null */
+  private static List<TsBlock> generateTsBlocks(int tsBlockNum, int rowNumPerTsBlock) {
+    int rowNum = tsBlockNum * rowNumPerTsBlock;
+    List<TsBlock> tsBlocks = new ArrayList<>();
+    for (int i = 0; i < tsBlockNum; i++) {
+      TsBlockBuilder builder = new TsBlockBuilder(DATA_TYPES);
+      for (int j = 0; j < rowNumPerTsBlock; j++) {
+        long time = (long) i * rowNumPerTsBlock + j;
+        builder.getTimeColumnBuilder().writeLong(time);
+        if (time % 10 == 9) {
+          builder.getColumnBuilder(0).appendNull();
+        } else {
+          builder.getColumnBuilder(0).writeLong(time * 7919 % rowNum);
+        }
+        builder.getColumnBuilder(1).writeBinary(new Binary("v" + time));
+        builder.declarePosition();
+      }
+      tsBlocks.add(builder.build());
+    }
+    Collections.shuffle(tsBlocks, new Random(0));
+    return tsBlocks;
+  }
+
+  private SortOperator createSortOperator(
+      List<TsBlock> tsBlocks, long topN, MemoryPool memoryPool, long maxBufferSize) {
+    Operator child =
+        new Operator() {
+          private int index = 0;
+
+          @Override
+          public OperatorContext getOperatorContext() {
+            return null;
+          }
+
+          @Override
+          public TsBlock next() {
+            return tsBlocks.get(index++);
+          }
+
+          @Override
+          public boolean hasNext() {
+            return index < tsBlocks.size();
+          }
+
+          @Override
+          public boolean isFinished() {
+            return !hasNext();
+          }
+        };
+    // value desc, then time asc
+    return new SortOperator(
+        fragmentInstanceContext.getOperatorContexts().get(0),
+        child,
+        DATA_TYPES,
+        SortOperator.createComparator(Arrays.asList(0, -1), Arrays.asList(false, true), DATA_TYPES),
+        topN,
+        memoryPool,
+        maxBufferSize,
+        SPILL_DIR);
+  }
+
+  /** @return the time of the output rows */
+  private static List<Long> checkOutput(SortOperator sortOperator) {
+    List<Long> times = new ArrayList<>();
+    Long lastValue = null;
+    boolean metNull = false;
+    while (sortOperator.hasNext()) {
+      TsBlock tsBlock = sortOperator.next();
+      if (tsBlock == null) {
+        continue;
+      }
+      for (int i = 0; i < tsBlock.getPositionCount(); i++) {
+        long time = tsBlock.getTimeByIndex(i);
+        times.add(time);
+        assertEquals("v" + time, tsBlock.getColumn(1).getBinary(i).toString());
+        if (tsBlock.getColumn(0).isNull(i)) {
+          assertEquals(9, time % 10);
+          metNull = true;
+          continue;
+        }
+        // the nulls are at last
+        assertFalse(metNull);
+        long value = tsBlock.getColumn(0).getLong(i);
+        if (lastValue != null) {
+          assertTrue(lastValue >= value);
+        }
+        lastValue = value;
+      }
+    }
+    assertTrue(sortOperator.isFinished());
+    return times;
+  }
+
+  @Test
+  public void testSortInMemory() throws Exception {
+    MemoryPool memoryPool = new MemoryPool("test", 1024 * 1024 * 1024, 1024 * 1024 * 1024);
+    SortOperator sortOperator =
+        createSortOperator(generateTsBlocks(10, 100), Long.MAX_VALUE, memoryPool, Long.MAX_VALUE);
+    List<Long> times = checkOutput(sortOperator);
+    assertEquals(1000, times.size());
+    assertEquals(1000, times.stream().distinct().count());
+    assertEquals(0, new File(SPILL_DIR).list().length);
+    sortOperator.close();
+    assertEquals(0, memoryPool.getReservedBytes());
+  }
+
+  @Test
+  public void testSortWithSpill() throws Exception {
+    MemoryPool memoryPool = new MemoryPool("test", 1024 * 1024 * 1024, 1024 * 1024 * 1024);
+    // about two TsBlocks could be buffered
+    SortOperator sortOperator =
+        createSortOperator(generateTsBlocks(20, 100), Long.MAX_VALUE, memoryPool, 16 * 1024);
+    List<Long> times = checkOutput(sortOperator);
+    assertEquals(2000, times.size());
+    assertEquals(2000, times.stream().distinct().count());
+    assertTrue(new File(SPILL_DIR).list().length > 1);
+    sortOperator.close();
+    assertEquals(0, new File(SPILL_DIR).list().length);
+    assertEquals(0, memoryPool.getReservedBytes());
+  }
+
+  @Test
+  public void testSortWhenPoolIsUsedUp() throws Exception {
+    MemoryPool memoryPool = new MemoryPool("test", 1024 * 1024, 1024 * 1024);
+    // the others take all the memory
+    assertTrue(memoryPool.tryReserve("others", 1024 * 1024));
+    SortOperator sortOperator =
+        createSortOperator(generateTsBlocks(5, 100), Long.MAX_VALUE, memoryPool, Long.MAX_VALUE);
+    assertEquals(500, checkOutput(sortOperator).size());
+    sortOperator.close();
+    assertEquals(1024 * 1024, memoryPool.getReservedBytes());
+  }
+
+  @Test
+  public void testTopN() throws Exception {
+    MemoryPool memoryPool = new MemoryPool("test", 1024 * 1024 * 1024, 1024 * 1024 * 1024);
+    SortOperator sortOperator =
+        createSortOperator(generateTsBlocks(50, 100), 10, memoryPool, Long.MAX_VALUE);
+    List<Long> times = checkOutput(sortOperator);
+    assertEquals(10, times.size());
+    // the largest values are 4999, 4998, ... and value v is at time v * 7919^-1 mod 5000
+    SortOperator fullSortOperator =
+        createSortOperator(generateTsBlocks(50, 100), Long.MAX_VALUE, memoryPool, Long.MAX_VALUE);
+    assertEquals(checkOutput(fullSortOperator).subList(0, 10), times);
+    // nothing is spilled by top n
+    assertEquals(0, new File(SPILL_DIR).list().length);
+    sortOperator.close();
+    fullSortOperator.close();
+    assertEquals(0, memoryPool.getReservedBytes());
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.operator;
+
+import org.apache.iotdb.db.mpp.execution.operator.process.merge.TimeColumnLoserTree;
+import org.apache.iotdb.tsfile.read.common.block.column.TimeColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.TimeColumnBuilder;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class TimeColumnLoserTreeTest {
+
+  @Test
+  public void mergeInterleavedTest() {
+    TimeColumn[] timeColumns =
+        new TimeColumn[] {
+          timeColumn(1, 4, 7, 10), timeColumn(2, 5, 8, 11), timeColumn(3, 6, 9, 12)
+        };
+    assertMerged(true, timeColumns, new int[] {0, 0, 0}, new int[] {4, 4, 4});
+    // only part of each column takes part in the merge
+    assertMerged(true, timeColumns, new int[] {1, 0, 2}, new int[] {3, 4, 3});
+  }
+
+  @Test
+  public void mergeNonPowerOfTwoLeavesTest() {
+    for (int leafCount : new int[] {3, 5, 6, 7, 9}) {
+      TimeColumn[] timeColumns = new TimeColumn[leafCount];
+      int[] startPositions = new int[leafCount];
+      int[] endPositions = new int[leafCount];
+      for (int i = 0; i < leafCount; i++) {
+        long[] times = new long[10];
+        for (int j = 0; j < times.length; j++) {
+          times[j] = (long) j * leafCount + i;
+        }
+        timeColumns[i] = timeColumn(times);
+        endPositions[i] = times.length;
+      }
+      assertMerged(true, timeColumns, startPositions, endPositions);
+    }
+  }
+
+  @Test
+  public void mergeDescendingTest() {
+    TimeColumn[] timeColumns =
+        new TimeColumn[] {
+          timeColumn(12, 9, 6, 3), timeColumn(11, 8, 5, 2), timeColumn(10, 7, 4, 1),
+        };
+    assertMerged(false, timeColumns, new int[] {0, 0, 0}, new int[] {4, 4, 4});
+  }
+
+  @Test
+  public void mergeDuplicatedTimestampsTest() {
+    TimeColumn[] timeColumns =
+        new TimeColumn[] {
+          timeColumn(1, 3, 5, 7), timeColumn(1, 2, 3, 7), timeColumn(3, 7, 8), timeColumn(3)
+        };
+    int count = assertMerged(true, timeColumns, new int[] {0, 0, 0, 0}, new int[] {4, 4, 3, 1});
+    assertEquals(6, count);
+  }
+
+  @Test
+  public void mergeExhaustedLeavesTest() {
+    TimeColumn[] timeColumns =
+        new TimeColumn[] {
+          timeColumn(1, 2), timeColumn(5, 6, 7), timeColumn(3, 4), timeColumn(8), timeColumn(9)
+        };
+    // the 1st leaf is exhausted at first, and the 4th one has an empty range
+    assertMerged(true, timeColumns, new int[] {2, 0, 0, 1, 0}, new int[] {2, 3, 2, 1, 1});
+    // all the leaves are exhausted
+    int count = assertMerged(true, timeColumns, new int[] {2, 3}, new int[] {2, 3});
+    assertEquals(0, count);
+  }
+
+  @Test
+  public void mergeRandomTest() {
+    Random random = new Random(20220801);
+    TimeColumnLoserTree ascendingTree = new TimeColumnLoserTree(true);
+    TimeColumnLoserTree descendingTree = new TimeColumnLoserTree(false);
+    for (int round = 0; round < 100; round++) {
+      int leafCount = 1 + random.nextInt(12);
+      TimeColumn[] ascendingColumns = new TimeColumn[leafCount];
+      TimeColumn[] descendingColumns = new TimeColumn[leafCount];
+      int[] startPositions = new int[leafCount];
+      int[] endPositions = new int[leafCount];
+      for (int i = 0; i < leafCount; i++) {
+        TreeSet<Long> times = new TreeSet<>();
+        int size = random.nextInt(20);
+        while (times.size() < size) {
+          times.add((long) random.nextInt(100));
+        }
+        List<Long> timeList = new ArrayList<>(times);
+        ascendingColumns[i] = timeColumn(timeList);
+        Collections.reverse(timeList);
+        descendingColumns[i] = timeColumn(timeList);
+        startPositions[i] = size == 0 ? 0 : random.nextInt(size);
+        endPositions[i] = startPositions[i] + random.nextInt(size - startPositions[i] + 1);
+      }
+      assertMerged(ascendingTree, true, ascendingColumns, startPositions, endPositions);
+      int[] descendingStartPositions = new int[leafCount];
+      int[] descendingEndPositions = new int[leafCount];
+      for (int i = 0; i < leafCount; i++) {
+        int size = descendingColumns[i].getPositionCount();
+        descendingStartPositions[i] = size - endPositions[i];
+        descendingEndPositions[i] = size - startPositions[i];
+      }
+      assertMerged(
+          descendingTree,
+          false,
+          descendingColumns,
+          descendingStartPositions,
+          descendingEndPositions);
+    }
+  }
+
+  private static int assertMerged(
+      boolean ascending, TimeColumn[] timeColumns, int[] startPositions, int[] endPositions) {
+    return assertMerged(
+        new TimeColumnLoserTree(ascending), ascending, timeColumns, startPositions, endPositions);
+  }
+
+  /** @return the number of the merged timestamps */
+  private static int assertMerged(
+      TimeColumnLoserTree loserTree,
+      boolean ascending,
+      TimeColumn[] timeColumns,
+      int[] startPositions,
+      int[] endPositions) {
+    TreeSet<Long> expected = new TreeSet<>();
+    for (int i = 0; i < startPositions.length; i++) {
+      for (int j = startPositions[i]; j < endPositions[i]; j++) {
+        expected.add(timeColumns[i].getLong(j));
+      }
+    }
+    int[] originalStartPositions = startPositions.clone();
+
+    TimeColumnBuilder timeColumnBuilder = new TimeColumnBuilder(null, 1);
+    int count =
+        loserTree.merge(
+            timeColumns, startPositions, endPositions, startPositions.length, timeColumnBuilder);
+
+    List<Long> expectedTimes = new ArrayList<>(ascending ? expected : expected.descendingSet());
+    assertEquals(expectedTimes.size(), count);
+    assertEquals(count, timeColumnBuilder.getPositionCount());
+    List<Long> actualTimes = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      actualTimes.add(timeColumnBuilder.getTime(i));
+    }
+    assertEquals(expectedTimes, actualTimes);
+    // the positions of the caller are not touched
+    assertEquals(Arrays.toString(originalStartPositions), Arrays.toString(startPositions));
+    return count;
+  }
+
+  private static TimeColumn timeColumn(long... times) {
+    return new TimeColumn(times.length, times);
+  }
+
+  private static TimeColumn timeColumn(List<Long> times) {
+    return timeColumn(times.stream().mapToLong(Long::longValue).toArray());
+  }
+}
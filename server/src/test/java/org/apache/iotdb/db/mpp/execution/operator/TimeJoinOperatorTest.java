@@ -31,8 +31,10 @@ import org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceContext;
 import org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceStateMachine;
 import org.apache.iotdb.db.mpp.execution.operator.process.TimeJoinOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.merge.AscTimeComparator;
+import org.apache.iotdb.db.mpp.execution.operator.process.merge.ColumnMerger;
 import org.apache.iotdb.db.mpp.execution.operator.process.merge.DescTimeComparator;
 import org.apache.iotdb.db.mpp.execution.operator.process.merge.SingleColumnMerger;
+import org.apache.iotdb.db.mpp.execution.operator.process.merge.TimeComparator;
 import org.apache.iotdb.db.mpp.execution.operator.source.SeriesScanOperator;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.InputLocation;
@@ -41,6 +43,7 @@ import org.apache.iotdb.db.query.reader.series.SeriesReaderTestUtil;
 import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
 import org.apache.iotdb.tsfile.read.common.block.column.IntColumn;
 import org.apache.iotdb.tsfile.read.common.block.column.RunLengthEncodedColumn;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
@@ -52,13 +55,18 @@ import org.junit.Test;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
 
 import static org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceContext.createFragmentInstanceContext;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -411,4 +419,125 @@ public class TimeJoinOperatorTest {
       instanceNotificationExecutor.shutdown();
     }
   }
+
+  /**
+   * Cover the paths of merging the time columns: a single input to output, inputs with the same
+   * timestamps, interleaved inputs with duplicated timestamps, and the exhausted inputs.
+   */
+  @Test
+  public void mergeTimeColumnsTest() {
+    long[][][] ascendingInputs =
+        new long[][][] {
+          // the TsBlocks of the 1st child, only it outputs after time 9
+          {{1, 2, 3, 4}, {5, 6, 7, 8, 9, 10, 11, 12}},
+          // interleaved with the 1st child and has the duplicated timestamps
+          {{2, 4, 6}, {8, 9}},
+          // the same timestamps as the 1st child in the first TsBlock, then exhausted
+          {{1, 2, 3, 4}},
+          // no TsBlock at all
+          {},
+          {{3}, {7}}
+        };
+    assertTimeJoined(ascendingInputs, true);
+
+    long[][][] descendingInputs = new long[ascendingInputs.length][][];
+    for (int i = 0; i < ascendingInputs.length; i++) {
+      descendingInputs[i] = new long[ascendingInputs[i].length][];
+      for (int j = 0; j < ascendingInputs[i].length; j++) {
+        long[] times = ascendingInputs[i][ascendingInputs[i].length - 1 - j];
+        long[] reversedTimes = new long[times.length];
+        for (int k = 0; k < times.length; k++) {
+          reversedTimes[k] = times[times.length - 1 - k];
+        }
+        descendingInputs[i][j] = reversedTimes;
+      }
+    }
+    assertTimeJoined(descendingInputs, false);
+  }
+
+  /** Each child outputs one INT32 column whose value is the time plus 1000 * childIndex. */
+  private void assertTimeJoined(long[][][] inputs, boolean ascending) {
+    List<Operator> children = new ArrayList<>();
+    List<TSDataType> dataTypes = new ArrayList<>();
+    List<ColumnMerger> mergers = new ArrayList<>();
+    TimeComparator comparator = ascending ? new AscTimeComparator() : new DescTimeComparator();
+    TreeMap<Long, Integer[]> expected = new TreeMap<>();
+    for (int i = 0; i < inputs.length; i++) {
+      List<TsBlock> tsBlocks = new ArrayList<>();
+      for (long[] times : inputs[i]) {
+        TsBlockBuilder builder = new TsBlockBuilder(Collections.singletonList(TSDataType.INT32));
+        for (long time : times) {
+          builder.getTimeColumnBuilder().writeLong(time);
+          builder.getColumnBuilder(0).writeInt((int) time + 1000 * i);
+          builder.declarePosition();
+          expected.computeIfAbsent(time, k -> new Integer[inputs.length])[i] =
+              (int) time + 1000 * i;
+        }
+        tsBlocks.add(builder.build());
+      }
+      children.add(new TsBlockListOperator(tsBlocks));
+      dataTypes.add(TSDataType.INT32);
+      mergers.add(new SingleColumnMerger(new InputLocation(i, 0), comparator));
+    }
+
+    TimeJoinOperator timeJoinOperator =
+        new TimeJoinOperator(
+            null,
+            children,
+            ascending ? OrderBy.TIMESTAMP_ASC : OrderBy.TIMESTAMP_DESC,
+            dataTypes,
+            mergers,
+            comparator);
+    Iterator<Map.Entry<Long, Integer[]>> iterator =
+        ascending ? expected.entrySet().iterator() : expected.descendingMap().entrySet().iterator();
+    while (timeJoinOperator.hasNext()) {
+      TsBlock tsBlock = timeJoinOperator.next();
+      if (tsBlock == null) {
+        continue;
+      }
+      for (int row = 0; row < tsBlock.getPositionCount(); row++) {
+        Map.Entry<Long, Integer[]> entry = iterator.next();
+        assertEquals((long) entry.getKey(), tsBlock.getTimeByIndex(row));
+        for (int column = 0; column < inputs.length; column++) {
+          Integer value = entry.getValue()[column];
+          if (value == null) {
+            assertTrue(tsBlock.getColumn(column).isNull(row));
+          } else {
+            assertEquals((int) value, tsBlock.getColumn(column).getInt(row));
+          }
+        }
+      }
+    }
+    assertFalse(iterator.hasNext());
+  }
+
+  private static class TsBlockListOperator implements Operator {
+
+    private final List<TsBlock> tsBlocks;
+    private int index = 0;
+
+    private TsBlockListOperator(List<TsBlock> tsBlocks) {
+      this.tsBlocks = tsBlocks;
+    }
+
+    @Override
+    public OperatorContext getOperatorContext() {
+      return null;
+    }
+
+    @Override
+    public TsBlock next() {
+      return tsBlocks.get(index++);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return index < tsBlocks.size();
+    }
+
+    @Override
+    public boolean isFinished() {
+      return !hasNext();
+    }
+  }
 }
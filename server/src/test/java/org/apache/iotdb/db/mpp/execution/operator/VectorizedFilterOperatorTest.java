@@ -0,0 +1,322 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.operator;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.commons.exception.IllegalPathException;
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
+import org.apache.iotdb.db.mpp.common.PlanFragmentId;
+import org.apache.iotdb.db.mpp.common.QueryId;
+import org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceContext;
+import org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceStateMachine;
+import org.apache.iotdb.db.mpp.execution.operator.process.VectorizedFilterOperator;
+import org.apache.iotdb.db.mpp.execution.operator.process.VectorizedTransformOperator;
+import org.apache.iotdb.db.mpp.plan.expression.Expression;
+import org.apache.iotdb.db.mpp.plan.expression.binary.AdditionExpression;
+import org.apache.iotdb.db.mpp.plan.expression.binary.EqualToExpression;
+import org.apache.iotdb.db.mpp.plan.expression.binary.GreaterThanExpression;
+import org.apache.iotdb.db.mpp.plan.expression.binary.LessThanExpression;
+import org.apache.iotdb.db.mpp.plan.expression.binary.LogicAndExpression;
+import org.apache.iotdb.db.mpp.plan.expression.binary.LogicOrExpression;
+import org.apache.iotdb.db.mpp.plan.expression.leaf.ConstantOperand;
+import org.apache.iotdb.db.mpp.plan.expression.leaf.TimeSeriesOperand;
+import org.apache.iotdb.db.mpp.plan.expression.unary.InExpression;
+import org.apache.iotdb.db.mpp.plan.expression.unary.LogicNotExpression;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.InputLocation;
+import org.apache.iotdb.db.mpp.transformation.column.ColumnEvaluator;
+import org.apache.iotdb.db.mpp.transformation.column.ColumnEvaluatorBuilder;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import static org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceContext.createFragmentInstanceContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class VectorizedFilterOperatorTest {
+
+  private static final String DEVICE = "root.sg.d1";
+  private static final List<TSDataType> DATA_TYPES =
+      Arrays.asList(TSDataType.INT32, TSDataType.DOUBLE, TSDataType.TEXT);
+  private static final int TS_BLOCK_NUM = 2;
+  private static final int ROW_NUM_PER_TS_BLOCK = 100;
+
+  private ExecutorService instanceNotificationExecutor;
+  private FragmentInstanceContext fragmentInstanceContext;
+  private Map<String, List<InputLocation>> inputLocations;
+
+  private Expression s1;
+  private Expression s2;
+  private Expression s3;
+
+  @Before
+  public void setUp() throws IllegalPathException {
+    instanceNotificationExecutor =
+        IoTDBThreadPoolFactory.newFixedThreadPool(1, "test-instance-notification");
+    QueryId queryId = new QueryId("stub_query");
+    FragmentInstanceId instanceId =
+        new FragmentInstanceId(new PlanFragmentId(queryId, 0), "stub-instance");
+    FragmentInstanceStateMachine stateMachine =
+        new FragmentInstanceStateMachine(instanceId, instanceNotificationExecutor);
+    fragmentInstanceContext = createFragmentInstanceContext(instanceId, stateMachine);
+    fragmentInstanceContext.addOperatorContext(
+        1, new PlanNodeId("1"), VectorizedFilterOperator.class.getSimpleName());
+
+    s1 = new TimeSeriesOperand(new PartialPath(DEVICE + ".s1"));
+    s2 = new TimeSeriesOperand(new PartialPath(DEVICE + ".s2"));
+    s3 = new TimeSeriesOperand(new PartialPath(DEVICE + ".s3"));
+    inputLocations = new HashMap<>();
+    inputLocations.put(
+        s1.getExpressionString(), Collections.singletonList(new InputLocation(0, 0)));
+    inputLocations.put(
+        s2.getExpressionString(), Collections.singletonList(new InputLocation(0, 1)));
+    inputLocations.put(
+        s3.getExpressionString(), Collections.singletonList(new InputLocation(0, 2)));
+  }
+
+  @After
+  public void tearDown() {
+    instanceNotificationExecutor.shutdown();
+  }
+
+  /** s1 = time (null if time % 10 == 9), s2 = time * 0.5, s3 = 'v' + time % 3 */
+  private static List<TsBlock> generateTsBlocks() {
+    List<TsBlock> tsBlocks = new ArrayList<>();
+    for (int i = 0; i < TS_BLOCK_NUM; i++) {
+      TsBlockBuilder builder = new TsBlockBuilder(DATA_TYPES);
+      for (int j = 0; j < ROW_NUM_PER_TS_BLOCK; j++) {
+        int time = i * ROW_NUM_PER_TS_BLOCK + j;
+        builder.getTimeColumnBuilder().writeLong(time);
+        if (time % 10 == 9) {
+          builder.getColumnBuilder(0).appendNull();
+        } else {
+          builder.getColumnBuilder(0).writeInt(time);
+        }
+        builder.getColumnBuilder(1).writeDouble(time * 0.5);
+        builder.getColumnBuilder(2).writeBinary(new Binary("v" + time % 3));
+        builder.declarePosition();
+      }
+      tsBlocks.add(builder.build());
+    }
+    return tsBlocks;
+  }
+
+  private VectorizedFilterOperator createFilterOperator(
+      Expression predicate, Expression[] outputExpressions) throws QueryProcessException {
+    List<TsBlock> tsBlocks = generateTsBlocks();
+    Operator child =
+        new Operator() {
+          private int index = 0;
+
+          @Override
+          public OperatorContext getOperatorContext() {
+            return null;
+          }
+
+          @Override
+          public TsBlock next() {
+            return tsBlocks.get(index++);
+          }
+
+          @Override
+          public boolean hasNext() {
+            return index < tsBlocks.size();
+          }
+
+          @Override
+          public boolean isFinished() {
+            return !hasNext();
+          }
+        };
+    ColumnEvaluatorBuilder builder = new ColumnEvaluatorBuilder(inputLocations, DATA_TYPES);
+    ColumnEvaluator filterEvaluator = builder.build(predicate);
+    ColumnEvaluator[] outputEvaluators = builder.build(outputExpressions);
+    return new VectorizedFilterOperator(
+        fragmentInstanceContext.getOperatorContexts().get(0),
+        child,
+        filterEvaluator,
+        outputEvaluators);
+  }
+
+  @Test
+  public void testConjunctionWithArithmetic() throws QueryProcessException {
+    // where s1 > 50 and s2 < 80.0, select s1 + s2, s3
+    Expression predicate =
+        new LogicAndExpression(
+            new GreaterThanExpression(s1, new ConstantOperand(TSDataType.INT32, "50")),
+            new LessThanExpression(s2, new ConstantOperand(TSDataType.DOUBLE, "80.0")));
+    VectorizedFilterOperator operator =
+        createFilterOperator(predicate, new Expression[] {new AdditionExpression(s1, s2), s3});
+
+    long expectedTime = 51;
+    while (operator.hasNext()) {
+      TsBlock tsBlock = operator.next();
+      if (tsBlock == null) {
+        continue;
+      }
+      assertEquals(2, tsBlock.getValueColumnCount());
+      assertEquals(TSDataType.DOUBLE, tsBlock.getColumn(0).getDataType());
+      for (int i = 0; i < tsBlock.getPositionCount(); i++, expectedTime++) {
+        if (expectedTime % 10 == 9) {
+          expectedTime++;
+        }
+        assertEquals(expectedTime, tsBlock.getTimeByIndex(i));
+        assertEquals(expectedTime * 1.5, tsBlock.getColumn(0).getDouble(i), 0.0001);
+        assertEquals("v" + expectedTime % 3, tsBlock.getColumn(1).getBinary(i).toString());
+      }
+    }
+    // s2 < 80.0 stops at time 159, which is excluded because s1 is null
+    assertEquals(159, expectedTime);
+    assertTrue(operator.isFinished());
+  }
+
+  @Test
+  public void testDisjunctionWithNull() throws QueryProcessException {
+    // where s1 < 10 or s3 = 'v0', select s1
+    Expression predicate =
+        new LogicOrExpression(
+            new LessThanExpression(s1, new ConstantOperand(TSDataType.INT32, "10")),
+            new EqualToExpression(s3, new ConstantOperand(TSDataType.TEXT, "'v0'")));
+    VectorizedFilterOperator operator = createFilterOperator(predicate, new Expression[] {s1});
+
+    List<Long> expectedTimes = new ArrayList<>();
+    for (long time = 0; time < TS_BLOCK_NUM * ROW_NUM_PER_TS_BLOCK; time++) {
+      if ((time < 10 && time % 10 != 9) || time % 3 == 0) {
+        expectedTimes.add(time);
+      }
+    }
+
+    int count = 0;
+    while (operator.hasNext()) {
+      TsBlock tsBlock = operator.next();
+      for (int i = 0; i < tsBlock.getPositionCount(); i++, count++) {
+        long time = expectedTimes.get(count);
+        assertEquals(time, tsBlock.getTimeByIndex(i));
+        if (time % 10 == 9) {
+          assertTrue(tsBlock.getColumn(0).isNull(i));
+        } else {
+          assertEquals(time, tsBlock.getColumn(0).getInt(i));
+        }
+      }
+    }
+    assertEquals(expectedTimes.size(), count);
+  }
+
+  @Test
+  public void testNegatedPredicate() throws QueryProcessException {
+    // where not(s1 > 5), select s2; rows where s1 is null are dropped
+    Expression predicate =
+        new LogicNotExpression(
+            new GreaterThanExpression(s1, new ConstantOperand(TSDataType.INT32, "5")));
+    VectorizedFilterOperator operator = createFilterOperator(predicate, new Expression[] {s2});
+
+    int count = 0;
+    while (operator.hasNext()) {
+      TsBlock tsBlock = operator.next();
+      for (int i = 0; i < tsBlock.getPositionCount(); i++, count++) {
+        assertEquals(count, tsBlock.getTimeByIndex(i));
+        assertEquals(count * 0.5, tsBlock.getColumn(0).getDouble(i), 0.0001);
+      }
+    }
+    assertEquals(6, count);
+  }
+
+  @Test
+  public void testTransformDropsAllNullRows() throws QueryProcessException {
+    // select s1, s1 + s2; the rows where s1 is null are dropped
+    List<TsBlock> tsBlocks = generateTsBlocks();
+    Operator child =
+        new Operator() {
+          private int index = 0;
+
+          @Override
+          public OperatorContext getOperatorContext() {
+            return null;
+          }
+
+          @Override
+          public TsBlock next() {
+            return tsBlocks.get(index++);
+          }
+
+          @Override
+          public boolean hasNext() {
+            return index < tsBlocks.size();
+          }
+
+          @Override
+          public boolean isFinished() {
+            return !hasNext();
+          }
+        };
+    ColumnEvaluatorBuilder builder = new ColumnEvaluatorBuilder(inputLocations, DATA_TYPES);
+    VectorizedTransformOperator operator =
+        new VectorizedTransformOperator(
+            fragmentInstanceContext.getOperatorContexts().get(0),
+            child,
+            builder.build(new Expression[] {s1, new AdditionExpression(s1, s2)}),
+            false);
+
+    long expectedTime = 0;
+    while (operator.hasNext()) {
+      TsBlock tsBlock = operator.next();
+      for (int i = 0; i < tsBlock.getPositionCount(); i++, expectedTime++) {
+        if (expectedTime % 10 == 9) {
+          expectedTime++;
+        }
+        assertEquals(expectedTime, tsBlock.getTimeByIndex(i));
+        assertEquals(expectedTime, tsBlock.getColumn(0).getInt(i));
+        assertEquals(expectedTime * 1.5, tsBlock.getColumn(1).getDouble(i), 0.0001);
+      }
+    }
+    assertEquals(TS_BLOCK_NUM * ROW_NUM_PER_TS_BLOCK, expectedTime + 1);
+  }
+
+  @Test
+  public void testUnsupportedExpression() throws QueryProcessException {
+    ColumnEvaluatorBuilder builder = new ColumnEvaluatorBuilder(inputLocations, DATA_TYPES);
+    LinkedHashSet<String> values = new LinkedHashSet<>(Arrays.asList("1", "2"));
+    assertNull(builder.build(new InExpression(s1, false, values)));
+    assertNull(
+        builder.build(
+            new Expression[] {
+              s1, new LogicNotExpression(new InExpression(s1, true, values)),
+            }));
+    assertNotNull(builder.build(s1));
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.resourcegroup;
+
+import org.apache.iotdb.db.mpp.common.SessionInfo;
+import org.apache.iotdb.db.mpp.common.schematree.PathPatternTree;
+import org.apache.iotdb.db.mpp.execution.resourcegroup.ResourceGroup.Admission;
+import org.apache.iotdb.db.mpp.execution.resourcegroup.ResourceGroupManager.QueryKind;
+import org.apache.iotdb.db.mpp.plan.analyze.QueryType;
+import org.apache.iotdb.db.mpp.plan.statement.crud.InsertRowStatement;
+import org.apache.iotdb.db.mpp.plan.statement.crud.QueryStatement;
+import org.apache.iotdb.db.mpp.plan.statement.internal.SchemaFetchStatement;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ResourceGroupManagerTest {
+
+  @Test
+  public void testParse() {
+    ResourceGroupManager manager =
+        new ResourceGroupManager(
+            "dashboard,4,0,0.5; adhoc,1,2,0.2;illegal,0,1,0.1;short,1",
+            "type:last=dashboard;user:analyst=adhoc;type:raw=adhoc;user:root=missing;"
+                + "type:unknown=adhoc");
+    Assert.assertEquals(3, manager.getGroups().size());
+
+    ResourceGroup dashboard = manager.getGroup("dashboard");
+    Assert.assertEquals(4, dashboard.getCpuShare());
+    Assert.assertEquals(0, dashboard.getMaxRunningQueries());
+    Assert.assertEquals(0.5, dashboard.getMemoryProportion(), 0);
+    Assert.assertEquals(2, manager.getGroup("adhoc").getMaxRunningQueries());
+
+    ResourceGroup defaultGroup = manager.getGroup(ResourceGroupManager.DEFAULT_GROUP);
+    Assert.assertEquals(1, defaultGroup.getCpuShare());
+    Assert.assertEquals(1, defaultGroup.getMemoryProportion(), 0);
+    Assert.assertSame(defaultGroup, manager.getGroup("illegal"));
+    Assert.assertSame(defaultGroup, manager.getGroup(null));
+
+    // the first matched selector is used
+    Assert.assertEquals("dashboard", manager.selectGroup("analyst", QueryKind.LAST));
+    Assert.assertEquals("adhoc", manager.selectGroup("analyst", QueryKind.AGGREGATION));
+    Assert.assertEquals("adhoc", manager.selectGroup("root", QueryKind.RAW));
+    Assert.assertEquals(
+        ResourceGroupManager.DEFAULT_GROUP, manager.selectGroup("root", QueryKind.AGGREGATION));
+  }
+
+  @Test
+  public void testAdmit() {
+    ResourceGroupManager manager = new ResourceGroupManager("adhoc,1,2,0.2;etl,1,1,0.2", "", 2);
+    ResourceGroup group = manager.getGroup("adhoc");
+    Assert.assertEquals(Admission.ADMITTED, group.admit(() -> {}));
+    Assert.assertEquals(Admission.ADMITTED, group.admit(() -> {}));
+    Assert.assertEquals(2, group.getRunningQueryNum());
+
+    // the queued queries are started in FIFO order by the releasing thread
+    List<Integer> started = new ArrayList<>();
+    Runnable first = () -> started.add(1);
+    Runnable second = () -> started.add(2);
+    Assert.assertEquals(Admission.QUEUED, group.admit(first));
+    Assert.assertEquals(Admission.QUEUED, group.admit(second));
+    Assert.assertEquals(2, group.getQueuedQueryNum());
+    // the queued queries of all the groups are limited
+    ResourceGroup etl = manager.getGroup("etl");
+    Assert.assertEquals(Admission.ADMITTED, etl.admit(() -> {}));
+    Assert.assertEquals(Admission.REJECTED, etl.admit(() -> {}));
+
+    group.release();
+    Assert.assertEquals(Collections.singletonList(1), started);
+    Assert.assertEquals(2, group.getRunningQueryNum());
+    Assert.assertEquals(1, group.getQueuedQueryNum());
+
+    // a cancelled query is never started, and leaves room for the others
+    Assert.assertTrue(group.cancel(second));
+    Assert.assertFalse(group.cancel(second));
+    Assert.assertEquals(Admission.QUEUED, etl.admit(() -> {}));
+    group.release();
+    group.release();
+    Assert.assertEquals(Collections.singletonList(1), started);
+    Assert.assertEquals(0, group.getRunningQueryNum());
+
+    ResourceGroup unlimited = manager.getGroup(ResourceGroupManager.DEFAULT_GROUP);
+    for (int i = 0; i < 100; i++) {
+      Assert.assertEquals(Admission.ADMITTED, unlimited.admit(() -> {}));
+    }
+    Assert.assertEquals(0, unlimited.getRunningQueryNum());
+  }
+
+  @Test
+  public void testWriteNotBlockedBySaturatedGroup() {
+    ResourceGroupManager manager =
+        new ResourceGroupManager("adhoc,1,1,0.2", "type:raw=adhoc;user:root=adhoc", 0);
+    ResourceGroup adhoc = manager.getGroup("adhoc");
+    Assert.assertEquals(Admission.ADMITTED, adhoc.admit(() -> {}));
+    Assert.assertEquals(Admission.REJECTED, adhoc.admit(() -> {}));
+
+    SessionInfo session = new SessionInfo("root", ZoneId.systemDefault());
+    // the writes and the internal schema fetching issued by the analyzer of a write never wait
+    Assert.assertFalse(
+        ResourceGroupManager.needAdmission(QueryType.WRITE, new InsertRowStatement(), session));
+    Assert.assertFalse(
+        ResourceGroupManager.needAdmission(
+            QueryType.READ, new SchemaFetchStatement(new PathPatternTree()), null));
+    Assert.assertFalse(
+        ResourceGroupManager.needAdmission(QueryType.READ, new QueryStatement(), null));
+    Assert.assertTrue(
+        ResourceGroupManager.needAdmission(QueryType.READ, new QueryStatement(), session));
+    Assert.assertEquals(1, adhoc.getRunningQueryNum());
+    Assert.assertEquals(0, adhoc.getQueuedQueryNum());
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.schedule.queue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WeightedFairQueueTest {
+
+  private static class TestGroup implements IWeightedGroup {
+    private final int weight;
+    private long usage;
+
+    private TestGroup(int weight) {
+      this.weight = weight;
+    }
+
+    @Override
+    public int getWeight() {
+      return weight;
+    }
+
+    @Override
+    public long getUsage() {
+      return usage;
+    }
+  }
+
+  // the element of value v belongs to groups[v % groups.length]
+  private static IndexedBlockingQueue<QueueElement> createQueue(TestGroup[] groups) {
+    return new WeightedFairQueue<>(
+        100,
+        (o1, o2) -> {
+          if (o1.equals(o2)) {
+            return 0;
+          }
+          return Integer.compare(o1.getValue(), o2.getValue());
+        },
+        new QueueElement(new QueueElement.QueueElementID(0), 0),
+        e -> groups[e.getValue() % groups.length]);
+  }
+
+  @Test
+  public void testPollByWeight() throws InterruptedException {
+    TestGroup[] groups = {new TestGroup(3), new TestGroup(1)};
+    IndexedBlockingQueue<QueueElement> queue = createQueue(groups);
+    for (int i = 0; i < 40; i++) {
+      queue.push(new QueueElement(new QueueElement.QueueElementID(i), i));
+    }
+    int[] polled = new int[2];
+    for (int i = 0; i < 16; i++) {
+      QueueElement e = queue.poll();
+      polled[e.getValue() % 2]++;
+      groups[e.getValue() % 2].usage += 100;
+    }
+    Assert.assertEquals(12, polled[0]);
+    Assert.assertEquals(4, polled[1]);
+    Assert.assertEquals(24, queue.size());
+  }
+
+  @Test
+  public void testNoCreditForIdleGroup() throws InterruptedException {
+    TestGroup[] groups = {new TestGroup(1), new TestGroup(1)};
+    IndexedBlockingQueue<QueueElement> queue = createQueue(groups);
+    // only the group 0 runs for a while
+    for (int i = 0; i < 10; i++) {
+      queue.push(new QueueElement(new QueueElement.QueueElementID(i * 2), i * 2));
+      queue.poll();
+      groups[0].usage += 100;
+    }
+    for (int i = 0; i < 10; i++) {
+      queue.push(new QueueElement(new QueueElement.QueueElementID(i * 2), i * 2));
+      queue.push(new QueueElement(new QueueElement.QueueElementID(i * 2 + 1), i * 2 + 1));
+    }
+    int[] polled = new int[2];
+    for (int i = 0; i < 10; i++) {
+      QueueElement e = queue.poll();
+      polled[e.getValue() % 2]++;
+      groups[e.getValue() % 2].usage += 100;
+    }
+    // the group 1 catches up with the group 0 instead of running alone for 10 polls
+    Assert.assertTrue(polled[0] >= 4);
+    Assert.assertTrue(polled[1] >= 4);
+  }
+
+  @Test
+  public void testRemoveAndGet() throws InterruptedException {
+    TestGroup[] groups = {new TestGroup(1), new TestGroup(2)};
+    IndexedBlockingQueue<QueueElement> queue = createQueue(groups);
+    for (int i = 1; i <= 4; i++) {
+      queue.push(new QueueElement(new QueueElement.QueueElementID(i), i));
+    }
+    QueueElement.QueueElementID id = new QueueElement.QueueElementID(3);
+    Assert.assertEquals(3, queue.get(id).getValue());
+    Assert.assertEquals(3, queue.remove(id).getValue());
+    Assert.assertNull(queue.get(id));
+    Assert.assertNull(queue.remove(id));
+    Assert.assertEquals(3, queue.size());
+    try {
+      queue.push(new QueueElement(new QueueElement.QueueElementID(2), 2));
+      Assert.fail();
+    } catch (IllegalStateException e) {
+      // the element of the same id is in the queue
+    }
+    queue.clear();
+    Assert.assertEquals(0, queue.size());
+    queue.push(new QueueElement(new QueueElement.QueueElementID(2), 2));
+    Assert.assertEquals(2, queue.poll().getValue());
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.spill;
+
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
+import org.apache.iotdb.db.mpp.common.PlanFragmentId;
+import org.apache.iotdb.db.mpp.common.QueryId;
+import org.apache.iotdb.db.mpp.execution.memory.MemoryPool;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SpillableTsBlockListTest {
+
+  private static final String SPILL_DIR = TestConstant.BASE_OUTPUT_PATH + "spill";
+  private static final String QUERY_ID = "stub_query";
+  private static final List<TSDataType> DATA_TYPES =
+      Arrays.asList(TSDataType.INT64, TSDataType.TEXT);
+
+  private SpillContext spillContext;
+
+  @Before
+  public void setUp() throws IOException {
+    FileUtils.forceMkdir(new File(SPILL_DIR));
+    spillContext =
+        new SpillContext(
+            new FragmentInstanceId(new PlanFragmentId(new QueryId(QUERY_ID), 0), "stub-instance"));
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(new File(SPILL_DIR));
+  }
+
+  private static TsBlock generateTsBlock(int index) {
+    TsBlockBuilder builder = new TsBlockBuilder(DATA_TYPES);
+    for (int i = 0; i < 100; i++) {
+      long time = index * 100L + i;
+      builder.getTimeColumnBuilder().writeLong(time);
+      builder.getColumnBuilder(0).writeLong(time * 2);
+      if (i % 10 == 0) {
+        builder.getColumnBuilder(1).appendNull();
+      } else {
+        builder.getColumnBuilder(1).writeBinary(new Binary("v" + time));
+      }
+      builder.declarePosition();
+    }
+    return builder.build();
+  }
+
+  private static void checkTsBlock(int index, TsBlock tsBlock) {
+    assertEquals(100, tsBlock.getPositionCount());
+    for (int i = 0; i < 100; i++) {
+      long time = index * 100L + i;
+      assertEquals(time, tsBlock.getTimeByIndex(i));
+      assertEquals(time * 2, tsBlock.getColumn(0).getLong(i));
+      if (i % 10 == 0) {
+        assertTrue(tsBlock.getColumn(1).isNull(i));
+      } else {
+        assertEquals("v" + time, tsBlock.getColumn(1).getBinary(i).toString());
+      }
+    }
+  }
+
+  @Test
+  public void testSpillBeyondBufferSize() throws IOException {
+    MemoryPool memoryPool = new MemoryPool("test", 1024 * 1024L, 1024 * 1024L);
+    long tsBlockSize = generateTsBlock(0).getRetainedSizeInBytes();
+    SpillableTsBlockList list =
+        new SpillableTsBlockList(
+            memoryPool, QUERY_ID, tsBlockSize * 2, spillContext, SPILL_DIR + "/list-");
+    for (int i = 0; i < 10; i++) {
+      list.add(generateTsBlock(i));
+    }
+    assertEquals(10, list.size());
+    assertEquals(tsBlockSize * 2, memoryPool.getReservedBytes());
+    assertEquals(8, spillContext.getSpilledTsBlockCount());
+    assertEquals(1, new File(SPILL_DIR).list().length);
+
+    // random access
+    checkTsBlock(5, list.get(5));
+    checkTsBlock(1, list.get(1));
+    checkTsBlock(9, list.get(9));
+
+    for (int i = 0; i < 10; i++) {
+      checkTsBlock(i, list.removeFirst());
+    }
+    assertTrue(list.isEmpty());
+    assertEquals(0, memoryPool.getReservedBytes());
+    // the file is dropped once all the spilled TsBlocks are removed
+    assertEquals(0, new File(SPILL_DIR).list().length);
+
+    // the memory is used again after the spilled TsBlocks are removed
+    list.add(generateTsBlock(10));
+    assertEquals(tsBlockSize, memoryPool.getReservedBytes());
+    assertEquals(8, spillContext.getSpilledTsBlockCount());
+    list.close();
+    assertEquals(0, memoryPool.getReservedBytes());
+  }
+
+  @Test
+  public void testSpillWhenPoolUsedUp() throws IOException {
+    long tsBlockSize = generateTsBlock(0).getRetainedSizeInBytes();
+    MemoryPool memoryPool = new MemoryPool("test", tsBlockSize * 4, tsBlockSize * 4);
+    assertTrue(memoryPool.tryReserve("other_query", tsBlockSize * 3));
+    SpillableTsBlockList list =
+        new SpillableTsBlockList(
+            memoryPool, QUERY_ID, Long.MAX_VALUE, spillContext, SPILL_DIR + "/list-");
+    for (int i = 0; i < 4; i++) {
+      list.add(generateTsBlock(i));
+    }
+    assertEquals(tsBlockSize, memoryPool.getQueryMemoryReservedBytes(QUERY_ID));
+    assertEquals(3, spillContext.getSpilledTsBlockCount());
+    assertTrue(spillContext.getSpilledBytes() > 0);
+
+    for (int i = 0; i < 4; i++) {
+      checkTsBlock(i, list.get(i));
+    }
+    list.close();
+    assertEquals(0, memoryPool.getQueryMemoryReservedBytes(QUERY_ID));
+    assertEquals(0, new File(SPILL_DIR).list().length);
+  }
+
+  @Test
+  public void testWithoutMemoryPool() throws IOException {
+    SpillableTsBlockList list =
+        new SpillableTsBlockList(null, QUERY_ID, 1, spillContext, SPILL_DIR + "/list-");
+    for (int i = 0; i < 4; i++) {
+      list.add(generateTsBlock(i));
+    }
+    assertEquals(0, spillContext.getSpilledTsBlockCount());
+    for (int i = 0; i < 4; i++) {
+      checkTsBlock(i, list.removeFirst());
+    }
+    list.close();
+  }
+}
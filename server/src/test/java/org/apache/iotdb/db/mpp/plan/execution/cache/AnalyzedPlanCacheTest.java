@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.execution.cache;
+
+import org.apache.iotdb.common.rpc.thrift.TRegionReplicaSet;
+import org.apache.iotdb.common.rpc.thrift.TSeriesPartitionSlot;
+import org.apache.iotdb.common.rpc.thrift.TTimePartitionSlot;
+import org.apache.iotdb.commons.exception.IllegalPathException;
+import org.apache.iotdb.commons.partition.DataPartition;
+import org.apache.iotdb.commons.partition.DataPartitionQueryParam;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.StorageEngineV2;
+import org.apache.iotdb.db.metadata.path.MeasurementPath;
+import org.apache.iotdb.db.mpp.common.MPPQueryContext;
+import org.apache.iotdb.db.mpp.common.QueryId;
+import org.apache.iotdb.db.mpp.common.header.ColumnHeader;
+import org.apache.iotdb.db.mpp.common.header.DatasetHeader;
+import org.apache.iotdb.db.mpp.plan.analyze.Analysis;
+import org.apache.iotdb.db.mpp.plan.analyze.TypeProvider;
+import org.apache.iotdb.db.mpp.plan.execution.cache.AnalyzedPlanCache.AnalyzedPlan;
+import org.apache.iotdb.db.mpp.plan.planner.plan.LogicalQueryPlan;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.source.SeriesScanNode;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class AnalyzedPlanCacheTest {
+
+  private static final ZoneId ZONE_ID = ZoneId.of("UTC");
+  private static final long TIME_PARTITION_INTERVAL = 100L;
+
+  private boolean enablePartition;
+  private long timePartitionInterval;
+
+  @Before
+  public void setUp() {
+    enablePartition = StorageEngineV2.isEnablePartition();
+    timePartitionInterval = StorageEngineV2.getTimePartitionInterval();
+    StorageEngineV2.setEnablePartition(true);
+    StorageEngineV2.setTimePartitionInterval(TIME_PARTITION_INTERVAL);
+  }
+
+  @After
+  public void tearDown() {
+    StorageEngineV2.setEnablePartition(enablePartition);
+    StorageEngineV2.setTimePartitionInterval(timePartitionInterval);
+  }
+
+  /** An analysis of root.sg.d1 whose data partition has the time partitions [0, 200). */
+  private static Analysis analysis(Filter globalTimeFilter) {
+    return analysis(globalTimeFilter, 0L, TIME_PARTITION_INTERVAL);
+  }
+
+  private static Analysis analysis(Filter globalTimeFilter, long... timePartitionStartTimes) {
+    DataPartition dataPartition =
+        new DataPartition(
+            IoTDBDescriptor.getInstance().getConfig().getSeriesPartitionExecutorClass(),
+            IoTDBDescriptor.getInstance().getConfig().getSeriesPartitionSlotNum());
+    Map<TTimePartitionSlot, List<TRegionReplicaSet>> timePartitions = new HashMap<>();
+    for (long startTime : timePartitionStartTimes) {
+      timePartitions.put(new TTimePartitionSlot(startTime), Collections.emptyList());
+    }
+    Map<TSeriesPartitionSlot, Map<TTimePartitionSlot, List<TRegionReplicaSet>>> seriesPartitions =
+        new HashMap<>();
+    seriesPartitions.put(dataPartition.getSeriesPartitionSlot("root.sg.d1"), timePartitions);
+    Map<String, Map<TSeriesPartitionSlot, Map<TTimePartitionSlot, List<TRegionReplicaSet>>>>
+        dataPartitionMap = new HashMap<>();
+    dataPartitionMap.put("root.sg", seriesPartitions);
+    dataPartition.setDataPartitionMap(dataPartitionMap);
+
+    DataPartitionQueryParam queryParam = new DataPartitionQueryParam();
+    queryParam.setDevicePath("root.sg.d1");
+    Map<String, List<DataPartitionQueryParam>> queryParams = new HashMap<>();
+    queryParams.put("root.sg", Collections.singletonList(queryParam));
+
+    Analysis analysis = new Analysis();
+    analysis.setDataPartitionInfo(dataPartition);
+    analysis.setDataPartitionQueryParams(queryParams);
+    analysis.setGlobalTimeFilter(globalTimeFilter);
+    TypeProvider typeProvider = new TypeProvider();
+    typeProvider.setType("root.sg.d1.s1", TSDataType.INT64);
+    analysis.setTypeProvider(typeProvider);
+    analysis.setRespDatasetHeader(
+        new DatasetHeader(
+            Collections.singletonList(new ColumnHeader("root.sg.d1.s1", TSDataType.INT64)),
+            false));
+    return analysis;
+  }
+
+  private static LogicalQueryPlan logicalPlan() throws IllegalPathException {
+    MPPQueryContext context = new MPPQueryContext(new QueryId("test_query"));
+    SeriesScanNode scanNode =
+        new SeriesScanNode(
+            context.getQueryId().genPlanNodeId(), new MeasurementPath("root.sg.d1.s1"));
+    return new LogicalQueryPlan(context, scanNode);
+  }
+
+  @Test
+  public void testNormalize() {
+    Assert.assertEquals(
+        "select s1 from root.sg.d1 where s2 = 'a  b'",
+        AnalyzedPlanCache.normalize("  select s1\n from\troot.sg.d1   where s2 = 'a  b' "));
+    Assert.assertEquals(
+        "select `s  1` from root.sg where s2 = \"x\\\"  y\"",
+        AnalyzedPlanCache.normalize("select  `s  1` from root.sg where s2 = \"x\\\"  y\""));
+  }
+
+  @Test
+  public void testGetCacheKey() {
+    Assert.assertEquals(
+        AnalyzedPlanCache.getCacheKey("select s1  from root.sg.d1", ZONE_ID),
+        AnalyzedPlanCache.getCacheKey("select s1 from  root.sg.d1", ZONE_ID));
+    Assert.assertNotEquals(
+        AnalyzedPlanCache.getCacheKey("select s1 from root.sg.d1", ZONE_ID),
+        AnalyzedPlanCache.getCacheKey("select s1 from root.sg.d1", ZoneId.of("+08:00")));
+    Assert.assertNull(
+        AnalyzedPlanCache.getCacheKey("select s1 from root.sg.d1 where time < NOW()", ZONE_ID));
+
+    // the template bound to different literals shares one key
+    String sql = "select s1 from root.sg.d1 where time > ? and s1 > ?";
+    Assert.assertNotNull(AnalyzedPlanCache.getCacheKey(sql, Arrays.asList("1", "2.5"), ZONE_ID));
+    Assert.assertEquals(
+        AnalyzedPlanCache.getCacheKey(sql, Arrays.asList("1", "2.5"), ZONE_ID),
+        AnalyzedPlanCache.getCacheKey(
+            sql, Arrays.asList("2022-01-01T00:00:00.000+08:00", "'a''b'"), ZONE_ID));
+    Assert.assertNull(
+        AnalyzedPlanCache.getCacheKey(sql, Arrays.asList("now() - 1d", "2"), ZONE_ID));
+    // the values which are not literals may change the paths of the query
+    Assert.assertNull(AnalyzedPlanCache.getCacheKey(sql, Arrays.asList("1", "s2"), ZONE_ID));
+    // so do the literals in the slots inside the paths or the names
+    Assert.assertNull(
+        AnalyzedPlanCache.getCacheKey(
+            "select s1 from root.sg.d?", Collections.singletonList("1"), ZONE_ID));
+    Assert.assertNull(
+        AnalyzedPlanCache.getCacheKey(
+            "select s? from root.sg.d1", Collections.singletonList("1"), ZONE_ID));
+    Assert.assertNull(
+        AnalyzedPlanCache.getCacheKey(
+            "select s1 from root.sg. ?", Collections.singletonList("1"), ZONE_ID));
+    Assert.assertNotNull(
+        AnalyzedPlanCache.getCacheKey(
+            "select s1 from root.sg.d1 where s1 = '?.' and time>?",
+            Collections.singletonList("1"),
+            ZONE_ID));
+  }
+
+  @Test
+  public void testPutAndInvalidate() throws IllegalPathException {
+    AnalyzedPlanCache cache = new AnalyzedPlanCache(16, 60_000L);
+    Analysis analysis = analysis(TimeFilter.lt(150L));
+
+    long version = cache.getVersion();
+    cache.put("q1", analysis, logicalPlan(), Collections.emptyList(), version);
+    AnalyzedPlan cachedPlan = cache.get("q1");
+    Assert.assertNotNull(cachedPlan);
+    Assert.assertTrue(cachedPlan.isBoundTo(Collections.emptyList()));
+    Assert.assertFalse(cachedPlan.isBoundTo(Collections.singletonList("1")));
+
+    // each reusing query gets its own type provider and dataset header
+    Analysis copiedAnalysis = cachedPlan.copyAnalysis();
+    Assert.assertNotSame(analysis, copiedAnalysis);
+    Assert.assertNotSame(analysis.getTypeProvider(), copiedAnalysis.getTypeProvider());
+    Assert.assertNotSame(analysis.getRespDatasetHeader(), copiedAnalysis.getRespDatasetHeader());
+    Assert.assertSame(analysis.getDataPartitionInfo(), copiedAnalysis.getDataPartitionInfo());
+
+    // the reusing query generates the plan node ids after those in the cached plan
+    MPPQueryContext context = new MPPQueryContext(new QueryId("reuse_query"));
+    LogicalQueryPlan copiedPlan = cachedPlan.copyLogicalPlan(context);
+    Assert.assertTrue(copiedPlan.getRootNode() instanceof SeriesScanNode);
+    Assert.assertEquals(1, context.getQueryId().getNextPlanNodeIndex());
+
+    // a plan analyzed before the invalidation is not cached
+    long staleVersion = cache.getVersion();
+    cache.invalidateAll();
+    Assert.assertNull(cache.get("q1"));
+    cache.put("q2", analysis, logicalPlan(), Collections.emptyList(), staleVersion);
+    Assert.assertNull(cache.get("q2"));
+    Assert.assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testCovers() throws IllegalPathException {
+    AnalyzedPlanCache cache = new AnalyzedPlanCache(16, 60_000L);
+    // the plan is cached whatever its time range, and its data partition is checked when reused
+    cache.put(
+        "unbounded", analysis(null), logicalPlan(), Collections.emptyList(), cache.getVersion());
+    Assert.assertNotNull(cache.get("unbounded"));
+
+    Filter inKnownPartitions = FilterFactory.and(TimeFilter.gtEq(50L), TimeFilter.lt(200L));
+    Assert.assertTrue(AnalyzedPlanCache.covers(analysis(inKnownPartitions)));
+    // any time partition may be created through the other data nodes, before or after those known
+    Assert.assertFalse(AnalyzedPlanCache.covers(analysis(null)));
+    Assert.assertFalse(AnalyzedPlanCache.covers(analysis(TimeFilter.lt(200L))));
+    Assert.assertFalse(
+        AnalyzedPlanCache.covers(
+            analysis(FilterFactory.and(TimeFilter.gtEq(0L), TimeFilter.lt(300L)))));
+    Assert.assertFalse(
+        AnalyzedPlanCache.covers(
+            analysis(FilterFactory.and(TimeFilter.gtEq(-150L), TimeFilter.lt(50L)), 0L)));
+    // e.g. the time partition [100, 200) backfilled after the plan was cached
+    Assert.assertFalse(
+        AnalyzedPlanCache.covers(
+            analysis(
+                FilterFactory.and(TimeFilter.gtEq(0L), TimeFilter.lt(300L)), 0L, 200L, 300L)));
+
+    // no data partition is fetched by the query
+    Analysis analysis = analysis(null);
+    analysis.setDataPartitionQueryParams(null);
+    Assert.assertTrue(AnalyzedPlanCache.covers(analysis));
+
+    // all the data belongs to one time partition
+    StorageEngineV2.setEnablePartition(false);
+    Assert.assertTrue(AnalyzedPlanCache.covers(analysis(null, 0L)));
+    Assert.assertFalse(AnalyzedPlanCache.covers(analysis(null, TIME_PARTITION_INTERVAL)));
+  }
+
+  @Test
+  public void testConcurrentHits() throws Exception {
+    AnalyzedPlanCache cache = new AnalyzedPlanCache(16, 60_000L);
+    Analysis analysis = analysis(TimeFilter.lt(150L));
+    cache.put("q1", analysis, logicalPlan(), Collections.emptyList(), cache.getVersion());
+    AnalyzedPlan cachedPlan = cache.get("q1");
+    // the query caching the plan keeps filling its own analysis
+    analysis.getTypeProvider().setType("partial", TSDataType.DOUBLE);
+
+    int threadCount = 8;
+    ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threadCount; i++) {
+        int threadIndex = i;
+        futures.add(
+            pool.submit(
+                () -> {
+                  for (int j = 0; j < 1000; j++) {
+                    // what the distribution planning and the dispatching do to a reused analysis
+                    Analysis reused = cachedPlan.copyAnalysis();
+                    String column = "partial_" + threadIndex + "_" + j;
+                    reused.getTypeProvider().setType(column, TSDataType.INT64);
+                    reused.getTypeProvider().serialize(ByteBuffer.allocate(4096));
+                    reused
+                        .getRespDatasetHeader()
+                        .setColumnToTsBlockIndexMap(Arrays.asList(column, "root.sg.d1.s1"));
+                    Assert.assertEquals(
+                        Integer.valueOf(1),
+                        reused.getRespDatasetHeader().getColumnNameIndexMap().get("root.sg.d1.s1"));
+                  }
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      pool.shutdown();
+      Assert.assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    Analysis cachedAnalysis = cachedPlan.copyAnalysis();
+    Assert.assertTrue(cachedAnalysis.getTypeProvider().containsTypeInfoOf("root.sg.d1.s1"));
+    Assert.assertFalse(cachedAnalysis.getTypeProvider().containsTypeInfoOf("partial"));
+    Assert.assertFalse(cachedAnalysis.getTypeProvider().containsTypeInfoOf("partial_0_0"));
+    Assert.assertNull(cachedAnalysis.getRespDatasetHeader().getColumnNameIndexMap());
+  }
+}
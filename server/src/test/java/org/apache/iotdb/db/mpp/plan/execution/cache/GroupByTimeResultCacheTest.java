@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.execution.cache;
+
+import org.apache.iotdb.db.mpp.plan.execution.cache.GroupByTimeResultCache.CachedWindow;
+import org.apache.iotdb.db.mpp.plan.execution.cache.GroupByTimeResultCache.WindowResults;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class GroupByTimeResultCacheTest {
+
+  private static final List<TSDataType> DATA_TYPES = Collections.singletonList(TSDataType.INT64);
+
+  private static final String DEVICE = "root.sg.d1";
+
+  private static List<CachedWindow> windows(long startTime, long endTime, long interval) {
+    List<CachedWindow> windows = new ArrayList<>();
+    for (long time = startTime; time < endTime; time += interval) {
+      windows.add(new CachedWindow(time, time + interval, new Object[] {time}));
+    }
+    return windows;
+  }
+
+  private static WindowResults fill(GroupByTimeResultCache cache, String key, long endTime) {
+    WindowResults windowResults = cache.getOrCreate(key, Collections.singleton(DEVICE));
+    long seq = windowResults.beginFill();
+    windowResults.endFill(seq, DATA_TYPES, windows(0, endTime, 10));
+    return windowResults;
+  }
+
+  @Test
+  public void testGetAndInvalidate() {
+    GroupByTimeResultCache cache = new GroupByTimeResultCache(1024 * 1024);
+    WindowResults windowResults = fill(cache, "q1", 100);
+    Assert.assertEquals(10, windowResults.getWindowNum());
+    Assert.assertEquals(DATA_TYPES, windowResults.getDataTypes());
+    Assert.assertSame(windowResults, cache.getOrCreate("q1", Collections.singleton(DEVICE)));
+
+    CachedWindow window = windowResults.get(30, 40);
+    Assert.assertNotNull(window);
+    Assert.assertEquals(30L, window.getValues()[0]);
+    // the end time of the window must be the same
+    Assert.assertNull(windowResults.get(30, 35));
+
+    // [35, 52] overlaps [30, 40), [40, 50) and [50, 60)
+    cache.invalidate(DEVICE, 35, 52);
+    Assert.assertEquals(7, windowResults.getWindowNum());
+    Assert.assertNull(windowResults.get(30, 40));
+    Assert.assertNull(windowResults.get(50, 60));
+    Assert.assertNotNull(windowResults.get(20, 30));
+    Assert.assertNotNull(windowResults.get(60, 70));
+
+    // the writes of the other devices do not matter
+    cache.invalidate("root.sg.d2", 0, 100);
+    Assert.assertEquals(7, windowResults.getWindowNum());
+
+    cache.invalidate(DEVICE, Long.MIN_VALUE, Long.MAX_VALUE);
+    Assert.assertEquals(0, windowResults.getWindowNum());
+  }
+
+  @Test
+  public void testInvalidateWhileFilling() {
+    GroupByTimeResultCache cache = new GroupByTimeResultCache(1024 * 1024);
+    WindowResults windowResults = cache.getOrCreate("q1", Collections.singleton(DEVICE));
+    long seq = windowResults.beginFill();
+    // a write happens after the query read the data
+    cache.invalidate(DEVICE, 45, 45);
+    windowResults.endFill(seq, DATA_TYPES, windows(0, 100, 10));
+    Assert.assertEquals(9, windowResults.getWindowNum());
+    Assert.assertNull(windowResults.get(40, 50));
+
+    // the invalidations before the query began do not matter
+    seq = windowResults.beginFill();
+    windowResults.endFill(seq, DATA_TYPES, windows(40, 50, 10));
+    Assert.assertNotNull(windowResults.get(40, 50));
+  }
+
+  @Test
+  public void testAbortFill() {
+    GroupByTimeResultCache cache = new GroupByTimeResultCache(1024 * 1024);
+    WindowResults windowResults = cache.getOrCreate("q1", Collections.singleton(DEVICE));
+    long seq = windowResults.beginFill();
+    windowResults.endFill(seq, DATA_TYPES, Collections.emptyList());
+    Assert.assertEquals(0, windowResults.getWindowNum());
+    Assert.assertNull(windowResults.getDataTypes());
+  }
+
+  @Test
+  public void testEviction() {
+    GroupByTimeResultCache cache = new GroupByTimeResultCache(10 * 1024);
+    WindowResults first = fill(cache, "q1", 500);
+    Assert.assertTrue(cache.getUsedMemory() <= 10 * 1024);
+    fill(cache, "q2", 500);
+    Assert.assertTrue(cache.getUsedMemory() <= 10 * 1024);
+    Assert.assertEquals(1, cache.size());
+    Assert.assertEquals(0, first.getWindowNum());
+    // the evicted one is not filled any more
+    long seq = first.beginFill();
+    first.endFill(seq, DATA_TYPES, windows(0, 100, 10));
+    Assert.assertEquals(0, first.getWindowNum());
+
+    cache.clear();
+    Assert.assertEquals(0, cache.size());
+    Assert.assertEquals(0, cache.getUsedMemory());
+  }
+
+  @Test
+  public void testStorageGroupAndTTL() {
+    GroupByTimeResultCache cache = new GroupByTimeResultCache(1024 * 1024);
+    fill(cache, "q1", 100);
+    Set<String> devices = new HashSet<>();
+    devices.add("root.sg2.d1");
+    WindowResults other = cache.getOrCreate("q2", devices);
+
+    // root.sg.d1 does not belong to root.sg2
+    cache.invalidateStorageGroup("root.sg2");
+    Assert.assertEquals(1, cache.size());
+    Assert.assertEquals(0, other.getWindowNum());
+
+    Assert.assertEquals(Long.MIN_VALUE, cache.getTTLLowerBound(Collections.singleton(DEVICE)));
+    long before = System.currentTimeMillis();
+    cache.setDataTTL("root.sg", 1000);
+    Assert.assertEquals(0, cache.size());
+    Assert.assertTrue(cache.getTTLLowerBound(Collections.singleton(DEVICE)) >= before - 1000);
+    Assert.assertEquals(Long.MIN_VALUE, cache.getTTLLowerBound(devices));
+    cache.setDataTTL("root.sg", Long.MAX_VALUE);
+    Assert.assertEquals(Long.MIN_VALUE, cache.getTTLLowerBound(Collections.singleton(DEVICE)));
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.optimization;
+
+import org.apache.iotdb.common.rpc.thrift.TConsensusGroupId;
+import org.apache.iotdb.common.rpc.thrift.TConsensusGroupType;
+import org.apache.iotdb.common.rpc.thrift.TDataNodeLocation;
+import org.apache.iotdb.common.rpc.thrift.TEndPoint;
+import org.apache.iotdb.common.rpc.thrift.TRegionReplicaSet;
+import org.apache.iotdb.commons.exception.IllegalPathException;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.metadata.path.AlignedPath;
+import org.apache.iotdb.db.metadata.path.MeasurementPath;
+import org.apache.iotdb.db.mpp.common.MPPQueryContext;
+import org.apache.iotdb.db.mpp.common.QueryId;
+import org.apache.iotdb.db.mpp.plan.expression.binary.GreaterEqualExpression;
+import org.apache.iotdb.db.mpp.plan.expression.binary.GreaterThanExpression;
+import org.apache.iotdb.db.mpp.plan.expression.binary.LogicAndExpression;
+import org.apache.iotdb.db.mpp.plan.expression.leaf.ConstantOperand;
+import org.apache.iotdb.db.mpp.plan.expression.leaf.TimeSeriesOperand;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.AggregationNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.ExchangeNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.FilterNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.LimitNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.OffsetNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.source.AlignedSeriesScanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.source.SeriesScanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.AggregationDescriptor;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.AggregationStep;
+import org.apache.iotdb.db.mpp.plan.statement.component.OrderBy;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.filter.ValueFilter;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RuleBasedOptimizerTest {
+
+  private final QueryId queryId = new QueryId("test_query");
+
+  private final MPPQueryContext context =
+      new MPPQueryContext("", queryId, null, new TEndPoint(), new TEndPoint());
+
+  private SeriesScanNode createScanNode(String path, TSDataType dataType)
+      throws IllegalPathException {
+    return new SeriesScanNode(
+        queryId.genPlanNodeId(), new MeasurementPath(path, dataType), OrderBy.TIMESTAMP_ASC);
+  }
+
+  private TimeJoinNode createTimeJoinNode() throws IllegalPathException {
+    return new TimeJoinNode(
+        queryId.genPlanNodeId(),
+        OrderBy.TIMESTAMP_ASC,
+        Arrays.asList(
+            createScanNode("root.sg.d1.s1", TSDataType.INT32),
+            createScanNode("root.sg.d1.s2", TSDataType.DOUBLE)));
+  }
+
+  @Test
+  public void testPushLimitIntoScan() throws IllegalPathException {
+    PlanNode root =
+        new LimitNode(
+            queryId.genPlanNodeId(),
+            new OffsetNode(queryId.genPlanNodeId(), createTimeJoinNode(), 5),
+            10);
+
+    PlanNode newRoot = RuleBasedOptimizer.createLogicalOptimizer().optimize(root, context);
+
+    assertTrue(newRoot instanceof LimitNode);
+    PlanNode offsetNode = newRoot.getChildren().get(0);
+    assertTrue(offsetNode instanceof OffsetNode);
+    for (PlanNode scanNode : offsetNode.getChildren().get(0).getChildren()) {
+      assertEquals(15, ((SeriesScanNode) scanNode).getLimit());
+      assertEquals(0, ((SeriesScanNode) scanNode).getOffset());
+    }
+  }
+
+  @Test
+  public void testDisableRule() throws IllegalPathException {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    String[] disabledRules = config.getDisabledPlanOptimizerRules();
+    config.setDisabledPlanOptimizerRules(new String[] {"pushLimitIntoScan"});
+    try {
+      PlanNode root = new LimitNode(queryId.genPlanNodeId(), createTimeJoinNode(), 10);
+      assertSame(root, RuleBasedOptimizer.createLogicalOptimizer().optimize(root, context));
+    } finally {
+      config.setDisabledPlanOptimizerRules(disabledRules);
+    }
+  }
+
+  @Test
+  public void testPushFilterIntoScan() throws IllegalPathException {
+    TimeSeriesOperand s1 = new TimeSeriesOperand(new MeasurementPath("root.sg.d1.s1"));
+    TimeSeriesOperand s2 = new TimeSeriesOperand(new MeasurementPath("root.sg.d1.s2"));
+    PlanNode root =
+        new FilterNode(
+            queryId.genPlanNodeId(),
+            createTimeJoinNode(),
+            new TimeSeriesOperand[] {s1, s2},
+            new LogicAndExpression(
+                new GreaterThanExpression(s1, new ConstantOperand(TSDataType.INT64, "10")),
+                new GreaterEqualExpression(new ConstantOperand(TSDataType.DOUBLE, "5.5"), s2)),
+            false,
+            ZoneId.systemDefault());
+
+    PlanNode newRoot = RuleBasedOptimizer.createLogicalOptimizer().optimize(root, context);
+
+    // the FilterNode is kept to evaluate the whole predicate
+    assertTrue(newRoot instanceof FilterNode);
+    PlanNode timeJoinNode = newRoot.getChildren().get(0);
+    SeriesScanNode s1Scan = (SeriesScanNode) timeJoinNode.getChildren().get(0);
+    SeriesScanNode s2Scan = (SeriesScanNode) timeJoinNode.getChildren().get(1);
+    assertTrue(s1Scan.getValueFilter() instanceof ValueFilter.ValueGt);
+    assertTrue(s2Scan.getValueFilter() instanceof ValueFilter.ValueLtEq);
+    // the logical plan given to the optimizer is not modified
+    assertNull(((SeriesScanNode) root.getChildren().get(0).getChildren().get(0)).getValueFilter());
+  }
+
+  @Test
+  public void testPruneAlignedColumns() throws IllegalPathException {
+    AlignedPath alignedPath =
+        new AlignedPath(
+            "root.sg.d2",
+            Arrays.asList("s1", "s2", "s3"),
+            Arrays.asList(
+                new MeasurementSchema("s1", TSDataType.INT32),
+                new MeasurementSchema("s2", TSDataType.DOUBLE),
+                new MeasurementSchema("s3", TSDataType.BOOLEAN)));
+    TimeSeriesOperand s1 = new TimeSeriesOperand(new MeasurementPath("root.sg.d2.s1"));
+    TimeSeriesOperand s2 = new TimeSeriesOperand(new MeasurementPath("root.sg.d2.s2"));
+    PlanNode root =
+        new FilterNode(
+            queryId.genPlanNodeId(),
+            new AlignedSeriesScanNode(queryId.genPlanNodeId(), alignedPath, OrderBy.TIMESTAMP_ASC),
+            new TimeSeriesOperand[] {s1},
+            new GreaterThanExpression(s2, new ConstantOperand(TSDataType.INT64, "10")),
+            false,
+            ZoneId.systemDefault());
+
+    PlanNode newRoot = RuleBasedOptimizer.createLogicalOptimizer().optimize(root, context);
+
+    // s3 is neither output nor filtered
+    AlignedSeriesScanNode scanNode = (AlignedSeriesScanNode) newRoot.getChildren().get(0);
+    assertEquals(Arrays.asList("s1", "s2"), scanNode.getAlignedPath().getMeasurementList());
+    assertEquals(2, scanNode.getAlignedPath().getSchemaList().size());
+
+    // the scan is kept if all the measurements are referenced
+    root =
+        new AggregationNode(
+            queryId.genPlanNodeId(),
+            Collections.singletonList(scanNode),
+            Arrays.asList(
+                new AggregationDescriptor(
+                    "count", AggregationStep.SINGLE, Collections.singletonList(s1)),
+                new AggregationDescriptor(
+                    "sum", AggregationStep.SINGLE, Collections.singletonList(s2))),
+            null,
+            OrderBy.TIMESTAMP_ASC);
+    assertSame(root, RuleBasedOptimizer.createLogicalOptimizer().optimize(root, context));
+  }
+
+  @Test
+  public void testRemoveRedundantExchange() throws IllegalPathException {
+    TRegionReplicaSet region1 = createRegion(1);
+    TRegionReplicaSet region2 = createRegion(2);
+    SeriesScanNode s1Scan = createScanNode("root.sg.d1.s1", TSDataType.INT32);
+    s1Scan.setRegionReplicaSet(region1);
+    SeriesScanNode s2Scan = createScanNode("root.sg.d1.s2", TSDataType.DOUBLE);
+    s2Scan.setRegionReplicaSet(region1);
+    SeriesScanNode s3Scan = createScanNode("root.sg.d2.s1", TSDataType.INT32);
+    s3Scan.setRegionReplicaSet(region2);
+    SeriesScanNode splitScan = createScanNode("root.sg.d1.s3", TSDataType.INT32);
+    splitScan.setRegionReplicaSet(region1);
+    PlanNode root =
+        new TimeJoinNode(
+            queryId.genPlanNodeId(),
+            OrderBy.TIMESTAMP_ASC,
+            Arrays.asList(
+                s1Scan,
+                createExchangeNode(s2Scan),
+                createExchangeNode(s3Scan),
+                createExchangeNode(splitScan)));
+
+    PlanNode newRoot =
+        RuleBasedOptimizer.createDistributionOptimizer(
+                Collections.singleton(splitScan.getPlanNodeId()))
+            .optimize(root, context);
+
+    // only the exchange of the scan in the same region is removed
+    List<PlanNode> children = newRoot.getChildren();
+    assertEquals(4, children.size());
+    assertSame(s1Scan, children.get(0));
+    assertSame(s2Scan, children.get(1));
+    assertSame(s3Scan, ((ExchangeNode) children.get(2)).getChild());
+    // the parallel split of a scan stays in its own fragment
+    assertSame(splitScan, ((ExchangeNode) children.get(3)).getChild());
+  }
+
+  private ExchangeNode createExchangeNode(PlanNode child) {
+    ExchangeNode exchangeNode = new ExchangeNode(queryId.genPlanNodeId());
+    exchangeNode.setChild(child);
+    exchangeNode.setOutputColumnNames(child.getOutputColumnNames());
+    return exchangeNode;
+  }
+
+  private TRegionReplicaSet createRegion(int regionId) {
+    return new TRegionReplicaSet(
+        new TConsensusGroupId(TConsensusGroupType.DataRegion, regionId),
+        Collections.singletonList(new TDataNodeLocation().setDataNodeId(regionId)));
+  }
+}
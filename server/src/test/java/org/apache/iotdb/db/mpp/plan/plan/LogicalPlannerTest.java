@@ -27,6 +27,7 @@ import org.apache.iotdb.db.mpp.plan.analyze.Analysis;
 import org.apache.iotdb.db.mpp.plan.analyze.Analyzer;
 import org.apache.iotdb.db.mpp.plan.analyze.FakePartitionFetcherImpl;
 import org.apache.iotdb.db.mpp.plan.analyze.FakeSchemaFetcherImpl;
+import org.apache.iotdb.db.mpp.plan.expression.Expression;
 import org.apache.iotdb.db.mpp.plan.parser.StatementGenerator;
 import org.apache.iotdb.db.mpp.plan.plan.node.PlanNodeDeserializeHelper;
 import org.apache.iotdb.db.mpp.plan.planner.LogicalPlanner;
@@ -44,8 +45,13 @@ import org.apache.iotdb.db.mpp.plan.planner.plan.node.metedata.write.AlterTimeSe
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.metedata.write.CreateAlignedTimeSeriesNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.metedata.write.CreateMultiTimeSeriesNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.metedata.write.CreateTimeSeriesNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.HashAggregationNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.LimitNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.OffsetNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.SortNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TransformNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.SortKeyDescriptor;
 import org.apache.iotdb.db.mpp.plan.statement.Statement;
 import org.apache.iotdb.db.mpp.plan.statement.metadata.AlterTimeSeriesStatement;
 import org.apache.iotdb.db.mpp.plan.statement.metadata.CreateMultiTimeSeriesStatement;
@@ -60,8 +66,13 @@ import org.junit.Test;
 import java.nio.ByteBuffer;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.apache.iotdb.db.mpp.plan.plan.QueryLogicalPlanUtil.querySQLs;
 import static org.apache.iotdb.db.mpp.plan.plan.QueryLogicalPlanUtil.sqlToPlanMap;
@@ -78,6 +89,53 @@ public class LogicalPlannerTest {
     }
   }
 
+  @Test
+  public void testOrderByValuePlan() {
+    String sql = "SELECT s1, s2 FROM root.sg.d1 ORDER BY s2 DESC, s1 LIMIT 10";
+    LimitNode limitNode = (LimitNode) parseSQLToPlanNode(sql);
+    Assert.assertEquals(10, limitNode.getLimit());
+    SortNode sortNode = (SortNode) limitNode.getChild();
+    Assert.assertEquals(
+        Arrays.asList(
+            new SortKeyDescriptor("root.sg.d1.s2", false),
+            new SortKeyDescriptor("root.sg.d1.s1", true),
+            SortKeyDescriptor.time(true)),
+        sortNode.getSortKeys());
+
+    // the result aligned by time is already ordered by the scan
+    sql = "SELECT s1, s2 FROM root.sg.d1 ORDER BY TIME DESC, s2 LIMIT 10";
+    limitNode = (LimitNode) parseSQLToPlanNode(sql);
+    Assert.assertFalse(limitNode.getChild() instanceof SortNode);
+  }
+
+  @Test
+  public void testGroupByValuesPlan() {
+    String sql = "SELECT count(s1), max_value(s2) FROM root.sg.d2 GROUP BY VALUES(s4) LIMIT 10";
+    LimitNode limitNode = (LimitNode) parseSQLToPlanNode(sql);
+    HashAggregationNode hashAggregationNode = (HashAggregationNode) limitNode.getChild();
+    Assert.assertEquals(
+        Collections.singletonList("root.sg.d2.s4"),
+        hashAggregationNode.getGroupByExpressions().stream()
+            .map(Expression::getExpressionString)
+            .collect(Collectors.toList()));
+    List<String> outputColumnNames = hashAggregationNode.getOutputColumnNames();
+    Assert.assertEquals("root.sg.d2.s4", outputColumnNames.get(0));
+    Assert.assertEquals(
+        new HashSet<>(Arrays.asList("count(root.sg.d2.s1)", "max_value(root.sg.d2.s2)")),
+        new HashSet<>(outputColumnNames.subList(1, outputColumnNames.size())));
+    // the rows are grouped by the raw data of the key column
+    TimeJoinNode timeJoinNode = (TimeJoinNode) hashAggregationNode.getChildren().get(0);
+    Assert.assertEquals(3, timeJoinNode.getChildren().size());
+
+    // the expressions of the aggregated results are calculated after grouping
+    sql = "SELECT count(s1) + 1 FROM root.sg.d2 GROUP BY VALUES(s4)";
+    TransformNode transformNode = (TransformNode) parseSQLToPlanNode(sql);
+    Assert.assertEquals(
+        Arrays.asList("root.sg.d2.s4", "count(root.sg.d2.s1) + 1"),
+        transformNode.getOutputColumnNames());
+    Assert.assertTrue(transformNode.getChild() instanceof HashAggregationNode);
+  }
+
   @Test
   public void testCreateTimeseriesPlan() {
     String sql =
@@ -21,6 +21,7 @@ package org.apache.iotdb.db.mpp.plan.plan;
 
 import org.apache.iotdb.common.rpc.thrift.TEndPoint;
 import org.apache.iotdb.commons.client.IClientManager;
+import org.apache.iotdb.commons.client.async.AsyncDataNodeInternalServiceClient;
 import org.apache.iotdb.commons.client.sync.SyncDataNodeInternalServiceClient;
 import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.db.client.DataNodeClientPoolFactory;
@@ -47,17 +48,25 @@ public class QueryPlannerTest {
   private static IClientManager<TEndPoint, SyncDataNodeInternalServiceClient>
       internalServiceClientManager;
 
+  private static IClientManager<TEndPoint, AsyncDataNodeInternalServiceClient>
+      asyncInternalServiceClientManager;
+
   @BeforeClass
   public static void setUp() {
     internalServiceClientManager =
         new IClientManager.Factory<TEndPoint, SyncDataNodeInternalServiceClient>()
             .createClientManager(
                 new DataNodeClientPoolFactory.SyncDataNodeInternalServiceClientPoolFactory());
+    asyncInternalServiceClientManager =
+        new IClientManager.Factory<TEndPoint, AsyncDataNodeInternalServiceClient>()
+            .createClientManager(
+                new DataNodeClientPoolFactory.AsyncDataNodeInternalServiceClientPoolFactory());
   }
 
   @AfterClass
   public static void destroy() {
     internalServiceClientManager.close();
+    asyncInternalServiceClientManager.close();
   }
 
   @Ignore
@@ -82,7 +91,8 @@ public class QueryPlannerTest {
             IoTDBThreadPoolFactory.newSingleThreadScheduledExecutor("test_query_scheduled"),
             new FakePartitionFetcherImpl(),
             new FakeSchemaFetcherImpl(),
-            internalServiceClientManager);
+            internalServiceClientManager,
+            asyncInternalServiceClientManager);
     queryExecution.doLogicalPlan();
     System.out.printf("SQL: %s%n%n", querySql);
     System.out.println("===== Step 1: Logical Plan =====");
@@ -22,6 +22,7 @@ package org.apache.iotdb.db.mpp.plan.plan.distribution;
 import org.apache.iotdb.common.rpc.thrift.TEndPoint;
 import org.apache.iotdb.commons.exception.IllegalPathException;
 import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.metadata.path.AlignedPath;
 import org.apache.iotdb.db.metadata.path.MeasurementPath;
 import org.apache.iotdb.db.mpp.common.MPPQueryContext;
@@ -51,6 +52,8 @@ import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.GroupByTimeParameter;
 import org.apache.iotdb.db.mpp.plan.statement.component.OrderBy;
 import org.apache.iotdb.db.query.aggregation.AggregationType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -613,6 +616,44 @@ public class AggregationDistributionTest {
     assertEquals(root, plan.getInstances().get(0).getFragment().getRoot().getChildren().get(0));
   }
 
+  @Test
+  public void testAggregation1Series1RegionSplitByTime() throws IllegalPathException {
+    QueryId queryId = new QueryId("test_aggregation_1_series_1_region_split_by_time");
+    String d2s1Path = "root.sg.d22.s1";
+
+    SeriesAggregationScanNode root =
+        (SeriesAggregationScanNode)
+            genAggregationSourceNode(queryId, d2s1Path, AggregationType.COUNT);
+    root.setTimeFilter(FilterFactory.and(TimeFilter.gtEq(0), TimeFilter.lt(1000)));
+    Analysis analysis = Util.constructAnalysis();
+    MPPQueryContext context =
+        new MPPQueryContext("", queryId, null, new TEndPoint(), new TEndPoint());
+    int originParallelism =
+        IoTDBDescriptor.getInstance().getConfig().getMaxScanParallelismInRegion();
+    IoTDBDescriptor.getInstance().getConfig().setMaxScanParallelismInRegion(2);
+    try {
+      DistributionPlanner planner =
+          new DistributionPlanner(analysis, new LogicalQueryPlan(context, root));
+      DistributedQueryPlan plan = planner.planFragments();
+      // one split is executed with the final aggregation, the other one in its own instance
+      assertEquals(2, plan.getInstances().size());
+      PlanNode rootNode = plan.getInstances().get(0).getFragment().getRoot().getChildren().get(0);
+      assertTrue(rootNode instanceof AggregationNode);
+      assertEquals(2, rootNode.getChildren().size());
+      ((AggregationNode) rootNode)
+          .getAggregationDescriptorList()
+          .forEach(d -> assertEquals(AggregationStep.FINAL, d.getStep()));
+      verifyAggregationStep(Collections.singletonMap(d2s1Path, AggregationStep.PARTIAL), rootNode);
+      PlanNode remoteSplit =
+          plan.getInstances().get(1).getFragment().getRoot().getChildren().get(0);
+      assertTrue(remoteSplit instanceof SeriesAggregationScanNode);
+      verifyAggregationStep(
+          Collections.singletonMap(d2s1Path, AggregationStep.PARTIAL), remoteSplit);
+    } finally {
+      IoTDBDescriptor.getInstance().getConfig().setMaxScanParallelismInRegion(originParallelism);
+    }
+  }
+
   private void verifyGroupByLevelDescriptor(
       Map<String, List<String>> expected, GroupByLevelNode node) {
     List<GroupByLevelDescriptor> descriptors = node.getGroupByLevelDescriptors();
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.plan.node.process;
+
+import org.apache.iotdb.commons.exception.IllegalPathException;
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.metadata.path.MeasurementPath;
+import org.apache.iotdb.db.mpp.plan.expression.leaf.TimeSeriesOperand;
+import org.apache.iotdb.db.mpp.plan.plan.node.PlanNodeDeserializeHelper;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.HashAggregationNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.source.SeriesScanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.AggregationDescriptor;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.AggregationStep;
+import org.apache.iotdb.db.mpp.plan.statement.component.OrderBy;
+import org.apache.iotdb.db.query.aggregation.AggregationType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class HashAggregationNodeSerdeTest {
+
+  @Test
+  public void testSerializeAndDeserialize() throws IllegalPathException {
+    TimeJoinNode timeJoinNode =
+        new TimeJoinNode(new PlanNodeId("TestTimeJoinNode"), OrderBy.TIMESTAMP_ASC);
+    timeJoinNode.addChild(
+        new SeriesScanNode(
+            new PlanNodeId("TestSeriesScanNode1"),
+            new MeasurementPath("root.sg.d1.tag", TSDataType.TEXT),
+            OrderBy.TIMESTAMP_ASC,
+            null,
+            null,
+            0,
+            0,
+            null));
+    timeJoinNode.addChild(
+        new SeriesScanNode(
+            new PlanNodeId("TestSeriesScanNode2"),
+            new MeasurementPath("root.sg.d1.s1", TSDataType.INT64),
+            OrderBy.TIMESTAMP_ASC,
+            null,
+            null,
+            0,
+            0,
+            null));
+    HashAggregationNode hashAggregationNode =
+        new HashAggregationNode(
+            new PlanNodeId("TestHashAggregationNode"),
+            Collections.singletonList(timeJoinNode),
+            Collections.singletonList(new TimeSeriesOperand(new PartialPath("root.sg.d1.tag"))),
+            Arrays.asList(
+                new AggregationDescriptor(
+                    AggregationType.COUNT.name().toLowerCase(),
+                    AggregationStep.PARTIAL,
+                    Collections.singletonList(
+                        new TimeSeriesOperand(new PartialPath("root.sg.d1.s1")))),
+                new AggregationDescriptor(
+                    AggregationType.MAX_VALUE.name().toLowerCase(),
+                    AggregationStep.PARTIAL,
+                    Collections.singletonList(
+                        new TimeSeriesOperand(new PartialPath("root.sg.d1.s1"))))),
+            OrderBy.TIMESTAMP_ASC);
+    assertEquals(
+        Arrays.asList("root.sg.d1.tag", "count(root.sg.d1.s1)", "max_value(root.sg.d1.s1)"),
+        hashAggregationNode.getOutputColumnNames());
+
+    ByteBuffer byteBuffer = ByteBuffer.allocate(2048);
+    hashAggregationNode.serialize(byteBuffer);
+    byteBuffer.flip();
+    assertEquals(PlanNodeDeserializeHelper.deserialize(byteBuffer), hashAggregationNode);
+  }
+}
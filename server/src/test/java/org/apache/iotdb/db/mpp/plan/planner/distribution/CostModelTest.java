@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.planner.distribution;
+
+import org.apache.iotdb.db.mpp.plan.planner.distribution.CostModel.DeviceStatistics;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class CostModelTest {
+
+  @Test
+  public void testSplitEvenFile() {
+    DeviceStatistics statistics = new DeviceStatistics(Long.MIN_VALUE, Long.MAX_VALUE);
+    statistics.addFile(0, 999, 1000);
+    Assert.assertEquals(1000, statistics.getTotalCost());
+    Assert.assertEquals(Arrays.asList(250L, 500L, 750L), statistics.getSplitPoints(4));
+  }
+
+  @Test
+  public void testSplitByCostNotByTime() {
+    DeviceStatistics statistics = new DeviceStatistics(Long.MIN_VALUE, Long.MAX_VALUE);
+    // most of the data is in the first half of the time range
+    statistics.addFile(0, 99, 900);
+    statistics.addFile(100, 199, 100);
+    // the smallest t that the cost of [0, t) is not less than 500 is 56, i.e., 9 * 56 >= 500
+    Assert.assertEquals(Collections.singletonList(56L), statistics.getSplitPoints(2));
+  }
+
+  @Test
+  public void testSplitWithTimeFilter() {
+    DeviceStatistics statistics = new DeviceStatistics(500, 999);
+    statistics.addFile(0, 999, 1000);
+    Assert.assertEquals(500, statistics.getTotalCost());
+    Assert.assertEquals(Collections.singletonList(750L), statistics.getSplitPoints(2));
+  }
+
+  @Test
+  public void testSplitWithUnclosedFile() {
+    DeviceStatistics statistics = new DeviceStatistics(Long.MIN_VALUE, Long.MAX_VALUE);
+    statistics.addFile(0, 99, 100);
+    // the end time of the unclosed file is unknown, all of it is selected
+    statistics.addFile(100, Long.MAX_VALUE, 100);
+    Assert.assertEquals(200, statistics.getTotalCost());
+    Assert.assertEquals(Collections.singletonList(100L), statistics.getSplitPoints(2));
+    // the unclosed file can't be split, so there are fewer split points than asked
+    Assert.assertEquals(Arrays.asList(50L, 100L), statistics.getSplitPoints(4));
+  }
+
+  @Test
+  public void testNoSplit() {
+    DeviceStatistics statistics = new DeviceStatistics(Long.MIN_VALUE, Long.MAX_VALUE);
+    Assert.assertTrue(statistics.getSplitPoints(4).isEmpty());
+    statistics.addFile(0, 999, 1000);
+    Assert.assertTrue(statistics.getSplitPoints(1).isEmpty());
+    // one point can't be split
+    DeviceStatistics onePoint = new DeviceStatistics(Long.MIN_VALUE, Long.MAX_VALUE);
+    onePoint.addFile(10, 10, 1000);
+    Assert.assertTrue(onePoint.getSplitPoints(4).isEmpty());
+  }
+
+  @Test
+  public void testSplitRangeFilters() {
+    List<Filter> filters = SourceRewriter.getSplitRangeFilters(Arrays.asList(10L, 20L));
+    Assert.assertEquals(3, filters.size());
+    // the first and the last ranges are open-ended
+    Assert.assertTrue(filters.get(0).satisfy(Long.MIN_VALUE, null));
+    Assert.assertTrue(filters.get(0).satisfy(9, null));
+    Assert.assertFalse(filters.get(0).satisfy(10, null));
+    Assert.assertTrue(filters.get(1).satisfy(10, null));
+    Assert.assertTrue(filters.get(1).satisfy(19, null));
+    Assert.assertFalse(filters.get(1).satisfy(20, null));
+    Assert.assertTrue(filters.get(2).satisfy(20, null));
+    Assert.assertTrue(filters.get(2).satisfy(Long.MAX_VALUE, null));
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.planner.distribution;
+
+import org.apache.iotdb.common.rpc.thrift.TConsensusGroupId;
+import org.apache.iotdb.common.rpc.thrift.TConsensusGroupType;
+import org.apache.iotdb.common.rpc.thrift.TDataNodeLocation;
+import org.apache.iotdb.common.rpc.thrift.TRegionReplicaSet;
+import org.apache.iotdb.commons.exception.IllegalPathException;
+import org.apache.iotdb.consensus.ConsensusFactory;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.metadata.path.MeasurementPath;
+import org.apache.iotdb.db.mpp.common.PlanFragmentId;
+import org.apache.iotdb.db.mpp.plan.planner.plan.PlanFragment;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.source.SeriesScanNode;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class SimpleFragmentParallelPlannerTest {
+
+  private final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private String prevDataRegionConsensusProtocolClass;
+
+  @Before
+  public void setUp() {
+    prevDataRegionConsensusProtocolClass = config.getDataRegionConsensusProtocolClass();
+    config.setDataRegionConsensusProtocolClass(ConsensusFactory.MultiLeaderConsensus);
+  }
+
+  @After
+  public void tearDown() {
+    config.setDataRegionConsensusProtocolClass(prevDataRegionConsensusProtocolClass);
+  }
+
+  @Test
+  public void testSpreadFragmentsOverReplicas() throws IllegalPathException {
+    SimpleFragmentParallelPlanner planner = new SimpleFragmentParallelPlanner(null, null, null);
+    TRegionReplicaSet regionReplicaSet =
+        genRegionReplicaSet(TConsensusGroupType.DataRegion, 1, 11, 12);
+    int[] expected = new int[] {11, 12, 11, 12};
+    for (int i = 0; i < expected.length; i++) {
+      TDataNodeLocation location =
+          planner.selectHostDataNode(genFragment(i, regionReplicaSet), regionReplicaSet);
+      Assert.assertEquals(expected[i], location.getDataNodeId());
+    }
+  }
+
+  @Test
+  public void testKeepDefaultReplica() throws IllegalPathException {
+    SimpleFragmentParallelPlanner planner = new SimpleFragmentParallelPlanner(null, null, null);
+    // only the replicas of DataRegions are spread
+    TRegionReplicaSet schemaRegionReplicaSet =
+        genRegionReplicaSet(TConsensusGroupType.SchemaRegion, 1, 11, 12);
+    Assert.assertNull(
+        planner.selectHostDataNode(genFragment(0, schemaRegionReplicaSet), schemaRegionReplicaSet));
+
+    // only the replicas of MultiLeaderConsensus can be read
+    config.setDataRegionConsensusProtocolClass(ConsensusFactory.RatisConsensus);
+    TRegionReplicaSet dataRegionReplicaSet =
+        genRegionReplicaSet(TConsensusGroupType.DataRegion, 2, 21, 22);
+    Assert.assertNull(
+        planner.selectHostDataNode(genFragment(1, dataRegionReplicaSet), dataRegionReplicaSet));
+  }
+
+  private TRegionReplicaSet genRegionReplicaSet(
+      TConsensusGroupType type, int regionId, int... dataNodeIds) {
+    TDataNodeLocation[] locations = new TDataNodeLocation[dataNodeIds.length];
+    for (int i = 0; i < dataNodeIds.length; i++) {
+      locations[i] = new TDataNodeLocation().setDataNodeId(dataNodeIds[i]);
+    }
+    return new TRegionReplicaSet(new TConsensusGroupId(type, regionId), Arrays.asList(locations));
+  }
+
+  private PlanFragment genFragment(int id, TRegionReplicaSet regionReplicaSet)
+      throws IllegalPathException {
+    // the region is not on this DataNode, so each source counts as one unit of cost
+    SeriesScanNode scanNode =
+        new SeriesScanNode(
+            new PlanNodeId(String.valueOf(id)),
+            new MeasurementPath("root.sg.d1.s1", TSDataType.INT32));
+    scanNode.setRegionReplicaSet(regionReplicaSet);
+    return new PlanFragment(new PlanFragmentId("test", id), scanNode);
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.scheduler;
+
+import org.apache.iotdb.common.rpc.thrift.TEndPoint;
+import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
+import org.apache.iotdb.db.mpp.common.PlanFragmentId;
+import org.apache.iotdb.db.mpp.plan.analyze.QueryType;
+import org.apache.iotdb.db.mpp.plan.planner.plan.FragmentInstance;
+import org.apache.iotdb.db.mpp.plan.planner.plan.PlanFragment;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.ExchangeNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.sink.FragmentSinkNode;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class FragmentInstanceDispatcherImplTest {
+
+  private static final String QUERY_ID = "test_query";
+
+  private static FragmentInstance instance(int fragmentId, PlanNode root) {
+    PlanFragmentId planFragmentId = new PlanFragmentId(QUERY_ID, fragmentId);
+    return new FragmentInstance(
+        new PlanFragment(planFragmentId, root),
+        new FragmentInstanceId(planFragmentId, "0"),
+        null,
+        QueryType.READ);
+  }
+
+  private static FragmentInstance upstreamInstance(int fragmentId, FragmentInstance downstream) {
+    FragmentSinkNode sinkNode = new FragmentSinkNode(new PlanNodeId("sink_" + fragmentId));
+    sinkNode.setDownStream(
+        new TEndPoint("127.0.0.1", 9003),
+        downstream.getId(),
+        new PlanNodeId("exchange_" + fragmentId));
+    return instance(fragmentId, sinkNode);
+  }
+
+  @Test
+  public void testSortByDependency() {
+    FragmentInstance root = instance(0, new ExchangeNode(new PlanNodeId("exchange_1")));
+    FragmentInstance child1 = upstreamInstance(1, root);
+    FragmentInstance child2 = upstreamInstance(2, root);
+    FragmentInstance grandChild = upstreamInstance(3, child1);
+
+    List<List<FragmentInstance>> levels =
+        FragmentInstanceDispatcherImpl.sortByDependency(
+            Arrays.asList(grandChild, child2, root, child1));
+    Assert.assertEquals(3, levels.size());
+    Assert.assertEquals(Collections.singletonList(root), levels.get(0));
+    Assert.assertEquals(Arrays.asList(child2, child1), levels.get(1));
+    Assert.assertEquals(Collections.singletonList(grandChild), levels.get(2));
+  }
+
+  @Test
+  public void testSortByDependencyWithoutDownstream() {
+    FragmentInstance root = instance(0, new ExchangeNode(new PlanNodeId("exchange_1")));
+    // the downstream of the instance is not dispatched together, e.g., the result handle
+    FragmentInstance child =
+        upstreamInstance(1, instance(5, new ExchangeNode(new PlanNodeId("e"))));
+
+    List<List<FragmentInstance>> levels =
+        FragmentInstanceDispatcherImpl.sortByDependency(Arrays.asList(child, root));
+    Assert.assertEquals(1, levels.size());
+    Assert.assertEquals(Arrays.asList(child, root), levels.get(0));
+  }
+}
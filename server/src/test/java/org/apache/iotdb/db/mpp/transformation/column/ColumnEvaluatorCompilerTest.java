@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.transformation.column;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.mpp.plan.expression.ExpressionType;
+import org.apache.iotdb.db.mpp.plan.expression.leaf.ConstantOperand;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnEvaluatorCompilerTest {
+
+  private static final IoTDBConfig CONFIG = IoTDBDescriptor.getInstance().getConfig();
+  private static final List<TSDataType> DATA_TYPES =
+      Arrays.asList(TSDataType.INT32, TSDataType.DOUBLE, TSDataType.TEXT, TSDataType.BOOLEAN);
+  private static final int ROW_NUM = 100;
+
+  @After
+  public void tearDown() {
+    CONFIG.setEnableExpressionCodeGeneration(true);
+  }
+
+  /** s0 = time - 50 (null if time % 7 == 0), s1 = time * 0.5, s2 = 'v' + time % 3, s3 = odd */
+  private static TsBlock generateTsBlock() {
+    TsBlockBuilder builder = new TsBlockBuilder(DATA_TYPES);
+    for (int time = 0; time < ROW_NUM; time++) {
+      builder.getTimeColumnBuilder().writeLong(time);
+      if (time % 7 == 0) {
+        builder.getColumnBuilder(0).appendNull();
+      } else {
+        builder.getColumnBuilder(0).writeInt(time - 50);
+      }
+      builder.getColumnBuilder(1).writeDouble(time * 0.5);
+      if (time % 11 == 0) {
+        builder.getColumnBuilder(2).appendNull();
+      } else {
+        builder.getColumnBuilder(2).writeBinary(new Binary("v" + time % 3));
+      }
+      builder.getColumnBuilder(3).writeBoolean(time % 2 == 1);
+      builder.declarePosition();
+    }
+    return builder.build();
+  }
+
+  private static ColumnEvaluator input(int index) {
+    return new InputColumnEvaluator(index, DATA_TYPES.get(index));
+  }
+
+  private static ColumnEvaluator constant(TSDataType dataType, String value)
+      throws QueryProcessException {
+    return new ConstantColumnEvaluator(new ConstantOperand(dataType, value));
+  }
+
+  /** (-s0 + s1 * 2 > 10 and s2 = 'v1') or (not s3 and time % 5 < 1) */
+  private static ColumnEvaluator predicate(String threshold) throws QueryProcessException {
+    ColumnEvaluator arithmetic =
+        new ArithmeticColumnEvaluator(
+            ExpressionType.ADDITION,
+            new NegationColumnEvaluator(input(0)),
+            new ArithmeticColumnEvaluator(
+                ExpressionType.MULTIPLICATION, input(1), constant(TSDataType.INT32, "2")));
+    ColumnEvaluator left =
+        new LogicAndColumnEvaluator(
+            new CompareColumnEvaluator(
+                ExpressionType.GREATER_THAN, arithmetic, constant(TSDataType.INT32, threshold)),
+            new CompareColumnEvaluator(
+                ExpressionType.EQUAL_TO, input(2), constant(TSDataType.TEXT, "'v1'")));
+    ColumnEvaluator right =
+        new LogicAndColumnEvaluator(
+            new LogicNotColumnEvaluator(input(3)),
+            new CompareColumnEvaluator(
+                ExpressionType.LESS_THAN,
+                new ArithmeticColumnEvaluator(
+                    ExpressionType.MODULO,
+                    new InputColumnEvaluator(
+                        InputColumnEvaluator.TIME_COLUMN_INDEX, TSDataType.INT64),
+                    constant(TSDataType.INT64, "5")),
+                constant(TSDataType.INT32, "1")));
+    return new LogicOrColumnEvaluator(left, right);
+  }
+
+  private static void assertColumnEquals(Column expected, Column actual, int positionCount) {
+    for (int i = 0; i < positionCount; i++) {
+      assertEquals(expected.isNull(i), actual.isNull(i));
+      if (!expected.isNull(i)) {
+        assertEquals(expected.getObject(i), actual.getObject(i));
+      }
+    }
+  }
+
+  @Test
+  public void testCompiledMatchesInterpreted() throws QueryProcessException {
+    TsBlock tsBlock = generateTsBlock();
+    ColumnEvaluator interpreted = predicate("10");
+    ColumnEvaluator compiled = ColumnEvaluatorCompiler.compile(interpreted);
+    assertTrue(compiled instanceof CompiledColumnEvaluator);
+
+    // evaluate on all rows and on every third row
+    assertColumnEquals(
+        interpreted.evaluate(tsBlock, ColumnEvaluator.allPositions(ROW_NUM), ROW_NUM),
+        compiled.evaluate(tsBlock, ColumnEvaluator.allPositions(ROW_NUM), ROW_NUM),
+        ROW_NUM);
+    int[] expectedPositions = new int[ROW_NUM];
+    int positionCount = 0;
+    for (int i = 0; i < ROW_NUM; i += 3) {
+      expectedPositions[positionCount++] = i;
+    }
+    int[] actualPositions = Arrays.copyOf(expectedPositions, ROW_NUM);
+    assertColumnEquals(
+        interpreted.evaluate(tsBlock, expectedPositions, positionCount),
+        compiled.evaluate(tsBlock, actualPositions, positionCount),
+        positionCount);
+
+    int expectedSelected = interpreted.select(tsBlock, expectedPositions, positionCount);
+    int actualSelected = compiled.select(tsBlock, actualPositions, positionCount);
+    assertTrue(expectedSelected > 0);
+    assertEquals(expectedSelected, actualSelected);
+    assertArrayEquals(
+        Arrays.copyOf(expectedPositions, expectedSelected),
+        Arrays.copyOf(actualPositions, actualSelected));
+  }
+
+  @Test
+  public void testProjection() throws QueryProcessException {
+    TsBlock tsBlock = generateTsBlock();
+    // s0 / s1 - 1.5
+    ColumnEvaluator interpreted =
+        new ArithmeticColumnEvaluator(
+            ExpressionType.SUBTRACTION,
+            new ArithmeticColumnEvaluator(ExpressionType.DIVISION, input(0), input(1)),
+            constant(TSDataType.DOUBLE, "1.5"));
+    ColumnEvaluator compiled = ColumnEvaluatorCompiler.compile(interpreted);
+    assertTrue(compiled instanceof CompiledColumnEvaluator);
+    assertEquals(TSDataType.DOUBLE, compiled.getDataType());
+
+    Column column = compiled.evaluate(tsBlock, ColumnEvaluator.allPositions(ROW_NUM), ROW_NUM);
+    for (int time = 0; time < ROW_NUM; time++) {
+      if (time % 7 == 0) {
+        assertTrue(column.isNull(time));
+      } else {
+        assertEquals((time - 50) / (time * 0.5) - 1.5, column.getDouble(time), 0.000001);
+      }
+    }
+  }
+
+  @Test
+  public void testShapeIsCachedAcrossConstants() throws QueryProcessException {
+    ColumnEvaluator first = ColumnEvaluatorCompiler.compile(predicate("10"));
+    ColumnEvaluator second = ColumnEvaluatorCompiler.compile(predicate("60"));
+    assertSame(
+        ((CompiledColumnEvaluator) first).getCompiledExpression().getClass(),
+        ((CompiledColumnEvaluator) second).getCompiledExpression().getClass());
+
+    TsBlock tsBlock = generateTsBlock();
+    int[] firstPositions = ColumnEvaluator.allPositions(ROW_NUM);
+    int[] secondPositions = ColumnEvaluator.allPositions(ROW_NUM);
+    assertTrue(
+        first.select(tsBlock, firstPositions, ROW_NUM)
+            > second.select(tsBlock, secondPositions, ROW_NUM));
+  }
+
+  @Test
+  public void testDisabled() throws QueryProcessException {
+    CONFIG.setEnableExpressionCodeGeneration(false);
+    ColumnEvaluator interpreted = predicate("10");
+    assertSame(interpreted, ColumnEvaluatorCompiler.compile(interpreted));
+    assertFalse(ColumnEvaluatorCompiler.compile(input(0)) instanceof CompiledColumnEvaluator);
+  }
+}
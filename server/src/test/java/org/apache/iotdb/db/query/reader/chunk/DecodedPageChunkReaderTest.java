@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.reader.chunk;
+
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.cache.ChunkCache.ChunkCacheKey;
+import org.apache.iotdb.db.engine.cache.DecodedPageCache;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.reader.IChunkReader;
+import org.apache.iotdb.tsfile.read.reader.IPageReader;
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
+import org.apache.iotdb.tsfile.write.chunk.ChunkWriterImpl;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class DecodedPageChunkReaderTest {
+
+  private static final String FILE_PATH =
+      TestConstant.BASE_OUTPUT_PATH.concat("DecodedPageChunkReaderTest.tsfile");
+  private static final String DEVICE = "root.sg.d1";
+  private static final String SENSOR = "s1";
+  private static final int POINT_NUM = 1000;
+
+  private final TSFileConfig tsFileConfig = TSFileDescriptor.getInstance().getConfig();
+  private final DecodedPageCache cache = DecodedPageCache.getInstance();
+  private int prevMaxNumberOfPointsInPage;
+  private long prevMaxMemory;
+
+  @Before
+  public void setUp() throws IOException {
+    prevMaxNumberOfPointsInPage = tsFileConfig.getMaxNumberOfPointsInPage();
+    tsFileConfig.setMaxNumberOfPointsInPage(100);
+    prevMaxMemory = cache.getMaxMemory();
+    cache.setMaxMemory(1024 * 1024);
+    cache.clear();
+    File file = new File(FILE_PATH);
+    if (!file.getParentFile().exists()) {
+      Assert.assertTrue(file.getParentFile().mkdirs());
+    }
+    try (TsFileIOWriter writer = new TsFileIOWriter(file)) {
+      writer.startChunkGroup(DEVICE);
+      ChunkWriterImpl chunkWriter =
+          new ChunkWriterImpl(new MeasurementSchema(SENSOR, TSDataType.INT64, TSEncoding.RLE));
+      for (long time = 0; time < POINT_NUM; time++) {
+        chunkWriter.write(time, time * 2);
+      }
+      chunkWriter.writeToFileWriter(writer);
+      writer.endChunkGroup();
+      writer.endFile();
+    }
+  }
+
+  @After
+  public void tearDown() {
+    tsFileConfig.setMaxNumberOfPointsInPage(prevMaxNumberOfPointsInPage);
+    cache.setMaxMemory(prevMaxMemory);
+    cache.clear();
+    File file = new File(FILE_PATH);
+    if (file.exists()) {
+      Assert.assertTrue(file.delete());
+    }
+  }
+
+  @Test
+  public void testReadSameAsChunkReader() throws IOException {
+    Filter filter = TimeFilter.gtEq(150L);
+    List<TimeRange> deleteIntervals = Collections.singletonList(new TimeRange(300L, 320L));
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(FILE_PATH)) {
+      ChunkMetadata chunkMetadata = reader.getChunkMetadataList(new Path(DEVICE, SENSOR)).get(0);
+      chunkMetadata.setFilePath(FILE_PATH);
+      ChunkCacheKey chunkKey = new ChunkCacheKey(chunkMetadata);
+      List<Long> expected =
+          readAll(new ChunkReader(createChunk(reader, chunkMetadata, deleteIntervals), filter));
+      Assert.assertEquals(POINT_NUM - 150 - 21, expected.size() / 2);
+
+      // read twice, the second time may read the cached pages
+      for (int i = 0; i < 2; i++) {
+        DecodedPageChunkReader chunkReader =
+            new DecodedPageChunkReader(
+                chunkKey, createChunk(reader, chunkMetadata, deleteIntervals), filter, false);
+        Assert.assertEquals(9, chunkReader.loadPageReaderList().size());
+        Assert.assertEquals(expected, readAll(chunkReader));
+      }
+    }
+  }
+
+  @Test
+  public void testReadDescending() throws IOException {
+    Filter filter = TimeFilter.gtEq(150L);
+    List<TimeRange> deleteIntervals = Collections.singletonList(new TimeRange(300L, 320L));
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(FILE_PATH)) {
+      ChunkMetadata chunkMetadata = reader.getChunkMetadataList(new Path(DEVICE, SENSOR)).get(0);
+      chunkMetadata.setFilePath(FILE_PATH);
+      ChunkCacheKey chunkKey = new ChunkCacheKey(chunkMetadata);
+      List<Long> expectedTimes = new ArrayList<>();
+      for (long time = POINT_NUM - 1; time >= 150; time--) {
+        if (time < 300 || time > 320) {
+          expectedTimes.add(time);
+        }
+      }
+
+      for (int i = 0; i < 2; i++) {
+        List<IPageReader> pageReaders =
+            new DecodedPageChunkReader(
+                    chunkKey, createChunk(reader, chunkMetadata, deleteIntervals), filter, false)
+                .loadPageReaderList();
+        List<Long> times = new ArrayList<>();
+        for (int j = pageReaders.size() - 1; j >= 0; j--) {
+          TsBlock tsBlock = ((DecodedPageReader) pageReaders.get(j)).getAllSatisfiedData(false);
+          for (int k = 0; k < tsBlock.getPositionCount(); k++) {
+            long time = tsBlock.getTimeColumn().getLong(k);
+            Assert.assertEquals(time * 2, tsBlock.getColumn(0).getLong(k));
+            times.add(time);
+          }
+        }
+        Assert.assertEquals(expectedTimes, times);
+      }
+    }
+  }
+
+  @Test
+  public void testReturnCachedPageIfAllSatisfied() throws IOException {
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(FILE_PATH)) {
+      ChunkMetadata chunkMetadata = reader.getChunkMetadataList(new Path(DEVICE, SENSOR)).get(0);
+      chunkMetadata.setFilePath(FILE_PATH);
+      ChunkCacheKey chunkKey = new ChunkCacheKey(chunkMetadata);
+      Filter filter = TimeFilter.gtEq(0L);
+      TsBlock first =
+          new DecodedPageChunkReader(
+                  chunkKey,
+                  createChunk(reader, chunkMetadata, Collections.emptyList()),
+                  filter,
+                  false)
+              .loadPageReaderList()
+              .get(0)
+              .getAllSatisfiedData();
+      TsBlock second =
+          new DecodedPageChunkReader(
+                  chunkKey,
+                  createChunk(reader, chunkMetadata, Collections.emptyList()),
+                  filter,
+                  false)
+              .loadPageReaderList()
+              .get(0)
+              .getAllSatisfiedData();
+      Assert.assertEquals(100, first.getPositionCount());
+      Assert.assertSame(first, second);
+      Assert.assertTrue(cache.calculateDecodedPageHitRatio() > 0);
+    }
+  }
+
+  @Test
+  public void testCopyPageIfNotAllSatisfied() throws IOException {
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(FILE_PATH)) {
+      ChunkMetadata chunkMetadata = reader.getChunkMetadataList(new Path(DEVICE, SENSOR)).get(0);
+      chunkMetadata.setFilePath(FILE_PATH);
+      ChunkCacheKey chunkKey = new ChunkCacheKey(chunkMetadata);
+      TsBlock cached = readPages(reader, chunkMetadata, chunkKey, null, false).get(0);
+      TsBlock filtered =
+          readPages(reader, chunkMetadata, chunkKey, TimeFilter.gtEq(50L), false).get(0);
+      Assert.assertNotSame(cached, filtered);
+      Assert.assertEquals(50, filtered.getPositionCount());
+      Assert.assertEquals(50L, filtered.getTimeColumn().getLong(0));
+      // the whole page is still cached
+      Assert.assertSame(cached, readPages(reader, chunkMetadata, chunkKey, null, false).get(0));
+    }
+  }
+
+  @Test
+  public void testBypassCache() throws IOException {
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(FILE_PATH)) {
+      ChunkMetadata chunkMetadata = reader.getChunkMetadataList(new Path(DEVICE, SENSOR)).get(0);
+      chunkMetadata.setFilePath(FILE_PATH);
+      ChunkCacheKey chunkKey = new ChunkCacheKey(chunkMetadata);
+      List<TsBlock> pages = readPages(reader, chunkMetadata, chunkKey, null, true);
+      Assert.assertEquals(POINT_NUM / 100, pages.size());
+      Assert.assertTrue(cache.isEmpty());
+      Assert.assertNotSame(
+          pages.get(0), readPages(reader, chunkMetadata, chunkKey, null, true).get(0));
+    }
+  }
+
+  @Test
+  public void testEvictPages() throws IOException {
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(FILE_PATH)) {
+      ChunkMetadata chunkMetadata = reader.getChunkMetadataList(new Path(DEVICE, SENSOR)).get(0);
+      chunkMetadata.setFilePath(FILE_PATH);
+      ChunkCacheKey chunkKey = new ChunkCacheKey(chunkMetadata);
+      List<TsBlock> cached = readPages(reader, chunkMetadata, chunkKey, null, false);
+      Assert.assertEquals(POINT_NUM / 100, cached.size());
+
+      // only one page fits in the cache
+      long evictionCount = cache.getEvictionCount();
+      cache.setMaxMemory(cached.get(0).getRetainedSizeInBytes());
+      Assert.assertTrue(cache.getEvictionCount() - evictionCount >= cached.size() - 1);
+
+      List<TsBlock> pages = readPages(reader, chunkMetadata, chunkKey, null, false);
+      int decodedAgain = 0;
+      for (int i = 0; i < pages.size(); i++) {
+        Assert.assertEquals(
+            cached.get(i).getTimeColumn().getLong(0), pages.get(i).getTimeColumn().getLong(0));
+        if (pages.get(i) != cached.get(i)) {
+          decodedAgain++;
+        }
+      }
+      Assert.assertTrue(decodedAgain >= cached.size() - 1);
+    }
+  }
+
+  private List<TsBlock> readPages(
+      TsFileSequenceReader reader,
+      ChunkMetadata chunkMetadata,
+      ChunkCacheKey chunkKey,
+      Filter filter,
+      boolean bypassCache)
+      throws IOException {
+    DecodedPageChunkReader chunkReader =
+        new DecodedPageChunkReader(
+            chunkKey,
+            createChunk(reader, chunkMetadata, Collections.emptyList()),
+            filter,
+            bypassCache);
+    List<TsBlock> pages = new ArrayList<>();
+    for (IPageReader pageReader : chunkReader.loadPageReaderList()) {
+      pages.add(pageReader.getAllSatisfiedData());
+    }
+    return pages;
+  }
+
+  private Chunk createChunk(
+      TsFileSequenceReader reader, ChunkMetadata chunkMetadata, List<TimeRange> deleteIntervals)
+      throws IOException {
+    Chunk chunk = reader.readMemChunk(chunkMetadata);
+    return new Chunk(
+        chunk.getHeader(), chunk.getData(), deleteIntervals, chunkMetadata.getStatistics());
+  }
+
+  /** @return time and value of all the satisfied points */
+  private List<Long> readAll(IChunkReader chunkReader) throws IOException {
+    List<Long> result = new ArrayList<>();
+    for (IPageReader pageReader : chunkReader.loadPageReaderList()) {
+      TsBlock tsBlock = pageReader.getAllSatisfiedData();
+      for (int i = 0; i < tsBlock.getPositionCount(); i++) {
+        result.add(tsBlock.getTimeColumn().getLong(i));
+        result.add(tsBlock.getColumn(0).getLong(i));
+      }
+    }
+    return result;
+  }
+}
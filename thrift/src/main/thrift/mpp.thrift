@@ -57,6 +57,8 @@ struct TGetDataBlockRequest {
 
 struct TGetDataBlockResponse {
   1: required list<binary> tsBlocks
+  // set if the TsBlocks are compressed, see TsBlockCompressor
+  2: optional byte compressionType
 }
 
 struct TAcknowledgeDataBlockEvent {
@@ -98,6 +100,14 @@ struct TSendFragmentInstanceResp {
   2: optional string message
 }
 
+struct TSendBatchFragmentInstanceReq {
+  1: required list<TSendFragmentInstanceReq> requests
+}
+
+struct TSendBatchFragmentInstanceResp {
+  1: required list<TSendFragmentInstanceResp> responses
+}
+
 struct TSendPlanNodeReq {
   1: required TPlanNode planNode
   2: required common.TConsensusGroupId consensusGroupId
@@ -168,6 +178,12 @@ service InternalService {
   */
   TSendFragmentInstanceResp sendFragmentInstance(TSendFragmentInstanceReq req);
 
+  /**
+  * dispatch all the FragmentInstances of a query hosted by the same remote node in one request,
+  * the responses are in the same order as the requests
+  */
+  TSendBatchFragmentInstanceResp sendBatchFragmentInstance(TSendBatchFragmentInstanceReq req);
+
   /**
   * disptcher PlanNode to remote node for write request in order to save resource
   */
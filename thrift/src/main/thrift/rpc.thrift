@@ -126,6 +126,28 @@ struct TSExecuteStatementReq {
   6: optional bool enableRedirectQuery;
 
   7: optional bool jdbcQuery;
+
+  // The values bound to the parameter slots of the statement prepared on statementId, in which
+  // case the statement is the prepared one
+  8: optional list<string> parameters
+}
+
+// PrepareStatement()
+//
+// Prepare a statement with parameter slots '?' on the statementId, which is executed by
+// ExecuteStatement() with the parameters bound to the slots.
+struct TSPrepareStatementReq {
+  1: required i64 sessionId
+
+  2: required i64 statementId
+
+  3: required string statement
+}
+
+struct TSPrepareStatementResp {
+  1: required common.TSStatus status
+
+  2: optional i32 parameterCount
 }
 
 struct TSExecuteBatchStatementReq{
@@ -483,6 +505,8 @@ service TSIService {
 
   i64 requestStatementId(1:i64 sessionId);
 
+  TSPrepareStatementResp prepareStatement(1:TSPrepareStatementReq req);
+
   common.TSStatus createSchemaTemplate(1:TSCreateSchemaTemplateReq req);
 
   common.TSStatus appendSchemaTemplate(1:TSAppendSchemaTemplateReq req);
@@ -317,6 +317,16 @@ public class ChunkMetadata implements IChunkMetadata {
     return filePath;
   }
 
+  /** @return the path of the directory of the file relative to the data dir */
+  public String getTsFilePrefixPath() {
+    return tsFilePrefixPath;
+  }
+
+  /** @return high 32 bit is compaction level, low 32 bit is merge count */
+  public long getCompactionVersion() {
+    return compactionVersion;
+  }
+
   public void setFilePath(String filePath) {
     this.filePath = filePath;
 
@@ -121,6 +121,12 @@ public class TimeColumn implements Column {
     }
   }
 
+  /** Copy the times of [positionOffset, positionOffset + length) to target from targetOffset. */
+  void copyTo(int positionOffset, long[] target, int targetOffset, int length) {
+    checkValidRegion(getPositionCount(), positionOffset, length);
+    System.arraycopy(values, positionOffset + arrayOffset, target, targetOffset, length);
+  }
+
   public long getStartTime() {
     return values[arrayOffset];
   }
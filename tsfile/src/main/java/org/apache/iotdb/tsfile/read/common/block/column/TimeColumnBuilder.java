@@ -66,6 +66,21 @@ public class TimeColumnBuilder implements ColumnBuilder {
     return this;
   }
 
+  /** Write the times of [positionOffset, positionOffset + length) of timeColumn in one copy. */
+  public TimeColumnBuilder writeTimes(TimeColumn timeColumn, int positionOffset, int length) {
+    while (values.length < positionCount + length) {
+      growCapacity();
+    }
+
+    timeColumn.copyTo(positionOffset, values, positionCount, length);
+
+    positionCount += length;
+    if (columnBuilderStatus != null) {
+      columnBuilderStatus.addBytes(TimeColumn.SIZE_IN_BYTES_PER_POSITION * length);
+    }
+    return this;
+  }
+
   /** Write an Object to the current entry, which should be the Long type; */
   @Override
   public ColumnBuilder writeObject(Object value) {
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.write.writer;
+
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A TsFileIOWriter which encodes chunk groups into an in-memory buffer instead of a file. Neither
+ * the magic string nor the file metadata is written, so the buffered chunk groups can be appended
+ * to a real TsFile later by {@link TsFileIOWriter#appendChunkGroups(MemTsFileIOWriter)}. This makes
+ * it possible to encode several devices concurrently while keeping their order in the target file.
+ */
+public class MemTsFileIOWriter extends TsFileIOWriter {
+
+  private final PublicBAOS buffer;
+
+  public MemTsFileIOWriter() {
+    this(new PublicBAOS());
+  }
+
+  public MemTsFileIOWriter(int initialSize) {
+    this(new PublicBAOS(initialSize));
+  }
+
+  private MemTsFileIOWriter(PublicBAOS buffer) {
+    this.buffer = buffer;
+    this.out = new MemTsFileOutput(buffer);
+  }
+
+  /** @return the number of bytes buffered so far */
+  public int getBufferedSize() {
+    return buffer.size();
+  }
+
+  void writeBufferTo(OutputStream outputStream) throws IOException {
+    buffer.writeTo(outputStream);
+  }
+
+  /** Drop all buffered chunk groups so that this writer can be reused. */
+  public void reset() {
+    buffer.reset();
+    chunkGroupMetadataList.clear();
+    chunkMetadataList = null;
+  }
+
+  @Override
+  public void endFile() {
+    throw new UnsupportedOperationException(
+        "MemTsFileIOWriter only buffers chunk groups, append it to a TsFileIOWriter instead");
+  }
+
+  @Override
+  public void close() {
+    // nothing to close, the buffer is released with this writer
+  }
+
+  private static class MemTsFileOutput implements TsFileOutput {
+
+    private final PublicBAOS buffer;
+
+    private MemTsFileOutput(PublicBAOS buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public void write(byte[] b) throws IOException {
+      buffer.write(b);
+    }
+
+    @Override
+    public void write(byte b) {
+      buffer.write(b);
+    }
+
+    @Override
+    public void write(ByteBuffer b) {
+      // keep the same semantic as LocalTsFileOutput, which writes the whole backing array
+      buffer.write(b.array(), 0, b.array().length);
+    }
+
+    @Override
+    public long getPosition() {
+      return buffer.size();
+    }
+
+    @Override
+    public void close() {
+      // nothing to close
+    }
+
+    @Override
+    public OutputStream wrapAsStream() {
+      return buffer;
+    }
+
+    @Override
+    public void flush() {
+      // nothing to flush
+    }
+
+    @Override
+    public void truncate(long size) {
+      buffer.truncate((int) size);
+    }
+  }
+}
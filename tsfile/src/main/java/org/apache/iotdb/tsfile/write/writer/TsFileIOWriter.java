@@ -234,6 +234,37 @@ public class TsFileIOWriter implements AutoCloseable {
     }
   }
 
+  /**
+   * Append all the chunk groups buffered in a {@link MemTsFileIOWriter} to the end of this file.
+   * The offsets recorded in the buffered chunk metadata are relative to the buffer, so they are
+   * rebased onto the current position of this file.
+   *
+   * @param memWriter the writer holding the encoded chunk groups, it should not be writing a chunk
+   *     group any more
+   * @throws IOException if I/O error occurs
+   */
+  public void appendChunkGroups(MemTsFileIOWriter memWriter) throws IOException {
+    long baseOffset = out.getPosition();
+    memWriter.writeBufferTo(out.wrapAsStream());
+    for (ChunkGroupMetadata chunkGroupMetadata : memWriter.chunkGroupMetadataList) {
+      List<ChunkMetadata> rebasedChunkMetadataList =
+          new ArrayList<>(chunkGroupMetadata.getChunkMetadataList().size());
+      for (ChunkMetadata chunkMetadata : chunkGroupMetadata.getChunkMetadataList()) {
+        ChunkMetadata rebasedChunkMetadata =
+            new ChunkMetadata(
+                chunkMetadata.getMeasurementUid(),
+                chunkMetadata.getDataType(),
+                baseOffset + chunkMetadata.getOffsetOfChunkHeader(),
+                chunkMetadata.getStatistics());
+        rebasedChunkMetadata.setMask(chunkMetadata.getMask());
+        rebasedChunkMetadataList.add(rebasedChunkMetadata);
+      }
+      chunkGroupMetadataList.add(
+          new ChunkGroupMetadata(chunkGroupMetadata.getDevice(), rebasedChunkMetadataList));
+    }
+    out.flush();
+  }
+
   /** end chunk and write some log. */
   public void endCurrentChunk() {
     chunkMetadataList.add(currentChunkMetadata);
@@ -413,6 +444,11 @@ public class TsFileIOWriter implements AutoCloseable {
     return file;
   }
 
+  /** @return the metadata of all the chunk groups written so far, in the order of writing */
+  public List<ChunkGroupMetadata> getChunkGroupMetadataList() {
+    return chunkGroupMetadataList;
+  }
+
   public void setFile(File file) {
     this.file = file;
   }
@@ -76,6 +76,31 @@ public class ColumnTest {
     }
   }
 
+  @Test
+  public void timeColumnBuilderWriteTimesTest() {
+    TimeColumnBuilder columnBuilder = new TimeColumnBuilder(null, 10);
+    for (int i = 0; i < 10; i++) {
+      columnBuilder.writeLong(i);
+    }
+    TimeColumn timeColumn = (TimeColumn) columnBuilder.build().subColumn(2);
+
+    TimeColumnBuilder targetBuilder = new TimeColumnBuilder(null, 1);
+    targetBuilder.writeLong(-1);
+    targetBuilder.writeTimes(timeColumn, 1, 6);
+    targetBuilder.writeTimes(timeColumn, 7, 0);
+    Assert.assertEquals(7, targetBuilder.getPositionCount());
+    Assert.assertEquals(-1, targetBuilder.getTime(0));
+    for (int i = 1; i < 7; i++) {
+      Assert.assertEquals(i + 2, targetBuilder.getTime(i));
+    }
+    try {
+      targetBuilder.writeTimes(timeColumn, 5, 4);
+      Assert.fail();
+    } catch (IndexOutOfBoundsException e) {
+      Assert.assertEquals(7, targetBuilder.getPositionCount());
+    }
+  }
+
   @Test
   public void binaryColumnSubColumnTest() {
     BinaryColumnBuilder columnBuilder = new BinaryColumnBuilder(null, 10);
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.write.writer;
+
+import org.apache.iotdb.tsfile.constant.TestConstant;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
+import org.apache.iotdb.tsfile.write.chunk.ChunkWriterImpl;
+import org.apache.iotdb.tsfile.write.page.PageWriter;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ChunkWriterImplTest {
+
+  private static final String FILE_PATH = TestConstant.BASE_OUTPUT_PATH.concat("chunkWriter.tsfile");
+  private static final String DEVICE = "root.sg.d1";
+  private static final int POINTS_IN_PAGE = 10;
+
+  private final MeasurementSchema schema =
+      new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.PLAIN, CompressionType.UNCOMPRESSED);
+
+  @After
+  public void tearDown() {
+    new File(FILE_PATH).delete();
+  }
+
+  /**
+   * Copy serialized pages into a chunk writer which is flushed several times, each chunk has a
+   * different number of pages, and the copied data should be read back as is.
+   */
+  @Test
+  public void testWritePagesAcrossFlushedChunks() throws Exception {
+    int[] pagesOfChunks = {2, 3, 1, 4};
+    long time = 0;
+    try (TsFileIOWriter writer = new TsFileIOWriter(new File(FILE_PATH))) {
+      writer.startChunkGroup(DEVICE);
+      ChunkWriterImpl chunkWriter = new ChunkWriterImpl(schema);
+      for (int pages : pagesOfChunks) {
+        for (int i = 0; i < pages; i++) {
+          PageWriter pageWriter = new PageWriter(schema);
+          for (int j = 0; j < POINTS_IN_PAGE; j++, time++) {
+            pageWriter.write(time, time * 10);
+          }
+          ByteBuffer pageData = pageWriter.getUncompressedBytes();
+          PageHeader pageHeader =
+              new PageHeader(
+                  pageData.remaining(), pageData.remaining(), pageWriter.getStatistics());
+          chunkWriter.writePageHeaderAndDataIntoBuff(pageData, pageHeader);
+        }
+        chunkWriter.writeToFileWriter(writer);
+      }
+      writer.endChunkGroup();
+      writer.endFile();
+    }
+
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(FILE_PATH)) {
+      List<ChunkMetadata> chunkMetadataList =
+          reader.getChunkMetadataList(new Path(DEVICE, schema.getMeasurementId()));
+      assertEquals(pagesOfChunks.length, chunkMetadataList.size());
+      long expectedTime = 0;
+      for (int i = 0; i < pagesOfChunks.length; i++) {
+        ChunkMetadata chunkMetadata = chunkMetadataList.get(i);
+        assertEquals(expectedTime, chunkMetadata.getStartTime());
+        assertEquals(
+            (long) pagesOfChunks[i] * POINTS_IN_PAGE, chunkMetadata.getStatistics().getCount());
+        ChunkReader chunkReader = new ChunkReader(reader.readMemChunk(chunkMetadata), null);
+        int pages = 0;
+        while (chunkReader.hasNextSatisfiedPage()) {
+          BatchData batchData = chunkReader.nextPageData();
+          while (batchData.hasCurrent()) {
+            assertEquals(expectedTime, batchData.currentTime());
+            assertEquals(expectedTime * 10, batchData.getLong());
+            expectedTime++;
+            batchData.next();
+          }
+          pages++;
+        }
+        assertEquals(pagesOfChunks[i], pages);
+      }
+      assertEquals(time, expectedTime);
+    }
+  }
+}
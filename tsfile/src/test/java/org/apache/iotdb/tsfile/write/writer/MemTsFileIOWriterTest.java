@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.write.writer;
+
+import org.apache.iotdb.tsfile.constant.TestConstant;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
+import org.apache.iotdb.tsfile.write.chunk.ChunkWriterImpl;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+public class MemTsFileIOWriterTest {
+
+  private static final String FILE_PATH =
+      TestConstant.BASE_OUTPUT_PATH.concat("MemTsFileIOWriterTest.tsfile");
+  private static final String[] DEVICES = new String[] {"root.sg.d1", "root.sg.d2", "root.sg.d3"};
+  private static final String SENSOR = "s1";
+  private static final int POINT_NUM = 1000;
+
+  @After
+  public void after() {
+    File file = new File(FILE_PATH);
+    if (file.exists()) {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void appendChunkGroupsTest() throws IOException {
+    MeasurementSchema schema = new MeasurementSchema(SENSOR, TSDataType.INT64, TSEncoding.RLE);
+    try (TsFileIOWriter writer = new TsFileIOWriter(new File(FILE_PATH))) {
+      for (int i = 0; i < DEVICES.length; i++) {
+        MemTsFileIOWriter memWriter = new MemTsFileIOWriter();
+        memWriter.startChunkGroup(DEVICES[i]);
+        ChunkWriterImpl chunkWriter = new ChunkWriterImpl(schema);
+        for (long time = 0; time < POINT_NUM; time++) {
+          chunkWriter.write(time, time * (i + 1));
+        }
+        chunkWriter.writeToFileWriter(memWriter);
+        memWriter.endChunkGroup();
+        Assert.assertTrue(memWriter.getBufferedSize() > 0);
+        writer.appendChunkGroups(memWriter);
+      }
+      writer.endFile();
+    }
+
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(FILE_PATH)) {
+      Assert.assertEquals(DEVICES.length, reader.getAllDevices().size());
+      for (int i = 0; i < DEVICES.length; i++) {
+        List<ChunkMetadata> chunkMetadataList =
+            reader.getChunkMetadataList(new Path(DEVICES[i], SENSOR));
+        Assert.assertEquals(1, chunkMetadataList.size());
+        Chunk chunk = reader.readMemChunk(chunkMetadataList.get(0));
+        ChunkReader chunkReader = new ChunkReader(chunk, null);
+        long expectedTime = 0;
+        while (chunkReader.hasNextSatisfiedPage()) {
+          BatchData batchData = chunkReader.nextPageData();
+          while (batchData.hasCurrent()) {
+            Assert.assertEquals(expectedTime, batchData.currentTime());
+            Assert.assertEquals(expectedTime * (i + 1), batchData.getLong());
+            expectedTime++;
+            batchData.next();
+          }
+        }
+        Assert.assertEquals(POINT_NUM, expectedTime);
+      }
+    }
+  }
+}